@@ -24,6 +24,7 @@ import org.springframework.boot.autoconfigure.dao.PersistenceExceptionTranslatio
 import org.springframework.boot.autoconfigure.gson.GsonAutoConfiguration;
 import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
 import org.springframework.boot.autoconfigure.transaction.TransactionAutoConfiguration;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
 import org.springframework.context.annotation.Configuration;
 
 /**
@@ -46,6 +47,9 @@ import org.springframework.context.annotation.Configuration;
     }
 )
 public class GenieAgentApplication {
+    // Plenty for the agent's own context, steps past this are dropped rather than growing the buffer
+    private static final int STARTUP_STEPS_CAPACITY = 4_096;
+
     /**
      * Main method, actual execution is delegated to GenieAgentRunner.
      *
@@ -60,6 +64,8 @@ public class GenieAgentApplication {
         final SpringApplication app = new SpringApplication(GenieAgentApplication.class);
         // Disable parsing of command-line arguments into properties.
         app.setAddCommandLineProperties(false);
+        // Keep the startup steps around so the info command can report where startup time went
+        app.setApplicationStartup(new BufferingApplicationStartup(STARTUP_STEPS_CAPACITY));
 
         //TODO: workaround for https://jira.spring.io/browse/SPR-17416
         // Spring chokes on argument '--' (a.k.a. bare double dash) conventionally used to separate options from
@@ -29,10 +29,15 @@ import com.netflix.genie.common.internal.tracing.brave.BraveTracePropagator;
 import com.netflix.genie.common.internal.tracing.brave.BraveTracingCleanup;
 import com.netflix.genie.common.internal.tracing.brave.BraveTracingComponents;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.ExitCodeGenerator;
 import org.springframework.core.env.Environment;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.Optional;
 import java.util.Set;
@@ -95,14 +100,17 @@ public class GenieAgentRunner implements CommandLineRunner, ExitCodeGenerator {
         }
     }
 
-    private void internalRun(final String[] args) {
+    private void internalRun(final String[] args) throws IOException {
         final SpanCustomizer span = this.tracer.currentSpanCustomizer();
         log.info("Parsing arguments: {}", Arrays.toString(args));
 
         this.exitCode = ExitCode.INVALID_ARGS;
 
         //TODO: workaround for https://jira.spring.io/browse/SPR-17416
-        final String[] originalArgs = Util.unmangleBareDoubleDash(args);
+        String[] originalArgs = Util.unmangleBareDoubleDash(args);
+        if (Util.hasStandbyJobId(originalArgs)) {
+            originalArgs = Util.replaceStandbyJobId(originalArgs, this.awaitStandbyJobId());
+        }
         log.debug("Arguments: {}", Arrays.toString(originalArgs));
 
         try {
@@ -142,6 +150,18 @@ public class GenieAgentRunner implements CommandLineRunner, ExitCodeGenerator {
         return this.exitCode.getCode();
     }
 
+    private String awaitStandbyJobId() throws IOException {
+        // The server started this agent ahead of time, everything is booted so block until it hands over a job
+        log.info("Standing by for a job id on standard input");
+        final BufferedReader reader = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+        final String jobId = reader.readLine();
+        if (StringUtils.isBlank(jobId)) {
+            throw new IllegalArgumentException("Standard input closed before a job id was received");
+        }
+        log.info("Received job id {} while on standby", jobId.trim());
+        return jobId.trim();
+    }
+
     private ScopedSpan initializeTracing() {
         // Attempt to extract any existing trace information from the environment
         final Optional<TraceContext> existingTraceContext = this.tracePropagator.extract(System.getenv());
@@ -28,11 +28,19 @@ import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.tuple.Pair;
 import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.context.metrics.buffering.StartupTimeline;
 import org.springframework.context.ConfigurableApplicationContext;
 import org.springframework.core.env.PropertySource;
 import org.springframework.core.env.PropertySources;
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.core.metrics.StartupStep;
 
 import javax.validation.constraints.Min;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -207,11 +215,67 @@ class InfoCommand implements AgentCommand {
             createStateMachineDotGraph(stages, messageBuilder);
         }
 
+        if (infoCommandArguments.getIncludeStartupTimeline()) {
+            createStartupTimeline(messageBuilder);
+        }
+
         System.out.println(messageBuilder);
 
         return ExitCode.SUCCESS;
     }
 
+    private void createStartupTimeline(final StringBuilder messageBuilder) {
+        final ApplicationStartup applicationStartup = applicationContext.getApplicationStartup();
+        if (!(applicationStartup instanceof BufferingApplicationStartup)) {
+            messageBuilder
+                .append("Startup timeline: not recorded")
+                .append(NEWLINE);
+            return;
+        }
+
+        final StartupTimeline timeline = ((BufferingApplicationStartup) applicationStartup).getBufferedTimeline();
+        final Instant jvmStartTime = Instant.ofEpochMilli(ManagementFactory.getRuntimeMXBean().getStartTime());
+        // Events are recorded as steps end, list them in the order they started instead
+        final List<StartupTimeline.TimelineEvent> events = Lists.newArrayList(timeline.getEvents());
+        events.sort(Comparator.comparing(StartupTimeline.TimelineEvent::getStartTime));
+
+        messageBuilder
+            .append("Startup timeline: ")
+            .append(events.size())
+            .append(" steps")
+            .append(NEWLINE)
+            .append("  JVM start to application start: ")
+            .append(Duration.between(jvmStartTime, timeline.getStartTime()).toMillis())
+            .append("ms")
+            .append(NEWLINE);
+
+        for (final StartupTimeline.TimelineEvent event : events) {
+            final StringBuilder tags = new StringBuilder();
+            for (final StartupStep.Tag tag : event.getStartupStep().getTags()) {
+                tags
+                    .append(tags.length() == 0 ? " [" : ", ")
+                    .append(tag.getKey())
+                    .append("=")
+                    .append(tag.getValue());
+            }
+            if (tags.length() > 0) {
+                tags.append("]");
+            }
+
+            messageBuilder
+                .append(
+                    String.format(
+                        "  - +%dms %s: %dms%s",
+                        Duration.between(timeline.getStartTime(), event.getStartTime()).toMillis(),
+                        event.getStartupStep().getName(),
+                        event.getDuration().toMillis(),
+                        tags
+                    )
+                )
+                .append(NEWLINE);
+        }
+    }
+
     private void createStateMachineDotGraph(
         final List<ExecutionStage> stages,
         final StringBuilder messageBuilder
@@ -348,6 +412,8 @@ class InfoCommand implements AgentCommand {
         private Boolean includeProperties = true;
         @Parameter(names = {"--state-machine"}, description = "Print job execution state machine in (.dot notation)")
         private Boolean includeStateMachine = false;
+        @Parameter(names = {"--startup-timeline"}, description = "Print agent startup steps and timings")
+        private Boolean includeStartupTimeline = false;
 
         @Override
         public Class<? extends AgentCommand> getConsumerClass() {
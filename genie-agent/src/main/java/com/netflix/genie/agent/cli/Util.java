@@ -17,6 +17,8 @@
  */
 package com.netflix.genie.agent.cli;
 
+import com.netflix.genie.common.internal.jobs.JobConstants;
+
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -63,6 +65,27 @@ public final class Util {
         return replaceAll(args, BARE_DOUBLE_DASH_REPLACEMENT, BARE_DOUBLE_DASH);
     }
 
+    /**
+     * Whether the arguments belong to an agent started on standby, which receives its job id after booting.
+     *
+     * @param args the arguments array
+     * @return true if one of the arguments is the standby job id placeholder
+     */
+    public static boolean hasStandbyJobId(final String[] args) {
+        return Arrays.asList(args).contains(JobConstants.STANDBY_AGENT_JOB_ID);
+    }
+
+    /**
+     * Replace the standby job id placeholder with the id of the job the agent was handed.
+     *
+     * @param args  the arguments array
+     * @param jobId the id of the job to run
+     * @return a new array with the placeholder replaced by the job id
+     */
+    public static String[] replaceStandbyJobId(final String[] args, final String jobId) {
+        return replaceAll(args, JobConstants.STANDBY_AGENT_JOB_ID, jobId);
+    }
+
     private static String[] replaceAll(final String[] args, final String from, final String to) {
         return Arrays.stream(args).map(arg -> from.equals(arg) ? to : arg).toArray(String[]::new);
     }
@@ -27,6 +27,7 @@ import com.netflix.genie.agent.execution.services.AgentFileStreamService;
 import com.netflix.genie.agent.execution.services.AgentHeartBeatService;
 import com.netflix.genie.agent.execution.services.AgentJobKillService;
 import com.netflix.genie.agent.execution.services.AgentJobService;
+import com.netflix.genie.agent.execution.services.IncrementalArchiveService;
 import com.netflix.genie.agent.execution.services.JobMonitorService;
 import com.netflix.genie.agent.execution.services.JobSetupService;
 import com.netflix.genie.agent.execution.statemachine.ExecutionContext;
@@ -435,8 +436,9 @@ public class ExecutionAutoConfiguration {
     /**
      * Create a {@link WaitJobCompletionStage} bean if one is not already defined.
      *
-     * @param jobProcessManager the job process manager
-     * @param jobMonitorService the job monitor service
+     * @param jobProcessManager         the job process manager
+     * @param jobMonitorService         the job monitor service
+     * @param incrementalArchiveService the incremental archive service
      */
     @Bean
     @Lazy
@@ -444,9 +446,10 @@ public class ExecutionAutoConfiguration {
     @ConditionalOnMissingBean(WaitJobCompletionStage.class)
     WaitJobCompletionStage waitJobCompletionStage(
         final JobProcessManager jobProcessManager,
-        final JobMonitorService jobMonitorService
+        final JobMonitorService jobMonitorService,
+        final IncrementalArchiveService incrementalArchiveService
     ) {
-        return new WaitJobCompletionStage(jobProcessManager, jobMonitorService);
+        return new WaitJobCompletionStage(jobProcessManager, jobMonitorService, incrementalArchiveService);
     }
 
     /**
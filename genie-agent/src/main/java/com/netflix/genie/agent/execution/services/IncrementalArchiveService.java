@@ -0,0 +1,43 @@
+/*
+ *
+ *  Copyright 2022 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.agent.execution.services;
+
+import java.net.URI;
+import java.nio.file.Path;
+
+/**
+ * Service that archives job output files while the job is still running, so the archival after the job completes
+ * only needs to upload what changed since.
+ *
+ * @since 4.4.0
+ */
+public interface IncrementalArchiveService {
+
+    /**
+     * Starts the service.
+     *
+     * @param jobDirectory the job directory
+     * @param targetURI    the root archive location
+     */
+    void start(Path jobDirectory, URI targetURI);
+
+    /**
+     * Stop the service.
+     */
+    void stop();
+}
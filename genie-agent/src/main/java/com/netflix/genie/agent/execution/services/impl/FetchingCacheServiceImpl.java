@@ -18,11 +18,12 @@
 package com.netflix.genie.agent.execution.services.impl;
 
 import com.google.common.annotations.VisibleForTesting;
-import com.google.common.io.Files;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.netflix.genie.agent.cli.ArgumentDelegates;
 import com.netflix.genie.agent.execution.exceptions.DownloadException;
 import com.netflix.genie.agent.execution.exceptions.LockException;
 import com.netflix.genie.agent.execution.services.FetchingCacheService;
+import com.netflix.genie.agent.properties.FetchingCacheServiceProperties;
 import com.netflix.genie.agent.utils.locks.CloseableLock;
 import com.netflix.genie.agent.utils.locks.impl.FileLockFactory;
 import lombok.extern.slf4j.Slf4j;
@@ -41,7 +42,26 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.URI;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * A cache on local disk that uses URIs as keys and transparently downloads
@@ -54,7 +74,12 @@ import java.util.Set;
  * Recovers from partial downloads of resources in case an agent gets killed in the middle of a download
  * or a download fails for any other reason
  * <p>
- * Does NOT handle concurrency within the same agent (not an issue at the moment)
+ * Within the same agent, a batch of resources is fetched in parallel with a bounded number of concurrent downloads
+ * overall and per remote host. Each URI in a batch is fetched by a single thread (multiple destinations for the same
+ * URI are copied from the cache one after the other).
+ * <p>
+ * Cache hits copy the data file while holding a shared lock, so any number of agents can read the same entry at the
+ * same time. Downloading a missing entry or deleting an entry requires the exclusive lock.
  * <p>
  * Cache structure on local disk
  * Each resource has a hash to represent it. The version of the resource is the remote last modified
@@ -66,9 +91,19 @@ import java.util.Set;
  * {base_dir}/6d331abc92bc8244bc5d41e2107f303a/1525456404/data
  * {base_dir}/6d331abc92bc8244bc5d41e2107f303a/1525456404/lock
  * <p>
+ * Materialization
+ * By default the data file is copied to the requested destination. Alternatively it can be hard linked or
+ * symbolically linked, falling back to a copy if the link can't be created. For every link, a reference file
+ * containing the destination path is kept under {base_dir}/{hash}/{version}/refs. Cleanup of older versions and
+ * eviction skip a data file as long as any recorded destination still resolves to it.
+ * <p>
  * Deletion of older versions
  * Once a version is successfully downloaded, any older versions are deleted as a best effort
- * TODO:Use shared file lock for reading and exclusive lock for writing to the cache
+ * <p>
+ * Eviction
+ * The lock file of a resource version is touched on every lookup, so its last modified time is the last time the
+ * entry was accessed. If eviction is enabled, after a download grows the cache, the least recently used entries
+ * which are not currently locked are deleted in the background until the cache fits in the configured size.
  *
  * @author standon
  * @since 4.0.0
@@ -80,21 +115,28 @@ class FetchingCacheServiceImpl implements FetchingCacheService {
     private static final String DATA_FILE_NAME = "data";
     private static final String DATA_DOWNLOAD_FILE_NAME = "data.tmp";
     private static final String DUMMY_FILE_NAME = "_";
+    private static final String REFERENCES_DIR_NAME = "refs";
+    private static final String DOWNLOAD_THREAD_NAME_FORMAT = "fetching-cache-download-%d";
     private final ResourceLoader resourceLoader;
     private final File cacheDirectory;
     private final FileLockFactory fileLockFactory;
     private final TaskExecutor cleanUpTaskExecutor;
+    private final FetchingCacheServiceProperties properties;
+    private final Map<String, Semaphore> hostDownloadPermits = new ConcurrentHashMap<>();
+    private final AtomicBoolean evictionPending = new AtomicBoolean(false);
 
     FetchingCacheServiceImpl(
         final ResourceLoader resourceLoader,
         final ArgumentDelegates.CacheArguments cacheArguments,
         final FileLockFactory fileLockFactory,
-        final TaskExecutor cleanUpTaskExecutor
+        final TaskExecutor cleanUpTaskExecutor,
+        final FetchingCacheServiceProperties properties
     ) throws IOException {
         this.resourceLoader = resourceLoader;
         this.cacheDirectory = cacheArguments.getCacheDirectory();
         this.fileLockFactory = fileLockFactory;
         this.cleanUpTaskExecutor = cleanUpTaskExecutor;
+        this.properties = properties;
         createDirectoryStructureIfNotExists(cacheDirectory);
     }
 
@@ -103,11 +145,7 @@ class FetchingCacheServiceImpl implements FetchingCacheService {
      */
     @Override
     public void get(final URI sourceFileUri, final File destinationFile) throws DownloadException, IOException {
-        try {
-            lookupOrDownload(sourceFileUri, destinationFile);
-        } catch (IOException e) {
-            throw  new IOException("failed to download: " + sourceFileUri.toASCIIString(), e);
-        }
+        fetch(sourceFileUri, Collections.singletonList(destinationFile));
     }
 
     /**
@@ -115,25 +153,139 @@ class FetchingCacheServiceImpl implements FetchingCacheService {
      */
     @Override
     public void get(final Set<Pair<URI, File>> sourceDestinationPairs) throws DownloadException, IOException {
+        final long start = System.nanoTime();
+
+        // Group destinations by source so each resource is only looked up (and locked) once
+        final Map<URI, List<File>> destinationsBySource = new LinkedHashMap<>();
         for (final Pair<URI, File> sourceDestinationPair : sourceDestinationPairs) {
-            get(sourceDestinationPair.getKey(), sourceDestinationPair.getValue());
+            destinationsBySource
+                .computeIfAbsent(sourceDestinationPair.getKey(), key -> new ArrayList<>())
+                .add(sourceDestinationPair.getValue());
+        }
+
+        final int concurrency = Math.min(this.properties.getMaxConcurrentDownloads(), destinationsBySource.size());
+        if (concurrency <= 1) {
+            for (final Map.Entry<URI, List<File>> entry : destinationsBySource.entrySet()) {
+                fetch(entry.getKey(), entry.getValue());
+            }
+        } else {
+            fetchConcurrently(destinationsBySource, concurrency);
+        }
+
+        log.info(
+            "Fetched {} resources ({} files) in {}ms using up to {} concurrent downloads",
+            destinationsBySource.size(),
+            sourceDestinationPairs.size(),
+            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start),
+            Math.max(concurrency, 1)
+        );
+    }
+
+    private void fetchConcurrently(
+        final Map<URI, List<File>> destinationsBySource,
+        final int concurrency
+    ) throws DownloadException, IOException {
+        final ExecutorService downloadExecutor = Executors.newFixedThreadPool(
+            concurrency,
+            new ThreadFactoryBuilder().setNameFormat(DOWNLOAD_THREAD_NAME_FORMAT).setDaemon(true).build()
+        );
+        try {
+            final CompletionService<URI> completionService = new ExecutorCompletionService<>(downloadExecutor);
+            for (final Map.Entry<URI, List<File>> entry : destinationsBySource.entrySet()) {
+                completionService.submit(
+                    () -> {
+                        fetchWithHostPermit(entry.getKey(), entry.getValue());
+                        return entry.getKey();
+                    }
+                );
+            }
+
+            // Wait in completion order so the first failure is surfaced without waiting on slower downloads
+            for (int i = 0; i < destinationsBySource.size(); i++) {
+                try {
+                    completionService.take().get();
+                } catch (final ExecutionException e) {
+                    final Throwable cause = e.getCause();
+                    if (cause instanceof DownloadException) {
+                        throw (DownloadException) cause;
+                    } else if (cause instanceof IOException) {
+                        throw (IOException) cause;
+                    } else if (cause instanceof RuntimeException) {
+                        throw (RuntimeException) cause;
+                    } else if (cause instanceof Error) {
+                        throw (Error) cause;
+                    }
+                    throw new IOException("Failed to download dependencies", cause);
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while downloading dependencies", e);
+                }
+            }
+        } finally {
+            // No-op on success. On failure stop any download which hasn't started yet.
+            downloadExecutor.shutdownNow();
+        }
+    }
+
+    private void fetchWithHostPermit(
+        final URI sourceFileUri,
+        final List<File> destinationFiles
+    ) throws DownloadException, IOException, InterruptedException {
+        final Semaphore hostPermits = this.hostDownloadPermits.computeIfAbsent(
+            getHostKey(sourceFileUri),
+            key -> new Semaphore(this.properties.getMaxConcurrentDownloadsPerHost())
+        );
+        hostPermits.acquire();
+        try {
+            fetch(sourceFileUri, destinationFiles);
+        } finally {
+            hostPermits.release();
+        }
+    }
+
+    private void fetch(
+        final URI sourceFileUri,
+        final List<File> destinationFiles
+    ) throws DownloadException, IOException {
+        final long start = System.nanoTime();
+        final boolean cacheHit;
+        try {
+            cacheHit = lookupOrDownload(sourceFileUri, destinationFiles);
+        } catch (IOException e) {
+            throw new IOException("failed to download: " + sourceFileUri.toASCIIString(), e);
         }
+        log.info(
+            "Fetched {} ({}) in {}ms",
+            sourceFileUri.toASCIIString(),
+            cacheHit ? "cache hit" : "downloaded",
+            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)
+        );
+    }
+
+    /*
+     * Per-host limits are keyed on scheme and authority. For S3 this is the bucket.
+     */
+    private static String getHostKey(final URI uri) {
+        return uri.getScheme() + "://" + (uri.getHost() == null ? "" : uri.getHost());
     }
 
     /* Get a handle to the resource represented by the sourceFileURI.
      * The lastModifedTimeStamp represents the version number of the resource.
      * Create the directory structure with resourceCacheId/version(lastModifiedTimeStamp)
      * if it does not exist. Touch an empty lock file. Use this file to grab a lock on it.
-     * While under the lock check for the cache data file resourceCacheId/version/DATA_FILE_NAME.
-     * If it exists copy to the target file and release the lock. Else,
+     * If the cache data file resourceCacheId/version/DATA_FILE_NAME exists, take a shared lock, check again
+     * that it is still there and copy it to the target files.
+     * Otherwise take the exclusive lock. While under the lock check for the cache data file again. If it
+     * exists copy to the target file and release the lock. Else,
      * download the file to resourceCacheId/version/DATA_DOWNLOAD_FILE_NAME download file. Move it
      * to the data file(this operation is guaranteed to be atomic by the OS). Copy data
      * file to target file and release the lock.
      * Before exiting delete the previous versions of the resource
+     * Returns true if the resource was already in the cache
      */
-    private void lookupOrDownload(
+    private boolean lookupOrDownload(
         final URI sourceFileUri,
-        final File destinationFile
+        final List<File> destinationFiles
     ) throws DownloadException, IOException {
 
         final String uriString = sourceFileUri.toASCIIString();
@@ -172,54 +324,79 @@ class FetchingCacheServiceImpl implements FetchingCacheService {
         //Create the resource version dir in cache if it does not exist
         createDirectoryStructureIfNotExists(cacheResourceVersionDir);
 
-        try (
-            CloseableLock lock = fileLockFactory.getLock(
-                touchCacheResourceVersionLockFile(
-                    resourceCacheId,
-                    resourceLastModified
-                )
-            )
-        ) {
-            //Critical section begin
-            lock.lock();
-
-            //Handle to the resource cached locally
-            final File cachedResourceVersionDataFile = getCacheResourceVersionDataFile(
-                resourceCacheId,
-                resourceLastModified
-            );
+        //Touching the lock file also records the access time used for eviction
+        final File lockFile = touchCacheResourceVersionLockFile(resourceCacheId, resourceLastModified);
 
-            if (!cachedResourceVersionDataFile.exists()) {
-                log.debug(
-                    "Cache miss: {} (id: {})",
-                    uriString,
-                    resourceCacheId
-                );
+        //Handle to the resource cached locally
+        final File cachedResourceVersionDataFile = getCacheResourceVersionDataFile(
+            resourceCacheId,
+            resourceLastModified
+        );
 
-                // Download the resource into the download file in cache
-                // resourceCacheId/version/data.tmp
-                final File cachedResourceVersionDownloadFile = getCacheResourceVersionDownloadFile(
-                    resourceCacheId,
-                    resourceLastModified
-                );
-                try (
-                    InputStream in = resource.getInputStream();
-                    OutputStream out = new FileOutputStream(cachedResourceVersionDownloadFile)
-                ) {
-                    FileCopyUtils.copy(in, out);
-                    Files.move(cachedResourceVersionDownloadFile, cachedResourceVersionDataFile);
+        boolean copied = false;
+        boolean downloaded = false;
+        try {
+            if (cachedResourceVersionDataFile.exists()) {
+                try (CloseableLock lock = fileLockFactory.getLock(lockFile)) {
+                    //Shared critical section begin
+                    lock.lockShared();
+
+                    //The entry may have been deleted while waiting for the lock
+                    if (cachedResourceVersionDataFile.exists()) {
+                        log.debug(
+                            "Cache hit: {} (id: {})",
+                            uriString,
+                            resourceCacheId
+                        );
+                        materialize(cachedResourceVersionDataFile, destinationFiles);
+                        copied = true;
+                    }
+                    //Shared critical section end
                 }
-            } else {
-                log.debug(
-                    "Cache hit: {} (id: {})",
-                    uriString,
-                    resourceCacheId
-                );
             }
 
-            //Copy from cache data file resourceCacheId/version/DATA_FILE_NAME to targetFile
-            Files.copy(cachedResourceVersionDataFile, destinationFile);
-            //Critical section end
+            if (!copied) {
+                try (CloseableLock lock = fileLockFactory.getLock(lockFile)) {
+                    //Critical section begin
+                    lock.lock();
+
+                    if (!cachedResourceVersionDataFile.exists()) {
+                        log.debug(
+                            "Cache miss: {} (id: {})",
+                            uriString,
+                            resourceCacheId
+                        );
+
+                        // Download the resource into the download file in cache
+                        // resourceCacheId/version/data.tmp
+                        final File cachedResourceVersionDownloadFile = getCacheResourceVersionDownloadFile(
+                            resourceCacheId,
+                            resourceLastModified
+                        );
+                        try (
+                            InputStream in = resource.getInputStream();
+                            OutputStream out = new FileOutputStream(cachedResourceVersionDownloadFile)
+                        ) {
+                            FileCopyUtils.copy(in, out);
+                            com.google.common.io.Files.move(
+                                cachedResourceVersionDownloadFile,
+                                cachedResourceVersionDataFile
+                            );
+                        }
+                        downloaded = true;
+                    } else {
+                        log.debug(
+                            "Cache hit: {} (id: {})",
+                            uriString,
+                            resourceCacheId
+                        );
+                    }
+
+                    //Copy from cache data file resourceCacheId/version/DATA_FILE_NAME to each target file
+                    materialize(cachedResourceVersionDataFile, destinationFiles);
+                    //Critical section end
+                }
+            }
         } catch (LockException e) {
             throw new DownloadException("Error downloading dependency: " + uriString, e);
         }
@@ -228,6 +405,195 @@ class FetchingCacheServiceImpl implements FetchingCacheService {
         cleanUpTaskExecutor.execute(
             new CleanupOlderVersionsTask(resourceCacheId, resourceLastModified)
         );
+
+        if (downloaded) {
+            scheduleEviction();
+        }
+
+        return !downloaded;
+    }
+
+    /*
+     * Place the cached data file at each destination according to the configured materialization mode.
+     * Links fall back to a copy if they can't be created (e.g. the job directory is on a different file system).
+     * Must be called while holding a (shared or exclusive) lock on the resource version.
+     */
+    private void materialize(final File cachedDataFile, final List<File> destinationFiles) throws IOException {
+        final FetchingCacheServiceProperties.MaterializationMode mode = this.properties.getMaterializationMode();
+        for (final File destinationFile : destinationFiles) {
+            if (mode != FetchingCacheServiceProperties.MaterializationMode.COPY) {
+                try {
+                    link(cachedDataFile, destinationFile, mode);
+                    continue;
+                } catch (final IOException | UnsupportedOperationException e) {
+                    log.debug(
+                        "Failed to link {} to {}, falling back to copy: {}",
+                        destinationFile,
+                        cachedDataFile,
+                        e.getMessage()
+                    );
+                    // Don't leave a dangling reference behind for a destination which ends up being a copy
+                    Files.deleteIfExists(getReferenceFile(cachedDataFile, destinationFile).toPath());
+                }
+            }
+            com.google.common.io.Files.copy(cachedDataFile, destinationFile);
+        }
+    }
+
+    private void link(
+        final File cachedDataFile,
+        final File destinationFile,
+        final FetchingCacheServiceProperties.MaterializationMode mode
+    ) throws IOException {
+        final Path destination = destinationFile.toPath().toAbsolutePath();
+        final Path data = cachedDataFile.toPath().toAbsolutePath();
+
+        // Record the reference before the link exists so cleanup never sees an untracked link
+        final File referenceFile = getReferenceFile(cachedDataFile, destinationFile);
+        createDirectoryStructureIfNotExists(referenceFile.getParentFile());
+        Files.write(referenceFile.toPath(), destination.toString().getBytes(StandardCharsets.UTF_8));
+
+        // Either way the job shares the file contents with the cache. Don't let it modify them in place.
+        if (!cachedDataFile.setReadOnly()) {
+            log.debug("Failed to make {} read only", cachedDataFile);
+        }
+
+        Files.deleteIfExists(destination);
+        if (mode == FetchingCacheServiceProperties.MaterializationMode.HARD_LINK) {
+            Files.createLink(destination, data);
+        } else {
+            Files.createSymbolicLink(destination, data);
+        }
+    }
+
+    /**
+     * Check whether any job directory still links to the data file of the given resource version.
+     * References whose destination no longer links to the data file (e.g. the job directory was deleted) are removed.
+     * Must be called while holding the exclusive lock on the resource version.
+     *
+     * @param resourceVersionDir the resource version directory
+     * @return true if at least one destination still links to the cached data file
+     */
+    @VisibleForTesting
+    boolean isReferenced(final File resourceVersionDir) {
+        final File dataFile = getCacheResourceVersionDataFile(resourceVersionDir);
+        final File[] referenceFiles = getCacheResourceVersionReferencesDir(resourceVersionDir).listFiles();
+        if (referenceFiles == null) {
+            return false;
+        }
+        boolean referenced = false;
+        for (final File referenceFile : referenceFiles) {
+            try {
+                final Path destination = Paths.get(
+                    new String(Files.readAllBytes(referenceFile.toPath()), StandardCharsets.UTF_8)
+                );
+                if (
+                    dataFile.exists()
+                        && Files.exists(destination)
+                        && Files.isSameFile(destination, dataFile.toPath())
+                ) {
+                    referenced = true;
+                } else {
+                    Files.deleteIfExists(referenceFile.toPath());
+                }
+            } catch (final IOException | InvalidPathException e) {
+                // Can't tell, err on the side of keeping the data around
+                log.warn("Failed to check reference {}", referenceFile, e);
+                referenced = true;
+            }
+        }
+        return referenced;
+    }
+
+    /*
+     * Coalesce eviction requests. At most one eviction pass is queued at any time.
+     */
+    private void scheduleEviction() {
+        if (this.properties.isEvictionEnabled() && this.evictionPending.compareAndSet(false, true)) {
+            cleanUpTaskExecutor.execute(new EvictLeastRecentlyUsedTask());
+        }
+    }
+
+    /**
+     * Delete the least recently used resource versions until the total size of the cached data is within the
+     * configured maximum cache size. Entries locked by someone else (being read, downloaded or deleted) are skipped.
+     *
+     * @throws IOException in case listing or deleting the files has an issue
+     */
+    @VisibleForTesting
+    void evictLeastRecentlyUsed() throws IOException {
+        final long maxCacheSize = this.properties.getMaxCacheSize().toBytes();
+
+        final List<CacheEntry> entries = new ArrayList<>();
+        long totalSize = 0;
+        final File[] resourceDirs = cacheDirectory.listFiles(File::isDirectory);
+        if (resourceDirs != null) {
+            for (final File resourceDir : resourceDirs) {
+                final File[] resourceVersionDirs = resourceDir.listFiles(File::isDirectory);
+                if (resourceVersionDirs == null) {
+                    continue;
+                }
+                for (final File resourceVersionDir : resourceVersionDirs) {
+                    final File dataFile = getCacheResourceVersionDataFile(resourceVersionDir);
+                    if (dataFile.exists()) {
+                        final CacheEntry entry = new CacheEntry(
+                            resourceVersionDir,
+                            dataFile.length(),
+                            getCacheResourceVersionLockFile(resourceVersionDir).lastModified()
+                        );
+                        entries.add(entry);
+                        totalSize += entry.size;
+                    }
+                }
+            }
+        }
+
+        if (totalSize <= maxCacheSize) {
+            log.debug("Cache size {} bytes is within the limit of {} bytes", totalSize, maxCacheSize);
+            return;
+        }
+
+        entries.sort(Comparator.comparingLong(entry -> entry.lastAccessTime));
+
+        int evictedEntries = 0;
+        long evictedBytes = 0;
+        for (final CacheEntry entry : entries) {
+            if (totalSize <= maxCacheSize) {
+                break;
+            }
+            //Don't touch the lock file, that would count as an access
+            try (
+                CloseableLock lock = fileLockFactory.getLock(
+                    getCacheResourceVersionLockFile(entry.resourceVersionDir)
+                )
+            ) {
+                if (!lock.tryLock()) {
+                    log.debug("Skipping eviction of {}, currently in use", entry.resourceVersionDir);
+                    continue;
+                }
+                if (isReferenced(entry.resourceVersionDir)) {
+                    log.debug("Skipping eviction of {}, linked from a job directory", entry.resourceVersionDir);
+                    continue;
+                }
+                //critical section begin
+                FileSystemUtils.deleteRecursively(getCacheResourceVersionDataFile(entry.resourceVersionDir));
+                FileSystemUtils.deleteRecursively(getCacheResourceVersionDownloadFile(entry.resourceVersionDir));
+                //critical section end
+                totalSize -= entry.size;
+                evictedEntries++;
+                evictedBytes += entry.size;
+            } catch (final LockException e) {
+                log.warn("Failed to lock {} for eviction", entry.resourceVersionDir, e);
+            }
+        }
+
+        log.info(
+            "Evicted {} cache entries ({} bytes). Cache size is now {} bytes (limit: {} bytes)",
+            evictedEntries,
+            evictedBytes,
+            totalSize,
+            maxCacheSize
+        );
     }
 
     @VisibleForTesting
@@ -249,7 +615,7 @@ class FetchingCacheServiceImpl implements FetchingCacheService {
     private void createDirectoryStructureIfNotExists(final File dir) throws IOException {
         if (!dir.exists()) {
             try {
-                Files.createParentDirs(new File(dir, DUMMY_FILE_NAME));
+                com.google.common.io.Files.createParentDirs(new File(dir, DUMMY_FILE_NAME));
             } catch (final IOException e) {
                 throw new IOException("Failed to create directory: " + dir.getAbsolutePath(), e);
             }
@@ -312,8 +678,12 @@ class FetchingCacheServiceImpl implements FetchingCacheService {
             lock.lock();
 
             //Remove the data file. If last download was successful for the resource, only
-            //data file would exist
-            FileSystemUtils.deleteRecursively(getCacheResourceVersionDataFile(resourceVersionDir));
+            //data file would exist. Keep it if a job directory still links to it.
+            if (isReferenced(resourceVersionDir)) {
+                log.debug("Not deleting {}, still linked from a job directory", resourceVersionDir);
+            } else {
+                FileSystemUtils.deleteRecursively(getCacheResourceVersionDataFile(resourceVersionDir));
+            }
 
             //data.tmp file could exist if the last download of the resource failed in the middle
             //and after that a newer version was downloaded. So, delete it too
@@ -362,6 +732,22 @@ class FetchingCacheServiceImpl implements FetchingCacheService {
         return new File(resourceVersionDir, DATA_DOWNLOAD_FILE_NAME);
     }
 
+    /* Returns a handle to the directory tracking links to the data file of a resource version */
+    @VisibleForTesting
+    File getCacheResourceVersionReferencesDir(final File resourceVersionDir) {
+        return new File(resourceVersionDir, REFERENCES_DIR_NAME);
+    }
+
+    /* Returns a handle to the file tracking the link from a destination to the given data file */
+    private File getReferenceFile(final File cachedDataFile, final File destinationFile) {
+        return new File(
+            getCacheResourceVersionReferencesDir(cachedDataFile.getParentFile()),
+            DigestUtils.md5DigestAsHex(
+                destinationFile.toPath().toAbsolutePath().toString().getBytes(StandardCharsets.UTF_8)
+            )
+        );
+    }
+
     /* Returns a handle to the lock file of a resource version in the cache */
     @VisibleForTesting
     File getCacheResourceVersionLockFile(final String resourceCacheId, final long lastModifiedTimestamp) {
@@ -392,7 +778,7 @@ class FetchingCacheServiceImpl implements FetchingCacheService {
     /* Touch the lock file of a resource version and return a handle to it */
     private File touchCacheResourceVersionLockFile(final File resourceVersionDir) throws IOException {
         final File lockFile = getCacheResourceVersionLockFile(resourceVersionDir);
-        Files.touch(lockFile);
+        com.google.common.io.Files.touch(lockFile);
         return lockFile;
     }
 
@@ -425,4 +811,36 @@ class FetchingCacheServiceImpl implements FetchingCacheService {
             }
         }
     }
+
+    /**
+     * Task to evict the least recently used resource versions.
+     */
+    private class EvictLeastRecentlyUsedTask implements Runnable {
+
+        @Override
+        public void run() {
+            //Allow another pass to be queued for downloads which complete after this pass has listed the cache
+            evictionPending.set(false);
+            try {
+                evictLeastRecentlyUsed();
+            } catch (Throwable throwable) {
+                log.error("Error evicting resources from the cache", throwable);
+            }
+        }
+    }
+
+    /**
+     * A resource version present in the cache.
+     */
+    private static final class CacheEntry {
+        private final File resourceVersionDir;
+        private final long size;
+        private final long lastAccessTime;
+
+        CacheEntry(final File resourceVersionDir, final long size, final long lastAccessTime) {
+            this.resourceVersionDir = resourceVersionDir;
+            this.size = size;
+            this.lastAccessTime = lastAccessTime;
+        }
+    }
 }
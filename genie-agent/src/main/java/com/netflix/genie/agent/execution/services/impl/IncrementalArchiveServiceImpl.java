@@ -0,0 +1,165 @@
+/*
+ *
+ *  Copyright 2022 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.agent.execution.services.impl;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.netflix.genie.agent.execution.services.IncrementalArchiveService;
+import com.netflix.genie.agent.properties.AgentProperties;
+import com.netflix.genie.agent.properties.IncrementalArchiveServiceProperties;
+import com.netflix.genie.common.internal.dtos.DirectoryManifest;
+import com.netflix.genie.common.internal.exceptions.checked.JobArchiveException;
+import com.netflix.genie.common.internal.services.JobArchiveService;
+import com.netflix.genie.common.internal.services.JobDirectoryManifestCreatorService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.TaskScheduler;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Implementation of {@link IncrementalArchiveService} that periodically scans the job directory using the manifest
+ * creator and archives the files which look complete.
+ * There is no portable way to tell whether a file is still open for writing, so a file is considered complete once it
+ * has not been modified for the configured quiet period and its size did not change since the previous scan.
+ * If it turns out to change later, the final archival uploads it again.
+ * Start and stop must be called from the same thread. Stopping waits for a scan which is already running to finish, so
+ * no incremental upload overlaps with the final archival.
+ *
+ * @since 4.4.0
+ */
+@Slf4j
+class IncrementalArchiveServiceImpl implements IncrementalArchiveService {
+    private final JobArchiveService jobArchiveService;
+    private final JobDirectoryManifestCreatorService manifestCreatorService;
+    private final TaskScheduler taskScheduler;
+    private final IncrementalArchiveServiceProperties properties;
+    private final Lock checkLock = new ReentrantLock();
+    private Map<String, Long> previousFileSizes = Maps.newHashMap();
+    private ScheduledFuture<?> scheduledCheck;
+    private volatile boolean stopped;
+
+    IncrementalArchiveServiceImpl(
+        final JobArchiveService jobArchiveService,
+        final JobDirectoryManifestCreatorService manifestCreatorService,
+        final TaskScheduler taskScheduler,
+        final AgentProperties agentProperties
+    ) {
+        this.jobArchiveService = jobArchiveService;
+        this.manifestCreatorService = manifestCreatorService;
+        this.taskScheduler = taskScheduler;
+        this.properties = agentProperties.getIncrementalArchiveService();
+    }
+
+    @Override
+    public void start(final Path jobDirectory, final URI targetURI) {
+        if (!this.properties.getEnabled()) {
+            log.debug("Incremental archival disabled");
+            return;
+        }
+        this.previousFileSizes = Maps.newHashMap();
+        this.stopped = false;
+        // Fixed delay so a slow upload never overlaps with the next scan
+        this.scheduledCheck = this.taskScheduler.scheduleWithFixedDelay(
+            () -> this.check(jobDirectory, targetURI),
+            this.properties.getCheckInterval()
+        );
+    }
+
+    @Override
+    public void stop() {
+        if (this.scheduledCheck == null) {
+            return;
+        }
+        this.stopped = true;
+        // Anything interrupted mid-upload is picked up by the final archival
+        this.scheduledCheck.cancel(true);
+        this.scheduledCheck = null;
+
+        final Duration stopTimeout = this.properties.getStopTimeout();
+        try {
+            if (this.checkLock.tryLock(stopTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                this.checkLock.unlock();
+            } else {
+                log.warn("Incremental archival still running {} after being stopped", stopTimeout);
+            }
+        } catch (InterruptedException e) {
+            log.warn("Interrupted while waiting for incremental archival to stop");
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void check(final Path jobDirectory, final URI targetURI) {
+        this.checkLock.lock();
+        try {
+            // The check may have been due just as the service was stopped
+            if (!this.stopped) {
+                this.archiveCompleteFiles(jobDirectory, targetURI);
+            }
+        } finally {
+            this.checkLock.unlock();
+        }
+    }
+
+    private void archiveCompleteFiles(final Path jobDirectory, final URI targetURI) {
+        final DirectoryManifest manifest;
+        try {
+            manifest = this.manifestCreatorService.getDirectoryManifest(jobDirectory);
+        } catch (IOException e) {
+            log.warn("Failed to obtain manifest: {}", e.getMessage());
+            return;
+        }
+
+        final Instant quietSince = Instant.now().minus(this.properties.getQuietPeriod());
+        final Map<String, Long> fileSizes = Maps.newHashMap();
+        final List<Path> completeFiles = Lists.newArrayList();
+        for (final DirectoryManifest.ManifestEntry fileEntry : manifest.getFiles()) {
+            final Long previousSize = this.previousFileSizes.get(fileEntry.getPath());
+            fileSizes.put(fileEntry.getPath(), fileEntry.getSize());
+            if (fileEntry.getLastModifiedTime().isBefore(quietSince)
+                && previousSize != null
+                && previousSize == fileEntry.getSize()) {
+                completeFiles.add(Paths.get(fileEntry.getPath()));
+            }
+        }
+        this.previousFileSizes = fileSizes;
+
+        if (completeFiles.isEmpty()) {
+            log.debug("No complete files to archive");
+            return;
+        }
+
+        try {
+            final int archivedFiles = this.jobArchiveService.archiveFiles(jobDirectory, completeFiles, targetURI);
+            log.debug("Archived {} new or changed files out of {} complete files", archivedFiles, completeFiles.size());
+        } catch (JobArchiveException e) {
+            // Not critical, whatever didn't make it is archived once the job completes
+            log.warn("Failed to archive files while the job is running: {}", e.getMessage());
+        }
+    }
+}
@@ -21,6 +21,7 @@ import com.netflix.genie.agent.cli.ArgumentDelegates;
 import com.netflix.genie.agent.execution.services.AgentJobService;
 import com.netflix.genie.agent.execution.services.DownloadService;
 import com.netflix.genie.agent.execution.services.FetchingCacheService;
+import com.netflix.genie.agent.execution.services.IncrementalArchiveService;
 import com.netflix.genie.agent.execution.services.JobMonitorService;
 import com.netflix.genie.agent.execution.services.JobSetupService;
 import com.netflix.genie.agent.execution.services.KillService;
@@ -28,6 +29,7 @@ import com.netflix.genie.agent.execution.statemachine.ExecutionContext;
 import com.netflix.genie.agent.properties.AgentProperties;
 import com.netflix.genie.agent.utils.locks.impl.FileLockFactory;
 import com.netflix.genie.common.internal.configs.AwsAutoConfiguration;
+import com.netflix.genie.common.internal.services.JobArchiveService;
 import com.netflix.genie.common.internal.services.JobDirectoryManifestCreatorService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Qualifier;
@@ -79,6 +81,7 @@ public class ServicesAutoConfiguration {
      * @param cacheArguments  The cache command line arguments to use
      * @param fileLockFactory The file lock factory to use
      * @param taskExecutor    The task executor to use
+     * @param agentProperties The agent properties
      * @return A {@link FetchingCacheServiceImpl} instance
      * @throws IOException On error creating the instance
      */
@@ -89,13 +92,15 @@ public class ServicesAutoConfiguration {
         final ResourceLoader resourceLoader,
         final ArgumentDelegates.CacheArguments cacheArguments,
         final FileLockFactory fileLockFactory,
-        @Qualifier("sharedAgentTaskExecutor") final TaskExecutor taskExecutor
+        @Qualifier("sharedAgentTaskExecutor") final TaskExecutor taskExecutor,
+        final AgentProperties agentProperties
     ) throws IOException {
         return new FetchingCacheServiceImpl(
             resourceLoader,
             cacheArguments,
             fileLockFactory,
-            taskExecutor
+            taskExecutor,
+            agentProperties.getFetchingCacheService()
         );
     }
 
@@ -161,4 +166,30 @@ public class ServicesAutoConfiguration {
             agentProperties
         );
     }
+
+    /**
+     * Provide a lazy {@link IncrementalArchiveService} bean if one hasn't already been defined.
+     *
+     * @param jobArchiveService      the job archive service
+     * @param manifestCreatorService the manifest creator service
+     * @param taskScheduler          the task scheduler
+     * @param agentProperties        the agent properties
+     * @return A {@link IncrementalArchiveServiceImpl} instance
+     */
+    @Bean
+    @Lazy
+    @ConditionalOnMissingBean(IncrementalArchiveService.class)
+    public IncrementalArchiveServiceImpl incrementalArchiveService(
+        final JobArchiveService jobArchiveService,
+        final JobDirectoryManifestCreatorService manifestCreatorService,
+        @Qualifier("sharedAgentTaskScheduler") final TaskScheduler taskScheduler,
+        final AgentProperties agentProperties
+    ) {
+        return new IncrementalArchiveServiceImpl(
+            jobArchiveService,
+            manifestCreatorService,
+            taskScheduler,
+            agentProperties
+        );
+    }
 }
@@ -21,6 +21,7 @@ import com.google.common.collect.Sets;
 import com.google.protobuf.ByteString;
 import com.netflix.genie.agent.execution.services.AgentFileStreamService;
 import com.netflix.genie.agent.properties.FileStreamServiceProperties;
+import com.netflix.genie.common.internal.dtos.DirectoryManifest;
 import com.netflix.genie.common.internal.dtos.converters.JobDirectoryManifestProtoConverter;
 import com.netflix.genie.common.internal.exceptions.checked.GenieConversionException;
 import com.netflix.genie.common.internal.services.JobDirectoryManifestCreatorService;
@@ -28,9 +29,11 @@ import com.netflix.genie.common.internal.util.ExponentialBackOffTrigger;
 import com.netflix.genie.proto.AgentFileMessage;
 import com.netflix.genie.proto.AgentManifestMessage;
 import com.netflix.genie.proto.FileStreamServiceGrpc;
+import com.netflix.genie.proto.ManifestDeltaMessage;
 import com.netflix.genie.proto.ServerAckMessage;
 import com.netflix.genie.proto.ServerControlMessage;
 import com.netflix.genie.proto.ServerFileRequestMessage;
+import com.netflix.genie.proto.ServerManifestAckMessage;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import io.grpc.Context;
 import io.grpc.stub.ClientCallStreamObserver;
@@ -63,6 +66,14 @@ import java.util.concurrent.atomic.AtomicInteger;
  * Sets up a persistent 2-way stream ('sync') to push manifest updates and receive file requests.
  * When a file request is received, a creates a new 2 way stream ('transmit') and pushes file chunks, waits for ACK,
  * sends the next chunk, ... until the file range requested is transmitted. Then the stream is shut down.
+ * <p>
+ * If the server supports it, multiple chunks are sent ahead of acknowledgements. The size of this window is advertised
+ * by the agent in the manifest message, and the server picks the effective value in each file request. In this mode
+ * the server acknowledges cumulatively (i.e. it reports how many chunks were received in total).
+ * <p>
+ * Manifests are versioned. Once the server acknowledges a manifest version on the current control stream (which only
+ * servers that understand deltas do), subsequent manifests are sent as a delta relative to the previous one.
+ * If the server fails to apply a delta, it requests a full manifest, which is sent with the next update.
  *
  * @author mprimi
  * @since 4.0.0
@@ -82,6 +93,10 @@ public class GRpcAgentFileStreamServiceImpl implements AgentFileStreamService {
     private final int maxStreams;
 
     private StreamObserver<AgentManifestMessage> controlStreamObserver;
+    private DirectoryManifest lastSentManifest;
+    private long lastSentManifestVersion;
+    private boolean deltaManifestsSupported;
+    private boolean fullManifestRequested;
     private String jobId;
     private Path jobDirectoryPath;
     private AtomicBoolean started = new AtomicBoolean();
@@ -202,12 +217,16 @@ public class GRpcAgentFileStreamServiceImpl implements AgentFileStreamService {
 
     private synchronized void pushManifest() {
         if (started.get()) {
+            final long manifestVersion = this.lastSentManifestVersion + 1;
+            final DirectoryManifest manifest;
             final AgentManifestMessage jobFileManifest;
             try {
-                jobFileManifest = manifestProtoConverter.manifestToProtoMessage(
-                    this.jobId,
-                    this.jobDirectoryManifestCreatorService.getDirectoryManifest(this.jobDirectoryPath)
-                );
+                manifest = this.jobDirectoryManifestCreatorService.getDirectoryManifest(this.jobDirectoryPath);
+                jobFileManifest = this.createManifestMessage(manifest)
+                    .toBuilder()
+                    .setMaxChunksInFlight(this.properties.getMaxChunksInFlight())
+                    .setManifestVersion(manifestVersion)
+                    .build();
             } catch (final IOException e) {
                 log.error("Failed to construct manifest", e);
                 return;
@@ -225,8 +244,51 @@ public class GRpcAgentFileStreamServiceImpl implements AgentFileStreamService {
                 }
             }
 
-            log.debug("Sending manifest via control stream");
+            log.debug(
+                "Sending {} manifest version {} via control stream",
+                jobFileManifest.hasManifestDelta() ? "delta" : "full",
+                manifestVersion
+            );
             this.controlStreamObserver.onNext(jobFileManifest);
+            this.lastSentManifest = manifest;
+            this.lastSentManifestVersion = manifestVersion;
+            if (!jobFileManifest.hasManifestDelta()) {
+                this.fullManifestRequested = false;
+            }
+        }
+    }
+
+    private AgentManifestMessage createManifestMessage(
+        final DirectoryManifest manifest
+    ) throws GenieConversionException {
+        if (this.deltaManifestsSupported && !this.fullManifestRequested && this.lastSentManifest != null) {
+            final AgentManifestMessage deltaMessage = this.manifestProtoConverter.manifestDeltaToProtoMessage(
+                this.jobId,
+                this.lastSentManifest,
+                this.lastSentManifestVersion,
+                manifest
+            );
+            final ManifestDeltaMessage delta = deltaMessage.getManifestDelta();
+            final int changedEntries = delta.getAddedEntriesJsonCount()
+                + delta.getChangedEntriesJsonCount()
+                + delta.getRemovedEntriesPathsCount();
+            // If most of the manifest changed, sending it in full is cheaper for both sides
+            if (changedEntries <= (manifest.getNumFiles() + manifest.getNumDirectories()) / 2) {
+                return deltaMessage;
+            }
+        }
+        return this.manifestProtoConverter.manifestToProtoMessage(this.jobId, manifest);
+    }
+
+    private synchronized void handleManifestAck(final long manifestVersion, final boolean fullManifestRequested) {
+        log.debug(
+            "Server acknowledged manifest version {}{}",
+            manifestVersion,
+            fullManifestRequested ? " and requested a full manifest" : ""
+        );
+        this.deltaManifestsSupported = true;
+        if (fullManifestRequested) {
+            this.fullManifestRequested = true;
         }
     }
 
@@ -250,19 +312,25 @@ public class GRpcAgentFileStreamServiceImpl implements AgentFileStreamService {
             }
             this.controlStreamObserver = null;
         }
+        // The next stream may be served by a different server, start over with a full manifest
+        this.lastSentManifest = null;
+        this.deltaManifestsSupported = false;
+        this.fullManifestRequested = false;
     }
 
     private synchronized void handleFileRequest(
         final String streamId,
         final String relativePath,
         final long startOffset,
-        final long endOffset
+        final long endOffset,
+        final int requestedMaxChunksInFlight
     ) {
         log.debug(
-            "Server is requesting file {} (range: [{}, {}), streamId: {})",
+            "Server is requesting file {} (range: [{}, {}), window: {}, streamId: {})",
             relativePath,
             startOffset,
             endOffset,
+            requestedMaxChunksInFlight,
             streamId
         );
 
@@ -285,6 +353,12 @@ public class GRpcAgentFileStreamServiceImpl implements AgentFileStreamService {
             return;
         }
 
+        // Servers that do not support windowing leave this field unset, fall back to one chunk at the time
+        final int maxChunksInFlight = Math.max(
+            1,
+            Math.min(requestedMaxChunksInFlight, this.properties.getMaxChunksInFlight())
+        );
+
         // Decouple outgoing file transfer from incoming file request
         Context.current().run(
             () -> {
@@ -294,7 +368,8 @@ public class GRpcAgentFileStreamServiceImpl implements AgentFileStreamService {
                     absolutePath,
                     startOffset,
                     endOffset,
-                    properties.getDataChunkMaxSize().toBytes()
+                    properties.getDataChunkMaxSize().toBytes(),
+                    maxChunksInFlight
                 );
                 this.activeFileTransfers.add(fileTransfer);
                 fileTransfer.start();
@@ -326,7 +401,14 @@ public class GRpcAgentFileStreamServiceImpl implements AgentFileStreamService {
                     fileRequest.getStreamId(),
                     fileRequest.getRelativePath(),
                     fileRequest.getStartOffset(),
-                    fileRequest.getEndOffset()
+                    fileRequest.getEndOffset(),
+                    fileRequest.getMaxChunksInFlight()
+                );
+            } else if (value.getMessageCase() == ServerControlMessage.MessageCase.SERVER_MANIFEST_ACK) {
+                final ServerManifestAckMessage manifestAck = value.getServerManifestAck();
+                this.gRpcAgentFileManifestService.handleManifestAck(
+                    manifestAck.getManifestVersion(),
+                    manifestAck.getFullManifestRequested()
                 );
             } else {
                 log.warn("Unknown message type: " + value.getMessageCase().name());
@@ -355,7 +437,10 @@ public class GRpcAgentFileStreamServiceImpl implements AgentFileStreamService {
         private final StreamObserver<AgentFileMessage> outboundStreamObserver;
         private final ByteBuffer readBuffer;
         private final AtomicBoolean completed = new AtomicBoolean();
+        private final int maxChunksInFlight;
         private long watermark;
+        private long chunksSent;
+        private long chunksAcknowledged;
 
         FileTransfer(
             final GRpcAgentFileStreamServiceImpl gRpcAgentFileStreamService,
@@ -363,7 +448,8 @@ public class GRpcAgentFileStreamServiceImpl implements AgentFileStreamService {
             final Path absolutePath,
             final long startOffset,
             final long endOffset,
-            final long maxChunkSize
+            final long maxChunkSize,
+            final int maxChunksInFlight
         ) {
             this.gRpcAgentFileStreamService = gRpcAgentFileStreamService;
             this.streamId = streamId;
@@ -373,19 +459,21 @@ public class GRpcAgentFileStreamServiceImpl implements AgentFileStreamService {
             this.outboundStreamObserver = this.gRpcAgentFileStreamService.fileStreamServiceStub.transmit(this);
             this.watermark = startOffset;
             this.readBuffer = ByteBuffer.allocate(Math.toIntExact(maxChunkSize));
+            this.maxChunksInFlight = maxChunksInFlight;
             log.debug(
-                "Created new FileTransfer: {} (path: {} range: {}-{})",
+                "Created new FileTransfer: {} (path: {} range: {}-{} window: {})",
                 streamId,
                 absolutePath,
                 startOffset,
-                endOffset
+                endOffset,
+                maxChunksInFlight
             );
         }
 
         void start() {
             log.debug("Starting file transfer: {}", streamId);
             try {
-                this.sendChunk();
+                this.sendChunks();
             } catch (IOException e) {
                 log.warn("Failed to send first chunk");
                 this.completeTransfer(true, e);
@@ -415,46 +503,72 @@ public class GRpcAgentFileStreamServiceImpl implements AgentFileStreamService {
             }
         }
 
+        private synchronized void sendChunks() throws IOException {
+            // Fill the window
+            while (this.hasMoreData() && this.chunksSent - this.chunksAcknowledged < this.maxChunksInFlight) {
+                this.sendChunk();
+            }
+
+            if (!this.hasMoreData() && this.chunksAcknowledged >= this.chunksSent) {
+                log.debug("All data transmitted");
+                this.completeTransfer(true, null);
+            }
+        }
+
+        private boolean hasMoreData() {
+            return this.watermark < this.endOffset - 1;
+        }
+
         @SuppressFBWarnings(
             value = "RCN_REDUNDANT_NULLCHECK_WOULD_HAVE_BEEN_A_NPE",
             justification = "https://github.com/spotbugs/spotbugs/issues/756"
         )
         private void sendChunk() throws IOException {
+            // Reset mark before reading into the buffer
+            readBuffer.rewind();
 
-            if (this.watermark < this.endOffset - 1) {
-                // Reset mark before reading into the buffer
-                readBuffer.rewind();
+            final int bytesRead;
+            try (FileChannel channel = FileChannel.open(this.absolutePath, StandardOpenOption.READ)) {
+                channel.position(this.watermark);
+                bytesRead = channel.read(readBuffer);
+            }
 
-                final int bytesRead;
-                try (FileChannel channel = FileChannel.open(this.absolutePath, StandardOpenOption.READ)) {
-                    channel.position(this.watermark);
-                    bytesRead = channel.read(readBuffer);
-                }
+            if (bytesRead < 0) {
+                throw new IOException("Unexpected end of file at offset: " + this.watermark);
+            }
 
-                // Reset mark again before copying data out
-                readBuffer.rewind();
+            // Reset mark again before copying data out
+            readBuffer.rewind();
 
-                final AgentFileMessage chunkMessage = AgentFileMessage.newBuilder()
-                    .setStreamId(this.streamId)
-                    .setData(ByteString.copyFrom(readBuffer, bytesRead))
-                    .build();
+            final AgentFileMessage chunkMessage = AgentFileMessage.newBuilder()
+                .setStreamId(this.streamId)
+                .setData(ByteString.copyFrom(readBuffer, bytesRead))
+                .build();
 
-                log.debug("Sending next chunk in stream {} ({} bytes)", streamId, bytesRead);
+            log.debug("Sending next chunk in stream {} ({} bytes)", streamId, bytesRead);
 
-                this.outboundStreamObserver.onNext(chunkMessage);
+            this.outboundStreamObserver.onNext(chunkMessage);
 
-                this.watermark += bytesRead;
-            } else {
-                log.debug("All data transmitted");
-                this.completeTransfer(true, null);
-            }
+            this.watermark += bytesRead;
+            this.chunksSent++;
         }
 
         @Override
         public void onNext(final ServerAckMessage value) {
             log.debug("Received chunk acknowledgement");
+            synchronized (this) {
+                final long acknowledgedChunks = value.getAcknowledgedChunks();
+                if (acknowledgedChunks > 0) {
+                    // Cumulative acknowledgement
+                    this.chunksAcknowledged = Math.max(this.chunksAcknowledged, acknowledgedChunks);
+                } else {
+                    // Servers that do not support windowing acknowledge each chunk with an empty message
+                    this.chunksAcknowledged++;
+                }
+                this.chunksAcknowledged = Math.min(this.chunksAcknowledged, this.chunksSent);
+            }
             try {
-                sendChunk();
+                sendChunks();
             } catch (IOException e) {
                 log.warn("Failed to send chunk");
                 this.completeTransfer(true, e);
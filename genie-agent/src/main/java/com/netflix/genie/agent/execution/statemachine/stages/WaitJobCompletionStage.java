@@ -20,15 +20,21 @@ package com.netflix.genie.agent.execution.statemachine.stages;
 import com.netflix.genie.agent.cli.logging.ConsoleLog;
 import com.netflix.genie.agent.execution.process.JobProcessManager;
 import com.netflix.genie.agent.execution.process.JobProcessResult;
+import com.netflix.genie.agent.execution.services.IncrementalArchiveService;
 import com.netflix.genie.agent.execution.services.JobMonitorService;
 import com.netflix.genie.agent.execution.statemachine.ExecutionContext;
 import com.netflix.genie.agent.execution.statemachine.ExecutionStage;
 import com.netflix.genie.agent.execution.statemachine.FatalJobExecutionException;
 import com.netflix.genie.agent.execution.statemachine.RetryableJobExecutionException;
 import com.netflix.genie.agent.execution.statemachine.States;
+import com.netflix.genie.common.internal.dtos.JobSpecification;
 import com.netflix.genie.common.internal.dtos.JobStatus;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
 
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.file.Path;
 
 /**
  * Wait for job process to exit.
@@ -40,20 +46,24 @@ import lombok.extern.slf4j.Slf4j;
 public class WaitJobCompletionStage extends ExecutionStage {
     private final JobProcessManager jobProcessManager;
     private final JobMonitorService jobMonitorService;
+    private final IncrementalArchiveService incrementalArchiveService;
 
     /**
      * Constructor.
      *
-     * @param jobProcessManager the job process manager
-     * @param jobMonitorService the job monitor service
+     * @param jobProcessManager         the job process manager
+     * @param jobMonitorService         the job monitor service
+     * @param incrementalArchiveService the service archiving job outputs while the job runs
      */
     public WaitJobCompletionStage(
         final JobProcessManager jobProcessManager,
-        final JobMonitorService jobMonitorService
+        final JobMonitorService jobMonitorService,
+        final IncrementalArchiveService incrementalArchiveService
     ) {
         super(States.WAIT_JOB_COMPLETION);
         this.jobProcessManager = jobProcessManager;
         this.jobMonitorService = jobMonitorService;
+        this.incrementalArchiveService = incrementalArchiveService;
     }
 
     @Override
@@ -64,10 +74,12 @@ public class WaitJobCompletionStage extends ExecutionStage {
         // In case of abort, this state may be reached even if there was no attempt to launch the process.
         if (executionContext.isJobLaunched()) {
             log.info("Monitoring job process");
+            final Path jobDirectory = executionContext.getJobDirectory().toPath();
             this.jobMonitorService.start(
                 executionContext.getClaimedJobId(),
-                executionContext.getJobDirectory().toPath()
+                jobDirectory
             );
+            this.startIncrementalArchival(executionContext, jobDirectory);
             final JobProcessResult jobProcessResult;
             try {
                 jobProcessResult = this.jobProcessManager.waitFor();
@@ -75,6 +87,7 @@ public class WaitJobCompletionStage extends ExecutionStage {
                 throw createFatalException(e);
             } finally {
                 this.jobMonitorService.stop();
+                this.incrementalArchiveService.stop();
             }
 
             executionContext.setJobProcessResult(jobProcessResult);
@@ -85,4 +98,20 @@ public class WaitJobCompletionStage extends ExecutionStage {
             log.debug("Job not launched, skipping");
         }
     }
+
+    private void startIncrementalArchival(final ExecutionContext executionContext, final Path jobDirectory) {
+        final JobSpecification jobSpecification = executionContext.getJobSpecification();
+        final String archiveLocation = jobSpecification == null
+            ? null
+            : jobSpecification.getArchiveLocation().orElse(null);
+        if (StringUtils.isBlank(archiveLocation)) {
+            return;
+        }
+        try {
+            this.incrementalArchiveService.start(jobDirectory, new URI(archiveLocation));
+        } catch (final URISyntaxException e) {
+            // The archive stage reports the invalid location once the job is done
+            log.warn("Not archiving while the job runs, invalid archive location: {}", archiveLocation);
+        }
+    }
 }
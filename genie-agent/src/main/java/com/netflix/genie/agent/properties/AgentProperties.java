@@ -54,6 +54,12 @@ public class AgentProperties {
     @DurationMin(seconds = 1)
     private Duration forceManifestRefreshTimeout = Duration.ofSeconds(5);
 
+    /**
+     * FetchingCacheService properties.
+     */
+    @Valid
+    private FetchingCacheServiceProperties fetchingCacheService = new FetchingCacheServiceProperties();
+
     /**
      * FileStreamService properties.
      */
@@ -66,6 +72,12 @@ public class AgentProperties {
     @Valid
     private HeartBeatServiceProperties heartBeatService = new HeartBeatServiceProperties();
 
+    /**
+     * IncrementalArchiveService properties.
+     */
+    @Valid
+    private IncrementalArchiveServiceProperties incrementalArchiveService = new IncrementalArchiveServiceProperties();
+
     /**
      * JobKillService properties.
      */
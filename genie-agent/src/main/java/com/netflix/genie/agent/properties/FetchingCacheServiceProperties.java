@@ -0,0 +1,88 @@
+/*
+ *
+ *  Copyright 2022 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.agent.properties;
+
+import com.netflix.genie.agent.execution.services.FetchingCacheService;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.util.unit.DataSize;
+import org.springframework.validation.annotation.Validated;
+
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+
+/**
+ * Properties of {@link FetchingCacheService}.
+ *
+ * @since 4.4.0
+ */
+@Getter
+@Setter
+@Validated
+public class FetchingCacheServiceProperties {
+    /**
+     * Maximum number of resources fetched concurrently when a batch of dependencies is requested.
+     * A value of 1 fetches resources one at a time.
+     */
+    @Min(1)
+    private int maxConcurrentDownloads = 8;
+
+    /**
+     * Maximum number of resources fetched concurrently from the same host (or S3 bucket).
+     */
+    @Min(1)
+    private int maxConcurrentDownloadsPerHost = 4;
+
+    /**
+     * Whether to evict the least recently used entries once the cache grows beyond {@code maxCacheSize}.
+     */
+    private boolean evictionEnabled;
+
+    /**
+     * Maximum total size of the cached resources when eviction is enabled.
+     */
+    @NotNull
+    private DataSize maxCacheSize = DataSize.ofGigabytes(20);
+
+    /**
+     * How cached resources are placed in the job directory.
+     */
+    @NotNull
+    private MaterializationMode materializationMode = MaterializationMode.COPY;
+
+    /**
+     * Ways to place a cached resource at its destination.
+     */
+    public enum MaterializationMode {
+        /**
+         * Copy the cached file.
+         */
+        COPY,
+
+        /**
+         * Hard link the cached file. The cached file is made read-only since the job shares its contents.
+         * Falls back to a copy if the destination is on a different file system.
+         */
+        HARD_LINK,
+
+        /**
+         * Symbolically link the cached file. Falls back to a copy if the link can't be created.
+         */
+        SYMBOLIC_LINK
+    }
+}
@@ -67,6 +67,14 @@ public class FileStreamServiceProperties {
     @Min(1)
     private int maxConcurrentStreams = 5;
 
+    /**
+     * Maximum number of chunks of a single file sent to the server without waiting for an acknowledgement.
+     * The actual window is negotiated with the server, servers that do not support windowing receive one chunk at
+     * the time.
+     */
+    @Min(1)
+    private int maxChunksInFlight = 8;
+
     /**
      * Time allowed to the service to complete ongoing transfers before shutting down.
      */
@@ -0,0 +1,62 @@
+/*
+ *
+ *  Copyright 2022 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.agent.properties;
+
+import com.netflix.genie.agent.execution.services.IncrementalArchiveService;
+import lombok.Getter;
+import lombok.Setter;
+import org.hibernate.validator.constraints.time.DurationMin;
+import org.springframework.validation.annotation.Validated;
+
+import javax.validation.constraints.NotNull;
+import java.time.Duration;
+
+/**
+ * Properties of {@link IncrementalArchiveService}.
+ *
+ * @since 4.4.0
+ */
+@Getter
+@Setter
+@Validated
+public class IncrementalArchiveServiceProperties {
+    /**
+     * Whether to archive job outputs while the job is running.
+     */
+    @NotNull
+    private Boolean enabled = false;
+
+    /**
+     * Interval between scans of the job directory for files to archive.
+     */
+    @DurationMin(seconds = 5)
+    private Duration checkInterval = Duration.ofSeconds(30);
+
+    /**
+     * How long a file must go without being modified before it is archived. It must also have kept the same size
+     * since the previous scan.
+     */
+    @DurationMin(seconds = 1)
+    private Duration quietPeriod = Duration.ofMinutes(1);
+
+    /**
+     * Time allowed to a scan which is already archiving files to finish when the service is stopped.
+     */
+    @DurationMin(seconds = 1)
+    private Duration stopTimeout = Duration.ofSeconds(30);
+}
@@ -21,12 +21,14 @@ import com.netflix.genie.common.internal.util.PropertySourceUtils;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.env.EnvironmentPostProcessor;
 import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.Profiles;
 import org.springframework.core.env.PropertySource;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.core.io.Resource;
 
 /**
- * Adds default properties to the Spring environment before application refresh.
+ * Adds default properties to the Spring environment before application refresh. When the {@literal fast-start}
+ * profile is active the properties trading eager checks for a faster agent startup are added on top of them.
  *
  * @author tgianos
  * @since 4.0.0
@@ -34,7 +36,10 @@ import org.springframework.core.io.Resource;
 public class GenieDefaultPropertiesPostProcessor implements EnvironmentPostProcessor {
 
     static final String DEFAULT_PROPERTY_SOURCE_NAME = "genie-agent-defaults";
+    static final String FAST_START_PROFILE = "fast-start";
+    static final String FAST_START_PROPERTY_SOURCE_NAME = "genie-agent-fast-start";
     private static final String DEFAULT_PROPERTIES_FILE = "genie-agent-defaults.yml";
+    private static final String FAST_START_PROPERTIES_FILE = "genie-agent-fast-start.yml";
 
     /**
      * {@inheritDoc}
@@ -45,5 +50,14 @@ public class GenieDefaultPropertiesPostProcessor implements EnvironmentPostProce
         final PropertySource<?> defaultSource
             = PropertySourceUtils.loadYamlPropertySource(DEFAULT_PROPERTY_SOURCE_NAME, defaultProperties);
         environment.getPropertySources().addLast(defaultSource);
+
+        // Overrides the defaults but not anything set explicitly
+        if (environment.acceptsProfiles(Profiles.of(FAST_START_PROFILE))) {
+            final PropertySource<?> fastStartSource = PropertySourceUtils.loadYamlPropertySource(
+                FAST_START_PROPERTY_SOURCE_NAME,
+                new ClassPathResource(FAST_START_PROPERTIES_FILE)
+            );
+            environment.getPropertySources().addBefore(DEFAULT_PROPERTY_SOURCE_NAME, fastStartSource);
+        }
     }
 }
@@ -36,4 +36,20 @@ public interface CloseableLock extends Closeable {
      */
     void lock() throws LockException;
 
+    /**
+     * Acquire a shared lock. A shared lock can be held by multiple holders at the same time, but never while an
+     * exclusive lock is held.
+     *
+     * @throws LockException in case of problem acquiring the lock
+     */
+    void lockShared() throws LockException;
+
+    /**
+     * Attempt to acquire an exclusive lock without waiting.
+     *
+     * @return true if the lock was acquired, false if it is currently held by someone else
+     * @throws LockException in case of problem acquiring the lock
+     */
+    boolean tryLock() throws LockException;
+
 }
@@ -24,9 +24,17 @@ import java.io.File;
 import java.io.IOException;
 import java.io.RandomAccessFile;
 import java.nio.channels.FileChannel;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * CloseableLock for a file.
+ * <p>
+ * File locks are held on behalf of the whole JVM, and the JVM refuses overlapping locks on the same file from
+ * different channels. To allow different threads of the same process to lock the same file, each lock is first
+ * acquired on an in-process lock for the file before the file lock itself. Within a process, threads therefore always
+ * take turns. Shared locks are only shared with other processes.
  *
  * @author standon
  * @since 4.0.0
@@ -35,6 +43,10 @@ public class FileLock implements CloseableLock {
 
     //Refer to https://docs.oracle.com/javase/7/docs/api/java/io/RandomAccessFile.html
     private static final String FILE_ACCESS_MODE = "rws";
+    //Entries are never removed. The number of distinct files locked by an agent process is small
+    private static final ConcurrentMap<String, ReentrantLock> PROCESS_LOCKS = new ConcurrentHashMap<>();
+    private final ReentrantLock processLock;
+    private boolean processLockHeld;
     private FileChannel fileChannel;
     //Maintain a link to the underlying nio file lock because of
     //https://bugs.openjdk.java.net/browse/JDK-8166253
@@ -60,6 +72,11 @@ public class FileLock implements CloseableLock {
         } catch (Exception e) {
             throw new LockException("Error creating a FileLock ", e);
         }
+
+        processLock = PROCESS_LOCKS.computeIfAbsent(
+            file.toPath().toAbsolutePath().normalize().toString(),
+            key -> new ReentrantLock()
+        );
     }
 
     /**
@@ -67,10 +84,16 @@ public class FileLock implements CloseableLock {
      */
     @Override
     public void close() throws IOException {
-        //FileChannel.close closes the nioFileLock. Closing
-        //it explicitly, else findbugs rule URF_UNREAD_FIELD is violated
-        nioFileLock.close();
-        fileChannel.close();
+        try {
+            //FileChannel.close closes the nioFileLock. Closing
+            //it explicitly, else findbugs rule URF_UNREAD_FIELD is violated
+            if (nioFileLock != null) {
+                nioFileLock.close();
+            }
+            fileChannel.close();
+        } finally {
+            releaseProcessLock();
+        }
     }
 
     /**
@@ -78,10 +101,54 @@ public class FileLock implements CloseableLock {
      */
     @Override
     public void lock() throws LockException {
+        acquire(false);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void lockShared() throws LockException {
+        acquire(true);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean tryLock() throws LockException {
+        if (!processLock.tryLock()) {
+            return false;
+        }
+        processLockHeld = true;
         try {
-            nioFileLock = fileChannel.lock();
+            nioFileLock = fileChannel.tryLock();
         } catch (Exception e) {
+            releaseProcessLock();
             throw new LockException("Error locking file ", e);
         }
+        if (nioFileLock == null) {
+            releaseProcessLock();
+            return false;
+        }
+        return true;
+    }
+
+    private void acquire(final boolean shared) throws LockException {
+        processLock.lock();
+        processLockHeld = true;
+        try {
+            nioFileLock = fileChannel.lock(0L, Long.MAX_VALUE, shared);
+        } catch (Exception e) {
+            releaseProcessLock();
+            throw new LockException("Error locking file ", e);
+        }
+    }
+
+    private void releaseProcessLock() {
+        if (processLockHeld) {
+            processLockHeld = false;
+            processLock.unlock();
+        }
     }
 }
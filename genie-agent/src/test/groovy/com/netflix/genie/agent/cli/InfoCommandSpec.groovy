@@ -23,9 +23,11 @@ import com.netflix.genie.agent.AgentMetadata
 import com.netflix.genie.agent.execution.statemachine.ExecutionStage
 import com.netflix.genie.agent.execution.statemachine.JobExecutionStateMachine
 import com.netflix.genie.agent.execution.statemachine.States
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup
 import org.springframework.context.ConfigurableApplicationContext
 import org.springframework.core.env.ConfigurableEnvironment
 import org.springframework.core.env.MutablePropertySources
+import org.springframework.core.metrics.ApplicationStartup
 import spock.lang.Specification
 
 class InfoCommandSpec extends Specification {
@@ -54,6 +56,8 @@ class InfoCommandSpec extends Specification {
 
         JobExecutionStateMachine jobExecutionStateMachine = Mock(JobExecutionStateMachine)
         List<ExecutionStage> stages = ImmutableList.of(executionStage, executionStage, executionStage, executionStage)
+        BufferingApplicationStartup applicationStartup = new BufferingApplicationStartup(10)
+        applicationStartup.start("spring.beans.instantiate").tag("beanName", "foo").end()
         def cmd = new InfoCommand(args, ctx, agentMetadata)
 
         when:
@@ -69,6 +73,8 @@ class InfoCommandSpec extends Specification {
         1 * args.getIncludeEnvironment() >> true
         1 * args.getIncludeProperties() >> true
         1 * args.getIncludeStateMachine() >> true
+        1 * args.getIncludeStartupTimeline() >> true
+        1 * ctx.getApplicationStartup() >> applicationStartup
         5 * ctx.getEnvironment() >> env
         1 * env.getActiveProfiles() >> ["foo", "bar"]
         1 * env.getDefaultProfiles() >> ["default"]
@@ -95,6 +101,8 @@ class InfoCommandSpec extends Specification {
         1 * args.getIncludeEnvironment() >> false
         1 * args.getIncludeProperties() >> false
         1 * args.getIncludeStateMachine() >> false
+        1 * args.getIncludeStartupTimeline() >> false
+        0 * ctx.getApplicationStartup()
         0 * ctx.getBeanDefinitionCount()
         0 * ctx.getBeanDefinitionNames()
         2 * ctx.getEnvironment() >> env
@@ -102,4 +110,22 @@ class InfoCommandSpec extends Specification {
         1 * env.getDefaultProfiles() >> ["default"]
         exitCode == ExitCode.SUCCESS
     }
+
+    def "Run with startup timeline not recorded"() {
+        setup:
+        def cmd = new InfoCommand(args, ctx, agentMetadata)
+
+        when:
+        ExitCode exitCode = cmd.run()
+
+        then:
+        1 * args.getIncludeBeans() >> false
+        1 * args.getIncludeEnvironment() >> false
+        1 * args.getIncludeProperties() >> false
+        1 * args.getIncludeStateMachine() >> false
+        1 * args.getIncludeStartupTimeline() >> true
+        2 * ctx.getEnvironment() >> env
+        1 * ctx.getApplicationStartup() >> ApplicationStartup.DEFAULT
+        exitCode == ExitCode.SUCCESS
+    }
 }
@@ -17,6 +17,7 @@
  */
 package com.netflix.genie.agent.cli
 
+import com.netflix.genie.common.internal.jobs.JobConstants
 import spock.lang.Specification
 import spock.lang.Unroll
 
@@ -56,4 +57,13 @@ class UtilSpec extends Specification {
         ["--", "--foo", "f"] as String[]                   | [] as String[]                 | ["--foo", "f"] as String[]
         ["--bar", "--baz", "--", "--foo", "f"] as String[] | ["--bar", "--baz"] as String[] | ["--foo", "f"] as String[]
     }
+
+    def "Replace standby job id"() {
+        String[] args = ["exec", "--api-job", "--job-id", JobConstants.STANDBY_AGENT_JOB_ID] as String[]
+
+        expect:
+        Util.hasStandbyJobId(args)
+        !Util.hasStandbyJobId(["exec", "--job-id", "foo"] as String[])
+        Util.replaceStandbyJobId(args, "foo") == ["exec", "--api-job", "--job-id", "foo"] as String[]
+    }
 }
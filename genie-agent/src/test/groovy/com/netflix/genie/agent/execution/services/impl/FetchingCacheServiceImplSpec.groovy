@@ -20,12 +20,14 @@ package com.netflix.genie.agent.execution.services.impl
 import com.google.common.collect.Sets
 import com.netflix.genie.agent.cli.ArgumentDelegates
 import com.netflix.genie.agent.execution.exceptions.DownloadException
+import com.netflix.genie.agent.properties.FetchingCacheServiceProperties
 import com.netflix.genie.agent.utils.locks.CloseableLock
 import com.netflix.genie.agent.utils.locks.impl.FileLockFactory
 import org.apache.commons.lang3.tuple.Pair
 import org.springframework.core.io.Resource
 import org.springframework.core.io.ResourceLoader
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor
+import org.springframework.util.unit.DataSize
 import spock.lang.Shared
 import spock.lang.Specification
 import spock.lang.TempDir
@@ -33,6 +35,7 @@ import spock.lang.TempDir
 import java.nio.charset.StandardCharsets
 import java.nio.file.Files
 import java.nio.file.Path
+import java.nio.file.attribute.PosixFilePermission
 import java.util.concurrent.locks.ReentrantLock
 
 class FetchingCacheServiceImplSpec extends Specification {
@@ -46,6 +49,7 @@ class FetchingCacheServiceImplSpec extends Specification {
     FileLockFactory fileLockFactory
     CloseableLock lock
     ReentrantLock reentrantLock = new ReentrantLock()
+    FetchingCacheServiceProperties properties = new FetchingCacheServiceProperties()
 
     @TempDir
     Path temporaryFolder
@@ -72,7 +76,8 @@ class FetchingCacheServiceImplSpec extends Specification {
         fileLockFactory.getLock(_ as File) >> lock
         lock.lock() >> reentrantLock.lock()
         lock.close() >> reentrantLock.unlock()
-        cache = new FetchingCacheServiceImpl(resourceLoader, cacheArguments, fileLockFactory, fetchingCacheServiceCleanUpTaskExecutor)
+        lock.tryLock() >> true
+        cache = new FetchingCacheServiceImpl(resourceLoader, cacheArguments, fileLockFactory, fetchingCacheServiceCleanUpTaskExecutor, properties)
         uri = new URI("https://my-server.com/path/to/config/config.xml")
     }
 
@@ -234,6 +239,221 @@ class FetchingCacheServiceImplSpec extends Specification {
         targetFiles[2].getText(StandardCharsets.UTF_8.toString()) == uris[2].toString()
     }
 
+    def "GetAll fetches each source once and copies it to every destination"() {
+        setup:
+        this.properties.setMaxConcurrentDownloads(maxConcurrentDownloads)
+        URI[] uris = [
+            new URI("https://my-server.com/path/to/config/config.xml"),
+            new URI("s3://my-bucket/path/to/setup/setup.sh")
+        ]
+        File[] targetFiles = [
+            this.temporaryFolder.resolve("config.xml").toFile(),
+            this.temporaryFolder.resolve("config-copy.xml").toFile(),
+            this.temporaryFolder.resolve("setup.sh").toFile()
+        ]
+        Resource[] resources = [
+            Mock(Resource),
+            Mock(Resource)
+        ]
+
+        when:
+        cache.get(Sets.newHashSet([
+            Pair.of(uris[0], targetFiles[0]),
+            Pair.of(uris[0], targetFiles[1]),
+            Pair.of(uris[1], targetFiles[2]),
+        ]))
+
+        then:
+        1 * resourceLoader.getResource(uris[0].toString()) >> resources[0]
+        1 * resourceLoader.getResource(uris[1].toString()) >> resources[1]
+        1 * resources[0].exists() >> true
+        1 * resources[1].exists() >> true
+        1 * resources[0].lastModified() >> DEFAULT_RESOURCE_LAST_MODIFIED_TS
+        1 * resources[1].lastModified() >> DEFAULT_RESOURCE_LAST_MODIFIED_TS
+        1 * resources[0].getInputStream() >> new ByteArrayInputStream(uris[0].toString().getBytes(StandardCharsets.UTF_8))
+        1 * resources[1].getInputStream() >> new ByteArrayInputStream(uris[1].toString().getBytes(StandardCharsets.UTF_8))
+        targetFiles[0].getText(StandardCharsets.UTF_8.toString()) == uris[0].toString()
+        targetFiles[1].getText(StandardCharsets.UTF_8.toString()) == uris[0].toString()
+        targetFiles[2].getText(StandardCharsets.UTF_8.toString()) == uris[1].toString()
+
+        where:
+        maxConcurrentDownloads << [1, 8]
+    }
+
+    def "GetAll surfaces download failures"() {
+        setup:
+        this.properties.setMaxConcurrentDownloads(maxConcurrentDownloads)
+        URI[] uris = [
+            new URI("https://my-server.com/path/to/config/config.xml"),
+            new URI("https://my-server.com/path/to/setup/setup.sh")
+        ]
+        Resource[] resources = [
+            Mock(Resource),
+            Mock(Resource)
+        ]
+
+        when:
+        cache.get(Sets.newHashSet([
+            Pair.of(uris[0], this.temporaryFolder.resolve("config.xml").toFile()),
+            Pair.of(uris[1], this.temporaryFolder.resolve("setup.sh").toFile()),
+        ]))
+
+        then:
+        (0..1) * resourceLoader.getResource(uris[0].toString()) >> resources[0]
+        (0..1) * resourceLoader.getResource(uris[1].toString()) >> resources[1]
+        (0..1) * resources[0].exists() >> true
+        (0..1) * resources[0].lastModified() >> DEFAULT_RESOURCE_LAST_MODIFIED_TS
+        (0..1) * resources[0].getInputStream() >> new ByteArrayInputStream(new byte[0])
+        (0..1) * resources[1].exists() >> false
+        thrown(DownloadException)
+
+        where:
+        maxConcurrentDownloads << [1, 8]
+    }
+
+    def "Cache hits are copied under a shared lock"() {
+        setup:
+        String fileContents = "example file contents\n"
+        File targetFile = temporaryFolder.resolve("target").toFile()
+        File cachedFile = cache.getCacheResourceVersionDataFile(cache.getResourceCacheId(uri), DEFAULT_RESOURCE_LAST_MODIFIED_TS)
+        cache.getCacheResourceVersionDir(cache.getResourceCacheId(uri), DEFAULT_RESOURCE_LAST_MODIFIED_TS).mkdirs()
+        cachedFile.write(fileContents, StandardCharsets.UTF_8.toString())
+        CloseableLock sharedLock = Mock(CloseableLock)
+
+        when:
+        cache.get(uri, targetFile)
+
+        then:
+        1 * resourceLoader.getResource(_ as String) >> resource
+        1 * resource.exists() >> true
+        1 * resource.lastModified() >> DEFAULT_RESOURCE_LAST_MODIFIED_TS
+        1 * fileLockFactory.getLock(_ as File) >> sharedLock
+        1 * sharedLock.lockShared()
+        0 * sharedLock.lock()
+        1 * sharedLock.close()
+        0 * resource.getInputStream()
+        targetFile.getText(StandardCharsets.UTF_8.toString()) == fileContents
+    }
+
+    def "Evict least recently used entries"() {
+        setup:
+        URI[] uris = [
+            new URI("https://my-server.com/path/to/oldest"),
+            new URI("https://my-server.com/path/to/middle"),
+            new URI("https://my-server.com/path/to/newest")
+        ]
+        File[] dataFiles = new File[uris.length]
+        uris.eachWithIndex { URI entryUri, int i ->
+            String resourceCacheId = cache.getResourceCacheId(entryUri)
+            cache.getCacheResourceVersionDir(resourceCacheId, DEFAULT_RESOURCE_LAST_MODIFIED_TS).mkdirs()
+            dataFiles[i] = cache.getCacheResourceVersionDataFile(resourceCacheId, DEFAULT_RESOURCE_LAST_MODIFIED_TS)
+            dataFiles[i].write("0123456789", StandardCharsets.UTF_8.toString())
+            File lockFile = cache.touchCacheResourceVersionLockFile(resourceCacheId, DEFAULT_RESOURCE_LAST_MODIFIED_TS)
+            lockFile.setLastModified(1_000_000L * (i + 1))
+        }
+
+        when: "The cache is within limits"
+        this.properties.setMaxCacheSize(DataSize.ofBytes(30))
+        cache.evictLeastRecentlyUsed()
+
+        then:
+        dataFiles.every { it.exists() }
+
+        when: "The cache is over the limit"
+        this.properties.setMaxCacheSize(DataSize.ofBytes(25))
+        cache.evictLeastRecentlyUsed()
+
+        then: "Only the least recently used entry is evicted"
+        !dataFiles[0].exists()
+        dataFiles[1].exists()
+        dataFiles[2].exists()
+    }
+
+    def "Entries in use are not evicted"() {
+        setup:
+        CloseableLock busyLock = Mock(CloseableLock) {
+            tryLock() >> false
+        }
+        String resourceCacheId = cache.getResourceCacheId(uri)
+        cache.getCacheResourceVersionDir(resourceCacheId, DEFAULT_RESOURCE_LAST_MODIFIED_TS).mkdirs()
+        File dataFile = cache.getCacheResourceVersionDataFile(resourceCacheId, DEFAULT_RESOURCE_LAST_MODIFIED_TS)
+        dataFile.write("0123456789", StandardCharsets.UTF_8.toString())
+        cache.touchCacheResourceVersionLockFile(resourceCacheId, DEFAULT_RESOURCE_LAST_MODIFIED_TS)
+        this.properties.setMaxCacheSize(DataSize.ofBytes(0))
+
+        when:
+        cache.evictLeastRecentlyUsed()
+
+        then:
+        1 * fileLockFactory.getLock(_ as File) >> busyLock
+        dataFile.exists()
+    }
+
+    def "Can link cached resources into the job directory"() {
+        setup:
+        this.properties.setMaterializationMode(mode)
+        String fileContents = "example file contents\n"
+        String resourceCacheId = cache.getResourceCacheId(uri)
+        File resourceVersionDir = cache.getCacheResourceVersionDir(resourceCacheId, DEFAULT_RESOURCE_LAST_MODIFIED_TS)
+        File cachedFile = cache.getCacheResourceVersionDataFile(resourceCacheId, DEFAULT_RESOURCE_LAST_MODIFIED_TS)
+        File targetFile = Files.createFile(this.temporaryFolder.resolve("target")).toFile()
+
+        when:
+        cache.get(uri, targetFile)
+
+        then:
+        1 * resourceLoader.getResource(_ as String) >> resource
+        1 * resource.exists() >> true
+        1 * resource.lastModified() >> DEFAULT_RESOURCE_LAST_MODIFIED_TS
+        1 * resource.getInputStream() >> new ByteArrayInputStream(fileContents.getBytes(StandardCharsets.UTF_8))
+        targetFile.getText(StandardCharsets.UTF_8.toString()) == fileContents
+        Files.isSameFile(targetFile.toPath(), cachedFile.toPath())
+        Files.isSymbolicLink(targetFile.toPath()) == (mode == FetchingCacheServiceProperties.MaterializationMode.SYMBOLIC_LINK)
+        !Files.getPosixFilePermissions(cachedFile.toPath()).contains(PosixFilePermission.OWNER_WRITE)
+        cache.isReferenced(resourceVersionDir)
+
+        when: "An older version is cleaned up while still linked"
+        cache.cleanUpOlderResourceVersions(resourceCacheId, DEFAULT_RESOURCE_LAST_MODIFIED_TS + 1)
+
+        then: "The data is kept"
+        cachedFile.exists()
+        targetFile.getText(StandardCharsets.UTF_8.toString()) == fileContents
+
+        when: "The job directory is deleted"
+        Files.delete(targetFile.toPath())
+        cache.cleanUpOlderResourceVersions(resourceCacheId, DEFAULT_RESOURCE_LAST_MODIFIED_TS + 1)
+
+        then: "The data and the stale reference are removed"
+        !cachedFile.exists()
+        !cache.isReferenced(resourceVersionDir)
+        cache.getCacheResourceVersionReferencesDir(resourceVersionDir).listFiles().length == 0
+
+        where:
+        mode << [
+            FetchingCacheServiceProperties.MaterializationMode.HARD_LINK,
+            FetchingCacheServiceProperties.MaterializationMode.SYMBOLIC_LINK
+        ]
+    }
+
+    def "Copied resources are not tracked as references"() {
+        setup:
+        String resourceCacheId = cache.getResourceCacheId(uri)
+        File resourceVersionDir = cache.getCacheResourceVersionDir(resourceCacheId, DEFAULT_RESOURCE_LAST_MODIFIED_TS)
+        File targetFile = this.temporaryFolder.resolve("target").toFile()
+
+        when:
+        cache.get(uri, targetFile)
+
+        then:
+        1 * resourceLoader.getResource(_ as String) >> resource
+        1 * resource.exists() >> true
+        1 * resource.lastModified() >> DEFAULT_RESOURCE_LAST_MODIFIED_TS
+        1 * resource.getInputStream() >> new ByteArrayInputStream("contents".getBytes(StandardCharsets.UTF_8))
+        !Files.isSymbolicLink(targetFile.toPath())
+        !cache.getCacheResourceVersionReferencesDir(resourceVersionDir).exists()
+        !cache.isReferenced(resourceVersionDir)
+    }
+
     def "Construct: fail to create cache dir"() {
         setup:
         ArgumentDelegates.CacheArguments badCacheArguments = Mock()
@@ -241,7 +461,7 @@ class FetchingCacheServiceImplSpec extends Specification {
         File cacheDir = new File("/", "genie")
 
         when:
-        new FetchingCacheServiceImpl(resourceLoader, badCacheArguments, fileLockFactory, fetchingCacheServiceCleanUpTaskExecutor)
+        new FetchingCacheServiceImpl(resourceLoader, badCacheArguments, fileLockFactory, fetchingCacheServiceCleanUpTaskExecutor, properties)
 
         then:
         1 * badCacheArguments.getCacheDirectory() >> cacheDir
@@ -254,7 +474,7 @@ class FetchingCacheServiceImplSpec extends Specification {
         File cacheDir = this.temporaryFolder.resolve("genie-cache").toFile()
 
         when:
-        new FetchingCacheServiceImpl(resourceLoader, goodCacheArguments, fileLockFactory, fetchingCacheServiceCleanUpTaskExecutor)
+        new FetchingCacheServiceImpl(resourceLoader, goodCacheArguments, fileLockFactory, fetchingCacheServiceCleanUpTaskExecutor, properties)
 
         then:
         1 * goodCacheArguments.getCacheDirectory() >> cacheDir
@@ -266,7 +486,7 @@ class FetchingCacheServiceImplSpec extends Specification {
         ArgumentDelegates.CacheArguments badCacheArguments = Mock()
 
         when:
-        new FetchingCacheServiceImpl(resourceLoader, badCacheArguments, fileLockFactory, fetchingCacheServiceCleanUpTaskExecutor)
+        new FetchingCacheServiceImpl(resourceLoader, badCacheArguments, fileLockFactory, fetchingCacheServiceCleanUpTaskExecutor, properties)
 
         then:
         1 * badCacheArguments.getCacheDirectory() >> Files.createFile(this.temporaryFolder.resolve(UUID.randomUUID().toString())).toFile()
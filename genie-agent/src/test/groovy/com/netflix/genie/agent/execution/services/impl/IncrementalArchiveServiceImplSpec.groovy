@@ -0,0 +1,228 @@
+/*
+ *
+ *  Copyright 2022 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.agent.execution.services.impl
+
+import com.netflix.genie.agent.execution.services.IncrementalArchiveService
+import com.netflix.genie.agent.properties.AgentProperties
+import com.netflix.genie.common.internal.dtos.DirectoryManifest
+import com.netflix.genie.common.internal.exceptions.checked.JobArchiveException
+import com.netflix.genie.common.internal.services.JobArchiveService
+import com.netflix.genie.common.internal.services.JobDirectoryManifestCreatorService
+import org.springframework.scheduling.TaskScheduler
+import spock.lang.Specification
+
+import java.nio.file.Path
+import java.nio.file.Paths
+import java.time.Duration
+import java.time.Instant
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.ScheduledFuture
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicBoolean
+
+class IncrementalArchiveServiceImplSpec extends Specification {
+
+    JobArchiveService jobArchiveService
+    JobDirectoryManifestCreatorService manifestCreatorService
+    TaskScheduler taskScheduler
+    AgentProperties agentProperties
+    ScheduledFuture scheduledFuture
+    IncrementalArchiveService service
+    Path jobDirectoryPath
+    URI target
+
+    void setup() {
+        this.jobArchiveService = Mock(JobArchiveService)
+        this.manifestCreatorService = Mock(JobDirectoryManifestCreatorService)
+        this.taskScheduler = Mock(TaskScheduler)
+        this.agentProperties = new AgentProperties()
+        this.scheduledFuture = Mock(ScheduledFuture)
+        this.jobDirectoryPath = Mock(Path)
+        this.target = new URI("s3://bucket/prefix/" + UUID.randomUUID().toString())
+        this.service = new IncrementalArchiveServiceImpl(
+            jobArchiveService,
+            manifestCreatorService,
+            taskScheduler,
+            agentProperties
+        )
+    }
+
+    def "Disabled"() {
+        when:
+        service.start(jobDirectoryPath, target)
+        service.stop()
+
+        then:
+        0 * taskScheduler.scheduleWithFixedDelay(_, _)
+        0 * scheduledFuture.cancel(_)
+    }
+
+    def "Archive files once they stop changing"() {
+        this.agentProperties.getIncrementalArchiveService().setEnabled(true)
+        def old = Instant.now().minus(Duration.ofHours(1))
+        def growingFile = Mock(DirectoryManifest.ManifestEntry) {
+            getPath() >> "stdout"
+            getLastModifiedTime() >> old
+            getSize() >>> [10, 20]
+        }
+        def recentFile = Mock(DirectoryManifest.ManifestEntry) {
+            getPath() >> "genie/logs/genie.log"
+            getLastModifiedTime() >> Instant.now()
+            getSize() >> 100
+        }
+        def completeFile = Mock(DirectoryManifest.ManifestEntry) {
+            getPath() >> "output/part-00000"
+            getLastModifiedTime() >> old
+            getSize() >> 1000
+        }
+        def manifest = Mock(DirectoryManifest) {
+            getFiles() >> [growingFile, recentFile, completeFile]
+        }
+        Runnable task
+
+        when:
+        service.start(jobDirectoryPath, target)
+
+        then:
+        1 * taskScheduler.scheduleWithFixedDelay(
+            _ as Runnable,
+            agentProperties.getIncrementalArchiveService().getCheckInterval()
+        ) >> {
+            Runnable r, Duration d ->
+                task = r
+                return scheduledFuture
+        }
+        task != null
+
+        when: "First scan only records sizes"
+        task.run()
+
+        then:
+        1 * manifestCreatorService.getDirectoryManifest(jobDirectoryPath) >> manifest
+        0 * jobArchiveService.archiveFiles(_, _, _)
+
+        when:
+        task.run()
+
+        then:
+        1 * manifestCreatorService.getDirectoryManifest(jobDirectoryPath) >> manifest
+        1 * jobArchiveService.archiveFiles(jobDirectoryPath, [Paths.get("output/part-00000")], target) >> 1
+
+        when: "Archival errors are not fatal"
+        task.run()
+
+        then:
+        1 * manifestCreatorService.getDirectoryManifest(jobDirectoryPath) >> manifest
+        1 * jobArchiveService.archiveFiles(jobDirectoryPath, _, target) >> {
+            throw new JobArchiveException("test")
+        }
+        noExceptionThrown()
+
+        when: "Manifest errors are not fatal"
+        task.run()
+
+        then:
+        1 * manifestCreatorService.getDirectoryManifest(jobDirectoryPath) >> { throw new IOException("test") }
+        0 * jobArchiveService.archiveFiles(_, _, _)
+        noExceptionThrown()
+
+        when:
+        service.stop()
+
+        then:
+        1 * scheduledFuture.cancel(true)
+    }
+
+    def "Stop waits for a running check to finish"() {
+        this.agentProperties.getIncrementalArchiveService().setEnabled(true)
+        def completeFile = Mock(DirectoryManifest.ManifestEntry) {
+            getPath() >> "output/part-00000"
+            getLastModifiedTime() >> Instant.now().minus(Duration.ofHours(1))
+            getSize() >> 1000
+        }
+        def manifest = Mock(DirectoryManifest) {
+            getFiles() >> [completeFile]
+        }
+        def archivingStarted = new CountDownLatch(1)
+        def archivingFinished = new AtomicBoolean(false)
+        Runnable task
+        this.manifestCreatorService.getDirectoryManifest(jobDirectoryPath) >> manifest
+
+        when:
+        service.start(jobDirectoryPath, target)
+        task.run()
+        def checkThread = Thread.start {
+            task.run()
+        }
+        assert archivingStarted.await(10, TimeUnit.SECONDS)
+        service.stop()
+
+        then:
+        1 * taskScheduler.scheduleWithFixedDelay(_ as Runnable, _ as Duration) >> {
+            Runnable r, Duration d ->
+                task = r
+                return scheduledFuture
+        }
+        1 * jobArchiveService.archiveFiles(jobDirectoryPath, [Paths.get("output/part-00000")], target) >> {
+            archivingStarted.countDown()
+            Thread.sleep(500)
+            archivingFinished.set(true)
+            return 1
+        }
+        1 * scheduledFuture.cancel(true)
+        archivingFinished.get()
+
+        when: "A check which was due when the service stopped"
+        checkThread.join()
+        task.run()
+
+        then:
+        0 * jobArchiveService.archiveFiles(_, _, _)
+    }
+
+    def "Stop gives up waiting for a running check after the timeout"() {
+        this.agentProperties.getIncrementalArchiveService().setEnabled(true)
+        this.agentProperties.getIncrementalArchiveService().setStopTimeout(Duration.ofMillis(100))
+        def manifestRequested = new CountDownLatch(1)
+        def releaseCheck = new CountDownLatch(1)
+        Runnable task
+
+        when:
+        service.start(jobDirectoryPath, target)
+        def checkThread = Thread.start {
+            task.run()
+        }
+        assert manifestRequested.await(10, TimeUnit.SECONDS)
+        service.stop()
+        releaseCheck.countDown()
+        checkThread.join()
+
+        then:
+        1 * taskScheduler.scheduleWithFixedDelay(_ as Runnable, _ as Duration) >> {
+            Runnable r, Duration d ->
+                task = r
+                return scheduledFuture
+        }
+        1 * manifestCreatorService.getDirectoryManifest(jobDirectoryPath) >> {
+            manifestRequested.countDown()
+            releaseCheck.await()
+            throw new IOException("test")
+        }
+        1 * scheduledFuture.cancel(true)
+    }
+}
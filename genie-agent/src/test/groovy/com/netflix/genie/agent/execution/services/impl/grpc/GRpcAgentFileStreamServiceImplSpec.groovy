@@ -27,9 +27,11 @@ import com.netflix.genie.common.internal.services.JobDirectoryManifestCreatorSer
 import com.netflix.genie.proto.AgentFileMessage
 import com.netflix.genie.proto.AgentManifestMessage
 import com.netflix.genie.proto.FileStreamServiceGrpc
+import com.netflix.genie.proto.ManifestDeltaMessage
 import com.netflix.genie.proto.ServerAckMessage
 import com.netflix.genie.proto.ServerControlMessage
 import com.netflix.genie.proto.ServerFileRequestMessage
+import com.netflix.genie.proto.ServerManifestAckMessage
 import io.grpc.stub.StreamObserver
 import io.grpc.testing.GrpcServerRule
 import org.assertj.core.util.Lists
@@ -150,7 +152,7 @@ class GRpcAgentFileStreamServiceImplSpec extends Specification {
         1 * converter.manifestToProtoMessage(jobId, manifest) >> manifestMessage
         1 == remoteService.activeSyncStreams.size()
         1 == remoteService.manifestMessageReceived.size()
-        manifestMessage == remoteService.manifestMessageReceived.get(0)
+        advertised(manifestMessage) == remoteService.manifestMessageReceived.get(0)
 
         when:
         runnableCapture.run()
@@ -178,7 +180,7 @@ class GRpcAgentFileStreamServiceImplSpec extends Specification {
         1 * converter.manifestToProtoMessage(jobId, manifest) >> manifestMessage
         1 == remoteService.activeSyncStreams.size()
         2 == remoteService.manifestMessageReceived.size()
-        manifestMessage == remoteService.manifestMessageReceived.get(1)
+        advertised(manifestMessage, 2) == remoteService.manifestMessageReceived.get(1)
 
         when:
         agentFileStreamService.forceServerSync()
@@ -230,7 +232,7 @@ class GRpcAgentFileStreamServiceImplSpec extends Specification {
         1 * converter.manifestToProtoMessage(jobId, manifest) >> manifestMessage
         1 == remoteService.activeSyncStreams.size()
         1 == remoteService.manifestMessageReceived.size()
-        manifestMessage == remoteService.manifestMessageReceived.get(0)
+        advertised(manifestMessage) == remoteService.manifestMessageReceived.get(0)
 
         when: "Stream is closed from server"
         remoteService.activeSyncStreams.entrySet().iterator().next().getValue().onError(new RuntimeException("..."))
@@ -248,6 +250,90 @@ class GRpcAgentFileStreamServiceImplSpec extends Specification {
         0 == remoteService.erroredSyncStreams.size()
     }
 
+    def "Push manifest deltas once the server acknowledges manifests"() {
+        setup:
+        Runnable runnableCapture
+        DirectoryManifest manifest2 = Mock(DirectoryManifest)
+        DirectoryManifest manifest3 = Mock(DirectoryManifest)
+        AgentManifestMessage fullMessage = AgentManifestMessage.newBuilder().setManifestJson("{...}").build()
+        AgentManifestMessage deltaMessage = AgentManifestMessage.newBuilder()
+            .setManifestDelta(
+                ManifestDeltaMessage.newBuilder()
+                    .setBaseManifestVersion(1)
+                    .addChangedEntriesJson("{...}")
+                    .build()
+            )
+            .build()
+
+        when:
+        agentFileStreamService.start(jobId, temporaryFolder)
+        runnableCapture.run()
+
+        then: "The first manifest is sent in full"
+        1 * this.taskScheduler.schedule(_ as Runnable, _ as Trigger) >> {
+            Runnable r, Trigger t ->
+                runnableCapture = r
+                return scheduledTask
+        }
+        1 * jobDirectoryManifestService.getDirectoryManifest(temporaryFolder) >> manifest
+        1 * converter.manifestToProtoMessage(jobId, manifest) >> fullMessage
+        0 * converter.manifestDeltaToProtoMessage(_, _, _, _)
+        advertised(fullMessage, 1) == remoteService.manifestMessageReceived.get(0)
+
+        when: "The server acknowledges the manifest"
+        StreamObserver<ServerControlMessage> observer = remoteService.activeSyncStreams.entrySet().iterator().next().getValue()
+        observer.onNext(
+            ServerControlMessage.newBuilder()
+                .setServerManifestAck(ServerManifestAckMessage.newBuilder().setManifestVersion(1).build())
+                .build()
+        )
+        runnableCapture.run()
+
+        then: "The next manifest is sent as a delta"
+        1 * jobDirectoryManifestService.getDirectoryManifest(temporaryFolder) >> manifest2
+        1 * converter.manifestDeltaToProtoMessage(jobId, manifest, 1, manifest2) >> deltaMessage
+        _ * manifest2.getNumFiles() >> 10
+        _ * manifest2.getNumDirectories() >> 2
+        0 * converter.manifestToProtoMessage(_, _)
+        advertised(deltaMessage, 2) == remoteService.manifestMessageReceived.get(1)
+
+        when: "The server fails to apply a delta and requests a full manifest"
+        observer.onNext(
+            ServerControlMessage.newBuilder()
+                .setServerManifestAck(
+                    ServerManifestAckMessage.newBuilder()
+                        .setManifestVersion(1)
+                        .setFullManifestRequested(true)
+                        .build()
+                )
+                .build()
+        )
+        runnableCapture.run()
+
+        then: "The next manifest is sent in full"
+        1 * jobDirectoryManifestService.getDirectoryManifest(temporaryFolder) >> manifest3
+        1 * converter.manifestToProtoMessage(jobId, manifest3) >> fullMessage
+        0 * converter.manifestDeltaToProtoMessage(_, _, _, _)
+        advertised(fullMessage, 3) == remoteService.manifestMessageReceived.get(2)
+
+        when: "Most of the manifest changed"
+        runnableCapture.run()
+
+        then: "The manifest is sent in full"
+        1 * jobDirectoryManifestService.getDirectoryManifest(temporaryFolder) >> manifest
+        1 * converter.manifestDeltaToProtoMessage(jobId, manifest3, 3, manifest) >> deltaMessage
+        _ * manifest.getNumFiles() >> 1
+        _ * manifest.getNumDirectories() >> 0
+        1 * converter.manifestToProtoMessage(jobId, manifest) >> fullMessage
+        advertised(fullMessage, 4) == remoteService.manifestMessageReceived.get(3)
+
+        when:
+        agentFileStreamService.stop()
+
+        then:
+        1 * scheduledTask.cancel(false)
+    }
+
     def "Transmit empty/small/nonexistent files"() {
         Files.createFile(temporaryFolder.resolve("file.txt"))
         File smallFile = Files.createFile(temporaryFolder.resolve("small-file.txt")).toFile()
@@ -279,7 +365,7 @@ class GRpcAgentFileStreamServiceImplSpec extends Specification {
         1 * converter.manifestToProtoMessage(jobId, manifest) >> manifestMessage
         1 == remoteService.activeSyncStreams.size()
         1 == remoteService.manifestMessageReceived.size()
-        manifestMessage == remoteService.manifestMessageReceived.get(0)
+        advertised(manifestMessage) == remoteService.manifestMessageReceived.get(0)
 
         when: "An empty file is requested"
         StreamObserver<ServerControlMessage> observer = remoteService.activeSyncStreams.entrySet().iterator().next().getValue()
@@ -490,7 +576,7 @@ class GRpcAgentFileStreamServiceImplSpec extends Specification {
         1 * converter.manifestToProtoMessage(jobId, manifest) >> manifestMessage
         1 == remoteService.activeSyncStreams.size()
         1 == remoteService.manifestMessageReceived.size()
-        manifestMessage == remoteService.manifestMessageReceived.get(0)
+        advertised(manifestMessage) == remoteService.manifestMessageReceived.get(0)
 
         when: "A file is requested (content does not fit in a single message)"
         StreamObserver<ServerControlMessage> controlObserver = remoteService.activeSyncStreams.entrySet().iterator().next().getValue()
@@ -559,6 +645,112 @@ class GRpcAgentFileStreamServiceImplSpec extends Specification {
         1 == remoteService.completedSyncStreams.size()
     }
 
+    def "Transmit multi-chunk file with multiple chunks in flight"() {
+        Random rnd = new Random()
+        int fileSize = 0
+        File largeFile = Files.createFile(temporaryFolder.resolve("large-file.txt")).toFile()
+        while (fileSize <= fileStreamServiceProperties.getDataChunkMaxSize().toBytes() * 2) {
+            byte[] buf = new byte[512]
+            rnd.nextBytes(buf)
+            largeFile.append(buf)
+            fileSize += buf.size()
+        }
+        File largeFileReceived = Files.createFile(temporaryFolder.resolve("large-file-received.txt")).toFile()
+
+        Runnable runnableCapture
+        AgentManifestMessage manifestMessage = AgentManifestMessage.getDefaultInstance()
+
+        when:
+        agentFileStreamService.start(jobId, temporaryFolder)
+
+        then:
+        1 * this.taskScheduler.schedule(_ as Runnable, _ as Trigger) >> {
+            Runnable r, Trigger t ->
+                runnableCapture = r
+                return scheduledTask
+        }
+        runnableCapture != null
+
+        when:
+        runnableCapture.run()
+
+        then: "The manifest advertises the transfer window"
+        1 * jobDirectoryManifestService.getDirectoryManifest(temporaryFolder) >> manifest
+        1 * converter.manifestToProtoMessage(jobId, manifest) >> manifestMessage
+        1 == remoteService.manifestMessageReceived.size()
+        fileStreamServiceProperties.getMaxChunksInFlight() == remoteService.manifestMessageReceived.get(0).getMaxChunksInFlight()
+
+        when: "A file is requested with a window of 2 chunks"
+        StreamObserver<ServerControlMessage> controlObserver = remoteService.activeSyncStreams.entrySet().iterator().next().getValue()
+        controlObserver.onNext(
+            ServerControlMessage.newBuilder()
+                .setServerFileRequest(
+                    ServerFileRequestMessage.newBuilder()
+                        .setRelativePath("large-file.txt")
+                        .setStreamId(UUID.randomUUID().toString())
+                        .setStartOffset(0)
+                        .setEndOffset(fileSize)
+                        .setMaxChunksInFlight(2)
+                        .build()
+                )
+                .build()
+        )
+
+        then: "Expect the first two chunks without waiting for acknowledgements"
+        0 == remoteService.completedTransmitStreams.size()
+        1 == remoteService.activeTransmitStreams.size()
+        2 == remoteService.fileMessageReceived.size()
+
+        when: "Acknowledge the first chunk"
+        StreamObserver<ServerAckMessage> transferObserver = remoteService.activeTransmitStreams.entrySet().iterator().next().getValue()
+        transferObserver.onNext(
+            ServerAckMessage.newBuilder().setAcknowledgedChunks(1).build()
+        )
+
+        then: "Expect the third chunk"
+        0 == remoteService.completedTransmitStreams.size()
+        1 == remoteService.activeTransmitStreams.size()
+        3 == remoteService.fileMessageReceived.size()
+
+        when: "Acknowledge the second chunk"
+        transferObserver.onNext(
+            ServerAckMessage.newBuilder().setAcknowledgedChunks(2).build()
+        )
+
+        then: "Expect no more chunks"
+        0 == remoteService.completedTransmitStreams.size()
+        1 == remoteService.activeTransmitStreams.size()
+        3 == remoteService.fileMessageReceived.size()
+
+        when: "Acknowledge all chunks"
+        transferObserver.onNext(
+            ServerAckMessage.newBuilder().setAcknowledgedChunks(3).build()
+        )
+        remoteService.fileMessageReceived.each {
+            largeFileReceived.append(it.getData().toByteArray())
+        }
+
+        then: "Expect transfer completion"
+        1 == remoteService.completedTransmitStreams.size()
+        0 == remoteService.activeTransmitStreams.size()
+        3 == remoteService.fileMessageReceived.size()
+        largeFile.getBytes() == largeFileReceived.getBytes()
+
+        when:
+        agentFileStreamService.stop()
+
+        then:
+        1 * scheduledTask.cancel(false)
+        0 == remoteService.erroredTransmitStreams.size()
+    }
+
+    AgentManifestMessage advertised(final AgentManifestMessage manifestMessage, final long manifestVersion = 1) {
+        return manifestMessage.toBuilder()
+            .setMaxChunksInFlight(fileStreamServiceProperties.getMaxChunksInFlight())
+            .setManifestVersion(manifestVersion)
+            .build()
+    }
+
     class RemoteService extends FileStreamServiceGrpc.FileStreamServiceImplBase {
 
         Map<StreamObserver<AgentManifestMessage>, StreamObserver<ServerControlMessage>> activeSyncStreams = Maps.newHashMap()
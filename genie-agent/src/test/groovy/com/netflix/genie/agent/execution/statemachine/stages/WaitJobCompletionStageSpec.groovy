@@ -19,10 +19,12 @@ package com.netflix.genie.agent.execution.statemachine.stages
 
 import com.netflix.genie.agent.execution.process.JobProcessManager
 import com.netflix.genie.agent.execution.process.JobProcessResult
+import com.netflix.genie.agent.execution.services.IncrementalArchiveService
 import com.netflix.genie.agent.execution.services.JobMonitorService
 import com.netflix.genie.agent.execution.statemachine.ExecutionContext
 import com.netflix.genie.agent.execution.statemachine.ExecutionStage
 import com.netflix.genie.agent.execution.statemachine.FatalJobExecutionException
+import com.netflix.genie.common.internal.dtos.JobSpecification
 import com.netflix.genie.common.internal.dtos.JobStatus
 import spock.lang.Specification
 
@@ -34,6 +36,8 @@ class WaitJobCompletionStageSpec extends Specification {
     JobProcessManager jobProcessManager
     JobProcessResult jobProcessResult
     JobMonitorService jobMonitorService
+    IncrementalArchiveService incrementalArchiveService
+    JobSpecification jobSpecification
     File jobDirectory
     Path jobDirectoryPath
     String jobId
@@ -43,10 +47,12 @@ class WaitJobCompletionStageSpec extends Specification {
         this.jobProcessManager = Mock(JobProcessManager)
         this.executionContext = Mock(ExecutionContext)
         this.jobMonitorService = Mock(JobMonitorService)
+        this.incrementalArchiveService = Mock(IncrementalArchiveService)
+        this.jobSpecification = Mock(JobSpecification)
         this.jobDirectory = Mock(File)
         this.jobDirectoryPath = Mock(Path)
         this.jobId = UUID.randomUUID().toString()
-        this.stage = new WaitJobCompletionStage(jobProcessManager, jobMonitorService)
+        this.stage = new WaitJobCompletionStage(jobProcessManager, jobMonitorService, incrementalArchiveService)
     }
 
     def "AttemptTransition -- not launched"() {
@@ -60,6 +66,8 @@ class WaitJobCompletionStageSpec extends Specification {
         0 * executionContext.getJobDirectory()
         0 * jobMonitorService.start(_, _)
         0 * jobMonitorService.stop()
+        0 * incrementalArchiveService.start(_, _)
+        0 * incrementalArchiveService.stop()
     }
 
     def "AttemptTransition -- success"() {
@@ -72,8 +80,12 @@ class WaitJobCompletionStageSpec extends Specification {
         1 * executionContext.getClaimedJobId() >> jobId
         1 * jobDirectory.toPath() >> jobDirectoryPath
         1 * jobMonitorService.start(jobId, jobDirectory)
+        1 * executionContext.getJobSpecification() >> jobSpecification
+        1 * jobSpecification.getArchiveLocation() >> Optional.of("s3://bucket/prefix/" + jobId)
+        1 * incrementalArchiveService.start(jobDirectoryPath, new URI("s3://bucket/prefix/" + jobId))
         1 * jobProcessManager.waitFor() >> jobProcessResult
         1 * jobMonitorService.stop()
+        1 * incrementalArchiveService.stop()
         1 * executionContext.setJobProcessResult(jobProcessResult)
         1 * jobProcessResult.getFinalStatus() >> JobStatus.KILLED
     }
@@ -91,8 +103,12 @@ class WaitJobCompletionStageSpec extends Specification {
         1 * executionContext.getClaimedJobId() >> jobId
         1 * jobDirectory.toPath() >> jobDirectoryPath
         1 * jobMonitorService.start(jobId, jobDirectory)
+        1 * executionContext.getJobSpecification() >> jobSpecification
+        1 * jobSpecification.getArchiveLocation() >> Optional.empty()
+        0 * incrementalArchiveService.start(_, _)
         1 * jobProcessManager.waitFor() >> { throw interruptedException }
         1 * jobMonitorService.stop()
+        1 * incrementalArchiveService.stop()
         def e = thrown(FatalJobExecutionException)
         e.getCause() == interruptedException
         0 * executionContext.setJobProcessResult(jobProcessResult)
@@ -33,16 +33,20 @@ class AgentPropertiesSpec extends Specification {
         expect:
         agentProperties.getEmergencyShutdownDelay() == Duration.ofMinutes(5)
         agentProperties.getForceManifestRefreshTimeout() == Duration.ofSeconds(5)
+        agentProperties.getFetchingCacheService() != null
         agentProperties.getFileStreamService() != null
         agentProperties.getHeartBeatService() != null
+        agentProperties.getIncrementalArchiveService() != null
         agentProperties.getJobKillService() != null
         agentProperties.getJobMonitorService() != null
         agentProperties.getShutdown() != null
         agentProperties.getJobSetupService() != null
 
         when:
+        def fetchingCacheServiceProps = Mock(FetchingCacheServiceProperties)
         def fileStreamServiceProps = Mock(FileStreamServiceProperties)
         def heartBeatServiceProps = Mock(HeartBeatServiceProperties)
+        def incrementalArchiveServiceProps = Mock(IncrementalArchiveServiceProperties)
         def jobKillServiceProps = Mock(JobKillServiceProperties)
         def jobLimitsProps = Mock(JobMonitorServiceProperties)
         def shutdownProps = Mock(ShutdownProperties)
@@ -50,8 +54,10 @@ class AgentPropertiesSpec extends Specification {
 
         agentProperties.setEmergencyShutdownDelay(Duration.ofMinutes(10))
         agentProperties.setForceManifestRefreshTimeout(Duration.ofSeconds(10))
+        agentProperties.setFetchingCacheService(fetchingCacheServiceProps)
         agentProperties.setFileStreamService(fileStreamServiceProps)
         agentProperties.setHeartBeatService(heartBeatServiceProps)
+        agentProperties.setIncrementalArchiveService(incrementalArchiveServiceProps)
         agentProperties.setJobKillService(jobKillServiceProps)
         agentProperties.setJobMonitorService(jobLimitsProps)
         agentProperties.setShutdown(shutdownProps)
@@ -60,8 +66,10 @@ class AgentPropertiesSpec extends Specification {
         then:
         agentProperties.getEmergencyShutdownDelay() == Duration.ofMinutes(10)
         agentProperties.getForceManifestRefreshTimeout() == Duration.ofSeconds(10)
+        agentProperties.getFetchingCacheService() == fetchingCacheServiceProps
         agentProperties.getFileStreamService() == fileStreamServiceProps
         agentProperties.getHeartBeatService() == heartBeatServiceProps
+        agentProperties.getIncrementalArchiveService() == incrementalArchiveServiceProps
         agentProperties.getJobKillService() == jobKillServiceProps
         agentProperties.getJobMonitorService() == jobLimitsProps
         agentProperties.getShutdown() == shutdownProps
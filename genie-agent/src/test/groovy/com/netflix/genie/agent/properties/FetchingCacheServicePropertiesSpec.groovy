@@ -0,0 +1,49 @@
+/*
+ *
+ *  Copyright 2022 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.agent.properties
+
+import org.springframework.util.unit.DataSize
+import spock.lang.Specification
+
+class FetchingCacheServicePropertiesSpec extends Specification {
+    def "Defaults, setters, getters"() {
+        setup:
+        FetchingCacheServiceProperties props = new FetchingCacheServiceProperties()
+
+        expect:
+        props.getMaxConcurrentDownloads() == 8
+        props.getMaxConcurrentDownloadsPerHost() == 4
+        !props.isEvictionEnabled()
+        props.getMaxCacheSize() == DataSize.ofGigabytes(20)
+        props.getMaterializationMode() == FetchingCacheServiceProperties.MaterializationMode.COPY
+
+        when:
+        props.setMaxConcurrentDownloads(1)
+        props.setMaxConcurrentDownloadsPerHost(2)
+        props.setEvictionEnabled(true)
+        props.setMaxCacheSize(DataSize.ofMegabytes(100))
+        props.setMaterializationMode(FetchingCacheServiceProperties.MaterializationMode.HARD_LINK)
+
+        then:
+        props.getMaxConcurrentDownloads() == 1
+        props.getMaxConcurrentDownloadsPerHost() == 2
+        props.isEvictionEnabled()
+        props.getMaxCacheSize() == DataSize.ofMegabytes(100)
+        props.getMaterializationMode() == FetchingCacheServiceProperties.MaterializationMode.HARD_LINK
+    }
+}
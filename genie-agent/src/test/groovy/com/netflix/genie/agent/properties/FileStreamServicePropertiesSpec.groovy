@@ -38,6 +38,7 @@ class FileStreamServicePropertiesSpec extends Specification {
         props.isEnableCompression()
         props.getDataChunkMaxSize() == DataSize.ofMegabytes(1)
         props.getMaxConcurrentStreams() == 5
+        props.getMaxChunksInFlight() == 8
         props.getDrainTimeout() == Duration.ofSeconds(15)
 
         when:
@@ -51,6 +52,7 @@ class FileStreamServicePropertiesSpec extends Specification {
         props.setEnableCompression(false)
         props.setDataChunkMaxSize(DataSize.ofKilobytes(512))
         props.setMaxConcurrentStreams(10)
+        props.setMaxChunksInFlight(4)
         props.setDrainTimeout(Duration.ofSeconds(20))
 
         then:
@@ -58,6 +60,7 @@ class FileStreamServicePropertiesSpec extends Specification {
         !props.isEnableCompression()
         props.getDataChunkMaxSize() == DataSize.ofKilobytes(512)
         props.getMaxConcurrentStreams() == 10
+        props.getMaxChunksInFlight() == 4
         props.getDrainTimeout() == Duration.ofSeconds(20)
     }
 }
@@ -0,0 +1,48 @@
+/*
+ *
+ *  Copyright 2022 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.agent.properties
+
+import spock.lang.Specification
+
+import java.time.Duration
+
+class IncrementalArchiveServicePropertiesSpec extends Specification {
+
+    def "Defaults, getters, setters"() {
+        when:
+        IncrementalArchiveServiceProperties p = new IncrementalArchiveServiceProperties()
+
+        then:
+        !p.getEnabled()
+        p.getCheckInterval() == Duration.ofSeconds(30)
+        p.getQuietPeriod() == Duration.ofMinutes(1)
+        p.getStopTimeout() == Duration.ofSeconds(30)
+
+        when:
+        p.setEnabled(true)
+        p.setCheckInterval(Duration.ofMinutes(1))
+        p.setQuietPeriod(Duration.ofMinutes(5))
+        p.setStopTimeout(Duration.ofSeconds(10))
+
+        then:
+        p.getEnabled()
+        p.getCheckInterval() == Duration.ofMinutes(1)
+        p.getQuietPeriod() == Duration.ofMinutes(5)
+        p.getStopTimeout() == Duration.ofSeconds(10)
+    }
+}
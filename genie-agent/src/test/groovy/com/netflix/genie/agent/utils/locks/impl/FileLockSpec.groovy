@@ -23,6 +23,9 @@ import spock.lang.TempDir
 
 import java.nio.file.Files
 import java.nio.file.Path
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
 
 /**
  * Specifications for the {@link FileLock} class.
@@ -50,4 +53,67 @@ class FileLockSpec extends Specification {
         then:
         thrown(LockException)
     }
+
+    def "Lock can be acquired exclusively, shared and without waiting"() {
+        File file = Files.createFile(this.tmpDir.resolve(UUID.randomUUID().toString())).toFile()
+
+        when:
+        def sharedLock = new FileLock(file)
+        sharedLock.lockShared()
+        sharedLock.close()
+        def exclusiveLock = new FileLock(file)
+        exclusiveLock.lock()
+        exclusiveLock.close()
+        def tryLock = new FileLock(file)
+        def acquired = tryLock.tryLock()
+        tryLock.close()
+
+        then:
+        noExceptionThrown()
+        acquired
+    }
+
+    def "Try lock fails while another thread of the same process holds the lock"() {
+        File file = Files.createFile(this.tmpDir.resolve(UUID.randomUUID().toString())).toFile()
+        def locked = new CountDownLatch(1)
+        def release = new CountDownLatch(1)
+
+        when:
+        def holder = CompletableFuture.runAsync(
+            {
+                def lock = new FileLock(file)
+                lock.lockShared()
+                locked.countDown()
+                release.await()
+                lock.close()
+            }
+        )
+        locked.await(10, TimeUnit.SECONDS)
+        def tryLock = new FileLock(file)
+        def acquired = tryLock.tryLock()
+        tryLock.close()
+        release.countDown()
+        holder.get(10, TimeUnit.SECONDS)
+
+        then:
+        !acquired
+
+        when:
+        def lock = new FileLock(file)
+        acquired = lock.tryLock()
+        lock.close()
+
+        then:
+        acquired
+    }
+
+    def "Closing a lock which was never acquired is allowed"() {
+        File file = Files.createFile(this.tmpDir.resolve(UUID.randomUUID().toString())).toFile()
+
+        when:
+        new FileLock(file).close()
+
+        then:
+        noExceptionThrown()
+    }
 }
@@ -29,6 +29,7 @@ import com.netflix.genie.agent.execution.services.AgentFileStreamService;
 import com.netflix.genie.agent.execution.services.AgentHeartBeatService;
 import com.netflix.genie.agent.execution.services.AgentJobKillService;
 import com.netflix.genie.agent.execution.services.AgentJobService;
+import com.netflix.genie.agent.execution.services.IncrementalArchiveService;
 import com.netflix.genie.agent.execution.services.JobMonitorService;
 import com.netflix.genie.agent.execution.services.JobSetupService;
 import com.netflix.genie.agent.execution.statemachine.ExecutionContext;
@@ -225,6 +226,11 @@ class ExecutionAutoConfigurationTest {
             return Mockito.mock(JobMonitorService.class);
         }
 
+        @Bean
+        IncrementalArchiveService incrementalArchiveService() {
+            return Mockito.mock(IncrementalArchiveService.class);
+        }
+
         @Bean
         BraveTracingComponents genieTracingComponents() {
             return new BraveTracingComponents(
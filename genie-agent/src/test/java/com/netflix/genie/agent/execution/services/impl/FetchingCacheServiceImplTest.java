@@ -19,6 +19,7 @@ package com.netflix.genie.agent.execution.services.impl;
 
 import com.netflix.genie.agent.cli.ArgumentDelegates;
 import com.netflix.genie.agent.execution.exceptions.DownloadException;
+import com.netflix.genie.agent.properties.FetchingCacheServiceProperties;
 import com.netflix.genie.agent.utils.locks.CloseableLock;
 import com.netflix.genie.agent.utils.locks.impl.FileLockFactory;
 import org.assertj.core.api.Assertions;
@@ -147,7 +148,8 @@ class FetchingCacheServiceImplTest {
             resourceLoader,
             cacheArguments,
             fileLockFactory,
-            cleanUpTaskExecutor
+            cleanUpTaskExecutor,
+            new FetchingCacheServiceProperties()
         );
 
         //Set up the second cache
@@ -170,7 +172,8 @@ class FetchingCacheServiceImplTest {
             resourceLoader2,
             cacheArguments,
             fileLockFactory,
-            cleanUpTaskExecutor
+            cleanUpTaskExecutor,
+            new FetchingCacheServiceProperties()
         );
 
         //Before submitting make sure conditions are set correctly
@@ -288,7 +291,8 @@ class FetchingCacheServiceImplTest {
             resourceLoader,
             cacheArguments,
             fileLockFactory,
-            cleanUpTaskExecutor
+            cleanUpTaskExecutor,
+            new FetchingCacheServiceProperties()
         );
 
         //Set up the second cache
@@ -316,7 +320,8 @@ class FetchingCacheServiceImplTest {
             resourceLoader2,
             cacheArguments,
             fileLockFactory,
-            cleanUpTaskExecutor
+            cleanUpTaskExecutor,
+            new FetchingCacheServiceProperties()
         );
 
         //Before submitting make sure conditions are set correctly
@@ -436,7 +441,8 @@ class FetchingCacheServiceImplTest {
             resourceLoader,
             cacheArguments,
             fileLockFactory,
-            cleanUpTaskExecutor
+            cleanUpTaskExecutor,
+            new FetchingCacheServiceProperties()
         );
 
         final String resourceCacheId = cache1.getResourceCacheId(uri);
@@ -447,7 +453,8 @@ class FetchingCacheServiceImplTest {
             resourceLoader2,
             cacheArguments,
             fileLockFactory,
-            cleanUpTaskExecutor
+            cleanUpTaskExecutor,
+            new FetchingCacheServiceProperties()
         );
 
         //Before submitting make sure conditions are set correctly
@@ -527,7 +534,7 @@ class FetchingCacheServiceImplTest {
 
         //A mock lock backed by a reentrant lock guarding the resource
         final CloseableLock resourceLock = Mockito.mock(CloseableLock.class);
-        Mockito.doAnswer(invocation -> {
+        final Answer<Void> lockAnswer = invocation -> {
 
             //deletion thread since its submitted first as the only thread
             if (numJobsInLockMethod.incrementAndGet() == 1) {
@@ -542,7 +549,10 @@ class FetchingCacheServiceImplTest {
 
             lockBackingMock.lock();
             return null;
-        }).when(resourceLock).lock();
+        };
+        Mockito.doAnswer(lockAnswer).when(resourceLock).lock();
+        //The download thread finds the data file still present and first tries to read it under a shared lock
+        Mockito.doAnswer(lockAnswer).when(resourceLock).lockShared();
 
         Mockito.doAnswer(invocation -> {
             lockBackingMock.unlock();
@@ -577,7 +587,8 @@ class FetchingCacheServiceImplTest {
             resourceLoader,
             cacheArguments,
             fileLockFactory,
-            cleanUpTaskExecutor
+            cleanUpTaskExecutor,
+            new FetchingCacheServiceProperties()
         );
 
         final String resourceCacheId = cache1.getResourceCacheId(uri);
@@ -588,7 +599,8 @@ class FetchingCacheServiceImplTest {
             resourceLoader2,
             cacheArguments,
             fileLockFactory,
-            cleanUpTaskExecutor
+            cleanUpTaskExecutor,
+            new FetchingCacheServiceProperties()
         );
 
         //Download the resource which needs to be deleted, else deletion will be a no op
@@ -615,7 +627,8 @@ class FetchingCacheServiceImplTest {
             resourceLoader3,
             cacheArguments,
             new FileLockFactory(),
-            cleanUpTaskExecutor
+            cleanUpTaskExecutor,
+            new FetchingCacheServiceProperties()
         );
 
         cache3.get(uri, targetFile);
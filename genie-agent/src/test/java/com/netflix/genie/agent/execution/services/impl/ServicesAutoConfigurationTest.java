@@ -21,12 +21,14 @@ import com.netflix.genie.agent.cli.ArgumentDelegates;
 import com.netflix.genie.agent.execution.services.AgentJobService;
 import com.netflix.genie.agent.execution.services.DownloadService;
 import com.netflix.genie.agent.execution.services.FetchingCacheService;
+import com.netflix.genie.agent.execution.services.IncrementalArchiveService;
 import com.netflix.genie.agent.execution.services.JobMonitorService;
 import com.netflix.genie.agent.execution.services.JobSetupService;
 import com.netflix.genie.agent.execution.services.KillService;
 import com.netflix.genie.agent.execution.statemachine.ExecutionContext;
 import com.netflix.genie.agent.properties.AgentProperties;
 import com.netflix.genie.agent.utils.locks.impl.FileLockFactory;
+import com.netflix.genie.common.internal.services.JobArchiveService;
 import com.netflix.genie.common.internal.services.JobDirectoryManifestCreatorService;
 import org.assertj.core.api.Assertions;
 import org.assertj.core.util.Files;
@@ -64,6 +66,7 @@ class ServicesAutoConfigurationTest {
                 Assertions.assertThat(context).hasSingleBean(KillService.class);
                 Assertions.assertThat(context).hasSingleBean(JobSetupService.class);
                 Assertions.assertThat(context).hasSingleBean(JobMonitorService.class);
+                Assertions.assertThat(context).hasSingleBean(IncrementalArchiveService.class);
 
                 // All beans are lazy, so above assertions will trivially pass.
                 // Validate by forcing instantiation
@@ -72,6 +75,7 @@ class ServicesAutoConfigurationTest {
                 Assertions.assertThat(context).getBean(KillService.class).isNotNull();
                 Assertions.assertThat(context).getBean(JobSetupService.class).isNotNull();
                 Assertions.assertThat(context).getBean(JobMonitorService.class).isNotNull();
+                Assertions.assertThat(context).getBean(IncrementalArchiveService.class).isNotNull();
             }
         );
     }
@@ -103,6 +107,11 @@ class ServicesAutoConfigurationTest {
             return Mockito.mock(JobDirectoryManifestCreatorService.class);
         }
 
+        @Bean
+        JobArchiveService jobArchiveService() {
+            return Mockito.mock(JobArchiveService.class);
+        }
+
         @Bean
         AgentJobService agentJobService() {
             return Mockito.mock(AgentJobService.class);
@@ -61,4 +61,49 @@ class GenieDefaultPropertiesPostProcessorTest {
                 }
             );
     }
+
+    @Test
+    void testFastStartProfile() {
+        this.contextRunner
+            .run(
+                context -> {
+                    final SpringApplication application = Mockito.mock(SpringApplication.class);
+                    final ConfigurableEnvironment environment = context.getEnvironment();
+                    this.processor.postProcessEnvironment(environment, application);
+                    Assertions
+                        .assertThat(
+                            environment
+                                .getPropertySources()
+                                .contains(GenieDefaultPropertiesPostProcessor.FAST_START_PROPERTY_SOURCE_NAME)
+                        )
+                        .isFalse();
+                    Assertions
+                        .assertThat(environment.getProperty("spring.main.lazy-initialization", Boolean.class, false))
+                        .isFalse();
+                }
+            );
+
+        this.contextRunner
+            .run(
+                context -> {
+                    final SpringApplication application = Mockito.mock(SpringApplication.class);
+                    final ConfigurableEnvironment environment = context.getEnvironment();
+                    environment.setActiveProfiles(GenieDefaultPropertiesPostProcessor.FAST_START_PROFILE);
+                    this.processor.postProcessEnvironment(environment, application);
+                    Assertions
+                        .assertThat(
+                            environment
+                                .getPropertySources()
+                                .contains(GenieDefaultPropertiesPostProcessor.FAST_START_PROPERTY_SOURCE_NAME)
+                        )
+                        .isTrue();
+                    Assertions
+                        .assertThat(environment.getProperty("spring.main.lazy-initialization", Boolean.class, false))
+                        .isTrue();
+                    Assertions
+                        .assertThat(environment.getProperty("genie.smoke", Boolean.class, false))
+                        .isTrue();
+                }
+            );
+    }
 }
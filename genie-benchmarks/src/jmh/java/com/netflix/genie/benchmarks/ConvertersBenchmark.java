@@ -0,0 +1,228 @@
+/*
+ *
+ *  Copyright 2022 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.benchmarks;
+
+import com.netflix.genie.common.exceptions.GeniePreconditionException;
+import com.netflix.genie.common.internal.dtos.AgentClientMetadata;
+import com.netflix.genie.common.internal.dtos.AgentConfigRequest;
+import com.netflix.genie.common.internal.dtos.AgentJobRequest;
+import com.netflix.genie.common.internal.dtos.Criterion;
+import com.netflix.genie.common.internal.dtos.ExecutionEnvironment;
+import com.netflix.genie.common.internal.dtos.ExecutionResourceCriteria;
+import com.netflix.genie.common.internal.dtos.JobMetadata;
+import com.netflix.genie.common.internal.dtos.JobRequest;
+import com.netflix.genie.common.internal.dtos.JobSpecification;
+import com.netflix.genie.common.internal.dtos.converters.DtoConverters;
+import com.netflix.genie.common.internal.dtos.converters.JobServiceProtoConverter;
+import com.netflix.genie.common.internal.exceptions.checked.GenieConversionException;
+import com.netflix.genie.proto.ReserveJobIdRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the DTO conversions performed for every job: the gRPC proto round trips done by
+ * {@link JobServiceProtoConverter} while the agent reserves a job id and fetches its specification, and the V3/V4
+ * job request conversions done by {@link DtoConverters} for API submitted jobs.
+ *
+ * @since 4.4.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ConvertersBenchmark {
+
+    private static final int NUM_APPLICATIONS = 3;
+    private static final int NUM_FILES_PER_RESOURCE = 5;
+    private static final int NUM_ENVIRONMENT_VARIABLES = 50;
+
+    private final JobServiceProtoConverter converter = new JobServiceProtoConverter();
+    private JobSpecification jobSpecification;
+    private com.netflix.genie.proto.JobSpecification jobSpecificationProto;
+    private AgentJobRequest agentJobRequest;
+    private AgentClientMetadata agentClientMetadata;
+    private ReserveJobIdRequest reserveJobIdRequest;
+    private JobRequest v4JobRequest;
+    private com.netflix.genie.common.dto.JobRequest v3JobRequest;
+
+    /**
+     * Build representative job requests and specifications along with their converted forms.
+     *
+     * @throws GenieConversionException If the fixtures can't be converted
+     */
+    @Setup
+    public void setUp() throws GenieConversionException {
+        final JobMetadata jobMetadata = new JobMetadata.Builder("benchmark", "genie", "1.0.0")
+            .withDescription("A job submitted by a benchmark")
+            .withTags(toSet("type:benchmark", "team:genie", "sched:adhoc"))
+            .withGrouping("benchmarks")
+            .withGroupingInstance("1")
+            .withEmail("genie@example.com")
+            .build();
+        final ExecutionResourceCriteria criteria = new ExecutionResourceCriteria(
+            Arrays.asList(
+                new Criterion.Builder().withTags(toSet("sched:adhoc", "type:yarn")).build(),
+                new Criterion.Builder().withTags(toSet("type:yarn")).build()
+            ),
+            new Criterion.Builder().withTags(toSet("type:spark", "ver:3.2")).build(),
+            Arrays.asList("spark", "hadoop")
+        );
+        final AgentConfigRequest agentConfigRequest = new AgentConfigRequest.Builder()
+            .withRequestedJobDirectoryLocation("/tmp/genie/jobs")
+            .withTimeoutRequested(3600)
+            .build();
+        final List<String> commandArgs = Arrays.asList("--class", "com.example.Main", "s3://bucket/app.jar", "arg");
+        final ExecutionEnvironment jobResources = environment("job");
+
+        this.agentJobRequest = new AgentJobRequest.Builder(jobMetadata, criteria, agentConfigRequest)
+            .withRequestedId("benchmark-job")
+            .withCommandArgs(commandArgs)
+            .withResources(jobResources)
+            .build();
+        this.agentClientMetadata = new AgentClientMetadata("agent.example.com", "4.4.0", 1234);
+        this.reserveJobIdRequest = this.converter.toReserveJobIdRequestProto(
+            this.agentJobRequest,
+            this.agentClientMetadata
+        );
+
+        final List<JobSpecification.ExecutionResource> applications = new ArrayList<>();
+        for (int i = 0; i < NUM_APPLICATIONS; i++) {
+            applications.add(new JobSpecification.ExecutionResource("app-" + i, environment("app-" + i)));
+        }
+        final Map<String, String> environmentVariables = new HashMap<>();
+        for (int i = 0; i < NUM_ENVIRONMENT_VARIABLES; i++) {
+            environmentVariables.put("GENIE_BENCHMARK_VARIABLE_" + i, "value-" + i);
+        }
+        this.jobSpecification = new JobSpecification(
+            Arrays.asList("spark-submit", "--master", "yarn"),
+            commandArgs,
+            new JobSpecification.ExecutionResource("benchmark-job", jobResources),
+            new JobSpecification.ExecutionResource("cluster", environment("cluster")),
+            new JobSpecification.ExecutionResource("command", environment("command")),
+            applications,
+            environmentVariables,
+            false,
+            new File("/tmp/genie/jobs/benchmark-job"),
+            "s3://bucket/genie/archives/benchmark-job",
+            3600
+        );
+        this.jobSpecificationProto = this.converter.toJobSpecificationProto(this.jobSpecification);
+
+        this.v4JobRequest = new JobRequest(
+            "benchmark-job",
+            jobResources,
+            commandArgs,
+            jobMetadata,
+            criteria,
+            null,
+            agentConfigRequest
+        );
+        this.v3JobRequest = DtoConverters.toV3JobRequest(this.v4JobRequest);
+    }
+
+    /**
+     * Convert a job specification DTO into its proto form as the server does when answering the agent.
+     *
+     * @return The proto message
+     */
+    @Benchmark
+    public com.netflix.genie.proto.JobSpecification jobSpecificationToProto() {
+        return this.converter.toJobSpecificationProto(this.jobSpecification);
+    }
+
+    /**
+     * Convert a job specification proto into a DTO as the agent does when receiving it.
+     *
+     * @return The DTO
+     */
+    @Benchmark
+    public JobSpecification jobSpecificationToDto() {
+        return this.converter.toJobSpecificationDto(this.jobSpecificationProto);
+    }
+
+    /**
+     * Convert an agent job request into a reserve job id request proto as the agent does on startup.
+     *
+     * @return The proto message
+     * @throws GenieConversionException On conversion error
+     */
+    @Benchmark
+    public ReserveJobIdRequest reserveJobIdRequestToProto() throws GenieConversionException {
+        return this.converter.toReserveJobIdRequestProto(this.agentJobRequest, this.agentClientMetadata);
+    }
+
+    /**
+     * Convert a reserve job id request proto into a job request DTO as the server does on receipt.
+     *
+     * @return The DTO
+     * @throws GenieConversionException On conversion error
+     */
+    @Benchmark
+    public JobRequest reserveJobIdRequestToDto() throws GenieConversionException {
+        return this.converter.toJobRequestDto(this.reserveJobIdRequest);
+    }
+
+    /**
+     * Convert a V3 job request as received by the REST API into the V4 representation.
+     *
+     * @return The V4 job request
+     * @throws GeniePreconditionException On conversion error
+     */
+    @Benchmark
+    public JobRequest v3ToV4JobRequest() throws GeniePreconditionException {
+        return DtoConverters.toV4JobRequest(this.v3JobRequest);
+    }
+
+    /**
+     * Convert a V4 job request into the V3 representation returned by the REST API.
+     *
+     * @return The V3 job request
+     */
+    @Benchmark
+    public com.netflix.genie.common.dto.JobRequest v4ToV3JobRequest() {
+        return DtoConverters.toV3JobRequest(this.v4JobRequest);
+    }
+
+    private static ExecutionEnvironment environment(final String resource) {
+        final Set<String> configs = new HashSet<>();
+        final Set<String> dependencies = new HashSet<>();
+        for (int i = 0; i < NUM_FILES_PER_RESOURCE; i++) {
+            configs.add("s3://bucket/genie/" + resource + "/config/config-" + i + ".xml");
+            dependencies.add("s3://bucket/genie/" + resource + "/dependencies/dependency-" + i + ".jar");
+        }
+        return new ExecutionEnvironment(configs, dependencies, "s3://bucket/genie/" + resource + "/setup.sh");
+    }
+
+    private static Set<String> toSet(final String... values) {
+        return new HashSet<>(Arrays.asList(values));
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ *
+ *  Copyright 2022 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.netflix.genie.common.external.util.GenieObjectMapper;
+import com.netflix.genie.common.internal.dtos.DirectoryManifest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks construction of a {@link DirectoryManifest} for a job directory and its JSON round trip, which happen
+ * every time the agent refreshes the manifest it sends to the server.
+ *
+ * @since 4.4.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DirectoryManifestBenchmark {
+
+    private static final int FILES_PER_DIRECTORY = 20;
+
+    /**
+     * The total number of files in the job directory.
+     */
+    @Param({"100", "1000"})
+    private int numFiles;
+
+    /**
+     * The size in bytes of each file in the job directory.
+     */
+    @Param({"1024"})
+    private int fileSize;
+
+    private final DirectoryManifest.Factory factory = new DirectoryManifest.Factory();
+    private final ObjectMapper mapper = GenieObjectMapper.getMapper();
+    private Path jobDirectory;
+    private DirectoryManifest manifest;
+    private String manifestJson;
+
+    /**
+     * Create a job directory with {@link #numFiles} files spread over sub directories.
+     *
+     * @throws IOException On error creating the files
+     */
+    @Setup
+    public void setUp() throws IOException {
+        this.jobDirectory = Files.createTempDirectory("genie-manifest-benchmark");
+        final byte[] contents = new byte[this.fileSize];
+        Arrays.fill(contents, (byte) 'x');
+        for (int i = 0; i < this.numFiles; i++) {
+            final Path directory = this.jobDirectory.resolve("dir-" + (i / FILES_PER_DIRECTORY));
+            Files.createDirectories(directory);
+            Files.write(directory.resolve("file-" + i + ".txt"), contents);
+        }
+        this.manifest = this.factory.getDirectoryManifest(this.jobDirectory, true);
+        this.manifestJson = this.mapper.writeValueAsString(this.manifest);
+    }
+
+    /**
+     * Delete the job directory.
+     *
+     * @throws IOException On error deleting the files
+     */
+    @TearDown
+    public void tearDown() throws IOException {
+        FileSystemUtils.deleteRecursively(this.jobDirectory);
+    }
+
+    /**
+     * Walk the job directory without computing checksums.
+     *
+     * @return The manifest
+     * @throws IOException On error walking the directory
+     */
+    @Benchmark
+    public DirectoryManifest createWithoutChecksum() throws IOException {
+        return this.factory.getDirectoryManifest(this.jobDirectory, false);
+    }
+
+    /**
+     * Walk the job directory computing the checksum of every file.
+     *
+     * @return The manifest
+     * @throws IOException On error walking the directory
+     */
+    @Benchmark
+    public DirectoryManifest createWithChecksum() throws IOException {
+        return this.factory.getDirectoryManifest(this.jobDirectory, true);
+    }
+
+    /**
+     * Walk the job directory computing checksums but reusing those of unchanged files from a previous manifest.
+     *
+     * @return The manifest
+     * @throws IOException On error walking the directory
+     */
+    @Benchmark
+    public DirectoryManifest rescanWithPreviousManifest() throws IOException {
+        return this.factory.getDirectoryManifest(this.jobDirectory, true, this.manifest);
+    }
+
+    /**
+     * Serialize the manifest to JSON.
+     *
+     * @return The JSON string
+     * @throws IOException On serialization error
+     */
+    @Benchmark
+    public String serialize() throws IOException {
+        return this.mapper.writeValueAsString(this.manifest);
+    }
+
+    /**
+     * Deserialize the manifest from JSON.
+     *
+     * @return The manifest
+     * @throws IOException On deserialization error
+     */
+    @Benchmark
+    public DirectoryManifest deserialize() throws IOException {
+        return this.mapper.readValue(this.manifestJson, DirectoryManifest.class);
+    }
+}
@@ -0,0 +1,264 @@
+/*
+ *
+ *  Copyright 2022 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.benchmarks;
+
+import com.netflix.genie.common.internal.dtos.ClusterMetadata;
+import com.netflix.genie.common.internal.dtos.ClusterRequest;
+import com.netflix.genie.common.internal.dtos.ClusterStatus;
+import com.netflix.genie.common.internal.dtos.CommandMetadata;
+import com.netflix.genie.common.internal.dtos.CommandRequest;
+import com.netflix.genie.common.internal.dtos.CommandStatus;
+import com.netflix.genie.common.internal.dtos.Criterion;
+import com.netflix.genie.common.internal.dtos.ExecutionResourceCriteria;
+import com.netflix.genie.common.internal.dtos.JobMetadata;
+import com.netflix.genie.common.internal.dtos.JobRequest;
+import com.netflix.genie.common.internal.exceptions.checked.GenieJobResolutionException;
+import com.netflix.genie.common.internal.spring.autoconfigure.CommonTracingAutoConfiguration;
+import com.netflix.genie.common.internal.tracing.brave.BraveTracingComponents;
+import com.netflix.genie.web.data.observers.PersistedJobStatusObserver;
+import com.netflix.genie.web.data.services.DataServices;
+import com.netflix.genie.web.data.services.PersistenceService;
+import com.netflix.genie.web.dtos.ResolvedJob;
+import com.netflix.genie.web.exceptions.checked.IdAlreadyExistsException;
+import com.netflix.genie.web.properties.JobResolutionProperties;
+import com.netflix.genie.web.properties.JobsProperties;
+import com.netflix.genie.web.properties.ResourceCatalogProperties;
+import com.netflix.genie.web.services.ResourceCatalogService;
+import com.netflix.genie.web.services.impl.JobResolverServiceImpl;
+import com.netflix.genie.web.services.impl.ResourceCatalogServiceImpl;
+import com.netflix.genie.web.selectors.impl.RandomClusterSelectorImpl;
+import com.netflix.genie.web.selectors.impl.RandomCommandSelectorImpl;
+import com.netflix.genie.web.spring.autoconfigure.ValidationAutoConfiguration;
+import com.netflix.genie.web.spring.autoconfigure.data.DataAutoConfiguration;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.flyway.FlywayAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceTransactionManagerAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.autoconfigure.transaction.TransactionAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.cloud.sleuth.autoconfig.brave.BraveAutoConfiguration;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks {@link JobResolverServiceImpl#resolveJob(String, JobRequest, boolean)} against an embedded H2 database
+ * populated with clusters and commands. This covers permuting the cluster criteria of the job with those of the
+ * candidate commands and matching the resulting criteria against the clusters, either via queries to the
+ * database or via the in-memory {@link ResourceCatalogService}.
+ *
+ * @since 4.4.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JobResolverBenchmark {
+
+    private static final String PERSISTENCE_SOURCE = "persistence";
+    private static final String CATALOG_SOURCE = "catalog";
+    private static final int NUM_COMMANDS = 10;
+    private static final int NUM_COMMAND_CLUSTER_CRITERIA = 3;
+
+    /**
+     * The number of clusters which are candidates for every job.
+     */
+    @Param({"10", "100", "1000"})
+    private int numClusters;
+
+    /**
+     * Where criteria are matched against: {@literal persistence} or the in-memory {@literal catalog}.
+     */
+    @Param({PERSISTENCE_SOURCE, CATALOG_SOURCE})
+    private String resolutionSource;
+
+    private ConfigurableApplicationContext context;
+    private ThreadPoolTaskScheduler taskScheduler;
+    private JobResolverServiceImpl jobResolverService;
+    private JobRequest jobRequest;
+
+    /**
+     * Start an application context backed by an in-memory H2 database, populate it and create the resolver.
+     *
+     * @throws IdAlreadyExistsException If the fixtures can't be saved
+     */
+    @Setup
+    public void setUp() throws IdAlreadyExistsException {
+        this.context = new SpringApplicationBuilder(BenchmarkConfiguration.class)
+            .web(WebApplicationType.NONE)
+            .run();
+        final DataServices dataServices = this.context.getBean(DataServices.class);
+        this.populate(dataServices.getPersistenceService());
+
+        final MeterRegistry registry = new SimpleMeterRegistry();
+        ResourceCatalogService resourceCatalogService = null;
+        if (CATALOG_SOURCE.equals(this.resolutionSource)) {
+            this.taskScheduler = new ThreadPoolTaskScheduler();
+            this.taskScheduler.initialize();
+            final ResourceCatalogProperties catalogProperties = new ResourceCatalogProperties();
+            catalogProperties.setEnabled(true);
+            catalogProperties.setRefreshInterval(Duration.ofDays(1L));
+            resourceCatalogService = new ResourceCatalogServiceImpl(
+                dataServices,
+                catalogProperties,
+                this.taskScheduler,
+                registry
+            );
+            resourceCatalogService.refresh();
+        }
+
+        this.jobResolverService = new JobResolverServiceImpl(
+            dataServices,
+            resourceCatalogService,
+            Collections.singletonList(new RandomClusterSelectorImpl()),
+            new RandomCommandSelectorImpl(),
+            registry,
+            JobsProperties.getJobsPropertiesDefaults(),
+            new JobResolutionProperties(this.context.getEnvironment()),
+            this.context.getBean(BraveTracingComponents.class)
+        );
+
+        this.jobRequest = new JobRequest(
+            null,
+            null,
+            Arrays.asList("-e", "select 1"),
+            new JobMetadata.Builder("benchmark", "genie").build(),
+            new ExecutionResourceCriteria(
+                Arrays.asList(
+                    criterion("cluster:does-not-exist"),
+                    criterion("sched:adhoc", "type:yarn")
+                ),
+                criterion("type:command-0"),
+                null
+            ),
+            null,
+            null
+        );
+    }
+
+    /**
+     * Stop the application context and any scheduler.
+     */
+    @TearDown
+    public void tearDown() {
+        if (this.taskScheduler != null) {
+            this.taskScheduler.shutdown();
+        }
+        this.context.close();
+    }
+
+    /**
+     * Resolve the job request to a cluster and command.
+     *
+     * @return The resolved job
+     * @throws GenieJobResolutionException If the job can't be resolved
+     */
+    @Benchmark
+    public ResolvedJob resolveJob() throws GenieJobResolutionException {
+        return this.jobResolverService.resolveJob(UUID.randomUUID().toString(), this.jobRequest, false);
+    }
+
+    private void populate(final PersistenceService persistenceService) throws IdAlreadyExistsException {
+        for (int i = 0; i < this.numClusters; i++) {
+            persistenceService.saveCluster(
+                new ClusterRequest.Builder(
+                    new ClusterMetadata.Builder("cluster-" + i, "genie", "1.0.0", ClusterStatus.UP)
+                        .withTags(toSet("sched:adhoc", "type:yarn", "cluster:" + i))
+                        .build()
+                ).build()
+            );
+        }
+        for (int i = 0; i < NUM_COMMANDS; i++) {
+            final Criterion[] clusterCriteria = new Criterion[NUM_COMMAND_CLUSTER_CRITERIA];
+            for (int j = 0; j < NUM_COMMAND_CLUSTER_CRITERIA - 1; j++) {
+                clusterCriteria[j] = criterion("type:unknown-" + j);
+            }
+            clusterCriteria[NUM_COMMAND_CLUSTER_CRITERIA - 1] = criterion("type:yarn");
+            persistenceService.saveCommand(
+                new CommandRequest.Builder(
+                    new CommandMetadata.Builder("command-" + i, "genie", "1.0.0", CommandStatus.ACTIVE)
+                        .withTags(toSet("type:command-" + i))
+                        .build(),
+                    Arrays.asList("/usr/bin/command", "--verbose")
+                )
+                    .withClusterCriteria(Arrays.asList(clusterCriteria))
+                    .build()
+            );
+        }
+    }
+
+    private static Criterion criterion(final String... tags) {
+        return new Criterion.Builder().withTags(toSet(tags)).build();
+    }
+
+    private static Set<String> toSet(final String... values) {
+        return new HashSet<>(Arrays.asList(values));
+    }
+
+    /**
+     * The minimal context needed for Genie persistence on top of the default embedded database.
+     */
+    @Configuration
+    @ImportAutoConfiguration(
+        {
+            DataSourceAutoConfiguration.class,
+            DataSourceTransactionManagerAutoConfiguration.class,
+            FlywayAutoConfiguration.class,
+            HibernateJpaAutoConfiguration.class,
+            TransactionAutoConfiguration.class,
+            BraveAutoConfiguration.class,
+            CommonTracingAutoConfiguration.class,
+            ValidationAutoConfiguration.class,
+            DataAutoConfiguration.class
+        }
+    )
+    static class BenchmarkConfiguration {
+
+        /**
+         * Status changes are not observed by the benchmarks.
+         *
+         * @return A no-op observer
+         */
+        @Bean
+        PersistedJobStatusObserver persistedJobStatusObserver() {
+            return (jobId, previousStatus, currentStatus) -> {
+            };
+        }
+    }
+}
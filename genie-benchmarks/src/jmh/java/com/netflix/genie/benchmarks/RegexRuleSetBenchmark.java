@@ -0,0 +1,98 @@
+/*
+ *
+ *  Copyright 2022 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.benchmarks;
+
+import com.netflix.genie.common.internal.util.RegexRuleSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks {@link RegexRuleSet#evaluate(String)}, which is applied to every file and environment variable name
+ * filtered by the agent and server.
+ *
+ * @since 4.4.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RegexRuleSetBenchmark {
+
+    /**
+     * The number of rules in the rule set.
+     */
+    @Param({"1", "10", "100"})
+    private int numRules;
+
+    private RegexRuleSet ruleSet;
+    private String firstRuleMatch;
+    private String lastRuleMatch;
+    private String noMatch;
+
+    /**
+     * Build a rule set of {@link #numRules} distinct rules and inputs which hit the first, last and no rule.
+     */
+    @Setup
+    public void setUp() {
+        final String[] patterns = new String[this.numRules];
+        for (int i = 0; i < this.numRules; i++) {
+            patterns[i] = ".*/rule-" + i + "/.*\\.log";
+        }
+        this.ruleSet = RegexRuleSet.buildWhitelist(patterns);
+        this.firstRuleMatch = "genie/jobs/1234/rule-0/stdout.log";
+        this.lastRuleMatch = "genie/jobs/1234/rule-" + (this.numRules - 1) + "/stdout.log";
+        this.noMatch = "genie/jobs/1234/genie/logs/env.log.txt";
+    }
+
+    /**
+     * Evaluate an input matched by the first rule.
+     *
+     * @return The response
+     */
+    @Benchmark
+    public RegexRuleSet.Response matchFirstRule() {
+        return this.ruleSet.evaluate(this.firstRuleMatch);
+    }
+
+    /**
+     * Evaluate an input only matched by the last rule.
+     *
+     * @return The response
+     */
+    @Benchmark
+    public RegexRuleSet.Response matchLastRule() {
+        return this.ruleSet.evaluate(this.lastRuleMatch);
+    }
+
+    /**
+     * Evaluate an input matched by no rule, which falls through to the default response.
+     *
+     * @return The response
+     */
+    @Benchmark
+    public RegexRuleSet.Response matchNoRule() {
+        return this.ruleSet.evaluate(this.noMatch);
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ *
+ *  Copyright 2022 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.benchmarks;
+
+import com.google.protobuf.ByteString;
+import com.netflix.genie.web.util.StreamBuffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks moving a file through a {@link StreamBuffer} from the thread receiving chunks from the agent to the
+ * thread serving the HTTP response, which bounds the throughput of remote job file downloads.
+ *
+ * @since 4.4.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class StreamBufferBenchmark {
+
+    private static final long FILE_SIZE = 64L * 1024 * 1024;
+
+    /**
+     * The size in bytes of each chunk written into the buffer.
+     */
+    @Param({"65536", "1048576"})
+    private int chunkSize;
+
+    /**
+     * The maximum number of chunks the buffer holds before the writer blocks.
+     */
+    @Param({"1", "4", "16"})
+    private int maxChunks;
+
+    private ExecutorService writerExecutor;
+    private ByteString chunk;
+    private byte[] readBuffer;
+
+    /**
+     * Create the writer thread and the chunk written repeatedly to the buffer.
+     */
+    @Setup
+    public void setUp() {
+        this.writerExecutor = Executors.newSingleThreadExecutor();
+        this.chunk = ByteString.copyFrom(new byte[this.chunkSize]);
+        this.readBuffer = new byte[8 * 1024];
+    }
+
+    /**
+     * Shut down the writer thread.
+     */
+    @TearDown
+    public void tearDown() {
+        this.writerExecutor.shutdownNow();
+    }
+
+    /**
+     * Transfer a file through a new buffer, writing on one thread and reading until end of stream on another.
+     *
+     * @return The number of bytes read
+     * @throws IOException          On error reading from the buffer
+     * @throws ExecutionException   On error writing to the buffer
+     * @throws InterruptedException If interrupted waiting for the writer
+     */
+    @Benchmark
+    public long transferFile() throws IOException, ExecutionException, InterruptedException {
+        final StreamBuffer buffer = new StreamBuffer(0, this.maxChunks);
+        final Future<?> writer = this.writerExecutor.submit(
+            () -> {
+                for (long written = 0; written < FILE_SIZE; written += this.chunk.size()) {
+                    buffer.write(this.chunk);
+                }
+                buffer.closeForCompleted();
+            }
+        );
+        long read = 0;
+        try (InputStream inputStream = buffer.getInputStream()) {
+            int count;
+            while ((count = inputStream.read(this.readBuffer)) != -1) {
+                read += count;
+            }
+        }
+        writer.get();
+        return read;
+    }
+}
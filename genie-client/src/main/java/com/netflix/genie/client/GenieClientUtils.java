@@ -26,6 +26,7 @@ import com.netflix.genie.client.configs.GenieNetworkConfiguration;
 import com.netflix.genie.client.exceptions.GenieClientException;
 import com.netflix.genie.client.interceptors.ResponseMappingInterceptor;
 import com.netflix.genie.common.external.util.GenieObjectMapper;
+import okhttp3.HttpUrl;
 import okhttp3.Interceptor;
 import okhttp3.OkHttpClient;
 import org.apache.commons.lang3.StringUtils;
@@ -177,6 +178,43 @@ final class GenieClientUtils {
         return searchList;
     }
 
+    /**
+     * Given a response from a Genie search API parse the value of a query parameter out of the link with the given
+     * relation.
+     *
+     * @param response       The response JSON from the server
+     * @param rel            The link relation
+     * @param queryParameter The name of the query parameter
+     * @return The value of the query parameter or {@literal null} if the link or the parameter isn't present
+     */
+    @Nullable
+    static String getLinkQueryParameter(
+        final Response<JsonNode> response,
+        final String rel,
+        final String queryParameter
+    ) {
+        final JsonNode href = response.body() == null ? null : response.body().path("_links").path(rel).path("href");
+        if (href == null || !href.isTextual()) {
+            return null;
+        }
+        final HttpUrl url = HttpUrl.parse(href.asText());
+        return url == null ? null : url.queryParameter(queryParameter);
+    }
+
+    /**
+     * Given a response from a Genie search API parse the total number of matching entities from the page metadata.
+     *
+     * @param response The response JSON from the server
+     * @return The total number of results or {@literal null} if the server didn't report it
+     */
+    @Nullable
+    static Long getTotalElements(final Response<JsonNode> response) {
+        final JsonNode totalElements = response.body() == null
+            ? null
+            : response.body().path("page").path("totalElements");
+        return totalElements == null || !totalElements.canConvertToLong() ? null : totalElements.asLong();
+    }
+
     @Nullable
     public static String getSortParameter(
         @Nullable final SortAttribute sortAttribute,
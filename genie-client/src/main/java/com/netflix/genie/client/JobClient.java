@@ -44,6 +44,7 @@ import okhttp3.ResponseBody;
 import okio.BufferedSink;
 import org.apache.commons.lang3.StringUtils;
 import retrofit2.Call;
+import retrofit2.Response;
 import retrofit2.Retrofit;
 
 import javax.annotation.Nullable;
@@ -469,6 +470,82 @@ public class JobClient {
         );
     }
 
+    /**
+     * Method to get a page of the jobs from Genie for the query parameters specified. Rather than addressing pages by
+     * index the server continues from the cursor returned with the previous page, which keeps the cost of retrieving
+     * deep pages constant. Results are sorted from the most to the least recently created job.
+     *
+     * @param id               id for job
+     * @param name             name of job (can be a SQL-style pattern such as HIVE%)
+     * @param user             user who submitted job
+     * @param statuses         statuses of jobs to find
+     * @param tags             tags for the job
+     * @param clusterName      the name of the cluster
+     * @param clusterId        the id of the cluster
+     * @param commandName      the name of the command run by the job
+     * @param commandId        the id of the command run by the job
+     * @param minStarted       The time which the job had to start after in order to be return (inclusive)
+     * @param maxStarted       The time which the job had to start before in order to be returned (exclusive)
+     * @param minFinished      The time which the job had to finish after in order to be return (inclusive)
+     * @param maxFinished      The time which the job had to finish before in order to be returned (exclusive)
+     * @param grouping         The grouping the job should be a member of
+     * @param groupingInstance The grouping instance the job should be a member of
+     * @param pageSize         The maximum number of results returned
+     * @param cursor           The cursor from the previous page or {@literal null} to retrieve the first page
+     * @param includeTotal     Whether the server should also count all the jobs matching the search. This requires an
+     *                         additional query so it is best done only for the first page
+     * @return The page of jobs
+     * @throws GenieClientException If the response received is not 2xx.
+     * @throws IOException          For Network and other IO issues.
+     */
+    @SuppressWarnings("checkstyle:ParameterNumber")
+    public JobSearchResultsPage getJobsPage(
+        @Nullable final String id,
+        @Nullable final String name,
+        @Nullable final String user,
+        @Nullable final Set<String> statuses,
+        @Nullable final Set<String> tags,
+        @Nullable final String clusterName,
+        @Nullable final String clusterId,
+        @Nullable final String commandName,
+        @Nullable final String commandId,
+        @Nullable final Long minStarted,
+        @Nullable final Long maxStarted,
+        @Nullable final Long minFinished,
+        @Nullable final Long maxFinished,
+        @Nullable final String grouping,
+        @Nullable final String groupingInstance,
+        @Nullable @Min(1) final Integer pageSize,
+        @Nullable final String cursor,
+        final boolean includeTotal
+    ) throws IOException, GenieClientException {
+        final Response<JsonNode> response = this.jobService.getJobsPage(
+            id,
+            name,
+            user,
+            statuses,
+            tags,
+            clusterName,
+            clusterId,
+            commandName,
+            commandId,
+            minStarted,
+            maxStarted,
+            minFinished,
+            maxFinished,
+            grouping,
+            groupingInstance,
+            pageSize,
+            cursor,
+            includeTotal
+        ).execute();
+        return new JobSearchResultsPage(
+            GenieClientUtils.parseSearchResultsResponse(response, "jobSearchResultList", JobSearchResult.class),
+            GenieClientUtils.getLinkQueryParameter(response, "next", "cursor"),
+            includeTotal ? GenieClientUtils.getTotalElements(response) : null
+        );
+    }
+
     /**
      * Method to get a job from Genie.
      *
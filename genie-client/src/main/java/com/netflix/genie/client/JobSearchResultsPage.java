@@ -0,0 +1,79 @@
+/*
+ *
+ *  Copyright 2022 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.client;
+
+import com.netflix.genie.common.dto.search.JobSearchResult;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * A page of job search results retrieved by cursor rather than by page index.
+ *
+ * @since 4.4.0
+ */
+@EqualsAndHashCode(doNotUseGetters = true)
+@ToString(doNotUseGetters = true)
+public class JobSearchResultsPage {
+
+    @Getter
+    private final List<JobSearchResult> results;
+    private final String nextCursor;
+    private final Long totalCount;
+
+    /**
+     * Constructor.
+     *
+     * @param results    The job search results in this page
+     * @param nextCursor The cursor to pass to retrieve the following page or {@literal null} if this is the last page
+     * @param totalCount The total number of jobs matching the search or {@literal null} if it wasn't requested
+     */
+    public JobSearchResultsPage(
+        final List<JobSearchResult> results,
+        @Nullable final String nextCursor,
+        @Nullable final Long totalCount
+    ) {
+        this.results = Collections.unmodifiableList(new ArrayList<>(results));
+        this.nextCursor = nextCursor;
+        this.totalCount = totalCount;
+    }
+
+    /**
+     * Get the cursor to pass in order to retrieve the next page of results.
+     *
+     * @return The cursor or {@link Optional#empty()} if there are no more results
+     */
+    public Optional<String> getNextCursor() {
+        return Optional.ofNullable(this.nextCursor);
+    }
+
+    /**
+     * Get the total number of jobs matching the search, if it was requested.
+     *
+     * @return The total or {@link Optional#empty()} if it wasn't computed
+     */
+    public Optional<Long> getTotalCount() {
+        return Optional.ofNullable(this.totalCount);
+    }
+}
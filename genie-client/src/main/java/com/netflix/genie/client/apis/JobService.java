@@ -153,6 +153,53 @@ public interface JobService {
         @Query("page") Integer page
     );
 
+    /**
+     * Method to get a page of jobs from Genie by seeking past the last job of the previous page rather than by page
+     * index. Results are always sorted from the most to the least recently created job.
+     *
+     * @param id               id for job
+     * @param name             name of job (can be a SQL-style pattern such as HIVE%)
+     * @param user             user who submitted job
+     * @param statuses         statuses of jobs to find
+     * @param tags             tags for the job
+     * @param clusterName      the name of the cluster
+     * @param clusterId        the id of the cluster
+     * @param commandName      the name of the command run by the job
+     * @param commandId        the id of the command run by the job
+     * @param minStarted       The time which the job had to start after in order to be return (inclusive)
+     * @param maxStarted       The time which the job had to start before in order to be returned (exclusive)
+     * @param minFinished      The time which the job had to finish after in order to be return (inclusive)
+     * @param maxFinished      The time which the job had to finish before in order to be returned (exclusive)
+     * @param grouping         The grouping the job should be a member of
+     * @param groupingInstance The grouping instance the job should be a member of
+     * @param size             The maximum number of results in the page
+     * @param cursor           The cursor returned with the previous page or {@literal null} for the first page
+     * @param includeTotal     Whether the server should count the total number of matching jobs
+     * @return A callable object.
+     */
+    @SuppressWarnings("checkstyle:parameternumber")
+    @GET(JOBS_URL_SUFFIX)
+    Call<JsonNode> getJobsPage(
+        @Query("id") String id,
+        @Query("name") String name,
+        @Query("user") String user,
+        @Query("status") Set<String> statuses,
+        @Query("tag") Set<String> tags,
+        @Query("clusterName") String clusterName,
+        @Query("clusterId") String clusterId,
+        @Query("commandName") String commandName,
+        @Query("commandId") String commandId,
+        @Query("minStarted") Long minStarted,
+        @Query("maxStarted") Long maxStarted,
+        @Query("minFinished") Long minFinished,
+        @Query("maxFinished") Long maxFinished,
+        @Query("grouping") String grouping,
+        @Query("groupingInstance") String groupingInstance,
+        @Query("size") Integer size,
+        @Query("cursor") String cursor,
+        @Query("includeTotal") Boolean includeTotal
+    );
+
     /**
      * Method to fetch a single job from Genie.
      *
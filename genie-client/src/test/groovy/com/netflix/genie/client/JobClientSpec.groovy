@@ -69,6 +69,57 @@ class JobClientSpec extends Specification {
         "{\"_embedded\": {\"jobSearchResultList\": []}}" | _
     }
 
+    def "can page through jobs by cursor"() {
+        setup:
+        def server = new MockWebServer()
+        server.enqueue(
+            new MockResponse().setBody(
+                "{\"_embedded\": {\"jobSearchResultList\": []}, "
+                    + "\"_links\": {\"next\": {\"href\": \"http://genie/api/v3/jobs?size=2&cursor=abc123\"}}, "
+                    + "\"page\": {\"size\": 2, \"totalElements\": 5, \"totalPages\": 3, \"number\": 0}}"
+            )
+        )
+        server.enqueue(new MockResponse().setBody("{\"_embedded\": {\"jobSearchResultList\": []}}"))
+        server.start()
+        def url = server.url("")
+        def okHttpClient = new OkHttpClient.Builder().build()
+        def retrofit = new Retrofit.Builder()
+            .baseUrl(url)
+            .client(okHttpClient)
+            .addConverterFactory(JacksonConverterFactory.create(GenieObjectMapper.getMapper()))
+            .build()
+        def jobClient = new JobClient(retrofit, 5)
+
+        when:
+        def page = jobClient.getJobsPage(
+            null, null, null, null, null, null, null, null, null, null, null, null, null, null, null, 2, null, true
+        )
+        def request = server.takeRequest()
+
+        then:
+        page.getResults().isEmpty()
+        page.getNextCursor() == Optional.of("abc123")
+        page.getTotalCount() == Optional.of(5L)
+        request.getRequestUrl().queryParameter("includeTotal") == "true"
+        request.getRequestUrl().queryParameter("cursor") == null
+
+        when:
+        page = jobClient.getJobsPage(
+            null, null, null, null, null, null, null, null, null, null, null, null, null, null, null, 2, "abc123", false
+        )
+        request = server.takeRequest()
+
+        then:
+        page.getResults().isEmpty()
+        !page.getNextCursor().isPresent()
+        !page.getTotalCount().isPresent()
+        request.getRequestUrl().queryParameter("includeTotal") == "false"
+        request.getRequestUrl().queryParameter("cursor") == "abc123"
+
+        cleanup:
+        server.shutdown()
+    }
+
     @Unroll
     def "submit job with upstream security information formed correct request"() {
         setup:
@@ -20,6 +20,7 @@ package com.netflix.genie.common.internal.configs;
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
 import com.netflix.genie.common.internal.dtos.DirectoryManifest;
+import com.netflix.genie.common.internal.properties.JobDirectoryManifestProperties;
 import com.netflix.genie.common.internal.properties.RegexDirectoryManifestProperties;
 import com.netflix.genie.common.internal.services.JobArchiveService;
 import com.netflix.genie.common.internal.services.JobArchiver;
@@ -51,7 +52,8 @@ import java.util.concurrent.TimeUnit;
 @Configuration
 @EnableConfigurationProperties(
     {
-        RegexDirectoryManifestProperties.class
+        RegexDirectoryManifestProperties.class,
+        JobDirectoryManifestProperties.class
     }
 )
 public class CommonServicesAutoConfiguration {
@@ -96,15 +98,17 @@ public class CommonServicesAutoConfiguration {
      *
      * @param directoryManifestFactory the factory to produce the manifest if needed
      * @param cache                    the cache to use
+     * @param properties               the manifest properties
      * @return a {@link JobDirectoryManifestCreatorService}
      */
     @Bean
     @ConditionalOnMissingBean(JobDirectoryManifestCreatorService.class)
     public JobDirectoryManifestCreatorServiceImpl jobDirectoryManifestCreatorService(
         final DirectoryManifest.Factory directoryManifestFactory,
-        @Qualifier("jobDirectoryManifestCache") final Cache<Path, DirectoryManifest> cache
+        @Qualifier("jobDirectoryManifestCache") final Cache<Path, DirectoryManifest> cache,
+        final JobDirectoryManifestProperties properties
     ) {
-        return new JobDirectoryManifestCreatorServiceImpl(directoryManifestFactory, cache, false);
+        return new JobDirectoryManifestCreatorServiceImpl(directoryManifestFactory, cache, false, properties);
     }
 
     /**
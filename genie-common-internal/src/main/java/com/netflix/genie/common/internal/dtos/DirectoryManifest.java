@@ -23,6 +23,7 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import lombok.EqualsAndHashCode;
@@ -54,9 +55,13 @@ import java.nio.file.StandardOpenOption;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.time.Instant;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  * A manifest of all the files and subdirectories in a directory.
@@ -77,43 +82,6 @@ public class DirectoryManifest {
     private final int numDirectories;
     private final long totalSizeOfFiles;
 
-    private DirectoryManifest(
-        final Path directory,
-        final boolean calculateFileChecksums,
-        final Filter filter
-    ) throws IOException {
-        // Walk the directory
-        final ImmutableMap.Builder<String, ManifestEntry> builder = ImmutableMap.builder();
-        final ManifestVisitor manifestVisitor = new ManifestVisitor(
-            directory,
-            builder,
-            calculateFileChecksums,
-            filter
-        );
-        final EnumSet<FileVisitOption> options = EnumSet.of(FileVisitOption.FOLLOW_LINKS);
-        Files.walkFileTree(directory, options, Integer.MAX_VALUE, manifestVisitor);
-        this.entries = builder.build();
-
-        final ImmutableSet.Builder<ManifestEntry> filesBuilder = ImmutableSet.builder();
-        final ImmutableSet.Builder<ManifestEntry> directoriesBuilder = ImmutableSet.builder();
-
-        long sizeOfFiles = 0L;
-        for (final ManifestEntry entry : this.entries.values()) {
-            if (entry.isDirectory()) {
-                directoriesBuilder.add(entry);
-            } else {
-                filesBuilder.add(entry);
-                sizeOfFiles += entry.getSize();
-            }
-        }
-
-        this.totalSizeOfFiles = sizeOfFiles;
-        this.directories = directoriesBuilder.build();
-        this.files = filesBuilder.build();
-        this.numDirectories = this.directories.size();
-        this.numFiles = this.files.size();
-    }
-
     /**
      * Create a manifest from an existing set of entries. Generally this should be used to regenerate an in memory
      * manifest instance from JSON.
@@ -124,13 +92,15 @@ public class DirectoryManifest {
     public DirectoryManifest(
         @JsonProperty(value = ENTRIES_KEY, required = true) final Set<ManifestEntry> entries
     ) {
-        final ImmutableMap.Builder<String, ManifestEntry> builder = ImmutableMap.builder();
+        this(indexByPath(entries));
+    }
+
+    private DirectoryManifest(final ImmutableMap<String, ManifestEntry> entries) {
         final ImmutableSet.Builder<ManifestEntry> filesBuilder = ImmutableSet.builder();
         final ImmutableSet.Builder<ManifestEntry> directoriesBuilder = ImmutableSet.builder();
 
         long sizeOfFiles = 0L;
-        for (final ManifestEntry entry : entries) {
-            builder.put(entry.getPath(), entry);
+        for (final ManifestEntry entry : entries.values()) {
             if (entry.isDirectory()) {
                 directoriesBuilder.add(entry);
             } else {
@@ -138,7 +108,7 @@ public class DirectoryManifest {
                 sizeOfFiles += entry.getSize();
             }
         }
-        this.entries = builder.build();
+        this.entries = entries;
         this.totalSizeOfFiles = sizeOfFiles;
         this.directories = directoriesBuilder.build();
         this.files = filesBuilder.build();
@@ -146,6 +116,14 @@ public class DirectoryManifest {
         this.numFiles = this.files.size();
     }
 
+    private static ImmutableMap<String, ManifestEntry> indexByPath(final Collection<ManifestEntry> entries) {
+        final ImmutableMap.Builder<String, ManifestEntry> builder = ImmutableMap.builder();
+        for (final ManifestEntry entry : entries) {
+            builder.put(entry.getPath(), entry);
+        }
+        return builder.build();
+    }
+
     /**
      * Check whether an entry exists for the given path.
      *
@@ -279,6 +257,7 @@ public class DirectoryManifest {
 
         private static final Filter ACCEPT_ALL_FILTER = new DirectoryManifest.Filter() {
         };
+        private static final EnumSet<FileVisitOption> WALK_OPTIONS = EnumSet.of(FileVisitOption.FOLLOW_LINKS);
         private final Filter filter;
 
         /**
@@ -309,7 +288,82 @@ public class DirectoryManifest {
             final Path directory,
             final boolean includeChecksum
         ) throws IOException {
-            return new DirectoryManifest(directory, includeChecksum, this.filter);
+            return this.getDirectoryManifest(directory, includeChecksum, null);
+        }
+
+        /**
+         * Create a manifest from the given job directory, reusing the checksum and mime type of entries of a previous
+         * manifest of the same directory if the file size and modification time did not change.
+         *
+         * @param directory       The job directory to create a manifest from
+         * @param includeChecksum Whether or not to calculate checksums for each file added to the manifest
+         * @param previous        A previous manifest of the same directory, or null
+         * @return a directory manifest
+         * @throws IOException If there is an error reading the directory
+         */
+        public DirectoryManifest getDirectoryManifest(
+            final Path directory,
+            final boolean includeChecksum,
+            @Nullable final DirectoryManifest previous
+        ) throws IOException {
+            final Map<String, ManifestEntry> entries = Maps.newLinkedHashMap();
+            final ManifestVisitor manifestVisitor = new ManifestVisitor(
+                directory,
+                entries,
+                previous == null ? ImmutableMap.of() : previous.entries,
+                includeChecksum,
+                this.filter
+            );
+            Files.walkFileTree(directory, WALK_OPTIONS, Integer.MAX_VALUE, manifestVisitor);
+            return new DirectoryManifest(ImmutableMap.copyOf(entries));
+        }
+
+        /**
+         * Update a previous manifest of the given job directory by only looking at paths known to have changed
+         * (created, modified or deleted). Entries of other paths are carried over untouched.
+         * The parent directories of changed paths are also refreshed, since their list of children may have changed.
+         *
+         * @param directory       The job directory the previous manifest was created from
+         * @param includeChecksum Whether or not to calculate checksums for each file added to the manifest
+         * @param previous        The previous manifest of the directory
+         * @param changedPaths    The absolute paths that changed since the previous manifest was created
+         * @return a directory manifest
+         * @throws IOException If there is an error reading the directory
+         */
+        public DirectoryManifest updateDirectoryManifest(
+            final Path directory,
+            final boolean includeChecksum,
+            final DirectoryManifest previous,
+            final Set<Path> changedPaths
+        ) throws IOException {
+            final Map<String, ManifestEntry> entries = Maps.newLinkedHashMap(previous.entries);
+            final ManifestVisitor manifestVisitor = new ManifestVisitor(
+                directory,
+                entries,
+                previous.entries,
+                includeChecksum,
+                this.filter
+            );
+
+            // Process parents before children, so that new directories are added before their content is looked at
+            final List<Path> sortedChangedPaths = changedPaths.stream()
+                .map(Path::normalize)
+                .filter(path -> path.startsWith(directory))
+                .sorted(Comparator.comparingInt(Path::getNameCount))
+                .collect(Collectors.toList());
+
+            final Set<Path> parentsToRefresh = Sets.newHashSet();
+            for (final Path changedPath : sortedChangedPaths) {
+                manifestVisitor.update(changedPath);
+                if (!changedPath.equals(directory)) {
+                    parentsToRefresh.add(changedPath.getParent());
+                }
+            }
+            for (final Path parent : parentsToRefresh) {
+                manifestVisitor.refreshDirectory(parent);
+            }
+
+            return new DirectoryManifest(ImmutableMap.copyOf(entries));
         }
     }
 
@@ -317,7 +371,8 @@ public class DirectoryManifest {
     private static class ManifestVisitor extends SimpleFileVisitor<Path> {
 
         private final Path root;
-        private final ImmutableMap.Builder<String, ManifestEntry> builder;
+        private final Map<String, ManifestEntry> entries;
+        private final Map<String, ManifestEntry> previousEntries;
         private final Metadata metadata;
         private final TikaConfig tikaConfig;
         private final boolean checksumFiles;
@@ -325,12 +380,14 @@ public class DirectoryManifest {
 
         ManifestVisitor(
             final Path root,
-            final ImmutableMap.Builder<String, ManifestEntry> builder,
+            final Map<String, ManifestEntry> entries,
+            final Map<String, ManifestEntry> previousEntries,
             final boolean checksumFiles,
             final Filter filter
         ) throws IOException {
             this.root = root;
-            this.builder = builder;
+            this.entries = entries;
+            this.previousEntries = previousEntries;
             this.checksumFiles = checksumFiles;
             this.filter = filter;
             this.metadata = new Metadata();
@@ -349,7 +406,7 @@ public class DirectoryManifest {
         public FileVisitResult preVisitDirectory(final Path dir, final BasicFileAttributes attrs) throws IOException {
             final ManifestEntry entry = this.buildEntry(dir, attrs, true);
             if (this.filter.includeDirectory(dir, attrs)) {
-                this.builder.put(entry.getPath(), entry);
+                this.entries.put(entry.getPath(), entry);
                 log.debug("Created manifest entry for directory {}", entry);
                 if (this.filter.walkDirectory(dir, attrs)) {
                     return FileVisitResult.CONTINUE;
@@ -368,7 +425,7 @@ public class DirectoryManifest {
             if (this.filter.includeFile(file, attrs)) {
                 final ManifestEntry entry = this.buildEntry(file, attrs, false);
                 log.debug("Created manifest entry for file {}", entry);
-                this.builder.put(entry.getPath(), entry);
+                this.entries.put(entry.getPath(), entry);
             } else {
                 log.debug("Skipped manifest entry for file {}", file.toAbsolutePath());
             }
@@ -397,6 +454,88 @@ public class DirectoryManifest {
             }
         }
 
+        /**
+         * Add, update or remove the entry (and any sub-tree) for a single path that changed.
+         */
+        void update(final Path path) throws IOException {
+            final String relativePath = this.root.relativize(path).toString();
+
+            if (!Files.exists(path)) {
+                log.debug("Removing manifest entries for deleted path {}", path);
+                this.removeSubTree(relativePath);
+                return;
+            }
+
+            if (!path.equals(this.root)) {
+                // Only consider paths whose parent directory is part of the manifest and is walked
+                final Path parent = path.getParent();
+                if (!this.entries.containsKey(this.root.relativize(parent).toString())) {
+                    return;
+                }
+                final BasicFileAttributes parentAttributes;
+                try {
+                    parentAttributes = Files.readAttributes(parent, BasicFileAttributes.class);
+                } catch (NoSuchFileException e) {
+                    return;
+                }
+                if (!this.filter.walkDirectory(parent, parentAttributes)) {
+                    return;
+                }
+            }
+
+            final BasicFileAttributes attributes;
+            try {
+                attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            } catch (NoSuchFileException e) {
+                this.removeSubTree(relativePath);
+                return;
+            }
+
+            if (attributes.isDirectory()) {
+                if (this.entries.containsKey(relativePath)) {
+                    // Known directory, refresh its own entry only. Changes to its content are reported separately.
+                    this.refreshDirectory(path);
+                } else {
+                    // New directory, its content was not seen before
+                    Files.walkFileTree(path, Factory.WALK_OPTIONS, Integer.MAX_VALUE, this);
+                }
+            } else {
+                this.entries.remove(relativePath);
+                this.visitFile(path, attributes);
+            }
+        }
+
+        /**
+         * Refresh the entry of a directory already in the manifest (attributes and list of children).
+         */
+        void refreshDirectory(final Path directory) throws IOException {
+            final String relativePath = this.root.relativize(directory).toString();
+            if (!this.entries.containsKey(relativePath)) {
+                return;
+            }
+            final BasicFileAttributes attributes;
+            try {
+                attributes = Files.readAttributes(directory, BasicFileAttributes.class);
+            } catch (NoSuchFileException e) {
+                this.removeSubTree(relativePath);
+                return;
+            }
+            if (this.filter.includeDirectory(directory, attributes)) {
+                this.entries.put(relativePath, this.buildEntry(directory, attributes, true));
+            } else {
+                this.removeSubTree(relativePath);
+            }
+        }
+
+        private void removeSubTree(final String relativePath) {
+            if (relativePath.isEmpty()) {
+                this.entries.clear();
+                return;
+            }
+            final String prefix = relativePath + this.root.getFileSystem().getSeparator();
+            this.entries.keySet().removeIf(path -> path.equals(relativePath) || path.startsWith(prefix));
+        }
+
         @SuppressFBWarnings(
             value = "RCN_REDUNDANT_NULLCHECK_WOULD_HAVE_BEEN_A_NPE",
             justification = "https://github.com/spotbugs/spotbugs/issues/756"
@@ -418,7 +557,17 @@ public class DirectoryManifest {
 
             String md5 = null;
             String mimeType = null;
-            if (!directory) {
+            final ManifestEntry previousEntry = this.previousEntries.get(path);
+            if (!directory
+                && previousEntry != null
+                && !previousEntry.isDirectory()
+                && previousEntry.getSize() == size
+                && previousEntry.getLastModifiedTime().equals(lastModifiedTime)
+                && (!this.checksumFiles || previousEntry.getMd5().isPresent())) {
+                // File did not change since the previous manifest was created, skip the expensive parts
+                md5 = previousEntry.getMd5().orElse(null);
+                mimeType = previousEntry.getMimeType().orElse(null);
+            } else if (!directory) {
                 if (this.checksumFiles) {
                     try (InputStream data = Files.newInputStream(entry, StandardOpenOption.READ)) {
                         md5 = DigestUtils.md5Hex(data);
@@ -21,15 +21,22 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.netflix.genie.common.internal.dtos.DirectoryManifest;
 import com.netflix.genie.common.internal.exceptions.checked.GenieConversionException;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import com.netflix.genie.proto.AgentManifestMessage;
+import com.netflix.genie.proto.ManifestDeltaMessage;
 import org.springframework.validation.annotation.Validated;
 
 import javax.validation.constraints.NotBlank;
 import java.io.IOException;
+import java.util.Map;
 
 /**
  * Converts {@link DirectoryManifest} from/to {@link AgentManifestMessage} in order to transport manifests
  * over gRPC.
+ * Manifests can be transported in full, or as a delta (added, changed and removed entries) relative to a previous
+ * version of the manifest known to the receiver.
  *
  * @author mprimi
  * @since 4.0.0
@@ -89,4 +96,101 @@ public class JobDirectoryManifestProtoConverter {
             throw new GenieConversionException("Failed to load manifest", e);
         }
     }
+
+    /**
+     * Construct a {@link AgentManifestMessage} that describes the given {@link DirectoryManifest} as a set of changes
+     * relative to a previous manifest.
+     *
+     * @param claimedJobId        the id of the job this file manifest belongs to
+     * @param baseManifest        the previous manifest, already known to the receiver
+     * @param baseManifestVersion the version of the previous manifest
+     * @param manifest            the manifest
+     * @return a {@link AgentManifestMessage} containing a {@link ManifestDeltaMessage}
+     * @throws GenieConversionException if conversion fails
+     */
+    public AgentManifestMessage manifestDeltaToProtoMessage(
+        @NotBlank final String claimedJobId,
+        final DirectoryManifest baseManifest,
+        final long baseManifestVersion,
+        final DirectoryManifest manifest
+    ) throws GenieConversionException {
+        final ManifestDeltaMessage.Builder deltaBuilder = ManifestDeltaMessage.newBuilder()
+            .setBaseManifestVersion(baseManifestVersion);
+
+        try {
+            for (final DirectoryManifest.ManifestEntry entry : allEntries(manifest)) {
+                final DirectoryManifest.ManifestEntry baseEntry = baseManifest.getEntry(entry.getPath()).orElse(null);
+                if (baseEntry == null) {
+                    deltaBuilder.addAddedEntriesJson(objectMapper.writeValueAsString(entry));
+                } else if (!baseEntry.equals(entry)) {
+                    deltaBuilder.addChangedEntriesJson(objectMapper.writeValueAsString(entry));
+                }
+            }
+        } catch (final JsonProcessingException e) {
+            throw new GenieConversionException("Failed to serialize manifest entry as JSON string", e);
+        }
+
+        for (final DirectoryManifest.ManifestEntry baseEntry : allEntries(baseManifest)) {
+            if (!manifest.hasEntry(baseEntry.getPath())) {
+                deltaBuilder.addRemovedEntriesPaths(baseEntry.getPath());
+            }
+        }
+
+        return AgentManifestMessage.newBuilder()
+            .setJobId(claimedJobId)
+            .setLargeFilesSupported(true)
+            .setManifestDelta(deltaBuilder.build())
+            .build();
+    }
+
+    /**
+     * Load a {@link DirectoryManifest} from a {@link AgentManifestMessage} containing a {@link ManifestDeltaMessage},
+     * by applying the changes to the given previous manifest.
+     * The caller is responsible for verifying the previous manifest is the one the delta was computed against.
+     *
+     * @param baseManifest the previous manifest
+     * @param message      the message
+     * @return a {@link DirectoryManifest}
+     * @throws GenieConversionException if loading fails
+     */
+    public DirectoryManifest applyManifestDelta(
+        final DirectoryManifest baseManifest,
+        final AgentManifestMessage message
+    ) throws GenieConversionException {
+        if (!message.hasManifestDelta()) {
+            throw new GenieConversionException("Message does not contain a manifest delta");
+        }
+        final ManifestDeltaMessage delta = message.getManifestDelta();
+
+        final Map<String, DirectoryManifest.ManifestEntry> entries = Maps.newHashMap();
+        for (final DirectoryManifest.ManifestEntry entry : allEntries(baseManifest)) {
+            entries.put(entry.getPath(), entry);
+        }
+
+        try {
+            for (final String removedEntryPath : delta.getRemovedEntriesPathsList()) {
+                entries.remove(removedEntryPath);
+            }
+            for (final String entryJson : delta.getAddedEntriesJsonList()) {
+                final DirectoryManifest.ManifestEntry entry = this.toManifestEntry(entryJson);
+                entries.put(entry.getPath(), entry);
+            }
+            for (final String entryJson : delta.getChangedEntriesJsonList()) {
+                final DirectoryManifest.ManifestEntry entry = this.toManifestEntry(entryJson);
+                entries.put(entry.getPath(), entry);
+            }
+        } catch (final IOException e) {
+            throw new GenieConversionException("Failed to load manifest entry", e);
+        }
+
+        return new DirectoryManifest(Sets.newHashSet(entries.values()));
+    }
+
+    private static Iterable<DirectoryManifest.ManifestEntry> allEntries(final DirectoryManifest manifest) {
+        return Iterables.concat(manifest.getDirectories(), manifest.getFiles());
+    }
+
+    private DirectoryManifest.ManifestEntry toManifestEntry(final String entryJson) throws IOException {
+        return objectMapper.readValue(entryJson, DirectoryManifest.ManifestEntry.class);
+    }
 }
@@ -34,6 +34,12 @@ public final class JobConstants {
      */
     public static final String GENIE_FORWARDED_FROM_HEADER = "Genie-Forwarded-From";
 
+    /**
+     * Value passed to an agent in place of its job id when the agent is started ahead of time, on standby. Once booted
+     * the agent waits for the actual job id to be written as a line to its standard input.
+     */
+    public static final String STANDBY_AGENT_JOB_ID = "-//standby-job-id//-";
+
     /**
      * The launcher script name that genie creates to setup a job for running.
      **/
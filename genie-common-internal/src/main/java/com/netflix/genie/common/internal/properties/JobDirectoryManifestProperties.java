@@ -0,0 +1,48 @@
+/*
+ *
+ *  Copyright 2022 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.common.internal.properties;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import javax.validation.constraints.NotNull;
+import java.time.Duration;
+
+/**
+ * Properties for {@link com.netflix.genie.common.internal.services.impl.JobDirectoryManifestCreatorServiceImpl}.
+ *
+ * @since 4.4.0
+ */
+@ConfigurationProperties(prefix = JobDirectoryManifestProperties.PROPERTY_PREFIX)
+@Getter
+@Setter
+@Validated
+public class JobDirectoryManifestProperties {
+    /**
+     * Properties prefix.
+     */
+    public static final String PROPERTY_PREFIX = "genie.jobs.files.manifest";
+
+    private boolean incrementalUpdatesEnabled;
+    @NotNull
+    private Duration fullRescanInterval = Duration.ofMinutes(5);
+    @NotNull
+    private Duration watchIdleTimeout = Duration.ofMinutes(5);
+}
@@ -21,6 +21,7 @@ import com.netflix.genie.common.internal.exceptions.checked.JobArchiveException;
 
 import java.net.URI;
 import java.nio.file.Path;
+import java.util.Collection;
 
 /**
  * A service which is responsible for taking the files related to running a Genie job and backing them up to a different
@@ -52,4 +53,19 @@ public interface JobArchiveService {
      * @throws JobArchiveException if archival fails
      */
     void archiveDirectory(Path directory, URI targetURI) throws JobArchiveException;
+
+    /**
+     * Backup some of the files within the given directory to the target location ahead of the final
+     * {@link #archiveDirectory(Path, URI)}, for example while the job is still running. Files which were already
+     * archived and haven't changed since are skipped. Files archived this way are also skipped by a later
+     * {@link #archiveDirectory(Path, URI)} of the same directory as long as they are unchanged.
+     *
+     * @param directory {@link Path} to the directory the files belong to
+     * @param files     The {@link Path}s of the files to archive, relative to {@code directory}
+     * @param targetURI target {@link URI} for the root archive location
+     * @return The number of files which were archived
+     * @throws JobArchiveException if archival fails
+     * @since 4.4.0
+     */
+    int archiveFiles(Path directory, Collection<Path> files, URI targetURI) throws JobArchiveException;
 }
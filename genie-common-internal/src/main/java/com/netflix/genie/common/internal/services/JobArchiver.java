@@ -18,12 +18,21 @@
 package com.netflix.genie.common.internal.services;
 
 import com.netflix.genie.common.internal.exceptions.checked.JobArchiveException;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.slf4j.LoggerFactory;
 import org.springframework.core.io.WritableResource;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 /**
  * Implementations of this interface should be able to a write job files to a {@link WritableResource} root location.
@@ -46,4 +55,38 @@ public interface JobArchiver {
      * @throws JobArchiveException If an exception happened during archival
      */
     boolean archiveDirectory(Path directory, List<File> filesList, URI target) throws JobArchiveException;
+
+    /**
+     * Attempt to archive the given files located within {@code directory} to the {@code target} and compute the MD5
+     * checksum of each of them along the way. Implementations should compute the checksums from the same read of the
+     * file contents used to archive them. The default implementation archives the files using
+     * {@link #archiveDirectory(Path, List, URI)} and then reads them again to compute the checksums.
+     *
+     * @param directory The directory to archive
+     * @param filesList The list of files to archive
+     * @param target    The root of a writable location to archive to.
+     * @return {@link Optional#empty()} if this implementation doesn't support archiving to {@code target}. Otherwise
+     * the MD5 checksum (as 32 hex characters) of each file that was archived
+     * @throws JobArchiveException If an exception happened during archival
+     * @since 4.4.0
+     */
+    default Optional<Map<File, String>> archiveFilesWithChecksums(
+        final Path directory,
+        final List<File> filesList,
+        final URI target
+    ) throws JobArchiveException {
+        if (!this.archiveDirectory(directory, filesList, target)) {
+            return Optional.empty();
+        }
+        final Map<File, String> checksums = new HashMap<>();
+        for (final File file : filesList) {
+            try (InputStream data = Files.newInputStream(file.toPath(), StandardOpenOption.READ)) {
+                checksums.put(file, DigestUtils.md5Hex(data));
+            } catch (final IOException ioe) {
+                // Like the manifest, MD5 isn't critical so leave it out for this file
+                LoggerFactory.getLogger(this.getClass()).error("Unable to create MD5 for {} due to error", file, ioe);
+            }
+        }
+        return Optional.of(checksums);
+    }
 }
@@ -18,21 +18,32 @@
 package com.netflix.genie.common.internal.services.impl;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import com.netflix.genie.common.external.util.GenieObjectMapper;
 import com.netflix.genie.common.internal.dtos.DirectoryManifest;
 import com.netflix.genie.common.internal.exceptions.checked.JobArchiveException;
 import com.netflix.genie.common.internal.services.JobArchiveService;
 import com.netflix.genie.common.internal.services.JobArchiver;
+import lombok.Value;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.tuple.Pair;
 
+import javax.annotation.Nullable;
 import java.io.File;
 import java.io.IOException;
 import java.net.URI;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 /**
@@ -46,6 +57,8 @@ public class JobArchiveServiceImpl implements JobArchiveService {
 
     private final ImmutableList<JobArchiver> jobArchivers;
     private final DirectoryManifest.Factory directoryManifestFactory;
+    // Files archived ahead of the final archival, by absolute path, with the version of the file that was uploaded
+    private final Map<Path, ArchivedFile> archivedFiles = Maps.newConcurrentMap();
 
     /**
      * Constructor.
@@ -68,11 +81,13 @@ public class JobArchiveServiceImpl implements JobArchiveService {
     public void archiveDirectory(final Path directory, final URI target) throws JobArchiveException {
         // TODO: This relies highly on convention. Might be nicer to better abstract with database
         //       record that points directly to where the manifest is or other solution?
+        // The manifest is created without checksums. They are computed by the archivers while uploading the files so
+        // each file is only read once, then the complete manifest is written and archived last.
         final DirectoryManifest manifest;
-        final Path manifestPath;
+        final Path manifestDirectoryPath;
         try {
-            manifest = directoryManifestFactory.getDirectoryManifest(directory, true);
-            final Path manifestDirectoryPath = StringUtils.isBlank(JobArchiveService.MANIFEST_DIRECTORY)
+            manifest = directoryManifestFactory.getDirectoryManifest(directory, false);
+            manifestDirectoryPath = StringUtils.isBlank(JobArchiveService.MANIFEST_DIRECTORY)
                 ? directory
                 : directory.resolve(JobArchiveService.MANIFEST_DIRECTORY);
             if (Files.notExists(manifestDirectoryPath)) {
@@ -82,39 +97,57 @@ public class JobArchiveServiceImpl implements JobArchiveService {
                     manifestDirectoryPath + " is not a directory. Unable to create job manifest. Unable to archive"
                 );
             }
-            manifestPath = manifestDirectoryPath.resolve(JobArchiveService.MANIFEST_NAME);
-            Files.write(manifestPath, GenieObjectMapper.getMapper().writeValueAsBytes(manifest));
-            log.debug("Wrote job directory manifest to {}", manifestPath);
         } catch (final IOException ioe) {
             throw new JobArchiveException("Unable to create job directory manifest. Unable to archive", ioe);
         }
 
-        // Attempt to archive the job directory, now including the manifest file, using available implementations
+        // Attempt to archive the job directory, followed by the manifest file, using available implementations
         final String uriString = target.toString();
-        final List<File> filesList = ImmutableList.<File>builder()
-            .add(manifestPath.toFile())
-            .addAll(
-                manifest.getFiles()
-                    .stream()
-                    .map(fileEntry -> Paths.get(fileEntry.getPath()))
-                    .map(directory::resolve)
-                    .map(Path::toAbsolutePath)
-                    .filter(path -> Files.exists(path))
-                    .map(Path::toFile)
-                    .collect(Collectors.toSet())
-
-            )
-            .build();
+        final Path absoluteDirectory = directory.toAbsolutePath();
+        final List<File> filesList = ImmutableList.copyOf(
+            manifest.getFiles()
+                .stream()
+                .filter(fileEntry -> !this.isArchived(absoluteDirectory, fileEntry))
+                .map(fileEntry -> Paths.get(fileEntry.getPath()))
+                .map(directory::resolve)
+                .map(Path::toAbsolutePath)
+                .filter(path -> Files.exists(path))
+                .map(Path::toFile)
+                .collect(Collectors.toSet())
+        );
         for (final JobArchiver archiver : this.jobArchivers) {
             // TODO: Perhaps we should pass the manifest down to the archive implementations if they want to use it?
-            if (archiver.archiveDirectory(directory, filesList, target)) {
+            final Optional<Map<File, String>> checksums = archiver.archiveFilesWithChecksums(
+                directory,
+                filesList,
+                target
+            );
+            if (checksums.isPresent()) {
+                final Path manifestPath = manifestDirectoryPath.resolve(JobArchiveService.MANIFEST_NAME);
+                try {
+                    Files.write(
+                        manifestPath,
+                        GenieObjectMapper.getMapper().writeValueAsBytes(
+                            this.addChecksums(absoluteDirectory, manifest, checksums.get())
+                        )
+                    );
+                    log.debug("Wrote job directory manifest to {}", manifestPath);
+                } catch (final IOException ioe) {
+                    throw new JobArchiveException("Unable to write job directory manifest. Unable to archive", ioe);
+                }
+                if (!archiver.archiveDirectory(directory, ImmutableList.of(manifestPath.toFile()), target)) {
+                    throw new JobArchiveException(
+                        archiver.getClass().getSimpleName() + " did not archive the job directory manifest"
+                    );
+                }
                 log.debug(
                     "Successfully archived job directory {} to {} using {} ({} files)",
                     directory.toString(),
                     uriString,
                     archiver.getClass().getSimpleName(),
-                    filesList.size()
+                    filesList.size() + 1
                 );
+                this.archivedFiles.keySet().removeIf(path -> path.startsWith(absoluteDirectory));
                 return;
             }
         }
@@ -126,4 +159,135 @@ public class JobArchiveServiceImpl implements JobArchiveService {
             uriString
         );
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int archiveFiles(
+        final Path directory,
+        final Collection<Path> files,
+        final URI target
+    ) throws JobArchiveException {
+        final Path absoluteDirectory = directory.toAbsolutePath();
+        final Map<Path, Pair<Long, Instant>> pendingFiles = Maps.newLinkedHashMap();
+        for (final Path file : files) {
+            final Path absoluteFile = absoluteDirectory.resolve(file).toAbsolutePath();
+            final BasicFileAttributes attributes;
+            try {
+                attributes = Files.readAttributes(absoluteFile, BasicFileAttributes.class);
+            } catch (final IOException ioe) {
+                // Gone or unreadable, leave it to the final archival
+                log.debug("Skipping {}: {}", absoluteFile, ioe.getMessage());
+                continue;
+            }
+            if (!attributes.isRegularFile()) {
+                continue;
+            }
+            // Attributes are read before uploading so a file modified during the upload is uploaded again later
+            final long size = attributes.size();
+            final Instant lastModifiedTime = attributes.lastModifiedTime().toInstant();
+            final ArchivedFile archivedFile = this.archivedFiles.get(absoluteFile);
+            if (archivedFile == null || !archivedFile.isVersion(size, lastModifiedTime)) {
+                pendingFiles.put(absoluteFile, Pair.of(size, lastModifiedTime));
+            }
+        }
+
+        if (pendingFiles.isEmpty()) {
+            return 0;
+        }
+
+        final String uriString = target.toString();
+        final List<File> filesList = pendingFiles.keySet()
+            .stream()
+            .map(Path::toFile)
+            .collect(Collectors.toList());
+        for (final JobArchiver archiver : this.jobArchivers) {
+            final Optional<Map<File, String>> checksums = archiver.archiveFilesWithChecksums(
+                directory,
+                filesList,
+                target
+            );
+            if (checksums.isPresent()) {
+                log.debug(
+                    "Successfully archived {} files of job directory {} to {} using {}",
+                    filesList.size(),
+                    directory.toString(),
+                    uriString,
+                    archiver.getClass().getSimpleName()
+                );
+                // Keep the checksums for the manifest written by the final archival
+                pendingFiles.forEach(
+                    (path, version) -> this.archivedFiles.put(
+                        path,
+                        new ArchivedFile(version.getLeft(), version.getRight(), checksums.get().get(path.toFile()))
+                    )
+                );
+                return filesList.size();
+            }
+        }
+
+        log.warn(
+            "Failed to archive {} files of job directory {} to {} using any of the available implementations",
+            filesList.size(),
+            directory.toString(),
+            uriString
+        );
+        return 0;
+    }
+
+    private boolean isArchived(final Path absoluteDirectory, final DirectoryManifest.ManifestEntry fileEntry) {
+        final ArchivedFile archivedFile = this.archivedFiles.get(absoluteDirectory.resolve(fileEntry.getPath()));
+        return archivedFile != null && archivedFile.isVersion(fileEntry.getSize(), fileEntry.getLastModifiedTime());
+    }
+
+    private DirectoryManifest addChecksums(
+        final Path absoluteDirectory,
+        final DirectoryManifest manifest,
+        final Map<File, String> checksums
+    ) {
+        final Set<DirectoryManifest.ManifestEntry> entries = Sets.newHashSet(manifest.getDirectories());
+        for (final DirectoryManifest.ManifestEntry fileEntry : manifest.getFiles()) {
+            final Path path = absoluteDirectory.resolve(fileEntry.getPath());
+            String md5 = checksums.get(path.toFile());
+            if (md5 == null && this.isArchived(absoluteDirectory, fileEntry)) {
+                md5 = this.archivedFiles.get(path).getMd5();
+            }
+            if (md5 == null) {
+                entries.add(fileEntry);
+            } else {
+                entries.add(
+                    new DirectoryManifest.ManifestEntry(
+                        fileEntry.getPath(),
+                        fileEntry.getName(),
+                        fileEntry.getLastModifiedTime(),
+                        fileEntry.getLastAccessTime(),
+                        fileEntry.getCreationTime(),
+                        fileEntry.isDirectory(),
+                        fileEntry.getSize(),
+                        md5,
+                        fileEntry.getMimeType().orElse(null),
+                        fileEntry.getParent().orElse(null),
+                        fileEntry.getChildren()
+                    )
+                );
+            }
+        }
+        return new DirectoryManifest(entries);
+    }
+
+    /**
+     * The version of a file which was archived and its checksum.
+     */
+    @Value
+    private static class ArchivedFile {
+        long size;
+        Instant lastModifiedTime;
+        @Nullable
+        String md5;
+
+        boolean isVersion(final long otherSize, final Instant otherLastModifiedTime) {
+            return this.size == otherSize && this.lastModifiedTime.equals(otherLastModifiedTime);
+        }
+    }
 }
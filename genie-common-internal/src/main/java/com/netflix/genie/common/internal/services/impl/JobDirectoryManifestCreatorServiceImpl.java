@@ -18,26 +18,55 @@
 package com.netflix.genie.common.internal.services.impl;
 
 import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import com.netflix.genie.common.internal.dtos.DirectoryManifest;
+import com.netflix.genie.common.internal.properties.JobDirectoryManifestProperties;
 import com.netflix.genie.common.internal.services.JobDirectoryManifestCreatorService;
 import lombok.extern.slf4j.Slf4j;
 
+import javax.annotation.Nullable;
+import java.io.Closeable;
 import java.io.IOException;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Instant;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Implementation of {@link JobDirectoryManifestCreatorService} that caches manifests produced by the factory for a few
  * seconds, thus avoiding re-calculating the same for subsequent requests (e.g. a user navigating a tree true the UI).
+ * <p>
+ * If incremental updates are enabled, the directory is also watched for changes (via {@link WatchService}) and new
+ * manifests are produced by updating the previous one with just the entries that changed.
+ * A full rescan is still performed periodically (and whenever change events may have been lost) as a safety net.
+ * Directories which are not read for a while, or whose manifest is invalidated, are no longer watched.
  *
  * @author mprimi
  * @since 4.0.0
  */
 @Slf4j
-public class JobDirectoryManifestCreatorServiceImpl implements JobDirectoryManifestCreatorService {
+public class JobDirectoryManifestCreatorServiceImpl implements JobDirectoryManifestCreatorService, Closeable {
 
     private final Cache<Path, DirectoryManifest> cache;
     private final DirectoryManifest.Factory factory;
     private final boolean includeChecksum;
+    private final JobDirectoryManifestProperties properties;
+    private final Cache<Path, WatchedDirectory> watchedDirectories;
 
     /**
      * Constructor.
@@ -50,10 +79,53 @@ public class JobDirectoryManifestCreatorServiceImpl implements JobDirectoryManif
         final DirectoryManifest.Factory factory,
         final Cache<Path, DirectoryManifest> cache,
         final boolean includeChecksum
+    ) {
+        this(factory, cache, includeChecksum, new JobDirectoryManifestProperties());
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param factory         the directory manifest factory
+     * @param cache           the loading cache to use
+     * @param includeChecksum whether to produce manifests that include checksums
+     * @param properties      the manifest properties
+     */
+    public JobDirectoryManifestCreatorServiceImpl(
+        final DirectoryManifest.Factory factory,
+        final Cache<Path, DirectoryManifest> cache,
+        final boolean includeChecksum,
+        final JobDirectoryManifestProperties properties
+    ) {
+        this(factory, cache, includeChecksum, properties, Ticker.systemTicker());
+    }
+
+    @VisibleForTesting
+    JobDirectoryManifestCreatorServiceImpl(
+        final DirectoryManifest.Factory factory,
+        final Cache<Path, DirectoryManifest> cache,
+        final boolean includeChecksum,
+        final JobDirectoryManifestProperties properties,
+        final Ticker ticker
     ) {
         this.factory = factory;
         this.cache = cache;
         this.includeChecksum = includeChecksum;
+        this.properties = properties;
+        // Each watched directory holds a watch service, release it as soon as the directory is dropped
+        this.watchedDirectories = Caffeine.newBuilder()
+            .expireAfterAccess(properties.getWatchIdleTimeout().toNanos(), TimeUnit.NANOSECONDS)
+            .ticker(ticker)
+            .executor(Runnable::run)
+            .<Path, WatchedDirectory>removalListener(
+                (path, watchedDirectory, cause) -> {
+                    if (watchedDirectory != null) {
+                        log.debug("Stopped watching directory {} ({})", path, cause);
+                        watchedDirectory.stopWatching();
+                    }
+                }
+            )
+            .build();
     }
 
     /**
@@ -66,6 +138,11 @@ public class JobDirectoryManifestCreatorServiceImpl implements JobDirectoryManif
                 jobDirectoryPath.normalize().toAbsolutePath(),
                 path -> {
                     try {
+                        if (this.properties.isIncrementalUpdatesEnabled()) {
+                            return this.watchedDirectories
+                                .get(path, WatchedDirectory::new)
+                                .getDirectoryManifest();
+                        }
                         return this.factory.getDirectoryManifest(path, this.includeChecksum);
                     } catch (IOException e) {
                         throw new RuntimeException("Failed to create manifest", e);
@@ -87,5 +164,165 @@ public class JobDirectoryManifestCreatorServiceImpl implements JobDirectoryManif
     @Override
     public void invalidateCachedDirectoryManifest(final Path jobDirectoryPath) {
         this.cache.invalidate(jobDirectoryPath);
+        // Start over with a full scan and a new watch service the next time the manifest is requested
+        this.watchedDirectories.invalidate(jobDirectoryPath.normalize().toAbsolutePath());
+    }
+
+    /**
+     * Stop watching directories for changes.
+     */
+    @Override
+    public void close() {
+        this.watchedDirectories.invalidateAll();
+        this.watchedDirectories.cleanUp();
+    }
+
+    /**
+     * Keeps track of the latest manifest of a directory and of the changes to the directory since it was created.
+     */
+    private final class WatchedDirectory {
+        private final Path root;
+        private final Map<WatchKey, Path> watchKeys = Maps.newHashMap();
+        private WatchService watchService;
+        private boolean watching;
+        private boolean stopped;
+        private DirectoryManifest manifest;
+        private Instant lastFullScan = Instant.EPOCH;
+        private boolean fullRescanRequested;
+
+        private WatchedDirectory(final Path root) {
+            this.root = root;
+        }
+
+        synchronized DirectoryManifest getDirectoryManifest() throws IOException {
+            if (this.manifest == null) {
+                // Watch before scanning, so no change is lost in between
+                this.startWatching();
+            }
+
+            final Set<Path> changedPaths = this.pollChangedPaths();
+            final Instant now = Instant.now();
+
+            if (this.manifest == null
+                || !this.watching
+                || this.fullRescanRequested
+                || now.isAfter(this.lastFullScan.plus(properties.getFullRescanInterval()))) {
+                log.debug("Performing full scan of directory {}", this.root);
+                this.fullRescanRequested = false;
+                this.lastFullScan = now;
+                this.manifest = factory.getDirectoryManifest(this.root, includeChecksum, this.manifest);
+            } else if (!changedPaths.isEmpty()) {
+                log.debug("Updating manifest of directory {} with {} changed paths", this.root, changedPaths.size());
+                this.manifest = factory.updateDirectoryManifest(
+                    this.root,
+                    includeChecksum,
+                    this.manifest,
+                    changedPaths
+                );
+            }
+            return this.manifest;
+        }
+
+        synchronized void stopWatching() {
+            // May be stopped by eviction while a request still holds on to it, don't start watching again afterwards
+            this.stopped = true;
+            this.watching = false;
+            this.watchKeys.clear();
+            if (this.watchService != null) {
+                try {
+                    this.watchService.close();
+                } catch (IOException e) {
+                    log.warn("Failed to close watch service for directory {}", this.root, e);
+                }
+                this.watchService = null;
+            }
+        }
+
+        private void startWatching() {
+            if (this.stopped) {
+                return;
+            }
+            try {
+                this.watchService = this.root.getFileSystem().newWatchService();
+                this.watching = true;
+                this.register(this.root);
+            } catch (IOException | UnsupportedOperationException e) {
+                log.warn("Cannot watch directory {} for changes, falling back to full scans", this.root, e);
+                this.stopWatching();
+            }
+        }
+
+        private void register(final Path directory) throws IOException {
+            Files.walkFileTree(
+                directory,
+                EnumSet.of(FileVisitOption.FOLLOW_LINKS),
+                Integer.MAX_VALUE,
+                new SimpleFileVisitor<Path>() {
+                    @Override
+                    public FileVisitResult preVisitDirectory(
+                        final Path dir,
+                        final BasicFileAttributes attrs
+                    ) throws IOException {
+                        final WatchKey watchKey = dir.register(
+                            watchService,
+                            StandardWatchEventKinds.ENTRY_CREATE,
+                            StandardWatchEventKinds.ENTRY_DELETE,
+                            StandardWatchEventKinds.ENTRY_MODIFY
+                        );
+                        watchKeys.put(watchKey, dir);
+                        return FileVisitResult.CONTINUE;
+                    }
+
+                    @Override
+                    public FileVisitResult visitFileFailed(final Path file, final IOException exc) {
+                        // Deleted, looping or inaccessible paths are dealt with by the manifest factory
+                        return FileVisitResult.CONTINUE;
+                    }
+                }
+            );
+        }
+
+        private Set<Path> pollChangedPaths() {
+            final Set<Path> changedPaths = Sets.newHashSet();
+            if (!this.watching) {
+                return changedPaths;
+            }
+
+            WatchKey watchKey;
+            while ((watchKey = this.watchService.poll()) != null) {
+                final Path directory = this.watchKeys.get(watchKey);
+                for (final WatchEvent<?> event : watchKey.pollEvents()) {
+                    final Path changedPath = directory == null ? null : this.resolve(directory, event);
+                    if (changedPath == null) {
+                        // Events were lost or cannot be attributed to a path
+                        this.fullRescanRequested = true;
+                        continue;
+                    }
+                    changedPaths.add(changedPath);
+                    if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(changedPath)) {
+                        try {
+                            this.register(changedPath);
+                        } catch (IOException e) {
+                            log.warn("Cannot watch directory {} for changes, falling back to full scans", this.root, e);
+                            this.stopWatching();
+                            return changedPaths;
+                        }
+                    }
+                }
+                if (!watchKey.reset()) {
+                    // Directory is no longer accessible
+                    this.watchKeys.remove(watchKey);
+                }
+            }
+            return changedPaths;
+        }
+
+        @Nullable
+        private Path resolve(final Path directory, final WatchEvent<?> event) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW || !(event.context() instanceof Path)) {
+                return null;
+            }
+            return directory.resolve((Path) event.context());
+        }
     }
 }
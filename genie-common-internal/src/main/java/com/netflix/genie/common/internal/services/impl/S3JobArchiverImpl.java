@@ -17,20 +17,52 @@
  */
 package com.netflix.genie.common.internal.services.impl;
 
+import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.AmazonS3URI;
+import com.amazonaws.services.s3.internal.Mimetypes;
+import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PartETag;
+import com.amazonaws.services.s3.model.UploadPartRequest;
 import com.amazonaws.services.s3.transfer.MultipleFileUpload;
 import com.amazonaws.services.s3.transfer.TransferManager;
+import com.amazonaws.services.s3.transfer.Upload;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.netflix.genie.common.internal.aws.s3.S3ClientFactory;
 import com.netflix.genie.common.internal.exceptions.checked.JobArchiveException;
 import com.netflix.genie.common.internal.services.JobArchiveService;
 import com.netflix.genie.common.internal.services.JobArchiver;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.lang3.StringUtils;
 
 import javax.validation.constraints.NotNull;
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * Implementation of {@link JobArchiveService} for S3 destinations.
@@ -42,6 +74,13 @@ import java.util.List;
 @Slf4j
 public class S3JobArchiverImpl implements JobArchiver {
 
+    private static final String KEY_SEPARATOR = "/";
+    // Matches the default size of the transfer manager thread pool
+    private static final int MAX_IN_FLIGHT_UPLOADS = 10;
+    // Bounds the memory held by the parts of a large file read ahead of their upload
+    private static final int MAX_IN_FLIGHT_PARTS = 10;
+    private static final int MAX_PARTS = 10_000;
+
     private final S3ClientFactory s3ClientFactory;
 
     /**
@@ -95,4 +134,360 @@ public class S3JobArchiverImpl implements JobArchiver {
             throw new JobArchiveException("Error archiving " + directoryString, e);
         }
     }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Every file is read from disk once, computing its checksum from the same bytes that are uploaded. Files up to the
+     * multipart upload threshold are uploaded by the transfer manager from a checksumming stream. Larger files are read
+     * sequentially into parts which are checksummed as they are read and uploaded in parallel as a multipart upload.
+     * Files which are still being written to are archived with the length they had when their upload started.
+     */
+    @Override
+    public Optional<Map<File, String>> archiveFilesWithChecksums(
+        @NotNull final Path directory,
+        final List<File> filesList,
+        @NotNull final URI target
+    ) throws JobArchiveException {
+        final String uriString = target.toString();
+        final AmazonS3URI s3URI;
+        try {
+            s3URI = new AmazonS3URI(target);
+        } catch (final IllegalArgumentException iae) {
+            log.debug("{} is not a valid S3 URI", uriString);
+            return Optional.empty();
+        }
+        final String directoryString = directory.toString();
+        log.debug(
+            "{} is a valid S3 location. Proceeding to archive {} files of {} to location: {}",
+            uriString,
+            filesList.size(),
+            directoryString,
+            uriString
+        );
+
+        final Map<File, String> checksums = Maps.newHashMapWithExpectedSize(filesList.size());
+        final Deque<ChecksumUpload> inFlightUploads = new ArrayDeque<>();
+        try {
+            final TransferManager transferManager = this.s3ClientFactory.getTransferManager(s3URI);
+            // Same key layout as TransferManager.uploadFileList
+            final String keyPrefix = StringUtils.isEmpty(s3URI.getKey())
+                ? StringUtils.EMPTY
+                : StringUtils.appendIfMissing(s3URI.getKey(), KEY_SEPARATOR);
+            final Path absoluteDirectory = directory.toAbsolutePath();
+            final long multipartUploadThreshold = transferManager.getConfiguration().getMultipartUploadThreshold();
+            final long minimumUploadPartSize = transferManager.getConfiguration().getMinimumUploadPartSize();
+
+            for (final File file : filesList) {
+                // Bound the number of open files, completing uploads in the order they were started
+                if (inFlightUploads.size() >= MAX_IN_FLIGHT_UPLOADS) {
+                    inFlightUploads.removeFirst().complete(checksums);
+                }
+                final String key = keyPrefix + absoluteDirectory
+                    .relativize(file.toPath().toAbsolutePath())
+                    .toString()
+                    .replace(File.separatorChar, '/');
+                inFlightUploads.addLast(
+                    file.length() > multipartUploadThreshold
+                        ? new MultipartChecksumUpload(
+                            transferManager.getAmazonS3Client(),
+                            s3URI.getBucket(),
+                            key,
+                            file,
+                            minimumUploadPartSize
+                        )
+                        : new StreamChecksumUpload(transferManager, s3URI.getBucket(), key, file)
+                );
+            }
+            while (!inFlightUploads.isEmpty()) {
+                inFlightUploads.removeFirst().complete(checksums);
+            }
+            return Optional.of(checksums);
+        } catch (final Exception e) {
+            log.error("Error archiving to S3 location: {} ", uriString, e);
+            throw new JobArchiveException("Error archiving " + directoryString, e);
+        } finally {
+            // Only left over if something failed
+            inFlightUploads.forEach(ChecksumUpload::abort);
+        }
+    }
+
+    /**
+     * An upload of a single file along with the MD5 of the uploaded content.
+     */
+    private interface ChecksumUpload {
+
+        /**
+         * Wait for the upload to complete and record the checksum of the file.
+         *
+         * @param checksums The checksums of the files archived so far
+         * @throws InterruptedException If interrupted while waiting for the upload
+         * @throws IOException          If the file can't be read
+         */
+        void complete(Map<File, String> checksums) throws InterruptedException, IOException;
+
+        /**
+         * Abort the upload and release its resources.
+         */
+        void abort();
+    }
+
+    /**
+     * An upload of a single file whose MD5 is computed from the bytes read for the upload.
+     */
+    private static final class StreamChecksumUpload implements ChecksumUpload {
+        private final File file;
+        private final ChecksumInputStream inputStream;
+        private final Upload upload;
+
+        StreamChecksumUpload(
+            final TransferManager transferManager,
+            final String bucket,
+            final String key,
+            final File file
+        ) throws IOException {
+            this.file = file;
+            this.inputStream = new ChecksumInputStream(file.toPath());
+            final ObjectMetadata metadata = new ObjectMetadata();
+            // Without a length the whole stream would be buffered in memory
+            metadata.setContentLength(this.inputStream.getLength());
+            // The transfer manager only guesses the content type for uploads from a file
+            metadata.setContentType(Mimetypes.getInstance().getMimetype(file));
+            try {
+                this.upload = transferManager.upload(bucket, key, this.inputStream, metadata);
+            } catch (final RuntimeException e) {
+                this.inputStream.close();
+                throw e;
+            }
+        }
+
+        @Override
+        public void complete(final Map<File, String> checksums) throws InterruptedException, IOException {
+            try {
+                this.upload.waitForCompletion();
+            } finally {
+                this.inputStream.close();
+            }
+            checksums.put(this.file, this.inputStream.getMd5Hex());
+        }
+
+        @Override
+        public void abort() {
+            this.upload.abort();
+            try {
+                this.inputStream.close();
+            } catch (final IOException ioe) {
+                log.debug("Failed to close {}: {}", this.file, ioe.getMessage());
+            }
+        }
+    }
+
+    /**
+     * A multipart upload of a single large file. The file is read once, sequentially, and each part is added to the MD5
+     * as it is read before being uploaded alongside the other parts in flight.
+     * The upload starts when it is completed so only one large file holds part buffers at a time.
+     */
+    private static final class MultipartChecksumUpload implements ChecksumUpload {
+        private final AmazonS3 s3Client;
+        private final String bucket;
+        private final String key;
+        private final File file;
+        private final long minimumPartSize;
+
+        MultipartChecksumUpload(
+            final AmazonS3 s3Client,
+            final String bucket,
+            final String key,
+            final File file,
+            final long minimumPartSize
+        ) {
+            this.s3Client = s3Client;
+            this.bucket = bucket;
+            this.key = key;
+            this.file = file;
+            this.minimumPartSize = minimumPartSize;
+        }
+
+        @Override
+        public void complete(final Map<File, String> checksums) throws InterruptedException, IOException {
+            final MessageDigest digest = DigestUtils.getMd5Digest();
+            try (FileChannel channel = FileChannel.open(this.file.toPath(), StandardOpenOption.READ)) {
+                // Only the bytes the file has now are uploaded, so a file still being written to is archived whole
+                final long length = channel.size();
+                final long partSize = Math.max(this.minimumPartSize, (length + MAX_PARTS - 1) / MAX_PARTS);
+                final ObjectMetadata metadata = new ObjectMetadata();
+                metadata.setContentType(Mimetypes.getInstance().getMimetype(this.file));
+                final String uploadId = this.s3Client
+                    .initiateMultipartUpload(new InitiateMultipartUploadRequest(this.bucket, this.key, metadata))
+                    .getUploadId();
+                final ExecutorService executorService = Executors.newFixedThreadPool(
+                    MAX_IN_FLIGHT_PARTS,
+                    new ThreadFactoryBuilder().setNameFormat("genie-s3-part-upload-%d").setDaemon(true).build()
+                );
+                boolean completed = false;
+                try {
+                    final List<PartETag> partETags = Lists.newArrayList();
+                    final Deque<Future<PartETag>> inFlightParts = new ArrayDeque<>();
+                    long position = 0L;
+                    int partNumber = 1;
+                    while (position < length) {
+                        if (inFlightParts.size() >= MAX_IN_FLIGHT_PARTS) {
+                            partETags.add(getPartETag(inFlightParts.removeFirst()));
+                        }
+                        final int size = (int) Math.min(partSize, length - position);
+                        final byte[] part = readPart(channel, position, size);
+                        digest.update(part);
+                        position += size;
+                        final UploadPartRequest request = new UploadPartRequest()
+                            .withBucketName(this.bucket)
+                            .withKey(this.key)
+                            .withUploadId(uploadId)
+                            .withPartNumber(partNumber++)
+                            .withPartSize(size)
+                            .withInputStream(new ByteArrayInputStream(part))
+                            .withLastPart(position >= length);
+                        inFlightParts.addLast(
+                            executorService.submit(() -> this.s3Client.uploadPart(request).getPartETag())
+                        );
+                    }
+                    while (!inFlightParts.isEmpty()) {
+                        partETags.add(getPartETag(inFlightParts.removeFirst()));
+                    }
+                    this.s3Client.completeMultipartUpload(
+                        new CompleteMultipartUploadRequest(this.bucket, this.key, uploadId, partETags)
+                    );
+                    completed = true;
+                } finally {
+                    executorService.shutdownNow();
+                    if (!completed) {
+                        this.s3Client.abortMultipartUpload(
+                            new AbortMultipartUploadRequest(this.bucket, this.key, uploadId)
+                        );
+                    }
+                }
+            }
+            checksums.put(this.file, Hex.encodeHexString(digest.digest()));
+        }
+
+        @Override
+        public void abort() {
+            // Nothing is uploaded until the upload is completed, which aborts it itself on failure
+        }
+
+        private static byte[] readPart(
+            final FileChannel channel,
+            final long position,
+            final int size
+        ) throws IOException {
+            final ByteBuffer buffer = ByteBuffer.allocate(size);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, position + buffer.position()) < 0) {
+                    throw new EOFException("File was truncated while it was archived");
+                }
+            }
+            return buffer.array();
+        }
+
+        private static PartETag getPartETag(final Future<PartETag> part) throws InterruptedException, IOException {
+            try {
+                return part.get();
+            } catch (final ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw new IOException("Failed to upload part", e.getCause());
+            }
+        }
+    }
+
+    /**
+     * Reads a file while computing its MD5.
+     * Only the bytes the file had when the stream was opened are read, so the content matches the length given to
+     * the client even if the file is still being written to.
+     * Mark and reset are supported by seeking within the file, so the client can retry a request without buffering
+     * the content in memory. Bytes read again after a reset are not digested twice.
+     */
+    private static final class ChecksumInputStream extends InputStream {
+        private final FileChannel channel;
+        private final InputStream delegate;
+        private final long length;
+        private final MessageDigest digest = DigestUtils.getMd5Digest();
+        private long position;
+        private long digestedPosition;
+        private long markedPosition;
+
+        ChecksumInputStream(final Path path) throws IOException {
+            this.channel = FileChannel.open(path, StandardOpenOption.READ);
+            this.delegate = Channels.newInputStream(this.channel);
+            this.length = this.channel.size();
+        }
+
+        long getLength() {
+            return this.length;
+        }
+
+        String getMd5Hex() {
+            return Hex.encodeHexString(this.digest.digest());
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (this.position >= this.length) {
+                return -1;
+            }
+            final int value = this.delegate.read();
+            if (value != -1) {
+                if (this.position == this.digestedPosition) {
+                    this.digest.update((byte) value);
+                    this.digestedPosition++;
+                }
+                this.position++;
+            }
+            return value;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            if (len > 0 && this.position >= this.length) {
+                return -1;
+            }
+            final int count = this.delegate.read(b, off, (int) Math.min(len, this.length - this.position));
+            if (count > 0) {
+                final long end = this.position + count;
+                if (end > this.digestedPosition) {
+                    final int alreadyDigested = (int) (this.digestedPosition - this.position);
+                    this.digest.update(b, off + alreadyDigested, count - alreadyDigested);
+                    this.digestedPosition = end;
+                }
+                this.position = end;
+            }
+            return count;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return (int) Math.min(Integer.MAX_VALUE, Math.max(0L, this.length - this.position));
+        }
+
+        @Override
+        public boolean markSupported() {
+            return true;
+        }
+
+        @Override
+        public void mark(final int readLimit) {
+            this.markedPosition = this.position;
+        }
+
+        @Override
+        public void reset() throws IOException {
+            this.channel.position(this.markedPosition);
+            this.position = this.markedPosition;
+        }
+
+        @Override
+        public void close() throws IOException {
+            this.delegate.close();
+        }
+    }
 }
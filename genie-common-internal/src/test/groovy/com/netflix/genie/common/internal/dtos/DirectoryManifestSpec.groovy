@@ -17,6 +17,7 @@
  */
 package com.netflix.genie.common.internal.dtos
 
+import com.google.common.collect.Sets
 import com.netflix.genie.common.external.util.GenieObjectMapper
 import org.apache.commons.codec.digest.DigestUtils
 import spock.lang.Specification
@@ -27,6 +28,7 @@ import javax.annotation.Nullable
 import java.nio.charset.StandardCharsets
 import java.nio.file.Files
 import java.nio.file.Path
+import java.nio.file.StandardOpenOption
 import java.nio.file.attribute.BasicFileAttributes
 
 /**
@@ -213,6 +215,145 @@ class DirectoryManifestSpec extends Specification {
         manifest.hasEntry(this.stdOutSymLink)
     }
 
+    @Unroll
+    def "can update a manifest incrementally (md5: #includeMd5)"() {
+        setup:
+        def factory = new DirectoryManifest.Factory()
+        def manifest = factory.getDirectoryManifest(this.rootPath, includeMd5)
+
+        when:
+        Files.write(this.stdoutPath, "More output".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND)
+        def newFilePath = Files.write(
+            this.genieDirPath.resolve("newFile"),
+            UUID.randomUUID().toString().getBytes(StandardCharsets.UTF_8)
+        )
+        def newDirPath = Files.createDirectory(this.rootPath.resolve("newDir"))
+        def newDirFilePath = Files.write(
+            newDirPath.resolve("file.txt"),
+            UUID.randomUUID().toString().getBytes(StandardCharsets.UTF_8)
+        )
+        Files.delete(this.clusterSetupScriptPath)
+        Files.delete(this.clusterDirPath)
+        def updatedManifest = factory.updateDirectoryManifest(
+            this.rootPath,
+            includeMd5,
+            manifest,
+            [
+                this.stdoutPath,
+                newFilePath,
+                newDirPath,
+                newDirFilePath,
+                this.clusterSetupScriptPath,
+                this.clusterDirPath
+            ] as Set<Path>
+        )
+        def expectedManifest = factory.getDirectoryManifest(this.rootPath, includeMd5)
+
+        then:
+        updatedManifest.getEntries().collect { it.getPath() } as Set == expectedManifest.getEntries().collect {
+            it.getPath()
+        } as Set
+        updatedManifest.getEntries().each { entry ->
+            def expectedEntry = expectedManifest.getEntry(entry.getPath()).get()
+            assert entry.getSize() == expectedEntry.getSize()
+            assert entry.getMd5() == expectedEntry.getMd5()
+            assert entry.getMimeType() == expectedEntry.getMimeType()
+            assert entry.getParent() == expectedEntry.getParent()
+            assert entry.getChildren() == expectedEntry.getChildren()
+        }
+        updatedManifest.getTotalSizeOfFiles() == expectedManifest.getTotalSizeOfFiles()
+        updatedManifest.hasEntry("newDir/file.txt")
+        !updatedManifest.hasEntry(this.clusterDir)
+        !updatedManifest.hasEntry(this.clusterSetupScript)
+
+        where:
+        includeMd5 | _
+        true       | _
+        false      | _
+    }
+
+    def "can update a manifest incrementally with filter"() {
+        setup:
+        def factory = new DirectoryManifest.Factory(new DirectoryManifest.Filter() {
+            @Override
+            boolean includeFile(final Path filePath, final BasicFileAttributes attrs) {
+                return filePath.getFileName().toString() != "excluded.txt"
+            }
+
+            @Override
+            boolean walkDirectory(final Path dirPath, final BasicFileAttributes attrs) {
+                return dirPath.getFileName().toString() != "application"
+            }
+        })
+        def manifest = factory.getDirectoryManifest(this.rootPath, false)
+
+        when:
+        def excludedFilePath = Files.write(
+            this.genieDirPath.resolve("excluded.txt"),
+            UUID.randomUUID().toString().getBytes(StandardCharsets.UTF_8)
+        )
+        def notWalkedFilePath = Files.write(
+            this.applicationDirPath.resolve("other.sh"),
+            UUID.randomUUID().toString().getBytes(StandardCharsets.UTF_8)
+        )
+        def updatedManifest = factory.updateDirectoryManifest(
+            this.rootPath,
+            false,
+            manifest,
+            [excludedFilePath, notWalkedFilePath] as Set<Path>
+        )
+
+        then:
+        !updatedManifest.hasEntry("genie/excluded.txt")
+        !updatedManifest.hasEntry("application/other.sh")
+        updatedManifest.getEntries().size() == manifest.getEntries().size()
+    }
+
+    def "can reuse checksum and mime type of unchanged files when rescanning"() {
+        setup:
+        def factory = new DirectoryManifest.Factory()
+        def manifest = factory.getDirectoryManifest(this.rootPath, true)
+        def stdoutEntry = manifest.getEntry(this.stdout).get()
+        def entries = Sets.newHashSet(manifest.getEntries())
+        entries.remove(stdoutEntry)
+        entries.add(
+            new DirectoryManifest.ManifestEntry(
+                stdoutEntry.getPath(),
+                stdoutEntry.getName(),
+                stdoutEntry.getLastModifiedTime(),
+                stdoutEntry.getLastAccessTime(),
+                stdoutEntry.getCreationTime(),
+                false,
+                stdoutEntry.getSize(),
+                "previous-md5",
+                "previous/mime-type",
+                stdoutEntry.getParent().orElse(null),
+                stdoutEntry.getChildren()
+            )
+        )
+        def previousManifest = new DirectoryManifest(entries)
+
+        when:
+        def rescannedManifest = factory.getDirectoryManifest(this.rootPath, true, previousManifest)
+
+        then:
+        rescannedManifest.getEntry(this.stdout).get().getMd5() == Optional.of("previous-md5")
+        rescannedManifest.getEntry(this.stdout).get().getMimeType() == Optional.of("previous/mime-type")
+        rescannedManifest.getEntry(this.stderr).get().getMd5() == manifest.getEntry(this.stderr)
+            .get()
+            .getMd5()
+
+        when:
+        Files.write(this.stdoutPath, "More output".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND)
+        rescannedManifest = factory.getDirectoryManifest(this.rootPath, true, previousManifest)
+
+        then:
+        rescannedManifest.getEntry(this.stdout).get().getMd5() == Optional.of(
+            DigestUtils.md5Hex(Files.readAllBytes(this.stdoutPath))
+        )
+        rescannedManifest.getEntry(this.stdout).get().getMimeType() == Optional.of("text/plain")
+    }
+
     void verifyManifest(DirectoryManifest manifest, boolean expectMd5Present) {
         assert manifest.getEntries().size() == 13
         assert manifest.getFiles().size() == 8
@@ -19,11 +19,15 @@ package com.netflix.genie.common.internal.dtos.converters
 
 import com.fasterxml.jackson.core.JsonProcessingException
 import com.fasterxml.jackson.databind.ObjectMapper
+import com.netflix.genie.common.external.util.GenieObjectMapper
 import com.netflix.genie.common.internal.dtos.DirectoryManifest
 import com.netflix.genie.common.internal.exceptions.checked.GenieConversionException
 import com.netflix.genie.proto.AgentManifestMessage
+import com.netflix.genie.proto.ManifestDeltaMessage
 import spock.lang.Specification
 
+import java.time.Instant
+
 class DirectoryManifestProtoConverterSpec extends Specification {
     ObjectMapper objectMapper
     JobDirectoryManifestProtoConverter converter
@@ -82,4 +86,87 @@ class DirectoryManifestProtoConverterSpec extends Specification {
         Exception e = thrown(GenieConversionException)
         e.getCause() == exception
     }
+
+    def "Manifest delta to message to manifest"() {
+        setup:
+        JobDirectoryManifestProtoConverter converter = new JobDirectoryManifestProtoConverter(
+            GenieObjectMapper.getMapper()
+        )
+        Instant now = Instant.now()
+        DirectoryManifest.ManifestEntry root = entry("", null, true, 0, now, ["stdout", "stderr", "old.txt"])
+        DirectoryManifest.ManifestEntry stdout = entry("stdout", "", false, 10, now, [])
+        DirectoryManifest.ManifestEntry stderr = entry("stderr", "", false, 10, now, [])
+        DirectoryManifest.ManifestEntry oldFile = entry("old.txt", "", false, 10, now, [])
+        DirectoryManifest.ManifestEntry newRoot = entry("", null, true, 0, now, ["stdout", "stderr", "new.txt"])
+        DirectoryManifest.ManifestEntry newStdout = entry("stdout", "", false, 20, now.plusSeconds(1), [])
+        DirectoryManifest.ManifestEntry newFile = entry("new.txt", "", false, 10, now, [])
+        DirectoryManifest baseManifest = new DirectoryManifest([root, stdout, stderr, oldFile] as Set)
+        DirectoryManifest manifest = new DirectoryManifest([newRoot, newStdout, stderr, newFile] as Set)
+
+        when:
+        AgentManifestMessage message = converter.manifestDeltaToProtoMessage("123456", baseManifest, 3, manifest)
+
+        then:
+        message.getJobId() == "123456"
+        message.getManifestJson().isEmpty()
+        message.getLargeFilesSupported()
+        message.hasManifestDelta()
+        message.getManifestDelta().getBaseManifestVersion() == 3
+        message.getManifestDelta().getAddedEntriesJsonCount() == 1
+        message.getManifestDelta().getChangedEntriesJsonCount() == 2
+        message.getManifestDelta().getRemovedEntriesPathsList() == ["old.txt"]
+
+        when:
+        DirectoryManifest loadedManifest = converter.applyManifestDelta(baseManifest, message)
+
+        then:
+        loadedManifest == manifest
+        loadedManifest.getTotalSizeOfFiles() == 40
+    }
+
+    def "Manifest delta errors"() {
+        setup:
+        DirectoryManifest manifest = new DirectoryManifest([] as Set)
+        AgentManifestMessage message = AgentManifestMessage.newBuilder()
+            .setManifestDelta(ManifestDeltaMessage.newBuilder().addAddedEntriesJson(JSON_MANIFEST).build())
+            .build()
+        Exception exception = new IOException("...")
+
+        when:
+        this.converter.applyManifestDelta(manifest, AgentManifestMessage.getDefaultInstance())
+
+        then:
+        thrown(GenieConversionException)
+
+        when:
+        this.converter.applyManifestDelta(manifest, message)
+
+        then:
+        1 * objectMapper.readValue(JSON_MANIFEST, DirectoryManifest.ManifestEntry.class) >> { throw exception }
+        Exception e = thrown(GenieConversionException)
+        e.getCause() == exception
+    }
+
+    static DirectoryManifest.ManifestEntry entry(
+        String path,
+        String parent,
+        boolean directory,
+        long size,
+        Instant modified,
+        List<String> children
+    ) {
+        return new DirectoryManifest.ManifestEntry(
+            path,
+            path,
+            modified,
+            modified,
+            modified,
+            directory,
+            size,
+            null,
+            directory ? null : "text/plain",
+            parent,
+            children as Set
+        )
+    }
 }
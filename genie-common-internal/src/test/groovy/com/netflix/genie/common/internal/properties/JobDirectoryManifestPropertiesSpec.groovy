@@ -0,0 +1,45 @@
+/*
+ *
+ *  Copyright 2022 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.common.internal.properties
+
+import spock.lang.Specification
+
+import java.time.Duration
+
+class JobDirectoryManifestPropertiesSpec extends Specification {
+
+    JobDirectoryManifestProperties properties
+
+    def setup() {
+        this.properties = new JobDirectoryManifestProperties()
+    }
+
+    def "Defaults, setters, getters"() {
+        expect:
+        !properties.isIncrementalUpdatesEnabled()
+        properties.getFullRescanInterval() == Duration.ofMinutes(5)
+
+        when:
+        properties.setIncrementalUpdatesEnabled(true)
+        properties.setFullRescanInterval(Duration.ofSeconds(30))
+
+        then:
+        properties.isIncrementalUpdatesEnabled()
+        properties.getFullRescanInterval() == Duration.ofSeconds(30)
+    }
+}
@@ -19,8 +19,10 @@ package com.netflix.genie.common.internal.services.impl
 
 import com.netflix.genie.common.external.util.GenieObjectMapper
 import com.netflix.genie.common.internal.dtos.DirectoryManifest
+import com.netflix.genie.common.internal.exceptions.checked.JobArchiveException
 import com.netflix.genie.common.internal.services.JobArchiveService
 import com.netflix.genie.common.internal.services.JobArchiver
+import org.apache.commons.codec.digest.DigestUtils
 import org.apache.commons.lang3.StringUtils
 import spock.lang.Specification
 import spock.lang.TempDir
@@ -28,7 +30,8 @@ import spock.lang.TempDir
 import java.nio.charset.StandardCharsets
 import java.nio.file.Files
 import java.nio.file.Path
-import java.util.stream.Collectors
+import java.nio.file.Paths
+import java.nio.file.attribute.FileTime
 
 /**
  * Specifications for {@link JobArchiveServiceImpl}.
@@ -54,17 +57,21 @@ class JobArchiveServiceImplSpec extends Specification {
             ? jobDirectory
             : jobDirectory.resolve(JobArchiveService.MANIFEST_DIRECTORY)
         def manifestPath = manifestDirectoryPath.resolve(JobArchiveService.MANIFEST_NAME)
-        def originalManifest = new DirectoryManifest.Factory().getDirectoryManifest(jobDirectory, true)
-        def filesList = [manifestPath, someFilePath].stream().map({ path -> path.toFile() }).collect(Collectors.toList())
+        def originalManifest = new DirectoryManifest.Factory().getDirectoryManifest(jobDirectory, false)
+        def filesList = [someFilePath.toFile()]
+        def md5 = DigestUtils.md5Hex(Files.readAllBytes(someFilePath))
 
         when:
         service.archiveDirectory(jobDirectory, target)
 
         then:
-        1 * directoryManifestFactory.getDirectoryManifest(jobDirectory, true) >> originalManifest
+        1 * directoryManifestFactory.getDirectoryManifest(jobDirectory, false) >> originalManifest
+        1 * skippedArchiver.archiveFilesWithChecksums(jobDirectory, filesList, target) >> Optional.empty()
+        1 * archiver.archiveFilesWithChecksums(jobDirectory, filesList, target) >> Optional.of(
+            [(someFilePath.toFile()): md5]
+        )
+        1 * archiver.archiveDirectory(jobDirectory, [manifestPath.toFile()], target) >> true
         Files.exists(manifestPath)
-        1 * skippedArchiver.archiveDirectory(jobDirectory, filesList, target) >> false
-        1 * archiver.archiveDirectory(jobDirectory, filesList, target) >> true
 
         when:
         def manifest = GenieObjectMapper.getMapper().readValue(manifestPath.toFile(), DirectoryManifest)
@@ -72,6 +79,79 @@ class JobArchiveServiceImplSpec extends Specification {
         then:
         manifest.getNumDirectories() == 2
         manifest.getNumFiles() == 1
-        manifest == originalManifest
+        manifest.getDirectories() == originalManifest.getDirectories()
+        manifest.getEntry("someFile").get().getMd5() == Optional.of(md5)
+        manifest.getEntry("someFile").get().getSize() == originalManifest.getEntry("someFile").get().getSize()
+    }
+
+    def "Archival fails if the manifest is not archived"() {
+        def archiver = Mock(JobArchiver)
+        def service = new JobArchiveServiceImpl([archiver], new DirectoryManifest.Factory())
+        def jobDirectory = Files.createDirectory(this.temporaryFolder.resolve(UUID.randomUUID().toString()))
+        def target = Files.createDirectory(this.temporaryFolder.resolve(UUID.randomUUID().toString())).toUri()
+
+        when:
+        service.archiveDirectory(jobDirectory, target)
+
+        then:
+        1 * archiver.archiveFilesWithChecksums(jobDirectory, [], target) >> Optional.of([:])
+        1 * archiver.archiveDirectory(jobDirectory, _, target) >> false
+        thrown(JobArchiveException)
+    }
+
+    def "Files archived while the job runs are skipped by the final archival unless they changed"() {
+        def archiver = Mock(JobArchiver)
+        def service = new JobArchiveServiceImpl([archiver], new DirectoryManifest.Factory())
+        def jobDirectory = Files.createDirectory(this.temporaryFolder.resolve(UUID.randomUUID().toString()))
+        def doneFilePath = jobDirectory.resolve("done")
+        def changedFilePath = jobDirectory.resolve("changed")
+        Files.write(doneFilePath, UUID.randomUUID().toString().getBytes(StandardCharsets.UTF_8))
+        Files.write(changedFilePath, UUID.randomUUID().toString().getBytes(StandardCharsets.UTF_8))
+        def target = Files.createDirectory(this.temporaryFolder.resolve(UUID.randomUUID().toString())).toUri()
+        def manifestPath = jobDirectory
+            .resolve(JobArchiveService.MANIFEST_DIRECTORY)
+            .resolve(JobArchiveService.MANIFEST_NAME)
+        def relativePaths = [Paths.get("done"), Paths.get("changed"), Paths.get("missing")]
+        List<File> filesList
+
+        when:
+        def archived = service.archiveFiles(jobDirectory, relativePaths, target)
+
+        then:
+        1 * archiver.archiveFilesWithChecksums(jobDirectory, _ as List<File>, target) >> {
+            Path d, List<File> f, URI t ->
+                filesList = f
+                return Optional.of([(doneFilePath.toFile()): "doneMd5", (changedFilePath.toFile()): "changedMd5"])
+        }
+        archived == 2
+        filesList as Set == [doneFilePath.toFile(), changedFilePath.toFile()] as Set
+
+        when: "Unchanged files are not archived again"
+        archived = service.archiveFiles(jobDirectory, relativePaths, target)
+
+        then:
+        0 * archiver.archiveFilesWithChecksums(_, _, _)
+        archived == 0
+
+        when:
+        Files.write(changedFilePath, "some more output".getBytes(StandardCharsets.UTF_8))
+        Files.setLastModifiedTime(
+            changedFilePath,
+            FileTime.from(Files.getLastModifiedTime(changedFilePath).toInstant().plusSeconds(1))
+        )
+        service.archiveDirectory(jobDirectory, target)
+
+        then:
+        1 * archiver.archiveFilesWithChecksums(jobDirectory, [changedFilePath.toFile()], target) >> Optional.of(
+            [(changedFilePath.toFile()): "newChangedMd5"]
+        )
+        1 * archiver.archiveDirectory(jobDirectory, [manifestPath.toFile()], target) >> true
+
+        when: "The manifest has the checksums from both passes"
+        def manifest = GenieObjectMapper.getMapper().readValue(manifestPath.toFile(), DirectoryManifest)
+
+        then:
+        manifest.getEntry("done").get().getMd5() == Optional.of("doneMd5")
+        manifest.getEntry("changed").get().getMd5() == Optional.of("newChangedMd5")
     }
 }
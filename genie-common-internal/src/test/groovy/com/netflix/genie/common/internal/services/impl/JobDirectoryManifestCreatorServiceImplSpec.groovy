@@ -21,12 +21,19 @@ import com.github.benmanes.caffeine.cache.Cache
 import com.github.benmanes.caffeine.cache.Caffeine
 import com.github.benmanes.caffeine.cache.Ticker
 import com.netflix.genie.common.internal.dtos.DirectoryManifest
+import com.netflix.genie.common.internal.properties.JobDirectoryManifestProperties
 import com.netflix.genie.common.internal.services.JobDirectoryManifestCreatorService
 import spock.lang.Specification
+import spock.lang.TempDir
 import spock.lang.Unroll
+import spock.util.concurrent.PollingConditions
 
+import java.nio.charset.StandardCharsets
+import java.nio.file.ClosedWatchServiceException
+import java.nio.file.Files
 import java.nio.file.Path
 import java.nio.file.Paths
+import java.time.Duration
 import java.util.concurrent.TimeUnit
 
 /**
@@ -36,6 +43,9 @@ class JobDirectoryManifestCreatorServiceImplSpec extends Specification {
     DirectoryManifest.Factory factory
     Cache<Path, DirectoryManifest> cache
 
+    @TempDir
+    Path temporaryFolder
+
     static IOException ioe = new IOException("...")
     static RuntimeException re = new RuntimeException("...")
     static IllegalStateException ise = new IllegalStateException("...")
@@ -131,4 +141,135 @@ class JobDirectoryManifestCreatorServiceImplSpec extends Specification {
         _ * ticker.read() >> TimeUnit.HOURS.toNanos(1) + 1
         1 * factory.getDirectoryManifest(Paths.get("/temp/foo"), false) >> Mock(DirectoryManifest)
     }
+
+    def "GetDirectoryManifest incremental updates"() {
+        setup:
+        def properties = new JobDirectoryManifestProperties()
+        properties.setIncrementalUpdatesEnabled(true)
+        properties.setFullRescanInterval(Duration.ofHours(1))
+        def service = new JobDirectoryManifestCreatorServiceImpl(factory, cache, false, properties)
+        def jobDirectory = this.temporaryFolder.toAbsolutePath().normalize()
+        def manifest1 = Mock(DirectoryManifest)
+        def manifest2 = Mock(DirectoryManifest)
+        def manifest3 = Mock(DirectoryManifest)
+        def newFile = jobDirectory.resolve("stdout")
+
+        when:
+        def manifest = service.getDirectoryManifest(jobDirectory)
+
+        then:
+        1 * factory.getDirectoryManifest(jobDirectory, false, null) >> manifest1
+        manifest == manifest1
+
+        when: "Nothing changed"
+        cache.invalidateAll()
+        manifest = service.getDirectoryManifest(jobDirectory)
+
+        then:
+        0 * factory._
+        manifest == manifest1
+
+        when: "A file is created"
+        Files.write(newFile, "Hello".getBytes(StandardCharsets.UTF_8))
+        new PollingConditions(timeout: 30).eventually {
+            cache.invalidateAll()
+            assert service.getDirectoryManifest(jobDirectory) == manifest2
+        }
+
+        then:
+        1 * factory.updateDirectoryManifest(jobDirectory, false, manifest1, { it.contains(newFile) }) >> manifest2
+        _ * factory.updateDirectoryManifest(jobDirectory, false, manifest2, _ as Set) >> manifest2
+        0 * factory.getDirectoryManifest(_, _, _)
+
+        when: "Invalidation forces a full rescan"
+        service.invalidateCachedDirectoryManifest(jobDirectory)
+        manifest = service.getDirectoryManifest(jobDirectory)
+
+        then:
+        1 * factory.getDirectoryManifest(jobDirectory, false, null) >> manifest3
+        manifest == manifest3
+
+        cleanup:
+        service.close()
+    }
+
+    def "GetDirectoryManifest incremental updates with periodic full rescan"() {
+        setup:
+        def properties = new JobDirectoryManifestProperties()
+        properties.setIncrementalUpdatesEnabled(true)
+        properties.setFullRescanInterval(Duration.ZERO)
+        def service = new JobDirectoryManifestCreatorServiceImpl(factory, cache, true, properties)
+        def jobDirectory = this.temporaryFolder.toAbsolutePath().normalize()
+        def manifest1 = Mock(DirectoryManifest)
+        def manifest2 = Mock(DirectoryManifest)
+
+        when:
+        def manifest = service.getDirectoryManifest(jobDirectory)
+
+        then:
+        1 * factory.getDirectoryManifest(jobDirectory, true, null) >> manifest1
+        manifest == manifest1
+
+        when:
+        Thread.sleep(10)
+        cache.invalidateAll()
+        manifest = service.getDirectoryManifest(jobDirectory)
+
+        then:
+        1 * factory.getDirectoryManifest(jobDirectory, true, manifest1) >> manifest2
+        0 * factory.updateDirectoryManifest(_, _, _, _)
+        manifest == manifest2
+
+        cleanup:
+        service.close()
+    }
+
+    def "Directories are no longer watched once evicted"() {
+        setup:
+        def properties = new JobDirectoryManifestProperties()
+        properties.setIncrementalUpdatesEnabled(true)
+        properties.setFullRescanInterval(Duration.ofHours(1))
+        properties.setWatchIdleTimeout(Duration.ofMinutes(5))
+        def nanos = 0L
+        def service = new JobDirectoryManifestCreatorServiceImpl(factory, cache, false, properties, { nanos })
+        def jobDirectory = this.temporaryFolder.toAbsolutePath().normalize()
+
+        when:
+        service.getDirectoryManifest(jobDirectory)
+        def watchService = service.watchedDirectories.getIfPresent(jobDirectory).watchService
+
+        then:
+        1 * factory.getDirectoryManifest(jobDirectory, false, null) >> Mock(DirectoryManifest)
+        watchService != null
+        watchService.poll() == null
+
+        when: "The directory is not read for longer than the idle timeout"
+        nanos += Duration.ofMinutes(6).toNanos()
+        service.watchedDirectories.cleanUp()
+        watchService.poll()
+
+        then:
+        thrown(ClosedWatchServiceException)
+        service.watchedDirectories.getIfPresent(jobDirectory) == null
+
+        when: "The manifest is requested again"
+        cache.invalidateAll()
+        service.getDirectoryManifest(jobDirectory)
+        watchService = service.watchedDirectories.getIfPresent(jobDirectory).watchService
+
+        then:
+        1 * factory.getDirectoryManifest(jobDirectory, false, null) >> Mock(DirectoryManifest)
+        watchService.poll() == null
+
+        when: "The manifest is invalidated"
+        service.invalidateCachedDirectoryManifest(jobDirectory)
+        watchService.poll()
+
+        then:
+        thrown(ClosedWatchServiceException)
+        service.watchedDirectories.getIfPresent(jobDirectory) == null
+
+        cleanup:
+        service.close()
+    }
 }
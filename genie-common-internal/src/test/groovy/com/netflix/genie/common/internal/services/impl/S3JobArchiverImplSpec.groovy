@@ -18,14 +18,26 @@
 package com.netflix.genie.common.internal.services.impl
 
 import com.amazonaws.AmazonServiceException
+import com.amazonaws.services.s3.AmazonS3
 import com.amazonaws.services.s3.AmazonS3URI
+import com.amazonaws.services.s3.model.AbortMultipartUploadRequest
+import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest
+import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest
+import com.amazonaws.services.s3.model.InitiateMultipartUploadResult
+import com.amazonaws.services.s3.model.ObjectMetadata
+import com.amazonaws.services.s3.model.UploadPartRequest
+import com.amazonaws.services.s3.model.UploadPartResult
 import com.amazonaws.services.s3.transfer.MultipleFileUpload
 import com.amazonaws.services.s3.transfer.TransferManager
+import com.amazonaws.services.s3.transfer.TransferManagerConfiguration
+import com.amazonaws.services.s3.transfer.Upload
 import com.netflix.genie.common.internal.aws.s3.S3ClientFactory
 import com.netflix.genie.common.internal.exceptions.checked.JobArchiveException
+import org.apache.commons.codec.digest.DigestUtils
 import spock.lang.Specification
 import spock.lang.TempDir
 
+import java.nio.charset.StandardCharsets
 import java.nio.file.Files
 import java.nio.file.Path
 
@@ -39,6 +51,7 @@ class S3JobArchiverImplSpec extends Specification {
     Path temporaryFolder
     S3ClientFactory s3ClientFactory
     TransferManager transferManager
+    TransferManagerConfiguration transferManagerConfiguration
     S3JobArchiverImpl s3ArchivalService
 
     File jobDir
@@ -65,7 +78,10 @@ class S3JobArchiverImplSpec extends Specification {
 
     void setup() {
         this.s3ClientFactory = Mock(S3ClientFactory)
-        this.transferManager = Mock(TransferManager)
+        this.transferManagerConfiguration = new TransferManagerConfiguration()
+        this.transferManager = Mock(TransferManager) {
+            getConfiguration() >> this.transferManagerConfiguration
+        }
         this.s3ArchivalService = new S3JobArchiverImpl(this.s3ClientFactory)
         this.jobDir = Files.createDirectory(this.temporaryFolder.resolve(UUID.randomUUID().toString())).toFile()
         this.stdout = new File(jobDir, "stdout")
@@ -168,5 +184,178 @@ class S3JobArchiverImplSpec extends Specification {
         ) >> { throw new AmazonServiceException("test") }
         thrown(JobArchiveException)
     }
-}
 
+    def "Files are checksummed from the same stream they are uploaded from"() {
+        def keyPrefix = this.archivalLocationS3URI.getKey()
+        def jobDirPath = this.jobDir.toPath()
+        Map<String, String> uploadedKeys = [:]
+
+        when:
+        def result = this.s3ArchivalService.archiveFilesWithChecksums(
+            jobDirPath,
+            this.allFiles,
+            this.archivalLocationS3URI.getURI()
+        )
+
+        then:
+        1 * this.s3ClientFactory.getTransferManager(_ as AmazonS3URI) >> this.transferManager
+        this.allFiles.size() * this.transferManager.upload(
+            this.archivalLocationS3URI.getBucket(),
+            _ as String,
+            _ as InputStream,
+            _ as ObjectMetadata
+        ) >> {
+            String bucket, String key, InputStream inputStream, ObjectMetadata metadata ->
+                // Simulate a retry of the beginning of the request
+                inputStream.mark(1024)
+                inputStream.read(new byte[4])
+                inputStream.reset()
+                def content = inputStream.getText(StandardCharsets.UTF_8.name())
+                assert metadata.getContentLength() == content.length()
+                assert metadata.getContentType() != null
+                uploadedKeys.put(key, content)
+                return Mock(Upload)
+        }
+        result.isPresent()
+        result.get().size() == this.allFiles.size()
+        this.allFiles.each {
+            assert result.get().get(it) == DigestUtils.md5Hex(Files.readAllBytes(it.toPath()))
+        }
+        uploadedKeys.size() == this.allFiles.size()
+        uploadedKeys.get(keyPrefix + "/stdout") == "Stdout content"
+        uploadedKeys.get(keyPrefix + "/genie/clusters/hadoopH2/config/core") == "Hadoop core site"
+    }
+
+    def "Files still being written to are archived with the content they had when their upload started"() {
+        when:
+        def result = this.s3ArchivalService.archiveFilesWithChecksums(
+            this.jobDir.toPath(),
+            [this.stdout],
+            this.archivalLocationS3URI.getURI()
+        )
+
+        then:
+        1 * this.s3ClientFactory.getTransferManager(_ as AmazonS3URI) >> this.transferManager
+        1 * this.transferManager.upload(_, _, _ as InputStream, _ as ObjectMetadata) >> {
+            String bucket, String key, InputStream inputStream, ObjectMetadata metadata ->
+                this.stdout.append(" and more")
+                assert inputStream.getText(StandardCharsets.UTF_8.name()) == "Stdout content"
+                assert metadata.getContentLength() == "Stdout content".length()
+                return Mock(Upload)
+        }
+        result.get().get(this.stdout) == DigestUtils.md5Hex("Stdout content")
+    }
+
+    def "Files over the multipart threshold are read once into parts which are checksummed and uploaded"() {
+        this.transferManagerConfiguration.setMultipartUploadThreshold(15L)
+        this.transferManagerConfiguration.setMinimumUploadPartSize(6L)
+        def s3Client = Mock(AmazonS3)
+        def bucket = this.archivalLocationS3URI.getBucket()
+        def stdoutKey = this.archivalLocationS3URI.getKey() + "/stdout"
+        def runKey = this.archivalLocationS3URI.getKey() + "/run"
+        Map<Integer, String> uploadedParts = Collections.synchronizedMap([:])
+        CompleteMultipartUploadRequest completeRequest = null
+
+        when:
+        def result = this.s3ArchivalService.archiveFilesWithChecksums(
+            this.jobDir.toPath(),
+            [this.stdout, this.run],
+            this.archivalLocationS3URI.getURI()
+        )
+
+        then:
+        1 * this.s3ClientFactory.getTransferManager(_ as AmazonS3URI) >> this.transferManager
+        1 * this.transferManager.upload(bucket, stdoutKey, _ as InputStream, _ as ObjectMetadata) >> {
+            String b, String key, InputStream inputStream, ObjectMetadata metadata ->
+                inputStream.getText(StandardCharsets.UTF_8.name())
+                return Mock(Upload)
+        }
+        0 * this.transferManager.upload(_, runKey, _)
+        0 * this.transferManager.upload(_, runKey, _ as InputStream, _ as ObjectMetadata)
+        1 * this.transferManager.getAmazonS3Client() >> s3Client
+        1 * s3Client.initiateMultipartUpload(_ as InitiateMultipartUploadRequest) >> {
+            InitiateMultipartUploadRequest request ->
+                assert request.getBucketName() == bucket
+                assert request.getKey() == runKey
+                assert request.getObjectMetadata().getContentType() != null
+                def initiateResult = new InitiateMultipartUploadResult()
+                initiateResult.setUploadId("uploadId")
+                return initiateResult
+        }
+        3 * s3Client.uploadPart(_ as UploadPartRequest) >> {
+            UploadPartRequest request ->
+                assert request.getUploadId() == "uploadId"
+                // Writes made after the upload started are not part of the archived content
+                this.run.append(" and more")
+                def part = request.getInputStream().getText(StandardCharsets.UTF_8.name())
+                uploadedParts.put(request.getPartNumber(), part)
+                def partResult = new UploadPartResult()
+                partResult.setPartNumber(request.getPartNumber())
+                partResult.setETag("etag" + request.getPartNumber())
+                return partResult
+        }
+        1 * s3Client.completeMultipartUpload(_ as CompleteMultipartUploadRequest) >> {
+            CompleteMultipartUploadRequest request ->
+                completeRequest = request
+                return null
+        }
+        0 * s3Client.abortMultipartUpload(_)
+        uploadedParts == [1: "Run fi", 2: "le con", 3: "tent"]
+        completeRequest.getPartETags()*.getPartNumber() == [1, 2, 3]
+        result.get().get(this.stdout) == DigestUtils.md5Hex("Stdout content")
+        result.get().get(this.run) == DigestUtils.md5Hex("Run file content")
+    }
+
+    def "A multipart upload is aborted if a part fails to upload"() {
+        this.transferManagerConfiguration.setMultipartUploadThreshold(15L)
+        this.transferManagerConfiguration.setMinimumUploadPartSize(6L)
+        def s3Client = Mock(AmazonS3)
+
+        when:
+        this.s3ArchivalService.archiveFilesWithChecksums(
+            this.jobDir.toPath(),
+            [this.run],
+            this.archivalLocationS3URI.getURI()
+        )
+
+        then:
+        1 * this.s3ClientFactory.getTransferManager(_ as AmazonS3URI) >> this.transferManager
+        1 * this.transferManager.getAmazonS3Client() >> s3Client
+        1 * s3Client.initiateMultipartUpload(_ as InitiateMultipartUploadRequest) >> {
+            def initiateResult = new InitiateMultipartUploadResult()
+            initiateResult.setUploadId("uploadId")
+            return initiateResult
+        }
+        (1.._) * s3Client.uploadPart(_ as UploadPartRequest) >> { throw new AmazonServiceException("test") }
+        0 * s3Client.completeMultipartUpload(_)
+        1 * s3Client.abortMultipartUpload(_ as AbortMultipartUploadRequest)
+        thrown(JobArchiveException)
+    }
+
+    def "If it is not a valid S3 URI checksummed archival is not attempted with this implementation"() {
+        when:
+        def result = this.s3ArchivalService.archiveFilesWithChecksums(jobDir.toPath(), [], new URI("file://abc"))
+
+        then:
+        !result.isPresent()
+    }
+
+    def "Archival Exception thrown and pending uploads aborted if there is error archiving with checksums"() {
+        def upload = Mock(Upload)
+        def failedUpload = Mock(Upload)
+
+        when:
+        this.s3ArchivalService.archiveFilesWithChecksums(
+            this.jobDir.toPath(),
+            [this.stdout, this.stderr],
+            this.archivalLocationS3URI.getURI()
+        )
+
+        then:
+        1 * this.s3ClientFactory.getTransferManager(_ as AmazonS3URI) >> this.transferManager
+        2 * this.transferManager.upload(_, _, _ as InputStream, _ as ObjectMetadata) >>> [failedUpload, upload]
+        1 * failedUpload.waitForCompletion() >> { throw new AmazonServiceException("test") }
+        1 * upload.abort()
+        thrown(JobArchiveException)
+    }
+}
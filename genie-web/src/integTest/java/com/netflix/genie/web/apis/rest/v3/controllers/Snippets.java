@@ -544,6 +544,23 @@ final class Snippets {
             RequestDocumentation
                 .parameterWithName("groupingInstance")
                 .description("The grouping instance the job should be a member of. Use % symbol for regex like search.")
+                .optional(),
+            RequestDocumentation
+                .parameterWithName("cursor")
+                .description(
+                    "The continuation token from the next link of a previous page. When present results are paged by"
+                        + " seeking past the last job returned rather than by page index. Only the default sort by"
+                        + " created descending is supported. The page number in the page metadata is always 0."
+                        + " Required to page past the first 10,000 matching jobs, offset based searches starting"
+                        + " beyond that are rejected."
+                )
+                .optional(),
+            RequestDocumentation
+                .parameterWithName("includeTotal")
+                .description(
+                    "Whether to count the total number of matching jobs. Defaults to true. When false results are"
+                        + " paged by cursor and the page metadata is omitted."
+                )
                 .optional()
         )
     );
@@ -146,6 +146,33 @@ class JpaPersistenceServiceImplClustersIntegrationTest extends JpaPersistenceSer
         Assertions.assertThat(clusters.getContent().get(0).getId()).isEqualTo(CLUSTER_2_ID);
     }
 
+    @Test
+    @DatabaseSetup("persistence/clusters/init.xml")
+    void testFindClustersUpdatedSince() {
+        final ZonedDateTime time = ZonedDateTime.of(2014, Month.JULY.getValue(), 9, 2, 58, 59, 0, ZoneId.of("UTC"));
+        Assertions
+            .assertThat(this.service.findResourcesUpdatedSince(time.toInstant(), Cluster.class))
+            .extracting(Cluster::getId)
+            .containsExactly(CLUSTER_2_ID);
+        Assertions
+            .assertThat(this.service.findResourcesUpdatedSince(Instant.EPOCH, Cluster.class))
+            .extracting(Cluster::getId)
+            .containsExactlyInAnyOrder(CLUSTER_1_ID, CLUSTER_2_ID);
+        Assertions
+            .assertThat(this.service.findResourcesUpdatedSince(Instant.now(), Cluster.class))
+            .isEmpty();
+    }
+
+    @Test
+    @DatabaseSetup("persistence/clusters/init.xml")
+    void testGetClusterIds() throws GenieCheckedException {
+        Assertions
+            .assertThat(this.service.getResourceIds(Cluster.class))
+            .containsExactlyInAnyOrder(CLUSTER_1_ID, CLUSTER_2_ID);
+        this.service.deleteCluster(CLUSTER_1_ID);
+        Assertions.assertThat(this.service.getResourceIds(Cluster.class)).containsExactly(CLUSTER_2_ID);
+    }
+
     @Test
     @DatabaseSetup("persistence/clusters/init.xml")
     void testGetClustersByMaxUpdateTime() {
@@ -60,6 +60,8 @@ import com.netflix.genie.test.suppliers.RandomSuppliers;
 import com.netflix.genie.web.data.services.impl.jpa.entities.JobEntity;
 import com.netflix.genie.web.data.services.impl.jpa.queries.aggregates.JobInfoAggregate;
 import com.netflix.genie.web.data.services.impl.jpa.queries.projections.v4.JobSpecificationProjection;
+import com.netflix.genie.web.dtos.JobSearchCursor;
+import com.netflix.genie.web.dtos.JobSearchResultsPage;
 import com.netflix.genie.web.dtos.JobSubmission;
 import com.netflix.genie.web.dtos.ResolvedJob;
 import com.netflix.genie.web.exceptions.checked.IdAlreadyExistsException;
@@ -132,13 +134,23 @@ class JpaPersistenceServiceImplJobsIntegrationTest extends JpaPersistenceService
             .of(2016, Month.JANUARY.getValue(), 1, 0, 0, 0, 0, ZoneId.of("UTC"))
             .toInstant();
 
-        final long deleted = this.service.deleteJobsCreatedBefore(cal, JobStatus.getActiveStatuses(), 10);
+        final long deleted = this.service.deleteJobsCreatedBetween(
+            Instant.EPOCH,
+            cal,
+            JobStatus.getActiveStatuses(),
+            10
+        );
 
         Assertions.assertThat(deleted).isEqualTo(1L);
         Assertions.assertThat(this.jobRepository.count()).isEqualTo(2L);
         Assertions.assertThat(this.jobRepository.existsByUniqueId(JOB_1_ID)).isFalse();
         Assertions.assertThat(this.jobRepository.existsByUniqueId(JOB_2_ID)).isTrue();
         Assertions.assertThat(this.jobRepository.existsByUniqueId(JOB_3_ID)).isTrue();
+        // The command and cluster criteria owned by the deleted job are removed with it
+        Assertions.assertThat(this.criterionRepository.existsById(0L)).isFalse();
+        Assertions.assertThat(this.criterionRepository.existsById(1L)).isFalse();
+        Assertions.assertThat(this.criterionRepository.existsById(2L)).isFalse();
+        Assertions.assertThat(this.criterionRepository.existsById(3L)).isTrue();
     }
 
     @Test
@@ -148,13 +160,359 @@ class JpaPersistenceServiceImplJobsIntegrationTest extends JpaPersistenceService
             .of(2016, Month.JANUARY.getValue(), 1, 0, 0, 0, 0, ZoneId.of("UTC"))
             .toInstant();
 
-        final long deleted = this.service.deleteJobsCreatedBefore(cal, JobStatus.getActiveStatuses(), 1);
+        final long deleted = this.service.deleteJobsCreatedBetween(
+            Instant.EPOCH,
+            cal,
+            JobStatus.getActiveStatuses(),
+            1
+        );
 
         Assertions.assertThat(deleted).isEqualTo(1L);
         Assertions.assertThat(this.jobRepository.count()).isEqualTo(2L);
         Assertions.assertThat(this.jobRepository.existsByUniqueId(JOB_3_ID)).isTrue();
     }
 
+    @Test
+    @DatabaseSetup("persistence/jobs/init.xml")
+    void canDeleteJobsCreatedWithinWindow() {
+        // Job 1 was created at 2015-08-11T01:48:00Z and job 2 a day later
+        final Instant job2Created = ZonedDateTime
+            .of(2015, Month.AUGUST.getValue(), 12, 1, 48, 0, 0, ZoneId.of("UTC"))
+            .toInstant();
+
+        Assertions
+            .assertThat(
+                this.service.deleteJobsCreatedBetween(
+                    job2Created.minusSeconds(1L),
+                    job2Created.plusSeconds(1L),
+                    JobStatus.getActiveStatuses(),
+                    10
+                )
+            )
+            .isEqualTo(0L);
+        Assertions.assertThat(this.jobRepository.count()).isEqualTo(3L);
+
+        Assertions
+            .assertThat(
+                this.service.deleteJobsCreatedBetween(
+                    job2Created.minus(1L, ChronoUnit.DAYS),
+                    job2Created,
+                    JobStatus.getActiveStatuses(),
+                    10
+                )
+            )
+            .isEqualTo(1L);
+        Assertions.assertThat(this.jobRepository.existsByUniqueId(JOB_1_ID)).isFalse();
+        Assertions.assertThat(this.jobRepository.count()).isEqualTo(2L);
+    }
+
+    @Test
+    @DatabaseSetup("persistence/jobs/init.xml")
+    void canOnlyArchiveJobsCreatedWithinWindow() {
+        final Instant finished = ZonedDateTime
+            .of(2015, Month.AUGUST.getValue(), 11, 2, 58, 0, 0, ZoneId.of("UTC"))
+            .toInstant();
+        this.jobRepository
+            .findByUniqueId(JOB_1_ID)
+            .orElseThrow(IllegalStateException::new)
+            .setFinished(finished);
+        this.entityManager.flush();
+
+        // Job 1 was created at 2015-08-11T01:48:00Z
+        Assertions
+            .assertThat(
+                this.service.archiveJobsFinishedBefore(
+                    finished.plusSeconds(1L),
+                    finished.minus(1L, ChronoUnit.HOURS),
+                    finished.plusSeconds(1L),
+                    10
+                )
+            )
+            .isEqualTo(0L);
+        Assertions.assertThat(this.jobHistoryRepository.findByUniqueId(JOB_1_ID)).isEmpty();
+
+        Assertions
+            .assertThat(
+                this.service.archiveJobsFinishedBefore(
+                    finished.plusSeconds(1L),
+                    finished.minus(2L, ChronoUnit.HOURS),
+                    finished.minus(1L, ChronoUnit.HOURS),
+                    10
+                )
+            )
+            .isEqualTo(1L);
+        Assertions.assertThat(this.jobHistoryRepository.findByUniqueId(JOB_1_ID)).isPresent();
+        // Archiving the same window again finds nothing left to archive
+        Assertions
+            .assertThat(
+                this.service.archiveJobsFinishedBefore(
+                    finished.plusSeconds(1L),
+                    finished.minus(2L, ChronoUnit.HOURS),
+                    finished.minus(1L, ChronoUnit.HOURS),
+                    10
+                )
+            )
+            .isEqualTo(0L);
+    }
+
+    @Test
+    @DatabaseSetup("persistence/jobs/init.xml")
+    void canArchiveJobsFinishedBeforeDate() throws GenieCheckedException, GenieException {
+        final Instant finished = ZonedDateTime
+            .of(2015, Month.AUGUST.getValue(), 11, 2, 58, 0, 0, ZoneId.of("UTC"))
+            .toInstant();
+        this.jobRepository
+            .findByUniqueId(JOB_1_ID)
+            .orElseThrow(IllegalStateException::new)
+            .setFinished(finished);
+        this.entityManager.flush();
+
+        final long archived = this.service.archiveJobsFinishedBefore(
+            finished.plusSeconds(1L),
+            Instant.EPOCH,
+            finished.plusSeconds(1L),
+            10
+        );
+
+        Assertions.assertThat(archived).isEqualTo(1L);
+        Assertions.assertThat(this.jobRepository.existsByUniqueId(JOB_1_ID)).isFalse();
+        Assertions.assertThat(this.jobRepository.count()).isEqualTo(2L);
+        Assertions.assertThat(this.jobHistoryRepository.findByUniqueId(JOB_1_ID)).isPresent();
+
+        // The archived job can still be read and searched for
+        Assertions.assertThat(this.service.getJobStatus(JOB_1_ID)).isEqualTo(JobStatus.SUCCEEDED);
+        Assertions.assertThat(this.service.getJobArchiveStatus(JOB_1_ID)).isEqualTo(ArchiveStatus.ARCHIVED);
+        Assertions
+            .assertThat(this.service.getJobArchiveLocation(JOB_1_ID))
+            .contains("s3://somebucket/genie/logs/1/");
+        final com.netflix.genie.common.dto.Job job = this.service.getJob(JOB_1_ID);
+        Assertions.assertThat(job.getId()).contains(JOB_1_ID);
+        Assertions.assertThat(job.getFinished()).contains(finished);
+        final Page<JobSearchResult> jobs = this.service.findJobs(
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            PageRequest.of(0, 10, Sort.Direction.DESC, "created")
+        );
+        Assertions.assertThat(jobs.getTotalElements()).isEqualTo(3L);
+        Assertions
+            .assertThat(jobs.getContent())
+            .extracting(JobSearchResult::getId)
+            .containsExactly(JOB_3_ID, JOB_2_ID, JOB_1_ID);
+
+        // Archived jobs are purged once they pass the retention
+        final long deleted = this.service.deleteJobsCreatedBetween(
+            Instant.EPOCH,
+            ZonedDateTime.of(2016, Month.JANUARY.getValue(), 1, 0, 0, 0, 0, ZoneId.of("UTC")).toInstant(),
+            JobStatus.getActiveStatuses(),
+            10
+        );
+        Assertions.assertThat(deleted).isEqualTo(1L);
+        Assertions.assertThat(this.jobHistoryRepository.findByUniqueId(JOB_1_ID)).isEmpty();
+    }
+
+    @Test
+    @DatabaseSetup("persistence/jobs/init.xml")
+    void canReadAndUpdateArchivedJob() throws GenieCheckedException, GenieException {
+        final Instant finished = ZonedDateTime
+            .of(2015, Month.AUGUST.getValue(), 11, 2, 58, 0, 0, ZoneId.of("UTC"))
+            .toInstant();
+        this.jobRepository
+            .findByUniqueId(JOB_1_ID)
+            .orElseThrow(IllegalStateException::new)
+            .setFinished(finished);
+        this.entityManager.flush();
+        final JobRequest activeJobRequest = this.service.getJobRequest(JOB_1_ID);
+        final FinishedJob activeFinishedJob = this.service.getFinishedJob(JOB_1_ID);
+
+        Assertions
+            .assertThat(
+                this.service.archiveJobsFinishedBefore(finished.plusSeconds(1L), Instant.EPOCH, finished, 10)
+            )
+            .isEqualTo(1L);
+        Assertions.assertThat(this.jobRepository.existsByUniqueId(JOB_1_ID)).isFalse();
+
+        final JobRequest jobRequest = this.service.getJobRequest(JOB_1_ID);
+        Assertions.assertThat(jobRequest.getMetadata().getName()).isEqualTo("testSparkJob");
+        Assertions.assertThat(jobRequest.getMetadata().getUser()).isEqualTo("tgianos");
+        Assertions.assertThat(jobRequest.getMetadata().getTags()).isEqualTo(activeJobRequest.getMetadata().getTags());
+        Assertions.assertThat(String.join(" ", jobRequest.getCommandArgs()))
+            .isEqualTo(String.join(" ", activeJobRequest.getCommandArgs()));
+        Assertions.assertThat(jobRequest.getCriteria().getClusterCriteria()).hasSize(2);
+        Assertions
+            .assertThat(jobRequest.getCriteria().getApplicationIds())
+            .isEqualTo(activeJobRequest.getCriteria().getApplicationIds());
+        Assertions.assertThat(this.service.isApiJob(JOB_1_ID)).isFalse();
+        Assertions.assertThat(this.service.getJobCluster(JOB_1_ID).getMetadata().getName()).isEqualTo("h2query");
+        Assertions.assertThat(this.service.getJobCommand(JOB_1_ID).getMetadata().getName()).isEqualTo("spark");
+        Assertions
+            .assertThat(this.service.getJobApplications(JOB_1_ID))
+            .extracting(application -> application.getMetadata().getName())
+            .containsExactly("hadoop", "spark");
+
+        final FinishedJob finishedJob = this.service.getFinishedJob(JOB_1_ID);
+        Assertions.assertThat(finishedJob.getUniqueId()).isEqualTo(JOB_1_ID);
+        Assertions.assertThat(finishedJob.getName()).isEqualTo(activeFinishedJob.getName());
+        Assertions.assertThat(finishedJob.getVersion()).isEqualTo(activeFinishedJob.getVersion());
+        Assertions.assertThat(finishedJob.getStatus()).isEqualTo(JobStatus.SUCCEEDED);
+        Assertions.assertThat(finishedJob.getFinished()).contains(finished);
+        Assertions.assertThat(finishedJob.getClusterCriteria()).hasSize(2);
+        Assertions.assertThat(finishedJob.getRequestedMemory()).isEqualTo(activeFinishedJob.getRequestedMemory());
+        Assertions.assertThat(finishedJob.getNumAttachments()).isEqualTo(activeFinishedJob.getNumAttachments());
+        Assertions.assertThat(finishedJob.getExitCode()).isEqualTo(activeFinishedJob.getExitCode());
+        Assertions.assertThat(finishedJob.getArchiveLocation()).isEqualTo(activeFinishedJob.getArchiveLocation());
+        Assertions.assertThat(finishedJob.getCommand()).isPresent();
+        Assertions.assertThat(finishedJob.getCluster()).isPresent();
+        Assertions.assertThat(finishedJob.getApplications()).hasSize(2);
+
+        this.service.updateJobArchiveStatus(JOB_1_ID, ArchiveStatus.FAILED);
+        this.entityManager.flush();
+        this.entityManager.clear();
+        Assertions.assertThat(this.service.getJobArchiveStatus(JOB_1_ID)).isEqualTo(ArchiveStatus.FAILED);
+        Assertions
+            .assertThat(this.service.getJobExecution(JOB_1_ID).getArchiveStatus())
+            .contains(com.netflix.genie.common.dto.ArchiveStatus.FAILED);
+
+        final String unknownId = UUID.randomUUID().toString();
+        Assertions
+            .assertThatExceptionOfType(NotFoundException.class)
+            .isThrownBy(() -> this.service.getJobRequest(unknownId));
+        Assertions
+            .assertThatExceptionOfType(NotFoundException.class)
+            .isThrownBy(() -> this.service.getJobCluster(unknownId));
+        Assertions
+            .assertThatExceptionOfType(NotFoundException.class)
+            .isThrownBy(() -> this.service.updateJobArchiveStatus(unknownId, ArchiveStatus.FAILED));
+    }
+
+    @Test
+    @DatabaseSetup("persistence/jobs/init.xml")
+    void cantFindJobsPastMaximumOffset() {
+        final int pageSize = 10;
+        final Pageable lastPage = PageRequest.of(
+            Math.toIntExact(JpaPersistenceServiceImpl.MAX_JOB_SEARCH_OFFSET / pageSize),
+            pageSize
+        );
+        Assertions
+            .assertThat(
+                this.service.findJobs(
+                    null,
+                    null,
+                    null,
+                    null,
+                    null,
+                    null,
+                    null,
+                    null,
+                    null,
+                    null,
+                    null,
+                    null,
+                    null,
+                    null,
+                    null,
+                    lastPage
+                )
+            )
+            .isEmpty();
+        Assertions
+            .assertThatIllegalArgumentException()
+            .isThrownBy(
+                () -> this.service.findJobs(
+                    null,
+                    null,
+                    null,
+                    null,
+                    null,
+                    null,
+                    null,
+                    null,
+                    null,
+                    null,
+                    null,
+                    null,
+                    null,
+                    null,
+                    null,
+                    lastPage.next()
+                )
+            );
+    }
+
+    @Test
+    @DatabaseSetup("persistence/jobs/init.xml")
+    void canFindActiveAndArchivedJobsInSortOrder() {
+        final Instant job2Started = ZonedDateTime
+            .of(2015, Month.AUGUST.getValue(), 12, 1, 50, 0, 0, ZoneId.of("UTC"))
+            .toInstant();
+        final Instant job3Started = ZonedDateTime
+            .of(2016, Month.FEBRUARY.getValue(), 24, 1, 50, 0, 0, ZoneId.of("UTC"))
+            .toInstant();
+        // Job 1 was created first but started after the others and finished while job 2 kept running
+        final Instant job1Started = job3Started.plusSeconds(60L);
+        final Instant job1Finished = job1Started.plusSeconds(60L);
+        final JobEntity job1 = this.jobRepository.findByUniqueId(JOB_1_ID).orElseThrow(IllegalStateException::new);
+        job1.setStarted(job1Started);
+        job1.setFinished(job1Finished);
+        this.jobRepository.findByUniqueId(JOB_2_ID).orElseThrow(IllegalStateException::new).setStarted(job2Started);
+        this.jobRepository.findByUniqueId(JOB_3_ID).orElseThrow(IllegalStateException::new).setStarted(job3Started);
+        this.entityManager.flush();
+        Assertions
+            .assertThat(
+                this.service.archiveJobsFinishedBefore(
+                    job1Finished.plusSeconds(1L),
+                    Instant.EPOCH,
+                    job1Finished.plusSeconds(1L),
+                    10
+                )
+            )
+            .isEqualTo(1L);
+
+        // Ascending order puts the archived job first
+        final List<String> ascendingJobIds = Lists.newArrayList();
+        for (int pageNumber = 0; pageNumber < 3; pageNumber++) {
+            final Page<JobSearchResult> jobs = this.findAllJobs(
+                PageRequest.of(pageNumber, 1, Sort.Direction.ASC, "created")
+            );
+            Assertions.assertThat(jobs.getTotalElements()).isEqualTo(3L);
+            jobs.getContent().forEach(job -> ascendingJobIds.add(job.getId()));
+        }
+        Assertions.assertThat(ascendingJobIds).containsExactly(JOB_1_ID, JOB_2_ID, JOB_3_ID);
+        Assertions
+            .assertThat(this.findAllJobs(PageRequest.of(1, 2, Sort.Direction.ASC, "created")).getContent())
+            .extracting(JobSearchResult::getId)
+            .containsExactly(JOB_3_ID);
+
+        // The archived job started after jobs which are still active
+        Assertions
+            .assertThat(this.findAllJobs(PageRequest.of(0, 10, Sort.Direction.DESC, "started")).getContent())
+            .extracting(JobSearchResult::getId)
+            .containsExactly(JOB_1_ID, JOB_3_ID, JOB_2_ID);
+        Assertions
+            .assertThat(this.findAllJobs(PageRequest.of(0, 2, Sort.Direction.DESC, "started")).getContent())
+            .extracting(JobSearchResult::getId)
+            .containsExactly(JOB_1_ID, JOB_3_ID);
+
+        Assertions
+            .assertThatIllegalArgumentException()
+            .isThrownBy(() -> this.findAllJobs(PageRequest.of(0, 10, Sort.Direction.DESC, "notAProperty")));
+        Assertions
+            .assertThatIllegalArgumentException()
+            .isThrownBy(() -> this.findAllJobs(PageRequest.of(0, 10, Sort.Direction.DESC, "tags")));
+    }
+
     @Test
     @DatabaseSetup("persistence/jobs/init.xml")
     void canSaveAndVerifyJobSubmissionWithoutAttachments() throws IOException, GenieCheckedException {
@@ -729,6 +1087,25 @@ class JpaPersistenceServiceImplJobsIntegrationTest extends JpaPersistenceService
         Assertions.assertThat(jobs.getContent()).isEmpty();
     }
 
+    @Test
+    @DatabaseSetup("persistence/jobs/search.xml")
+    void canFindJobsByCursor() {
+        final List<String> jobIds = Lists.newArrayList();
+        JobSearchResultsPage resultsPage = this.findJobsByCursor(null, true);
+        Assertions.assertThat(resultsPage.getTotalCount()).contains(5L);
+        Assertions.assertThat(resultsPage.getResults()).hasSize(2);
+        resultsPage.getResults().forEach(result -> jobIds.add(result.getId()));
+
+        while (resultsPage.getNextCursor().isPresent()) {
+            resultsPage = this.findJobsByCursor(resultsPage.getNextCursor().get(), false);
+            Assertions.assertThat(resultsPage.getTotalCount()).isNotPresent();
+            resultsPage.getResults().forEach(result -> jobIds.add(result.getId()));
+        }
+
+        // Every job is returned exactly once even though they share the same creation time
+        Assertions.assertThat(jobIds).hasSize(5).doesNotHaveDuplicates();
+    }
+
     @Test
     @DatabaseSetup("persistence/jobs/search.xml")
     void canFindJobsWithTags() {
@@ -1497,4 +1874,48 @@ class JpaPersistenceServiceImplJobsIntegrationTest extends JpaPersistenceService
             .withImages(images)
             .build();
     }
+
+    private Page<JobSearchResult> findAllJobs(final Pageable page) {
+        return this.service.findJobs(
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            page
+        );
+    }
+
+    private JobSearchResultsPage findJobsByCursor(@Nullable final JobSearchCursor cursor, final boolean includeTotal) {
+        return this.service.findJobs(
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            cursor,
+            2,
+            includeTotal
+        );
+    }
 }
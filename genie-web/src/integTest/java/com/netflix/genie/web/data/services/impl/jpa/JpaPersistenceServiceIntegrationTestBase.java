@@ -25,6 +25,7 @@ import com.netflix.genie.web.data.services.impl.jpa.repositories.JpaClusterRepos
 import com.netflix.genie.web.data.services.impl.jpa.repositories.JpaCommandRepository;
 import com.netflix.genie.web.data.services.impl.jpa.repositories.JpaCriterionRepository;
 import com.netflix.genie.web.data.services.impl.jpa.repositories.JpaFileRepository;
+import com.netflix.genie.web.data.services.impl.jpa.repositories.JpaJobHistoryRepository;
 import com.netflix.genie.web.data.services.impl.jpa.repositories.JpaJobRepository;
 import com.netflix.genie.web.data.services.impl.jpa.repositories.JpaTagRepository;
 import com.netflix.genie.web.spring.autoconfigure.ValidationAutoConfiguration;
@@ -87,6 +88,9 @@ class JpaPersistenceServiceIntegrationTestBase {
     @Autowired
     protected JpaJobRepository jobRepository;
 
+    @Autowired
+    protected JpaJobHistoryRepository jobHistoryRepository;
+
     @Autowired
     protected JpaFileRepository fileRepository;
 
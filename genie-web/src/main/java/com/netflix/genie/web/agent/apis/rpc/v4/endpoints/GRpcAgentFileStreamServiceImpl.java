@@ -21,6 +21,7 @@ import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.Striped;
 import com.google.protobuf.ByteString;
 import com.netflix.genie.common.internal.dtos.DirectoryManifest;
 import com.netflix.genie.common.internal.dtos.converters.JobDirectoryManifestProtoConverter;
@@ -31,16 +32,20 @@ import com.netflix.genie.proto.FileStreamServiceGrpc;
 import com.netflix.genie.proto.ServerAckMessage;
 import com.netflix.genie.proto.ServerControlMessage;
 import com.netflix.genie.proto.ServerFileRequestMessage;
+import com.netflix.genie.proto.ServerManifestAckMessage;
 import com.netflix.genie.web.agent.resources.AgentFileResourceImpl;
 import com.netflix.genie.web.agent.services.AgentFileStreamService;
 import com.netflix.genie.web.exceptions.checked.NotFoundException;
 import com.netflix.genie.web.properties.AgentFileStreamProperties;
 import com.netflix.genie.web.util.StreamBuffer;
+import com.netflix.genie.web.util.StreamBufferMemoryBudget;
 import io.grpc.stub.StreamObserver;
 import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.DistributionSummary;
 import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.Getter;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpRange;
 import org.springframework.scheduling.TaskScheduler;
@@ -50,15 +55,20 @@ import javax.naming.LimitExceededException;
 import java.io.InputStream;
 import java.net.URI;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.Date;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Queue;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Lock;
 
 /**
  * {@link AgentFileStreamService} gRPC implementation.
@@ -69,13 +79,22 @@ import java.util.concurrent.atomic.AtomicInteger;
  * Each agent maintains a single "control" bidirectional stream (through the 'sync' RPC method).
  * This stream is used by the agent to regularly push manifests.
  * And it is used by the server to request files.
+ * Manifests are versioned by agents that support it. The server acknowledges each manifest version it applies, which
+ * allows the agent to send subsequent manifests as deltas (added, changed and removed entries) relative to the previous
+ * version. If a delta cannot be applied (e.g. because of a version mismatch), the server requests a full manifest.
  * <p>
  * When a file is requested, the agent opens a separate "transfer" bidirectional stream (through the 'transmit' RPC
- * method) for that file transfer and starts sending chunks (currently one at the time), the server sends
- * acknowledgements in the same stream.
+ * method) for that file transfer and starts sending chunks, the server sends acknowledgements in the same stream.
+ * Agents that advertise support for it are allowed to send multiple chunks ahead of acknowledgements (up to a window
+ * size chosen by the server and included in the file request). Acknowledgements are cumulative: they carry the total
+ * number of chunks received so far. Older agents leave the window unset and send one chunk at the time.
  * <p>
  * This service returns a resource immediately, but maintains a handle on a buffer where data is written as it is
  * received.
+ * <p>
+ * Control streams and transfers are tracked in concurrent maps. Messages sent over the control stream of a given job
+ * are serialized by a lock striped by job id, and each transfer is a small state machine with atomic transitions, so
+ * that traffic for different jobs does not contend on a shared monitor.
  *
  * @author mprimi
  * @since 4.0.0
@@ -93,6 +112,9 @@ public class GRpcAgentFileStreamServiceImpl
     private static final String TRANSFER_TIMEOUT_COUNTER = METRICS_PREFIX + ".timeout.counter";
     private static final String TRANSFER_SIZE_DISTRIBUTION = METRICS_PREFIX + ".transferSize.summary";
     private static final String ACTIVE_TRANSFER_GAUGE = METRICS_PREFIX + ".activeTransfers.size";
+    private static final String BUFFERED_BYTES_GAUGE = METRICS_PREFIX + ".bufferedBytes.size";
+    private static final String BUFFER_STALL_TIMER = METRICS_PREFIX + ".bufferStall.timer";
+    private static final int JOB_LOCK_STRIPES = 64;
 
     private final ControlStreamManager controlStreamsManager;
     private final TransferManager transferManager;
@@ -212,11 +234,13 @@ public class GRpcAgentFileStreamServiceImpl
 
     // Manages control streams, in theory one for each agent connected to this node
     private static final class ControlStreamManager {
-        private final Map<String, ControlStreamObserver> controlStreamMap = Maps.newHashMap();
+        private final Map<String, ControlStreamObserver> controlStreamMap = Maps.newConcurrentMap();
+        // Serializes messages sent over the control stream of a given job, gRPC observers are not thread-safe
+        private final Striped<Lock> jobLocks = Striped.lock(JOB_LOCK_STRIPES);
         private final Cache<String, DirectoryManifest> manifestCache;
         private final JobDirectoryManifestProtoConverter converter;
         private final Counter fileTansferCounter;
-        private final MeterRegistry registry;
+        private final int maxChunksInFlight;
 
         private ControlStreamManager(
             final JobDirectoryManifestProtoConverter converter,
@@ -228,50 +252,87 @@ public class GRpcAgentFileStreamServiceImpl
                 .expireAfterWrite(properties.getManifestCacheExpiration())
                 .build();
             this.fileTansferCounter = registry.counter(TRANSFER_COUNTER);
+            this.maxChunksInFlight = properties.getMaxChunksInFlight();
 
-            this.registry = registry;
+            registry.gauge(MANIFEST_CACHE_SIZE_GAUGE, this.manifestCache, Cache::estimatedSize);
+            registry.gauge(CONTROL_STREAMS_GAUGE, this.controlStreamMap, Map::size);
         }
 
-        private synchronized void requestFile(
+        private void requestFile(
             final String jobId,
             final String fileTransferId,
             final String relativePath,
             final long startOffset,
             final long endOffset
         ) throws NotFoundException, IndexOutOfBoundsException {
+            final Lock lock = this.jobLocks.get(jobId);
+            lock.lock();
+            try {
+                final ControlStreamObserver controlStreamObserver = this.controlStreamMap.get(jobId);
+                if (controlStreamObserver == null) {
+                    throw new NotFoundException("No active stream control stream for job: " + jobId);
+                }
 
-            final ControlStreamObserver controlStreamObserver = this.controlStreamMap.get(jobId);
-            if (controlStreamObserver == null) {
-                throw new NotFoundException("No active stream control stream for job: " + jobId);
-            }
+                this.fileTansferCounter.increment();
 
-            this.fileTansferCounter.increment();
+                if (!controlStreamObserver.allowLargeFiles.get()
+                    && (startOffset > Integer.MAX_VALUE || endOffset > Integer.MAX_VALUE)) {
+                    // Agents that are not marked with 'allowLargeFiles' use a version of the protocol that uses
+                    // int32. They cannot serve file if the range goes beyond the 2GB mark.
+                    // The two casts to int below can potentially overflow, but that is ok because such request will
+                    // only be sent to an agent that ignores those fields.
+                    throw new IndexOutOfBoundsException("Outdated agent does not support ranges beyond the 2GB mark");
+                }
 
+                // Agents that do not support windowing advertise 0 and ignore the field in the request
+                final int negotiatedMaxChunksInFlight = Math.min(
+                    controlStreamObserver.maxChunksInFlight.get(),
+                    this.maxChunksInFlight
+                );
 
-            if (!controlStreamObserver.allowLargeFiles.get()
-                && (startOffset > Integer.MAX_VALUE || endOffset > Integer.MAX_VALUE)) {
-                // Agents that are not marked with 'allowLargeFiles' use a version of the protocol that uses
-                // int32. They cannot serve file if the range goes beyond the 2GB mark.
-                // The two casts to int below can potentially overflow, but that is ok because such request will only
-                // be sent to an agent that ignores those fields.
-                throw new IndexOutOfBoundsException("Outdated agent does not support ranges beyond the 2GB mark");
+                // Send the file request
+                controlStreamObserver.responseObserver.onNext(
+                    ServerControlMessage.newBuilder()
+                        .setServerFileRequest(
+                            ServerFileRequestMessage.newBuilder()
+                                .setStreamId(fileTransferId)
+                                .setRelativePath(relativePath)
+                                .setDeprecatedStartOffset((int) startOffset) // Possible integer overflow
+                                .setDeprecatedEndOffset((int) endOffset) // Possible integer overflow
+                                .setStartOffset(startOffset)
+                                .setEndOffset(endOffset)
+                                .setMaxChunksInFlight(negotiatedMaxChunksInFlight)
+                                .build()
+                        )
+                        .build()
+                );
+            } finally {
+                lock.unlock();
             }
+        }
 
-            // Send the file request
-            controlStreamObserver.responseObserver.onNext(
-                ServerControlMessage.newBuilder()
-                    .setServerFileRequest(
-                        ServerFileRequestMessage.newBuilder()
-                            .setStreamId(fileTransferId)
-                            .setRelativePath(relativePath)
-                            .setDeprecatedStartOffset((int) startOffset) // Possible integer overflow
-                            .setDeprecatedEndOffset((int) endOffset) // Possible integer overflow
-                            .setStartOffset(startOffset)
-                            .setEndOffset(endOffset)
-                            .build()
-                    )
-                    .build()
-            );
+        private void acknowledgeManifest(
+            final ControlStreamObserver controlStreamObserver,
+            final String jobId,
+            final long manifestVersion,
+            final boolean fullManifestRequested
+        ) {
+            final Lock lock = this.jobLocks.get(jobId);
+            lock.lock();
+            try {
+                controlStreamObserver.responseObserver.onNext(
+                    ServerControlMessage.newBuilder()
+                        .setServerManifestAck(
+                            ServerManifestAckMessage.newBuilder()
+                                .setManifestVersion(manifestVersion)
+                                .setFullManifestRequested(fullManifestRequested)
+                                .build()
+                        )
+                        .build()
+                );
+            } finally {
+                lock.unlock();
+            }
         }
 
         private StreamObserver<AgentManifestMessage> handleNewControlStream(
@@ -285,7 +346,7 @@ public class GRpcAgentFileStreamServiceImpl
             return this.manifestCache.getIfPresent(jobId);
         }
 
-        private synchronized void updateManifestAndStream(
+        private void updateManifestAndStream(
             final ControlStreamObserver controlStreamObserver,
             final String jobId,
             final DirectoryManifest manifest
@@ -293,34 +354,54 @@ public class GRpcAgentFileStreamServiceImpl
             // Keep the most recent manifest for each job id
             this.manifestCache.put(jobId, manifest);
 
-            // Keep the most recent control stream for each job id
-            final ControlStreamObserver previousObserver = this.controlStreamMap.put(jobId, controlStreamObserver);
-            if (previousObserver != null && previousObserver != controlStreamObserver) {
-                // If the older one is still present, close it
-                previousObserver.closeStreamWithError(
-                    new IllegalStateException("A new stream was registered for the same job id: " + jobId)
-                );
+            // Most of the time the stream is already registered, avoid locking in that case
+            if (this.controlStreamMap.get(jobId) == controlStreamObserver) {
+                return;
             }
 
-            this.registry.gauge(MANIFEST_CACHE_SIZE_GAUGE, this.manifestCache.estimatedSize());
-            this.registry.gauge(CONTROL_STREAMS_GAUGE, this.controlStreamMap.size());
+            final Lock lock = this.jobLocks.get(jobId);
+            lock.lock();
+            try {
+                // Keep the most recent control stream for each job id
+                final ControlStreamObserver previousObserver = this.controlStreamMap.put(jobId, controlStreamObserver);
+                if (previousObserver != null && previousObserver != controlStreamObserver) {
+                    // If the older one is still present, close it
+                    previousObserver.closeStreamWithError(
+                        new IllegalStateException("A new stream was registered for the same job id: " + jobId)
+                    );
+                }
+            } finally {
+                lock.unlock();
+            }
         }
 
-        private synchronized void removeControlStream(
+        private void removeControlStream(
             final ControlStreamObserver controlStreamObserver,
             @Nullable final Throwable t
         ) {
             log.debug("Control stream {}", t == null ? "completed" : "error: " + t.getMessage());
 
-            final boolean foundAndRemoved = this.controlStreamMap
-                .entrySet()
-                .removeIf(entry -> entry.getValue() == controlStreamObserver);
+            final String jobId = controlStreamObserver.jobId.get();
+            if (jobId == null) {
+                // Never sent a manifest, so it was never registered
+                return;
+            }
 
-            if (foundAndRemoved) {
-                log.debug(
-                    "Removed a control stream due to {}",
-                    t == null ? "completion" : "error: " + t.getMessage()
-                );
+            final Lock lock = this.jobLocks.get(jobId);
+            lock.lock();
+            try {
+                final boolean foundAndRemoved = this.controlStreamMap.remove(jobId, controlStreamObserver);
+                if (foundAndRemoved) {
+                    log.debug(
+                        "Removed a control stream due to {}",
+                        t == null ? "completion" : "error: " + t.getMessage()
+                    );
+                }
+                if (t == null) {
+                    controlStreamObserver.responseObserver.onCompleted();
+                }
+            } finally {
+                lock.unlock();
             }
         }
     }
@@ -329,6 +410,12 @@ public class GRpcAgentFileStreamServiceImpl
         private final ControlStreamManager controlStreamManager;
         private final StreamObserver<ServerControlMessage> responseObserver;
         private final AtomicBoolean allowLargeFiles = new AtomicBoolean(false);
+        private final AtomicInteger maxChunksInFlight = new AtomicInteger(0);
+        private final AtomicReference<String> jobId = new AtomicReference<>();
+        // Only accessed by onNext, which gRPC never invokes concurrently for a given stream
+        private DirectoryManifest lastManifest;
+        private long lastManifestVersion;
+        private boolean fullManifestRequested;
 
         private ControlStreamObserver(
             final ControlStreamManager controlStreamManager,
@@ -343,21 +430,62 @@ public class GRpcAgentFileStreamServiceImpl
          */
         @Override
         public void onNext(final AgentManifestMessage value) {
-            final String jobId = value.getJobId();
+            final String messageJobId = value.getJobId();
             this.allowLargeFiles.set(value.getLargeFilesSupported());
+            this.maxChunksInFlight.set(value.getMaxChunksInFlight());
 
             DirectoryManifest manifest = null;
-            try {
-                manifest = this.controlStreamManager.converter.toManifest(value);
-            } catch (GenieConversionException e) {
-                log.warn("Failed to parse manifest for job id: {}", jobId, e);
+            if (value.hasManifestDelta()) {
+                manifest = this.applyManifestDelta(messageJobId, value);
+            } else {
+                try {
+                    manifest = this.controlStreamManager.converter.toManifest(value);
+                } catch (GenieConversionException e) {
+                    log.warn("Failed to parse manifest for job id: {}", messageJobId, e);
+                }
             }
 
             if (manifest != null) {
-                this.controlStreamManager.updateManifestAndStream(this, jobId, manifest);
+                this.lastManifest = manifest;
+                this.lastManifestVersion = value.getManifestVersion();
+                this.fullManifestRequested = false;
+                this.jobId.set(messageJobId);
+                this.controlStreamManager.updateManifestAndStream(this, messageJobId, manifest);
+                if (this.lastManifestVersion > 0) {
+                    // Let the agent know this server can reconstruct manifests from deltas
+                    this.controlStreamManager.acknowledgeManifest(this, messageJobId, this.lastManifestVersion, false);
+                }
             }
         }
 
+        @Nullable
+        private DirectoryManifest applyManifestDelta(final String messageJobId, final AgentManifestMessage value) {
+            if (this.fullManifestRequested) {
+                // Already waiting for a full manifest, deltas sent in the meantime are useless
+                return null;
+            }
+
+            final long baseManifestVersion = value.getManifestDelta().getBaseManifestVersion();
+            if (this.lastManifest != null && this.lastManifestVersion == baseManifestVersion) {
+                try {
+                    return this.controlStreamManager.converter.applyManifestDelta(this.lastManifest, value);
+                } catch (GenieConversionException e) {
+                    log.warn("Failed to apply manifest delta for job id: {}", messageJobId, e);
+                }
+            } else {
+                log.warn(
+                    "Received manifest delta for job id: {} based on version {}, but latest version is {}",
+                    messageJobId,
+                    baseManifestVersion,
+                    this.lastManifestVersion
+                );
+            }
+
+            this.fullManifestRequested = true;
+            this.controlStreamManager.acknowledgeManifest(this, messageJobId, this.lastManifestVersion, true);
+            return null;
+        }
+
         /**
          * {@inheritDoc}
          */
@@ -373,8 +501,11 @@ public class GRpcAgentFileStreamServiceImpl
         @Override
         public void onCompleted() {
             // Drop the stream, no other actions necessary
-            this.controlStreamManager.removeControlStream(this, null);
-            this.responseObserver.onCompleted();
+            if (this.jobId.get() == null) {
+                this.responseObserver.onCompleted();
+            } else {
+                this.controlStreamManager.removeControlStream(this, null);
+            }
         }
 
         public void closeStreamWithError(final Throwable e) {
@@ -384,8 +515,9 @@ public class GRpcAgentFileStreamServiceImpl
 
     // Manages in-progress file transfers
     private static final class TransferManager {
-        private final Map<String, FileTransfer> activeTransfers = Maps.newHashMap();
-        private final Set<AgentFileChunkObserver> unclaimedTransferStreams = Sets.newHashSet();
+        private final Map<String, FileTransfer> activeTransfers = Maps.newConcurrentMap();
+        private final Set<AgentFileChunkObserver> unclaimedTransferStreams = Sets.newConcurrentHashSet();
+        private final AtomicInteger activeTransfersCount = new AtomicInteger();
         // Little hack to get private inner class
         private final Class<? extends HttpRange> suffixRangeClass = HttpRange.createSuffixRange(1).getClass();
         private final ControlStreamManager controlStreamsManager;
@@ -393,7 +525,8 @@ public class GRpcAgentFileStreamServiceImpl
         private final AgentFileStreamProperties properties;
         private final Counter transferTimeOutCounter;
         private final DistributionSummary transferSizeDistribution;
-        private final MeterRegistry registry;
+        private final Timer bufferStallTimer;
+        private final StreamBufferMemoryBudget memoryBudget;
 
         private TransferManager(
             final ControlStreamManager controlStreamsManager,
@@ -404,9 +537,12 @@ public class GRpcAgentFileStreamServiceImpl
             this.controlStreamsManager = controlStreamsManager;
             this.taskScheduler = taskScheduler;
             this.properties = properties;
-            this.registry = registry;
             this.transferTimeOutCounter = registry.counter(TRANSFER_TIMEOUT_COUNTER);
             this.transferSizeDistribution = registry.summary(TRANSFER_SIZE_DISTRIBUTION);
+            this.bufferStallTimer = registry.timer(BUFFER_STALL_TIMER);
+            this.memoryBudget = new StreamBufferMemoryBudget(properties.getMaxTotalBufferSize().toBytes());
+            registry.gauge(BUFFERED_BYTES_GAUGE, this.memoryBudget, StreamBufferMemoryBudget::getReservedBytes);
+            registry.gauge(ACTIVE_TRANSFER_GAUGE, this.activeTransfers, Map::size);
 
             this.taskScheduler.scheduleAtFixedRate(
                 this::reapStalledTransfers,
@@ -414,42 +550,31 @@ public class GRpcAgentFileStreamServiceImpl
             );
         }
 
-        private synchronized void reapStalledTransfers() {
-            final AtomicInteger stalledTrasfersCounter = new AtomicInteger();
+        private void reapStalledTransfers() {
+            int stalledTransfersCount = 0;
             final Instant now = Instant.now();
             // Iterate active transfers, shut down and remove the ones that are not making progress
-            this.activeTransfers.entrySet().removeIf(
-                entry -> {
-                    final String transferId = entry.getKey();
-                    final FileTransfer transfer = entry.getValue();
-                    final Instant deadline =
-                        transfer.lastAckTimestamp.plus(this.properties.getStalledTransferTimeout());
-                    if (now.isAfter(deadline)) {
-                        stalledTrasfersCounter.incrementAndGet();
-                        log.warn("Transfer {} is stalled of job {}, shutting it down", transferId,
-                            entry.getValue().jobId);
-                        final TimeoutException exception = new TimeoutException("Transfer not making progress");
-                        // Shut down stream, if one was associated to this transfer
-                        final AgentFileChunkObserver observer = transfer.getAgentFileChunkObserver();
-                        if (observer != null) {
-                            observer.getResponseObserver().onError(exception);
-                        }
-                        // Close the buffer
-                        transfer.closeWithError(exception);
-                        // Remove from active transfers
-                        return true;
-                    } else {
-                        // Do not remove from active, made progress recently enough.
-                        return false;
-                    }
+            for (final FileTransfer transfer : this.activeTransfers.values()) {
+                final Instant deadline =
+                    transfer.getLastAckTimestamp().plus(this.properties.getStalledTransferTimeout());
+                if (now.isAfter(deadline) && this.removeActiveTransfer(transfer)) {
+                    stalledTransfersCount++;
+                    log.warn(
+                        "Transfer {} is stalled of job {}, shutting it down",
+                        transfer.getTransferId(),
+                        transfer.jobId
+                    );
+                    // Shut down stream (if one was associated to this transfer) and close the buffer
+                    transfer.terminate(new TimeoutException("Transfer not making progress"));
+                    this.bufferStallTimer.record(transfer.getBufferStallTime());
                 }
-            );
+                // Otherwise it made progress recently enough, or another thread already removed it
+            }
 
-            this.transferTimeOutCounter.increment(stalledTrasfersCounter.get());
-            this.registry.gauge(ACTIVE_TRANSFER_GAUGE, this.activeTransfers.size());
+            this.transferTimeOutCounter.increment(stalledTransfersCount);
         }
 
-        private synchronized FileTransfer startFileTransfer(
+        private FileTransfer startFileTransfer(
             final String jobId,
             final DirectoryManifest.ManifestEntry manifestEntry,
             final Path relativePath,
@@ -464,12 +589,6 @@ public class GRpcAgentFileStreamServiceImpl
                 jobId
             );
 
-            // No need to use a semaphore since class is synchronized
-            if (this.activeTransfers.size() >= properties.getMaxConcurrentTransfers()) {
-                log.warn("Rejecting request for {}:{}, too many active transfers", jobId, relativePath);
-                throw new LimitExceededException("Too many concurrent downloads");
-            }
-
             final long fileSize = manifestEntry.getSize();
 
             // Http range is inclusive, agent protocol is not.
@@ -490,8 +609,30 @@ public class GRpcAgentFileStreamServiceImpl
 
             log.debug("Transfer {} effective range {}-{}: of job: {} ", fileTransferId, startOffset, endOffset, jobId);
 
+            if (!this.tryReserveTransferSlot()) {
+                log.warn("Rejecting request for {}:{}, too many active transfers", jobId, relativePath);
+                throw new LimitExceededException("Too many concurrent downloads");
+            }
+
+            this.transferSizeDistribution.record(endOffset - startOffset);
+
+            if (endOffset - startOffset == 0) {
+                log.debug("Transfer {} is empty, completing of job: {}", fileTransferId, jobId);
+                // When requesting an empty file (or a range of 0 bytes), short-circuit and just return an empty
+                // buffer, without tracking it as active transfer.
+                this.activeTransfersCount.decrementAndGet();
+                final StreamBuffer buffer = new StreamBuffer(startOffset);
+                buffer.closeForCompleted();
+                return new FileTransfer(fileTransferId, jobId, relativePath, startOffset, endOffset, fileSize, buffer);
+            }
+
             // Allocate and park the buffer that will store the data in transit.
-            final StreamBuffer buffer = new StreamBuffer(startOffset);
+            final StreamBuffer buffer = new StreamBuffer(
+                startOffset,
+                this.properties.getMaxChunksInFlight(),
+                this.properties.getMaxTransferBufferSize().toBytes(),
+                this.memoryBudget
+            );
 
             // Create a file transfer
             final FileTransfer fileTransfer = new FileTransfer(
@@ -504,46 +645,59 @@ public class GRpcAgentFileStreamServiceImpl
                 buffer
             );
 
-            this.transferSizeDistribution.record(endOffset - startOffset);
+            log.debug("Tracking new transfer {} of job: {}", fileTransferId, jobId);
+            // Expecting some data. Track this stream and its buffer so incoming chunks can be appended.
+            this.activeTransfers.put(fileTransferId, fileTransfer);
 
-            if (endOffset - startOffset == 0) {
-                log.debug("Transfer {} is empty, completing of job: {}", fileTransferId, jobId);
-                // When requesting an empty file (or a range of 0 bytes), short-circuit and just return an empty
-                // buffer, without tracking it as active transfer.
-                buffer.closeForCompleted();
-            } else {
-                log.debug("Tracking new transfer {} of job: {}", fileTransferId, jobId);
-                // Expecting some data. Track this stream and its buffer so incoming chunks can be appended.
-                this.activeTransfers.put(fileTransferId, fileTransfer);
+            log.debug("Requesting start of transfer {} of job: {}", fileTransferId, jobId);
+            // Request file over control channel
+            try {
+                this.controlStreamsManager.requestFile(
+                    jobId,
+                    fileTransferId,
+                    relativePath.toString(),
+                    startOffset,
+                    endOffset
+                );
+            } catch (IndexOutOfBoundsException | NotFoundException e) {
+                log.error(
+                    "Failed to request file {}:{}, terminating transfer {}: {}",
+                    jobId,
+                    relativePath,
+                    fileTransferId,
+                    e.getMessage()
+                );
+                this.removeActiveTransfer(fileTransfer);
+                fileTransfer.closeWithError(e);
+                throw e;
+            }
 
-                log.debug("Requesting start of transfer {} of job: {}", fileTransferId, jobId);
-                // Request file over control channel
-                try {
-                    this.controlStreamsManager.requestFile(
-                        jobId,
-                        fileTransferId,
-                        relativePath.toString(),
-                        startOffset,
-                        endOffset
-                    );
-                } catch (IndexOutOfBoundsException | NotFoundException e) {
-                    log.error(
-                        "Failed to request file {}:{}, terminating transfer {}: {}",
-                        jobId,
-                        relativePath,
-                        fileTransferId,
-                        e.getMessage()
-                    );
-                    this.activeTransfers.remove(fileTransferId, fileTransfer);
-                    buffer.closeForError(e);
-                    throw e;
+            return fileTransfer;
+        }
+
+        private boolean tryReserveTransferSlot() {
+            final int maxConcurrentTransfers = this.properties.getMaxConcurrentTransfers();
+            while (true) {
+                final int current = this.activeTransfersCount.get();
+                if (current >= maxConcurrentTransfers) {
+                    return false;
+                }
+                if (this.activeTransfersCount.compareAndSet(current, current + 1)) {
+                    return true;
                 }
             }
+        }
 
-            return fileTransfer;
+        // Returns true if the transfer was removed by this call (at most one caller succeeds for each transfer)
+        private boolean removeActiveTransfer(final FileTransfer fileTransfer) {
+            final boolean removed = this.activeTransfers.remove(fileTransfer.getTransferId(), fileTransfer);
+            if (removed) {
+                this.activeTransfersCount.decrementAndGet();
+            }
+            return removed;
         }
 
-        private synchronized StreamObserver<AgentFileMessage> handleNewTransferStream(
+        private StreamObserver<AgentFileMessage> handleNewTransferStream(
             final StreamObserver<ServerAckMessage> responseObserver
         ) {
             log.info("New file transfer stream established");
@@ -562,7 +716,7 @@ public class GRpcAgentFileStreamServiceImpl
             return agentFileChunkObserver;
         }
 
-        private synchronized void handleUnclaimedStreamTimeout(final AgentFileChunkObserver agentFileChunkObserver) {
+        private void handleUnclaimedStreamTimeout(final AgentFileChunkObserver agentFileChunkObserver) {
             final boolean streamUnclaimed = this.unclaimedTransferStreams.remove(agentFileChunkObserver);
             if (streamUnclaimed) {
                 // If found in the unclaimed set, this stream did not send any message yet, shut down the stream
@@ -574,7 +728,7 @@ public class GRpcAgentFileStreamServiceImpl
             }
         }
 
-        private synchronized void handleFileChunk(
+        private void handleFileChunk(
             final String transferStreamId,
             final AgentFileChunkObserver agentFileChunkObserver,
             final ByteString data
@@ -586,34 +740,45 @@ public class GRpcAgentFileStreamServiceImpl
                 if (unclaimedStream) {
                     // There is a transfer pending, and this stream just sent the first chunk of data
                     // Associate the stream to the file transfer
-                    fileTransfer.claimStreamObserver(agentFileChunkObserver);
+                    if (fileTransfer.claimStreamObserver(agentFileChunkObserver)) {
+                        agentFileChunkObserver.setFileTransfer(fileTransfer);
+                    } else {
+                        log.warn("Transfer {} was already claimed by a different stream", transferStreamId);
+                        return;
+                    }
                 }
 
-                // Write and ack in a different thread, to avoid locking this during a potentially blocking operation
-                this.taskScheduler.schedule(
-                    () -> this.writeDataAndAck(fileTransfer, data),
-                    new Date() // Ack: use date rather than instant to make the distinction easier in tests
-                );
+                // Chunks are queued and written in order of arrival by a single task at the time
+                if (fileTransfer.enqueue(data)) {
+                    // Write and ack in a different thread, to avoid blocking the gRPC thread during a potentially
+                    // blocking operation
+                    this.taskScheduler.schedule(
+                        () -> this.writeDataAndAck(fileTransfer),
+                        new Date() // Ack: use date rather than instant to make the distinction easier in tests
+                    );
+                }
 
             } else {
                 log.warn("Received a chunk for a transfer no longer in progress: {}", transferStreamId);
             }
         }
 
-        private synchronized void removeTransferStream(
+        private void removeTransferStream(
             final AgentFileChunkObserver agentFileChunkObserver,
             @Nullable final Throwable t
         ) {
             log.info("Removing file transfer: {}", t == null ? "completed" : t.getMessage());
             // Received error or completion on a transfer stream.
-            final FileTransfer fileTransfer = this.findFileTransfer(agentFileChunkObserver);
+            final FileTransfer fileTransfer = agentFileChunkObserver.getFileTransfer();
             if (fileTransfer != null) {
                 // Transfer is no longer active, remove it
-                final boolean removed = this.activeTransfers.remove(fileTransfer.getTransferId(), fileTransfer);
-                if (removed && t == null) {
-                    fileTransfer.close();
-                } else if (removed) {
-                    fileTransfer.closeWithError(t);
+                if (this.removeActiveTransfer(fileTransfer)) {
+                    if (t == null) {
+                        fileTransfer.close();
+                    } else {
+                        fileTransfer.closeWithError(t);
+                    }
+                    this.bufferStallTimer.record(fileTransfer.getBufferStallTime());
                 }
                 // If not removed, another thread already got to it, for example due to timeout. Nothing to do
             } else {
@@ -623,32 +788,28 @@ public class GRpcAgentFileStreamServiceImpl
             }
         }
 
-        private synchronized FileTransfer findFileTransfer(final AgentFileChunkObserver agentFileChunkObserver) {
-            // Find a transfer by iterating over the active ones.
-            // Could keep a map indexed by observers, but this should be fine since it's only called when a stream
-            // terminates.
-            for (final FileTransfer fileTransfer : this.activeTransfers.values()) {
-                if (fileTransfer.getAgentFileChunkObserver() == agentFileChunkObserver) {
-                    return fileTransfer;
-                }
-            }
-            return null;
-        }
-
-        // N.B. this should not synchronized to avoid locking up the transfer manager
-        private void writeDataAndAck(final FileTransfer fileTransfer, final ByteString data) {
+        private void writeDataAndAck(final FileTransfer fileTransfer) {
             final String fileTransferId = fileTransfer.getTransferId();
             try {
-                // Try to write. May fail if buffer consumer is slow and buffer is not drained yet.
-                if (fileTransfer.append(data)) {
-                    log.debug("Wrote chunk of transfer {} to buffer. Sending ack", fileTransferId);
+                // Try to write. May stop early if buffer consumer is slow and buffer is not drained yet.
+                final int chunksWritten = fileTransfer.writePendingChunks();
+                if (chunksWritten > 0) {
+                    log.debug("Wrote {} chunks of transfer {} to buffer. Sending ack", chunksWritten, fileTransferId);
                     fileTransfer.sendAck();
-                } else {
+                }
+
+                if (chunksWritten == 0 && fileTransfer.hasPendingChunks()) {
                     // Try again in a little bit
                     this.taskScheduler.schedule(
-                        () -> this.writeDataAndAck(fileTransfer, data),
+                        () -> this.writeDataAndAck(fileTransfer),
                         Instant.now().plus(this.properties.getWriteRetryDelay())
                     );
+                } else if (fileTransfer.hasPendingChunks() || fileTransfer.releaseWriter()) {
+                    // More chunks arrived in the meantime
+                    this.taskScheduler.schedule(
+                        () -> this.writeDataAndAck(fileTransfer),
+                        new Date()
+                    );
                 }
             } catch (IllegalStateException e) {
                 // Eventually retries will stop because the transfer times out due to lack of progress
@@ -657,16 +818,23 @@ public class GRpcAgentFileStreamServiceImpl
         }
     }
 
+    // State of each transfer is only modified through atomic transitions, the response observer is only used while
+    // holding the transfer monitor (gRPC observers are not thread-safe)
     private static final class FileTransfer {
         private final String jobId;
         @Getter
         private final String transferId;
         private final StreamBuffer buffer;
         private final String description;
+        private final Queue<ByteString> pendingChunks = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean writing = new AtomicBoolean(false);
+        private final AtomicReference<State> state = new AtomicReference<>(State.NEW);
         @Getter
-        private AgentFileChunkObserver agentFileChunkObserver;
-        private State state = State.NEW;
-        private Instant lastAckTimestamp;
+        private volatile AgentFileChunkObserver agentFileChunkObserver;
+        @Getter
+        private volatile Instant lastAckTimestamp;
+        // Only accessed by the task currently writing
+        private long chunksReceived;
 
         private FileTransfer(
             final String transferId,
@@ -688,35 +856,95 @@ public class GRpcAgentFileStreamServiceImpl
 
         @Override
         public String toString() {
-            return "" + this.state + " " + this.description;
+            return "" + this.state.get() + " " + this.description;
         }
 
-        private void claimStreamObserver(final AgentFileChunkObserver observer) {
-            this.state = State.IN_PROGRESS;
-            this.agentFileChunkObserver = observer;
+        private boolean claimStreamObserver(final AgentFileChunkObserver observer) {
+            if (this.state.compareAndSet(State.NEW, State.IN_PROGRESS)) {
+                this.agentFileChunkObserver = observer;
+                return true;
+            }
+            return false;
         }
 
         private InputStream getInputStream() {
             return this.buffer.getInputStream();
         }
 
-        private boolean append(final ByteString data) {
-            return buffer.tryWrite(data);
+        // Returns true if the caller is responsible for scheduling a write of the pending chunks
+        private boolean enqueue(final ByteString data) {
+            this.pendingChunks.add(data);
+            return this.writing.compareAndSet(false, true);
+        }
+
+        private int writePendingChunks() {
+            int chunksWritten = 0;
+            ByteString data = this.pendingChunks.peek();
+            while (data != null && this.buffer.tryWrite(data)) {
+                this.pendingChunks.remove();
+                chunksWritten++;
+                data = this.pendingChunks.peek();
+            }
+            this.chunksReceived += chunksWritten;
+            return chunksWritten;
+        }
+
+        private Duration getBufferStallTime() {
+            return this.buffer.getStallTime();
+        }
+
+        private boolean hasPendingChunks() {
+            return !this.pendingChunks.isEmpty();
+        }
+
+        // Returns true if a chunk was queued after the last write, and the caller is still responsible for writing it
+        private boolean releaseWriter() {
+            this.writing.set(false);
+            return this.hasPendingChunks() && this.writing.compareAndSet(false, true);
+        }
+
+        private boolean transitionToFinalState(final State finalState) {
+            State current = this.state.get();
+            while (current == State.NEW || current == State.IN_PROGRESS) {
+                if (this.state.compareAndSet(current, finalState)) {
+                    return true;
+                }
+                current = this.state.get();
+            }
+            return false;
         }
 
         private void closeWithError(final Throwable t) {
-            this.state = State.FAILED;
+            this.transitionToFinalState(State.FAILED);
             this.buffer.closeForError(t);
         }
 
         private void close() {
-            this.state = State.COMPLETED;
+            this.transitionToFinalState(State.COMPLETED);
             this.buffer.closeForCompleted();
         }
 
-        private void sendAck() {
+        private synchronized void terminate(final Throwable t) {
+            final AgentFileChunkObserver observer = this.agentFileChunkObserver;
+            if (this.transitionToFinalState(State.FAILED) && observer != null) {
+                observer.getResponseObserver().onError(t);
+            }
+            this.buffer.closeForError(t);
+        }
+
+        private synchronized void completeStream() {
+            this.getAgentFileChunkObserver().getResponseObserver().onCompleted();
+        }
+
+        private synchronized void sendAck() {
+            if (this.state.get() != State.IN_PROGRESS) {
+                // Stream was already shut down
+                return;
+            }
             this.getAgentFileChunkObserver().getResponseObserver().onNext(
-                ServerAckMessage.newBuilder().build()
+                ServerAckMessage.newBuilder()
+                    .setAcknowledgedChunks(this.chunksReceived)
+                    .build()
             );
             this.lastAckTimestamp = Instant.now();
         }
@@ -733,6 +961,9 @@ public class GRpcAgentFileStreamServiceImpl
         private final TransferManager transferManager;
         @Getter
         private final StreamObserver<ServerAckMessage> responseObserver;
+        @Getter
+        @Setter
+        private volatile FileTransfer fileTransfer;
 
         AgentFileChunkObserver(
             final TransferManager transferManager,
@@ -766,7 +997,13 @@ public class GRpcAgentFileStreamServiceImpl
         @Override
         public void onCompleted() {
             this.transferManager.removeTransferStream(this, null);
-            this.responseObserver.onCompleted();
+            final FileTransfer transfer = this.fileTransfer;
+            if (transfer != null) {
+                // Avoid racing with an acknowledgement being sent
+                transfer.completeStream();
+            } else {
+                this.responseObserver.onCompleted();
+            }
         }
     }
 }
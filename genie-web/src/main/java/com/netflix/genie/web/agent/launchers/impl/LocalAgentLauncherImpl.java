@@ -29,6 +29,7 @@ import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import com.netflix.genie.common.internal.dtos.JobMetadata;
+import com.netflix.genie.common.internal.jobs.JobConstants;
 import com.netflix.genie.common.internal.tracing.brave.BraveTracePropagator;
 import com.netflix.genie.common.internal.tracing.brave.BraveTracingComponents;
 import com.netflix.genie.web.agent.launchers.AgentLauncher;
@@ -49,21 +50,28 @@ import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.exec.CommandLine;
 import org.apache.commons.exec.DefaultExecuteResultHandler;
 import org.apache.commons.exec.ExecuteException;
+import org.apache.commons.exec.ExecuteWatchdog;
 import org.apache.commons.exec.Executor;
 import org.apache.commons.exec.PumpStreamHandler;
 import org.apache.commons.lang3.SystemUtils;
 import org.springframework.boot.actuate.health.Health;
+import org.springframework.scheduling.TaskScheduler;
 
 import javax.annotation.Nullable;
+import javax.annotation.PreDestroy;
 import javax.validation.Valid;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -92,6 +100,11 @@ public class LocalAgentLauncherImpl implements AgentLauncher {
     private static final String THIS_CLASS = LocalAgentLauncherImpl.class.getCanonicalName();
     private static final Tag CLASS_TAG = Tag.of(LAUNCHER_CLASS_KEY, THIS_CLASS);
     private static final long DEFAULT_JOB_MEMORY = 1_536L;
+    private static final String STANDBY_HIT_COUNTER = "genie.agents.launchers.local.standby.hit.counter";
+    private static final String STANDBY_COLD_START_COUNTER = "genie.agents.launchers.local.standby.coldStart.counter";
+    // Weight of the latest interval in the launch rate average driving the standby pool size. Low enough that the
+    // average of a single burst takes several quiet intervals to decay.
+    private static final double STANDBY_LAUNCH_RATE_WEIGHT = 0.25;
 
     private final String hostname;
     private final PersistenceService persistenceService;
@@ -109,6 +122,12 @@ public class LocalAgentLauncherImpl implements AgentLauncher {
     private final Tracer tracer;
     private final BraveTracePropagator tracePropagator;
 
+    private final StandbyAgentPool standbyPool;
+    private final ScheduledFuture<?> standbyPoolRefreshFuture;
+    private final AtomicLong standbyAgentCounter = new AtomicLong();
+    private final AtomicLong recentLaunches = new AtomicLong();
+    private double launchRate;
+
     /**
      * Constructor.
      *
@@ -129,6 +148,42 @@ public class LocalAgentLauncherImpl implements AgentLauncher {
         final ExecutorFactory executorFactory,
         final BraveTracingComponents tracingComponents,
         final MeterRegistry registry
+    ) {
+        this(
+            hostInfo,
+            rpcInfo,
+            dataServices,
+            launcherProperties,
+            executorFactory,
+            tracingComponents,
+            registry,
+            null
+        );
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param hostInfo           The {@link GenieWebHostInfo} instance
+     * @param rpcInfo            The {@link GenieWebRpcInfo} instance
+     * @param dataServices       The {@link DataServices} encapsulation instance to use
+     * @param launcherProperties The properties from the configuration that control agent behavior
+     * @param executorFactory    A {@link ExecutorFactory} to create {@link org.apache.commons.exec.Executor}
+     *                           instances
+     * @param tracingComponents  The {@link BraveTracingComponents} instance to use
+     * @param registry           Metrics repository
+     * @param taskScheduler      The {@link TaskScheduler} used to resize the standby agent pool. The pool is disabled
+     *                           if {@literal null}
+     */
+    public LocalAgentLauncherImpl(
+        final GenieWebHostInfo hostInfo,
+        final GenieWebRpcInfo rpcInfo,
+        final DataServices dataServices,
+        final LocalAgentLauncherProperties launcherProperties,
+        final ExecutorFactory executorFactory,
+        final BraveTracingComponents tracingComponents,
+        final MeterRegistry registry,
+        @Nullable final TaskScheduler taskScheduler
     ) {
         this.hostname = hostInfo.getHostname();
         this.rpcPort = rpcInfo.getRpcPort();
@@ -193,6 +248,21 @@ public class LocalAgentLauncherImpl implements AgentLauncher {
         } catch (final Exception e) {
             log.error("Unable to fetch initial job information", e);
         }
+
+        if (!this.launcherProperties.isStandbyPoolEnabled()) {
+            this.standbyPool = null;
+            this.standbyPoolRefreshFuture = null;
+        } else if (this.launcherProperties.isRunAsUserEnabled() || taskScheduler == null) {
+            log.warn("Standby agent pool is disabled as agents run as the job user or no task scheduler is available");
+            this.standbyPool = null;
+            this.standbyPoolRefreshFuture = null;
+        } else {
+            this.standbyPool = new StandbyAgentPool(this::startStandbyAgent, this.registry);
+            this.standbyPoolRefreshFuture = taskScheduler.scheduleAtFixedRate(
+                this::refreshStandbyPool,
+                this.launcherProperties.getStandbyPoolRefreshInterval()
+            );
+        }
     }
 
     /**
@@ -254,7 +324,12 @@ public class LocalAgentLauncherImpl implements AgentLauncher {
             // One at a time to ensure we don't overflow configured max
             synchronized (MEMORY_CHECK_LOCK) {
                 final long usedMemoryOnHost = this.persistenceService.getUsedMemoryOnHost(this.hostname);
-                final long expectedUsedMemoryOnHost = usedMemoryOnHost + jobMemory;
+                // This job may be handed one of the standby agents so only the memory of the others is reserved
+                final long standbyMemoryOnHost = Math.max(
+                    0L,
+                    this.getStandbyAgentsMemory() - this.launcherProperties.getStandbyAgentMemory()
+                );
+                final long expectedUsedMemoryOnHost = usedMemoryOnHost + standbyMemoryOnHost + jobMemory;
                 if (expectedUsedMemoryOnHost > this.launcherProperties.getMaxTotalJobMemory()) {
                     throw new AgentLaunchException(
                         "Running job "
@@ -265,15 +340,26 @@ public class LocalAgentLauncherImpl implements AgentLauncher {
                             + this.launcherProperties.getMaxTotalJobMemory()
                             + "MB. "
                             + usedMemoryOnHost
-                            + "MB worth of jobs are currently running on this node."
+                            + "MB worth of jobs are currently running on this node and "
+                            + standbyMemoryOnHost
+                            + "MB are held by standby agents."
                     );
                 }
             }
 
-            // Inherit server environment
-            final Map<String, String> environment = Maps.newHashMap(System.getenv());
-            // Add extra environment from configuration, if any
-            environment.putAll(this.launcherProperties.getAdditionalEnvironment());
+            if (this.standbyPool != null) {
+                this.recentLaunches.incrementAndGet();
+                // Standby agents started before this job's trace existed so they report under a trace of their own
+                final Optional<StandbyAgentPool.StandbyAgent> standbyAgent = this.standbyPool.take();
+                if (standbyAgent.isPresent() && standbyAgent.get().assign(jobId)) {
+                    this.registry.counter(STANDBY_HIT_COUNTER).increment();
+                    MetricsUtils.addSuccessTags(tags);
+                    return Optional.of(this.launcherExt);
+                }
+                this.registry.counter(STANDBY_COLD_START_COUNTER).increment();
+            }
+
+            final Map<String, String> environment = this.createEnvironment();
             // Add tracing context so agent continues trace
             final Span currentSpan = this.tracer.currentSpan();
             if (currentSpan != null) {
@@ -345,7 +431,9 @@ public class LocalAgentLauncherImpl implements AgentLauncher {
         // Use allocated memory to make the host go OOS early enough that we don't throw as many exceptions on
         // accepted jobs during launch
         final long memoryAllocated = jobInfo.getTotalMemoryAllocated();
-        final long availableMemory = this.launcherProperties.getMaxTotalJobMemory() - memoryAllocated;
+        final long availableMemory = this.launcherProperties.getMaxTotalJobMemory()
+            - memoryAllocated
+            - this.getStandbyAgentsMemory();
         final long maxJobMemory = this.launcherProperties.getMaxJobMemory();
 
         final Health.Builder builder;
@@ -368,6 +456,109 @@ public class LocalAgentLauncherImpl implements AgentLauncher {
             .build();
     }
 
+    /**
+     * Stop the standby agent pool, if any. Agents already handed a job are not affected.
+     */
+    @PreDestroy
+    public void shutdown() {
+        if (this.standbyPoolRefreshFuture != null) {
+            this.standbyPoolRefreshFuture.cancel(false);
+        }
+        if (this.standbyPool != null) {
+            this.standbyPool.close();
+        }
+    }
+
+    @VisibleForTesting
+    void refreshStandbyPool() {
+        // Exponentially weighted so a burst keeps agents warm for a few intervals without pinning the pool at its max
+        this.launchRate = STANDBY_LAUNCH_RATE_WEIGHT * this.recentLaunches.getAndSet(0L)
+            + (1 - STANDBY_LAUNCH_RATE_WEIGHT) * this.launchRate;
+
+        final JobInfoAggregate jobInfo;
+        try {
+            jobInfo = this.jobInfoCache.get(this.hostname);
+        } catch (final Exception e) {
+            log.error("Unable to get host job information, leaving standby pool as is", e);
+            return;
+        }
+        if (jobInfo == null) {
+            return;
+        }
+
+        // Standby agents may only use memory left over once there is room for one more job of the maximum size
+        final long spareMemory = this.launcherProperties.getMaxTotalJobMemory()
+            - jobInfo.getTotalMemoryAllocated()
+            - this.launcherProperties.getMaxJobMemory();
+        final long agentsFittingInMemory = Math.max(0L, spareMemory / this.launcherProperties.getStandbyAgentMemory());
+        final long expectedLaunches = Math.max(
+            Math.round(this.launchRate),
+            this.launcherProperties.getStandbyPoolMinSize()
+        );
+        final int targetSize = (int) Math.min(
+            Math.min(expectedLaunches, agentsFittingInMemory),
+            this.launcherProperties.getStandbyPoolMaxSize()
+        );
+        log.debug(
+            "Resizing standby agent pool from {} to {} (launch rate {}, room for {})",
+            this.standbyPool.size(),
+            targetSize,
+            this.launchRate,
+            agentsFittingInMemory
+        );
+        this.standbyPool.resize(targetSize);
+    }
+
+    /*
+     * The memory held by idle standby agents. It isn't part of the memory allocated to jobs until an agent is handed a
+     * job.
+     */
+    private long getStandbyAgentsMemory() {
+        return this.standbyPool == null
+            ? 0L
+            : this.standbyPool.size() * this.launcherProperties.getStandbyAgentMemory();
+    }
+
+    private StandbyAgentPool.StandbyAgent startStandbyAgent() throws IOException {
+        final String name = "standby-" + this.standbyAgentCounter.incrementAndGet();
+        final CommandLine commandLine = this.createCommandLine(
+            ImmutableMap.of(
+                LocalAgentLauncherProperties.SERVER_HOST_PLACEHOLDER, this.launcherProperties.getServerHostname(),
+                LocalAgentLauncherProperties.SERVER_PORT_PLACEHOLDER, Integer.toString(this.rpcPort),
+                LocalAgentLauncherProperties.JOB_ID_PLACEHOLDER, JobConstants.STANDBY_AGENT_JOB_ID,
+                LocalAgentLauncherProperties.AGENT_JAR_PLACEHOLDER, this.launcherProperties.getAgentJarPath()
+            )
+        );
+
+        final PipedInputStream agentInput = new PipedInputStream();
+        final PipedOutputStream jobIdOutput = new PipedOutputStream(agentInput);
+        OutputStream agentOutput = null;
+        if (this.launcherProperties.isProcessOutputCaptureEnabled()) {
+            agentOutput = new FileOutputStream(
+                System.getProperty(SystemUtils.JAVA_IO_TMPDIR, "/tmp") + "/agent-" + name + ".txt",
+                false
+            );
+        }
+
+        final Executor executor = this.executorFactory.newInstance(true);
+        executor.setStreamHandler(new PumpStreamHandler(agentOutput, agentOutput, agentInput));
+        final ExecuteWatchdog watchdog = new ExecuteWatchdog(ExecuteWatchdog.INFINITE_TIMEOUT);
+        executor.setWatchdog(watchdog);
+        final AgentResultHandler resultHandler = new AgentResultHandler(name);
+
+        log.info("Launching standby agent {}: {}", name, commandLine);
+        executor.execute(commandLine, this.createEnvironment(), resultHandler);
+        return new StandbyAgentPool.StandbyAgent(name, jobIdOutput, watchdog, resultHandler);
+    }
+
+    private Map<String, String> createEnvironment() {
+        // Inherit server environment
+        final Map<String, String> environment = Maps.newHashMap(System.getenv());
+        // Add extra environment from configuration, if any
+        environment.putAll(this.launcherProperties.getAdditionalEnvironment());
+        return environment;
+    }
+
     private CommandLine createCommandLine(
         final Map<String, String> argumentValueReplacements
     ) {
@@ -0,0 +1,204 @@
+/*
+ *
+ *  Copyright 2022 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.agent.launchers.impl;
+
+import com.netflix.genie.common.internal.jobs.JobConstants;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.exec.DefaultExecuteResultHandler;
+import org.apache.commons.exec.ExecuteWatchdog;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Deque;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentLinkedDeque;
+
+/**
+ * A pool of agent processes started ahead of time on this host. Each agent is started with
+ * {@link JobConstants#STANDBY_AGENT_JOB_ID} in place of a job id and, once booted, blocks until the id of the job to
+ * run is written to its standard input.
+ *
+ * @since 4.4.0
+ */
+@Slf4j
+class StandbyAgentPool {
+
+    static final String SIZE_GAUGE = "genie.agents.launchers.local.standby.size.gauge";
+
+    private final AgentStarter agentStarter;
+    private final Deque<StandbyAgent> idleAgents = new ConcurrentLinkedDeque<>();
+
+    /**
+     * Constructor.
+     *
+     * @param agentStarter The {@link AgentStarter} used to start new standby agent processes
+     * @param registry     The {@link MeterRegistry} to publish the pool size to
+     */
+    StandbyAgentPool(final AgentStarter agentStarter, final MeterRegistry registry) {
+        this.agentStarter = agentStarter;
+        registry.gauge(SIZE_GAUGE, this.idleAgents, Deque::size);
+    }
+
+    /**
+     * Take an idle agent out of the pool.
+     *
+     * @return An agent that is still running, or empty if the pool has none left
+     */
+    Optional<StandbyAgent> take() {
+        StandbyAgent agent;
+        while ((agent = this.idleAgents.pollFirst()) != null) {
+            if (agent.isAlive()) {
+                return Optional.of(agent);
+            }
+            log.warn("Discarding standby agent {} which exited while idle", agent.getName());
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Start or stop idle agents until the pool holds the given number of them. Agents which exited on their own are
+     * dropped first.
+     *
+     * @param targetSize The number of idle agents the pool should hold
+     */
+    synchronized void resize(final int targetSize) {
+        this.idleAgents.removeIf(agent -> !agent.isAlive());
+        while (this.idleAgents.size() > targetSize) {
+            final StandbyAgent agent = this.idleAgents.pollLast();
+            if (agent != null) {
+                log.debug("Stopping surplus standby agent {}", agent.getName());
+                agent.stop();
+            }
+        }
+        while (this.idleAgents.size() < targetSize) {
+            try {
+                final StandbyAgent agent = this.agentStarter.start();
+                log.debug("Started standby agent {}", agent.getName());
+                this.idleAgents.addLast(agent);
+            } catch (final IOException e) {
+                log.error("Unable to start standby agent", e);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Get the number of idle agents currently in the pool.
+     *
+     * @return The number of idle agents
+     */
+    int size() {
+        return this.idleAgents.size();
+    }
+
+    /**
+     * Stop all the idle agents.
+     */
+    synchronized void close() {
+        StandbyAgent agent;
+        while ((agent = this.idleAgents.pollFirst()) != null) {
+            agent.stop();
+        }
+    }
+
+    /**
+     * Starts agent processes on standby.
+     */
+    @FunctionalInterface
+    interface AgentStarter {
+
+        /**
+         * Start a new agent process which waits for a job id on its standard input.
+         *
+         * @return The {@link StandbyAgent} handle for the new process
+         * @throws IOException If the process can't be started
+         */
+        StandbyAgent start() throws IOException;
+    }
+
+    /**
+     * Handle to an agent process on standby.
+     */
+    static class StandbyAgent {
+        private final String name;
+        private final OutputStream jobIdOutput;
+        private final ExecuteWatchdog watchdog;
+        private final DefaultExecuteResultHandler resultHandler;
+
+        /**
+         * Constructor.
+         *
+         * @param name          Name of the agent, used for logging
+         * @param jobIdOutput   Stream connected to the standard input of the agent process
+         * @param watchdog      The {@link ExecuteWatchdog} able to destroy the agent process
+         * @param resultHandler The handler notified when the agent process exits
+         */
+        StandbyAgent(
+            final String name,
+            final OutputStream jobIdOutput,
+            final ExecuteWatchdog watchdog,
+            final DefaultExecuteResultHandler resultHandler
+        ) {
+            this.name = name;
+            this.jobIdOutput = jobIdOutput;
+            this.watchdog = watchdog;
+            this.resultHandler = resultHandler;
+        }
+
+        String getName() {
+            return this.name;
+        }
+
+        boolean isAlive() {
+            return !this.resultHandler.hasResult();
+        }
+
+        /**
+         * Hand the job to this agent. The agent can't be handed another job afterwards.
+         *
+         * @param jobId The id of the job the agent should run
+         * @return true if the job id was delivered, false if the agent should be considered lost
+         */
+        boolean assign(final String jobId) {
+            try {
+                this.jobIdOutput.write((jobId + System.lineSeparator()).getBytes(StandardCharsets.UTF_8));
+                this.jobIdOutput.close();
+                log.info("Handed job {} to standby agent {}", jobId, this.name);
+                return true;
+            } catch (final IOException e) {
+                log.error("Unable to hand job {} to standby agent {}", jobId, this.name, e);
+                this.stop();
+                return false;
+            }
+        }
+
+        /**
+         * Destroy the agent process.
+         */
+        void stop() {
+            this.watchdog.destroyProcess();
+            try {
+                this.jobIdOutput.close();
+            } catch (final IOException e) {
+                log.debug("Unable to close the input of standby agent {}", this.name, e);
+            }
+        }
+    }
+}
@@ -32,6 +32,7 @@ import com.netflix.genie.common.internal.exceptions.unchecked.GenieJobSpecificat
 import com.netflix.genie.common.internal.exceptions.unchecked.GenieRuntimeException;
 import com.netflix.genie.web.exceptions.checked.AttachmentTooLargeException;
 import com.netflix.genie.web.exceptions.checked.IdAlreadyExistsException;
+import com.netflix.genie.web.exceptions.checked.JobLaunchQueueFullException;
 import com.netflix.genie.web.exceptions.checked.JobNotFoundException;
 import com.netflix.genie.web.exceptions.checked.NotFoundException;
 import com.netflix.genie.web.exceptions.checked.PreconditionFailedException;
@@ -138,6 +139,8 @@ public class GenieExceptionMapper {
             return new ResponseEntity<>(e, HttpStatus.BAD_REQUEST);
         } else if (e instanceof AttachmentTooLargeException) {
             return new ResponseEntity<>(e, HttpStatus.PAYLOAD_TOO_LARGE);
+        } else if (e instanceof JobLaunchQueueFullException) {
+            return new ResponseEntity<>(e, HttpStatus.TOO_MANY_REQUESTS);
         } else {
             return new ResponseEntity<>(e, HttpStatus.INTERNAL_SERVER_ERROR);
         }
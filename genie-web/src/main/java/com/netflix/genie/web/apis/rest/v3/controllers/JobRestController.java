@@ -31,6 +31,7 @@ import com.netflix.genie.common.dto.JobRequest;
 import com.netflix.genie.common.dto.JobStatus;
 import com.netflix.genie.common.dto.JobStatusMessages;
 import com.netflix.genie.common.dto.search.JobSearchResult;
+import com.netflix.genie.common.exceptions.GenieBadRequestException;
 import com.netflix.genie.common.exceptions.GenieException;
 import com.netflix.genie.common.exceptions.GenieNotFoundException;
 import com.netflix.genie.common.exceptions.GenieServerException;
@@ -55,6 +56,8 @@ import com.netflix.genie.web.apis.rest.v3.hateoas.assemblers.JobRequestModelAsse
 import com.netflix.genie.web.apis.rest.v3.hateoas.assemblers.JobSearchResultModelAssembler;
 import com.netflix.genie.web.data.services.DataServices;
 import com.netflix.genie.web.data.services.PersistenceService;
+import com.netflix.genie.web.dtos.JobSearchCursor;
+import com.netflix.genie.web.dtos.JobSearchResultsPage;
 import com.netflix.genie.web.dtos.JobSubmission;
 import com.netflix.genie.web.exceptions.checked.NotFoundException;
 import com.netflix.genie.web.properties.JobsActiveLimitProperties;
@@ -71,11 +74,13 @@ import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.core.env.Environment;
+import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
 import org.springframework.data.web.PagedResourcesAssembler;
 import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.IanaLinkRelations;
 import org.springframework.hateoas.Link;
 import org.springframework.hateoas.MediaTypes;
 import org.springframework.hateoas.PagedModel;
@@ -118,6 +123,7 @@ import java.util.EnumSet;
 import java.util.Enumeration;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -141,6 +147,7 @@ public class JobRestController {
     private static final String EMPTY_STRING = "";
     private static final String USER_JOB_LIMIT_EXCEEDED_COUNTER_NAME = "genie.jobs.submit.rejected.jobs-limit.counter";
     private static final Pattern HTTP_HEADER_FILTER_PATTERN = Pattern.compile("^GENIE_.*");
+    private static final Sort CURSOR_SEARCH_SORT = Sort.by(Sort.Direction.DESC, "created");
 
     private final JobLaunchService jobLaunchService;
     private final ApplicationModelAssembler applicationModelAssembler;
@@ -449,7 +456,14 @@ public class JobRestController {
      * @param maxFinished      The time which the job had to finish before in order to be returned (exclusive)
      * @param grouping         The grouping the job should be a member of
      * @param groupingInstance The grouping instance the job should be a member of
-     * @param page             page information for job
+     * @param cursor           The continuation token from the {@literal next} link of a previous cursor based search
+     * @param includeTotal     Whether to count the total number of matching jobs. When {@literal false} or when a
+     *                         {@literal cursor} is supplied results are paged by seeking past the last job returned
+     *                         rather than by offset, which only supports the default sort order. There is no
+     *                         page number when seeking so the page metadata, which is only present when the total is
+     *                         counted, always reports page number 0
+     * @param page             page information for job. Offset based searches can't start past the first 10,000
+     *                         matching jobs, deeper results have to be paged through with a {@literal cursor}
      * @param assembler        The paged resources assembler to use
      * @return successful response, or one with HTTP error code
      * @throws GenieException For any error
@@ -473,6 +487,8 @@ public class JobRestController {
         @RequestParam(value = "maxFinished", required = false) @Nullable final Long maxFinished,
         @RequestParam(value = "grouping", required = false) @Nullable final String grouping,
         @RequestParam(value = "groupingInstance", required = false) @Nullable final String groupingInstance,
+        @RequestParam(value = "cursor", required = false) @Nullable final String cursor,
+        @RequestParam(value = "includeTotal", defaultValue = "true") final boolean includeTotal,
         @PageableDefault(sort = {"created"}, direction = Sort.Direction.DESC) final Pageable page,
         final PagedResourcesAssembler<JobSearchResult> assembler
     ) throws GenieException {
@@ -480,8 +496,8 @@ public class JobRestController {
             "[getJobs] Called with "
                 + "[id | jobName | user | statuses | clusterName "
                 + "| clusterId | minStarted | maxStarted | minFinished | maxFinished | grouping | groupingInstance "
-                + "| page]\n"
-                + "{} | {} | {} | {} | {} | {} | {} | {} | {} | {} | {} | {} | {} | {} | {} | {}",
+                + "| cursor | includeTotal | page]\n"
+                + "{} | {} | {} | {} | {} | {} | {} | {} | {} | {} | {} | {} | {} | {} | {} | {} | {} | {}",
             id,
             name,
             user,
@@ -497,6 +513,8 @@ public class JobRestController {
             maxFinished,
             grouping,
             groupingInstance,
+            cursor,
+            includeTotal,
             page
         );
 
@@ -531,13 +549,96 @@ public class JobRestController {
                         maxFinished,
                         grouping,
                         groupingInstance,
+                        cursor,
+                        includeTotal,
                         page,
                         assembler
                     )
             ).withSelfRel();
 
-        return assembler.toModel(
-            this.persistenceService.findJobs(
+        if (cursor != null || !includeTotal) {
+            if (!page.getSort().equals(CURSOR_SEARCH_SORT)) {
+                throw new GenieBadRequestException("Cursor based job search only supports sorting by created desc");
+            }
+            final JobSearchCursor jobSearchCursor;
+            try {
+                jobSearchCursor = cursor == null ? null : JobSearchCursor.fromToken(cursor);
+            } catch (final IllegalArgumentException e) {
+                throw new GenieBadRequestException("Invalid job search cursor " + cursor, e);
+            }
+
+            final JobSearchResultsPage resultsPage = this.persistenceService.findJobs(
+                id,
+                name,
+                user,
+                enumStatuses,
+                tags,
+                clusterName,
+                clusterId,
+                commandName,
+                commandId,
+                minStarted == null ? null : Instant.ofEpochMilli(minStarted),
+                maxStarted == null ? null : Instant.ofEpochMilli(maxStarted),
+                minFinished == null ? null : Instant.ofEpochMilli(minFinished),
+                maxFinished == null ? null : Instant.ofEpochMilli(maxFinished),
+                grouping,
+                groupingInstance,
+                jobSearchCursor,
+                page.getPageSize(),
+                includeTotal
+            );
+
+            // There is no page number when seeking so the metadata only conveys the size and total if requested.
+            // The number is always 0 and clients should follow the next link rather than compute page offsets.
+            final PagedModel<EntityModel<JobSearchResult>> model = PagedModel.of(
+                resultsPage
+                    .getResults()
+                    .stream()
+                    .map(this.jobSearchResultModelAssembler::toModel)
+                    .collect(Collectors.toList()),
+                resultsPage
+                    .getTotalCount()
+                    .map(totalCount -> new PagedModel.PageMetadata(page.getPageSize(), 0, totalCount))
+                    .orElse(null),
+                self
+            );
+            final Optional<JobSearchCursor> nextCursor = resultsPage.getNextCursor();
+            if (nextCursor.isPresent()) {
+                model.add(
+                    WebMvcLinkBuilder
+                        .linkTo(
+                            WebMvcLinkBuilder
+                                .methodOn(JobRestController.class)
+                                .findJobs(
+                                    id,
+                                    name,
+                                    user,
+                                    statuses,
+                                    tags,
+                                    clusterName,
+                                    clusterId,
+                                    commandName,
+                                    commandId,
+                                    minStarted,
+                                    maxStarted,
+                                    minFinished,
+                                    maxFinished,
+                                    grouping,
+                                    groupingInstance,
+                                    nextCursor.get().toToken(),
+                                    includeTotal,
+                                    page,
+                                    assembler
+                                )
+                        ).withRel(IanaLinkRelations.NEXT)
+                );
+            }
+            return model;
+        }
+
+        final Page<JobSearchResult> jobs;
+        try {
+            jobs = this.persistenceService.findJobs(
                 id,
                 name,
                 user,
@@ -554,7 +655,12 @@ public class JobRestController {
                 grouping,
                 groupingInstance,
                 page
-            ),
+            );
+        } catch (final IllegalArgumentException e) {
+            throw new GenieBadRequestException("Invalid job search: " + e.getMessage(), e);
+        }
+        return assembler.toModel(
+            jobs,
             this.jobSearchResultModelAssembler,
             self
         );
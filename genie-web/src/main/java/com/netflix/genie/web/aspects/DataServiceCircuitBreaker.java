@@ -0,0 +1,141 @@
+/*
+ *
+ *  Copyright 2022 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.aspects;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+
+/**
+ * A circuit breaker for calls to the database.
+ * <p>
+ * Opens after a number of consecutive failures which indicate the database is unavailable or saturated. While open
+ * calls are rejected without touching the database. Once the open duration has elapsed a single trial call is let
+ * through (half open) and its outcome decides whether the breaker closes again or stays open for another period.
+ * <p>
+ * Every state transition starts a new generation. Results of calls permitted in an earlier generation are ignored so
+ * that e.g. a slow call which started before the breaker opened can't close it again.
+ *
+ * @since 4.4.0
+ */
+@Slf4j
+class DataServiceCircuitBreaker {
+
+    static final String STATE_GAUGE_NAME = "genie.data.service.circuit-breaker.state";
+    static final String TRANSITION_COUNTER_NAME = "genie.data.service.circuit-breaker.transition.counter";
+    static final long NOT_PERMITTED = -1L;
+    private static final String STATE_TAG_NAME = "state";
+
+    private final int failureThreshold;
+    private final long openDurationNanos;
+    private final MeterRegistry registry;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private boolean trialInProgress;
+    private long generation;
+
+    /**
+     * Constructor.
+     *
+     * @param failureThreshold The number of consecutive saturation failures which opens the breaker
+     * @param openDuration     How long the breaker stays open before allowing a trial call
+     * @param registry         The metrics registry
+     */
+    DataServiceCircuitBreaker(final int failureThreshold, final Duration openDuration, final MeterRegistry registry) {
+        this.failureThreshold = failureThreshold;
+        this.openDurationNanos = openDuration.toNanos();
+        this.registry = registry;
+        this.registry.gauge(STATE_GAUGE_NAME, this, breaker -> breaker.getState().ordinal());
+    }
+
+    /**
+     * Check whether a call may proceed. Every call which is permitted must be followed by a call to
+     * {@link #onResult(long, boolean)}.
+     *
+     * @return The generation the call was permitted in or {@link #NOT_PERMITTED} if the call may not proceed
+     */
+    synchronized long tryAcquirePermission() {
+        switch (this.state) {
+            case OPEN:
+                if (System.nanoTime() - this.openedAt < this.openDurationNanos) {
+                    return NOT_PERMITTED;
+                }
+                this.transitionTo(State.HALF_OPEN);
+                this.trialInProgress = true;
+                return this.generation;
+            case HALF_OPEN:
+                if (this.trialInProgress) {
+                    return NOT_PERMITTED;
+                }
+                this.trialInProgress = true;
+                return this.generation;
+            case CLOSED:
+            default:
+                return this.generation;
+        }
+    }
+
+    /**
+     * Record the outcome of a permitted call.
+     *
+     * @param generation The generation returned when the call was permitted
+     * @param saturated  {@literal true} if the call failed in a way indicating the database is unavailable or
+     *                   saturated. Any other outcome, including other failures, shows the database is responsive.
+     */
+    synchronized void onResult(final long generation, final boolean saturated) {
+        if (generation != this.generation) {
+            log.debug("Ignoring the result of a call permitted before the last state transition");
+            return;
+        }
+        this.trialInProgress = false;
+        if (!saturated) {
+            this.consecutiveFailures = 0;
+            if (this.state != State.CLOSED) {
+                this.transitionTo(State.CLOSED);
+            }
+        } else if (this.state == State.HALF_OPEN || ++this.consecutiveFailures >= this.failureThreshold) {
+            this.openedAt = System.nanoTime();
+            if (this.state != State.OPEN) {
+                this.transitionTo(State.OPEN);
+            }
+        }
+    }
+
+    synchronized State getState() {
+        return this.state;
+    }
+
+    private void transitionTo(final State newState) {
+        log.info("Data service circuit breaker transitioning from {} to {}", this.state, newState);
+        this.state = newState;
+        this.generation++;
+        this.registry.counter(TRANSITION_COUNTER_NAME, STATE_TAG_NAME, newState.name()).increment();
+    }
+
+    /**
+     * The states of the breaker.
+     */
+    enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+}
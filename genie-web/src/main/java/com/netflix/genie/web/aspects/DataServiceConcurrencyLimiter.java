@@ -0,0 +1,129 @@
+/*
+ *
+ *  Copyright 2022 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.aspects;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+
+/**
+ * An adaptive limit on the number of concurrent calls to the database.
+ * <p>
+ * The limit grows additively while calls complete quickly and the limit is being used, and shrinks multiplicatively
+ * whenever a call is slow or fails in a way which indicates the database is saturated. Calls over the limit are
+ * rejected instead of queueing up behind a struggling database.
+ * <p>
+ * The limit is reduced at most once per window. Calls which were already in flight when the limit was last reduced
+ * suffered from the same saturation, so only calls started after the last reduction can reduce it again.
+ *
+ * @since 4.4.0
+ */
+class DataServiceConcurrencyLimiter {
+
+    static final String LIMIT_GAUGE_NAME = "genie.data.service.concurrency-limit.limit";
+    static final String IN_FLIGHT_GAUGE_NAME = "genie.data.service.concurrency-limit.in-flight";
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyThresholdNanos;
+    private final double backoffRatio;
+
+    private double limit;
+    private int inFlight;
+    private boolean reduced;
+    private long lastReductionNanos;
+
+    /**
+     * Constructor.
+     *
+     * @param initialLimit     The starting limit
+     * @param minLimit         The lowest the limit can go
+     * @param maxLimit         The highest the limit can go
+     * @param latencyThreshold Calls slower than this reduce the limit
+     * @param backoffRatio     The factor the limit is multiplied by when it is reduced
+     * @param registry         The metrics registry
+     */
+    DataServiceConcurrencyLimiter(
+        final int initialLimit,
+        final int minLimit,
+        final int maxLimit,
+        final Duration latencyThreshold,
+        final double backoffRatio,
+        final MeterRegistry registry
+    ) {
+        this.minLimit = minLimit;
+        this.maxLimit = Math.max(minLimit, maxLimit);
+        this.latencyThresholdNanos = latencyThreshold.toNanos();
+        this.backoffRatio = backoffRatio;
+        this.limit = Math.min(this.maxLimit, Math.max(this.minLimit, initialLimit));
+        registry.gauge(LIMIT_GAUGE_NAME, this, DataServiceConcurrencyLimiter::getLimit);
+        registry.gauge(IN_FLIGHT_GAUGE_NAME, this, DataServiceConcurrencyLimiter::getInFlight);
+    }
+
+    /**
+     * Try to start a call. Every successful acquisition must be followed by a call to
+     * {@link #release(long, long, boolean)} or {@link #cancel()}.
+     *
+     * @return {@literal true} if the call may proceed
+     */
+    synchronized boolean tryAcquire() {
+        if (this.inFlight >= (int) this.limit) {
+            return false;
+        }
+        this.inFlight++;
+        return true;
+    }
+
+    /**
+     * Finish a call and adjust the limit based on how it went.
+     *
+     * @param startNanos The {@link System#nanoTime()} the call started at
+     * @param endNanos   The {@link System#nanoTime()} the call ended at
+     * @param saturated  Whether the call failed in a way indicating the database is saturated
+     */
+    synchronized void release(final long startNanos, final long endNanos, final boolean saturated) {
+        this.inFlight--;
+        if (saturated || endNanos - startNanos > this.latencyThresholdNanos) {
+            if (!this.reduced || startNanos - this.lastReductionNanos > 0) {
+                this.limit = Math.max(this.minLimit, this.limit * this.backoffRatio);
+                this.reduced = true;
+                this.lastReductionNanos = endNanos;
+            }
+        } else if (2 * (this.inFlight + 1) >= this.limit) {
+            // Only probe for more capacity when at least half the current limit is actually in use.
+            // Adds roughly one to the limit for every limit's worth of successful calls.
+            this.limit = Math.min(this.maxLimit, this.limit + 1.0 / this.limit);
+        }
+    }
+
+    /**
+     * Give back an acquired slot without adjusting the limit. For calls which never reached the database or whose
+     * latency says nothing about saturation, such as long running maintenance operations.
+     */
+    synchronized void cancel() {
+        this.inFlight--;
+    }
+
+    synchronized int getLimit() {
+        return (int) this.limit;
+    }
+
+    synchronized int getInFlight() {
+        return this.inFlight;
+    }
+}
@@ -18,15 +18,23 @@
 package com.netflix.genie.web.aspects;
 
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Sets;
 import com.netflix.genie.common.exceptions.GenieException;
 import com.netflix.genie.common.internal.exceptions.checked.GenieCheckedException;
 import com.netflix.genie.common.internal.exceptions.unchecked.GenieRuntimeException;
+import com.netflix.genie.web.data.services.MaintenanceOperation;
 import com.netflix.genie.web.properties.DataServiceRetryProperties;
+import com.netflix.genie.web.util.MetricsUtils;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
 import lombok.extern.slf4j.Slf4j;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.aop.support.AopUtils;
 import org.springframework.core.Ordered;
+import org.springframework.core.annotation.AnnotatedElementUtils;
 import org.springframework.dao.CannotAcquireLockException;
 import org.springframework.dao.ConcurrencyFailureException;
 import org.springframework.dao.DeadlockLoserDataAccessException;
@@ -36,15 +44,31 @@ import org.springframework.dao.QueryTimeoutException;
 import org.springframework.dao.TransientDataAccessResourceException;
 import org.springframework.jdbc.CannotGetJdbcConnectionException;
 import org.springframework.orm.jpa.JpaSystemException;
+import org.springframework.retry.RetryContext;
 import org.springframework.retry.RetryListener;
-import org.springframework.retry.backoff.ExponentialBackOffPolicy;
+import org.springframework.retry.backoff.ExponentialRandomBackOffPolicy;
 import org.springframework.retry.policy.SimpleRetryPolicy;
 import org.springframework.retry.support.RetryTemplate;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.annotation.Transactional;
 
+import javax.annotation.Nullable;
 import javax.validation.ConstraintViolationException;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Aspect implementation of retrying the data service methods on certain failures.
+ * <p>
+ * Read operations (read only transactions and methods named get*, find* or is*) are retried on any transient data
+ * access failure. Write operations are only retried on failures which guarantee the transaction didn't commit, such as
+ * not getting a connection or losing a lock conflict, so a brownout doesn't turn into a storm of repeated writes.
+ * Retries use exponential backoff with random jitter. Optionally every attempt also goes through a circuit breaker,
+ * which fails fast once the database appears unavailable, and an adaptive concurrency limit. Methods marked as
+ * {@link MaintenanceOperation} take up a slot of the concurrency limit but, being long running by nature, don't
+ * adjust it.
  *
  * @author amajumdar
  * @since 3.0.0
@@ -52,36 +76,91 @@ import javax.validation.ConstraintViolationException;
 @Aspect
 @Slf4j
 public class DataServiceRetryAspect implements Ordered {
-    private final RetryTemplate retryTemplate;
+
+    static final String RETRY_COUNTER_NAME = "genie.data.service.retry.counter";
+    static final String FAILURE_COUNTER_NAME = "genie.data.service.failure.counter";
+    static final String REJECTED_COUNTER_NAME = "genie.data.service.rejected.counter";
+    private static final String OPERATION_TAG_NAME = "operation";
+    private static final String RETRYABLE_TAG_NAME = "retryable";
+    private static final String REASON_TAG_NAME = "reason";
+    private static final String CIRCUIT_BREAKER_REASON = "circuitBreakerOpen";
+    private static final String CONCURRENCY_LIMIT_REASON = "concurrencyLimit";
+    private static final String[] READ_METHOD_PREFIXES = {"get", "find", "is"};
+
+    // Failures after which the transaction is known not to have committed
+    private static final Map<Class<? extends Throwable>, Boolean> WRITE_RETRYABLE_EXCEPTIONS
+        = new ImmutableMap.Builder<Class<? extends Throwable>, Boolean>()
+        .put(CannotCreateTransactionException.class, true)
+        .put(CannotGetJdbcConnectionException.class, true)
+        .put(CannotAcquireLockException.class, true)
+        .put(DeadlockLoserDataAccessException.class, true)
+        .put(OptimisticLockingFailureException.class, true)
+        .put(PessimisticLockingFailureException.class, true)
+        .put(ConcurrencyFailureException.class, true)
+        .build();
+
+    private static final Map<Class<? extends Throwable>, Boolean> READ_RETRYABLE_EXCEPTIONS
+        = new ImmutableMap.Builder<Class<? extends Throwable>, Boolean>()
+        .putAll(WRITE_RETRYABLE_EXCEPTIONS)
+        .put(QueryTimeoutException.class, true)
+        .put(TransientDataAccessResourceException.class, true)
+        .put(JpaSystemException.class, true)
+        .build();
+
+    // Failures which indicate the database is unreachable or overloaded rather than a problem with the call itself
+    private static final Set<Class<? extends Throwable>> SATURATION_EXCEPTIONS = Sets.newHashSet(
+        CannotCreateTransactionException.class,
+        CannotGetJdbcConnectionException.class,
+        QueryTimeoutException.class,
+        TransientDataAccessResourceException.class
+    );
+
+    private final RetryTemplate readRetryTemplate;
+    private final RetryTemplate writeRetryTemplate;
+    private final MeterRegistry registry;
+    @Nullable
+    private final DataServiceCircuitBreaker circuitBreaker;
+    @Nullable
+    private final DataServiceConcurrencyLimiter concurrencyLimiter;
+    private final Map<Method, OperationType> operationTypes = new ConcurrentHashMap<>();
+    private final Map<Method, Boolean> maintenanceOperations = new ConcurrentHashMap<>();
 
     /**
      * Constructor.
      *
      * @param dataServiceRetryProperties retry properties
+     * @param registry                   the metrics registry
      */
-    public DataServiceRetryAspect(final DataServiceRetryProperties dataServiceRetryProperties) {
-        this.retryTemplate = new RetryTemplate();
-        this.retryTemplate.setRetryPolicy(
-            new SimpleRetryPolicy(
-                dataServiceRetryProperties.getNoOfRetries(),
-                new ImmutableMap.Builder<Class<? extends Throwable>, Boolean>()
-                    .put(CannotGetJdbcConnectionException.class, true)
-                    .put(CannotAcquireLockException.class, true)
-                    .put(DeadlockLoserDataAccessException.class, true)
-                    .put(OptimisticLockingFailureException.class, true)
-                    .put(PessimisticLockingFailureException.class, true)
-                    .put(ConcurrencyFailureException.class, true)
-                    // Will this work for cases where the write queries timeout on the client?
-                    .put(QueryTimeoutException.class, true)
-                    .put(TransientDataAccessResourceException.class, true)
-                    .put(JpaSystemException.class, true)
-                    .build()
+    public DataServiceRetryAspect(
+        final DataServiceRetryProperties dataServiceRetryProperties,
+        final MeterRegistry registry
+    ) {
+        this.readRetryTemplate = this.createRetryTemplate(dataServiceRetryProperties, READ_RETRYABLE_EXCEPTIONS);
+        this.writeRetryTemplate = this.createRetryTemplate(dataServiceRetryProperties, WRITE_RETRYABLE_EXCEPTIONS);
+        this.registry = registry;
+
+        final DataServiceRetryProperties.CircuitBreaker circuitBreakerProperties
+            = dataServiceRetryProperties.getCircuitBreaker();
+        this.circuitBreaker = circuitBreakerProperties.isEnabled()
+            ? new DataServiceCircuitBreaker(
+                circuitBreakerProperties.getFailureThreshold(),
+                circuitBreakerProperties.getOpenDuration(),
+                registry
             )
-        );
-        final ExponentialBackOffPolicy backOffPolicy = new ExponentialBackOffPolicy();
-        backOffPolicy.setInitialInterval(dataServiceRetryProperties.getInitialInterval());
-        backOffPolicy.setMaxInterval(dataServiceRetryProperties.getMaxInterval());
-        this.retryTemplate.setBackOffPolicy(backOffPolicy);
+            : null;
+
+        final DataServiceRetryProperties.ConcurrencyLimit concurrencyLimitProperties
+            = dataServiceRetryProperties.getConcurrencyLimit();
+        this.concurrencyLimiter = concurrencyLimitProperties.isEnabled()
+            ? new DataServiceConcurrencyLimiter(
+                concurrencyLimitProperties.getInitialLimit(),
+                concurrencyLimitProperties.getMinLimit(),
+                concurrencyLimitProperties.getMaxLimit(),
+                concurrencyLimitProperties.getLatencyThreshold(),
+                concurrencyLimitProperties.getBackoffRatio(),
+                registry
+            )
+            : null;
     }
 
     /**
@@ -90,7 +169,8 @@ public class DataServiceRetryAspect implements Ordered {
      * @param retryListeners retry listeners
      */
     public void setRetryListeners(final RetryListener[] retryListeners) {
-        this.retryTemplate.setListeners(retryListeners);
+        this.readRetryTemplate.setListeners(retryListeners);
+        this.writeRetryTemplate.setListeners(retryListeners);
     }
 
     /**
@@ -103,8 +183,14 @@ public class DataServiceRetryAspect implements Ordered {
      */
     @Around("com.netflix.genie.web.aspects.SystemArchitecture.dataOperation()")
     public Object profile(final ProceedingJoinPoint pjp) throws GenieException, GenieCheckedException {
+        final Method method = this.getSpecificMethod(pjp);
+        final OperationType operationType = this.getOperationType(method);
+        final boolean maintenanceOperation = this.isMaintenanceOperation(method);
+        final RetryTemplate retryTemplate = operationType == OperationType.READ
+            ? this.readRetryTemplate
+            : this.writeRetryTemplate;
         try {
-            return retryTemplate.execute(context -> pjp.proceed());
+            return retryTemplate.execute(context -> this.proceed(pjp, operationType, maintenanceOperation, context));
         } catch (
             GenieException
                 | GenieCheckedException
@@ -125,4 +211,142 @@ public class DataServiceRetryAspect implements Ordered {
         // Currently setting this to 0 since we want the retry to happen before the transaction interceptor.
         return 0;
     }
+
+    private RetryTemplate createRetryTemplate(
+        final DataServiceRetryProperties properties,
+        final Map<Class<? extends Throwable>, Boolean> retryableExceptions
+    ) {
+        final RetryTemplate retryTemplate = new RetryTemplate();
+        retryTemplate.setRetryPolicy(new SimpleRetryPolicy(properties.getNoOfRetries(), retryableExceptions));
+        final ExponentialRandomBackOffPolicy backOffPolicy = new ExponentialRandomBackOffPolicy();
+        backOffPolicy.setInitialInterval(properties.getInitialInterval());
+        backOffPolicy.setMaxInterval(properties.getMaxInterval());
+        backOffPolicy.setMultiplier(properties.getMultiplier());
+        retryTemplate.setBackOffPolicy(backOffPolicy);
+        return retryTemplate;
+    }
+
+    /*
+     * A single attempt at the data service call, guarded by the concurrency limit and circuit breaker if enabled.
+     */
+    private Object proceed(
+        final ProceedingJoinPoint pjp,
+        final OperationType operationType,
+        final boolean maintenanceOperation,
+        final RetryContext context
+    ) throws Throwable {
+        if (context.getRetryCount() > 0) {
+            this.registry.counter(RETRY_COUNTER_NAME, OPERATION_TAG_NAME, operationType.name()).increment();
+        }
+
+        if (this.concurrencyLimiter != null && !this.concurrencyLimiter.tryAcquire()) {
+            throw this.reject(operationType, CONCURRENCY_LIMIT_REASON);
+        }
+        final long start = System.nanoTime();
+        long generation = DataServiceCircuitBreaker.NOT_PERMITTED;
+        boolean permitted = false;
+        boolean saturated = false;
+        try {
+            if (this.circuitBreaker != null) {
+                generation = this.circuitBreaker.tryAcquirePermission();
+                if (generation == DataServiceCircuitBreaker.NOT_PERMITTED) {
+                    throw this.reject(operationType, CIRCUIT_BREAKER_REASON);
+                }
+            }
+            permitted = true;
+            return pjp.proceed();
+        } catch (final Throwable t) {
+            if (permitted) {
+                saturated = SATURATION_EXCEPTIONS.stream().anyMatch(type -> type.isInstance(t));
+                this.recordFailure(operationType, t, context);
+            }
+            throw t;
+        } finally {
+            if (this.circuitBreaker != null && permitted) {
+                this.circuitBreaker.onResult(generation, saturated);
+            }
+            if (this.concurrencyLimiter != null) {
+                if (permitted && !maintenanceOperation) {
+                    this.concurrencyLimiter.release(start, System.nanoTime(), saturated);
+                } else {
+                    this.concurrencyLimiter.cancel();
+                }
+            }
+        }
+    }
+
+    private GenieRuntimeException reject(final OperationType operationType, final String reason) {
+        this.registry
+            .counter(REJECTED_COUNTER_NAME, OPERATION_TAG_NAME, operationType.name(), REASON_TAG_NAME, reason)
+            .increment();
+        return new GenieRuntimeException("Data service call rejected to protect the database (" + reason + ")");
+    }
+
+    private void recordFailure(final OperationType operationType, final Throwable t, final RetryContext context) {
+        final boolean retryable = (operationType == OperationType.READ
+            ? READ_RETRYABLE_EXCEPTIONS
+            : WRITE_RETRYABLE_EXCEPTIONS)
+            .keySet()
+            .stream()
+            .anyMatch(type -> type.isInstance(t));
+        final Set<Tag> tags = Sets.newHashSet(
+            Tag.of(OPERATION_TAG_NAME, operationType.name()),
+            Tag.of(RETRYABLE_TAG_NAME, String.valueOf(retryable))
+        );
+        MetricsUtils.addFailureTagsWithException(tags, t);
+        this.registry.counter(FAILURE_COUNTER_NAME, tags).increment();
+        if (retryable) {
+            log.debug("Attempt {} of data service call failed", context.getRetryCount() + 1, t);
+        }
+    }
+
+    @Nullable
+    private Method getSpecificMethod(final ProceedingJoinPoint pjp) {
+        if (!(pjp.getSignature() instanceof MethodSignature)) {
+            return null;
+        }
+        final Method method = ((MethodSignature) pjp.getSignature()).getMethod();
+        final Object target = pjp.getTarget();
+        return target == null
+            ? method
+            : AopUtils.getMostSpecificMethod(method, AopUtils.getTargetClass(target));
+    }
+
+    private boolean isMaintenanceOperation(@Nullable final Method method) {
+        return method != null && this.maintenanceOperations.computeIfAbsent(
+            method,
+            key -> AnnotatedElementUtils.hasAnnotation(key, MaintenanceOperation.class)
+        );
+    }
+
+    private OperationType getOperationType(@Nullable final Method method) {
+        if (method == null) {
+            // Can't tell what this is so keep the more permissive retry behavior
+            return OperationType.READ;
+        }
+        return this.operationTypes.computeIfAbsent(
+            method,
+            key -> {
+                final Transactional transactional
+                    = AnnotatedElementUtils.findMergedAnnotation(key, Transactional.class);
+                if (transactional != null && transactional.readOnly()) {
+                    return OperationType.READ;
+                }
+                for (final String prefix : READ_METHOD_PREFIXES) {
+                    if (key.getName().startsWith(prefix)) {
+                        return OperationType.READ;
+                    }
+                }
+                return OperationType.WRITE;
+            }
+        );
+    }
+
+    /**
+     * How a data service operation is treated when it fails.
+     */
+    enum OperationType {
+        READ,
+        WRITE
+    }
 }
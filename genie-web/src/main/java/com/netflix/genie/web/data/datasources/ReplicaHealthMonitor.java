@@ -0,0 +1,154 @@
+/*
+ *
+ *  Copyright 2022 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.data.datasources;
+
+import com.google.common.collect.Sets;
+import com.netflix.genie.web.properties.ReplicaDataSourceProperties;
+import com.netflix.genie.web.util.MetricsUtils;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.scheduling.TaskScheduler;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically checks whether the read replica is reachable and, if a lag query is configured, close enough to the
+ * primary to serve reads.
+ * <p>
+ * The replica is considered unavailable until the first check passes.
+ *
+ * @since 4.4.0
+ */
+@Slf4j
+public class ReplicaHealthMonitor {
+
+    static final String AVAILABLE_GAUGE_NAME = "genie.data.replica.available.gauge";
+    static final String LAG_GAUGE_NAME = "genie.data.replica.lag.gauge";
+    static final String CHECK_TIMER_NAME = "genie.data.replica.check.timer";
+    private static final int VALIDATION_TIMEOUT_SECONDS = 5;
+
+    private final DataSource replicaDataSource;
+    private final ReplicaDataSourceProperties properties;
+    private final MeterRegistry registry;
+
+    private volatile boolean available;
+    private volatile double lagSeconds = Double.NaN;
+
+    /**
+     * Constructor.
+     *
+     * @param replicaDataSource The data source of the replica
+     * @param properties        The replica properties
+     * @param taskScheduler     The scheduler to run the checks on
+     * @param registry          The metrics registry
+     */
+    public ReplicaHealthMonitor(
+        final DataSource replicaDataSource,
+        final ReplicaDataSourceProperties properties,
+        final TaskScheduler taskScheduler,
+        final MeterRegistry registry
+    ) {
+        this.replicaDataSource = replicaDataSource;
+        this.properties = properties;
+        this.registry = registry;
+
+        this.registry.gauge(AVAILABLE_GAUGE_NAME, this, monitor -> monitor.isAvailable() ? 1 : 0);
+        this.registry.gauge(LAG_GAUGE_NAME, this, monitor -> monitor.lagSeconds);
+        taskScheduler.scheduleWithFixedDelay(this::check, this.properties.getCheckInterval());
+    }
+
+    /**
+     * Whether reads can currently be sent to the replica.
+     *
+     * @return {@literal true} if the replica passed its last check and hasn't failed since
+     */
+    public boolean isAvailable() {
+        return this.available;
+    }
+
+    /**
+     * Stop routing reads to the replica until the next successful check. Used when getting a connection to it failed.
+     */
+    public void markUnavailable() {
+        this.setAvailable(false);
+    }
+
+    /**
+     * Check the replica and update its availability.
+     */
+    public void check() {
+        final Set<Tag> tags = Sets.newHashSet();
+        final long start = System.nanoTime();
+        boolean healthy;
+        double lag = Double.NaN;
+        try (Connection connection = this.replicaDataSource.getConnection()) {
+            final String lagQuery = this.properties.getLagQuery();
+            if (StringUtils.isBlank(lagQuery)) {
+                healthy = connection.isValid(VALIDATION_TIMEOUT_SECONDS);
+            } else {
+                try (
+                    Statement statement = connection.createStatement();
+                    ResultSet resultSet = statement.executeQuery(lagQuery)
+                ) {
+                    if (resultSet.next()) {
+                        // getDouble maps a SQL NULL (e.g. nothing replicated yet) to 0 so only that counts as no lag
+                        lag = resultSet.getDouble(1);
+                    }
+                }
+                if (Double.isNaN(lag)) {
+                    // No row at all usually means the replica isn't replicating or the query doesn't fit the database
+                    log.warn("Read replica lag query returned no rows");
+                    healthy = false;
+                } else {
+                    healthy = TimeUnit.SECONDS.toMillis(1) * lag <= this.properties.getMaxLag().toMillis();
+                    if (!healthy) {
+                        log.warn(
+                            "Read replica lag of {}s exceeds the maximum of {}",
+                            lag,
+                            this.properties.getMaxLag()
+                        );
+                    }
+                }
+            }
+            MetricsUtils.addSuccessTags(tags);
+        } catch (final SQLException | RuntimeException e) {
+            log.warn("Failed to check the read replica", e);
+            MetricsUtils.addFailureTagsWithException(tags, e);
+            healthy = false;
+        } finally {
+            this.registry.timer(CHECK_TIMER_NAME, tags).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        this.lagSeconds = lag;
+        this.setAvailable(healthy);
+    }
+
+    private synchronized void setAvailable(final boolean newAvailable) {
+        if (this.available != newAvailable) {
+            log.info("Read replica is now {}", newAvailable ? "available" : "unavailable. Reads fall back to primary");
+            this.available = newAvailable;
+        }
+    }
+}
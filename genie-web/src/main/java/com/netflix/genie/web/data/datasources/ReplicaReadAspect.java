@@ -0,0 +1,61 @@
+/*
+ *
+ *  Copyright 2022 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.data.datasources;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+
+/**
+ * Allows methods annotated with {@link ReplicaRead} to be routed to the read replica by the
+ * {@link ReplicaRoutingDataSource} for the duration of the call.
+ *
+ * @since 4.4.0
+ */
+@Aspect
+public class ReplicaReadAspect {
+
+    private static final ThreadLocal<Boolean> REPLICA_READ = ThreadLocal.withInitial(() -> false);
+
+    /**
+     * Whether the current thread is running a {@link ReplicaRead} method.
+     *
+     * @return {@literal true} if reads on this thread may be served by the replica
+     */
+    static boolean isReplicaRead() {
+        return REPLICA_READ.get();
+    }
+
+    /**
+     * Mark the current thread as running a {@link ReplicaRead} method while the join point proceeds.
+     *
+     * @param joinPoint The join point
+     * @return The result of the join point
+     * @throws Throwable Whatever the join point throws
+     */
+    @Around("@annotation(com.netflix.genie.web.data.datasources.ReplicaRead)")
+    public Object allowReplicaRead(final ProceedingJoinPoint joinPoint) throws Throwable {
+        final boolean previous = REPLICA_READ.get();
+        REPLICA_READ.set(true);
+        try {
+            return joinPoint.proceed();
+        } finally {
+            REPLICA_READ.set(previous);
+        }
+    }
+}
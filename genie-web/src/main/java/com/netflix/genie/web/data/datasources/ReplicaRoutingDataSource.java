@@ -0,0 +1,130 @@
+/*
+ *
+ *  Copyright 2022 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.data.datasources;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * A {@link DataSource} which hands out connections to a read replica inside read only transactions of methods
+ * annotated with {@link ReplicaRead} while the replica is available, and connections to the primary otherwise.
+ * Read only transactions are not routed to the replica by default as it may lag behind writes which were just made.
+ * <p>
+ * The route is decided when the physical connection is requested so this should be wrapped in a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}. That way the connection is only fetched
+ * once the transaction has been set up and its read only flag is visible.
+ *
+ * @since 4.4.0
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractDataSource {
+
+    static final String CONNECTIONS_COUNTER_NAME = "genie.data.datasource.connections.counter";
+    private static final String ROUTE_TAG_NAME = "route";
+    private static final String REASON_TAG_NAME = "reason";
+    private static final String PRIMARY_ROUTE = "primary";
+    private static final String REPLICA_ROUTE = "replica";
+    private static final String READ_ONLY_REASON = "readOnly";
+    private static final String READ_WRITE_REASON = "readWrite";
+    private static final String PRIMARY_READ_REASON = "primaryRead";
+    private static final String REPLICA_UNAVAILABLE_REASON = "replicaUnavailable";
+    private static final String REPLICA_FAILURE_REASON = "replicaFailure";
+
+    private final DataSource primaryDataSource;
+    private final DataSource replicaDataSource;
+    private final ReplicaHealthMonitor replicaHealthMonitor;
+    private final MeterRegistry registry;
+
+    /**
+     * Constructor.
+     *
+     * @param primaryDataSource    The data source of the primary database
+     * @param replicaDataSource    The data source of the read replica
+     * @param replicaHealthMonitor The monitor tracking whether the replica can serve reads
+     * @param registry             The metrics registry
+     */
+    public ReplicaRoutingDataSource(
+        final DataSource primaryDataSource,
+        final DataSource replicaDataSource,
+        final ReplicaHealthMonitor replicaHealthMonitor,
+        final MeterRegistry registry
+    ) {
+        this.primaryDataSource = primaryDataSource;
+        this.replicaDataSource = replicaDataSource;
+        this.replicaHealthMonitor = replicaHealthMonitor;
+        this.registry = registry;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Connection getConnection() throws SQLException {
+        return this.route(DataSource::getConnection);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Connection getConnection(final String username, final String password) throws SQLException {
+        return this.route(dataSource -> dataSource.getConnection(username, password));
+    }
+
+    private Connection route(final ConnectionSupplier connectionSupplier) throws SQLException {
+        final String reason;
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            reason = READ_WRITE_REASON;
+        } else if (!ReplicaReadAspect.isReplicaRead()) {
+            reason = PRIMARY_READ_REASON;
+        } else if (!this.replicaHealthMonitor.isAvailable()) {
+            reason = REPLICA_UNAVAILABLE_REASON;
+        } else {
+            try {
+                final Connection connection = connectionSupplier.getConnection(this.replicaDataSource);
+                this.count(REPLICA_ROUTE, READ_ONLY_REASON);
+                return connection;
+            } catch (final SQLException e) {
+                log.warn("Unable to get a connection to the read replica. Falling back to primary", e);
+                this.replicaHealthMonitor.markUnavailable();
+            }
+            reason = REPLICA_FAILURE_REASON;
+        }
+        final Connection connection = connectionSupplier.getConnection(this.primaryDataSource);
+        this.count(PRIMARY_ROUTE, reason);
+        return connection;
+    }
+
+    private void count(final String route, final String reason) {
+        this.registry.counter(CONNECTIONS_COUNTER_NAME, ROUTE_TAG_NAME, route, REASON_TAG_NAME, reason).increment();
+    }
+
+    /**
+     * Gets a connection from a data source.
+     */
+    @FunctionalInterface
+    private interface ConnectionSupplier {
+        Connection getConnection(DataSource dataSource) throws SQLException;
+    }
+}
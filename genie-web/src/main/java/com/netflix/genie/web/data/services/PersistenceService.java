@@ -44,6 +44,8 @@ import com.netflix.genie.common.internal.dtos.JobStatus;
 import com.netflix.genie.common.internal.exceptions.unchecked.GenieInvalidStatusException;
 import com.netflix.genie.common.internal.exceptions.unchecked.GenieJobAlreadyClaimedException;
 import com.netflix.genie.web.data.services.impl.jpa.queries.aggregates.JobInfoAggregate;
+import com.netflix.genie.web.dtos.JobSearchCursor;
+import com.netflix.genie.web.dtos.JobSearchResultsPage;
 import com.netflix.genie.web.dtos.JobSubmission;
 import com.netflix.genie.web.dtos.ResolvedJob;
 import com.netflix.genie.web.exceptions.checked.IdAlreadyExistsException;
@@ -574,8 +576,13 @@ public interface PersistenceService {
      * @param maxFinished      The time which the job had to finish before in order to be returned (exclusive)
      * @param grouping         The job grouping to search for
      * @param groupingInstance The job grouping instance to search for
-     * @param page             Page information of job to get
+     * @param page             Page information of job to get. Active and archived jobs are merged in the order of
+     *                         its sort which may only reference properties of the job search results. The merge
+     *                         reads every row before the offset so implementations may reject deep offsets, use the
+     *                         cursor based search to page through all matching jobs
      * @return Metadata information on jobs which match the criteria
+     * @throws IllegalArgumentException If the sort references a property jobs can't be sorted by or the offset is
+     *                                  past the maximum the implementation supports
      */
     @SuppressWarnings("checkstyle:parameternumber")
     Page<JobSearchResult> findJobs(
@@ -596,25 +603,99 @@ public interface PersistenceService {
         @Nullable String groupingInstance,
         @NotNull Pageable page
     );
+
+    /**
+     * Find jobs which match the given filter criteria, from the most to the least recently created, continuing after
+     * the position of a previous search. Unlike offset based paging the cost of retrieving a page doesn't depend on
+     * how deep into the results it is.
+     *
+     * @param id               id for job
+     * @param name             name of job
+     * @param user             user who submitted job
+     * @param statuses         statuses of job
+     * @param tags             tags for the job
+     * @param clusterName      name of cluster for job
+     * @param clusterId        id of cluster for job
+     * @param commandName      name of the command run in the job
+     * @param commandId        id of the command run in the job
+     * @param minStarted       The time which the job had to start after in order to be return (inclusive)
+     * @param maxStarted       The time which the job had to start before in order to be returned (exclusive)
+     * @param minFinished      The time which the job had to finish after in order to be return (inclusive)
+     * @param maxFinished      The time which the job had to finish before in order to be returned (exclusive)
+     * @param grouping         The job grouping to search for
+     * @param groupingInstance The job grouping instance to search for
+     * @param cursor           The cursor returned with the previous page or {@literal null} for the first page
+     * @param pageSize         The maximum number of jobs to return
+     * @param includeTotal     Whether to also count all the jobs matching the criteria, which requires an extra query
+     * @return The page of jobs matching the criteria
+     */
+    @SuppressWarnings("checkstyle:parameternumber")
+    JobSearchResultsPage findJobs(
+        @Nullable String id,
+        @Nullable String name,
+        @Nullable String user,
+        @Nullable Set<com.netflix.genie.common.dto.JobStatus> statuses,
+        @Nullable Set<String> tags,
+        @Nullable String clusterName,
+        @Nullable String clusterId,
+        @Nullable String commandName,
+        @Nullable String commandId,
+        @Nullable Instant minStarted,
+        @Nullable Instant maxStarted,
+        @Nullable Instant minFinished,
+        @Nullable Instant maxFinished,
+        @Nullable String grouping,
+        @Nullable String groupingInstance,
+        @Nullable JobSearchCursor cursor,
+        @Min(1) int pageSize,
+        boolean includeTotal
+    );
     //endregion
 
     //region V4 Job APIs
 
     /**
-     * This method will delete a chunk of jobs whose creation time is earlier than the given date.
+     * This method will delete a chunk of jobs whose creation time is within the given window. Jobs which have been
+     * archived are deleted once there are no more matching jobs which haven't been. Disjoint windows can be deleted
+     * concurrently, e.g. by different nodes.
      *
-     * @param creationThreshold The instant in time before which all jobs should be deleted
+     * @param createdLowerBound The instant in time at or after which jobs must have been created to be deleted.
+     *                          Inclusive.
+     * @param createdUpperBound The instant in time before which jobs must have been created to be deleted. Exclusive.
      * @param excludeStatuses   The set of statuses that should be excluded from deletion if a job is in one of these
      *                          statuses
      * @param batchSize         The maximum number of jobs that should be deleted per query
      * @return the number of deleted jobs
      */
-    long deleteJobsCreatedBefore(
-        @NotNull Instant creationThreshold,
+    long deleteJobsCreatedBetween(
+        @NotNull Instant createdLowerBound,
+        @NotNull Instant createdUpperBound,
         @NotNull Set<JobStatus> excludeStatuses,
         @Min(1) int batchSize
     );
 
+    /**
+     * This method will move a chunk of jobs created within the given window which finished before the given date out
+     * of the store of active jobs into a compact archive. Only the archive status of archived jobs can still be
+     * updated. They can still be searched for and their status, request, resources, V3 job, execution and metadata
+     * read through this service. Concurrent calls archiving the same jobs don't fail, each job is archived by one of
+     * them.
+     *
+     * @param finishedThreshold The instant in time before which jobs must have finished to be archived
+     * @param createdLowerBound The instant in time at or after which jobs must have been created to be archived.
+     *                          Inclusive.
+     * @param createdUpperBound The instant in time before which jobs must have been created to be archived.
+     *                          Exclusive.
+     * @param batchSize         The maximum number of jobs that should be archived
+     * @return the number of archived jobs
+     */
+    long archiveJobsFinishedBefore(
+        @NotNull Instant finishedThreshold,
+        @NotNull Instant createdLowerBound,
+        @NotNull Instant createdUpperBound,
+        @Min(1) int batchSize
+    );
+
     /**
      * Save the given job submission information in the underlying data store.
      * <p>
@@ -1116,6 +1197,29 @@ public interface PersistenceService {
         @NotBlank String tag,
         Class<R> resourceClass
     ) throws NotFoundException;
+
+    /**
+     * Find all the resources of the given type which were updated at or after the given instant in time.
+     *
+     * @param <R>              The resource type to search for
+     * @param updatedThreshold The instant in time a resource must have been updated at or after to be returned.
+     *                         Inclusive.
+     * @param resourceClass    The class of the resource
+     * @return The set of resources which have been updated since the threshold
+     */
+    <R extends CommonResource> Set<R> findResourcesUpdatedSince(
+        @NotNull Instant updatedThreshold,
+        Class<R> resourceClass
+    );
+
+    /**
+     * Get the ids of all the resources of the given type which currently exist.
+     *
+     * @param <R>           The resource type to get the ids for
+     * @param resourceClass The class of the resource
+     * @return The set of all the ids which currently exist for the resource type
+     */
+    <R extends CommonResource> Set<String> getResourceIds(Class<R> resourceClass);
     //endregion
 
     //region Tag APIs
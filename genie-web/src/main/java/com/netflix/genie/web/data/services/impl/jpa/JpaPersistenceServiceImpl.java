@@ -19,8 +19,12 @@ package com.netflix.genie.web.data.services.impl.jpa;
 
 import brave.SpanCustomizer;
 import brave.Tracer;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.NullNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
@@ -31,6 +35,7 @@ import com.netflix.genie.common.dto.UserResourcesSummary;
 import com.netflix.genie.common.dto.search.JobSearchResult;
 import com.netflix.genie.common.exceptions.GenieException;
 import com.netflix.genie.common.exceptions.GenieNotFoundException;
+import com.netflix.genie.common.exceptions.GeniePreconditionException;
 import com.netflix.genie.common.external.util.GenieObjectMapper;
 import com.netflix.genie.common.internal.dtos.AgentClientMetadata;
 import com.netflix.genie.common.internal.dtos.AgentConfigRequest;
@@ -70,6 +75,8 @@ import com.netflix.genie.common.internal.exceptions.unchecked.GenieRuntimeExcept
 import com.netflix.genie.common.internal.tracing.TracingConstants;
 import com.netflix.genie.common.internal.tracing.brave.BraveTagAdapter;
 import com.netflix.genie.common.internal.tracing.brave.BraveTracingComponents;
+import com.netflix.genie.web.data.datasources.ReplicaRead;
+import com.netflix.genie.web.data.services.MaintenanceOperation;
 import com.netflix.genie.web.data.services.PersistenceService;
 import com.netflix.genie.web.data.services.impl.jpa.converters.EntityV3DtoConverters;
 import com.netflix.genie.web.data.services.impl.jpa.converters.EntityV4DtoConverters;
@@ -82,14 +89,19 @@ import com.netflix.genie.web.data.services.impl.jpa.entities.CommandEntity;
 import com.netflix.genie.web.data.services.impl.jpa.entities.CommandEntity_;
 import com.netflix.genie.web.data.services.impl.jpa.entities.CriterionEntity;
 import com.netflix.genie.web.data.services.impl.jpa.entities.FileEntity;
+import com.netflix.genie.web.data.services.impl.jpa.entities.HostJobCountersEntity;
 import com.netflix.genie.web.data.services.impl.jpa.entities.JobEntity;
 import com.netflix.genie.web.data.services.impl.jpa.entities.JobEntity_;
+import com.netflix.genie.web.data.services.impl.jpa.entities.JobHistoryEntity;
 import com.netflix.genie.web.data.services.impl.jpa.entities.TagEntity;
 import com.netflix.genie.web.data.services.impl.jpa.entities.UniqueIdEntity;
+import com.netflix.genie.web.data.services.impl.jpa.entities.UniqueIdEntity_;
+import com.netflix.genie.web.data.services.impl.jpa.entities.UserJobCountersEntity;
 import com.netflix.genie.web.data.services.impl.jpa.queries.aggregates.JobInfoAggregate;
 import com.netflix.genie.web.data.services.impl.jpa.queries.predicates.ApplicationPredicates;
 import com.netflix.genie.web.data.services.impl.jpa.queries.predicates.ClusterPredicates;
 import com.netflix.genie.web.data.services.impl.jpa.queries.predicates.CommandPredicates;
+import com.netflix.genie.web.data.services.impl.jpa.queries.predicates.JobHistoryPredicates;
 import com.netflix.genie.web.data.services.impl.jpa.queries.predicates.JobPredicates;
 import com.netflix.genie.web.data.services.impl.jpa.queries.projections.JobExecutionProjection;
 import com.netflix.genie.web.data.services.impl.jpa.queries.projections.JobMetadataProjection;
@@ -101,17 +113,26 @@ import com.netflix.genie.web.data.services.impl.jpa.repositories.JpaClusterRepos
 import com.netflix.genie.web.data.services.impl.jpa.repositories.JpaCommandRepository;
 import com.netflix.genie.web.data.services.impl.jpa.repositories.JpaCriterionRepository;
 import com.netflix.genie.web.data.services.impl.jpa.repositories.JpaFileRepository;
+import com.netflix.genie.web.data.services.impl.jpa.repositories.JpaHostJobCountersRepository;
+import com.netflix.genie.web.data.services.impl.jpa.repositories.JpaJobHistoryRepository;
 import com.netflix.genie.web.data.services.impl.jpa.repositories.JpaJobRepository;
 import com.netflix.genie.web.data.services.impl.jpa.repositories.JpaRepositories;
 import com.netflix.genie.web.data.services.impl.jpa.repositories.JpaTagRepository;
+import com.netflix.genie.web.data.services.impl.jpa.repositories.JpaUserJobCountersRepository;
+import com.netflix.genie.web.dtos.JobSearchCursor;
+import com.netflix.genie.web.dtos.JobSearchResultsPage;
 import com.netflix.genie.web.dtos.JobSubmission;
 import com.netflix.genie.web.dtos.ResolvedJob;
 import com.netflix.genie.web.exceptions.checked.IdAlreadyExistsException;
 import com.netflix.genie.web.exceptions.checked.NotFoundException;
 import com.netflix.genie.web.exceptions.checked.PreconditionFailedException;
+import com.netflix.genie.web.properties.SharedEntityCacheProperties;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.dao.ConcurrencyFailureException;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
@@ -119,16 +140,23 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.persistence.EntityManager;
 import javax.persistence.NoResultException;
+import javax.persistence.Tuple;
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
 import javax.persistence.criteria.Order;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
 import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Selection;
 import javax.persistence.criteria.Subquery;
+import javax.persistence.metamodel.Attribute;
 import javax.validation.ConstraintViolationException;
 import javax.validation.Valid;
 import javax.validation.constraints.Min;
@@ -139,11 +167,18 @@ import javax.validation.constraints.Size;
 import java.net.URI;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.function.BiFunction;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -196,8 +231,35 @@ public class JpaPersistenceServiceImpl implements PersistenceService {
         .map(Enum::name)
         .collect(Collectors.toSet());
 
+    /**
+     * The largest offset an offset based job search may start at. Active and archived jobs are merged in memory so a
+     * page at offset N reads up to N + page size rows from both tables. Deeper results are paged by cursor.
+     */
+    @VisibleForTesting
+    static final long MAX_JOB_SEARCH_OFFSET = 10_000L;
+
     private static final String LOAD_GRAPH_HINT = "javax.persistence.loadgraph";
     private static final int MAX_STATUS_MESSAGE_LENGTH = 255;
+    // Name of the archive status field in the serialized V3 job execution of an archived job
+    private static final String ARCHIVE_STATUS_FIELD = "archiveStatus";
+
+    // Every table holding rows owned by a job keyed by job_id. Deleted explicitly before the job rows so that a purge
+    // doesn't rely on the database cascading (and locking) one job at a time.
+    private static final List<String> JOB_CHILD_TABLES = List.of(
+        "job_command_arguments",
+        "job_environment_variables",
+        "job_requested_applications",
+        "job_requested_environment_variables",
+        "jobs_applications",
+        "jobs_cluster_criteria",
+        "jobs_configs",
+        "jobs_dependencies",
+        "jobs_tags"
+    );
+    private static final String FIND_JOB_CRITERIA_QUERY =
+        "SELECT command_criterion FROM jobs WHERE id IN (:jobIds)"
+            + " UNION"
+            + " SELECT criterion_id FROM jobs_cluster_criteria WHERE job_id IN (:jobIds)";
 
     private final EntityManager entityManager;
 
@@ -206,12 +268,19 @@ public class JpaPersistenceServiceImpl implements PersistenceService {
     private final JpaCommandRepository commandRepository;
     private final JpaCriterionRepository criterionRepository;
     private final JpaFileRepository fileRepository;
+    private final JpaHostJobCountersRepository hostJobCountersRepository;
+    private final JpaJobHistoryRepository jobHistoryRepository;
     private final JpaJobRepository jobRepository;
     private final JpaTagRepository tagRepository;
+    private final JpaUserJobCountersRepository userJobCountersRepository;
 
     private final Tracer tracer;
     private final BraveTagAdapter tagAdapter;
 
+    // Tags and files are never updated once created so committed instances can be shared between transactions
+    private final Cache<String, TagEntity> tagEntityCache;
+    private final Cache<String, FileEntity> fileEntityCache;
+
     /**
      * Constructor.
      *
@@ -223,6 +292,23 @@ public class JpaPersistenceServiceImpl implements PersistenceService {
         final EntityManager entityManager,
         final JpaRepositories jpaRepositories,
         final BraveTracingComponents tracingComponents
+    ) {
+        this(entityManager, jpaRepositories, tracingComponents, new SharedEntityCacheProperties());
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param entityManager               The {@link EntityManager} to use
+     * @param jpaRepositories             All the repositories in the Genie application
+     * @param tracingComponents           All the Brave related tracing components needed to add metadata to Spans
+     * @param sharedEntityCacheProperties The properties of the cache of tag and file entities
+     */
+    public JpaPersistenceServiceImpl(
+        final EntityManager entityManager,
+        final JpaRepositories jpaRepositories,
+        final BraveTracingComponents tracingComponents,
+        final SharedEntityCacheProperties sharedEntityCacheProperties
     ) {
         this.entityManager = entityManager;
         this.applicationRepository = jpaRepositories.getApplicationRepository();
@@ -230,11 +316,25 @@ public class JpaPersistenceServiceImpl implements PersistenceService {
         this.commandRepository = jpaRepositories.getCommandRepository();
         this.criterionRepository = jpaRepositories.getCriterionRepository();
         this.fileRepository = jpaRepositories.getFileRepository();
+        this.hostJobCountersRepository = jpaRepositories.getHostJobCountersRepository();
+        this.jobHistoryRepository = jpaRepositories.getJobHistoryRepository();
         this.jobRepository = jpaRepositories.getJobRepository();
         this.tagRepository = jpaRepositories.getTagRepository();
+        this.userJobCountersRepository = jpaRepositories.getUserJobCountersRepository();
 
         this.tracer = tracingComponents.getTracer();
         this.tagAdapter = tracingComponents.getTagAdapter();
+
+        this.tagEntityCache = Caffeine
+            .newBuilder()
+            .maximumSize(sharedEntityCacheProperties.getMaxSize())
+            .expireAfterWrite(sharedEntityCacheProperties.getExpireAfterWrite())
+            .build();
+        this.fileEntityCache = Caffeine
+            .newBuilder()
+            .maximumSize(sharedEntityCacheProperties.getMaxSize())
+            .expireAfterWrite(sharedEntityCacheProperties.getExpireAfterWrite())
+            .build();
     }
 
     //region Application APIs
@@ -250,8 +350,11 @@ public class JpaPersistenceServiceImpl implements PersistenceService {
         this.updateApplicationEntity(entity, applicationRequest.getResources(), applicationRequest.getMetadata());
 
         try {
-            return this.applicationRepository.save(entity).getUniqueId();
+            final String id = this.applicationRepository.save(entity).getUniqueId();
+            this.entityManager.flush();
+            return id;
         } catch (final DataIntegrityViolationException e) {
+            this.retryIfSharedEntitiesWereCached(e);
             throw new IdAlreadyExistsException(
                 "An application with id " + entity.getUniqueId() + " already exists",
                 e
@@ -277,6 +380,7 @@ public class JpaPersistenceServiceImpl implements PersistenceService {
      */
     @Override
     @Transactional(readOnly = true)
+    @ReplicaRead
     public Page<Application> findApplications(
         @Nullable final String name,
         @Nullable final String user,
@@ -470,6 +574,7 @@ public class JpaPersistenceServiceImpl implements PersistenceService {
      */
     @Override
     @Transactional(isolation = Isolation.READ_COMMITTED)
+    @MaintenanceOperation
     public long deleteUnusedApplications(final Instant createdThreshold, final int batchSize) {
         log.info("Attempting to delete unused applications created before {}", createdThreshold);
         return this.applicationRepository.deleteByIdIn(
@@ -491,8 +596,11 @@ public class JpaPersistenceServiceImpl implements PersistenceService {
         this.updateClusterEntity(entity, clusterRequest.getResources(), clusterRequest.getMetadata());
 
         try {
-            return this.clusterRepository.save(entity).getUniqueId();
+            final String id = this.clusterRepository.save(entity).getUniqueId();
+            this.entityManager.flush();
+            return id;
         } catch (final DataIntegrityViolationException e) {
+            this.retryIfSharedEntitiesWereCached(e);
             throw new IdAlreadyExistsException("A cluster with id " + entity.getUniqueId() + " already exists", e);
         }
     }
@@ -515,6 +623,7 @@ public class JpaPersistenceServiceImpl implements PersistenceService {
      */
     @Override
     @Transactional(readOnly = true)
+    @ReplicaRead
     public Page<Cluster> findClusters(
         @Nullable final String name,
         @Nullable final Set<ClusterStatus> statuses,
@@ -685,6 +794,7 @@ public class JpaPersistenceServiceImpl implements PersistenceService {
      */
     @Override
     @Transactional(isolation = Isolation.READ_COMMITTED)
+    @MaintenanceOperation
     public long deleteUnusedClusters(
         final Set<ClusterStatus> deleteStatuses,
         final Instant clusterCreatedThreshold,
@@ -796,8 +906,11 @@ public class JpaPersistenceServiceImpl implements PersistenceService {
         );
 
         try {
-            return this.commandRepository.save(entity).getUniqueId();
+            final String id = this.commandRepository.save(entity).getUniqueId();
+            this.entityManager.flush();
+            return id;
         } catch (final DataIntegrityViolationException e) {
+            this.retryIfSharedEntitiesWereCached(e);
             throw new IdAlreadyExistsException(
                 "A command with id " + entity.getUniqueId() + " already exists",
                 e
@@ -823,6 +936,7 @@ public class JpaPersistenceServiceImpl implements PersistenceService {
      */
     @Override
     @Transactional(readOnly = true)
+    @ReplicaRead
     public Page<Command> findCommands(
         @Nullable final String name,
         @Nullable final String user,
@@ -1242,6 +1356,7 @@ public class JpaPersistenceServiceImpl implements PersistenceService {
      */
     @Override
     @Transactional(isolation = Isolation.READ_COMMITTED)
+    @MaintenanceOperation
     public int updateStatusForUnusedCommands(
         final CommandStatus desiredStatus,
         final Instant commandCreatedThreshold,
@@ -1280,6 +1395,7 @@ public class JpaPersistenceServiceImpl implements PersistenceService {
      */
     @Override
     @Transactional(isolation = Isolation.READ_COMMITTED)
+    @MaintenanceOperation
     public long deleteUnusedCommands(
         final Set<CommandStatus> deleteStatuses,
         final Instant commandCreatedThreshold,
@@ -1310,11 +1426,11 @@ public class JpaPersistenceServiceImpl implements PersistenceService {
     @Override
     public Job getJob(@NotBlank final String id) throws GenieException {
         log.debug("[getJob] Called with id {}", id);
-        return EntityV3DtoConverters.toJobDto(
-            this.jobRepository
-                .getV3Job(id)
-                .orElseThrow(() -> new GenieNotFoundException("No job with id " + id))
-        );
+        return this.jobRepository
+            .getV3Job(id)
+            .map(EntityV3DtoConverters::toJobDto)
+            .or(() -> this.getArchivedJobDto(id, JobHistoryEntity::getJob, Job.class))
+            .orElseThrow(() -> new GenieNotFoundException("No job with id " + id));
     }
 
     /**
@@ -1323,11 +1439,11 @@ public class JpaPersistenceServiceImpl implements PersistenceService {
     @Override
     public JobExecution getJobExecution(@NotBlank final String id) throws GenieException {
         log.debug("[getJobExecution] Called with id {}", id);
-        return EntityV3DtoConverters.toJobExecutionDto(
-            this.jobRepository
-                .findByUniqueId(id, JobExecutionProjection.class)
-                .orElseThrow(() -> new GenieNotFoundException("No job with id " + id))
-        );
+        return this.jobRepository
+            .findByUniqueId(id, JobExecutionProjection.class)
+            .map(EntityV3DtoConverters::toJobExecutionDto)
+            .or(() -> this.getArchivedJobDto(id, JobHistoryEntity::getJobExecution, JobExecution.class))
+            .orElseThrow(() -> new GenieNotFoundException("No job with id " + id));
     }
 
     /**
@@ -1336,11 +1452,133 @@ public class JpaPersistenceServiceImpl implements PersistenceService {
     @Override
     public com.netflix.genie.common.dto.JobMetadata getJobMetadata(@NotBlank final String id) throws GenieException {
         log.debug("[getJobMetadata] Called with id {}", id);
-        return EntityV3DtoConverters.toJobMetadataDto(
-            this.jobRepository
-                .findByUniqueId(id, JobMetadataProjection.class)
-                .orElseThrow(() -> new GenieNotFoundException("No job found for id " + id))
+        return this.jobRepository
+            .findByUniqueId(id, JobMetadataProjection.class)
+            .map(EntityV3DtoConverters::toJobMetadataDto)
+            .or(
+                () -> this.getArchivedJobDto(
+                    id,
+                    JobHistoryEntity::getJobMetadata,
+                    com.netflix.genie.common.dto.JobMetadata.class
+                )
+            )
+            .orElseThrow(() -> new GenieNotFoundException("No job found for id " + id));
+    }
+
+    private <T> Optional<T> getArchivedJobDto(
+        final String id,
+        final Function<JobHistoryEntity, JsonNode> dtoGetter,
+        final Class<T> dtoClass
+    ) {
+        return this.jobHistoryRepository
+            .findByUniqueId(id)
+            .map(dtoGetter)
+            .map(json -> readArchivedJobDto(id, json, dtoClass));
+    }
+
+    private static <T> T readArchivedJobDto(final String id, final JsonNode json, final Class<T> dtoClass) {
+        try {
+            return GenieObjectMapper.getMapper().treeToValue(json, dtoClass);
+        } catch (final JsonProcessingException e) {
+            throw new GenieRuntimeException("Unable to read archived job " + id, e);
+        }
+    }
+
+    /*
+     * Archived jobs only keep the V3 representation of their request so whatever V4 only fields the request had
+     * (agent configuration, requested images) are back to their defaults.
+     */
+    private static JobRequest readArchivedJobRequest(final JobHistoryEntity archivedJob) {
+        final String id = archivedJob.getUniqueId();
+        try {
+            return DtoConverters.toV4JobRequest(
+                readArchivedJobDto(id, archivedJob.getJobRequest(), com.netflix.genie.common.dto.JobRequest.class)
+            );
+        } catch (final GeniePreconditionException e) {
+            throw new GenieRuntimeException("Unable to read request of archived job " + id, e);
+        }
+    }
+
+    private static Optional<Cluster> readArchivedJobCluster(final JobHistoryEntity archivedJob) {
+        return Optional
+            .ofNullable(archivedJob.getJobCluster())
+            .map(
+                json -> readArchivedJobDto(archivedJob.getUniqueId(), json, com.netflix.genie.common.dto.Cluster.class)
+            )
+            .map(DtoConverters::toV4Cluster);
+    }
+
+    private static Optional<Command> readArchivedJobCommand(final JobHistoryEntity archivedJob) {
+        return Optional
+            .ofNullable(archivedJob.getJobCommand())
+            .map(
+                json -> readArchivedJobDto(archivedJob.getUniqueId(), json, com.netflix.genie.common.dto.Command.class)
+            )
+            .map(DtoConverters::toV4Command);
+    }
+
+    private static List<Application> readArchivedJobApplications(final JobHistoryEntity archivedJob) {
+        return Arrays
+            .stream(
+                readArchivedJobDto(
+                    archivedJob.getUniqueId(),
+                    archivedJob.getJobApplications(),
+                    com.netflix.genie.common.dto.Application[].class
+                )
+            )
+            .map(DtoConverters::toV4Application)
+            .collect(Collectors.toList());
+    }
+
+    /*
+     * Rebuild the finished job from the stored V3 DTOs. The agent client hostname and version aren't part of any of
+     * them so they're never set for archived jobs.
+     */
+    private static FinishedJob toArchivedFinishedJobDto(final JobHistoryEntity archivedJob) {
+        final String id = archivedJob.getUniqueId();
+        final Job job = readArchivedJobDto(id, archivedJob.getJob(), Job.class);
+        final JobExecution jobExecution = readArchivedJobDto(id, archivedJob.getJobExecution(), JobExecution.class);
+        final com.netflix.genie.common.dto.JobMetadata jobMetadata = readArchivedJobDto(
+            id,
+            archivedJob.getJobMetadata(),
+            com.netflix.genie.common.dto.JobMetadata.class
         );
+        final JobRequest jobRequest = readArchivedJobRequest(archivedJob);
+
+        final FinishedJob.Builder builder = new FinishedJob.Builder(
+            id,
+            job.getName(),
+            job.getUser(),
+            job.getVersion(),
+            archivedJob.getCreated(),
+            DtoConverters.toV4JobStatus(archivedJob.getStatus()),
+            jobRequest.getCommandArgs(),
+            jobRequest.getCriteria().getCommandCriterion(),
+            jobRequest.getCriteria().getClusterCriteria()
+        )
+            .withStarted(archivedJob.getStarted())
+            .withFinished(archivedJob.getFinished())
+            .withGrouping(archivedJob.getGrouping())
+            .withGroupingInstance(archivedJob.getGroupingInstance())
+            .withArchiveLocation(archivedJob.getArchiveLocation())
+            .withStatusMessage(job.getStatusMsg().orElse(null))
+            .withRequestedMemory(
+                jobRequest.getRequestedJobEnvironment().getRequestedComputeResources().getMemoryMb().orElse(null)
+            )
+            .withRequestApiClientHostname(jobMetadata.getClientHost().orElse(null))
+            .withRequestApiClientUserAgent(jobMetadata.getUserAgent().orElse(null))
+            .withNumAttachments(jobMetadata.getNumAttachments().orElse(null))
+            .withExitCode(jobExecution.getExitCode().orElse(null))
+            .withMemoryUsed(jobExecution.getRuntime().getResources().getMemoryMb().orElse(null))
+            .withCluster(readArchivedJobCluster(archivedJob).orElse(null))
+            .withCommand(readArchivedJobCommand(archivedJob).orElse(null))
+            .withApplications(readArchivedJobApplications(archivedJob));
+
+        builder.withTags(jobRequest.getMetadata().getTags());
+        job.getDescription().ifPresent(builder::withDescription);
+        job.getMetadata().ifPresent(builder::withMetadata);
+
+        return builder.build();
     }
 
     /**
@@ -1348,6 +1586,7 @@ public class JpaPersistenceServiceImpl implements PersistenceService {
      */
     @Override
     @Transactional(readOnly = true)
+    @ReplicaRead
     @SuppressWarnings("checkstyle:parameternumber")
     public Page<JobSearchResult> findJobs(
         @Nullable final String id,
@@ -1368,7 +1607,19 @@ public class JpaPersistenceServiceImpl implements PersistenceService {
         @NotNull final Pageable page
     ) {
         log.debug("[findJobs] Called");
+        if (page.getOffset() > MAX_JOB_SEARCH_OFFSET) {
+            throw new IllegalArgumentException(
+                "Job search offset "
+                    + page.getOffset()
+                    + " is past the maximum of "
+                    + MAX_JOB_SEARCH_OFFSET
+                    + ". Page through deeper results with the cursor based search instead."
+            );
+        }
 
+        // Jobs which were archived may reference clusters or commands that have since been deleted so only the jobs
+        // table can be skipped when they don't exist
+        boolean jobsMayMatch = true;
         ClusterEntity clusterEntity = null;
         if (clusterId != null) {
             final Optional<ClusterEntity> optionalClusterEntity
@@ -1376,8 +1627,7 @@ public class JpaPersistenceServiceImpl implements PersistenceService {
             if (optionalClusterEntity.isPresent()) {
                 clusterEntity = optionalClusterEntity.get();
             } else {
-                // Won't find anything matching the query
-                return new PageImpl<>(Lists.newArrayList(), page, 0);
+                jobsMayMatch = false;
             }
         }
         CommandEntity commandEntity = null;
@@ -1387,107 +1637,411 @@ public class JpaPersistenceServiceImpl implements PersistenceService {
             if (optionalCommandEntity.isPresent()) {
                 commandEntity = optionalCommandEntity.get();
             } else {
-                // Won't find anything matching the query
-                return new PageImpl<>(Lists.newArrayList(), page, 0);
+                jobsMayMatch = false;
             }
         }
 
         final Set<String> statusStrings = statuses != null
             ? statuses.stream().map(Enum::name).collect(Collectors.toSet())
             : null;
-
-        final CriteriaBuilder cb = this.entityManager.getCriteriaBuilder();
-        final CriteriaQuery<Long> countQuery = cb.createQuery(Long.class);
-        final Root<JobEntity> root = countQuery.from(JobEntity.class);
-
-        countQuery
-            .select(cb.count(root))
-            .where(
-                JobPredicates
-                    .getFindPredicate(
-                        root,
-                        cb,
-                        id,
-                        name,
-                        user,
-                        statusStrings,
-                        tags,
-                        clusterName,
-                        clusterEntity,
-                        commandName,
-                        commandEntity,
-                        minStarted,
-                        maxStarted,
-                        minFinished,
-                        maxFinished,
-                        grouping,
-                        groupingInstance
-                    )
+        final ClusterEntity finalClusterEntity = clusterEntity;
+        final CommandEntity finalCommandEntity = commandEntity;
+        final BiFunction<Root<JobEntity>, CriteriaBuilder, Predicate> jobPredicate = (root, cb) ->
+            JobPredicates.getFindPredicate(
+                root,
+                cb,
+                id,
+                name,
+                user,
+                statusStrings,
+                tags,
+                clusterName,
+                finalClusterEntity,
+                commandName,
+                finalCommandEntity,
+                minStarted,
+                maxStarted,
+                minFinished,
+                maxFinished,
+                grouping,
+                groupingInstance
             );
+        final BiFunction<Root<JobHistoryEntity>, CriteriaBuilder, Predicate> archivedJobPredicate = (root, cb) ->
+            JobHistoryPredicates.getFindPredicate(
+                root,
+                cb,
+                id,
+                name,
+                user,
+                statusStrings,
+                tags,
+                clusterName,
+                clusterId,
+                commandName,
+                commandId,
+                minStarted,
+                maxStarted,
+                minFinished,
+                maxFinished,
+                grouping,
+                groupingInstance
+            );
+
+        // Both tables are ordered by the same properties so reject anything either of them can't sort by up front
+        final Sort sort = page.getSort();
+        this.getJobSearchSortAttributeNames(JobEntity.class, sort);
+        this.getJobSearchSortAttributeNames(JobHistoryEntity.class, sort);
 
-        final long totalCount = this.entityManager.createQuery(countQuery).getSingleResult();
+        final long jobCount = jobsMayMatch ? this.countJobs(JobEntity.class, jobPredicate) : 0L;
+        final long archivedJobCount = this.countJobs(JobHistoryEntity.class, archivedJobPredicate);
+        final long totalCount = jobCount + archivedJobCount;
         if (totalCount == 0) {
             // short circuit for no results
             return new PageImpl<>(new ArrayList<>(0));
         }
 
-        final CriteriaQuery<JobSearchResult> contentQuery = cb.createQuery(JobSearchResult.class);
-        final Root<JobEntity> contentQueryRoot = contentQuery.from(JobEntity.class);
+        final List<JobSearchRow> rows;
+        if (archivedJobCount == 0) {
+            rows = this.findJobSearchRows(
+                JobEntity.class,
+                jobPredicate,
+                null,
+                sort,
+                page.getOffset(),
+                page.getPageSize()
+            );
+        } else if (jobCount == 0) {
+            rows = this.findJobSearchRows(
+                JobHistoryEntity.class,
+                archivedJobPredicate,
+                null,
+                sort,
+                page.getOffset(),
+                page.getPageSize()
+            );
+        } else {
+            // Rows of either table can land anywhere in the requested order (e.g. a long running job may have started
+            // before jobs which are already archived) so the first offset + size rows of both are merged by the sort
+            final int window = Math.toIntExact(page.getOffset() + page.getPageSize());
+            final List<JobSearchRow> mergedRows = new ArrayList<>(window * 2);
+            mergedRows.addAll(this.findJobSearchRows(JobEntity.class, jobPredicate, null, sort, 0L, window));
+            mergedRows.addAll(
+                this.findJobSearchRows(JobHistoryEntity.class, archivedJobPredicate, null, sort, 0L, window)
+            );
+            mergedRows.sort(getJobSearchRowComparator(sort));
+            rows = mergedRows
+                .stream()
+                .skip(page.getOffset())
+                .limit(page.getPageSize())
+                .collect(Collectors.toList());
+        }
+
+        final List<JobSearchResult> results = rows
+            .stream()
+            .map(JobSearchRow::getResult)
+            .collect(Collectors.toList());
+        return new PageImpl<>(results, page, totalCount);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional(readOnly = true)
+    @ReplicaRead
+    @SuppressWarnings("checkstyle:parameternumber")
+    public JobSearchResultsPage findJobs(
+        @Nullable final String id,
+        @Nullable final String name,
+        @Nullable final String user,
+        @Nullable final Set<com.netflix.genie.common.dto.JobStatus> statuses,
+        @Nullable final Set<String> tags,
+        @Nullable final String clusterName,
+        @Nullable final String clusterId,
+        @Nullable final String commandName,
+        @Nullable final String commandId,
+        @Nullable final Instant minStarted,
+        @Nullable final Instant maxStarted,
+        @Nullable final Instant minFinished,
+        @Nullable final Instant maxFinished,
+        @Nullable final String grouping,
+        @Nullable final String groupingInstance,
+        @Nullable final JobSearchCursor cursor,
+        @Min(1) final int pageSize,
+        final boolean includeTotal
+    ) {
+        log.debug("[findJobs] Called with cursor {}", cursor);
+
+        boolean jobsMayMatch = true;
+        ClusterEntity clusterEntity = null;
+        if (clusterId != null) {
+            final Optional<ClusterEntity> optionalClusterEntity
+                = this.getEntityOrNullForFindJobs(this.clusterRepository, clusterId, clusterName);
+            if (optionalClusterEntity.isPresent()) {
+                clusterEntity = optionalClusterEntity.get();
+            } else {
+                jobsMayMatch = false;
+            }
+        }
+        CommandEntity commandEntity = null;
+        if (commandId != null) {
+            final Optional<CommandEntity> optionalCommandEntity
+                = this.getEntityOrNullForFindJobs(this.commandRepository, commandId, commandName);
+            if (optionalCommandEntity.isPresent()) {
+                commandEntity = optionalCommandEntity.get();
+            } else {
+                jobsMayMatch = false;
+            }
+        }
+
+        final Set<String> statusStrings = statuses != null
+            ? statuses.stream().map(Enum::name).collect(Collectors.toSet())
+            : null;
+        final ClusterEntity finalClusterEntity = clusterEntity;
+        final CommandEntity finalCommandEntity = commandEntity;
+        final BiFunction<Root<JobEntity>, CriteriaBuilder, Predicate> jobPredicate = (root, cb) ->
+            JobPredicates.getFindPredicate(
+                root,
+                cb,
+                id,
+                name,
+                user,
+                statusStrings,
+                tags,
+                clusterName,
+                finalClusterEntity,
+                commandName,
+                finalCommandEntity,
+                minStarted,
+                maxStarted,
+                minFinished,
+                maxFinished,
+                grouping,
+                groupingInstance
+            );
+        final BiFunction<Root<JobHistoryEntity>, CriteriaBuilder, Predicate> archivedJobPredicate = (root, cb) ->
+            JobHistoryPredicates.getFindPredicate(
+                root,
+                cb,
+                id,
+                name,
+                user,
+                statusStrings,
+                tags,
+                clusterName,
+                clusterId,
+                commandName,
+                commandId,
+                minStarted,
+                maxStarted,
+                minFinished,
+                maxFinished,
+                grouping,
+                groupingInstance
+            );
+
+        Long totalCount = null;
+        if (includeTotal) {
+            totalCount = (jobsMayMatch ? this.countJobs(JobEntity.class, jobPredicate) : 0L)
+                + this.countJobs(JobHistoryEntity.class, archivedJobPredicate);
+            if (totalCount == 0) {
+                return new JobSearchResultsPage(new ArrayList<>(0), null, totalCount);
+            }
+        }
 
-        contentQuery.multiselect(
-            contentQueryRoot.get(JobEntity_.uniqueId),
-            contentQueryRoot.get(JobEntity_.name),
-            contentQueryRoot.get(JobEntity_.user),
-            contentQueryRoot.get(JobEntity_.status),
-            contentQueryRoot.get(JobEntity_.started),
-            contentQueryRoot.get(JobEntity_.finished),
-            contentQueryRoot.get(JobEntity_.clusterName),
-            contentQueryRoot.get(JobEntity_.commandName)
+        // Fetch one extra row from each table to find out whether there is a next page without counting. Ids are
+        // preserved when jobs are archived so the (created, id) order is consistent across both tables.
+        final List<JobSearchRow> rows = new ArrayList<>();
+        if (jobsMayMatch) {
+            rows.addAll(this.findJobSearchRows(JobEntity.class, jobPredicate, cursor, null, 0L, pageSize + 1));
+        }
+        rows.addAll(
+            this.findJobSearchRows(JobHistoryEntity.class, archivedJobPredicate, cursor, null, 0L, pageSize + 1)
+        );
+        rows.sort(
+            Comparator
+                .comparing(JobSearchRow::getCreated)
+                .thenComparingLong(JobSearchRow::getId)
+                .reversed()
         );
 
-        contentQuery.where(
-            JobPredicates
-                .getFindPredicate(
-                    contentQueryRoot,
-                    cb,
-                    id,
-                    name,
-                    user,
-                    statusStrings,
-                    tags,
-                    clusterName,
-                    clusterEntity,
-                    commandName,
-                    commandEntity,
-                    minStarted,
-                    maxStarted,
-                    minFinished,
-                    maxFinished,
-                    grouping,
-                    groupingInstance
+        final List<JobSearchResult> results = rows
+            .stream()
+            .limit(pageSize)
+            .map(JobSearchRow::getResult)
+            .collect(Collectors.toList());
+
+        JobSearchCursor nextCursor = null;
+        if (rows.size() > pageSize) {
+            final JobSearchRow last = rows.get(pageSize - 1);
+            nextCursor = new JobSearchCursor(last.getCreated(), last.getId());
+        }
+        return new JobSearchResultsPage(results, nextCursor, totalCount);
+    }
+
+    private <E> long countJobs(
+        final Class<E> entityClass,
+        final BiFunction<Root<E>, CriteriaBuilder, Predicate> predicateFunction
+    ) {
+        final CriteriaBuilder cb = this.entityManager.getCriteriaBuilder();
+        final CriteriaQuery<Long> countQuery = cb.createQuery(Long.class);
+        final Root<E> root = countQuery.from(entityClass);
+        countQuery.select(cb.count(root)).where(predicateFunction.apply(root, cb));
+        return this.entityManager.createQuery(countQuery).getSingleResult();
+    }
+
+    /*
+     * Jobs and archived jobs name the attributes shown in search results the same so one query serves both tables.
+     * Seeks past the cursor in (created, id) order when a cursor is given otherwise applies the requested sort and
+     * offset. Nulls are ordered last and ties are broken by id descending so that rows of both tables are ordered the
+     * same way on any database and can be merged with getJobSearchRowComparator.
+     */
+    private <E> List<JobSearchRow> findJobSearchRows(
+        final Class<E> entityClass,
+        final BiFunction<Root<E>, CriteriaBuilder, Predicate> predicateFunction,
+        @Nullable final JobSearchCursor cursor,
+        @Nullable final Sort sort,
+        final long offset,
+        final int limit
+    ) {
+        final CriteriaBuilder cb = this.entityManager.getCriteriaBuilder();
+        final CriteriaQuery<Tuple> contentQuery = cb.createTupleQuery();
+        final Root<E> root = contentQuery.from(entityClass);
+        final Path<String> uniqueIdPath = root.get("uniqueId");
+        final Path<String> namePath = root.get("name");
+        final Path<String> userPath = root.get("user");
+        final Path<String> statusPath = root.get("status");
+        final Path<Instant> startedPath = root.get("started");
+        final Path<Instant> finishedPath = root.get("finished");
+        final Path<String> clusterNamePath = root.get("clusterName");
+        final Path<String> commandNamePath = root.get("commandName");
+        final Path<Instant> createdPath = root.get("created");
+        final Path<Long> idPath = root.get("id");
+
+        final List<Selection<?>> selections = Lists.newArrayList(
+            uniqueIdPath,
+            namePath,
+            userPath,
+            statusPath,
+            startedPath,
+            finishedPath,
+            clusterNamePath,
+            commandNamePath,
+            createdPath,
+            idPath
+        );
+        // The sorted values are selected as well so rows from both tables can be merged in the same order
+        final List<Path<?>> sortPaths = new ArrayList<>();
+        if (sort != null) {
+            for (final String attributeName : this.getJobSearchSortAttributeNames(entityClass, sort)) {
+                final Path<?> sortPath = root.get(attributeName);
+                sortPaths.add(sortPath);
+                selections.add(sortPath);
+            }
+        }
+        contentQuery.multiselect(selections);
+
+        Predicate predicate = predicateFunction.apply(root, cb);
+        if (cursor != null) {
+            // Seek past the last job of the previous page using the (created, id) index
+            predicate = cb.and(
+                predicate,
+                cb.or(
+                    cb.lessThan(createdPath, cursor.getCreated()),
+                    cb.and(
+                        cb.equal(createdPath, cursor.getCreated()),
+                        cb.lessThan(idPath, cursor.getId())
+                    )
                 )
-        );
+            );
+        }
+        contentQuery.where(predicate);
 
-        final Sort sort = page.getSort();
-        final List<Order> orders = new ArrayList<>();
-        sort.iterator().forEachRemaining(
-            order -> {
-                if (order.isAscending()) {
-                    orders.add(cb.asc(root.get(order.getProperty())));
-                } else {
-                    orders.add(cb.desc(root.get(order.getProperty())));
-                }
+        if (sort == null) {
+            contentQuery.orderBy(cb.desc(createdPath), cb.desc(idPath));
+        } else {
+            final List<Order> orders = new ArrayList<>();
+            int sortIndex = 0;
+            for (final Sort.Order order : sort) {
+                final Path<?> sortPath = sortPaths.get(sortIndex++);
+                orders.add(cb.asc(cb.<Integer>selectCase().when(cb.isNull(sortPath), 1).otherwise(0)));
+                orders.add(order.isAscending() ? cb.asc(sortPath) : cb.desc(sortPath));
             }
-        );
-        contentQuery.orderBy(orders);
+            orders.add(cb.desc(idPath));
+            contentQuery.orderBy(orders);
+        }
 
-        final List<JobSearchResult> results = this.entityManager
+        final List<Tuple> tuples = this.entityManager
             .createQuery(contentQuery)
-            .setFirstResult(((Long) page.getOffset()).intValue())
-            .setMaxResults(page.getPageSize())
+            .setFirstResult(Math.toIntExact(offset))
+            .setMaxResults(limit)
             .getResultList();
 
-        return new PageImpl<>(results, page, totalCount);
+        final List<JobSearchRow> rows = new ArrayList<>(tuples.size());
+        for (final Tuple tuple : tuples) {
+            rows.add(
+                new JobSearchRow(
+                    tuple.get(createdPath),
+                    tuple.get(idPath),
+                    sortPaths.stream().<Object>map(tuple::get).collect(Collectors.toList()),
+                    new JobSearchResult(
+                        tuple.get(uniqueIdPath),
+                        tuple.get(namePath),
+                        tuple.get(userPath),
+                        tuple.get(statusPath),
+                        tuple.get(startedPath),
+                        tuple.get(finishedPath),
+                        tuple.get(clusterNamePath),
+                        tuple.get(commandNamePath)
+                    )
+                )
+            );
+        }
+        return rows;
+    }
+
+    /*
+     * The attributes to order job search rows by. Only basic single valued attributes can be sorted on consistently
+     * in the database and in memory so anything else is rejected rather than silently changing the requested order.
+     */
+    private <E> List<String> getJobSearchSortAttributeNames(final Class<E> entityClass, final Sort sort) {
+        final Set<String> sortableAttributeNames = this.entityManager
+            .getMetamodel()
+            .entity(entityClass)
+            .getSingularAttributes()
+            .stream()
+            .filter(attribute -> attribute.getPersistentAttributeType() == Attribute.PersistentAttributeType.BASIC)
+            .map(Attribute::getName)
+            .collect(Collectors.toSet());
+        final List<String> attributeNames = new ArrayList<>();
+        for (final Sort.Order order : sort) {
+            if (!sortableAttributeNames.contains(order.getProperty())) {
+                throw new IllegalArgumentException("Unable to sort jobs by unknown property " + order.getProperty());
+            }
+            attributeNames.add(order.getProperty());
+        }
+        return attributeNames;
+    }
+
+    /*
+     * Orders job search rows in memory the same way findJobSearchRows orders them in the database. Note strings are
+     * compared by their natural order which may differ from a case insensitive database collation.
+     */
+    @SuppressWarnings("unchecked")
+    private static Comparator<JobSearchRow> getJobSearchRowComparator(final Sort sort) {
+        Comparator<JobSearchRow> comparator = (left, right) -> 0;
+        int sortIndex = 0;
+        for (final Sort.Order order : sort) {
+            final int index = sortIndex++;
+            final Comparator<Comparable<Object>> valueComparator = order.isAscending()
+                ? Comparator.nullsLast(Comparator.<Comparable<Object>>naturalOrder())
+                : Comparator.nullsLast(Comparator.<Comparable<Object>>reverseOrder());
+            comparator = comparator.thenComparing(
+                row -> (Comparable<Object>) row.getSortValues().get(index),
+                valueComparator
+            );
+        }
+        return comparator.thenComparing(JobSearchRow::getId, Comparator.reverseOrder());
     }
     //endregion
 
@@ -1498,37 +2052,293 @@ public class JpaPersistenceServiceImpl implements PersistenceService {
      */
     @Override
     @Transactional(isolation = Isolation.READ_COMMITTED)
-    public long deleteJobsCreatedBefore(
-        @NotNull final Instant creationThreshold,
+    @MaintenanceOperation
+    public long deleteJobsCreatedBetween(
+        @NotNull final Instant createdLowerBound,
+        @NotNull final Instant createdUpperBound,
         @NotNull final Set<JobStatus> excludeStatuses,
         @Min(1) final int batchSize
     ) {
         final String excludeStatusesString = excludeStatuses.toString();
-        final String creationThresholdString = creationThreshold.toString();
+        final String createdLowerBoundString = createdLowerBound.toString();
+        final String createdUpperBoundString = createdUpperBound.toString();
         log.info(
-            "[deleteJobsCreatedBefore] Attempting to delete at most {} jobs created before {} that do not have any of "
-                + "these statuses {}",
+            "[deleteJobsCreatedBetween] Attempting to delete at most {} jobs created between {} and {} that do not "
+                + "have any of these statuses {}",
             batchSize,
-            creationThresholdString,
+            createdLowerBoundString,
+            createdUpperBoundString,
             excludeStatusesString
         );
         final Set<String> ignoredStatusStrings = excludeStatuses.stream().map(Enum::name).collect(Collectors.toSet());
-        final long numJobsDeleted = this.jobRepository.deleteByIdIn(
-            this.jobRepository.findJobsCreatedBefore(
-                creationThreshold,
-                ignoredStatusStrings,
+        final Set<Long> jobIds = this.jobRepository.findJobsCreatedBetween(
+            createdLowerBound,
+            createdUpperBound,
+            ignoredStatusStrings,
+            batchSize
+        );
+        if (jobIds.isEmpty()) {
+            // Archived jobs are all finished so only the creation time matters
+            final Set<Long> archivedJobIds = this.jobHistoryRepository.findJobsCreatedBetween(
+                createdLowerBound,
+                createdUpperBound,
                 batchSize
-            )
-        );
+            );
+            final long numArchivedJobsDeleted = archivedJobIds.isEmpty()
+                ? 0L
+                : this.jobHistoryRepository.deleteByIdIn(archivedJobIds);
+            log.info(
+                "[deleteJobsCreatedBetween] Deleted {} archived jobs created between {} and {}",
+                numArchivedJobsDeleted,
+                createdLowerBoundString,
+                createdUpperBoundString
+            );
+            return numArchivedJobsDeleted;
+        }
+        final long numJobsDeleted = this.bulkDeleteJobs(jobIds);
         log.info(
-            "[deleteJobsCreatedBefore] Deleted {} jobs created before {} that did not have any of these statuses {}",
+            "[deleteJobsCreatedBetween] Deleted {} jobs created between {} and {} that did not have any of these "
+                + "statuses {}",
             numJobsDeleted,
-            creationThresholdString,
+            createdLowerBoundString,
+            createdUpperBoundString,
             excludeStatusesString
         );
         return numJobsDeleted;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional(isolation = Isolation.READ_COMMITTED)
+    @MaintenanceOperation
+    public long archiveJobsFinishedBefore(
+        @NotNull final Instant finishedThreshold,
+        @NotNull final Instant createdLowerBound,
+        @NotNull final Instant createdUpperBound,
+        @Min(1) final int batchSize
+    ) {
+        final String finishedThresholdString = finishedThreshold.toString();
+        log.info(
+            "[archiveJobsFinishedBefore] Attempting to archive at most {} jobs created between {} and {} which "
+                + "finished before {}",
+            batchSize,
+            createdLowerBound,
+            createdUpperBound,
+            finishedThresholdString
+        );
+        final Set<Long> candidateJobIds = this.jobRepository.findJobsFinishedBefore(
+            finishedThreshold,
+            createdLowerBound,
+            createdUpperBound,
+            ACTIVE_STATUS_SET,
+            batchSize
+        );
+        if (candidateJobIds.isEmpty()) {
+            return 0L;
+        }
+        // Another node may be archiving the same jobs if the cleanup shards were reassigned while it ran. Waiting on
+        // the row locks means only jobs it hasn't moved to the history table yet are archived here.
+        final Set<Long> jobIds = this.jobRepository.lockJobsByIdIn(candidateJobIds);
+        if (jobIds.isEmpty()) {
+            return 0L;
+        }
+
+        // The V3 DTOs are stored whole so archived jobs can be served without any of the child tables or the
+        // cluster, command and application rows which may have been deleted since
+        final List<JobHistoryEntity> archivedJobs = new ArrayList<>(jobIds.size());
+        for (final JobEntity jobEntity : this.jobRepository.getV3JobsByIdIn(jobIds)) {
+            final JobHistoryEntity archivedJob = new JobHistoryEntity(jobEntity);
+            archivedJob.setJob(
+                GenieObjectMapper.getMapper().valueToTree(EntityV3DtoConverters.toJobDto(jobEntity))
+            );
+            archivedJob.setJobExecution(
+                GenieObjectMapper.getMapper().valueToTree(EntityV3DtoConverters.toJobExecutionDto(jobEntity))
+            );
+            archivedJob.setJobMetadata(
+                GenieObjectMapper.getMapper().valueToTree(EntityV3DtoConverters.toJobMetadataDto(jobEntity))
+            );
+            archivedJob.setJobRequest(
+                GenieObjectMapper.getMapper().valueToTree(
+                    DtoConverters.toV3JobRequest(EntityV4DtoConverters.toV4JobRequestDto(jobEntity))
+                )
+            );
+            archivedJob.setJobCluster(
+                jobEntity
+                    .getCluster()
+                    .map(EntityV4DtoConverters::toV4ClusterDto)
+                    .map(DtoConverters::toV3Cluster)
+                    .<JsonNode>map(GenieObjectMapper.getMapper()::valueToTree)
+                    .orElse(null)
+            );
+            archivedJob.setJobCommand(
+                jobEntity
+                    .getCommand()
+                    .map(EntityV4DtoConverters::toV4CommandDto)
+                    .map(DtoConverters::toV3Command)
+                    .<JsonNode>map(GenieObjectMapper.getMapper()::valueToTree)
+                    .orElse(null)
+            );
+            archivedJob.setJobApplications(
+                GenieObjectMapper.getMapper().valueToTree(
+                    jobEntity
+                        .getApplications()
+                        .stream()
+                        .map(EntityV4DtoConverters::toV4ApplicationDto)
+                        .map(DtoConverters::toV3Application)
+                        .collect(Collectors.toList())
+                )
+            );
+            archivedJobs.add(archivedJob);
+        }
+        this.jobHistoryRepository.saveAll(archivedJobs);
+        this.jobHistoryRepository.flush();
+
+        // Detach the loaded jobs so the native deletes don't leave stale entities in the persistence context
+        this.entityManager.clear();
+        final long numJobsArchived = this.bulkDeleteJobs(jobIds);
+        log.info(
+            "[archiveJobsFinishedBefore] Archived {} jobs finished before {}",
+            numJobsArchived,
+            finishedThresholdString
+        );
+        return numJobsArchived;
+    }
+
+    /*
+     * Apply the change in the resources held by a job to the counters of its user and of the host it runs on. Must be
+     * called in the same transaction as every change to the status, memory or host of an active job.
+     */
+    private void updateJobCounters(
+        @Nullable final JobResourceUsage previousUsage,
+        final JobResourceUsage currentUsage
+    ) {
+        final long activeJobs = currentUsage.getActiveJobs()
+            - (previousUsage == null ? 0L : previousUsage.getActiveJobs());
+        final long memoryAllocated = currentUsage.getMemoryAllocated()
+            - (previousUsage == null ? 0L : previousUsage.getMemoryAllocated());
+        if (activeJobs != 0L || memoryAllocated != 0L) {
+            final String user = currentUsage.getUser();
+            final long activeApiJobs = currentUsage.isApi() ? activeJobs : 0L;
+            final long apiMemoryAllocated = currentUsage.isApi() ? memoryAllocated : 0L;
+            if (
+                this.userJobCountersRepository.addToCounters(
+                    user,
+                    activeJobs,
+                    memoryAllocated,
+                    activeApiJobs,
+                    apiMemoryAllocated
+                ) == 0
+                    && activeJobs > 0L
+            ) {
+                this.insertJobCounters(
+                    user,
+                    () -> this.userJobCountersRepository.insertCounters(
+                        user,
+                        activeJobs,
+                        memoryAllocated,
+                        activeApiJobs,
+                        apiMemoryAllocated
+                    )
+                );
+            }
+        }
+
+        final String previousHostname = previousUsage == null ? null : previousUsage.getHostname();
+        final String currentHostname = currentUsage.getHostname();
+        if (previousHostname != null && !previousHostname.equals(currentHostname)) {
+            this.addToHostJobCounters(
+                previousHostname,
+                -previousUsage.getActiveJobs(),
+                -previousUsage.getMemoryAllocated(),
+                -previousUsage.getMemoryUsed()
+            );
+        }
+        if (currentHostname != null) {
+            final boolean sameHost = currentHostname.equals(previousHostname);
+            this.addToHostJobCounters(
+                currentHostname,
+                currentUsage.getActiveJobs() - (sameHost ? previousUsage.getActiveJobs() : 0L),
+                currentUsage.getMemoryAllocated() - (sameHost ? previousUsage.getMemoryAllocated() : 0L),
+                currentUsage.getMemoryUsed() - (sameHost ? previousUsage.getMemoryUsed() : 0L)
+            );
+        }
+    }
+
+    private void addToHostJobCounters(
+        final String hostname,
+        final long activeJobs,
+        final long memoryAllocated,
+        final long memoryUsed
+    ) {
+        if (activeJobs == 0L && memoryAllocated == 0L && memoryUsed == 0L) {
+            return;
+        }
+        if (
+            this.hostJobCountersRepository.addToCounters(hostname, activeJobs, memoryAllocated, memoryUsed) == 0
+                && activeJobs > 0L
+        ) {
+            this.insertJobCounters(
+                hostname,
+                () -> this.hostJobCountersRepository.insertCounters(hostname, activeJobs, memoryAllocated, memoryUsed)
+            );
+        }
+    }
+
+    /*
+     * Counters are created by the first job which becomes active for a user or host. If another transaction creates
+     * them first the whole operation is retried by the data service retry aspect, at which point the update succeeds.
+     */
+    private void insertJobCounters(final String key, final Runnable insert) {
+        try {
+            insert.run();
+        } catch (final DataIntegrityViolationException e) {
+            throw new ConcurrencyFailureException("Job counters for " + key + " were created concurrently", e);
+        }
+    }
+
+    /*
+     * Delete the given jobs with one set based native statement per table rather than loading every entity and
+     * letting the persistence context cascade the removal through each collection row by row. The criteria owned by
+     * the jobs are removed as well since they are never shared with any other job.
+     */
+    private long bulkDeleteJobs(final Set<Long> jobIds) {
+        if (jobIds.isEmpty()) {
+            return 0L;
+        }
+        @SuppressWarnings("unchecked") final Set<Long> criterionIds = ((List<Number>) this.entityManager
+            .createNativeQuery(FIND_JOB_CRITERIA_QUERY)
+            .setParameter("jobIds", jobIds)
+            .getResultList())
+            .stream()
+            .filter(Objects::nonNull)
+            .map(Number::longValue)
+            .collect(Collectors.toSet());
+
+        for (final String table : JOB_CHILD_TABLES) {
+            this.entityManager
+                .createNativeQuery("DELETE FROM " + table + " WHERE job_id IN (:jobIds)")
+                .setParameter("jobIds", jobIds)
+                .executeUpdate();
+        }
+        final int numJobsDeleted = this.entityManager
+            .createNativeQuery("DELETE FROM jobs WHERE id IN (:jobIds)")
+            .setParameter("jobIds", jobIds)
+            .executeUpdate();
+        if (!criterionIds.isEmpty()) {
+            this.entityManager
+                .createNativeQuery("DELETE FROM criteria_tags WHERE criterion_id IN (:criterionIds)")
+                .setParameter("criterionIds", criterionIds)
+                .executeUpdate();
+            this.entityManager
+                .createNativeQuery("DELETE FROM criteria WHERE id IN (:criterionIds)")
+                .setParameter("criterionIds", criterionIds)
+                .executeUpdate();
+        }
+        return numJobsDeleted;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -1569,6 +2379,8 @@ public class JpaPersistenceServiceImpl implements PersistenceService {
         // Persist. Catch exception if the ID is reused
         try {
             final String id = this.jobRepository.save(jobEntity).getUniqueId();
+            this.entityManager.flush();
+            this.updateJobCounters(null, JobResourceUsage.of(jobEntity));
             log.debug(
                 "[saveJobSubmission] Saved job submission {} under job id {}",
                 jobSubmission,
@@ -1579,6 +2391,7 @@ public class JpaPersistenceServiceImpl implements PersistenceService {
             this.tagAdapter.tag(spanCustomizer, TracingConstants.NEW_JOB_TAG, TracingConstants.TRUE_VALUE);
             return id;
         } catch (final DataIntegrityViolationException e) {
+            this.retryIfSharedEntitiesWereCached(e);
             throw new IdAlreadyExistsException(
                 "A job with id " + jobEntity.getUniqueId() + " already exists. Unable to reserve id.",
                 e
@@ -1595,6 +2408,11 @@ public class JpaPersistenceServiceImpl implements PersistenceService {
         return this.jobRepository
             .getV4JobRequest(id)
             .map(EntityV4DtoConverters::toV4JobRequestDto)
+            .or(
+                () -> this.jobHistoryRepository
+                    .findByUniqueId(id)
+                    .map(JpaPersistenceServiceImpl::readArchivedJobRequest)
+            )
             .orElseThrow(() -> new NotFoundException("No job ith id " + id + " exists"));
     }
 
@@ -1626,6 +2444,7 @@ public class JpaPersistenceServiceImpl implements PersistenceService {
                 );
                 return;
             }
+            final JobResourceUsage previousUsage = JobResourceUsage.of(entity);
             final JobSpecification jobSpecification = resolvedJob.getJobSpecification();
             this.setExecutionResources(
                 entity,
@@ -1659,6 +2478,7 @@ public class JpaPersistenceServiceImpl implements PersistenceService {
 
             entity.setResolved(true);
             entity.setStatus(JobStatus.RESOLVED.name());
+            this.updateJobCounters(previousUsage, JobResourceUsage.of(entity));
             log.debug("[saveResolvedJob] Saved resolved information {} for job with id {}", resolvedJob, id);
         } catch (final NotFoundException e) {
             log.error(
@@ -1723,6 +2543,7 @@ public class JpaPersistenceServiceImpl implements PersistenceService {
         }
 
         // Good to claim
+        final JobResourceUsage previousUsage = JobResourceUsage.of(jobEntity);
         jobEntity.setClaimed(true);
         jobEntity.setStatus(JobStatus.CLAIMED.name());
         // TODO: It might be nice to set the status message as well to something like "Job claimed by XYZ..."
@@ -1733,6 +2554,7 @@ public class JpaPersistenceServiceImpl implements PersistenceService {
         agentClientMetadata.getHostname().ifPresent(jobEntity::setAgentHostname);
         agentClientMetadata.getVersion().ifPresent(jobEntity::setAgentVersion);
         agentClientMetadata.getPid().ifPresent(jobEntity::setAgentPid);
+        this.updateJobCounters(previousUsage, JobResourceUsage.of(jobEntity));
         log.debug("[claimJob] Claimed job {} for agent with metadata {}", id, agentClientMetadata);
     }
 
@@ -1780,6 +2602,7 @@ public class JpaPersistenceServiceImpl implements PersistenceService {
 
         // Only change the status if the entity isn't already in a terminal state
         if (actualCurrentStatus.isActive()) {
+            final JobResourceUsage previousUsage = JobResourceUsage.of(jobEntity);
             jobEntity.setStatus(newStatus.name());
             jobEntity.setStatusMsg(StringUtils.truncate(newStatusMessage, MAX_STATUS_MESSAGE_LENGTH));
 
@@ -1792,6 +2615,8 @@ public class JpaPersistenceServiceImpl implements PersistenceService {
                 jobEntity.setFinished(Instant.now());
             }
 
+            this.updateJobCounters(previousUsage, JobResourceUsage.of(jobEntity));
+
             log.debug(
                 "[updateJobStatus] Changed the status of job {} from {} to {} with message {}",
                 id,
@@ -1825,10 +2650,20 @@ public class JpaPersistenceServiceImpl implements PersistenceService {
             archiveStatus
         );
 
-        this.jobRepository
-            .findByUniqueId(id)
-            .orElseThrow(() -> new NotFoundException("No job exists for the id specified"))
-            .setArchiveStatus(archiveStatus.name());
+        final Optional<JobEntity> job = this.jobRepository.findByUniqueId(id);
+        if (job.isPresent()) {
+            job.get().setArchiveStatus(archiveStatus.name());
+        } else {
+            // Archiving the files can still be in progress or be retried once the job has been moved to the history.
+            // The stored job execution carries the archive status as well so keep the two in sync.
+            final JobHistoryEntity archivedJob = this.jobHistoryRepository
+                .findByUniqueId(id)
+                .orElseThrow(() -> new NotFoundException("No job exists for the id specified"));
+            final ObjectNode jobExecution = (ObjectNode) archivedJob.getJobExecution().deepCopy();
+            jobExecution.put(ARCHIVE_STATUS_FIELD, archiveStatus.name());
+            archivedJob.setArchiveStatus(archiveStatus.name());
+            archivedJob.setJobExecution(jobExecution);
+        }
 
         log.debug(
             "[updateJobArchiveStatus] Changed the archive status of job {} to {}",
@@ -1845,6 +2680,7 @@ public class JpaPersistenceServiceImpl implements PersistenceService {
         return DtoConverters.toV4JobStatus(
             this.jobRepository
                 .getJobStatus(id)
+                .or(() -> this.jobHistoryRepository.findByUniqueId(id).map(JobHistoryEntity::getStatus))
                 .orElseThrow(() -> new NotFoundException("No job with id " + id + " exists. Unable to get status."))
         );
     }
@@ -1858,6 +2694,11 @@ public class JpaPersistenceServiceImpl implements PersistenceService {
             return ArchiveStatus.valueOf(
                 this.jobRepository
                     .getArchiveStatus(id)
+                    .or(
+                        () -> this.jobHistoryRepository
+                            .findByUniqueId(id)
+                            .map(archivedJob -> Objects.toString(archivedJob.getArchiveStatus(), ""))
+                    )
                     .orElseThrow(() -> new NotFoundException("No job with id " + id + " exists"))
             );
         } catch (IllegalArgumentException e) {
@@ -1882,7 +2723,10 @@ public class JpaPersistenceServiceImpl implements PersistenceService {
                     .getSingleResult()
             );
         } catch (final NoResultException e) {
-            throw new NotFoundException("No job with id " + id + " exits.", e);
+            return this.jobHistoryRepository
+                .findByUniqueId(id)
+                .map(archivedJob -> Optional.ofNullable(archivedJob.getArchiveLocation()))
+                .orElseThrow(() -> new NotFoundException("No job with id " + id + " exits.", e));
         }
     }
 
@@ -1891,9 +2735,13 @@ public class JpaPersistenceServiceImpl implements PersistenceService {
      */
     @Override
     public FinishedJob getFinishedJob(@NotBlank final String id) throws NotFoundException, GenieInvalidStatusException {
-        // TODO
         return this.jobRepository.findByUniqueId(id, FinishedJobProjection.class)
             .map(EntityV4DtoConverters::toFinishedJobDto)
+            .or(
+                () -> this.jobHistoryRepository
+                    .findByUniqueId(id)
+                    .map(JpaPersistenceServiceImpl::toArchivedFinishedJobDto)
+            )
             .orElseThrow(() -> new NotFoundException("No job with id " + id + " exists."));
     }
 
@@ -1904,6 +2752,7 @@ public class JpaPersistenceServiceImpl implements PersistenceService {
     public boolean isApiJob(@NotBlank final String id) throws NotFoundException {
         return this.jobRepository
             .isAPI(id)
+            .or(() -> this.jobHistoryRepository.findByUniqueId(id).map(JobHistoryEntity::isApi))
             .orElseThrow(() -> new NotFoundException("No job with id " + id + " exists"));
     }
 
@@ -1913,12 +2762,15 @@ public class JpaPersistenceServiceImpl implements PersistenceService {
     @Override
     public Cluster getJobCluster(@NotBlank final String id) throws NotFoundException {
         log.debug("[getJobCluster] Called for job {}", id);
-        return EntityV4DtoConverters.toV4ClusterDto(
-            this.jobRepository.getJobCluster(id)
-                .orElseThrow(() -> new NotFoundException("No job with id " + id + " exists"))
-                .getCluster()
-                .orElseThrow(() -> new NotFoundException("Job " + id + " has no associated cluster"))
-        );
+        return this.jobRepository.getJobCluster(id)
+            .map(job -> job.getCluster().map(EntityV4DtoConverters::toV4ClusterDto))
+            .or(
+                () -> this.jobHistoryRepository
+                    .findByUniqueId(id)
+                    .map(JpaPersistenceServiceImpl::readArchivedJobCluster)
+            )
+            .orElseThrow(() -> new NotFoundException("No job with id " + id + " exists"))
+            .orElseThrow(() -> new NotFoundException("Job " + id + " has no associated cluster"));
     }
 
     /**
@@ -1927,12 +2779,15 @@ public class JpaPersistenceServiceImpl implements PersistenceService {
     @Override
     public Command getJobCommand(@NotBlank final String id) throws NotFoundException {
         log.debug("[getJobCommand] Called for job {}", id);
-        return EntityV4DtoConverters.toV4CommandDto(
-            this.jobRepository.getJobCommand(id)
-                .orElseThrow(() -> new NotFoundException("No job with id " + id + " exists"))
-                .getCommand()
-                .orElseThrow(() -> new NotFoundException("Job " + id + " has no associated command"))
-        );
+        return this.jobRepository.getJobCommand(id)
+            .map(job -> job.getCommand().map(EntityV4DtoConverters::toV4CommandDto))
+            .or(
+                () -> this.jobHistoryRepository
+                    .findByUniqueId(id)
+                    .map(JpaPersistenceServiceImpl::readArchivedJobCommand)
+            )
+            .orElseThrow(() -> new NotFoundException("No job with id " + id + " exists"))
+            .orElseThrow(() -> new NotFoundException("Job " + id + " has no associated command"));
     }
 
     /**
@@ -1942,11 +2797,19 @@ public class JpaPersistenceServiceImpl implements PersistenceService {
     public List<Application> getJobApplications(@NotBlank final String id) throws NotFoundException {
         log.debug("[getJobApplications] Called for job {}", id);
         return this.jobRepository.getJobApplications(id)
-            .orElseThrow(() -> new NotFoundException("No job with id " + id + " exists"))
-            .getApplications()
-            .stream()
-            .map(EntityV4DtoConverters::toV4ApplicationDto)
-            .collect(Collectors.toList());
+            .map(
+                job -> job
+                    .getApplications()
+                    .stream()
+                    .map(EntityV4DtoConverters::toV4ApplicationDto)
+                    .collect(Collectors.toList())
+            )
+            .or(
+                () -> this.jobHistoryRepository
+                    .findByUniqueId(id)
+                    .map(JpaPersistenceServiceImpl::readArchivedJobApplications)
+            )
+            .orElseThrow(() -> new NotFoundException("No job with id " + id + " exists"));
     }
 
     /**
@@ -1956,8 +2819,11 @@ public class JpaPersistenceServiceImpl implements PersistenceService {
     @Transactional(readOnly = true)
     public long getActiveJobCountForUser(@NotBlank final String user) {
         log.debug("[getActiveJobCountForUser] Called for jobs with user {}", user);
-        final Long count = this.jobRepository.countJobsByUserAndStatusIn(user, ACTIVE_STATUS_SET);
-        if (count == null || count < 0) {
+        final long count = this.userJobCountersRepository
+            .findById(user)
+            .map(UserJobCountersEntity::getActiveJobs)
+            .orElse(0L);
+        if (count < 0) {
             throw new GenieRuntimeException("Count query for user " + user + "produced an unexpected result: " + count);
         }
         return count;
@@ -1968,11 +2834,42 @@ public class JpaPersistenceServiceImpl implements PersistenceService {
      */
     @Override
     @Transactional(readOnly = true)
+    @ReplicaRead
     public Map<String, UserResourcesSummary> getUserResourcesSummaries(
         final Set<JobStatus> statuses,
         final boolean api
     ) {
         log.debug("[getUserResourcesSummaries] Called for statuses {} and api {}", statuses, api);
+        if (JobStatus.getActiveStatuses().equals(statuses)) {
+            // The counters track exactly the active jobs so the jobs table doesn't need to be aggregated
+            final Stream<UserResourcesSummary> summaries;
+            if (api) {
+                summaries = this.userJobCountersRepository
+                    .findUsersWithActiveApiJobs()
+                    .stream()
+                    .map(
+                        counters -> new UserResourcesSummary(
+                            counters.getUser(),
+                            counters.getActiveApiJobs(),
+                            counters.getApiMemoryAllocated()
+                        )
+                    );
+            } else {
+                summaries = this.userJobCountersRepository
+                    .findUsersWithActiveAgentJobs()
+                    .stream()
+                    .map(
+                        counters -> new UserResourcesSummary(
+                            counters.getUser(),
+                            counters.getActiveJobs() - counters.getActiveApiJobs(),
+                            counters.getMemoryAllocated() - counters.getApiMemoryAllocated()
+                        )
+                    );
+            }
+            return summaries.collect(
+                Collectors.toMap(UserResourcesSummary::getUser, userResourcesSummary -> userResourcesSummary)
+            );
+        }
         return this.jobRepository
             .getUserJobResourcesAggregates(
                 statuses.stream().map(JobStatus::name).collect(Collectors.toSet()),
@@ -1989,7 +2886,10 @@ public class JpaPersistenceServiceImpl implements PersistenceService {
     @Override
     public long getUsedMemoryOnHost(@NotBlank final String hostname) {
         log.debug("[getUsedMemoryOnHost] Called for hostname {}", hostname);
-        return this.jobRepository.getTotalMemoryUsedOnHost(hostname, USING_MEMORY_JOB_SET);
+        return this.hostJobCountersRepository
+            .findById(hostname)
+            .map(HostJobCountersEntity::getTotalMemoryUsed)
+            .orElse(0L);
     }
 
     /**
@@ -2016,7 +2916,11 @@ public class JpaPersistenceServiceImpl implements PersistenceService {
     @Override
     public JobInfoAggregate getHostJobInformation(@NotBlank final String hostname) {
         log.debug("[getHostJobInformation] Called for hostname {}", hostname);
-        return this.jobRepository.getHostJobInfo(hostname, ACTIVE_STATUS_SET, USING_MEMORY_JOB_SET);
+        return this.hostJobCountersRepository
+            .findById(hostname)
+            .<JobInfoAggregate>map(Function.identity())
+            // No counters means no job has ever been claimed on the host
+            .orElseGet(HostJobCountersEntity::new);
     }
 
     /**
@@ -2292,6 +3196,53 @@ public class JpaPersistenceServiceImpl implements PersistenceService {
     ) throws NotFoundException {
         this.getResourceTagEntities(id, resourceClass).removeIf(entity -> tag.equals(entity.getTag()));
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public <R extends CommonResource> Set<R> findResourcesUpdatedSince(
+        @NotNull final Instant updatedThreshold,
+        final Class<R> resourceClass
+    ) {
+        log.debug("[findResourcesUpdatedSince] Called for {} updated since {}", resourceClass, updatedThreshold);
+        final Stream<? extends CommonResource> resources;
+        if (resourceClass.equals(Application.class)) {
+            resources = this
+                .findEntitiesUpdatedSince(ApplicationEntity.class, ApplicationEntity.DTO_ENTITY_GRAPH, updatedThreshold)
+                .map(EntityV4DtoConverters::toV4ApplicationDto);
+        } else if (resourceClass.equals(Cluster.class)) {
+            resources = this
+                .findEntitiesUpdatedSince(ClusterEntity.class, ClusterEntity.DTO_ENTITY_GRAPH, updatedThreshold)
+                .map(EntityV4DtoConverters::toV4ClusterDto);
+        } else if (resourceClass.equals(Command.class)) {
+            resources = this
+                .findEntitiesUpdatedSince(CommandEntity.class, CommandEntity.DTO_ENTITY_GRAPH, updatedThreshold)
+                .map(EntityV4DtoConverters::toV4CommandDto);
+        } else {
+            throw new IllegalArgumentException("Unsupported type: " + resourceClass);
+        }
+        return resources.map(resourceClass::cast).collect(Collectors.toSet());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public <R extends CommonResource> Set<String> getResourceIds(final Class<R> resourceClass) {
+        log.debug("[getResourceIds] Called for {}", resourceClass);
+        if (resourceClass.equals(Application.class)) {
+            return this.getEntityUniqueIds(ApplicationEntity.class);
+        } else if (resourceClass.equals(Cluster.class)) {
+            return this.getEntityUniqueIds(ClusterEntity.class);
+        } else if (resourceClass.equals(Command.class)) {
+            return this.getEntityUniqueIds(CommandEntity.class);
+        } else {
+            throw new IllegalArgumentException("Unsupported type: " + resourceClass);
+        }
+    }
     //endregion
 
     //region Tag APIs
@@ -2301,8 +3252,10 @@ public class JpaPersistenceServiceImpl implements PersistenceService {
      */
     @Override
     @Transactional(isolation = Isolation.READ_COMMITTED)
+    @MaintenanceOperation
     public long deleteUnusedTags(@NotNull final Instant createdThreshold, @Min(1) final int batchSize) {
         log.info("[deleteUnusedTags] Called to delete unused tags created before {}", createdThreshold);
+        this.tagEntityCache.invalidateAll();
         return this.tagRepository.deleteByIdIn(
             this.tagRepository
                 .findUnusedTags(createdThreshold, batchSize)
@@ -2320,6 +3273,7 @@ public class JpaPersistenceServiceImpl implements PersistenceService {
      */
     @Override
     @Transactional(isolation = Isolation.READ_COMMITTED)
+    @MaintenanceOperation
     public long deleteUnusedFiles(@NotNull final Instant createdThresholdLowerBound,
                                   @NotNull final Instant createdThresholdUpperBound,
                                   @Min(1) final int batchSize) {
@@ -2328,6 +3282,7 @@ public class JpaPersistenceServiceImpl implements PersistenceService {
             createdThresholdLowerBound,
             createdThresholdUpperBound
         );
+        this.fileEntityCache.invalidateAll();
         return this.fileRepository.deleteByIdIn(
             this.fileRepository
                 .findUnusedFiles(createdThresholdLowerBound, createdThresholdUpperBound, batchSize)
@@ -2364,6 +3319,11 @@ public class JpaPersistenceServiceImpl implements PersistenceService {
     }
 
     private FileEntity createOrGetFileEntity(final String file) {
+        final FileEntity cachedEntity = this.fileEntityCache.getIfPresent(file);
+        if (cachedEntity != null) {
+            this.evictOnRollback(this.fileEntityCache, file);
+            return cachedEntity;
+        }
         return this.createOrGetSharedEntity(
             file,
             this.fileRepository::findByFile,
@@ -2373,10 +3333,21 @@ public class JpaPersistenceServiceImpl implements PersistenceService {
     }
 
     private Set<FileEntity> createOrGetFileEntities(final Set<String> files) {
-        return files.stream().map(this::createOrGetFileEntity).collect(Collectors.toSet());
+        return this.createOrGetSharedEntities(
+            files,
+            this.fileEntityCache,
+            this.fileRepository::findByFileIn,
+            FileEntity::getFile,
+            this::createOrGetFileEntity
+        );
     }
 
     private TagEntity createOrGetTagEntity(final String tag) {
+        final TagEntity cachedEntity = this.tagEntityCache.getIfPresent(tag);
+        if (cachedEntity != null) {
+            this.evictOnRollback(this.tagEntityCache, tag);
+            return cachedEntity;
+        }
         return this.createOrGetSharedEntity(
             tag,
             this.tagRepository::findByTag,
@@ -2386,7 +3357,52 @@ public class JpaPersistenceServiceImpl implements PersistenceService {
     }
 
     private Set<TagEntity> createOrGetTagEntities(final Set<String> tags) {
-        return tags.stream().map(this::createOrGetTagEntity).collect(Collectors.toSet());
+        return this.createOrGetSharedEntities(
+            tags,
+            this.tagEntityCache,
+            this.tagRepository::findByTagIn,
+            TagEntity::getTag,
+            this::createOrGetTagEntity
+        );
+    }
+
+    /*
+     * Resolve all the values at once: first from the cache, then with a single IN query for the rest and only
+     * then one by one for values which don't exist yet. Misses are rare once a value has been seen and ids are
+     * generated by the database so inserts can't be batched by the JPA provider anyway. Only entities found by the
+     * query are cached, anything created here is cached the next time it is looked up.
+     */
+    private <E> Set<E> createOrGetSharedEntities(
+        final Set<String> values,
+        final Cache<String, E> cache,
+        final Function<Set<String>, Set<E>> findAll,
+        final Function<E, String> valueGetter,
+        final Function<String, E> createOrGet
+    ) {
+        final Set<E> entities = new HashSet<>();
+        final Set<String> uncachedValues = new HashSet<>();
+        for (final String value : values) {
+            final E cachedEntity = cache.getIfPresent(value);
+            if (cachedEntity != null) {
+                this.evictOnRollback(cache, value);
+                entities.add(cachedEntity);
+            } else {
+                uncachedValues.add(value);
+            }
+        }
+        if (uncachedValues.isEmpty()) {
+            return entities;
+        }
+
+        final Set<E> existingEntities = findAll.apply(uncachedValues);
+        this.cacheAfterCommit(cache, valueGetter, existingEntities);
+        final Map<String, E> existingEntitiesByValue = new HashMap<>();
+        existingEntities.forEach(entity -> existingEntitiesByValue.put(valueGetter.apply(entity), entity));
+        for (final String value : uncachedValues) {
+            final E existingEntity = existingEntitiesByValue.get(value);
+            entities.add(existingEntity != null ? existingEntity : createOrGet.apply(value));
+        }
+        return entities;
     }
 
     private <E> E createOrGetSharedEntity(
@@ -2412,6 +3428,63 @@ public class JpaPersistenceServiceImpl implements PersistenceService {
         }
     }
 
+    /*
+     * Entities may have been created by the current transaction so only make them visible to other transactions once
+     * they're known to be committed.
+     */
+    private <E> void cacheAfterCommit(
+        final Cache<String, E> cache,
+        final Function<E, String> valueGetter,
+        final Collection<E> entities
+    ) {
+        if (entities.isEmpty()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        entities.forEach(entity -> cache.put(valueGetter.apply(entity), entity));
+                    }
+                }
+            );
+        } else {
+            entities.forEach(entity -> cache.put(valueGetter.apply(entity), entity));
+        }
+    }
+
+    /*
+     * The caches are only invalidated on the node which deleted the unused tags and files so an entity served from
+     * the cache may no longer exist. Evict everything the current transaction got from the cache if it doesn't commit
+     * so that whatever runs next goes back to the database.
+     */
+    private <E> void evictOnRollback(final Cache<String, E> cache, final String value) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        SharedEntityCacheEvictions evictions = (SharedEntityCacheEvictions) TransactionSynchronizationManager
+            .getResource(SharedEntityCacheEvictions.class);
+        if (evictions == null) {
+            evictions = new SharedEntityCacheEvictions();
+            TransactionSynchronizationManager.bindResource(SharedEntityCacheEvictions.class, evictions);
+            TransactionSynchronizationManager.registerSynchronization(evictions);
+        }
+        evictions.add(() -> cache.invalidate(value));
+    }
+
+    /*
+     * A constraint violation on save may come from a cached tag or file which was deleted by another node rather than
+     * from a reused id. Convert it to a concurrency failure so the retry aspect runs the save again in a new
+     * transaction, which resolves the evicted values from the database. A reused id then fails again without any
+     * cache hits and is reported as such.
+     */
+    private void retryIfSharedEntitiesWereCached(final DataIntegrityViolationException e) {
+        if (TransactionSynchronizationManager.hasResource(SharedEntityCacheEvictions.class)) {
+            throw new ConcurrencyFailureException("Save failed and may reference tags or files which were cached", e);
+        }
+    }
+
     private <R extends CommonResource> Set<FileEntity> getResourceConfigEntities(
         final String id,
         final Class<R> resourceClass
@@ -2457,6 +3530,33 @@ public class JpaPersistenceServiceImpl implements PersistenceService {
         }
     }
 
+    private <E extends UniqueIdEntity> Stream<E> findEntitiesUpdatedSince(
+        final Class<E> entityClass,
+        final String entityGraph,
+        final Instant updatedThreshold
+    ) {
+        final CriteriaBuilder criteriaBuilder = this.entityManager.getCriteriaBuilder();
+        final CriteriaQuery<E> criteriaQuery = criteriaBuilder.createQuery(entityClass);
+        final Root<E> queryRoot = criteriaQuery.from(entityClass);
+        criteriaQuery.where(
+            criteriaBuilder.greaterThanOrEqualTo(queryRoot.get(UniqueIdEntity_.updated), updatedThreshold)
+        );
+
+        return this.entityManager.createQuery(criteriaQuery)
+            .setHint(LOAD_GRAPH_HINT, this.entityManager.getEntityGraph(entityGraph))
+            .getResultList()
+            .stream();
+    }
+
+    private <E extends UniqueIdEntity> Set<String> getEntityUniqueIds(final Class<E> entityClass) {
+        final CriteriaBuilder criteriaBuilder = this.entityManager.getCriteriaBuilder();
+        final CriteriaQuery<String> criteriaQuery = criteriaBuilder.createQuery(String.class);
+        final Root<E> queryRoot = criteriaQuery.from(entityClass);
+        criteriaQuery.select(queryRoot.get(UniqueIdEntity_.uniqueId));
+
+        return Sets.newHashSet(this.entityManager.createQuery(criteriaQuery).getResultList());
+    }
+
     private <E extends UniqueIdEntity> void setUniqueId(final E entity, @Nullable final String requestedId) {
         if (requestedId != null) {
             entity.setUniqueId(requestedId);
@@ -2780,4 +3880,66 @@ public class JpaPersistenceServiceImpl implements PersistenceService {
         }
     }
     //endregion
+
+    /*
+     * The resources a job holds from the point of view of the user and host job counters.
+     */
+    @Getter
+    @AllArgsConstructor
+    private static class JobResourceUsage {
+        private final String user;
+        @Nullable
+        private final String hostname;
+        private final boolean api;
+        private final long activeJobs;
+        private final long memoryAllocated;
+        private final long memoryUsed;
+
+        static JobResourceUsage of(final JobEntity jobEntity) {
+            final String status = jobEntity.getStatus();
+            final boolean active = ACTIVE_STATUS_SET.contains(status);
+            final long memory = jobEntity.getMemoryUsed().orElse(0L);
+            return new JobResourceUsage(
+                jobEntity.getUser(),
+                jobEntity.getAgentHostname().orElse(null),
+                jobEntity.isApi(),
+                active ? 1L : 0L,
+                active ? memory : 0L,
+                USING_MEMORY_JOB_SET.contains(status) ? memory : 0L
+            );
+        }
+    }
+
+    /*
+     * A job search result along with the (created, id) key and the values of any requested sort properties it is
+     * ordered by when merging results across tables.
+     */
+    @Getter
+    @AllArgsConstructor
+    private static class JobSearchRow {
+        private final Instant created;
+        private final long id;
+        private final List<Object> sortValues;
+        private final JobSearchResult result;
+    }
+
+    /*
+     * Collects the cache evictions to apply if the transaction which used the cached entities doesn't commit.
+     */
+    private static final class SharedEntityCacheEvictions implements TransactionSynchronization {
+
+        private final List<Runnable> evictions = new ArrayList<>();
+
+        void add(final Runnable eviction) {
+            this.evictions.add(eviction);
+        }
+
+        @Override
+        public void afterCompletion(final int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(SharedEntityCacheEvictions.class);
+            if (status != STATUS_COMMITTED) {
+                this.evictions.forEach(Runnable::run);
+            }
+        }
+    }
 }
@@ -0,0 +1,90 @@
+/*
+ *
+ *  Copyright 2022 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.data.services.impl.jpa.entities;
+
+import com.netflix.genie.web.data.services.impl.jpa.queries.aggregates.JobInfoAggregate;
+import lombok.Getter;
+import lombok.ToString;
+
+import javax.persistence.Basic;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * The resources used by the active jobs on an agent host. The counters are adjusted in the same transaction as every
+ * job status change rather than being aggregated from the jobs table on demand.
+ *
+ * @since 4.4.0
+ */
+@Getter
+@ToString(doNotUseGetters = true)
+@Entity
+@Table(name = "host_job_counters")
+public class HostJobCountersEntity implements JobInfoAggregate, Serializable {
+
+    private static final long serialVersionUID = -6470215836231409931L;
+
+    @Id
+    @Column(name = "agent_hostname", nullable = false, updatable = false)
+    private String hostname;
+
+    @Basic(optional = false)
+    @Column(name = "active_jobs", nullable = false)
+    private long numberOfActiveJobs;
+
+    @Basic(optional = false)
+    @Column(name = "memory_allocated", nullable = false)
+    private long totalMemoryAllocated;
+
+    @Basic(optional = false)
+    @Column(name = "memory_used", nullable = false)
+    private long totalMemoryUsed;
+
+    /**
+     * Default constructor.
+     */
+    public HostJobCountersEntity() {
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof HostJobCountersEntity)) {
+            return false;
+        }
+        final HostJobCountersEntity that = (HostJobCountersEntity) o;
+        return Objects.equals(this.hostname, that.hostname);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        return Objects.hash(this.hostname);
+    }
+}
@@ -0,0 +1,235 @@
+/*
+ *
+ *  Copyright 2022 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.data.services.impl.jpa.entities;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.netflix.genie.web.data.services.impl.jpa.converters.JsonAttributeConverter;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+import javax.persistence.Basic;
+import javax.persistence.Column;
+import javax.persistence.Convert;
+import javax.persistence.Entity;
+import javax.persistence.FetchType;
+import javax.persistence.Id;
+import javax.persistence.Lob;
+import javax.persistence.Table;
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * A row in the job history table. Finished jobs are moved here from the jobs table once they're old enough that they
+ * are only ever searched for or read in full. Only the columns used to search for jobs are kept as columns, the rest
+ * of the job is kept as serialized V3 DTOs. The archive status is the only value which may still change.
+ *
+ * @since 4.4.0
+ */
+@Getter
+@Setter
+@ToString(doNotUseGetters = true)
+@Entity
+@Table(name = "job_history")
+public class JobHistoryEntity implements Serializable {
+
+    private static final long serialVersionUID = -4311432306370453235L;
+
+    // Same value as the id of the row in the jobs table to keep the ordering of jobs stable across both tables
+    @Id
+    @Column(name = "id", nullable = false, updatable = false)
+    private long id;
+
+    @Basic(optional = false)
+    @Column(name = "unique_id", nullable = false, updatable = false)
+    private String uniqueId;
+
+    @Basic(optional = false)
+    @Column(name = "created", nullable = false, updatable = false)
+    private Instant created;
+
+    @Basic(optional = false)
+    @Column(name = "updated", nullable = false, updatable = false)
+    private Instant updated;
+
+    @Basic(optional = false)
+    @Column(name = "name", nullable = false, updatable = false)
+    private String name;
+
+    @Basic(optional = false)
+    @Column(name = "genie_user", nullable = false, updatable = false)
+    private String user;
+
+    @Basic(optional = false)
+    @Column(name = "status", nullable = false, length = 20, updatable = false)
+    private String status;
+
+    @Basic(optional = false)
+    @Column(name = "api", nullable = false, updatable = false)
+    private boolean api;
+
+    @Basic
+    @Column(name = "started", updatable = false)
+    private Instant started;
+
+    @Basic
+    @Column(name = "finished", updatable = false)
+    private Instant finished;
+
+    @Basic
+    @Column(name = "cluster_id", updatable = false)
+    private String clusterId;
+
+    @Basic
+    @Column(name = "cluster_name", updatable = false)
+    private String clusterName;
+
+    @Basic
+    @Column(name = "command_id", updatable = false)
+    private String commandId;
+
+    @Basic
+    @Column(name = "command_name", updatable = false)
+    private String commandName;
+
+    @Basic
+    @Column(name = "grouping", updatable = false)
+    private String grouping;
+
+    @Basic
+    @Column(name = "grouping_instance", updatable = false)
+    private String groupingInstance;
+
+    @Basic
+    @Column(name = "tags", length = 1024, updatable = false)
+    private String tagSearchString;
+
+    @Basic
+    @Column(name = "archive_location", length = 1024, updatable = false)
+    private String archiveLocation;
+
+    @Basic
+    @Column(name = "archive_status", length = 20)
+    private String archiveStatus;
+
+    @Lob
+    @Basic(optional = false, fetch = FetchType.LAZY)
+    @Column(name = "job", nullable = false, updatable = false, columnDefinition = "TEXT")
+    @Convert(converter = JsonAttributeConverter.class)
+    @ToString.Exclude
+    private JsonNode job;
+
+    @Lob
+    @Basic(optional = false, fetch = FetchType.LAZY)
+    @Column(name = "job_execution", nullable = false, columnDefinition = "TEXT")
+    @Convert(converter = JsonAttributeConverter.class)
+    @ToString.Exclude
+    private JsonNode jobExecution;
+
+    @Lob
+    @Basic(optional = false, fetch = FetchType.LAZY)
+    @Column(name = "job_metadata", nullable = false, updatable = false, columnDefinition = "TEXT")
+    @Convert(converter = JsonAttributeConverter.class)
+    @ToString.Exclude
+    private JsonNode jobMetadata;
+
+    @Lob
+    @Basic(optional = false, fetch = FetchType.LAZY)
+    @Column(name = "job_request", nullable = false, updatable = false, columnDefinition = "TEXT")
+    @Convert(converter = JsonAttributeConverter.class)
+    @ToString.Exclude
+    private JsonNode jobRequest;
+
+    @Lob
+    @Basic(fetch = FetchType.LAZY)
+    @Column(name = "job_cluster", updatable = false, columnDefinition = "TEXT")
+    @Convert(converter = JsonAttributeConverter.class)
+    @ToString.Exclude
+    private JsonNode jobCluster;
+
+    @Lob
+    @Basic(fetch = FetchType.LAZY)
+    @Column(name = "job_command", updatable = false, columnDefinition = "TEXT")
+    @Convert(converter = JsonAttributeConverter.class)
+    @ToString.Exclude
+    private JsonNode jobCommand;
+
+    @Lob
+    @Basic(optional = false, fetch = FetchType.LAZY)
+    @Column(name = "job_applications", nullable = false, updatable = false, columnDefinition = "TEXT")
+    @Convert(converter = JsonAttributeConverter.class)
+    @ToString.Exclude
+    private JsonNode jobApplications;
+
+    /**
+     * Default constructor.
+     */
+    public JobHistoryEntity() {
+    }
+
+    /**
+     * Constructor which copies the searchable fields of a job from its row in the jobs table.
+     *
+     * @param jobEntity The job to copy
+     */
+    public JobHistoryEntity(final JobEntity jobEntity) {
+        this.id = jobEntity.getId();
+        this.uniqueId = jobEntity.getUniqueId();
+        this.created = jobEntity.getCreated();
+        this.updated = jobEntity.getUpdated();
+        this.name = jobEntity.getName();
+        this.user = jobEntity.getUser();
+        this.status = jobEntity.getStatus();
+        this.api = jobEntity.isApi();
+        this.started = jobEntity.getStarted().orElse(null);
+        this.finished = jobEntity.getFinished().orElse(null);
+        this.clusterId = jobEntity.getCluster().map(ClusterEntity::getUniqueId).orElse(null);
+        this.clusterName = jobEntity.getClusterName().orElse(null);
+        this.commandId = jobEntity.getCommand().map(CommandEntity::getUniqueId).orElse(null);
+        this.commandName = jobEntity.getCommandName().orElse(null);
+        this.grouping = jobEntity.getGrouping().orElse(null);
+        this.groupingInstance = jobEntity.getGroupingInstance().orElse(null);
+        this.tagSearchString = jobEntity.getTagSearchString();
+        this.archiveLocation = jobEntity.getArchiveLocation().orElse(null);
+        this.archiveStatus = jobEntity.getArchiveStatus().orElse(null);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof JobHistoryEntity)) {
+            return false;
+        }
+        final JobHistoryEntity that = (JobHistoryEntity) o;
+        return Objects.equals(this.uniqueId, that.uniqueId);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        return Objects.hash(this.uniqueId);
+    }
+}
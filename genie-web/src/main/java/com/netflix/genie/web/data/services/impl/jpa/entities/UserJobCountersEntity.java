@@ -0,0 +1,93 @@
+/*
+ *
+ *  Copyright 2022 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.data.services.impl.jpa.entities;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import javax.persistence.Basic;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * The resources used by the active jobs of a user. The counters are adjusted in the same transaction as every job
+ * status change rather than being aggregated from the jobs table on demand.
+ *
+ * @since 4.4.0
+ */
+@Getter
+@ToString(doNotUseGetters = true)
+@Entity
+@Table(name = "user_job_counters")
+public class UserJobCountersEntity implements Serializable {
+
+    private static final long serialVersionUID = 2093128529134460121L;
+
+    @Id
+    @Column(name = "genie_user", nullable = false, updatable = false)
+    private String user;
+
+    @Basic(optional = false)
+    @Column(name = "active_jobs", nullable = false)
+    private long activeJobs;
+
+    @Basic(optional = false)
+    @Column(name = "memory_allocated", nullable = false)
+    private long memoryAllocated;
+
+    @Basic(optional = false)
+    @Column(name = "active_api_jobs", nullable = false)
+    private long activeApiJobs;
+
+    @Basic(optional = false)
+    @Column(name = "api_memory_allocated", nullable = false)
+    private long apiMemoryAllocated;
+
+    /**
+     * Default constructor.
+     */
+    public UserJobCountersEntity() {
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof UserJobCountersEntity)) {
+            return false;
+        }
+        final UserJobCountersEntity that = (UserJobCountersEntity) o;
+        return Objects.equals(this.user, that.user);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        return Objects.hash(this.user);
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ *
+ *  Copyright 2022 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.data.services.impl.jpa.queries.predicates;
+
+import com.netflix.genie.web.data.services.impl.jpa.entities.JobHistoryEntity;
+import com.netflix.genie.web.data.services.impl.jpa.entities.JobHistoryEntity_;
+import org.apache.commons.lang3.StringUtils;
+
+import javax.annotation.Nullable;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * {@link Predicate} helpers for querying {@link JobHistoryEntity}.
+ *
+ * @since 4.4.0
+ */
+public final class JobHistoryPredicates {
+
+    /**
+     * Private constructor for utility class.
+     */
+    private JobHistoryPredicates() {
+    }
+
+    /**
+     * Generate a criteria query predicate for a where clause based on the given parameters. Mirrors
+     * {@link JobPredicates#getFindPredicate} except that the cluster and command are matched by their unique ids as
+     * they may no longer exist by the time an archived job is searched for.
+     *
+     * @param root             The root to use
+     * @param cb               The criteria builder to use
+     * @param id               The job id
+     * @param name             The job name
+     * @param user             The user who created the job
+     * @param statuses         The job statuses
+     * @param tags             The tags for the jobs to find
+     * @param clusterName      The cluster name
+     * @param clusterId        The unique id of the cluster the job should have been run on
+     * @param commandName      The command name
+     * @param commandId        The unique id of the command the job should have been run with
+     * @param minStarted       The time which the job had to start after in order to be return (inclusive)
+     * @param maxStarted       The time which the job had to start before in order to be returned (exclusive)
+     * @param minFinished      The time which the job had to finish after in order to be return (inclusive)
+     * @param maxFinished      The time which the job had to finish before in order to be returned (exclusive)
+     * @param grouping         The job grouping to search for
+     * @param groupingInstance The job grouping instance to search for
+     * @return The specification
+     */
+    @SuppressWarnings("checkstyle:parameternumber")
+    public static Predicate getFindPredicate(
+        final Root<JobHistoryEntity> root,
+        final CriteriaBuilder cb,
+        @Nullable final String id,
+        @Nullable final String name,
+        @Nullable final String user,
+        @Nullable final Set<String> statuses,
+        @Nullable final Set<String> tags,
+        @Nullable final String clusterName,
+        @Nullable final String clusterId,
+        @Nullable final String commandName,
+        @Nullable final String commandId,
+        @Nullable final Instant minStarted,
+        @Nullable final Instant maxStarted,
+        @Nullable final Instant minFinished,
+        @Nullable final Instant maxFinished,
+        @Nullable final String grouping,
+        @Nullable final String groupingInstance
+    ) {
+        final List<Predicate> predicates = new ArrayList<>();
+        if (StringUtils.isNotBlank(id)) {
+            predicates.add(
+                PredicateUtils.getStringLikeOrEqualPredicate(cb, root.get(JobHistoryEntity_.uniqueId), id)
+            );
+        }
+        if (StringUtils.isNotBlank(name)) {
+            predicates.add(PredicateUtils.getStringLikeOrEqualPredicate(cb, root.get(JobHistoryEntity_.name), name));
+        }
+        if (StringUtils.isNotBlank(user)) {
+            predicates.add(PredicateUtils.getStringLikeOrEqualPredicate(cb, root.get(JobHistoryEntity_.user), user));
+        }
+        if (statuses != null && !statuses.isEmpty()) {
+            predicates.add(root.get(JobHistoryEntity_.status).in(statuses));
+        }
+        if (tags != null && !tags.isEmpty()) {
+            predicates.add(
+                cb.like(root.get(JobHistoryEntity_.tagSearchString), PredicateUtils.getTagLikeString(tags))
+            );
+        }
+        if (clusterId != null) {
+            predicates.add(cb.equal(root.get(JobHistoryEntity_.clusterId), clusterId));
+        }
+        if (StringUtils.isNotBlank(clusterName)) {
+            predicates.add(
+                PredicateUtils.getStringLikeOrEqualPredicate(cb, root.get(JobHistoryEntity_.clusterName), clusterName)
+            );
+        }
+        if (commandId != null) {
+            predicates.add(cb.equal(root.get(JobHistoryEntity_.commandId), commandId));
+        }
+        if (StringUtils.isNotBlank(commandName)) {
+            predicates.add(
+                PredicateUtils.getStringLikeOrEqualPredicate(cb, root.get(JobHistoryEntity_.commandName), commandName)
+            );
+        }
+        if (minStarted != null) {
+            predicates.add(cb.greaterThanOrEqualTo(root.get(JobHistoryEntity_.started), minStarted));
+        }
+        if (maxStarted != null) {
+            predicates.add(cb.lessThan(root.get(JobHistoryEntity_.started), maxStarted));
+        }
+        if (minFinished != null) {
+            predicates.add(cb.greaterThanOrEqualTo(root.get(JobHistoryEntity_.finished), minFinished));
+        }
+        if (maxFinished != null) {
+            predicates.add(cb.lessThan(root.get(JobHistoryEntity_.finished), maxFinished));
+        }
+        if (grouping != null) {
+            predicates.add(
+                PredicateUtils.getStringLikeOrEqualPredicate(cb, root.get(JobHistoryEntity_.grouping), grouping)
+            );
+        }
+        if (groupingInstance != null) {
+            predicates.add(
+                PredicateUtils.getStringLikeOrEqualPredicate(
+                    cb,
+                    root.get(JobHistoryEntity_.groupingInstance),
+                    groupingInstance
+                )
+            );
+        }
+        return cb.and(predicates.toArray(new Predicate[0]));
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ *
+ *  Copyright 2022 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.data.services.impl.jpa.repositories;
+
+import com.netflix.genie.web.data.services.impl.jpa.entities.HostJobCountersEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+/**
+ * Repository for the resource counters of the active jobs on each agent host.
+ *
+ * @since 4.4.0
+ */
+public interface JpaHostJobCountersRepository extends JpaRepository<HostJobCountersEntity, String> {
+
+    /**
+     * Add the given deltas to the counters of a host.
+     *
+     * @param hostname        The agent hostname
+     * @param activeJobs      The change in the number of active jobs
+     * @param memoryAllocated The change in the memory allocated to active jobs
+     * @param memoryUsed      The change in the memory used by jobs which have been claimed by an agent
+     * @return The number of rows updated. 0 if the host has no counters yet.
+     */
+    @Modifying
+    @Query(
+        "UPDATE HostJobCountersEntity c"
+            + " SET c.numberOfActiveJobs = c.numberOfActiveJobs + :activeJobs,"
+            + " c.totalMemoryAllocated = c.totalMemoryAllocated + :memoryAllocated,"
+            + " c.totalMemoryUsed = c.totalMemoryUsed + :memoryUsed"
+            + " WHERE c.hostname = :hostname"
+    )
+    int addToCounters(
+        @Param("hostname") String hostname,
+        @Param("activeJobs") long activeJobs,
+        @Param("memoryAllocated") long memoryAllocated,
+        @Param("memoryUsed") long memoryUsed
+    );
+
+    /**
+     * Create the counters of a host.
+     *
+     * @param hostname        The agent hostname
+     * @param activeJobs      The number of active jobs
+     * @param memoryAllocated The memory allocated to active jobs
+     * @param memoryUsed      The memory used by jobs which have been claimed by an agent
+     * @return The number of rows inserted
+     */
+    @Modifying
+    @Query(
+        value = "INSERT INTO host_job_counters"
+            + " (agent_hostname, active_jobs, memory_allocated, memory_used)"
+            + " VALUES (:hostname, :activeJobs, :memoryAllocated, :memoryUsed)",
+        nativeQuery = true // Native as JPQL can't insert values
+    )
+    int insertCounters(
+        @Param("hostname") String hostname,
+        @Param("activeJobs") long activeJobs,
+        @Param("memoryAllocated") long memoryAllocated,
+        @Param("memoryUsed") long memoryUsed
+    );
+}
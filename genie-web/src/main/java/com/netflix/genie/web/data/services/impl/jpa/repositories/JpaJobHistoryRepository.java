@@ -0,0 +1,78 @@
+/*
+ *
+ *  Copyright 2022 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.data.services.impl.jpa.repositories;
+
+import com.netflix.genie.web.data.services.impl.jpa.entities.JobHistoryEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Repository for the archived jobs in the job history table.
+ *
+ * @since 4.4.0
+ */
+public interface JpaJobHistoryRepository extends JpaRepository<JobHistoryEntity, Long> {
+
+    /**
+     * The query used to find archived jobs created within a window of time.
+     */
+    String FIND_OLD_JOBS_QUERY =
+        "SELECT id"
+            + " FROM job_history"
+            + " WHERE created >= :createdLowerBound AND created < :createdUpperBound"
+            + " LIMIT :batchSize"; // JPQL doesn't support limit so this needs to be native query
+
+    /**
+     * Find an archived job by its unique id.
+     *
+     * @param uniqueId The unique id of the job
+     * @return The archived job or {@link Optional#empty()} if no job with the id has been archived
+     */
+    Optional<JobHistoryEntity> findByUniqueId(String uniqueId);
+
+    /**
+     * Find the ids of archived jobs which were created within the given window of time.
+     *
+     * @param createdLowerBound The instant in time at or after which jobs must have been created. Inclusive.
+     * @param createdUpperBound The instant in time before which jobs must have been created. Exclusive.
+     * @param limit             The maximum number of ids to return
+     * @return The ids of the matching archived jobs
+     */
+    @Query(value = FIND_OLD_JOBS_QUERY, nativeQuery = true)
+    Set<Long> findJobsCreatedBetween(
+        @Param("createdLowerBound") Instant createdLowerBound,
+        @Param("createdUpperBound") Instant createdUpperBound,
+        @Param("batchSize") int limit
+    );
+
+    /**
+     * Delete the archived jobs with the given ids in a single statement.
+     *
+     * @param ids The ids of the archived jobs to delete
+     * @return The number of archived jobs deleted
+     */
+    @Modifying
+    @Query("DELETE FROM JobHistoryEntity h WHERE h.id IN (:ids)")
+    int deleteByIdIn(@Param("ids") Set<Long> ids);
+}
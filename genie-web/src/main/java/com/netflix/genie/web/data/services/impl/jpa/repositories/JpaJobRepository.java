@@ -33,6 +33,7 @@ import org.springframework.data.repository.query.Param;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotEmpty;
 import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 
@@ -44,14 +45,37 @@ import java.util.Set;
 public interface JpaJobRepository extends JpaBaseRepository<JobEntity> {
 
     /**
-     * The query used to find batches of jobs before a certain time.
+     * The query used to find batches of jobs created within a window of time.
      */
     String FIND_OLD_JOBS_QUERY =
         "SELECT id"
             + " FROM jobs"
-            + " WHERE created < :createdThreshold AND status NOT IN (:excludedStatuses)"
+            + " WHERE created >= :createdLowerBound AND created < :createdUpperBound"
+            + " AND status NOT IN (:excludedStatuses)"
             + " LIMIT :batchSize"; // JPQL doesn't support limit so this needs to be native query
 
+    /**
+     * The query used to find finished jobs which can be moved to the job history table.
+     */
+    String FIND_JOBS_TO_ARCHIVE_QUERY =
+        "SELECT id"
+            + " FROM jobs"
+            + " WHERE finished < :finishedThreshold"
+            + " AND created >= :createdLowerBound AND created < :createdUpperBound"
+            + " AND status NOT IN (:excludedStatuses)"
+            + " LIMIT :batchSize"; // JPQL doesn't support limit so this needs to be native query
+
+    /**
+     * The query used to lock jobs before they're moved to the job history table. Rows are locked in id order so
+     * concurrent archivals can't deadlock and rows removed by a concurrent archival while waiting aren't returned.
+     */
+    String LOCK_JOBS_QUERY =
+        "SELECT id"
+            + " FROM jobs"
+            + " WHERE id IN (:ids)"
+            + " ORDER BY id"
+            + " FOR UPDATE"; // Native as JPQL has no way to lock rows selected by a scalar query
+
     // TODO: Make interfaces generic but be aware of https://jira.spring.io/browse/DATAJPA-1185
 
     /**
@@ -115,20 +139,51 @@ public interface JpaJobRepository extends JpaBaseRepository<JobEntity> {
     Long countJobsByUserAndStatusIn(@NotBlank String user, @NotEmpty Set<String> statuses);
 
     /**
-     * Find a batch of jobs that were created before the given time.
+     * Find a batch of jobs that were created within the given window of time.
      *
-     * @param createdThreshold The time before which the jobs were submitted. Exclusive
-     * @param excludeStatuses  The set of statuses which should be excluded from the results
-     * @param limit            The maximum number of jobs to to find
-     * @return The number of deleted jobs
+     * @param createdLowerBound The time at or after which the jobs were submitted. Inclusive
+     * @param createdUpperBound The time before which the jobs were submitted. Exclusive
+     * @param excludeStatuses   The set of statuses which should be excluded from the results
+     * @param limit             The maximum number of jobs to to find
+     * @return The ids of the matching jobs
      */
     @Query(value = FIND_OLD_JOBS_QUERY, nativeQuery = true)
-    Set<Long> findJobsCreatedBefore(
-        @Param("createdThreshold") Instant createdThreshold,
+    Set<Long> findJobsCreatedBetween(
+        @Param("createdLowerBound") Instant createdLowerBound,
+        @Param("createdUpperBound") Instant createdUpperBound,
         @Param("excludedStatuses") Set<String> excludeStatuses,
         @Param("batchSize") int limit
     );
 
+    /**
+     * Find the ids of jobs created within the given window of time which finished before the given time and are no
+     * longer active.
+     *
+     * @param finishedThreshold The instant in time before which jobs must have finished. Exclusive.
+     * @param createdLowerBound The time at or after which the jobs were submitted. Inclusive
+     * @param createdUpperBound The time before which the jobs were submitted. Exclusive
+     * @param excludeStatuses   The statuses of jobs which should never be returned
+     * @param limit             The maximum number of ids to return
+     * @return The ids of the matching jobs
+     */
+    @Query(value = FIND_JOBS_TO_ARCHIVE_QUERY, nativeQuery = true)
+    Set<Long> findJobsFinishedBefore(
+        @Param("finishedThreshold") Instant finishedThreshold,
+        @Param("createdLowerBound") Instant createdLowerBound,
+        @Param("createdUpperBound") Instant createdUpperBound,
+        @Param("excludedStatuses") Set<String> excludeStatuses,
+        @Param("batchSize") int limit
+    );
+
+    /**
+     * Lock the rows of the given jobs until the end of the current transaction.
+     *
+     * @param ids The ids of the jobs to lock
+     * @return The ids of the jobs which still exist and are now locked
+     */
+    @Query(value = LOCK_JOBS_QUERY, nativeQuery = true)
+    Set<Long> lockJobsByIdIn(@Param("ids") Set<Long> ids);
+
     /**
      * Returns resources usage for each user that has a running job.
      * Only jobs running on Genie servers are considered (i.e. no Agent jobs)
@@ -242,6 +297,16 @@ public interface JpaJobRepository extends JpaBaseRepository<JobEntity> {
     @EntityGraph(value = JobEntity.V3_JOB_DTO_ENTITY_GRAPH, type = EntityGraph.EntityGraphType.LOAD)
     Optional<JobProjection> getV3Job(@Param("id") String id);
 
+    /**
+     * Get the jobs with the given ids with all the data needed to create V3 Job DTOs loaded.
+     *
+     * @param ids The ids of the jobs
+     * @return The jobs which exist
+     */
+    @Query("SELECT j FROM JobEntity j WHERE j.id IN (:ids)")
+    @EntityGraph(value = JobEntity.V3_JOB_DTO_ENTITY_GRAPH, type = EntityGraph.EntityGraphType.LOAD)
+    List<JobEntity> getV3JobsByIdIn(@Param("ids") Set<Long> ids);
+
     /**
      * Get the data needed to create a V4 Job Request DTO.
      *
@@ -34,6 +34,9 @@ public class JpaRepositories {
     private final JpaCommandRepository commandRepository;
     private final JpaCriterionRepository criterionRepository;
     private final JpaFileRepository fileRepository;
+    private final JpaHostJobCountersRepository hostJobCountersRepository;
+    private final JpaJobHistoryRepository jobHistoryRepository;
     private final JpaJobRepository jobRepository;
     private final JpaTagRepository tagRepository;
+    private final JpaUserJobCountersRepository userJobCountersRepository;
 }
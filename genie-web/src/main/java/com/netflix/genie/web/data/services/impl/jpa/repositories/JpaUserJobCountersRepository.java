@@ -0,0 +1,102 @@
+/*
+ *
+ *  Copyright 2022 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.data.services.impl.jpa.repositories;
+
+import com.netflix.genie.web.data.services.impl.jpa.entities.UserJobCountersEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Set;
+
+/**
+ * Repository for the resource counters of the active jobs of each user.
+ *
+ * @since 4.4.0
+ */
+public interface JpaUserJobCountersRepository extends JpaRepository<UserJobCountersEntity, String> {
+
+    /**
+     * Add the given deltas to the counters of a user.
+     *
+     * @param user               The user
+     * @param activeJobs         The change in the number of active jobs
+     * @param memoryAllocated    The change in the memory allocated to active jobs
+     * @param activeApiJobs      The change in the number of active jobs submitted through the API
+     * @param apiMemoryAllocated The change in the memory allocated to active jobs submitted through the API
+     * @return The number of rows updated. 0 if the user has no counters yet.
+     */
+    @Modifying
+    @Query(
+        "UPDATE UserJobCountersEntity c"
+            + " SET c.activeJobs = c.activeJobs + :activeJobs,"
+            + " c.memoryAllocated = c.memoryAllocated + :memoryAllocated,"
+            + " c.activeApiJobs = c.activeApiJobs + :activeApiJobs,"
+            + " c.apiMemoryAllocated = c.apiMemoryAllocated + :apiMemoryAllocated"
+            + " WHERE c.user = :user"
+    )
+    int addToCounters(
+        @Param("user") String user,
+        @Param("activeJobs") long activeJobs,
+        @Param("memoryAllocated") long memoryAllocated,
+        @Param("activeApiJobs") long activeApiJobs,
+        @Param("apiMemoryAllocated") long apiMemoryAllocated
+    );
+
+    /**
+     * Create the counters of a user.
+     *
+     * @param user               The user
+     * @param activeJobs         The number of active jobs
+     * @param memoryAllocated    The memory allocated to active jobs
+     * @param activeApiJobs      The number of active jobs submitted through the API
+     * @param apiMemoryAllocated The memory allocated to active jobs submitted through the API
+     * @return The number of rows inserted
+     */
+    @Modifying
+    @Query(
+        value = "INSERT INTO user_job_counters"
+            + " (genie_user, active_jobs, memory_allocated, active_api_jobs, api_memory_allocated)"
+            + " VALUES (:user, :activeJobs, :memoryAllocated, :activeApiJobs, :apiMemoryAllocated)",
+        nativeQuery = true // Native as JPQL can't insert values
+    )
+    int insertCounters(
+        @Param("user") String user,
+        @Param("activeJobs") long activeJobs,
+        @Param("memoryAllocated") long memoryAllocated,
+        @Param("activeApiJobs") long activeApiJobs,
+        @Param("apiMemoryAllocated") long apiMemoryAllocated
+    );
+
+    /**
+     * Find the counters of all the users which have active jobs submitted through the API.
+     *
+     * @return The counters
+     */
+    @Query("SELECT c FROM UserJobCountersEntity c WHERE c.activeApiJobs > 0")
+    Set<UserJobCountersEntity> findUsersWithActiveApiJobs();
+
+    /**
+     * Find the counters of all the users which have active jobs submitted through the agent CLI.
+     *
+     * @return The counters
+     */
+    @Query("SELECT c FROM UserJobCountersEntity c WHERE c.activeJobs > c.activeApiJobs")
+    Set<UserJobCountersEntity> findUsersWithActiveAgentJobs();
+}
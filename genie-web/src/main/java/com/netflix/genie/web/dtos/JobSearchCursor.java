@@ -0,0 +1,78 @@
+/*
+ *
+ *  Copyright 2022 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.dtos;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * The position of the last job returned by a job search, from which the next page of results continues. Jobs are
+ * ordered from the most to the least recently created and ties are broken by the internal id of the job record.
+ *
+ * @since 4.4.0
+ */
+@RequiredArgsConstructor
+@Getter
+@EqualsAndHashCode(doNotUseGetters = true)
+@ToString(doNotUseGetters = true)
+public class JobSearchCursor {
+
+    private static final String SEPARATOR = ":";
+
+    private final Instant created;
+    private final long id;
+
+    /**
+     * Parse a cursor from the opaque token previously produced by {@link #toToken()}.
+     *
+     * @param token The token
+     * @return The cursor
+     * @throws IllegalArgumentException If the token is not valid
+     */
+    public static JobSearchCursor fromToken(final String token) throws IllegalArgumentException {
+        final String decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        final String[] parts = decoded.split(SEPARATOR);
+        if (parts.length != 3) {
+            throw new IllegalArgumentException("Invalid job search cursor: " + token);
+        }
+        try {
+            return new JobSearchCursor(
+                Instant.ofEpochSecond(Long.parseLong(parts[0]), Long.parseLong(parts[1])),
+                Long.parseLong(parts[2])
+            );
+        } catch (final NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid job search cursor: " + token, e);
+        }
+    }
+
+    /**
+     * Encode this cursor as an opaque token which can be handed to API clients.
+     *
+     * @return The token
+     */
+    public String toToken() {
+        final String decoded = this.created.getEpochSecond() + SEPARATOR + this.created.getNano() + SEPARATOR + this.id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(decoded.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ *
+ *  Copyright 2022 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.dtos;
+
+import com.netflix.genie.common.dto.search.JobSearchResult;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+import javax.annotation.Nullable;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * A page of job search results obtained by seeking past a {@link JobSearchCursor} rather than by offset.
+ *
+ * @since 4.4.0
+ */
+@EqualsAndHashCode(doNotUseGetters = true)
+@ToString(doNotUseGetters = true)
+public class JobSearchResultsPage {
+
+    @Getter
+    private final List<JobSearchResult> results;
+    private final JobSearchCursor nextCursor;
+    private final Long totalCount;
+
+    /**
+     * Constructor.
+     *
+     * @param results    The jobs in this page
+     * @param nextCursor The cursor to pass to retrieve the next page or {@literal null} if this is the last page
+     * @param totalCount The total number of jobs matching the search or {@literal null} if it wasn't requested
+     */
+    public JobSearchResultsPage(
+        final List<JobSearchResult> results,
+        @Nullable final JobSearchCursor nextCursor,
+        @Nullable final Long totalCount
+    ) {
+        this.results = results;
+        this.nextCursor = nextCursor;
+        this.totalCount = totalCount;
+    }
+
+    /**
+     * Get the cursor from which the next page of results continues.
+     *
+     * @return The cursor or {@link Optional#empty()} if there are no more results
+     */
+    public Optional<JobSearchCursor> getNextCursor() {
+        return Optional.ofNullable(this.nextCursor);
+    }
+
+    /**
+     * Get the total number of jobs matching the search.
+     *
+     * @return The count or {@link Optional#empty()} if it wasn't requested
+     */
+    public Optional<Long> getTotalCount() {
+        return Optional.ofNullable(this.totalCount);
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ *
+ *  Copyright 2022 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.dtos;
+
+import com.google.common.collect.ImmutableSortedSet;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.SortedSet;
+
+/**
+ * A snapshot of the members of the cluster sharing task work and of which part of that work belongs to this node.
+ * <p>
+ * Work is identified by arbitrary string keys (e.g. a job id or the name of a batch) and each key is owned by exactly
+ * one member using rendezvous hashing, so a change in membership only moves the keys of the members which joined or
+ * left.
+ *
+ * @since 4.4.0
+ */
+@Getter
+@EqualsAndHashCode(doNotUseGetters = true)
+@ToString(doNotUseGetters = true)
+@SuppressWarnings("FinalClass")
+public class ShardAssignment {
+
+    private static final HashFunction HASH_FUNCTION = Hashing.murmur3_128();
+
+    private final String memberId;
+    private final SortedSet<String> members;
+
+    /**
+     * Constructor.
+     *
+     * @param memberId The id of this node
+     * @param members  The ids of all the nodes currently sharing the work. If this node isn't one of them nothing is
+     *                 assigned to it
+     */
+    public ShardAssignment(final String memberId, final Collection<String> members) {
+        this.memberId = memberId;
+        this.members = ImmutableSortedSet.copyOf(members);
+    }
+
+    /**
+     * Whether the work identified by the given key belongs to this node.
+     *
+     * @param key The key identifying the unit of work
+     * @return {@literal true} if this node should process the work
+     */
+    public boolean isAssigned(final String key) {
+        if (!this.members.contains(this.memberId)) {
+            return false;
+        }
+        String owner = null;
+        long ownerWeight = Long.MIN_VALUE;
+        for (final String member : this.members) {
+            final long weight = HASH_FUNCTION
+                .newHasher()
+                .putString(member, StandardCharsets.UTF_8)
+                .putByte((byte) 0)
+                .putString(key, StandardCharsets.UTF_8)
+                .hash()
+                .asLong();
+            if (owner == null || weight > ownerWeight) {
+                owner = member;
+                ownerWeight = weight;
+            }
+        }
+        return this.memberId.equals(owner);
+    }
+}
@@ -31,6 +31,7 @@ import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 
+import javax.annotation.Nullable;
 import java.time.Instant;
 import java.util.HashMap;
 import java.util.Map;
@@ -58,28 +59,38 @@ abstract class AbstractSNSPublisher {
 
     private final AmazonSNS snsClient;
     private final ObjectMapper mapper;
+    @Nullable
+    private final BatchingNotificationPublisher batchingPublisher;
 
     /**
      * Constructor.
      *
-     * @param properties SNS properties
-     * @param registry   metrics registry
-     * @param snsClient  SNS client
-     * @param mapper     JSON object mapper
+     * @param properties        SNS properties
+     * @param registry          metrics registry
+     * @param snsClient         SNS client
+     * @param mapper            JSON object mapper
+     * @param batchingPublisher the publisher to queue notifications with for batched delivery or {@literal null} to
+     *                          publish each notification synchronously
      */
     AbstractSNSPublisher(
         final SNSNotificationsProperties properties,
         final MeterRegistry registry,
         final AmazonSNS snsClient,
-        final ObjectMapper mapper
+        final ObjectMapper mapper,
+        @Nullable final BatchingNotificationPublisher batchingPublisher
     ) {
         this.properties = properties;
         this.registry = registry;
         this.snsClient = snsClient;
         this.mapper = mapper;
+        this.batchingPublisher = batchingPublisher;
     }
 
-    protected void publishEvent(final EventType eventType, final HashMap<String, Object> eventDetailsMap) {
+    protected void publishEvent(
+        final EventType eventType,
+        final String jobId,
+        final HashMap<String, Object> eventDetailsMap
+    ) {
         final String topic = this.properties.getTopicARN();
 
         if (StringUtils.isBlank(topic)) {
@@ -108,9 +119,17 @@ abstract class AbstractSNSPublisher {
         try {
             // Serialize message
             final String serializedMessage = this.mapper.writeValueAsString(eventMap);
-            // Send message
-            this.snsClient.publish(topic, serializedMessage);
-            log.debug("Published SNS notification (type: {})", eventType.name());
+            if (this.batchingPublisher != null) {
+                // Delivered later along with other notifications
+                this.batchingPublisher.enqueue(
+                    new QueuedNotification(eventType.name() + ':' + jobId, serializedMessage)
+                );
+                log.debug("Queued SNS notification (type: {})", eventType.name());
+            } else {
+                // Send message
+                this.snsClient.publish(topic, serializedMessage);
+                log.debug("Published SNS notification (type: {})", eventType.name());
+            }
             metricTags.addAll(MetricsUtils.newSuccessTagsSet());
         } catch (JsonProcessingException | RuntimeException e) {
             metricTags.addAll(MetricsUtils.newFailureTagsSetForException(e));
@@ -0,0 +1,416 @@
+/*
+ *
+ *  Copyright 2022 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.events;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.netflix.genie.web.properties.SNSNotificationsProperties;
+import com.netflix.genie.web.util.MetricsUtils;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.scheduling.TaskScheduler;
+
+import javax.annotation.Nullable;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Queues serialized notifications in memory and delivers them to a {@link NotificationSink} in batches.
+ * <p>
+ * The queue is flushed every {@code flushInterval} and as soon as it holds a full batch. When coalescing is enabled
+ * a notification replaces any queued notification with the same key, so only the latest state change of a job is
+ * delivered if several happen within one flush interval. Once the queue is full, or when notifications are still
+ * queued at shutdown, they are appended to a spool file on local disk (if a spool directory is configured) and fed
+ * back into the queue once it has drained. Notifications the sink fails to deliver are put back at the head of the
+ * queue, ahead of anything queued since they were taken, and retried on the next flush so notifications for the same
+ * job are still delivered in order.
+ *
+ * @since 4.4.0
+ */
+@Slf4j
+public class BatchingNotificationPublisher {
+
+    static final String QUEUE_SIZE_GAUGE_NAME = "genie.notifications.batch.queue.size";
+    static final String ENQUEUED_COUNTER_NAME = "genie.notifications.batch.enqueued.counter";
+    static final String COALESCED_COUNTER_NAME = "genie.notifications.batch.coalesced.counter";
+    static final String SPOOLED_COUNTER_NAME = "genie.notifications.batch.spooled.counter";
+    static final String DROPPED_COUNTER_NAME = "genie.notifications.batch.dropped.counter";
+    static final String DELIVERED_COUNTER_NAME = "genie.notifications.batch.delivered.counter";
+    static final String UNDELIVERED_COUNTER_NAME = "genie.notifications.batch.undelivered.counter";
+    static final String PUBLISH_TIMER_NAME = "genie.notifications.batch.publish.timer";
+    static final String ACTIVE_SPOOL_FILE_NAME = "notifications.spool";
+    private static final String DRAINING_SPOOL_FILE_SUFFIX = ".draining";
+    private static final String KEY_FIELD = "key";
+    private static final String MESSAGE_FIELD = "message";
+
+    private final NotificationSink sink;
+    private final SNSNotificationsProperties.Batch properties;
+    private final TaskScheduler taskScheduler;
+    private final MeterRegistry registry;
+    private final ObjectMapper mapper;
+    @Nullable
+    private final Path spoolDirectory;
+
+    // Keyed by the notification key when coalescing, by a sequence number otherwise. Guarded by its own monitor which
+    // also serializes appends to the spool file.
+    private final LinkedHashMap<Object, QueuedNotification> queue = new LinkedHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean(false);
+    private final Lock flushLock = new ReentrantLock();
+    private final ScheduledFuture<?> flushFuture;
+
+    /**
+     * Constructor.
+     *
+     * @param sink          The {@link NotificationSink} notifications are delivered to
+     * @param properties    The batching properties
+     * @param taskScheduler The scheduler used to flush the queue
+     * @param registry      The metrics registry
+     * @param mapper        The object mapper used to write and read spooled notifications
+     */
+    public BatchingNotificationPublisher(
+        final NotificationSink sink,
+        final SNSNotificationsProperties.Batch properties,
+        final TaskScheduler taskScheduler,
+        final MeterRegistry registry,
+        final ObjectMapper mapper
+    ) {
+        this.sink = sink;
+        this.properties = properties;
+        this.taskScheduler = taskScheduler;
+        this.registry = registry;
+        this.mapper = mapper;
+        this.spoolDirectory = this.createSpoolDirectory(properties.getSpoolDirectory());
+
+        this.registry.gauge(QUEUE_SIZE_GAUGE_NAME, this, BatchingNotificationPublisher::getQueueSize);
+        this.flushFuture = this.taskScheduler.scheduleWithFixedDelay(this::flush, this.properties.getFlushInterval());
+    }
+
+    /**
+     * Queue a notification for delivery.
+     *
+     * @param notification The notification
+     */
+    public void enqueue(final QueuedNotification notification) {
+        final int queueSize;
+        synchronized (this.queue) {
+            if (!this.offer(notification)) {
+                this.spool(Collections.singletonList(notification));
+                return;
+            }
+            queueSize = this.queue.size();
+        }
+
+        // Don't wait for the next scheduled flush once there is a full batch to send
+        if (queueSize >= this.properties.getMaxBatchSize() && this.flushScheduled.compareAndSet(false, true)) {
+            this.taskScheduler.schedule(this::flush, Instant.now());
+        }
+    }
+
+    /**
+     * Deliver queued (and then spooled) notifications in batches until there are none left or the sink fails to
+     * deliver some of them. Returns immediately if a flush is already in progress.
+     */
+    public void flush() {
+        this.flushScheduled.set(false);
+        if (!this.flushLock.tryLock()) {
+            // The flush in progress will pick up anything queued in the meantime
+            return;
+        }
+        try {
+            while (true) {
+                final List<QueuedNotification> batch = this.poll();
+                if (batch.isEmpty()) {
+                    if (this.unspool()) {
+                        continue;
+                    }
+                    break;
+                }
+                if (!this.publish(batch)) {
+                    // Back off until the next scheduled flush
+                    break;
+                }
+            }
+        } catch (final RuntimeException e) {
+            log.error("Unexpected error flushing notifications", e);
+        } finally {
+            this.flushLock.unlock();
+        }
+    }
+
+    /**
+     * Stop the scheduled flushes, attempt to deliver what is queued and spool whatever is left so it can be delivered
+     * after a restart.
+     */
+    @PreDestroy
+    public void shutdown() {
+        this.flushFuture.cancel(false);
+        this.flush();
+        synchronized (this.queue) {
+            if (!this.queue.isEmpty()) {
+                log.info("Spooling {} undelivered notifications on shutdown", this.queue.size());
+                this.spool(Lists.newArrayList(this.queue.values()));
+                this.queue.clear();
+            }
+        }
+    }
+
+    int getQueueSize() {
+        synchronized (this.queue) {
+            return this.queue.size();
+        }
+    }
+
+    /*
+     * Add a notification to the tail of the queue, coalescing it with a queued notification with the same key if
+     * enabled. Returns false if the queue is full. Must be called holding the queue monitor.
+     */
+    private boolean offer(final QueuedNotification notification) {
+        if (this.properties.isCoalesce() && this.queue.containsKey(notification.getKey())) {
+            // Keeps the position of the queued notification but delivers the most recent one
+            this.queue.put(notification.getKey(), notification);
+            this.registry.counter(COALESCED_COUNTER_NAME).increment();
+            return true;
+        }
+        if (this.queue.size() >= this.properties.getMaxQueueSize()) {
+            return false;
+        }
+        this.queue.put(this.queueKey(notification), notification);
+        this.registry.counter(ENQUEUED_COUNTER_NAME).increment();
+        return true;
+    }
+
+    /*
+     * Put older notifications back at the head of the queue, in order and ahead of anything queued since. When
+     * coalescing, a queued notification with the same key is more recent so it is delivered in place of the older one
+     * but from the older one's position. Returns what no longer fits, taken from the tail of the queue. Must be called
+     * holding the queue monitor.
+     */
+    private List<QueuedNotification> requeue(final List<QueuedNotification> notifications) {
+        final LinkedHashMap<Object, QueuedNotification> requeued = new LinkedHashMap<>();
+        for (final QueuedNotification notification : notifications) {
+            if (this.properties.isCoalesce() && this.queue.containsKey(notification.getKey())) {
+                requeued.put(notification.getKey(), this.queue.remove(notification.getKey()));
+                this.registry.counter(COALESCED_COUNTER_NAME).increment();
+            } else if (this.properties.isCoalesce() && requeued.containsKey(notification.getKey())) {
+                requeued.put(notification.getKey(), notification);
+                this.registry.counter(COALESCED_COUNTER_NAME).increment();
+            } else {
+                requeued.put(this.queueKey(notification), notification);
+                this.registry.counter(ENQUEUED_COUNTER_NAME).increment();
+            }
+        }
+        requeued.putAll(this.queue);
+        this.queue.clear();
+
+        final List<QueuedNotification> overflow = Lists.newArrayList();
+        requeued.forEach(
+            (key, notification) -> {
+                if (this.queue.size() < this.properties.getMaxQueueSize()) {
+                    this.queue.put(key, notification);
+                } else {
+                    overflow.add(notification);
+                }
+            }
+        );
+        return overflow;
+    }
+
+    private Object queueKey(final QueuedNotification notification) {
+        return this.properties.isCoalesce() ? notification.getKey() : this.sequence.incrementAndGet();
+    }
+
+    private List<QueuedNotification> poll() {
+        synchronized (this.queue) {
+            final List<QueuedNotification> batch = Lists.newArrayList();
+            final Iterator<QueuedNotification> iterator = this.queue.values().iterator();
+            while (iterator.hasNext() && batch.size() < this.properties.getMaxBatchSize()) {
+                batch.add(iterator.next());
+                iterator.remove();
+            }
+            return batch;
+        }
+    }
+
+    /*
+     * Deliver a batch to the sink. Returns true if all of the notifications were delivered.
+     */
+    private boolean publish(final List<QueuedNotification> batch) {
+        final Set<Tag> tags = Sets.newHashSet();
+        final long start = System.nanoTime();
+        List<QueuedNotification> undelivered;
+        try {
+            undelivered = this.sink.publish(batch);
+            MetricsUtils.addSuccessTags(tags);
+        } catch (final RuntimeException e) {
+            log.error("Notification sink failed to deliver batch of {} notifications", batch.size(), e);
+            MetricsUtils.addFailureTagsWithException(tags, e);
+            undelivered = batch;
+        } finally {
+            this.registry.timer(PUBLISH_TIMER_NAME, tags).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+
+        this.registry.counter(DELIVERED_COUNTER_NAME).increment(batch.size() - undelivered.size());
+        if (undelivered.isEmpty()) {
+            return true;
+        }
+
+        this.registry.counter(UNDELIVERED_COUNTER_NAME).increment(undelivered.size());
+        synchronized (this.queue) {
+            this.spool(this.requeue(undelivered));
+        }
+        return false;
+    }
+
+    /*
+     * Append notifications to the active spool file. Notifications are dropped if spooling is disabled or fails. Must
+     * be called holding the queue monitor.
+     */
+    private void spool(final List<QueuedNotification> notifications) {
+        if (notifications.isEmpty()) {
+            return;
+        }
+        if (this.spoolDirectory != null) {
+            try {
+                final List<String> lines = Lists.newArrayListWithCapacity(notifications.size());
+                for (final QueuedNotification notification : notifications) {
+                    lines.add(this.mapper.writeValueAsString(notification));
+                }
+                Files.write(
+                    this.spoolDirectory.resolve(ACTIVE_SPOOL_FILE_NAME),
+                    lines,
+                    StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE,
+                    StandardOpenOption.APPEND
+                );
+                this.registry.counter(SPOOLED_COUNTER_NAME).increment(notifications.size());
+                return;
+            } catch (final IOException e) {
+                log.error("Failed to spool {} notifications", notifications.size(), e);
+            }
+        } else {
+            log.warn("Notification queue is full and no spool directory is configured");
+        }
+        this.registry.counter(DROPPED_COUNTER_NAME).increment(notifications.size());
+    }
+
+    /*
+     * Move the oldest spool file back to the head of the queue, which is empty unless notifications were queued since
+     * it was polled. Whatever doesn't fit is spooled again. Returns true if a spool file was consumed.
+     */
+    private boolean unspool() {
+        if (this.spoolDirectory == null) {
+            return false;
+        }
+        try {
+            final Optional<Path> spoolFile;
+            synchronized (this.queue) {
+                // Stop appending to the active file so it can be read without racing new writes
+                final Path activeSpoolFile = this.spoolDirectory.resolve(ACTIVE_SPOOL_FILE_NAME);
+                if (Files.exists(activeSpoolFile)) {
+                    Files.move(
+                        activeSpoolFile,
+                        this.spoolDirectory.resolve(
+                            ACTIVE_SPOOL_FILE_NAME
+                                + "."
+                                + System.currentTimeMillis()
+                                + "-"
+                                + this.sequence.incrementAndGet()
+                                + DRAINING_SPOOL_FILE_SUFFIX
+                        ),
+                        StandardCopyOption.ATOMIC_MOVE
+                    );
+                }
+            }
+            try (Stream<Path> files = Files.list(this.spoolDirectory)) {
+                spoolFile = files
+                    .filter(file -> file.getFileName().toString().endsWith(DRAINING_SPOOL_FILE_SUFFIX))
+                    .min(Path::compareTo);
+            }
+            if (!spoolFile.isPresent()) {
+                return false;
+            }
+
+            final List<QueuedNotification> notifications = Lists.newArrayList();
+            for (final String line : Files.readAllLines(spoolFile.get(), StandardCharsets.UTF_8)) {
+                if (StringUtils.isBlank(line)) {
+                    continue;
+                }
+                try {
+                    final JsonNode node = this.mapper.readTree(line);
+                    notifications.add(
+                        new QueuedNotification(node.path(KEY_FIELD).asText(), node.path(MESSAGE_FIELD).asText())
+                    );
+                } catch (final JsonProcessingException e) {
+                    // Most likely a partial write during a crash
+                    log.warn("Skipping unreadable spooled notification in {}", spoolFile.get(), e);
+                    this.registry.counter(DROPPED_COUNTER_NAME).increment();
+                }
+            }
+            synchronized (this.queue) {
+                this.spool(this.requeue(notifications));
+                Files.delete(spoolFile.get());
+            }
+            log.info("Restored {} spooled notifications from {}", notifications.size(), spoolFile.get());
+            return true;
+        } catch (final IOException | UncheckedIOException e) {
+            log.error("Failed to restore spooled notifications from {}", this.spoolDirectory, e);
+            return false;
+        }
+    }
+
+    @Nullable
+    private Path createSpoolDirectory(@Nullable final String directory) {
+        if (StringUtils.isBlank(directory)) {
+            return null;
+        }
+        final Path path = Paths.get(directory);
+        try {
+            return Files.createDirectories(path);
+        } catch (final IOException e) {
+            log.error("Unable to create notification spool directory {}. Overflow will be dropped", path, e);
+            return null;
+        }
+    }
+}
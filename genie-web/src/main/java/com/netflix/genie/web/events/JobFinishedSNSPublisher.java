@@ -33,6 +33,7 @@ import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.ApplicationListener;
 
+import javax.annotation.Nullable;
 import java.util.HashMap;
 import java.util.stream.Collectors;
 
@@ -114,7 +115,29 @@ public class JobFinishedSNSPublisher
         final MeterRegistry registry,
         final ObjectMapper mapper
     ) {
-        super(properties, registry, snsClient, mapper);
+        this(snsClient, properties, dataServices, registry, mapper, null);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param snsClient         Amazon SNS client
+     * @param properties        configuration properties
+     * @param dataServices      the {@link DataServices} instance to use
+     * @param registry          metrics registry
+     * @param mapper            object mapper
+     * @param batchingPublisher the publisher to queue notifications with for batched delivery or {@literal null} to
+     *                          publish each notification synchronously
+     */
+    public JobFinishedSNSPublisher(
+        final AmazonSNS snsClient,
+        final SNSNotificationsProperties properties,
+        final DataServices dataServices,
+        final MeterRegistry registry,
+        final ObjectMapper mapper,
+        @Nullable final BatchingNotificationPublisher batchingPublisher
+    ) {
+        super(properties, registry, snsClient, mapper, batchingPublisher);
         this.persistenceService = dataServices.getPersistenceService();
     }
 
@@ -240,6 +263,6 @@ public class JobFinishedSNSPublisher
             ).collect(Collectors.toList())
         );
 
-        this.publishEvent(EventType.JOB_FINISHED, eventDetailsMap);
+        this.publishEvent(EventType.JOB_FINISHED, jobId, eventDetailsMap);
     }
 }
@@ -26,6 +26,7 @@ import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.ApplicationListener;
 
+import javax.annotation.Nullable;
 import java.util.HashMap;
 
 /**
@@ -57,7 +58,27 @@ public class JobStateChangeSNSPublisher
         final MeterRegistry registry,
         final ObjectMapper mapper
     ) {
-        super(properties, registry, snsClient, mapper);
+        this(snsClient, properties, registry, mapper, null);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param snsClient         Amazon SNS client
+     * @param properties        configuration properties
+     * @param registry          metrics registry
+     * @param mapper            object mapper
+     * @param batchingPublisher the publisher to queue notifications with for batched delivery or {@literal null} to
+     *                          publish each notification synchronously
+     */
+    public JobStateChangeSNSPublisher(
+        final AmazonSNS snsClient,
+        final SNSNotificationsProperties properties,
+        final MeterRegistry registry,
+        final ObjectMapper mapper,
+        @Nullable final BatchingNotificationPublisher batchingPublisher
+    ) {
+        super(properties, registry, snsClient, mapper, batchingPublisher);
     }
 
     /**
@@ -80,6 +101,6 @@ public class JobStateChangeSNSPublisher
         eventDetailsMap.put(FROM_STATE_KEY_NAME, fromState != null ? fromState.name() : "null");
         eventDetailsMap.put(TO_STATE_KEY_NAME, toState.name());
 
-        this.publishEvent(EventType.JOB_STATUS_CHANGE, eventDetailsMap);
+        this.publishEvent(EventType.JOB_STATUS_CHANGE, jobId, eventDetailsMap);
     }
 }
@@ -0,0 +1,39 @@
+/*
+ *
+ *  Copyright 2022 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.events;
+
+import java.util.List;
+
+/**
+ * A destination which notifications are delivered to in batches by a {@link BatchingNotificationPublisher}.
+ *
+ * @since 4.4.0
+ */
+public interface NotificationSink {
+
+    /**
+     * Deliver a batch of notifications.
+     * <p>
+     * Implementations should not throw. Notifications which could not be delivered should instead be returned so the
+     * caller can retry them later.
+     *
+     * @param notifications The notifications to deliver, in the order they were queued
+     * @return The notifications which were not delivered. Empty if all of them were.
+     */
+    List<QueuedNotification> publish(List<QueuedNotification> notifications);
+}
@@ -0,0 +1,47 @@
+/*
+ *
+ *  Copyright 2022 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.events;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * A notification which has been serialized and is waiting to be delivered by a {@link NotificationSink}.
+ *
+ * @since 4.4.0
+ */
+@Getter
+@EqualsAndHashCode
+@ToString
+public class QueuedNotification {
+    private final String key;
+    private final String message;
+
+    /**
+     * Constructor.
+     *
+     * @param key     The key identifying the subject of the notification (e.g. event type and job id). Notifications
+     *                with the same key may be coalesced, keeping only the most recent one.
+     * @param message The serialized message to deliver
+     */
+    public QueuedNotification(final String key, final String message) {
+        this.key = key;
+        this.message = message;
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ *
+ *  Copyright 2022 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.events;
+
+import com.amazonaws.services.sns.AmazonSNS;
+import com.amazonaws.services.sns.model.BatchResultErrorEntry;
+import com.amazonaws.services.sns.model.PublishBatchRequest;
+import com.amazonaws.services.sns.model.PublishBatchRequestEntry;
+import com.amazonaws.services.sns.model.PublishBatchResult;
+import com.google.common.collect.Lists;
+import com.netflix.genie.web.properties.SNSNotificationsProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * A {@link NotificationSink} which delivers notifications to the configured SNS topic using batch publish requests.
+ *
+ * @since 4.4.0
+ */
+@Slf4j
+public class SNSNotificationSink implements NotificationSink {
+
+    // Limits SNS imposes on a single PublishBatch request
+    private static final int MAX_ENTRIES_PER_REQUEST = 10;
+    private static final int MAX_BYTES_PER_REQUEST = 256 * 1024;
+
+    private final AmazonSNS snsClient;
+    private final SNSNotificationsProperties properties;
+
+    /**
+     * Constructor.
+     *
+     * @param snsClient  The SNS client
+     * @param properties The SNS notification properties
+     */
+    public SNSNotificationSink(final AmazonSNS snsClient, final SNSNotificationsProperties properties) {
+        this.snsClient = snsClient;
+        this.properties = properties;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<QueuedNotification> publish(final List<QueuedNotification> notifications) {
+        final String topic = this.properties.getTopicARN();
+        if (StringUtils.isBlank(topic)) {
+            // Likely a misconfiguration. Emit a warning and drop the notifications as retrying won't help.
+            log.warn("SNS Notifications enabled, but no topic specified");
+            return Lists.newArrayList();
+        }
+
+        final List<QueuedNotification> failed = Lists.newArrayList();
+        for (final List<QueuedNotification> chunk : this.partition(notifications)) {
+            // The index of the notification within the chunk is used as the entry id to map failures back
+            final List<PublishBatchRequestEntry> entries = Lists.newArrayListWithCapacity(chunk.size());
+            for (int i = 0; i < chunk.size(); i++) {
+                entries.add(
+                    new PublishBatchRequestEntry()
+                        .withId(String.valueOf(i))
+                        .withMessage(chunk.get(i).getMessage())
+                );
+            }
+
+            try {
+                final PublishBatchResult result = this.snsClient.publishBatch(
+                    new PublishBatchRequest().withTopicArn(topic).withPublishBatchRequestEntries(entries)
+                );
+                for (final BatchResultErrorEntry error : result.getFailed()) {
+                    log.warn(
+                        "Failed to publish SNS notification: {} ({})",
+                        error.getMessage(),
+                        error.getCode()
+                    );
+                    // Retrying won't help if the entry itself was rejected
+                    if (!Boolean.TRUE.equals(error.getSenderFault())) {
+                        failed.add(chunk.get(Integer.parseInt(error.getId())));
+                    }
+                }
+                log.debug(
+                    "Published batch of {} SNS notifications",
+                    chunk.size() - result.getFailed().size()
+                );
+            } catch (final RuntimeException e) {
+                log.error("Failed to publish batch of {} SNS notifications", chunk.size(), e);
+                failed.addAll(chunk);
+            }
+        }
+        return failed;
+    }
+
+    /*
+     * Split the notifications into chunks which fit within a single PublishBatch request.
+     */
+    private List<List<QueuedNotification>> partition(final List<QueuedNotification> notifications) {
+        final List<List<QueuedNotification>> chunks = Lists.newArrayList();
+        List<QueuedNotification> chunk = Lists.newArrayList();
+        int chunkBytes = 0;
+        for (final QueuedNotification notification : notifications) {
+            final int bytes = notification.getMessage().getBytes(StandardCharsets.UTF_8).length;
+            if (!chunk.isEmpty()
+                && (chunk.size() >= MAX_ENTRIES_PER_REQUEST || chunkBytes + bytes > MAX_BYTES_PER_REQUEST)) {
+                chunks.add(chunk);
+                chunk = Lists.newArrayList();
+                chunkBytes = 0;
+            }
+            chunk.add(notification);
+            chunkBytes += bytes;
+        }
+        if (!chunk.isEmpty()) {
+            chunks.add(chunk);
+        }
+        return chunks;
+    }
+}
@@ -20,8 +20,11 @@ package com.netflix.genie.web.properties;
 import lombok.Getter;
 import lombok.Setter;
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
 import org.springframework.validation.annotation.Validated;
 
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
 import java.time.Duration;
 
 /**
@@ -66,6 +69,26 @@ public class AgentFileStreamProperties {
      */
     private Duration writeRetryDelay = Duration.ofMillis(300);
 
+    /**
+     * Maximum number of chunks an agent is allowed to send ahead of acknowledgements.
+     * Also the number of chunks buffered in memory for each transfer.
+     * Agents that do not support windowing always send one chunk at the time.
+     */
+    @Min(1)
+    private int maxChunksInFlight = 8;
+
+    /**
+     * Maximum amount of data buffered in memory for a single transfer.
+     */
+    @NotNull
+    private DataSize maxTransferBufferSize = DataSize.ofMegabytes(8);
+
+    /**
+     * Maximum amount of data buffered in memory across all active transfers.
+     */
+    @NotNull
+    private DataSize maxTotalBufferSize = DataSize.ofMegabytes(256);
+
     /**
      * How long to store a manifest before considering it stale and evicting it.
      */
@@ -22,6 +22,13 @@ import lombok.Setter;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.validation.annotation.Validated;
 
+import javax.validation.Valid;
+import javax.validation.constraints.DecimalMax;
+import javax.validation.constraints.DecimalMin;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+import java.time.Duration;
+
 /**
  * All properties related to data service retry template in Genie.
  *
@@ -53,4 +60,75 @@ public class DataServiceRetryProperties {
      * Defaults to 30000 ms.
      */
     private long maxInterval = 30000L;
+
+    /**
+     * The upper bound of the random factor each backoff interval is multiplied by. Defaults to 2.
+     */
+    @DecimalMin("1.0")
+    private double multiplier = 2.0;
+
+    @Valid
+    private CircuitBreaker circuitBreaker = new CircuitBreaker();
+
+    @Valid
+    private ConcurrencyLimit concurrencyLimit = new ConcurrencyLimit();
+
+    /**
+     * Properties for the circuit breaker which stops calls to the database once it appears to be unavailable or
+     * saturated.
+     *
+     * @since 4.4.0
+     */
+    @Getter
+    @Setter
+    public static class CircuitBreaker {
+
+        private boolean enabled;
+
+        /**
+         * Number of consecutive connection failures or timeouts after which the breaker opens.
+         */
+        @Min(1)
+        private int failureThreshold = 20;
+
+        /**
+         * How long the breaker stays open before letting a trial call through.
+         */
+        @NotNull
+        private Duration openDuration = Duration.ofSeconds(10);
+    }
+
+    /**
+     * Properties for the adaptive limit on the number of concurrent calls to the database.
+     *
+     * @since 4.4.0
+     */
+    @Getter
+    @Setter
+    public static class ConcurrencyLimit {
+
+        private boolean enabled;
+
+        @Min(1)
+        private int initialLimit = 50;
+
+        @Min(1)
+        private int minLimit = 5;
+
+        @Min(1)
+        private int maxLimit = 200;
+
+        /**
+         * Calls taking longer than this are taken as a sign of saturation and reduce the limit.
+         */
+        @NotNull
+        private Duration latencyThreshold = Duration.ofSeconds(1);
+
+        /**
+         * The factor the limit is multiplied by when saturation is detected.
+         */
+        @DecimalMin("0.1")
+        @DecimalMax("0.99")
+        private double backoffRatio = 0.9;
+    }
 }
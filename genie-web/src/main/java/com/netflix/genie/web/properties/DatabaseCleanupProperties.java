@@ -22,6 +22,7 @@ import lombok.Setter;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.validation.annotation.Validated;
 
+import javax.validation.constraints.DecimalMin;
 import javax.validation.constraints.Min;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
@@ -269,6 +270,11 @@ public class DatabaseCleanupProperties {
          */
         public static final String ROLLING_WINDOW_HOURS_PROPERTY = FILE_CLEANUP_PROPERTY_PREFIX + ".rollingWindowHours";
 
+        /**
+         * The number of rolling windows of unused files which are deleted concurrently.
+         */
+        public static final String PARALLELISM_PROPERTY = FILE_CLEANUP_PROPERTY_PREFIX + ".parallelism";
+
         /**
          * Skip the Files table when performing database cleanup.
          */
@@ -286,6 +292,12 @@ public class DatabaseCleanupProperties {
         @Min(1)
         private int rollingWindowHours = 12;
 
+        /**
+         * The number of rolling windows of unused files which are deleted concurrently.
+         */
+        @Min(1)
+        private int parallelism = 1;
+
     }
 
     /**
@@ -326,6 +338,26 @@ public class DatabaseCleanupProperties {
          */
         public static final String PAGE_SIZE_PROPERTY = JOB_CLEANUP_PROPERTY_PREFIX + ".pageSize";
 
+        /**
+         * How long to pause between batches of job deletions relative to how long the previous batch took.
+         */
+        public static final String THROTTLE_FACTOR_PROPERTY = JOB_CLEANUP_PROPERTY_PREFIX + ".throttleFactor";
+
+        /**
+         * The number of days after which finished jobs are moved to the job history table.
+         */
+        public static final String ARCHIVE_AFTER_PROPERTY = JOB_CLEANUP_PROPERTY_PREFIX + ".archiveAfter";
+
+        /**
+         * The number of days before the archival or retention threshold which are split into rolling windows of jobs.
+         */
+        public static final String BATCH_DAYS_WITHIN_PROPERTY = JOB_CLEANUP_PROPERTY_PREFIX + ".batchDaysWithin";
+
+        /**
+         * The size of the rolling windows of jobs which are archived or deleted by different nodes, units in hours.
+         */
+        public static final String ROLLING_WINDOW_HOURS_PROPERTY = JOB_CLEANUP_PROPERTY_PREFIX + ".rollingWindowHours";
+
         /**
          * Skip the Jobs table when performing database cleanup.
          */
@@ -346,6 +378,33 @@ public class DatabaseCleanupProperties {
          * The page size used within each cleanup transaction to iterate through the job records.
          */
         private int pageSize = 1_000;
+
+        /**
+         * How long to pause between batches of job deletions relative to how long the previous batch took. e.g. a
+         * factor of 1.0 leaves the database idle for as long as it spent deleting. 0 disables the pause.
+         */
+        @DecimalMin("0.0")
+        private double throttleFactor = 1.0;
+
+        /**
+         * The number of days after which finished jobs are moved to the job history table. 0 disables archival.
+         */
+        @Min(0)
+        private int archiveAfter;
+
+        /**
+         * The number of days before the archival or retention threshold which are split into rolling windows of jobs
+         * when the cleanup is sharded across the cluster. Older jobs form one final window.
+         */
+        @Min(1)
+        private int batchDaysWithin = 1;
+
+        /**
+         * The size of the rolling windows of jobs which are archived or deleted by different nodes when the cleanup is
+         * sharded across the cluster, units in hours.
+         */
+        @Min(1)
+        private int rollingWindowHours = 1;
     }
 
     /**
@@ -0,0 +1,103 @@
+/*
+ *
+ *  Copyright 2022 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.properties;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.EnvironmentAware;
+import org.springframework.core.env.Environment;
+import org.springframework.validation.annotation.Validated;
+
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Properties related to the asynchronous job launch queue. When enabled, job submissions return as soon as the job
+ * is persisted and resolution and agent launch happen on a bounded pool of worker threads.
+ *
+ * @since 4.4.0
+ */
+@ConfigurationProperties(prefix = JobLaunchQueueProperties.PROPERTY_PREFIX)
+@Getter
+@Setter
+@Validated
+public class JobLaunchQueueProperties implements EnvironmentAware {
+
+    /**
+     * The property prefix for all properties in this group.
+     */
+    public static final String PROPERTY_PREFIX = "genie.services.job-launch.queue";
+
+    /**
+     * The property key for whether asynchronous job launch is enabled or not.
+     */
+    public static final String ENABLED_PROPERTY = PROPERTY_PREFIX + ".enabled";
+
+    /**
+     * The property key prefix for per-user queue priority.
+     */
+    public static final String USER_PRIORITY_OVERRIDE_PROPERTY_PREFIX = PROPERTY_PREFIX + ".priority-overrides.";
+
+    /**
+     * Default priority of a queued job when the user has no override.
+     */
+    public static final int DEFAULT_PRIORITY = 0;
+
+    private boolean enabled;
+
+    @Min(1)
+    private int capacity = 1_000;
+
+    @Min(1)
+    private int workers = 4;
+
+    @NotNull
+    private Duration shutdownTimeout = Duration.ofSeconds(30);
+
+    private AtomicReference<Environment> environment = new AtomicReference<>();
+
+    /**
+     * Get the priority queued jobs submitted by the given user should have. Jobs with a higher priority are launched
+     * before jobs with a lower priority, jobs with equal priority are launched in submission order.
+     *
+     * @param user the user name
+     * @return the priority of the user's jobs in the launch queue
+     */
+    public int getUserPriority(final String user) {
+        final Environment env = this.environment.get();
+        if (env != null) {
+            return env.getProperty(
+                USER_PRIORITY_OVERRIDE_PROPERTY_PREFIX + user,
+                Integer.class,
+                DEFAULT_PRIORITY
+            );
+        }
+        return DEFAULT_PRIORITY;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setEnvironment(final Environment environment) {
+        this.environment.set(environment);
+    }
+}
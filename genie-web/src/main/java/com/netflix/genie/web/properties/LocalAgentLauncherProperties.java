@@ -146,4 +146,35 @@ public class LocalAgentLauncherProperties {
      * value.
      */
     private String serverHostname = "127.0.0.1";
+
+    /**
+     * Keep a pool of agent processes which already booted and wait for a job id, so that jobs don't pay for the agent
+     * startup. Ignored when {@link #isRunAsUserEnabled()} as the user isn't known until the job is launched.
+     */
+    private boolean standbyPoolEnabled;
+
+    /**
+     * The number of agent processes kept on standby even when no jobs were launched recently, as long as they fit in
+     * the memory left on this host.
+     */
+    @Min(value = 0, message = "The minimum standby pool size can't be negative")
+    private int standbyPoolMinSize = 1;
+
+    /**
+     * The maximum number of agent processes to keep on standby.
+     */
+    @Min(value = 1, message = "The standby pool needs room for at least one agent")
+    private int standbyPoolMaxSize = 4;
+
+    /**
+     * How often the standby pool is resized based on the recent launch rate and the memory available on this host.
+     */
+    private Duration standbyPoolRefreshInterval = Duration.ofSeconds(10L);
+
+    /**
+     * The memory (in MB) an idle agent process on standby is assumed to use. Standby agents are only started if this
+     * much memory is left on top of the room needed to fit one more job of {@link #getMaxJobMemory()}.
+     */
+    @Min(value = 1L, message = "The minimum value is 1MB but the value should likely be set much higher")
+    private long standbyAgentMemory = 512L;
 }
@@ -0,0 +1,82 @@
+/*
+ *
+ *  Copyright 2022 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.properties;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import javax.annotation.Nullable;
+import javax.validation.constraints.NotNull;
+import java.time.Duration;
+
+/**
+ * Properties for the read replica that read only data service transactions are routed to.
+ * <p>
+ * The connection pool of the replica can be tuned with the same settings as the primary under
+ * {@code genie.data.replica.hikari}.
+ *
+ * @since 4.4.0
+ */
+@ConfigurationProperties(prefix = ReplicaDataSourceProperties.PROPERTY_PREFIX)
+@Getter
+@Setter
+@Validated
+public class ReplicaDataSourceProperties {
+
+    /**
+     * The property prefix for all properties in this group.
+     */
+    public static final String PROPERTY_PREFIX = "genie.data.replica";
+
+    /**
+     * The property that determines whether read only transactions are routed to the replica.
+     */
+    public static final String ENABLED_PROPERTY = PROPERTY_PREFIX + ".enabled";
+
+    private boolean enabled;
+
+    @Nullable
+    private String url;
+
+    @Nullable
+    private String username;
+
+    @Nullable
+    private String password;
+
+    @Nullable
+    private String driverClassName;
+
+    /**
+     * A query returning the replication lag of the replica in seconds as a single number. If not set the replica is
+     * only checked for availability.
+     */
+    @Nullable
+    private String lagQuery;
+
+    /**
+     * Reads fall back to the primary while the replica lags by more than this.
+     */
+    @NotNull
+    private Duration maxLag = Duration.ofSeconds(10);
+
+    @NotNull
+    private Duration checkInterval = Duration.ofSeconds(5);
+}
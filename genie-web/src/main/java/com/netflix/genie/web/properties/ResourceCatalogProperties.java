@@ -0,0 +1,72 @@
+/*
+ *
+ *  Copyright 2022 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.properties;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import javax.validation.constraints.NotNull;
+import java.time.Duration;
+
+/**
+ * Properties related to the in-memory catalog of clusters, commands and applications used during job resolution.
+ *
+ * @since 4.4.0
+ */
+@ConfigurationProperties(prefix = ResourceCatalogProperties.PROPERTY_PREFIX)
+@Getter
+@Setter
+@Validated
+public class ResourceCatalogProperties {
+
+    /**
+     * The property prefix for all properties in this group.
+     */
+    public static final String PROPERTY_PREFIX = "genie.services.resource-catalog";
+
+    /**
+     * The property that determines if the in-memory resource catalog is enabled.
+     */
+    public static final String ENABLED_PROPERTY = PROPERTY_PREFIX + ".enabled";
+
+    /**
+     * Whether job resolution should be done against an in-memory copy of the resources rather than the database.
+     */
+    private boolean enabled;
+
+    /**
+     * How long to wait between the end of one incremental refresh and the start of the next.
+     */
+    @NotNull
+    private Duration refreshInterval = Duration.ofSeconds(10L);
+
+    /**
+     * How often the entire catalog is discarded and reloaded from the database as a safety net.
+     */
+    @NotNull
+    private Duration fullRefreshInterval = Duration.ofMinutes(30L);
+
+    /**
+     * How far before the latest observed update time an incremental refresh starts looking for changes. Covers
+     * clock skew between Genie nodes and transactions which committed after a previous refresh ran.
+     */
+    @NotNull
+    private Duration updateOverlap = Duration.ofMinutes(1L);
+}
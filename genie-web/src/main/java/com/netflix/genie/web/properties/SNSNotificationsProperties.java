@@ -23,6 +23,12 @@ import lombok.Setter;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.validation.annotation.Validated;
 
+import javax.annotation.Nullable;
+import javax.validation.Valid;
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+import java.time.Duration;
 import java.util.Map;
 
 /**
@@ -52,4 +58,40 @@ public class SNSNotificationsProperties {
     private String topicARN;
 
     private Map<String, String> additionalEventKeys = Maps.newHashMap();
+
+    @Valid
+    private Batch batch = new Batch();
+
+    /**
+     * Properties controlling the batching of notifications before they are sent to SNS.
+     *
+     * @since 4.4.0
+     */
+    @Getter
+    @Setter
+    public static class Batch {
+
+        /**
+         * The property that determines whether notifications are queued and published in batches.
+         */
+        public static final String ENABLED_PROPERTY = SNSNotificationsProperties.PROPERTY_PREFIX + ".batch.enabled";
+
+        private boolean enabled;
+
+        // SNS accepts at most 10 messages per PublishBatch request
+        @Min(1)
+        @Max(10)
+        private int maxBatchSize = 10;
+
+        @Min(1)
+        private int maxQueueSize = 10_000;
+
+        @NotNull
+        private Duration flushInterval = Duration.ofSeconds(1);
+
+        private boolean coalesce;
+
+        @Nullable
+        private String spoolDirectory;
+    }
 }
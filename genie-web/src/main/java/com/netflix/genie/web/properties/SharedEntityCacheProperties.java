@@ -0,0 +1,57 @@
+/*
+ *
+ *  Copyright 2022 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.properties;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+import java.time.Duration;
+
+/**
+ * Properties for the in-process cache of tag and file entities which are shared between resources and jobs.
+ *
+ * @since 4.4.0
+ */
+@ConfigurationProperties(prefix = SharedEntityCacheProperties.PROPERTY_PREFIX)
+@Getter
+@Setter
+@Validated
+public class SharedEntityCacheProperties {
+
+    /**
+     * The property prefix for all properties in this group.
+     */
+    public static final String PROPERTY_PREFIX = "genie.data.service.shared-entity-cache";
+
+    /**
+     * The maximum number of tags and the maximum number of files kept in memory. 0 disables caching.
+     */
+    @Min(0)
+    private long maxSize = 10_000L;
+
+    /**
+     * How long an entry is kept after it was loaded. Bounds how long a node may reference an entity deleted as unused
+     * by another node.
+     */
+    @NotNull
+    private Duration expireAfterWrite = Duration.ofMinutes(10L);
+}
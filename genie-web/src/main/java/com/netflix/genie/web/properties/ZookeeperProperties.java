@@ -48,4 +48,9 @@ public class ZookeeperProperties {
      * The base Zookeeper node path for discovery.
      */
     private String discoveryPath = "/genie/agents/";
+
+    /**
+     * The Zookeeper node path under which nodes register to share the work of sharded tasks.
+     */
+    private String shardPath = "/genie/shards";
 }
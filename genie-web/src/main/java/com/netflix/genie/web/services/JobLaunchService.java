@@ -22,6 +22,7 @@ import com.netflix.genie.common.internal.exceptions.checked.GenieJobResolutionEx
 import com.netflix.genie.web.dtos.JobSubmission;
 import com.netflix.genie.web.exceptions.checked.AgentLaunchException;
 import com.netflix.genie.web.exceptions.checked.IdAlreadyExistsException;
+import com.netflix.genie.web.exceptions.checked.JobLaunchQueueFullException;
 import com.netflix.genie.web.exceptions.checked.NotFoundException;
 import com.netflix.genie.web.exceptions.checked.SaveAttachmentException;
 import org.springframework.validation.annotation.Validated;
@@ -45,10 +46,14 @@ public interface JobLaunchService {
      * - Saving the job submission information including attachments
      * - Resolving the resources needed to run the job and persisting them
      * - Launching the agent
+     * <p>
+     * Implementations may instead only save the job submission and complete the remaining steps asynchronously, in
+     * which case failures to resolve or launch the job are only reflected in the job status.
      *
      * @param jobSubmission The payload of metadata and resources making up all the information needed to launch
      *                      a job
-     * @return The id of the job. Upon return the job will at least be in {@link JobStatus#ACCEPTED} state
+     * @return The id of the job. Upon return the job will at least be in {@link JobStatus#ACCEPTED} state, or in
+     * {@link JobStatus#RESERVED} state if the launch was queued
      * @throws AgentLaunchException        If the system was unable to launch an agent to handle job execution
      * @throws GenieJobResolutionException If the job, based on user input and current system state, can't be
      *                                     successfully resolved for whatever reason
@@ -56,12 +61,15 @@ public interface JobLaunchService {
      *                                     found in the system at runtime for some reason
      * @throws IdAlreadyExistsException    If the unique identifier for the job conflicts with an already existing job
      * @throws SaveAttachmentException     When a job is submitted with attachments but there is an error saving them
+     * @throws JobLaunchQueueFullException If launches are queued and the queue has no room left for this job or is
+     *                                     shutting down
      */
     @Nonnull
     String launchJob(@Valid JobSubmission jobSubmission) throws
         AgentLaunchException,
         GenieJobResolutionException,
         IdAlreadyExistsException,
+        JobLaunchQueueFullException,
         NotFoundException,
         SaveAttachmentException;
 }
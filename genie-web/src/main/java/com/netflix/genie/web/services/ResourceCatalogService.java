@@ -0,0 +1,92 @@
+/*
+ *
+ *  Copyright 2022 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.services;
+
+import com.netflix.genie.common.internal.dtos.Application;
+import com.netflix.genie.common.internal.dtos.Cluster;
+import com.netflix.genie.common.internal.dtos.Command;
+import com.netflix.genie.common.internal.dtos.Criterion;
+import com.netflix.genie.web.exceptions.checked.NotFoundException;
+import org.springframework.validation.annotation.Validated;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotEmpty;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A read only catalog of the clusters, commands and applications known to the system which can be queried during job
+ * resolution without going to the database. Implementations are eventually consistent with persistence.
+ *
+ * @since 4.4.0
+ */
+@Validated
+public interface ResourceCatalogService {
+
+    /**
+     * Whether the catalog has completed its initial load and can be used to answer queries.
+     *
+     * @return {@literal true} if the catalog contents can be used
+     */
+    boolean isReady();
+
+    /**
+     * Bring the contents of the catalog up to date with persistence.
+     */
+    void refresh();
+
+    /**
+     * Find all the {@link Command}'s in the catalog that match the given {@link Criterion}.
+     *
+     * @param criterion        The {@link Criterion} supplied that each command needs to completely match to be returned
+     * @param addDefaultStatus {@literal true} if the a default status should be added to the supplied
+     *                         {@link Criterion} if the supplied criterion doesn't already have a status
+     * @return All the {@link Command}'s which matched the {@link Criterion}
+     */
+    Set<Command> findCommandsMatchingCriterion(@Valid Criterion criterion, boolean addDefaultStatus);
+
+    /**
+     * Find all the {@link Cluster}'s in the catalog that match any of the given {@link Criterion}.
+     *
+     * @param criteria         The set of {@link Criterion} supplied that a cluster needs to completely match at least
+     *                         one of to be returned
+     * @param addDefaultStatus {@literal true} if the a default status should be added to the supplied
+     *                         {@link Criterion} if the supplied criterion doesn't already have a status
+     * @return All the {@link Cluster}'s which matched the {@link Criterion}
+     */
+    Set<Cluster> findClustersMatchingAnyCriterion(@NotEmpty Set<@Valid Criterion> criteria, boolean addDefaultStatus);
+
+    /**
+     * Get the applications for a given command in the order they were associated with the command.
+     *
+     * @param id The id of the command to get the application for. Not null/empty/blank.
+     * @return The applications for the command
+     * @throws NotFoundException If no {@link Command} exists in the catalog with the given {@literal id}
+     */
+    List<Application> getApplicationsForCommand(@NotBlank String id) throws NotFoundException;
+
+    /**
+     * Get the application with the given id from the catalog.
+     *
+     * @param id The id of the application to get. Not null/empty/blank.
+     * @return The {@link Application}
+     * @throws NotFoundException If no {@link Application} exists in the catalog with the given {@literal id}
+     */
+    Application getApplication(@NotBlank String id) throws NotFoundException;
+}
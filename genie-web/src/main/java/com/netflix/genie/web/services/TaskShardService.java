@@ -0,0 +1,37 @@
+/*
+ *
+ *  Copyright 2022 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.services;
+
+import com.netflix.genie.web.dtos.ShardAssignment;
+
+/**
+ * Service which lets the nodes of a Genie cluster divide the work of the periodic cleanup tasks among themselves
+ * instead of leaving all of it to the leader.
+ *
+ * @since 4.4.0
+ */
+public interface TaskShardService {
+
+    /**
+     * Get the current split of work between the members of the cluster. Membership changes are reflected in the next
+     * assignment returned so callers should get a new one every time they start processing a batch of work.
+     *
+     * @return The {@link ShardAssignment} for this node
+     */
+    ShardAssignment getAssignment();
+}
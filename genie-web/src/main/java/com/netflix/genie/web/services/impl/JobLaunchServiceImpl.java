@@ -17,10 +17,14 @@
  */
 package com.netflix.genie.web.services.impl;
 
+import brave.Span;
 import brave.SpanCustomizer;
 import brave.Tracer;
+import brave.propagation.TraceContext;
 import com.fasterxml.jackson.databind.JsonNode;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.netflix.genie.common.dto.JobStatusMessages;
 import com.netflix.genie.common.internal.dtos.ArchiveStatus;
 import com.netflix.genie.common.internal.dtos.JobStatus;
@@ -34,8 +38,10 @@ import com.netflix.genie.web.dtos.ResolvedJob;
 import com.netflix.genie.web.dtos.ResourceSelectionResult;
 import com.netflix.genie.web.exceptions.checked.AgentLaunchException;
 import com.netflix.genie.web.exceptions.checked.IdAlreadyExistsException;
+import com.netflix.genie.web.exceptions.checked.JobLaunchQueueFullException;
 import com.netflix.genie.web.exceptions.checked.NotFoundException;
 import com.netflix.genie.web.exceptions.checked.ResourceSelectionException;
+import com.netflix.genie.web.properties.JobLaunchQueueProperties;
 import com.netflix.genie.web.selectors.AgentLauncherSelectionContext;
 import com.netflix.genie.web.selectors.AgentLauncherSelector;
 import com.netflix.genie.web.services.JobLaunchService;
@@ -46,11 +52,21 @@ import io.micrometer.core.instrument.Tag;
 import lombok.extern.slf4j.Slf4j;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.PreDestroy;
 import javax.validation.Valid;
+import java.time.Duration;
 import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToIntFunction;
 
 /**
  * Default implementation of the {@link JobLaunchService}.
@@ -67,12 +83,19 @@ public class JobLaunchServiceImpl implements JobLaunchService {
     static final String LAUNCHED_AGENT_ANNOTATION = "Launched Agent";
     static final String SAVED_LAUNCHER_EXT_ANNOTATION = "Saved Launcher Ext Data";
     static final String END_LAUNCH_JOB_ANNOTATION = "Completed Launching Job";
+    static final String QUEUED_JOB_ANNOTATION = "Queued Job For Launch";
+    static final String QUEUED_LAUNCH_SPAN_NAME = "launch-queued-job";
+    static final String SHUTDOWN_MESSAGE = "Job was still waiting to be launched when the server shut down";
 
     private static final String LAUNCH_JOB_TIMER = "genie.services.jobLaunch.launchJob.timer";
     private static final String AGENT_LAUNCHER_SELECTOR_TIMER = "genie.services.jobLaunch.selectLauncher.timer";
     private static final String AVAILABLE_LAUNCHERS_TAG = "numAvailableLaunchers";
     private static final String SELECTOR_CLASS_TAG = "agentLauncherSelectorClass";
     private static final String LAUNCHER_CLASS_TAG = "agentLauncherSelectedClass";
+    private static final String QUEUE_SIZE_GAUGE = "genie.services.jobLaunch.queue.size.gauge";
+    private static final String QUEUE_WAIT_TIMER = "genie.services.jobLaunch.queue.wait.timer";
+    private static final String QUEUE_LAUNCH_TIMER = "genie.services.jobLaunch.queue.launch.timer";
+    private static final String QUEUE_REJECTED_COUNTER = "genie.services.jobLaunch.queue.rejected.counter";
     private static final int MAX_STATUS_UPDATE_ATTEMPTS = 5;
     private static final int INITIAL_ATTEMPT = 0;
     private static final String ACCEPTED_MESSAGE = "The job has been accepted by the system for execution";
@@ -83,6 +106,14 @@ public class JobLaunchServiceImpl implements JobLaunchService {
     private final Tracer tracer;
     private final MeterRegistry registry;
 
+    // Only set when jobs are launched asynchronously
+    private final ThreadPoolExecutor launchExecutor;
+    private final Semaphore queuePermits;
+    private final int queueCapacity;
+    private final ToIntFunction<String> userPriority;
+    private final Duration shutdownTimeout;
+    private final AtomicLong queueSequence = new AtomicLong();
+
     /**
      * Constructor.
      *
@@ -98,12 +129,58 @@ public class JobLaunchServiceImpl implements JobLaunchService {
         final AgentLauncherSelector agentLauncherSelector,
         final BraveTracingComponents tracingComponents,
         final MeterRegistry registry
+    ) {
+        this(dataServices, jobResolverService, agentLauncherSelector, tracingComponents, registry, null);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param dataServices          The {@link DataServices} instance to use
+     * @param jobResolverService    {@link JobResolverService} implementation used to resolve job details
+     * @param agentLauncherSelector {@link AgentLauncher} implementation to launch agents
+     * @param tracingComponents     {@link BraveTracingComponents} instance to use to get access to instrumentation
+     * @param registry              {@link MeterRegistry} metrics repository
+     * @param queueProperties       The {@link JobLaunchQueueProperties}. If {@literal null} or not enabled jobs are
+     *                              launched synchronously within {@link #launchJob(JobSubmission)}
+     */
+    public JobLaunchServiceImpl(
+        final DataServices dataServices,
+        final JobResolverService jobResolverService,
+        final AgentLauncherSelector agentLauncherSelector,
+        final BraveTracingComponents tracingComponents,
+        final MeterRegistry registry,
+        @Nullable final JobLaunchQueueProperties queueProperties
     ) {
         this.persistenceService = dataServices.getPersistenceService();
         this.jobResolverService = jobResolverService;
         this.agentLauncherSelector = agentLauncherSelector;
         this.tracer = tracingComponents.getTracer();
         this.registry = registry;
+
+        if (queueProperties != null && queueProperties.isEnabled()) {
+            final int workers = queueProperties.getWorkers();
+            // The queue itself is unbounded, the permits enforce the capacity before a job is ever saved
+            this.launchExecutor = new ThreadPoolExecutor(
+                workers,
+                workers,
+                0L,
+                TimeUnit.MILLISECONDS,
+                new PriorityBlockingQueue<>(),
+                new ThreadFactoryBuilder().setNameFormat("genie-job-launch-%d").setDaemon(true).build()
+            );
+            this.queueCapacity = queueProperties.getCapacity();
+            this.queuePermits = new Semaphore(this.queueCapacity);
+            this.userPriority = queueProperties::getUserPriority;
+            this.shutdownTimeout = queueProperties.getShutdownTimeout();
+            this.registry.gauge(QUEUE_SIZE_GAUGE, this.launchExecutor, executor -> executor.getQueue().size());
+        } else {
+            this.launchExecutor = null;
+            this.queueCapacity = 0;
+            this.queuePermits = null;
+            this.userPriority = user -> JobLaunchQueueProperties.DEFAULT_PRIORITY;
+            this.shutdownTimeout = Duration.ZERO;
+        }
     }
 
     /**
@@ -117,12 +194,19 @@ public class JobLaunchServiceImpl implements JobLaunchService {
         AgentLaunchException,
         GenieJobResolutionException,
         IdAlreadyExistsException,
+        JobLaunchQueueFullException,
         NotFoundException {
         final long start = System.nanoTime();
         final SpanCustomizer span = this.tracer.currentSpanCustomizer();
         span.annotate(BEGIN_LAUNCH_JOB_ANNOTATION);
         final Set<Tag> tags = Sets.newHashSet();
         try {
+            if (this.launchExecutor != null) {
+                final String jobId = this.queueJob(jobSubmission, span);
+                MetricsUtils.addSuccessTags(tags);
+                return jobId;
+            }
+
             /*
              * Steps:
              *
@@ -135,79 +219,7 @@ public class JobLaunchServiceImpl implements JobLaunchService {
             final String jobId = this.persistenceService.saveJobSubmission(jobSubmission);
             span.annotate(SAVED_JOB_SUBMISSION_ANNOTATION);
 
-            final ResolvedJob resolvedJob;
-            try {
-                resolvedJob = this.jobResolverService.resolveJob(jobId);
-            } catch (final Throwable t) {
-                final String message;
-                if (t instanceof GenieJobResolutionException) {
-                    message = JobStatusMessages.FAILED_TO_RESOLVE_JOB;
-                } else {
-                    message = JobStatusMessages.RESOLUTION_RUNTIME_ERROR;
-                }
-
-                MetricsUtils.addFailureTagsWithException(tags, t);
-                this.persistenceService.updateJobArchiveStatus(jobId, ArchiveStatus.NO_FILES);
-                if (
-                    this.updateJobStatus(jobId, JobStatus.RESERVED, JobStatus.FAILED, message, INITIAL_ATTEMPT)
-                        != JobStatus.FAILED
-                ) {
-                    log.error("Updating status to failed didn't succeed");
-                }
-                throw t; // Caught below for metrics gathering
-            }
-            span.annotate(RESOLVED_JOB_ANNOTATION);
-
-            // Job state should be RESOLVED now. Mark it ACCEPTED to avoid race condition with agent starting up
-            // before we get return from launchAgent and trying to set it to CLAIMED
-            try {
-                final JobStatus updatedStatus = this.updateJobStatus(
-                    jobId,
-                    JobStatus.RESOLVED,
-                    JobStatus.ACCEPTED,
-                    ACCEPTED_MESSAGE,
-                    INITIAL_ATTEMPT
-                );
-                if (updatedStatus != JobStatus.ACCEPTED) {
-                    throw new AgentLaunchException("Unable to mark job accepted. Job state " + updatedStatus);
-                }
-            } catch (final Exception e) {
-                this.persistenceService.updateJobArchiveStatus(jobId, ArchiveStatus.NO_FILES);
-                // TODO: Failed to update the status to accepted. Try to set it to failed or rely on other cleanup
-                //       mechanism? For now rely on janitor mechanisms
-                throw e;
-            }
-            span.annotate(MARKED_JOB_ACCEPTED_ANNOTATION);
-
-            // TODO: at the moment this is not populated, it's going to be a null node (not null)
-            final JsonNode requestedLauncherExt = this.persistenceService.getRequestedLauncherExt(jobId);
-
-            final Optional<JsonNode> launcherExt;
-            try {
-                final AgentLauncher launcher = this.selectLauncher(jobId, jobSubmission, resolvedJob);
-                tags.add(Tag.of(LAUNCHER_CLASS_TAG, launcher.getClass().getCanonicalName()));
-                launcherExt = launcher.launchAgent(resolvedJob, requestedLauncherExt);
-            } catch (final AgentLaunchException e) {
-                this.persistenceService.updateJobArchiveStatus(jobId, ArchiveStatus.NO_FILES);
-                this.updateJobStatus(jobId, JobStatus.ACCEPTED, JobStatus.FAILED, e.getMessage(), INITIAL_ATTEMPT);
-                // TODO: How will we get the ID back to the user? Should we add it to an exception? We don't get
-                //       We don't get the ID until after saveJobSubmission so if that fails we'd still return nothing
-                //       Probably need multiple exceptions to be thrown from this API (if we go with checked)
-                throw e;
-            }
-            span.annotate(LAUNCHED_AGENT_ANNOTATION);
-
-            if (launcherExt.isPresent()) {
-                try {
-                    this.persistenceService.updateLauncherExt(jobId, launcherExt.get());
-                } catch (final Exception e) {
-                    // Being unable to update the launcher ext is not optimal however
-                    // it's not worth returning an error to the user at this point as
-                    // the agent has launched and we have all the other pieces in place
-                    log.error("Unable to update the launcher ext for job {}", jobId, e);
-                }
-            }
-            span.annotate(SAVED_LAUNCHER_EXT_ANNOTATION);
+            this.launchSavedJob(jobId, jobSubmission, span, tags);
 
             MetricsUtils.addSuccessTags(tags);
             return jobId;
@@ -222,6 +234,165 @@ public class JobLaunchServiceImpl implements JobLaunchService {
         }
     }
 
+    /**
+     * Stop accepting queued launches. Jobs which are still waiting in the queue are marked failed as nothing else
+     * would ever launch them, jobs whose launch is already in progress are given a chance to complete.
+     */
+    @PreDestroy
+    public void shutdown() {
+        if (this.launchExecutor == null) {
+            return;
+        }
+        final List<Runnable> pending = Lists.newArrayList();
+        this.launchExecutor.getQueue().drainTo(pending);
+        this.launchExecutor.shutdown();
+        for (final Runnable runnable : pending) {
+            final String jobId = ((QueuedLaunch) runnable).jobId;
+            log.warn("Failing job {} which was still queued for launch during shutdown", jobId);
+            this.failQueuedJob(jobId, SHUTDOWN_MESSAGE);
+        }
+        try {
+            if (!this.launchExecutor.awaitTermination(this.shutdownTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                log.warn("Timed out waiting for in progress job launches to complete");
+            }
+        } catch (final InterruptedException e) {
+            log.warn("Interrupted while waiting for in progress job launches to complete");
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private String queueJob(
+        final JobSubmission jobSubmission,
+        final SpanCustomizer span
+    ) throws IdAlreadyExistsException, JobLaunchQueueFullException {
+        // Reserve the spot before saving anything so a full queue doesn't leave behind orphaned job records
+        if (!this.queuePermits.tryAcquire()) {
+            this.registry.counter(QUEUE_REJECTED_COUNTER).increment();
+            throw new JobLaunchQueueFullException(
+                "Job launch queue is full (capacity " + this.queueCapacity + "). Try again later"
+            );
+        }
+
+        final String jobId;
+        try {
+            jobId = this.persistenceService.saveJobSubmission(jobSubmission);
+        } catch (final Throwable t) {
+            this.queuePermits.release();
+            throw t;
+        }
+        span.annotate(SAVED_JOB_SUBMISSION_ANNOTATION);
+
+        final Span currentSpan = this.tracer.currentSpan();
+        final QueuedLaunch queuedLaunch = new QueuedLaunch(
+            jobId,
+            jobSubmission,
+            this.userPriority.applyAsInt(jobSubmission.getJobRequest().getMetadata().getUser()),
+            this.queueSequence.getAndIncrement(),
+            currentSpan == null ? null : currentSpan.context()
+        );
+        try {
+            this.launchExecutor.execute(queuedLaunch);
+        } catch (final RejectedExecutionException e) {
+            // Only happens while shutting down, the client can submit again to another server
+            this.queuePermits.release();
+            this.failQueuedJob(jobId, SHUTDOWN_MESSAGE);
+            this.registry.counter(QUEUE_REJECTED_COUNTER).increment();
+            throw new JobLaunchQueueFullException("Job launch queue is shutting down. Try again later", e);
+        }
+        span.annotate(QUEUED_JOB_ANNOTATION);
+        return jobId;
+    }
+
+    private void launchSavedJob(
+        final String jobId,
+        final JobSubmission jobSubmission,
+        final SpanCustomizer span,
+        final Set<Tag> tags
+    ) throws AgentLaunchException, GenieJobResolutionException, NotFoundException {
+        final ResolvedJob resolvedJob;
+        try {
+            resolvedJob = this.jobResolverService.resolveJob(jobId);
+        } catch (final Throwable t) {
+            final String message;
+            if (t instanceof GenieJobResolutionException) {
+                message = JobStatusMessages.FAILED_TO_RESOLVE_JOB;
+            } else {
+                message = JobStatusMessages.RESOLUTION_RUNTIME_ERROR;
+            }
+
+            MetricsUtils.addFailureTagsWithException(tags, t);
+            this.persistenceService.updateJobArchiveStatus(jobId, ArchiveStatus.NO_FILES);
+            if (
+                this.updateJobStatus(jobId, JobStatus.RESERVED, JobStatus.FAILED, message, INITIAL_ATTEMPT)
+                    != JobStatus.FAILED
+            ) {
+                log.error("Updating status to failed didn't succeed");
+            }
+            throw t; // Caught by the caller for metrics gathering
+        }
+        span.annotate(RESOLVED_JOB_ANNOTATION);
+
+        // Job state should be RESOLVED now. Mark it ACCEPTED to avoid race condition with agent starting up
+        // before we get return from launchAgent and trying to set it to CLAIMED
+        try {
+            final JobStatus updatedStatus = this.updateJobStatus(
+                jobId,
+                JobStatus.RESOLVED,
+                JobStatus.ACCEPTED,
+                ACCEPTED_MESSAGE,
+                INITIAL_ATTEMPT
+            );
+            if (updatedStatus != JobStatus.ACCEPTED) {
+                throw new AgentLaunchException("Unable to mark job accepted. Job state " + updatedStatus);
+            }
+        } catch (final Exception e) {
+            this.persistenceService.updateJobArchiveStatus(jobId, ArchiveStatus.NO_FILES);
+            // TODO: Failed to update the status to accepted. Try to set it to failed or rely on other cleanup
+            //       mechanism? For now rely on janitor mechanisms
+            throw e;
+        }
+        span.annotate(MARKED_JOB_ACCEPTED_ANNOTATION);
+
+        // TODO: at the moment this is not populated, it's going to be a null node (not null)
+        final JsonNode requestedLauncherExt = this.persistenceService.getRequestedLauncherExt(jobId);
+
+        final Optional<JsonNode> launcherExt;
+        try {
+            final AgentLauncher launcher = this.selectLauncher(jobId, jobSubmission, resolvedJob);
+            tags.add(Tag.of(LAUNCHER_CLASS_TAG, launcher.getClass().getCanonicalName()));
+            launcherExt = launcher.launchAgent(resolvedJob, requestedLauncherExt);
+        } catch (final AgentLaunchException e) {
+            this.persistenceService.updateJobArchiveStatus(jobId, ArchiveStatus.NO_FILES);
+            this.updateJobStatus(jobId, JobStatus.ACCEPTED, JobStatus.FAILED, e.getMessage(), INITIAL_ATTEMPT);
+            // TODO: How will we get the ID back to the user? Should we add it to an exception? We don't get
+            //       We don't get the ID until after saveJobSubmission so if that fails we'd still return nothing
+            //       Probably need multiple exceptions to be thrown from this API (if we go with checked)
+            throw e;
+        }
+        span.annotate(LAUNCHED_AGENT_ANNOTATION);
+
+        if (launcherExt.isPresent()) {
+            try {
+                this.persistenceService.updateLauncherExt(jobId, launcherExt.get());
+            } catch (final Exception e) {
+                // Being unable to update the launcher ext is not optimal however
+                // it's not worth returning an error to the user at this point as
+                // the agent has launched and we have all the other pieces in place
+                log.error("Unable to update the launcher ext for job {}", jobId, e);
+            }
+        }
+        span.annotate(SAVED_LAUNCHER_EXT_ANNOTATION);
+    }
+
+    private void failQueuedJob(final String jobId, final String message) {
+        try {
+            this.persistenceService.updateJobArchiveStatus(jobId, ArchiveStatus.NO_FILES);
+            this.updateJobStatus(jobId, JobStatus.RESERVED, JobStatus.FAILED, message, INITIAL_ATTEMPT);
+        } catch (final Exception e) {
+            log.error("Unable to mark queued job {} failed", jobId, e);
+        }
+    }
+
     private AgentLauncher selectLauncher(
         final String jobId,
         final JobSubmission jobSubmission,
@@ -333,4 +504,62 @@ public class JobLaunchServiceImpl implements JobLaunchService {
             }
         }
     }
+
+    /**
+     * A job which has been saved and is waiting for a worker to resolve it and launch its agent. Higher priority
+     * launches sort first, ties are broken by the order the jobs were queued in.
+     */
+    private final class QueuedLaunch implements Runnable, Comparable<QueuedLaunch> {
+        private final String jobId;
+        private final JobSubmission jobSubmission;
+        private final int priority;
+        private final long sequence;
+        private final TraceContext parentContext;
+        private final long queuedAt = System.nanoTime();
+
+        private QueuedLaunch(
+            final String jobId,
+            final JobSubmission jobSubmission,
+            final int priority,
+            final long sequence,
+            @Nullable final TraceContext parentContext
+        ) {
+            this.jobId = jobId;
+            this.jobSubmission = jobSubmission;
+            this.priority = priority;
+            this.sequence = sequence;
+            this.parentContext = parentContext;
+        }
+
+        @Override
+        public void run() {
+            final long start = System.nanoTime();
+            queuePermits.release();
+            registry.timer(QUEUE_WAIT_TIMER).record(start - this.queuedAt, TimeUnit.NANOSECONDS);
+
+            final Span span = this.parentContext == null ? tracer.nextSpan() : tracer.newChild(this.parentContext);
+            span.name(QUEUED_LAUNCH_SPAN_NAME).start();
+            final Set<Tag> tags = Sets.newHashSet();
+            try (Tracer.SpanInScope ignored = tracer.withSpanInScope(span)) {
+                launchSavedJob(this.jobId, this.jobSubmission, span.customizer(), tags);
+                MetricsUtils.addSuccessTags(tags);
+            } catch (final Throwable t) {
+                MetricsUtils.addFailureTagsWithException(tags, t);
+                span.error(t);
+                log.error("Unable to launch queued job {}", this.jobId, t);
+            } finally {
+                span.annotate(END_LAUNCH_JOB_ANNOTATION);
+                span.finish();
+                registry
+                    .timer(QUEUE_LAUNCH_TIMER, tags)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        @Override
+        public int compareTo(final QueuedLaunch other) {
+            final int priorityComparison = Integer.compare(other.priority, this.priority);
+            return priorityComparison != 0 ? priorityComparison : Long.compare(this.sequence, other.sequence);
+        }
+    }
 }
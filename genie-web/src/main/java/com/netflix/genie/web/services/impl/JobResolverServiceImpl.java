@@ -41,6 +41,7 @@ import com.netflix.genie.web.data.services.DataServices;
 import com.netflix.genie.web.data.services.PersistenceService;
 import com.netflix.genie.web.dtos.ResolvedJob;
 import com.netflix.genie.web.dtos.ResourceSelectionResult;
+import com.netflix.genie.web.exceptions.checked.NotFoundException;
 import com.netflix.genie.web.exceptions.checked.ResourceSelectionException;
 import com.netflix.genie.web.properties.JobResolutionProperties;
 import com.netflix.genie.web.properties.JobsProperties;
@@ -49,6 +50,7 @@ import com.netflix.genie.web.selectors.ClusterSelector;
 import com.netflix.genie.web.selectors.CommandSelectionContext;
 import com.netflix.genie.web.selectors.CommandSelector;
 import com.netflix.genie.web.services.JobResolverService;
+import com.netflix.genie.web.services.ResourceCatalogService;
 import com.netflix.genie.web.util.MetricsConstants;
 import com.netflix.genie.web.util.MetricsUtils;
 import io.micrometer.core.instrument.MeterRegistry;
@@ -155,6 +157,8 @@ public class JobResolverServiceImpl implements JobResolverService {
 
     //region Members
     private final PersistenceService persistenceService;
+    @Nullable
+    private final ResourceCatalogService resourceCatalogService;
     private final List<ClusterSelector> clusterSelectors;
     private final CommandSelector commandSelector;
     private final MeterRegistry registry;
@@ -187,8 +191,44 @@ public class JobResolverServiceImpl implements JobResolverService {
         final JobsProperties jobsProperties,
         final JobResolutionProperties jobResolutionProperties,
         final BraveTracingComponents tracingComponents
+    ) {
+        this(
+            dataServices,
+            null,
+            clusterSelectors,
+            commandSelector,
+            registry,
+            jobsProperties,
+            jobResolutionProperties,
+            tracingComponents
+        );
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param dataServices            The {@link DataServices} encapsulation instance to use
+     * @param resourceCatalogService  The {@link ResourceCatalogService} to match criteria against instead of
+     *                                persistence once it is ready or {@literal null} to always use persistence
+     * @param clusterSelectors        The {@link ClusterSelector} implementations to use
+     * @param commandSelector         The {@link CommandSelector} implementation to use
+     * @param registry                The {@link MeterRegistry }metrics repository to use
+     * @param jobsProperties          The properties for running a job set by the user
+     * @param jobResolutionProperties The {@link JobResolutionProperties} instance
+     * @param tracingComponents       The {@link BraveTracingComponents} instance to use
+     */
+    public JobResolverServiceImpl(
+        final DataServices dataServices,
+        @Nullable final ResourceCatalogService resourceCatalogService,
+        @NotEmpty final List<ClusterSelector> clusterSelectors,
+        final CommandSelector commandSelector, // TODO: For now this is a single value but maybe support List
+        final MeterRegistry registry,
+        final JobsProperties jobsProperties,
+        final JobResolutionProperties jobResolutionProperties,
+        final BraveTracingComponents tracingComponents
     ) {
         this.persistenceService = dataServices.getPersistenceService();
+        this.resourceCatalogService = resourceCatalogService;
         this.clusterSelectors = clusterSelectors;
         this.commandSelector = commandSelector;
         this.jobResolutionProperties = jobResolutionProperties;
@@ -351,7 +391,7 @@ public class JobResolverServiceImpl implements JobResolverService {
             final Criterion criterion = jobRequest.getCriteria().getCommandCriterion();
 
             //region Algorithm Step 1
-            final Set<Command> commands = this.persistenceService.findCommandsMatchingCriterion(criterion, true);
+            final Set<Command> commands = this.findCommandsMatchingCriterion(criterion);
 
             // Short circuit if there are no commands
             if (commands.isEmpty()) {
@@ -367,10 +407,7 @@ public class JobResolverServiceImpl implements JobResolverService {
 
             final Set<Criterion> uniqueCriteria = this.flattenClusterCriteriaPermutations(commandClusterCriterions);
 
-            final Set<Cluster> allCandidateClusters = this.persistenceService.findClustersMatchingAnyCriterion(
-                uniqueCriteria,
-                true
-            );
+            final Set<Cluster> allCandidateClusters = this.findClustersMatchingAnyCriterion(uniqueCriteria);
             if (allCandidateClusters.isEmpty()) {
                 throw new GenieJobResolutionException("No clusters available to run any candidate command on");
             }
@@ -583,10 +620,10 @@ public class JobResolverServiceImpl implements JobResolverService {
             // TODO: What do we do about application status? Should probably check here
             final List<Application> applications = new ArrayList<>();
             if (jobRequest.getCriteria().getApplicationIds().isEmpty()) {
-                applications.addAll(this.persistenceService.getApplicationsForCommand(commandId));
+                applications.addAll(this.getApplicationsForCommand(commandId));
             } else {
                 for (final String applicationId : jobRequest.getCriteria().getApplicationIds()) {
-                    applications.add(this.persistenceService.getApplication(applicationId));
+                    applications.add(this.getApplication(applicationId));
                 }
             }
             LOG.debug(
@@ -783,6 +820,51 @@ public class JobResolverServiceImpl implements JobResolverService {
 
     //region Additional Helpers
 
+    /*
+     * The lookups below prefer the in-memory resource catalog when one is configured and loaded so that matching
+     * doesn't require any database queries. Resources created after the last catalog refresh aren't visible to
+     * criteria matching until the next refresh. Lookups by explicit id fall back to persistence when missing.
+     */
+    private Set<Command> findCommandsMatchingCriterion(final Criterion criterion) {
+        if (this.isResourceCatalogReady()) {
+            return this.resourceCatalogService.findCommandsMatchingCriterion(criterion, true);
+        }
+        return this.persistenceService.findCommandsMatchingCriterion(criterion, true);
+    }
+
+    private Set<Cluster> findClustersMatchingAnyCriterion(final Set<Criterion> criteria) {
+        if (this.isResourceCatalogReady()) {
+            return this.resourceCatalogService.findClustersMatchingAnyCriterion(criteria, true);
+        }
+        return this.persistenceService.findClustersMatchingAnyCriterion(criteria, true);
+    }
+
+    private List<Application> getApplicationsForCommand(final String commandId) throws NotFoundException {
+        if (this.isResourceCatalogReady()) {
+            try {
+                return this.resourceCatalogService.getApplicationsForCommand(commandId);
+            } catch (final NotFoundException e) {
+                LOG.debug("Applications for command {} not in resource catalog. Using persistence", commandId);
+            }
+        }
+        return this.persistenceService.getApplicationsForCommand(commandId);
+    }
+
+    private Application getApplication(final String applicationId) throws NotFoundException {
+        if (this.isResourceCatalogReady()) {
+            try {
+                return this.resourceCatalogService.getApplication(applicationId);
+            } catch (final NotFoundException e) {
+                LOG.debug("Application {} not in resource catalog. Using persistence", applicationId);
+            }
+        }
+        return this.persistenceService.getApplication(applicationId);
+    }
+
+    private boolean isResourceCatalogReady() {
+        return this.resourceCatalogService != null && this.resourceCatalogService.isReady();
+    }
+
     /**
      * Helper method to generate all the possible viable cluster criterion permutations for the given set of commands
      * and the given job request. The resulting map will be each command to its associated priority ordered list of
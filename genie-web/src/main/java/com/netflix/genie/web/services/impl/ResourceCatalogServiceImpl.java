@@ -0,0 +1,477 @@
+/*
+ *
+ *  Copyright 2022 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.services.impl;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.netflix.genie.common.internal.dtos.Application;
+import com.netflix.genie.common.internal.dtos.Cluster;
+import com.netflix.genie.common.internal.dtos.ClusterStatus;
+import com.netflix.genie.common.internal.dtos.Command;
+import com.netflix.genie.common.internal.dtos.CommandStatus;
+import com.netflix.genie.common.internal.dtos.CommonMetadata;
+import com.netflix.genie.common.internal.dtos.CommonResource;
+import com.netflix.genie.common.internal.dtos.Criterion;
+import com.netflix.genie.web.data.services.DataServices;
+import com.netflix.genie.web.data.services.PersistenceService;
+import com.netflix.genie.web.exceptions.checked.NotFoundException;
+import com.netflix.genie.web.properties.ResourceCatalogProperties;
+import com.netflix.genie.web.services.ResourceCatalogService;
+import com.netflix.genie.web.util.MetricsUtils;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.TaskScheduler;
+
+import javax.annotation.Nullable;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * A {@link ResourceCatalogService} which keeps a copy of all clusters, commands and applications in memory indexed by
+ * status and tag.
+ * <p>
+ * The catalog is refreshed in the background. Each refresh loads only the resources whose {@literal updated}
+ * timestamp moved since the previous refresh (minus a configurable overlap) and reconciles deletions against the set
+ * of ids which currently exist. Periodically the whole catalog is reloaded from scratch as a safety net.
+ * <p>
+ * Queries are answered from an immutable snapshot which is swapped atomically at the end of every refresh so the
+ * query path never takes a lock or touches the database.
+ *
+ * @since 4.4.0
+ */
+@Slf4j
+public class ResourceCatalogServiceImpl implements ResourceCatalogService {
+
+    private static final String REFRESH_TIMER = "genie.services.resourceCatalog.refresh.timer";
+    private static final String APPLICATIONS_GAUGE = "genie.services.resourceCatalog.applications.gauge";
+    private static final String CLUSTERS_GAUGE = "genie.services.resourceCatalog.clusters.gauge";
+    private static final String COMMANDS_GAUGE = "genie.services.resourceCatalog.commands.gauge";
+    private static final String REFRESH_TYPE_TAG = "type";
+    private static final String FULL_REFRESH = "full";
+    private static final String INCREMENTAL_REFRESH = "incremental";
+
+    private final PersistenceService persistenceService;
+    private final ResourceCatalogProperties properties;
+    private final MeterRegistry registry;
+    private final AtomicReference<Catalog> catalog = new AtomicReference<>();
+
+    // Guarded by this
+    private Instant lastFullRefresh = Instant.EPOCH;
+
+    /**
+     * Constructor.
+     *
+     * @param dataServices  The {@link DataServices} encapsulation instance to use
+     * @param properties    The {@link ResourceCatalogProperties} to use
+     * @param taskScheduler The {@link TaskScheduler} used to periodically refresh the catalog
+     * @param registry      The {@link MeterRegistry} to publish metrics to
+     */
+    public ResourceCatalogServiceImpl(
+        final DataServices dataServices,
+        final ResourceCatalogProperties properties,
+        final TaskScheduler taskScheduler,
+        final MeterRegistry registry
+    ) {
+        this.persistenceService = dataServices.getPersistenceService();
+        this.properties = properties;
+        this.registry = registry;
+
+        this.registry.gauge(APPLICATIONS_GAUGE, this, service -> service.getCatalogSize(c -> c.applications));
+        this.registry.gauge(CLUSTERS_GAUGE, this, service -> service.getCatalogSize(c -> c.clusters.resources));
+        this.registry.gauge(COMMANDS_GAUGE, this, service -> service.getCatalogSize(c -> c.commands.resources));
+
+        taskScheduler.scheduleWithFixedDelay(this::refresh, this.properties.getRefreshInterval());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isReady() {
+        return this.catalog.get() != null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized void refresh() {
+        final long start = System.nanoTime();
+        final Set<Tag> tags = new HashSet<>();
+        final Instant now = Instant.now();
+        final Catalog current = this.catalog.get();
+        final boolean fullRefresh = current == null
+            || !now.isBefore(this.lastFullRefresh.plus(this.properties.getFullRefreshInterval()));
+        tags.add(Tag.of(REFRESH_TYPE_TAG, fullRefresh ? FULL_REFRESH : INCREMENTAL_REFRESH));
+        try {
+            final Catalog updatedCatalog;
+            if (fullRefresh) {
+                updatedCatalog = this.load(Catalog.EMPTY, Instant.EPOCH);
+                this.lastFullRefresh = now;
+            } else {
+                updatedCatalog = this.load(
+                    current,
+                    current.updatedHighWatermark.minus(this.properties.getUpdateOverlap())
+                );
+            }
+            this.catalog.set(updatedCatalog);
+            log.debug(
+                "Completed {} refresh of resource catalog. {} applications, {} clusters, {} commands",
+                fullRefresh ? FULL_REFRESH : INCREMENTAL_REFRESH,
+                updatedCatalog.applications.size(),
+                updatedCatalog.clusters.resources.size(),
+                updatedCatalog.commands.resources.size()
+            );
+            MetricsUtils.addSuccessTags(tags);
+        } catch (final Exception e) {
+            // Keep serving the previous snapshot. Next refresh will pick up from the same point.
+            log.error("Unable to refresh the resource catalog", e);
+            MetricsUtils.addFailureTagsWithException(tags, e);
+        } finally {
+            this.registry
+                .timer(REFRESH_TIMER, tags)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Set<Command> findCommandsMatchingCriterion(final Criterion criterion, final boolean addDefaultStatus) {
+        final Criterion finalCriterion;
+        if (addDefaultStatus && !criterion.getStatus().isPresent()) {
+            finalCriterion = new Criterion(criterion, CommandStatus.ACTIVE.name());
+        } else {
+            finalCriterion = criterion;
+        }
+        log.debug("[findCommandsMatchingCriterion] Called to find commands matching {}", finalCriterion);
+
+        return this.getCatalog()
+            .commands
+            .getCandidates(finalCriterion)
+            .stream()
+            // Mirror persistence where commands without cluster criteria can never be resolved
+            .filter(command -> !command.getClusterCriteria().isEmpty())
+            .filter(
+                command -> matches(
+                    command.getId(),
+                    command.getMetadata(),
+                    command.getMetadata().getStatus().name(),
+                    finalCriterion
+                )
+            )
+            .collect(Collectors.toSet());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Set<Cluster> findClustersMatchingAnyCriterion(
+        final Set<Criterion> criteria,
+        final boolean addDefaultStatus
+    ) {
+        log.debug("[findClustersMatchingAnyCriterion] Called to find clusters matching any of {}", criteria);
+        final ResourceIndex<Cluster> clusters = this.getCatalog().clusters;
+        final Set<Cluster> matchingClusters = new HashSet<>();
+        for (final Criterion criterion : criteria) {
+            final Criterion finalCriterion;
+            if (addDefaultStatus && !criterion.getStatus().isPresent()) {
+                finalCriterion = new Criterion(criterion, ClusterStatus.UP.name());
+            } else {
+                finalCriterion = criterion;
+            }
+            for (final Cluster cluster : clusters.getCandidates(finalCriterion)) {
+                if (
+                    matches(
+                        cluster.getId(),
+                        cluster.getMetadata(),
+                        cluster.getMetadata().getStatus().name(),
+                        finalCriterion
+                    )
+                ) {
+                    matchingClusters.add(cluster);
+                }
+            }
+        }
+        return matchingClusters;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Application> getApplicationsForCommand(final String id) throws NotFoundException {
+        log.debug("[getApplicationsForCommand] Called for {}", id);
+        final Catalog currentCatalog = this.getCatalog();
+        final List<String> applicationIds = currentCatalog.commandApplicationIds.get(id);
+        if (applicationIds == null) {
+            throw new NotFoundException("No command with id " + id + " exists");
+        }
+        final ImmutableList.Builder<Application> applications = ImmutableList.builder();
+        for (final String applicationId : applicationIds) {
+            final Application application = currentCatalog.applications.get(applicationId);
+            if (application == null) {
+                // Association and application were updated in different refreshes. Let the caller fall back.
+                throw new NotFoundException(
+                    "Application " + applicationId + " for command " + id + " is not in the catalog"
+                );
+            }
+            applications.add(application);
+        }
+        return applications.build();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Application getApplication(final String id) throws NotFoundException {
+        log.debug("[getApplication] Called for {}", id);
+        final Application application = this.getCatalog().applications.get(id);
+        if (application == null) {
+            throw new NotFoundException("No application with id " + id + " exists");
+        }
+        return application;
+    }
+
+    private Catalog getCatalog() {
+        final Catalog currentCatalog = this.catalog.get();
+        if (currentCatalog == null) {
+            throw new IllegalStateException("Resource catalog has not completed its initial load");
+        }
+        return currentCatalog;
+    }
+
+    private double getCatalogSize(final Function<Catalog, Map<String, ?>> mapFunction) {
+        final Catalog currentCatalog = this.catalog.get();
+        return currentCatalog == null ? 0 : mapFunction.apply(currentCatalog).size();
+    }
+
+    /*
+     * Order matters here. The changed resources are loaded before the set of existing ids so that anything deleted in
+     * between is removed by the reconciliation. Anything created in between is picked up by the next refresh thanks
+     * to the overlap window.
+     */
+    private Catalog load(final Catalog base, final Instant updatedThreshold) {
+        final Set<Application> changedApplications
+            = this.persistenceService.findResourcesUpdatedSince(updatedThreshold, Application.class);
+        final Set<Cluster> changedClusters
+            = this.persistenceService.findResourcesUpdatedSince(updatedThreshold, Cluster.class);
+        final Set<Command> changedCommands
+            = this.persistenceService.findResourcesUpdatedSince(updatedThreshold, Command.class);
+
+        final Map<String, List<String>> changedCommandApplicationIds = new HashMap<>();
+        for (final Command command : changedCommands) {
+            final String commandId = command.getId();
+            try {
+                changedCommandApplicationIds.put(
+                    commandId,
+                    this.persistenceService
+                        .getApplicationsForCommand(commandId)
+                        .stream()
+                        .map(Application::getId)
+                        .collect(Collectors.toList())
+                );
+            } catch (final NotFoundException e) {
+                log.debug("Command {} was deleted while refreshing the resource catalog", commandId);
+            }
+        }
+
+        final Set<Command> loadedCommands = changedCommands
+            .stream()
+            .filter(command -> changedCommandApplicationIds.containsKey(command.getId()))
+            .collect(Collectors.toSet());
+
+        final Set<String> applicationIds = this.persistenceService.getResourceIds(Application.class);
+        final Set<String> clusterIds = this.persistenceService.getResourceIds(Cluster.class);
+        final Set<String> commandIds = this.persistenceService.getResourceIds(Command.class);
+
+        final Map<String, Command> commands = mergeResources(base.commands.resources, loadedCommands, commandIds);
+        final Map<String, List<String>> commandApplicationIds = new HashMap<>(base.commandApplicationIds);
+        commandApplicationIds.putAll(changedCommandApplicationIds);
+        commandApplicationIds.keySet().retainAll(commands.keySet());
+
+        Instant updatedHighWatermark = base.updatedHighWatermark;
+        for (final Collection<? extends CommonResource> changedResources
+            : ImmutableList.of(changedApplications, changedClusters, loadedCommands)) {
+            for (final CommonResource resource : changedResources) {
+                if (resource.getUpdated().isAfter(updatedHighWatermark)) {
+                    updatedHighWatermark = resource.getUpdated();
+                }
+            }
+        }
+
+        return new Catalog(
+            mergeResources(base.applications, changedApplications, applicationIds),
+            new ResourceIndex<>(
+                mergeResources(base.clusters.resources, changedClusters, clusterIds),
+                cluster -> cluster.getMetadata().getStatus().name(),
+                cluster -> cluster.getMetadata().getTags()
+            ),
+            new ResourceIndex<>(
+                commands,
+                command -> command.getMetadata().getStatus().name(),
+                command -> command.getMetadata().getTags()
+            ),
+            commandApplicationIds,
+            updatedHighWatermark
+        );
+    }
+
+    private static <R extends CommonResource> Map<String, R> mergeResources(
+        final Map<String, R> existing,
+        final Collection<R> changed,
+        final Set<String> liveIds
+    ) {
+        final Map<String, R> merged = new HashMap<>(existing);
+        for (final R resource : changed) {
+            merged.put(resource.getId(), resource);
+        }
+        merged.keySet().retainAll(liveIds);
+        return merged;
+    }
+
+    /**
+     * This is an in memory evaluation of the matching done against persistence.
+     */
+    private static boolean matches(
+        final String id,
+        final CommonMetadata metadata,
+        final String status,
+        final Criterion criterion
+    ) {
+        return criterion.getId().map(id::equals).orElse(true)
+            && criterion.getName().map(name -> metadata.getName().equals(name)).orElse(true)
+            && criterion.getVersion().map(version -> metadata.getVersion().equals(version)).orElse(true)
+            && criterion.getStatus().map(status::equals).orElse(true)
+            && metadata.getTags().containsAll(criterion.getTags());
+    }
+
+    /**
+     * An immutable point in time view of all the resources.
+     */
+    private static final class Catalog {
+        private static final Catalog EMPTY = new Catalog(
+            Collections.emptyMap(),
+            new ResourceIndex<>(Collections.emptyMap(), cluster -> null, cluster -> Collections.emptySet()),
+            new ResourceIndex<>(Collections.emptyMap(), command -> null, command -> Collections.emptySet()),
+            Collections.emptyMap(),
+            Instant.EPOCH
+        );
+
+        private final Map<String, Application> applications;
+        private final ResourceIndex<Cluster> clusters;
+        private final ResourceIndex<Command> commands;
+        private final Map<String, List<String>> commandApplicationIds;
+        private final Instant updatedHighWatermark;
+
+        private Catalog(
+            final Map<String, Application> applications,
+            final ResourceIndex<Cluster> clusters,
+            final ResourceIndex<Command> commands,
+            final Map<String, List<String>> commandApplicationIds,
+            final Instant updatedHighWatermark
+        ) {
+            this.applications = ImmutableMap.copyOf(applications);
+            this.clusters = clusters;
+            this.commands = commands;
+            this.commandApplicationIds = ImmutableMap.copyOf(commandApplicationIds);
+            this.updatedHighWatermark = updatedHighWatermark;
+        }
+    }
+
+    /**
+     * Resources of a single type indexed by id, status and tag.
+     *
+     * @param <R> The type of resource
+     */
+    private static final class ResourceIndex<R extends CommonResource> {
+        private final Map<String, R> resources;
+        private final Map<String, Set<R>> resourcesByStatus;
+        private final Map<String, Set<R>> resourcesByTag;
+
+        private ResourceIndex(
+            final Map<String, R> resources,
+            final Function<R, String> statusFunction,
+            final Function<R, Set<String>> tagsFunction
+        ) {
+            final Map<String, ImmutableSet.Builder<R>> byStatus = new HashMap<>();
+            final Map<String, ImmutableSet.Builder<R>> byTag = new HashMap<>();
+            for (final R resource : resources.values()) {
+                byStatus.computeIfAbsent(statusFunction.apply(resource), key -> ImmutableSet.builder()).add(resource);
+                for (final String tag : tagsFunction.apply(resource)) {
+                    byTag.computeIfAbsent(tag, key -> ImmutableSet.builder()).add(resource);
+                }
+            }
+            this.resources = ImmutableMap.copyOf(resources);
+            this.resourcesByStatus = buildIndex(byStatus);
+            this.resourcesByTag = buildIndex(byTag);
+        }
+
+        private static <T> Map<String, Set<T>> buildIndex(final Map<String, ImmutableSet.Builder<T>> builders) {
+            final ImmutableMap.Builder<String, Set<T>> index = ImmutableMap.builder();
+            for (final Map.Entry<String, ImmutableSet.Builder<T>> entry : builders.entrySet()) {
+                index.put(entry.getKey(), entry.getValue().build());
+            }
+            return index.build();
+        }
+
+        /*
+         * Narrow the resources down to the smallest set which could possibly match the criterion using the indices.
+         * Callers still need to evaluate the full criterion against each candidate.
+         */
+        private Collection<R> getCandidates(final Criterion criterion) {
+            final String id = criterion.getId().orElse(null);
+            if (id != null) {
+                final R resource = this.resources.get(id);
+                return resource == null ? Collections.emptySet() : Collections.singleton(resource);
+            }
+
+            Collection<R> candidates = this.lookup(this.resourcesByStatus, criterion.getStatus().orElse(null));
+            for (final String tag : criterion.getTags()) {
+                final Collection<R> tagCandidates = this.lookup(this.resourcesByTag, tag);
+                if (candidates == null || tagCandidates.size() < candidates.size()) {
+                    candidates = tagCandidates;
+                }
+            }
+            return candidates == null ? this.resources.values() : candidates;
+        }
+
+        @Nullable
+        private Collection<R> lookup(final Map<String, Set<R>> index, @Nullable final String key) {
+            if (key == null) {
+                return null;
+            }
+            return index.getOrDefault(key, Collections.emptySet());
+        }
+    }
+}
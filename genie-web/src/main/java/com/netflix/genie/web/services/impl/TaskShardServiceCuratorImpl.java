@@ -0,0 +1,110 @@
+/*
+ *
+ *  Copyright 2022 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.services.impl;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableSortedSet;
+import com.netflix.genie.web.dtos.ShardAssignment;
+import com.netflix.genie.web.services.TaskShardService;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.recipes.nodes.GroupMember;
+
+import javax.annotation.PreDestroy;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Implementation of {@link TaskShardService} where every node registers an ephemeral node in Zookeeper under a common
+ * path and the current children of that path are the members the work is divided between. Nodes which lose their
+ * Zookeeper session drop out of the group and their share of the work moves to the remaining nodes.
+ *
+ * @since 4.4.0
+ */
+@Slf4j
+public class TaskShardServiceCuratorImpl implements TaskShardService {
+
+    private static final String MEMBERS_GAUGE_NAME = "genie.tasks.sharding.members.gauge";
+    private static final String REBALANCE_COUNTER_NAME = "genie.tasks.sharding.rebalance.counter";
+
+    private final GroupMember groupMember;
+    private final String memberId;
+    private final MeterRegistry registry;
+    private final AtomicReference<Set<String>> lastMembers;
+
+    /**
+     * Constructor.
+     *
+     * @param client   The Curator client to use
+     * @param path     The Zookeeper path under which the members of the group register
+     * @param memberId The id of this node in the group
+     * @param registry The metrics registry
+     */
+    public TaskShardServiceCuratorImpl(
+        final CuratorFramework client,
+        final String path,
+        final String memberId,
+        final MeterRegistry registry
+    ) {
+        this(new GroupMember(client, path, memberId), memberId, registry);
+    }
+
+    @VisibleForTesting
+    TaskShardServiceCuratorImpl(
+        final GroupMember groupMember,
+        final String memberId,
+        final MeterRegistry registry
+    ) {
+        this.groupMember = groupMember;
+        this.memberId = memberId;
+        this.registry = registry;
+        this.lastMembers = new AtomicReference<>(ImmutableSortedSet.of());
+
+        this.registry.gauge(MEMBERS_GAUGE_NAME, this.lastMembers, members -> members.get().size());
+        this.groupMember.start();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ShardAssignment getAssignment() {
+        final ShardAssignment assignment = new ShardAssignment(
+            this.memberId,
+            this.groupMember.getCurrentMembers().keySet()
+        );
+        final Set<String> previousMembers = this.lastMembers.getAndSet(assignment.getMembers());
+        if (!previousMembers.equals(assignment.getMembers())) {
+            log.info("Task shard members changed from {} to {}", previousMembers, assignment.getMembers());
+            this.registry.counter(REBALANCE_COUNTER_NAME).increment();
+        }
+        if (!assignment.getMembers().contains(this.memberId)) {
+            log.warn("This node ({}) isn't currently registered to share task work. Skipping its share", this.memberId);
+        }
+        return assignment;
+    }
+
+    /**
+     * Leave the group so the remaining nodes pick up the work of this one straight away.
+     */
+    @PreDestroy
+    public void close() {
+        this.groupMember.close();
+    }
+}
@@ -31,6 +31,7 @@ import com.netflix.genie.web.properties.LocalAgentLauncherProperties;
 import com.netflix.genie.web.properties.TitusAgentLauncherProperties;
 import com.netflix.genie.web.util.ExecutorFactory;
 import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.autoconfigure.AutoConfigureAfter;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
@@ -46,6 +47,7 @@ import org.springframework.retry.RetryPolicy;
 import org.springframework.retry.backoff.BackOffPolicy;
 import org.springframework.retry.backoff.ExponentialBackOffPolicy;
 import org.springframework.retry.support.RetryTemplate;
+import org.springframework.scheduling.TaskScheduler;
 import org.springframework.web.client.RestTemplate;
 
 import java.util.EnumSet;
@@ -220,6 +222,7 @@ public class AgentLaunchersAutoConfiguration {
      * @param executorFactory    The {@link ExecutorFactory} to use to launch agent processes
      * @param tracingComponents  The {@link BraveTracingComponents} instance to use
      * @param registry           The {@link MeterRegistry} to register metrics
+     * @param taskScheduler      The {@link TaskScheduler} used to maintain the standby agent pool, if available
      * @return A {@link LocalAgentLauncherImpl} instance
      */
     @Bean
@@ -231,7 +234,8 @@ public class AgentLaunchersAutoConfiguration {
         final LocalAgentLauncherProperties launcherProperties,
         final ExecutorFactory executorFactory,
         final BraveTracingComponents tracingComponents,
-        final MeterRegistry registry
+        final MeterRegistry registry,
+        @Qualifier("genieTaskScheduler") final ObjectProvider<TaskScheduler> taskScheduler
     ) {
         return new LocalAgentLauncherImpl(
             genieWebHostInfo,
@@ -240,7 +244,8 @@ public class AgentLaunchersAutoConfiguration {
             launcherProperties,
             executorFactory,
             tracingComponents,
-            registry
+            registry,
+            taskScheduler.getIfAvailable()
         );
     }
 }
@@ -47,12 +47,16 @@ public class AspectsAutoConfiguration {
      * An aspect for retrying data layer API calls.
      *
      * @param retryProperties The properties a user can configure for this aspect
+     * @param meterRegistry   The metrics repository to use
      * @return A {@link DataServiceRetryAspect} instance
      */
     @Bean
     @ConditionalOnMissingBean(DataServiceRetryAspect.class)
-    public DataServiceRetryAspect getDataServiceRetryAspect(final DataServiceRetryProperties retryProperties) {
-        return new DataServiceRetryAspect(retryProperties);
+    public DataServiceRetryAspect getDataServiceRetryAspect(
+        final DataServiceRetryProperties retryProperties,
+        final MeterRegistry meterRegistry
+    ) {
+        return new DataServiceRetryAspect(retryProperties, meterRegistry);
     }
 
     /**
@@ -26,11 +26,16 @@ import com.netflix.genie.web.data.services.impl.jpa.repositories.JpaClusterRepos
 import com.netflix.genie.web.data.services.impl.jpa.repositories.JpaCommandRepository;
 import com.netflix.genie.web.data.services.impl.jpa.repositories.JpaCriterionRepository;
 import com.netflix.genie.web.data.services.impl.jpa.repositories.JpaFileRepository;
+import com.netflix.genie.web.data.services.impl.jpa.repositories.JpaHostJobCountersRepository;
+import com.netflix.genie.web.data.services.impl.jpa.repositories.JpaJobHistoryRepository;
 import com.netflix.genie.web.data.services.impl.jpa.repositories.JpaJobRepository;
 import com.netflix.genie.web.data.services.impl.jpa.repositories.JpaRepositories;
 import com.netflix.genie.web.data.services.impl.jpa.repositories.JpaTagRepository;
+import com.netflix.genie.web.data.services.impl.jpa.repositories.JpaUserJobCountersRepository;
+import com.netflix.genie.web.properties.SharedEntityCacheProperties;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
@@ -46,6 +51,11 @@ import javax.persistence.EntityManager;
 @Configuration
 @EnableJpaRepositories("com.netflix.genie.web.data.services.impl.jpa.repositories")
 @EntityScan("com.netflix.genie.web.data.services.impl.jpa.entities")
+@EnableConfigurationProperties(
+    {
+        SharedEntityCacheProperties.class
+    }
+)
 public class DataAutoConfiguration {
 
     /**
@@ -63,13 +73,16 @@ public class DataAutoConfiguration {
     /**
      * Provide a {@link JpaRepositories} container instance if one wasn't already provided.
      *
-     * @param applicationRepository The {@link JpaApplicationRepository} instance
-     * @param clusterRepository     The {@link JpaClusterRepository} instance
-     * @param commandRepository     The {@link JpaCommandRepository} instance
-     * @param criterionRepository   The {@link JpaCriterionRepository} instance
-     * @param fileRepository        The {@link JpaFileRepository} instance
-     * @param jobRepository         The {@link JpaJobRepository} instance
-     * @param tagRepository         The {@link JpaTagRepository} instance
+     * @param applicationRepository      The {@link JpaApplicationRepository} instance
+     * @param clusterRepository          The {@link JpaClusterRepository} instance
+     * @param commandRepository          The {@link JpaCommandRepository} instance
+     * @param criterionRepository        The {@link JpaCriterionRepository} instance
+     * @param fileRepository             The {@link JpaFileRepository} instance
+     * @param hostJobCountersRepository  The {@link JpaHostJobCountersRepository} instance
+     * @param jobHistoryRepository       The {@link JpaJobHistoryRepository} instance
+     * @param jobRepository              The {@link JpaJobRepository} instance
+     * @param tagRepository              The {@link JpaTagRepository} instance
+     * @param userJobCountersRepository  The {@link JpaUserJobCountersRepository} instance
      * @return A new {@link JpaRepositories} instance to simplify passing around all repositories
      */
     @Bean
@@ -80,8 +93,11 @@ public class DataAutoConfiguration {
         final JpaCommandRepository commandRepository,
         final JpaCriterionRepository criterionRepository,
         final JpaFileRepository fileRepository,
+        final JpaHostJobCountersRepository hostJobCountersRepository,
+        final JpaJobHistoryRepository jobHistoryRepository,
         final JpaJobRepository jobRepository,
-        final JpaTagRepository tagRepository
+        final JpaTagRepository tagRepository,
+        final JpaUserJobCountersRepository userJobCountersRepository
     ) {
         return new JpaRepositories(
             applicationRepository,
@@ -89,17 +105,21 @@ public class DataAutoConfiguration {
             commandRepository,
             criterionRepository,
             fileRepository,
+            hostJobCountersRepository,
+            jobHistoryRepository,
             jobRepository,
-            tagRepository
+            tagRepository,
+            userJobCountersRepository
         );
     }
 
     /**
      * Provide a default implementation of {@link PersistenceService} if no other has been defined.
      *
-     * @param entityManager     The {@link EntityManager} for this application
-     * @param jpaRepositories   The {@link JpaRepositories} for Genie
-     * @param tracingComponents The {@link BraveTracingComponents} instance to use
+     * @param entityManager               The {@link EntityManager} for this application
+     * @param jpaRepositories             The {@link JpaRepositories} for Genie
+     * @param tracingComponents           The {@link BraveTracingComponents} instance to use
+     * @param sharedEntityCacheProperties The {@link SharedEntityCacheProperties} to use
      * @return A {@link JpaPersistenceServiceImpl} instance which implements {@link PersistenceService} backed by
      * JPA and a relational database
      */
@@ -108,8 +128,14 @@ public class DataAutoConfiguration {
     public JpaPersistenceServiceImpl geniePersistenceService(
         final EntityManager entityManager,
         final JpaRepositories jpaRepositories,
-        final BraveTracingComponents tracingComponents
+        final BraveTracingComponents tracingComponents,
+        final SharedEntityCacheProperties sharedEntityCacheProperties
     ) {
-        return new JpaPersistenceServiceImpl(entityManager, jpaRepositories, tracingComponents);
+        return new JpaPersistenceServiceImpl(
+            entityManager,
+            jpaRepositories,
+            tracingComponents,
+            sharedEntityCacheProperties
+        );
     }
 }
@@ -0,0 +1,143 @@
+/*
+ *
+ *  Copyright 2022 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.spring.autoconfigure.data;
+
+import com.netflix.genie.web.data.datasources.ReplicaHealthMonitor;
+import com.netflix.genie.web.data.datasources.ReplicaRead;
+import com.netflix.genie.web.data.datasources.ReplicaReadAspect;
+import com.netflix.genie.web.data.datasources.ReplicaRoutingDataSource;
+import com.netflix.genie.web.properties.ReplicaDataSourceProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.AutoConfigureBefore;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.scheduling.TaskScheduler;
+
+import javax.sql.DataSource;
+
+/**
+ * Replaces the default data source with one that routes read only transactions of {@link ReplicaRead} methods to a
+ * read replica when {@literal genie.data.replica.enabled} is {@literal true}.
+ * <p>
+ * The primary is still configured through {@literal spring.datasource} and remains the target of everything outside
+ * read only transactions, including schema migrations.
+ *
+ * @since 4.4.0
+ */
+@Configuration
+@ConditionalOnProperty(value = ReplicaDataSourceProperties.ENABLED_PROPERTY, havingValue = "true")
+@AutoConfigureBefore(DataSourceAutoConfiguration.class)
+@EnableConfigurationProperties(
+    {
+        DataSourceProperties.class,
+        ReplicaDataSourceProperties.class
+    }
+)
+public class ReplicaDataSourceAutoConfiguration {
+
+    /**
+     * The connection pool for the primary database, configured exactly as Spring Boot would have.
+     *
+     * @param dataSourceProperties The {@literal spring.datasource} properties
+     * @return The primary {@link DataSource}
+     */
+    @Bean
+    @ConfigurationProperties(prefix = "spring.datasource.hikari")
+    public DataSource primaryDataSource(final DataSourceProperties dataSourceProperties) {
+        return dataSourceProperties.initializeDataSourceBuilder().build();
+    }
+
+    /**
+     * The connection pool for the read replica.
+     *
+     * @param replicaDataSourceProperties The replica properties
+     * @return The replica {@link DataSource}
+     */
+    @Bean
+    @ConfigurationProperties(prefix = ReplicaDataSourceProperties.PROPERTY_PREFIX + ".hikari")
+    public DataSource replicaDataSource(final ReplicaDataSourceProperties replicaDataSourceProperties) {
+        return DataSourceBuilder
+            .create()
+            .driverClassName(replicaDataSourceProperties.getDriverClassName())
+            .url(replicaDataSourceProperties.getUrl())
+            .username(replicaDataSourceProperties.getUsername())
+            .password(replicaDataSourceProperties.getPassword())
+            .build();
+    }
+
+    /**
+     * The monitor deciding whether the replica is fit to serve reads.
+     *
+     * @param replicaDataSource           The replica {@link DataSource}
+     * @param replicaDataSourceProperties The replica properties
+     * @param taskScheduler               The scheduler to run checks on
+     * @param registry                    The metrics registry
+     * @return A {@link ReplicaHealthMonitor} instance
+     */
+    @Bean
+    public ReplicaHealthMonitor replicaHealthMonitor(
+        @Qualifier("replicaDataSource") final DataSource replicaDataSource,
+        final ReplicaDataSourceProperties replicaDataSourceProperties,
+        @Qualifier("genieTaskScheduler") final TaskScheduler taskScheduler,
+        final MeterRegistry registry
+    ) {
+        return new ReplicaHealthMonitor(replicaDataSource, replicaDataSourceProperties, taskScheduler, registry);
+    }
+
+    /**
+     * The aspect marking calls to {@link ReplicaRead} methods as allowed to use the replica.
+     *
+     * @return A {@link ReplicaReadAspect} instance
+     */
+    @Bean
+    public ReplicaReadAspect replicaReadAspect() {
+        return new ReplicaReadAspect();
+    }
+
+    /**
+     * The {@link DataSource} used by the rest of the application. Connections are only obtained once a statement is
+     * executed so the routing decision can see whether the current transaction is read only.
+     *
+     * @param primaryDataSource    The primary {@link DataSource}
+     * @param replicaDataSource    The replica {@link DataSource}
+     * @param replicaHealthMonitor The {@link ReplicaHealthMonitor} instance
+     * @param registry             The metrics registry
+     * @return The routing {@link DataSource}
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(
+        @Qualifier("primaryDataSource") final DataSource primaryDataSource,
+        @Qualifier("replicaDataSource") final DataSource replicaDataSource,
+        final ReplicaHealthMonitor replicaHealthMonitor,
+        final MeterRegistry registry
+    ) {
+        return new LazyConnectionDataSourceProxy(
+            new ReplicaRoutingDataSource(primaryDataSource, replicaDataSource, replicaHealthMonitor, registry)
+        );
+    }
+}
@@ -22,17 +22,23 @@ import com.netflix.genie.common.external.util.GenieObjectMapper;
 import com.netflix.genie.web.data.observers.PersistedJobStatusObserver;
 import com.netflix.genie.web.data.observers.PersistedJobStatusObserverImpl;
 import com.netflix.genie.web.data.services.DataServices;
+import com.netflix.genie.web.events.BatchingNotificationPublisher;
 import com.netflix.genie.web.events.GenieEventBus;
 import com.netflix.genie.web.events.JobFinishedSNSPublisher;
 import com.netflix.genie.web.events.JobNotificationMetricPublisher;
 import com.netflix.genie.web.events.JobStateChangeSNSPublisher;
+import com.netflix.genie.web.events.NotificationSink;
+import com.netflix.genie.web.events.SNSNotificationSink;
 import com.netflix.genie.web.properties.SNSNotificationsProperties;
 import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.TaskScheduler;
 
 /**
  * Beans related to external notifications.
@@ -78,11 +84,71 @@ public class NotificationsAutoConfiguration {
     }
 
     /**
-     * Create a {@link JobStateChangeSNSPublisher} unless one exists in the context already.
+     * Create a {@link NotificationSink} delivering batches of notifications to SNS if batching is enabled and no
+     * other sink exists in the context.
      *
      * @param snsClient  the Amazon SNS client
      * @param properties configuration properties
-     * @param registry   the metrics registry
+     * @return a {@link SNSNotificationSink}
+     */
+    @Bean
+    @ConditionalOnProperty(
+        value = {
+            SNSNotificationsProperties.ENABLED_PROPERTY,
+            SNSNotificationsProperties.Batch.ENABLED_PROPERTY
+        },
+        havingValue = "true"
+    )
+    @ConditionalOnMissingBean(NotificationSink.class)
+    public SNSNotificationSink snsNotificationSink(
+        final AmazonSNS snsClient,
+        final SNSNotificationsProperties properties
+    ) {
+        return new SNSNotificationSink(snsClient, properties);
+    }
+
+    /**
+     * Create a {@link BatchingNotificationPublisher} if batching is enabled and one doesn't exist in the context
+     * already.
+     *
+     * @param notificationSink the sink to deliver batches of notifications to
+     * @param properties       configuration properties
+     * @param taskScheduler    the task scheduler used to flush queued notifications
+     * @param registry         the metrics registry
+     * @return a {@link BatchingNotificationPublisher}
+     */
+    @Bean
+    @ConditionalOnProperty(
+        value = {
+            SNSNotificationsProperties.ENABLED_PROPERTY,
+            SNSNotificationsProperties.Batch.ENABLED_PROPERTY
+        },
+        havingValue = "true"
+    )
+    @ConditionalOnMissingBean(BatchingNotificationPublisher.class)
+    public BatchingNotificationPublisher batchingNotificationPublisher(
+        final NotificationSink notificationSink,
+        final SNSNotificationsProperties properties,
+        @Qualifier("genieTaskScheduler") final TaskScheduler taskScheduler,
+        final MeterRegistry registry
+    ) {
+        return new BatchingNotificationPublisher(
+            notificationSink,
+            properties.getBatch(),
+            taskScheduler,
+            registry,
+            GenieObjectMapper.getMapper()
+        );
+    }
+
+    /**
+     * Create a {@link JobStateChangeSNSPublisher} unless one exists in the context already.
+     *
+     * @param snsClient         the Amazon SNS client
+     * @param properties        configuration properties
+     * @param registry          the metrics registry
+     * @param batchingPublisher the {@link BatchingNotificationPublisher} to queue notifications with, if batching is
+     *                          enabled
      * @return a {@link JobStateChangeSNSPublisher}
      */
     @Bean
@@ -91,23 +157,27 @@ public class NotificationsAutoConfiguration {
     public JobStateChangeSNSPublisher jobNotificationsSNSPublisher(
         final SNSNotificationsProperties properties,
         final MeterRegistry registry,
-        final AmazonSNS snsClient
+        final AmazonSNS snsClient,
+        final ObjectProvider<BatchingNotificationPublisher> batchingPublisher
     ) {
         return new JobStateChangeSNSPublisher(
             snsClient,
             properties,
             registry,
-            GenieObjectMapper.getMapper()
+            GenieObjectMapper.getMapper(),
+            batchingPublisher.getIfAvailable()
         );
     }
 
     /**
      * Create a {@link JobFinishedSNSPublisher} unless one exists in the context already.
      *
-     * @param properties   configuration properties
-     * @param registry     the metrics registry
-     * @param snsClient    the Amazon SNS client
-     * @param dataServices The {@link DataServices} instance to use
+     * @param properties        configuration properties
+     * @param registry          the metrics registry
+     * @param snsClient         the Amazon SNS client
+     * @param dataServices      The {@link DataServices} instance to use
+     * @param batchingPublisher the {@link BatchingNotificationPublisher} to queue notifications with, if batching is
+     *                          enabled
      * @return a {@link JobFinishedSNSPublisher}
      */
     @Bean
@@ -117,14 +187,16 @@ public class NotificationsAutoConfiguration {
         final SNSNotificationsProperties properties,
         final MeterRegistry registry,
         final AmazonSNS snsClient,
-        final DataServices dataServices
+        final DataServices dataServices,
+        final ObjectProvider<BatchingNotificationPublisher> batchingPublisher
     ) {
         return new JobFinishedSNSPublisher(
             snsClient,
             properties,
             dataServices,
             registry,
-            GenieObjectMapper.getMapper()
+            GenieObjectMapper.getMapper(),
+            batchingPublisher.getIfAvailable()
         );
     }
 }
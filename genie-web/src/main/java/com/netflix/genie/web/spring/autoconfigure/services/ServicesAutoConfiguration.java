@@ -24,6 +24,7 @@ import com.netflix.genie.web.agent.services.AgentFileStreamService;
 import com.netflix.genie.web.agent.services.AgentRoutingService;
 import com.netflix.genie.web.data.services.DataServices;
 import com.netflix.genie.web.properties.AttachmentServiceProperties;
+import com.netflix.genie.web.properties.JobLaunchQueueProperties;
 import com.netflix.genie.web.properties.JobResolutionProperties;
 import com.netflix.genie.web.properties.JobsActiveLimitProperties;
 import com.netflix.genie.web.properties.JobsForwardingProperties;
@@ -31,6 +32,7 @@ import com.netflix.genie.web.properties.JobsLocationsProperties;
 import com.netflix.genie.web.properties.JobsMemoryProperties;
 import com.netflix.genie.web.properties.JobsProperties;
 import com.netflix.genie.web.properties.JobsUsersProperties;
+import com.netflix.genie.web.properties.ResourceCatalogProperties;
 import com.netflix.genie.web.selectors.AgentLauncherSelector;
 import com.netflix.genie.web.selectors.ClusterSelector;
 import com.netflix.genie.web.selectors.CommandSelector;
@@ -40,21 +42,26 @@ import com.netflix.genie.web.services.JobDirectoryServerService;
 import com.netflix.genie.web.services.JobLaunchService;
 import com.netflix.genie.web.services.JobResolverService;
 import com.netflix.genie.web.services.RequestForwardingService;
+import com.netflix.genie.web.services.ResourceCatalogService;
 import com.netflix.genie.web.services.impl.ArchivedJobServiceImpl;
 import com.netflix.genie.web.services.impl.JobDirectoryServerServiceImpl;
 import com.netflix.genie.web.services.impl.JobLaunchServiceImpl;
 import com.netflix.genie.web.services.impl.JobResolverServiceImpl;
 import com.netflix.genie.web.services.impl.LocalFileSystemAttachmentServiceImpl;
 import com.netflix.genie.web.services.impl.RequestForwardingServiceImpl;
+import com.netflix.genie.web.services.impl.ResourceCatalogServiceImpl;
 import com.netflix.genie.web.services.impl.S3AttachmentServiceImpl;
 import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.env.Environment;
 import org.springframework.core.io.ResourceLoader;
+import org.springframework.scheduling.TaskScheduler;
 import org.springframework.web.client.RestTemplate;
 
 import javax.validation.constraints.NotEmpty;
@@ -77,7 +84,9 @@ import java.util.List;
         JobsMemoryProperties.class,
         JobsUsersProperties.class,
         JobsActiveLimitProperties.class,
-        AttachmentServiceProperties.class
+        JobLaunchQueueProperties.class,
+        AttachmentServiceProperties.class,
+        ResourceCatalogProperties.class
     }
 )
 public class ServicesAutoConfiguration {
@@ -150,10 +159,33 @@ public class ServicesAutoConfiguration {
         }
     }
 
+    /**
+     * Provide an in-memory {@link ResourceCatalogService} to resolve jobs against if one is enabled and hasn't already
+     * been defined.
+     *
+     * @param dataServices              The {@link DataServices} encapsulation instance to use
+     * @param resourceCatalogProperties The {@link ResourceCatalogProperties} to use
+     * @param taskScheduler             The {@link TaskScheduler} used to refresh the catalog
+     * @param registry                  The metrics repository to use
+     * @return A {@link ResourceCatalogServiceImpl} instance
+     */
+    @Bean
+    @ConditionalOnMissingBean(ResourceCatalogService.class)
+    @ConditionalOnProperty(value = ResourceCatalogProperties.ENABLED_PROPERTY, havingValue = "true")
+    public ResourceCatalogServiceImpl resourceCatalogService(
+        final DataServices dataServices,
+        final ResourceCatalogProperties resourceCatalogProperties,
+        @Qualifier("genieTaskScheduler") final TaskScheduler taskScheduler,
+        final MeterRegistry registry
+    ) {
+        return new ResourceCatalogServiceImpl(dataServices, resourceCatalogProperties, taskScheduler, registry);
+    }
+
     /**
      * Get an implementation of {@link JobResolverService} if one hasn't already been defined.
      *
      * @param dataServices            The {@link DataServices} encapsulation instance to use
+     * @param resourceCatalogService  The {@link ResourceCatalogService} to resolve against, if one is available
      * @param clusterSelectors        The {@link ClusterSelector} implementations to use
      * @param commandSelector         The {@link CommandSelector} implementation to use
      * @param registry                The metrics repository to use
@@ -166,6 +198,7 @@ public class ServicesAutoConfiguration {
     @ConditionalOnMissingBean(JobResolverService.class)
     public JobResolverServiceImpl jobResolverService(
         final DataServices dataServices,
+        final ObjectProvider<ResourceCatalogService> resourceCatalogService,
         @NotEmpty final List<ClusterSelector> clusterSelectors,
         final CommandSelector commandSelector,
         final MeterRegistry registry,
@@ -175,6 +208,7 @@ public class ServicesAutoConfiguration {
     ) {
         return new JobResolverServiceImpl(
             dataServices,
+            resourceCatalogService.getIfAvailable(),
             clusterSelectors,
             commandSelector,
             registry,
@@ -224,6 +258,7 @@ public class ServicesAutoConfiguration {
      * @param agentLauncherSelector The {@link AgentLauncherSelector} implementation to use
      * @param tracingComponents     The {@link BraveTracingComponents} instance to use
      * @param registry              The metrics registry to use
+     * @param queueProperties       The {@link JobLaunchQueueProperties} controlling whether launches are queued
      * @return A {@link JobLaunchServiceImpl} instance
      */
     @Bean
@@ -233,14 +268,16 @@ public class ServicesAutoConfiguration {
         final JobResolverService jobResolverService,
         final AgentLauncherSelector agentLauncherSelector,
         final BraveTracingComponents tracingComponents,
-        final MeterRegistry registry
+        final MeterRegistry registry,
+        final JobLaunchQueueProperties queueProperties
     ) {
         return new JobLaunchServiceImpl(
             dataServices,
             jobResolverService,
             agentLauncherSelector,
             tracingComponents,
-            registry
+            registry,
+            queueProperties
         );
     }
 
@@ -17,6 +17,7 @@
  */
 package com.netflix.genie.web.spring.autoconfigure.tasks.leader;
 
+import com.netflix.genie.common.internal.util.GenieHostInfo;
 import com.netflix.genie.web.agent.services.AgentRoutingService;
 import com.netflix.genie.web.data.services.DataServices;
 import com.netflix.genie.web.events.GenieEventBus;
@@ -24,10 +25,14 @@ import com.netflix.genie.web.properties.AgentCleanupProperties;
 import com.netflix.genie.web.properties.ArchiveStatusCleanupProperties;
 import com.netflix.genie.web.properties.DatabaseCleanupProperties;
 import com.netflix.genie.web.properties.LeadershipProperties;
+import com.netflix.genie.web.properties.TaskShardingProperties;
 import com.netflix.genie.web.properties.UserMetricsProperties;
+import com.netflix.genie.web.properties.ZookeeperProperties;
 import com.netflix.genie.web.services.ClusterLeaderService;
+import com.netflix.genie.web.services.TaskShardService;
 import com.netflix.genie.web.services.impl.ClusterLeaderServiceCuratorImpl;
 import com.netflix.genie.web.services.impl.ClusterLeaderServiceLocalLeaderImpl;
+import com.netflix.genie.web.services.impl.TaskShardServiceCuratorImpl;
 import com.netflix.genie.web.spring.actuators.LeaderElectionActuator;
 import com.netflix.genie.web.spring.autoconfigure.ZookeeperAutoConfiguration;
 import com.netflix.genie.web.spring.autoconfigure.tasks.TasksAutoConfiguration;
@@ -39,7 +44,8 @@ import com.netflix.genie.web.tasks.leader.LeaderTasksCoordinator;
 import com.netflix.genie.web.tasks.leader.LocalLeader;
 import com.netflix.genie.web.tasks.leader.UserMetricsTask;
 import io.micrometer.core.instrument.MeterRegistry;
-import org.springframework.beans.factory.annotation.Qualifier;
+import org.apache.curator.framework.CuratorFramework;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.AutoConfigureAfter;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
@@ -49,7 +55,6 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.env.Environment;
 import org.springframework.integration.zookeeper.leader.LeaderInitiator;
-import org.springframework.scheduling.TaskScheduler;
 
 import java.util.Set;
 
@@ -66,6 +71,7 @@ import java.util.Set;
         ArchiveStatusCleanupProperties.class,
         DatabaseCleanupProperties.class,
         LeadershipProperties.class,
+        TaskShardingProperties.class,
         UserMetricsProperties.class,
     }
 )
@@ -81,17 +87,17 @@ public class LeaderAutoConfiguration {
      * Create the LeadershipTasksCoordination bean used to start and stop all leadership related tasks based on
      * whether leadership is granted or revoked.
      *
-     * @param taskScheduler The task scheduler to use for scheduling leadership tasks
-     * @param tasks         The leadership tasks to schedule
+     * @param tasks    The leadership tasks to schedule
+     * @param registry The metrics registry
      * @return The leader coordinator
      */
     @Bean
     @ConditionalOnMissingBean(LeaderTasksCoordinator.class)
     public LeaderTasksCoordinator leaderTasksCoordinator(
-        @Qualifier("genieTaskScheduler") final TaskScheduler taskScheduler,
-        final Set<LeaderTask> tasks
+        final Set<LeaderTask> tasks,
+        final MeterRegistry registry
     ) {
-        return new LeaderTasksCoordinator(taskScheduler, tasks);
+        return new LeaderTasksCoordinator(tasks, registry);
     }
 
     /**
@@ -101,6 +107,7 @@ public class LeaderAutoConfiguration {
      * @param environment       The application {@link Environment} to pull properties from
      * @param dataServices      The {@link DataServices} encapsulation instance to use
      * @param registry          The metrics registry
+     * @param taskShardService  The {@link TaskShardService} if the work is shared by the cluster
      * @return The {@link DatabaseCleanupTask} instance to use if the conditions match
      */
     @Bean
@@ -110,13 +117,15 @@ public class LeaderAutoConfiguration {
         final DatabaseCleanupProperties cleanupProperties,
         final Environment environment,
         final DataServices dataServices,
-        final MeterRegistry registry
+        final MeterRegistry registry,
+        final ObjectProvider<TaskShardService> taskShardService
     ) {
         return new DatabaseCleanupTask(
             cleanupProperties,
             environment,
             dataServices,
-            registry
+            registry,
+            taskShardService.getIfAvailable()
         );
     }
 
@@ -150,6 +159,7 @@ public class LeaderAutoConfiguration {
      * @param agentCleanupProperties the agent cleanup properties
      * @param registry               the metrics registry
      * @param agentRoutingService    the agent routing service
+     * @param taskShardService       the {@link TaskShardService} if the work is shared by the cluster
      * @return a {@link AgentJobCleanupTask}
      */
     @Bean
@@ -159,13 +169,15 @@ public class LeaderAutoConfiguration {
         final DataServices dataServices,
         final AgentCleanupProperties agentCleanupProperties,
         final MeterRegistry registry,
-        final AgentRoutingService agentRoutingService
+        final AgentRoutingService agentRoutingService,
+        final ObjectProvider<TaskShardService> taskShardService
     ) {
         return new AgentJobCleanupTask(
             dataServices,
             agentCleanupProperties,
             registry,
-            agentRoutingService
+            agentRoutingService,
+            taskShardService.getIfAvailable()
         );
     }
 
@@ -195,6 +207,34 @@ public class LeaderAutoConfiguration {
         );
     }
 
+    /**
+     * Create a {@link TaskShardService} based on Zookeeper/Curator group membership if sharding of the cleanup tasks
+     * is enabled.
+     *
+     * @param client              The Curator client
+     * @param zookeeperProperties The Zookeeper properties
+     * @param genieHostInfo       The local host information used to identify this node
+     * @param registry            The metrics registry
+     * @return a {@link TaskShardService}
+     */
+    @Bean
+    @ConditionalOnBean(CuratorFramework.class)
+    @ConditionalOnProperty(value = TaskShardingProperties.ENABLED_PROPERTY, havingValue = "true")
+    @ConditionalOnMissingBean(TaskShardService.class)
+    public TaskShardService curatorTaskShardService(
+        final CuratorFramework client,
+        final ZookeeperProperties zookeeperProperties,
+        final GenieHostInfo genieHostInfo,
+        final MeterRegistry registry
+    ) {
+        return new TaskShardServiceCuratorImpl(
+            client,
+            zookeeperProperties.getShardPath(),
+            genieHostInfo.getHostname(),
+            registry
+        );
+    }
+
     /**
      * Create a {@link ClusterLeaderService} based on Zookeeper/Curator if {@link LeaderInitiator} is
      * available and the bean does not already exist.
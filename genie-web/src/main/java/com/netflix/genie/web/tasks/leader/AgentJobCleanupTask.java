@@ -25,13 +25,16 @@ import com.netflix.genie.common.internal.exceptions.unchecked.GenieInvalidStatus
 import com.netflix.genie.web.agent.services.AgentRoutingService;
 import com.netflix.genie.web.data.services.DataServices;
 import com.netflix.genie.web.data.services.PersistenceService;
+import com.netflix.genie.web.dtos.ShardAssignment;
 import com.netflix.genie.web.exceptions.checked.NotFoundException;
 import com.netflix.genie.web.properties.AgentCleanupProperties;
+import com.netflix.genie.web.services.TaskShardService;
 import com.netflix.genie.web.tasks.GenieTaskScheduleType;
 import com.netflix.genie.web.util.MetricsUtils;
 import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 
+import javax.annotation.Nullable;
 import java.time.Instant;
 import java.util.Map;
 import java.util.Set;
@@ -54,6 +57,7 @@ public class AgentJobCleanupTask extends LeaderTask {
     private final AgentCleanupProperties properties;
     private final MeterRegistry registry;
     private final AgentRoutingService agentRoutingService;
+    private final TaskShardService taskShardService;
 
     /**
      * Constructor.
@@ -68,11 +72,32 @@ public class AgentJobCleanupTask extends LeaderTask {
         final AgentCleanupProperties properties,
         final MeterRegistry registry,
         final AgentRoutingService agentRoutingService
+    ) {
+        this(dataServices, properties, registry, agentRoutingService, null);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param dataServices        The {@link DataServices} encapsulation instance to use
+     * @param properties          the task properties
+     * @param registry            the metrics registry
+     * @param agentRoutingService the agent routing service
+     * @param taskShardService    the service dividing the active jobs between the nodes of the cluster or
+     *                            {@literal null} if the leader checks all of them
+     */
+    public AgentJobCleanupTask(
+        final DataServices dataServices,
+        final AgentCleanupProperties properties,
+        final MeterRegistry registry,
+        final AgentRoutingService agentRoutingService,
+        @Nullable final TaskShardService taskShardService
     ) {
         this.persistenceService = dataServices.getPersistenceService();
         this.properties = properties;
         this.registry = registry;
         this.agentRoutingService = agentRoutingService;
+        this.taskShardService = taskShardService;
         this.awolJobsMap = Maps.newConcurrentMap();
 
         // Auto-publish number of jobs tracked for shutdown due to agent not being connected.
@@ -88,8 +113,8 @@ public class AgentJobCleanupTask extends LeaderTask {
      */
     @Override
     public void run() {
-        // Get agent jobs that in active status
-        final Set<String> activeAgentJobIds = this.persistenceService.getActiveJobs();
+        // Get agent jobs that in active status and belong to this node
+        final Set<String> activeAgentJobIds = this.filterAssigned(this.persistenceService.getActiveJobs());
 
         // Get agent jobs that in ACCEPTED status (i.e. waiting for agent to start)
         final Set<String> acceptedAgentJobIds = this.persistenceService.getUnclaimedJobs();
@@ -172,6 +197,14 @@ public class AgentJobCleanupTask extends LeaderTask {
         this.awolJobsMap.clear();
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isSharded() {
+        return this.taskShardService != null;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -187,4 +220,16 @@ public class AgentJobCleanupTask extends LeaderTask {
     public long getFixedRate() {
         return this.properties.getRefreshInterval().toMillis();
     }
+
+    /*
+     * Jobs which move to another node on a membership change drop out of the AWOL tracking of this one and their
+     * deadlines start over on the new owner.
+     */
+    private Set<String> filterAssigned(final Set<String> jobIds) {
+        if (this.taskShardService == null) {
+            return jobIds;
+        }
+        final ShardAssignment assignment = this.taskShardService.getAssignment();
+        return jobIds.stream().filter(assignment::isAssigned).collect(Collectors.toSet());
+    }
 }
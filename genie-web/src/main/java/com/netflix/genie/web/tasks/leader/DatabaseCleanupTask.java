@@ -17,29 +17,43 @@
  */
 package com.netflix.genie.web.tasks.leader;
 
+import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.netflix.genie.common.internal.dtos.ClusterStatus;
 import com.netflix.genie.common.internal.dtos.CommandStatus;
 import com.netflix.genie.common.internal.dtos.JobStatus;
 import com.netflix.genie.common.internal.jobs.JobConstants;
 import com.netflix.genie.web.data.services.DataServices;
 import com.netflix.genie.web.data.services.PersistenceService;
+import com.netflix.genie.web.dtos.ShardAssignment;
 import com.netflix.genie.web.properties.DatabaseCleanupProperties;
+import com.netflix.genie.web.services.TaskShardService;
 import com.netflix.genie.web.tasks.GenieTaskScheduleType;
 import com.netflix.genie.web.tasks.TaskUtils;
 import com.netflix.genie.web.util.MetricsUtils;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Tag;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.core.env.Environment;
 import org.springframework.scheduling.Trigger;
 import org.springframework.scheduling.support.CronTrigger;
 
+import javax.annotation.Nullable;
 import javax.validation.constraints.NotNull;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.Collections;
 import java.util.EnumSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -70,6 +84,9 @@ public class DatabaseCleanupTask extends LeaderTask {
     private static final String COMMAND_DELETION_TIMER = "genie.tasks.databaseCleanup.commandDeletion.timer";
     private static final String FILE_DELETION_TIMER = "genie.tasks.databaseCleanup.fileDeletion.timer";
     private static final String TAG_DELETION_TIMER = "genie.tasks.databaseCleanup.tagDeletion.timer";
+    private static final String JOB_DELETION_BATCH_TIMER = "genie.tasks.databaseCleanup.jobDeletionBatch.timer";
+    private static final long MAX_JOB_DELETION_PAUSE_MILLIS = 60_000L;
+    private static final String SHARD_KEY_PREFIX = "databaseCleanup/";
 
     // TODO: May want to make this a property
     private static final Set<CommandStatus> TO_DEACTIVATE_COMMAND_STATUSES = EnumSet.of(
@@ -85,9 +102,12 @@ public class DatabaseCleanupTask extends LeaderTask {
     private final DatabaseCleanupProperties cleanupProperties;
     private final Environment environment;
     private final PersistenceService persistenceService;
+    private final TaskShardService taskShardService;
 
     private final MeterRegistry registry;
+    private final AtomicLong numArchivedJobs;
     private final AtomicLong numDeletedJobs;
+    private final AtomicLong jobDeletionRate;
     private final AtomicLong numDeletedClusters;
     private final AtomicLong numDeactivatedCommands;
     private final AtomicLong numDeletedCommands;
@@ -108,16 +128,45 @@ public class DatabaseCleanupTask extends LeaderTask {
         @NotNull final Environment environment,
         @NotNull final DataServices dataServices,
         @NotNull final MeterRegistry registry
+    ) {
+        this(cleanupProperties, environment, dataServices, registry, null);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param cleanupProperties The properties to use to configure this task
+     * @param environment       The application environment to pull properties from
+     * @param dataServices      The {@link DataServices} encapsulation instance to use
+     * @param registry          The metrics registry
+     * @param taskShardService  The service dividing the cleanup work between the nodes of the cluster or
+     *                          {@literal null} if the leader does all of it
+     */
+    public DatabaseCleanupTask(
+        @NotNull final DatabaseCleanupProperties cleanupProperties,
+        @NotNull final Environment environment,
+        @NotNull final DataServices dataServices,
+        @NotNull final MeterRegistry registry,
+        @Nullable final TaskShardService taskShardService
     ) {
         this.registry = registry;
         this.cleanupProperties = cleanupProperties;
         this.environment = environment;
         this.persistenceService = dataServices.getPersistenceService();
+        this.taskShardService = taskShardService;
 
+        this.numArchivedJobs = this.registry.gauge(
+            "genie.tasks.databaseCleanup.numArchivedJobs.gauge",
+            new AtomicLong()
+        );
         this.numDeletedJobs = this.registry.gauge(
             "genie.tasks.databaseCleanup.numDeletedJobs.gauge",
             new AtomicLong()
         );
+        this.jobDeletionRate = this.registry.gauge(
+            "genie.tasks.databaseCleanup.jobDeletionRate.gauge",
+            new AtomicLong()
+        );
         this.numDeletedClusters = this.registry.gauge(
             "genie.tasks.databaseCleanup.numDeletedClusters.gauge",
             new AtomicLong()
@@ -174,17 +223,33 @@ public class DatabaseCleanupTask extends LeaderTask {
         final Instant runtime = Instant.now();
         final Set<Tag> tags = Sets.newHashSet();
         try {
-            this.deleteJobs();
+            // When sharded each kind of cleanup is done by one node and the job and file windows are spread over all
+            // of them
+            final ShardAssignment assignment = this.taskShardService == null
+                ? null
+                : this.taskShardService.getAssignment();
+
+            this.deleteJobs(assignment);
 
             // Get now - 1 hour to avoid deleting references that were created as part of new resources recently
             final Instant creationThreshold = runtime.minus(1L, ChronoUnit.HOURS);
 
-            this.deleteClusters(creationThreshold);
-            this.deleteCommands(creationThreshold);
-            this.deactivateCommands(runtime);
-            this.deleteApplications(creationThreshold);
-            this.deleteFiles(creationThreshold);
-            this.deleteTags(creationThreshold);
+            if (this.isAssigned(assignment, "clusters")) {
+                this.deleteClusters(creationThreshold);
+            }
+            if (this.isAssigned(assignment, "commands")) {
+                this.deleteCommands(creationThreshold);
+            }
+            if (this.isAssigned(assignment, "commandDeactivation")) {
+                this.deactivateCommands(runtime);
+            }
+            if (this.isAssigned(assignment, "applications")) {
+                this.deleteApplications(creationThreshold);
+            }
+            this.deleteFiles(creationThreshold, assignment);
+            if (this.isAssigned(assignment, "tags")) {
+                this.deleteTags(creationThreshold);
+            }
 
             MetricsUtils.addSuccessTags(tags);
         } catch (final Throwable t) {
@@ -197,12 +262,22 @@ public class DatabaseCleanupTask extends LeaderTask {
         }
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isSharded() {
+        return this.taskShardService != null;
+    }
+
     /**
      * {@inheritDoc}
      */
     @Override
     public void cleanup() {
+        this.numArchivedJobs.set(0L);
         this.numDeletedJobs.set(0L);
+        this.jobDeletionRate.set(0L);
         this.numDeletedClusters.set(0L);
         this.numDeactivatedCommands.set(0L);
         this.numDeletedCommands.set(0L);
@@ -214,7 +289,7 @@ public class DatabaseCleanupTask extends LeaderTask {
     /*
      * Delete jobs that are older than the retention threshold and are complete
      */
-    private void deleteJobs() {
+    private void deleteJobs(@Nullable final ShardAssignment assignment) {
         final boolean skipJobs = this.environment.getProperty(
             DatabaseCleanupProperties.JobDatabaseCleanupProperties.SKIP_PROPERTY,
             Boolean.class,
@@ -222,10 +297,12 @@ public class DatabaseCleanupTask extends LeaderTask {
         );
         if (skipJobs) {
             log.info("Skipping job cleanup");
+            this.numArchivedJobs.set(0);
             this.numDeletedJobs.set(0);
         } else {
             // TODO: Maybe we shouldn't reset it to midnight no matter what... just go with runtime minus something
             final Instant midnightUTC = TaskUtils.getMidnightUTC();
+            this.archiveJobs(midnightUTC, assignment);
             final Instant retentionLimit = midnightUTC.minus(
                 this.environment.getProperty(
                     DatabaseCleanupProperties.JobDatabaseCleanupProperties.JOB_RETENTION_PROPERTY,
@@ -240,27 +317,169 @@ public class DatabaseCleanupTask extends LeaderTask {
                 this.cleanupProperties.getJobCleanup().getPageSize()
             );
 
+            final double throttleFactor = this.environment.getProperty(
+                DatabaseCleanupProperties.JobDatabaseCleanupProperties.THROTTLE_FACTOR_PROPERTY,
+                Double.class,
+                this.cleanupProperties.getJobCleanup().getThrottleFactor()
+            );
+
+            final List<CreationWindow> windows = this.getJobWindows(retentionLimit, assignment, "jobs/");
             log.info(
-                "Attempting to delete jobs from before {} in batches of {} jobs per iteration",
+                "Attempting to delete jobs from before {} in {} windows in batches of {} jobs per iteration",
                 retentionLimit,
+                windows.size(),
                 batchSize
             );
-            long numDeletedJobsInBatch;
+            final long start = System.nanoTime();
             long totalDeletedJobs = 0L;
+            for (final CreationWindow window : windows) {
+                long numDeletedJobsInBatch;
+                do {
+                    final long batchStart = System.nanoTime();
+                    numDeletedJobsInBatch = this.persistenceService.deleteJobsCreatedBetween(
+                        window.getLowerBound(),
+                        window.getUpperBound(),
+                        JobStatus.getActiveStatuses(),
+                        batchSize
+                    );
+                    final long batchDuration = System.nanoTime() - batchStart;
+                    this.registry.timer(JOB_DELETION_BATCH_TIMER).record(batchDuration, TimeUnit.NANOSECONDS);
+                    totalDeletedJobs += numDeletedJobsInBatch;
+                    this.numDeletedJobs.set(totalDeletedJobs);
+                    this.jobDeletionRate.set(this.getRowsPerSecond(totalDeletedJobs, System.nanoTime() - start));
+                    if (numDeletedJobsInBatch != 0) {
+                        this.pauseAfterJobDeletionBatch(batchDuration, throttleFactor);
+                    }
+                } while (numDeletedJobsInBatch != 0);
+            }
+            log.info(
+                "Deleted {} jobs at {} jobs/sec",
+                totalDeletedJobs,
+                this.jobDeletionRate.get()
+            );
+        }
+    }
+
+    /*
+     * Move jobs which finished before the archive threshold out of the jobs table so it only holds the working set
+     */
+    private void archiveJobs(final Instant midnightUTC, @Nullable final ShardAssignment assignment) {
+        final int archiveAfter = this.environment.getProperty(
+            DatabaseCleanupProperties.JobDatabaseCleanupProperties.ARCHIVE_AFTER_PROPERTY,
+            Integer.class,
+            this.cleanupProperties.getJobCleanup().getArchiveAfter()
+        );
+        if (archiveAfter <= 0) {
+            this.numArchivedJobs.set(0);
+            return;
+        }
+        final Instant archiveLimit = midnightUTC.minus(archiveAfter, ChronoUnit.DAYS);
+        final int batchSize = this.environment.getProperty(
+            DatabaseCleanupProperties.JobDatabaseCleanupProperties.PAGE_SIZE_PROPERTY,
+            Integer.class,
+            this.cleanupProperties.getJobCleanup().getPageSize()
+        );
+        // Jobs finish after they're created so only those created before the limit can have finished before it
+        final List<CreationWindow> windows = this.getJobWindows(archiveLimit, assignment, "jobArchival/");
+        log.info(
+            "Attempting to archive jobs finished before {} in {} windows in batches of {} jobs",
+            archiveLimit,
+            windows.size(),
+            batchSize
+        );
+        long totalArchivedJobs = 0L;
+        for (final CreationWindow window : windows) {
+            long numArchivedJobsInBatch;
             do {
-                numDeletedJobsInBatch = this.persistenceService.deleteJobsCreatedBefore(
-                    retentionLimit,
-                    JobStatus.getActiveStatuses(),
+                numArchivedJobsInBatch = this.persistenceService.archiveJobsFinishedBefore(
+                    archiveLimit,
+                    window.getLowerBound(),
+                    window.getUpperBound(),
                     batchSize
                 );
-                totalDeletedJobs += numDeletedJobsInBatch;
-            } while (numDeletedJobsInBatch != 0);
-            log.info(
-                "Deleted {} jobs",
-                totalDeletedJobs
-            );
-            this.numDeletedJobs.set(totalDeletedJobs);
+                totalArchivedJobs += numArchivedJobsInBatch;
+                this.numArchivedJobs.set(totalArchivedJobs);
+            } while (numArchivedJobsInBatch != 0);
         }
+        log.info("Archived {} jobs", totalArchivedJobs);
+    }
+
+    /*
+     * Back off in proportion to how long the database took to process the last batch so that the purge yields to
+     * regular traffic when the database is under load and speeds up when it isn't.
+     */
+    private void pauseAfterJobDeletionBatch(final long batchDurationNanos, final double throttleFactor) {
+        final long pauseMillis = Math.min(
+            (long) (TimeUnit.NANOSECONDS.toMillis(batchDurationNanos) * throttleFactor),
+            MAX_JOB_DELETION_PAUSE_MILLIS
+        );
+        if (pauseMillis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(pauseMillis);
+        } catch (final InterruptedException e) {
+            log.warn("Interrupted while pausing between job deletion batches");
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /*
+     * When sharded the jobs created before the threshold are split by creation time into windows, each archived or
+     * deleted by one node, the same way unused files are. Otherwise one window covers all of them.
+     */
+    private List<CreationWindow> getJobWindows(
+        final Instant threshold,
+        @Nullable final ShardAssignment assignment,
+        final String keyPrefix
+    ) {
+        if (assignment == null) {
+            return Collections.singletonList(new CreationWindow(Instant.EPOCH, threshold));
+        }
+        final long rollingWindowHours = this.environment.getProperty(
+            DatabaseCleanupProperties.JobDatabaseCleanupProperties.ROLLING_WINDOW_HOURS_PROPERTY,
+            Integer.class,
+            this.cleanupProperties.getJobCleanup().getRollingWindowHours()
+        );
+        final long batchDaysWithin = this.environment.getProperty(
+            DatabaseCleanupProperties.JobDatabaseCleanupProperties.BATCH_DAYS_WITHIN_PROPERTY,
+            Integer.class,
+            this.cleanupProperties.getJobCleanup().getBatchDaysWithin()
+        );
+        final List<CreationWindow> windows = getCreationWindows(threshold, rollingWindowHours, batchDaysWithin);
+        final List<CreationWindow> assignedWindows = Lists.newArrayList();
+        for (int i = 0; i < windows.size(); i++) {
+            if (this.isAssigned(assignment, keyPrefix + i)) {
+                assignedWindows.add(windows.get(i));
+            }
+        }
+        return assignedWindows;
+    }
+
+    /*
+     * Rolling windows of the given size going back the given number of days from the threshold, newest first, then a
+     * final window for everything older.
+     */
+    private static List<CreationWindow> getCreationWindows(
+        final Instant threshold,
+        final long rollingWindowHours,
+        final long batchDaysWithin
+    ) {
+        final List<CreationWindow> windows = Lists.newArrayList();
+        Instant upperBound = threshold;
+        Instant lowerBound = threshold.minus(rollingWindowHours, ChronoUnit.HOURS);
+        final Instant batchLowerBound = threshold.minus(batchDaysWithin, ChronoUnit.DAYS);
+        while (upperBound.isAfter(batchLowerBound)) {
+            windows.add(new CreationWindow(lowerBound, upperBound));
+            upperBound = lowerBound;
+            lowerBound = lowerBound.minus(rollingWindowHours, ChronoUnit.HOURS);
+        }
+        windows.add(new CreationWindow(Instant.EPOCH, upperBound));
+        return windows;
+    }
+
+    private long getRowsPerSecond(final long rows, final long elapsedNanos) {
+        return elapsedNanos <= 0 ? 0L : (long) (rows * (double) TimeUnit.SECONDS.toNanos(1L) / elapsedNanos);
     }
 
     /*
@@ -321,7 +540,11 @@ public class DatabaseCleanupTask extends LeaderTask {
         }
     }
 
-    private void deleteFiles(final Instant creationThreshold) {
+    private boolean isAssigned(@Nullable final ShardAssignment assignment, final String key) {
+        return assignment == null || assignment.isAssigned(SHARD_KEY_PREFIX + key);
+    }
+
+    private void deleteFiles(final Instant creationThreshold, @Nullable final ShardAssignment assignment) {
         final long startTime = System.nanoTime();
         final Set<Tag> tags = Sets.newHashSet();
         try {
@@ -349,23 +572,37 @@ public class DatabaseCleanupTask extends LeaderTask {
                     Integer.class,
                     this.cleanupProperties.getFileCleanup().getBatchDaysWithin()
                 );
+                final int parallelism = this.environment.getProperty(
+                    DatabaseCleanupProperties.FileDatabaseCleanupProperties.PARALLELISM_PROPERTY,
+                    Integer.class,
+                    this.cleanupProperties.getFileCleanup().getParallelism()
+                );
                 log.info(
-                    "Attempting to delete unused files from before {} in batches of {}",
+                    "Attempting to delete unused files from before {} in batches of {} with {} concurrent windows",
                     creationThreshold,
-                    batchSize
+                    batchSize,
+                    parallelism
                 );
 
-                long totalDeleted = 0L;
-                Instant upperBound = creationThreshold;
-                Instant lowerBound = creationThreshold.minus(rollingWindowHours, ChronoUnit.HOURS);
-                final Instant batchLowerBound = creationThreshold.minus(batchDaysWithin, ChronoUnit.DAYS);
-                while (upperBound.isAfter(batchLowerBound)) {
-                    totalDeleted += deleteUnusedFilesBetween(lowerBound, upperBound, batchSize);
-                    upperBound = lowerBound;
-                    lowerBound = lowerBound.minus(rollingWindowHours, ChronoUnit.HOURS);
+                final List<Callable<Long>> windowDeletions = Lists.newArrayList();
+                final List<CreationWindow> windows = getCreationWindows(
+                    creationThreshold,
+                    rollingWindowHours,
+                    batchDaysWithin
+                );
+                for (int i = 0; i < windows.size(); i++) {
+                    final CreationWindow window = windows.get(i);
+                    if (this.isAssigned(assignment, "files/" + i)) {
+                        windowDeletions.add(
+                            () -> this.deleteUnusedFilesBetween(
+                                window.getLowerBound(),
+                                window.getUpperBound(),
+                                batchSize
+                            )
+                        );
+                    }
                 }
-                // do a final deletion of everything < batchLowerBound
-                totalDeleted += deleteUnusedFilesBetween(Instant.EPOCH, upperBound, batchSize);
+                final long totalDeleted = this.runDeletions(windowDeletions, parallelism);
                 log.info(
                     "Deleted {} files that were unused by any resource and created before {}",
                     totalDeleted,
@@ -383,6 +620,39 @@ public class DatabaseCleanupTask extends LeaderTask {
         }
     }
 
+    /*
+     * The windows cover disjoint creation time ranges so they can be deleted concurrently without contending for rows.
+     */
+    private long runDeletions(final List<Callable<Long>> deletions, final int parallelism) throws Exception {
+        long totalDeleted = 0L;
+        if (parallelism <= 1 || deletions.size() <= 1) {
+            for (final Callable<Long> deletion : deletions) {
+                totalDeleted += deletion.call();
+            }
+            return totalDeleted;
+        }
+
+        final ExecutorService executorService = Executors.newFixedThreadPool(
+            Math.min(parallelism, deletions.size()),
+            new ThreadFactoryBuilder().setNameFormat("genie-database-cleanup-%d").setDaemon(true).build()
+        );
+        try {
+            for (final Future<Long> future : executorService.invokeAll(deletions)) {
+                try {
+                    totalDeleted += future.get();
+                } catch (final ExecutionException e) {
+                    if (e.getCause() instanceof Exception) {
+                        throw (Exception) e.getCause();
+                    }
+                    throw e;
+                }
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+        return totalDeleted;
+    }
+
     private long deleteUnusedFilesBetween(final Instant lowerBound, final Instant upperBound, final int batchSize) {
         long deleted;
         long totalDeleted = 0L;
@@ -605,4 +875,14 @@ public class DatabaseCleanupTask extends LeaderTask {
                 .record(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
         }
     }
+
+    /*
+     * A range of creation times. The lower bound is inclusive and the upper bound exclusive.
+     */
+    @AllArgsConstructor
+    @Getter
+    private static final class CreationWindow {
+        private final Instant lowerBound;
+        private final Instant upperBound;
+    }
 }
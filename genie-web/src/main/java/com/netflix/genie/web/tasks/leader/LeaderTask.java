@@ -35,4 +35,14 @@ public abstract class LeaderTask extends GenieTask {
     public void cleanup() {
         log.info("Task cleanup called. Nothing to do.");
     }
+
+    /**
+     * Whether this task divides its work with the other nodes of the cluster, in which case it runs on every node
+     * rather than only on the leader.
+     *
+     * @return {@literal true} if the task is sharded
+     */
+    public boolean isSharded() {
+        return false;
+    }
 }
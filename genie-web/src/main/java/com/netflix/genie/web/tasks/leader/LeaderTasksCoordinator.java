@@ -17,23 +17,32 @@
  */
 package com.netflix.genie.web.tasks.leader;
 
+import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.event.EventListener;
 import org.springframework.integration.leader.event.AbstractLeaderEvent;
 import org.springframework.integration.leader.event.OnGrantedEvent;
 import org.springframework.integration.leader.event.OnRevokedEvent;
-import org.springframework.scheduling.TaskScheduler;
 import org.springframework.scheduling.Trigger;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 
+import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
 import java.util.Collection;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.ScheduledFuture;
+import java.util.function.Function;
 
 /**
  * Class which handles coordinating leadership related tasks. Listens for leadership grant and revoke events and starts
  * tasks associated with being the cluster leader.
+ * <p>
+ * Every task is scheduled on its own single threaded scheduler so a long running task can't delay the others and
+ * runs of the same task never overlap. Sharded tasks divide their work with the other nodes and are run on every node
+ * for as long as it is up regardless of leadership.
  *
  * @author tgianos
  * @since 3.0.0
@@ -43,22 +52,60 @@ public class LeaderTasksCoordinator {
 
     private final Set<LeaderTask> tasks;
     private final Set<ScheduledFuture<?>> futures;
-    private final TaskScheduler taskScheduler;
+    private final List<ThreadPoolTaskScheduler> taskSchedulers;
+    private final Set<LeaderTask> shardedTasks;
+    private final Set<ScheduledFuture<?>> shardedFutures;
+    private final List<ThreadPoolTaskScheduler> shardedTaskSchedulers;
+    private final MeterRegistry registry;
+    private final Function<String, ThreadPoolTaskScheduler> taskSchedulerFactory;
     private boolean isRunning;
 
     /**
      * Constructor.
      *
-     * @param taskScheduler The task executor to use.
-     * @param tasks         The leadership tasks to run
+     * @param tasks    The leadership tasks to run
+     * @param registry The metrics registry
      */
-    public LeaderTasksCoordinator(final TaskScheduler taskScheduler, final Collection<LeaderTask> tasks) {
+    public LeaderTasksCoordinator(final Collection<LeaderTask> tasks, final MeterRegistry registry) {
+        this(tasks, registry, LeaderTasksCoordinator::createTaskScheduler);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param tasks                The leadership tasks to run
+     * @param registry             The metrics registry
+     * @param taskSchedulerFactory Creates the scheduler for a task given the task name
+     */
+    LeaderTasksCoordinator(
+        final Collection<LeaderTask> tasks,
+        final MeterRegistry registry,
+        final Function<String, ThreadPoolTaskScheduler> taskSchedulerFactory
+    ) {
         this.futures = Sets.newHashSet();
-        this.taskScheduler = taskScheduler;
+        this.taskSchedulers = Lists.newArrayList();
+        this.registry = registry;
+        this.taskSchedulerFactory = taskSchedulerFactory;
         this.isRunning = false;
         this.tasks = Sets.newHashSet();
+        this.shardedFutures = Sets.newHashSet();
+        this.shardedTaskSchedulers = Lists.newArrayList();
+        this.shardedTasks = Sets.newHashSet();
         if (tasks != null) {
-            this.tasks.addAll(tasks);
+            tasks.forEach(task -> (task.isSharded() ? this.shardedTasks : this.tasks).add(task));
+        }
+    }
+
+    /**
+     * Start the sharded tasks as they run on every node whether it is the leader or not.
+     */
+    @PostConstruct
+    public synchronized void postConstruct() {
+        if (!this.shardedTasks.isEmpty()) {
+            log.info("Starting sharded tasks.");
+            this.shardedTasks.forEach(
+                task -> this.scheduleTask(task, this.shardedFutures, this.shardedTaskSchedulers)
+            );
         }
     }
 
@@ -66,8 +113,9 @@ public class LeaderTasksCoordinator {
      * Make sure any threads are taken care of before this object is destroyed.
      */
     @PreDestroy
-    public void preDestroy() {
-        this.cancelTasks();
+    public synchronized void preDestroy() {
+        this.cancelTasks(this.tasks, this.futures, this.taskSchedulers);
+        this.cancelTasks(this.shardedTasks, this.shardedFutures, this.shardedTaskSchedulers);
     }
 
     /**
@@ -87,55 +135,70 @@ public class LeaderTasksCoordinator {
             }
             log.info("Leadership granted.");
             this.isRunning = true;
-            this.tasks.forEach(
-                task -> {
-                    switch (task.getScheduleType()) {
-                        case TRIGGER:
-                            final Trigger trigger = task.getTrigger();
-                            log.info(
-                                "Scheduling leadership task {} to run with trigger {}",
-                                task.getClass().getCanonicalName(),
-                                trigger
-                            );
-                            this.futures.add(this.taskScheduler.schedule(task, trigger));
-                            break;
-                        case FIXED_RATE:
-                            final long rate = task.getFixedRate();
-                            log.info(
-                                "Scheduling leadership task {} to run every {} second(s)",
-                                task.getClass().getCanonicalName(),
-                                rate / 1000.0
-                            );
-                            this.futures.add(this.taskScheduler.scheduleAtFixedRate(task, rate));
-                            break;
-                        case FIXED_DELAY:
-                            final long delay = task.getFixedDelay();
-                            log.info(
-                                "Scheduling leadership task {} to run at a fixed delay of every {} second(s)",
-                                task.getClass().getCanonicalName(),
-                                delay / 1000.0
-                            );
-                            this.futures.add(this.taskScheduler.scheduleWithFixedDelay(task, delay));
-                            break;
-                        default:
-                            log.error("Unknown Genie task type {}", task.getScheduleType());
-                    }
-                }
-            );
+            this.tasks.forEach(task -> this.scheduleTask(task, this.futures, this.taskSchedulers));
         } else if (leaderEvent instanceof OnRevokedEvent) {
             if (!this.isRunning) {
                 return;
             }
             log.info("Leadership revoked.");
             this.isRunning = false;
-            this.cancelTasks();
+            this.cancelTasks(this.tasks, this.futures, this.taskSchedulers);
         } else {
             log.warn("Unknown leadership event {}. Ignoring.", leaderEvent);
         }
     }
 
-    private void cancelTasks() {
-        for (final ScheduledFuture<?> future : this.futures) {
+    private void scheduleTask(
+        final LeaderTask task,
+        final Set<ScheduledFuture<?>> taskFutures,
+        final List<ThreadPoolTaskScheduler> schedulers
+    ) {
+        final MonitoredLeaderTask monitoredTask = new MonitoredLeaderTask(task, this.registry);
+        final ThreadPoolTaskScheduler taskScheduler = this.taskSchedulerFactory.apply(monitoredTask.getTaskName());
+        switch (task.getScheduleType()) {
+            case TRIGGER:
+                final Trigger trigger = task.getTrigger();
+                log.info(
+                    "Scheduling leadership task {} to run with trigger {}",
+                    task.getClass().getCanonicalName(),
+                    trigger
+                );
+                taskFutures.add(taskScheduler.schedule(monitoredTask, monitoredTask.monitor(trigger)));
+                break;
+            case FIXED_RATE:
+                final long rate = task.getFixedRate();
+                log.info(
+                    "Scheduling leadership task {} to run every {} second(s)",
+                    task.getClass().getCanonicalName(),
+                    rate / 1000.0
+                );
+                monitoredTask.atFixedRate(rate);
+                taskFutures.add(taskScheduler.scheduleAtFixedRate(monitoredTask, rate));
+                break;
+            case FIXED_DELAY:
+                final long delay = task.getFixedDelay();
+                log.info(
+                    "Scheduling leadership task {} to run at a fixed delay of every {} second(s)",
+                    task.getClass().getCanonicalName(),
+                    delay / 1000.0
+                );
+                monitoredTask.withFixedDelay(delay);
+                taskFutures.add(taskScheduler.scheduleWithFixedDelay(monitoredTask, delay));
+                break;
+            default:
+                log.error("Unknown Genie task type {}", task.getScheduleType());
+                taskScheduler.shutdown();
+                return;
+        }
+        schedulers.add(taskScheduler);
+    }
+
+    private void cancelTasks(
+        final Set<LeaderTask> tasksToCancel,
+        final Set<ScheduledFuture<?>> taskFutures,
+        final List<ThreadPoolTaskScheduler> schedulers
+    ) {
+        for (final ScheduledFuture<?> future : taskFutures) {
             log.info("Attempting to cancel thread {}", future);
             if (future.cancel(true)) {
                 log.info("Successfully cancelled.");
@@ -145,7 +208,19 @@ public class LeaderTasksCoordinator {
         }
 
         // Clear out the tasks
-        this.futures.clear();
-        this.tasks.forEach(LeaderTask::cleanup);
+        taskFutures.clear();
+        schedulers.forEach(ThreadPoolTaskScheduler::shutdown);
+        schedulers.clear();
+        tasksToCancel.forEach(LeaderTask::cleanup);
+    }
+
+    private static ThreadPoolTaskScheduler createTaskScheduler(final String taskName) {
+        final ThreadPoolTaskScheduler taskScheduler = new ThreadPoolTaskScheduler();
+        taskScheduler.setPoolSize(1);
+        taskScheduler.setThreadNamePrefix("genie-leader-" + taskName + "-");
+        taskScheduler.setDaemon(true);
+        taskScheduler.setRemoveOnCancelPolicy(true);
+        taskScheduler.initialize();
+        return taskScheduler;
     }
 }
@@ -0,0 +1,185 @@
+/*
+ *
+ *  Copyright 2022 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.tasks.leader;
+
+import com.google.common.collect.Sets;
+import com.netflix.genie.web.util.MetricsUtils;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.Trigger;
+import org.springframework.scheduling.TriggerContext;
+import org.springframework.scheduling.support.SimpleTriggerContext;
+
+import javax.annotation.Nullable;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Wraps a {@link LeaderTask} to measure how late each run starts, how long it takes and how often a run is skipped
+ * because the previous one was still going when it came due.
+ * <p>
+ * Instances are meant to be scheduled on a single threaded scheduler dedicated to the task so runs never overlap.
+ *
+ * @since 4.4.0
+ */
+@Slf4j
+class MonitoredLeaderTask implements Runnable {
+
+    static final String RUN_TIMER_NAME = "genie.tasks.leader.run.timer";
+    static final String LAG_TIMER_NAME = "genie.tasks.leader.lag.timer";
+    static final String OVERRUN_COUNTER_NAME = "genie.tasks.leader.overrun.counter";
+    static final String TASK_TAG_NAME = "task";
+
+    private final LeaderTask task;
+    private final MeterRegistry registry;
+    private final String taskName;
+    private volatile Instant expectedStart;
+    private long fixedRate;
+    private long fixedDelay;
+
+    /**
+     * Constructor.
+     *
+     * @param task     The task to run
+     * @param registry The metrics registry
+     */
+    MonitoredLeaderTask(final LeaderTask task, final MeterRegistry registry) {
+        this.task = task;
+        this.registry = registry;
+        this.taskName = task.getClass().getSimpleName();
+    }
+
+    /**
+     * Get the name used to identify the task in logs and metrics.
+     *
+     * @return The simple class name of the wrapped task
+     */
+    String getTaskName() {
+        return this.taskName;
+    }
+
+    /**
+     * Prepare to be scheduled at a fixed rate starting now.
+     *
+     * @param rate The period between the starts of two runs in milliseconds
+     */
+    void atFixedRate(final long rate) {
+        this.fixedRate = rate;
+        this.expectedStart = Instant.now();
+    }
+
+    /**
+     * Prepare to be scheduled with a fixed delay starting now.
+     *
+     * @param delay The delay between the end of one run and the start of the next in milliseconds
+     */
+    void withFixedDelay(final long delay) {
+        this.fixedDelay = delay;
+        this.expectedStart = Instant.now();
+    }
+
+    /**
+     * Wrap the trigger of the task so the time each run is due and the runs missed while the task was still going
+     * are known.
+     *
+     * @param trigger The trigger of the task
+     * @return The trigger to schedule this instance with
+     */
+    Trigger monitor(final Trigger trigger) {
+        return new MonitoredTrigger(trigger);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void run() {
+        final Instant start = Instant.now();
+        final Instant expected = this.expectedStart;
+        final Duration lag = expected == null || start.isBefore(expected)
+            ? Duration.ZERO
+            : Duration.between(expected, start);
+        if (this.fixedRate > 0 && expected != null) {
+            this.expectedStart = expected.plusMillis(this.fixedRate);
+            if (lag.toMillis() >= this.fixedRate) {
+                // This run came due while the previous one was still going. Skip it rather than running back to back.
+                log.warn("Leader task {} is {} behind schedule. Skipping this run", this.taskName, lag);
+                this.overrun();
+                return;
+            }
+        }
+        this.registry.timer(LAG_TIMER_NAME, TASK_TAG_NAME, this.taskName).record(lag);
+
+        final long startNanos = System.nanoTime();
+        final Set<Tag> tags = Sets.newHashSet(Tag.of(TASK_TAG_NAME, this.taskName));
+        try {
+            this.task.run();
+            MetricsUtils.addSuccessTags(tags);
+        } catch (final Throwable t) {
+            MetricsUtils.addFailureTagsWithException(tags, t);
+            throw t;
+        } finally {
+            this.registry.timer(RUN_TIMER_NAME, tags).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+            if (this.fixedDelay > 0) {
+                this.expectedStart = Instant.now().plusMillis(this.fixedDelay);
+            }
+        }
+    }
+
+    private void overrun() {
+        this.registry.counter(OVERRUN_COUNTER_NAME, TASK_TAG_NAME, this.taskName).increment();
+    }
+
+    /**
+     * Records when the next run is due and counts the runs which came due before the last one completed.
+     */
+    private class MonitoredTrigger implements Trigger {
+
+        private final Trigger delegate;
+
+        MonitoredTrigger(final Trigger delegate) {
+            this.delegate = delegate;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        @Nullable
+        public Date nextExecutionTime(final TriggerContext triggerContext) {
+            final Date lastScheduled = triggerContext.lastScheduledExecutionTime();
+            final Date lastCompletion = triggerContext.lastCompletionTime();
+            if (lastScheduled != null && lastCompletion != null) {
+                final Date due = this.delegate.nextExecutionTime(
+                    new SimpleTriggerContext(lastScheduled, lastScheduled, lastScheduled)
+                );
+                if (due != null && due.before(lastCompletion)) {
+                    log.warn("Leader task {} was still running when its next run came due", taskName);
+                    overrun();
+                }
+            }
+            final Date next = this.delegate.nextExecutionTime(triggerContext);
+            expectedStart = next == null ? null : next.toInstant();
+            return next;
+        }
+    }
+}
@@ -24,14 +24,22 @@ import org.apache.commons.lang3.NotImplementedException;
 import javax.annotation.concurrent.ThreadSafe;
 import java.io.IOException;
 import java.io.InputStream;
+import java.time.Duration;
+import java.util.Arrays;
 import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * A temporary in-memory structure to hold in-transit data.
  * Provides an {@code InputStream} for reading, reading blocks until data becomes available or the buffer is closed.
  * <p>
- * To avoid in-memory data growing excessively, this buffer stores a single "chunk" at the time.
- * Only after a chunk is consumed, a new one can be appended.
+ * To avoid in-memory data growing excessively, this buffer stores a bounded ring of "chunks" (by default a single
+ * one). A chunk is refused if the ring is full, if it would push the buffer over its byte budget, or if it does not
+ * fit in the {@link StreamBufferMemoryBudget} shared with other buffers. Space is freed once a chunk is fully consumed.
+ * A chunk is always accepted into an empty buffer, regardless of its own budget, so that oversized chunks do not block
+ * the transfer forever.
+ * <p>
+ * The reader only synchronizes with writers when it moves from one chunk to the next, data is copied out of the
+ * current chunk without holding the lock.
  * <p>
  * To support range requests in a memory-efficient way, {@link StreamBufferInputStream} also allows skipping the first
  * {@code skipOffset - 1} bytes without allocating memory (or worse: downloading the actual bytes only to have them
@@ -44,13 +52,28 @@ import java.util.concurrent.atomic.AtomicReference;
 @Slf4j
 public class StreamBuffer {
 
+    // Space in the shared budget can be freed by other buffers without notifying this one, so blocking writers poll
+    private static final long WRITE_WAIT_MILLIS = 100;
+
     private final Object lock = new Object();
     private final AtomicReference<StreamBufferInputStream> inputStreamRef = new AtomicReference<>();
+    private final ByteString[] ring;
+    private final long maxBufferedBytes;
+    private final StreamBufferMemoryBudget memoryBudget;
 
+    // Guarded by lock
+    private int ringHead;
+    private int ringSize;
+    private long bufferedBytes;
+    private boolean budgetReleased;
     private boolean closed;
-    private ByteString currentChunk;
-    private int currentChunkWatermark;
     private Throwable closeCause;
+    private long stallStartNanos;
+    private long totalStallNanos;
+
+    // Only accessed by the reading thread
+    private ByteString readerChunk;
+    private int readerChunkWatermark;
 
     /**
      * Constructor.
@@ -58,12 +81,51 @@ public class StreamBuffer {
      * @param skipOffset index of the first actual byte to return (
      */
     public StreamBuffer(final long skipOffset) {
+        this(skipOffset, 1);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param skipOffset index of the first actual byte to return (
+     * @param maxChunks  maximum number of chunks stored before writes are refused
+     * @throws IllegalArgumentException if the maximum number of chunks is less than 1
+     */
+    public StreamBuffer(final long skipOffset, final int maxChunks) {
+        this(skipOffset, maxChunks, Long.MAX_VALUE, StreamBufferMemoryBudget.unlimited());
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param skipOffset       index of the first actual byte to return (
+     * @param maxChunks        maximum number of chunks stored before writes are refused
+     * @param maxBufferedBytes maximum number of bytes stored before writes are refused
+     * @param memoryBudget     memory budget shared with other buffers
+     * @throws IllegalArgumentException if the maximum number of chunks or bytes is less than 1
+     */
+    public StreamBuffer(
+        final long skipOffset,
+        final int maxChunks,
+        final long maxBufferedBytes,
+        final StreamBufferMemoryBudget memoryBudget
+    ) {
+        if (maxChunks < 1) {
+            throw new IllegalArgumentException("Buffer must be able to hold at least one chunk");
+        }
+        if (maxBufferedBytes < 1) {
+            throw new IllegalArgumentException("Buffer must be able to hold at least one byte");
+        }
+        this.ring = new ByteString[maxChunks];
+        this.maxBufferedBytes = maxBufferedBytes;
+        this.memoryBudget = memoryBudget;
         this.inputStreamRef.set(new StreamBufferInputStream(this, skipOffset));
     }
 
     /**
      * Close this buffer before all data is written due to an error.
      * Reading will return the end of stream marker after the current chunk (if any) has been consumed.
+     * Other buffered chunks are discarded.
      *
      * @param t the cause for the buffer to be closed.
      */
@@ -71,6 +133,11 @@ public class StreamBuffer {
         log.error("Closing buffer due to error: " + t.getClass().getSimpleName() + ": " + t.getMessage());
         synchronized (this.lock) {
             this.closeCause = t;
+            // Keep the chunk at the head of the ring, the reader may be in the middle of it
+            while (this.ringSize > 1) {
+                this.removeTail();
+            }
+            this.releaseBudget();
             this.closeForCompleted();
         }
     }
@@ -82,6 +149,7 @@ public class StreamBuffer {
     public void closeForCompleted() {
         synchronized (this.lock) {
             this.closed = true;
+            this.endStall();
             this.lock.notifyAll();
         }
     }
@@ -97,7 +165,7 @@ public class StreamBuffer {
         synchronized (this.lock) {
             while (!tryWrite(data)) {
                 try {
-                    this.lock.wait();
+                    this.lock.wait(WRITE_WAIT_MILLIS);
                 } catch (InterruptedException e) {
                     log.warn("Interrupted while waiting to write next chunk of data");
                 }
@@ -105,10 +173,9 @@ public class StreamBuffer {
         }
     }
 
-
     /**
      * Try to append a chunk of data for consumption.
-     * If the previous buffer is still not drained, then does not block and returns false.
+     * If the buffer is full (i.e. previous chunks are still not drained), then does not block and returns false.
      *
      * @param data the data to write into the buffer
      * @return true if the data was added to the buffer, false otherwise
@@ -118,15 +185,20 @@ public class StreamBuffer {
         synchronized (this.lock) {
             if (this.closed) {
                 throw new IllegalStateException("Attempting to write after closing");
-            } else if (this.currentChunk == null) {
+            } else if (this.hasRoomFor(data) && this.memoryBudget.tryReserve(data.size())) {
                 // Save this chunk so it can be consumed
-                this.currentChunk = data;
-                this.currentChunkWatermark = 0;
+                this.ring[(this.ringHead + this.ringSize) % this.ring.length] = data;
+                this.ringSize++;
+                this.bufferedBytes += data.size();
+                this.endStall();
                 // Wake up reading thread
                 this.lock.notifyAll();
                 return true;
             } else {
-                // Previous chunk of data is still being consumed.
+                // Previous chunks of data are still being consumed.
+                if (this.stallStartNanos == 0) {
+                    this.stallStartNanos = System.nanoTime();
+                }
                 this.lock.notifyAll();
                 return false;
             }
@@ -147,38 +219,106 @@ public class StreamBuffer {
         return inputStream;
     }
 
-    private int read(final byte[] destination) throws IOException {
+    /**
+     * Get the number of bytes currently held in this buffer.
+     *
+     * @return the number of bytes buffered
+     */
+    public long getBufferedBytes() {
         synchronized (this.lock) {
-            while (true) {
-                if (currentChunk != null) {
-                    // Read from current chunk into destination
-                    final int leftInCurrentChunk = this.currentChunk.size() - this.currentChunkWatermark;
-                    final int bytesRead = Math.min(leftInCurrentChunk, destination.length);
-                    this.currentChunk.substring(currentChunkWatermark, currentChunkWatermark + bytesRead)
-                        .copyTo(destination, 0);
-
-                    // Update watermark
-                    this.currentChunkWatermark += bytesRead;
-
-                    // Is chunk completely consumed?
-                    if (this.currentChunkWatermark == this.currentChunk.size()) {
-                        // Make room for the next one
-                        this.currentChunk = null;
-                        // Wake the writer thread
-                        this.lock.notifyAll();
-                    }
-                    return bytesRead;
-                } else if (this.closed) {
-                    // There won't be another chunk appended
-                    log.debug("Buffer was closed");
-                    if (this.closeCause != null) {
-                        // Throw rather than returning -1 in case of error, so the request is shut down immediately
-                        throw new IOException(this.closeCause.getMessage());
-                    } else {
-                        // All data was consumed
-                        return -1;
+            return this.bufferedBytes;
+        }
+    }
+
+    /**
+     * Get the total time writes were refused because the buffer was full, including the ongoing stall (if any).
+     *
+     * @return the total stall time
+     */
+    public Duration getStallTime() {
+        synchronized (this.lock) {
+            final long ongoingStallNanos = this.stallStartNanos == 0 ? 0 : System.nanoTime() - this.stallStartNanos;
+            return Duration.ofNanos(this.totalStallNanos + ongoingStallNanos);
+        }
+    }
+
+    private boolean hasRoomFor(final ByteString data) {
+        if (this.ringSize == this.ring.length) {
+            return false;
+        }
+        return this.ringSize == 0 || data.size() <= this.maxBufferedBytes - this.bufferedBytes;
+    }
+
+    private void endStall() {
+        if (this.stallStartNanos != 0) {
+            this.totalStallNanos += System.nanoTime() - this.stallStartNanos;
+            this.stallStartNanos = 0;
+        }
+    }
+
+    private void removeHead() {
+        final ByteString chunk = this.ring[this.ringHead];
+        this.ring[this.ringHead] = null;
+        this.ringHead = (this.ringHead + 1) % this.ring.length;
+        this.ringSize--;
+        this.forget(chunk);
+    }
+
+    private void removeTail() {
+        final int tail = (this.ringHead + this.ringSize - 1) % this.ring.length;
+        final ByteString chunk = this.ring[tail];
+        this.ring[tail] = null;
+        this.ringSize--;
+        this.forget(chunk);
+    }
+
+    private void forget(final ByteString chunk) {
+        this.bufferedBytes -= chunk.size();
+        if (!this.budgetReleased) {
+            this.memoryBudget.release(chunk.size());
+        }
+    }
+
+    private void releaseBudget() {
+        if (!this.budgetReleased) {
+            this.memoryBudget.release(this.bufferedBytes);
+            this.budgetReleased = true;
+        }
+    }
+
+    private void discard() {
+        synchronized (this.lock) {
+            this.releaseBudget();
+            while (this.ringSize > 0) {
+                this.removeHead();
+            }
+            this.readerChunk = null;
+            this.closed = true;
+            this.endStall();
+            this.lock.notifyAll();
+        }
+    }
+
+    private int read(final byte[] destination) throws IOException {
+        return this.read(destination, 0, destination.length);
+    }
+
+    private int read(final byte[] destination, final int offset, final int length) throws IOException {
+        if (this.readerChunk == null) {
+            synchronized (this.lock) {
+                while (this.ringSize == 0) {
+                    if (this.closed) {
+                        // There won't be another chunk appended
+                        log.debug("Buffer was closed");
+                        if (this.closeCause != null) {
+                            // Throw rather than returning -1 in case of error, so the request is shut down
+                            // immediately
+                            throw new IOException(this.closeCause.getMessage());
+                        } else {
+                            // All data was consumed
+                            return -1;
+                        }
                     }
-                } else {
                     try {
                         this.lock.wait();
                     } catch (InterruptedException e) {
@@ -186,8 +326,32 @@ public class StreamBuffer {
                         return 0;
                     }
                 }
+                // Only the reader removes the head of the ring (closing for error keeps it), so it is safe to use it
+                // after releasing the lock
+                this.readerChunk = this.ring[this.ringHead];
+                this.readerChunkWatermark = 0;
+            }
+        }
+
+        // Read from current chunk into destination
+        final ByteString chunk = this.readerChunk;
+        final int bytesRead = Math.min(chunk.size() - this.readerChunkWatermark, length);
+        chunk.copyTo(destination, this.readerChunkWatermark, offset, bytesRead);
+        this.readerChunkWatermark += bytesRead;
+
+        // Is chunk completely consumed?
+        if (this.readerChunkWatermark == chunk.size()) {
+            this.readerChunk = null;
+            synchronized (this.lock) {
+                // Make room for the next one, unless the buffer was discarded in the meantime
+                if (this.ringSize > 0 && this.ring[this.ringHead] == chunk) {
+                    this.removeHead();
+                }
+                // Wake the writer thread
+                this.lock.notifyAll();
             }
         }
+        return bytesRead;
     }
 
     private static class StreamBufferInputStream extends InputStream {
@@ -223,20 +387,12 @@ public class StreamBuffer {
                 final int maxSkipBytes =
                     this.skipBytesLeft <= Integer.MAX_VALUE ? (int) this.skipBytesLeft : Integer.MAX_VALUE;
                 final int skippedBytesRead = Math.min(len, maxSkipBytes);
-                System.arraycopy(new byte[skippedBytesRead], 0, b, off, skippedBytesRead);
+                Arrays.fill(b, off, off + skippedBytesRead, (byte) 0);
                 this.skipBytesLeft -= skippedBytesRead;
                 return skippedBytesRead;
             }
 
-            final byte[] temporary = new byte[len];
-
-            final int bytesRead = this.streamBuffer.read(temporary);
-
-            if (bytesRead > 0) {
-                System.arraycopy(temporary, 0, b, off, bytesRead);
-            }
-
-            return bytesRead;
+            return this.streamBuffer.read(b, off, len);
         }
 
         @Override
@@ -253,6 +409,16 @@ public class StreamBuffer {
 
             return skipped;
         }
+
+        /**
+         * {@inheritDoc}
+         * Also discards any data still buffered.
+         */
+        @Override
+        public void close() throws IOException {
+            this.streamBuffer.discard();
+            super.close();
+        }
     }
 
 }
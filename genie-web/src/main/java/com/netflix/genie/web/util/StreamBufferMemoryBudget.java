@@ -0,0 +1,93 @@
+/*
+ *
+ *  Copyright 2022 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.util;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caps the total amount of memory used by a group of {@link StreamBuffer} instances.
+ * Buffers reserve space before accepting a chunk and release it once the chunk is consumed (or discarded).
+ * <p>
+ * A reservation is always granted if nothing is currently reserved, so that a single chunk larger than the budget
+ * does not block progress forever.
+ *
+ * @since 4.4.0
+ */
+@ThreadSafe
+public class StreamBufferMemoryBudget {
+
+    private final long maxBytes;
+    private final AtomicLong reservedBytes = new AtomicLong();
+
+    /**
+     * Constructor.
+     *
+     * @param maxBytes the maximum number of bytes that can be reserved at any given time
+     * @throws IllegalArgumentException if the maximum is not positive
+     */
+    public StreamBufferMemoryBudget(final long maxBytes) {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("Memory budget must be positive");
+        }
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Create a budget with no practical limit.
+     *
+     * @return a new budget
+     */
+    public static StreamBufferMemoryBudget unlimited() {
+        return new StreamBufferMemoryBudget(Long.MAX_VALUE);
+    }
+
+    /**
+     * Get the number of bytes currently reserved.
+     *
+     * @return the number of bytes reserved
+     */
+    public long getReservedBytes() {
+        return this.reservedBytes.get();
+    }
+
+    /**
+     * Get the maximum number of bytes that can be reserved.
+     *
+     * @return the maximum number of bytes
+     */
+    public long getMaxBytes() {
+        return this.maxBytes;
+    }
+
+    boolean tryReserve(final long bytes) {
+        while (true) {
+            final long current = this.reservedBytes.get();
+            if (current > 0 && bytes > this.maxBytes - current) {
+                return false;
+            }
+            if (this.reservedBytes.compareAndSet(current, current + bytes)) {
+                return true;
+            }
+        }
+    }
+
+    void release(final long bytes) {
+        this.reservedBytes.addAndGet(-bytes);
+    }
+}
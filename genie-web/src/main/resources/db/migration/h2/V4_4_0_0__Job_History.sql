@@ -0,0 +1,58 @@
+/*
+ *
+ *  Copyright 2022 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+
+CREATE TABLE `job_history`
+(
+  `id`                BIGINT        NOT NULL,
+  `unique_id`         VARCHAR(255)  NOT NULL,
+  `created`           DATETIME(6)   NOT NULL,
+  `updated`           DATETIME(6)   NOT NULL,
+  `name`              VARCHAR(255)  NOT NULL,
+  `genie_user`        VARCHAR(255)  NOT NULL,
+  `status`            VARCHAR(20)   NOT NULL,
+  `api`               BOOLEAN       NOT NULL,
+  `started`           DATETIME(6)   DEFAULT NULL,
+  `finished`          DATETIME(6)   DEFAULT NULL,
+  `cluster_id`        VARCHAR(255)  DEFAULT NULL,
+  `cluster_name`      VARCHAR(255)  DEFAULT NULL,
+  `command_id`        VARCHAR(255)  DEFAULT NULL,
+  `command_name`      VARCHAR(255)  DEFAULT NULL,
+  `grouping`          VARCHAR(255)  DEFAULT NULL,
+  `grouping_instance` VARCHAR(255)  DEFAULT NULL,
+  `tags`              VARCHAR(1024) DEFAULT NULL,
+  `archive_location`  VARCHAR(1024) DEFAULT NULL,
+  `archive_status`    VARCHAR(20)   DEFAULT NULL,
+  `job`               CLOB          NOT NULL,
+  `job_execution`     CLOB          NOT NULL,
+  `job_metadata`      CLOB          NOT NULL,
+  `job_request`       CLOB          NOT NULL,
+  `job_cluster`       CLOB          DEFAULT NULL,
+  `job_command`       CLOB          DEFAULT NULL,
+  `job_applications`  CLOB          NOT NULL,
+  PRIMARY KEY (`id`),
+  CONSTRAINT `JOB_HISTORY_UNIQUE_ID_UNIQUE_INDEX` UNIQUE (`unique_id`)
+);
+
+CREATE INDEX `JOB_HISTORY_CREATED_INDEX`
+  ON `job_history` (`created`);
+
+CREATE INDEX `JOB_HISTORY_GENIE_USER_INDEX`
+  ON `job_history` (`genie_user`);
+
+CREATE INDEX `JOB_HISTORY_NAME_INDEX`
+  ON `job_history` (`name`);
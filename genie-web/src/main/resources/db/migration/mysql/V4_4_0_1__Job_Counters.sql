@@ -0,0 +1,75 @@
+/*
+ *
+ *  Copyright 2022 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+
+-- Resource usage of active jobs maintained incrementally as jobs change status so that admission and capacity checks
+-- don't need to aggregate over the jobs table. Both tables are seeded from the jobs which are active at migration time.
+CREATE TABLE `user_job_counters` (
+  `genie_user`           VARCHAR(255) NOT NULL,
+  `active_jobs`          BIGINT(20)   NOT NULL DEFAULT 0,
+  `memory_allocated`     BIGINT(20)   NOT NULL DEFAULT 0,
+  `active_api_jobs`      BIGINT(20)   NOT NULL DEFAULT 0,
+  `api_memory_allocated` BIGINT(20)   NOT NULL DEFAULT 0,
+  PRIMARY KEY (`genie_user`)
+)
+  ENGINE = InnoDB
+  DEFAULT CHARSET = utf8
+  DEFAULT COLLATE = utf8_bin
+  ROW_FORMAT = DYNAMIC;
+
+CREATE TABLE `host_job_counters` (
+  `agent_hostname`   VARCHAR(255) NOT NULL,
+  `active_jobs`      BIGINT(20)   NOT NULL DEFAULT 0,
+  `memory_allocated` BIGINT(20)   NOT NULL DEFAULT 0,
+  `memory_used`      BIGINT(20)   NOT NULL DEFAULT 0,
+  PRIMARY KEY (`agent_hostname`)
+)
+  ENGINE = InnoDB
+  DEFAULT CHARSET = utf8
+  DEFAULT COLLATE = utf8_bin
+  ROW_FORMAT = DYNAMIC;
+
+INSERT INTO `user_job_counters` (
+  `genie_user`,
+  `active_jobs`,
+  `memory_allocated`,
+  `active_api_jobs`,
+  `api_memory_allocated`
+)
+SELECT `genie_user`,
+       COUNT(*),
+       COALESCE(SUM(`memory_used`), 0),
+       SUM(CASE WHEN `api` = TRUE THEN 1 ELSE 0 END),
+       COALESCE(SUM(CASE WHEN `api` = TRUE THEN `memory_used` ELSE 0 END), 0)
+FROM `jobs`
+WHERE `status` IN ('RESERVED', 'RESOLVED', 'ACCEPTED', 'CLAIMED', 'INIT', 'RUNNING')
+GROUP BY `genie_user`;
+
+INSERT INTO `host_job_counters` (
+  `agent_hostname`,
+  `active_jobs`,
+  `memory_allocated`,
+  `memory_used`
+)
+SELECT `agent_hostname`,
+       COUNT(*),
+       COALESCE(SUM(`memory_used`), 0),
+       COALESCE(SUM(CASE WHEN `status` IN ('CLAIMED', 'INIT', 'RUNNING') THEN `memory_used` ELSE 0 END), 0)
+FROM `jobs`
+WHERE `agent_hostname` IS NOT NULL
+  AND `status` IN ('RESERVED', 'RESOLVED', 'ACCEPTED', 'CLAIMED', 'INIT', 'RUNNING')
+GROUP BY `agent_hostname`;
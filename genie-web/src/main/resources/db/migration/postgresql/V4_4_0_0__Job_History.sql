@@ -0,0 +1,61 @@
+/*
+ *
+ *  Copyright 2022 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+
+-- Finished jobs are moved here from the jobs table by the database cleanup task once they are older than the
+-- configured archive threshold. The table is not partitioned by default. Deployments with a very large history may
+-- recreate it as a table partitioned by RANGE on created as long as created is added to the primary key and the
+-- unique constraint first.
+CREATE TABLE job_history (
+  id                BIGINT        NOT NULL,
+  unique_id         VARCHAR(255)  NOT NULL,
+  created           TIMESTAMP(6) WITHOUT TIME ZONE NOT NULL,
+  updated           TIMESTAMP(6) WITHOUT TIME ZONE NOT NULL,
+  name              VARCHAR(255)  NOT NULL,
+  genie_user        VARCHAR(255)  NOT NULL,
+  status            VARCHAR(20)   NOT NULL,
+  api               BOOLEAN       NOT NULL,
+  started           TIMESTAMP(6) WITHOUT TIME ZONE DEFAULT NULL,
+  finished          TIMESTAMP(6) WITHOUT TIME ZONE DEFAULT NULL,
+  cluster_id        VARCHAR(255)  DEFAULT NULL,
+  cluster_name      VARCHAR(255)  DEFAULT NULL,
+  command_id        VARCHAR(255)  DEFAULT NULL,
+  command_name      VARCHAR(255)  DEFAULT NULL,
+  grouping          VARCHAR(255)  DEFAULT NULL,
+  grouping_instance VARCHAR(255)  DEFAULT NULL,
+  tags              VARCHAR(1024) DEFAULT NULL,
+  archive_location  VARCHAR(1024) DEFAULT NULL,
+  archive_status    VARCHAR(20)   DEFAULT NULL,
+  job               TEXT          NOT NULL,
+  job_execution     TEXT          NOT NULL,
+  job_metadata      TEXT          NOT NULL,
+  job_request       TEXT          NOT NULL,
+  job_cluster       TEXT          DEFAULT NULL,
+  job_command       TEXT          DEFAULT NULL,
+  job_applications  TEXT          NOT NULL,
+  PRIMARY KEY (id),
+  CONSTRAINT job_history_unique_id_key UNIQUE (unique_id)
+);
+
+CREATE INDEX job_history_created_index
+  ON job_history (created);
+
+CREATE INDEX job_history_genie_user_index
+  ON job_history (genie_user);
+
+CREATE INDEX job_history_name_index
+  ON job_history (name);
@@ -24,14 +24,17 @@ import com.netflix.genie.common.internal.exceptions.checked.GenieConversionExcep
 import com.netflix.genie.common.internal.exceptions.unchecked.GenieRuntimeException
 import com.netflix.genie.proto.AgentFileMessage
 import com.netflix.genie.proto.AgentManifestMessage
+import com.netflix.genie.proto.ManifestDeltaMessage
 import com.netflix.genie.proto.ServerAckMessage
 import com.netflix.genie.proto.ServerControlMessage
 import com.netflix.genie.proto.ServerFileRequestMessage
+import com.netflix.genie.proto.ServerManifestAckMessage
 import com.netflix.genie.web.properties.AgentFileStreamProperties
 import io.grpc.stub.StreamObserver
 import io.micrometer.core.instrument.Counter
 import io.micrometer.core.instrument.DistributionSummary
 import io.micrometer.core.instrument.MeterRegistry
+import io.micrometer.core.instrument.Timer
 import org.junit.platform.commons.util.StringUtils
 import org.springframework.core.io.Resource
 import org.springframework.http.HttpRange
@@ -44,6 +47,10 @@ import java.nio.file.Path
 import java.nio.file.Paths
 import java.time.Duration
 import java.time.Instant
+import java.util.concurrent.Callable
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.Future
 import java.util.concurrent.TimeoutException
 
 class GRpcAgentFileStreamServiceImplSpec extends Specification {
@@ -80,10 +87,14 @@ class GRpcAgentFileStreamServiceImplSpec extends Specification {
             getWriteRetryDelay() >> Duration.ofMillis(250)
             getStalledTransferTimeout() >> Duration.ofSeconds(5)
             getManifestCacheExpiration() >> Duration.ofSeconds(10)
+            getMaxChunksInFlight() >> 4
+            getMaxTransferBufferSize() >> DataSize.ofKilobytes(64)
+            getMaxTotalBufferSize() >> DataSize.ofMegabytes(1)
         }
         this.registry = Mock(MeterRegistry) {
             counter(_ as String) >> Mock(Counter)
             summary(_ as String) >> Mock(DistributionSummary)
+            timer(_ as String) >> Mock(Timer)
         }
         this.jobId = UUID.randomUUID().toString()
         this.controlStreamResponseObserver = Mock(StreamObserver)
@@ -277,6 +288,86 @@ class GRpcAgentFileStreamServiceImplSpec extends Specification {
         0 * controlStreamResponseObserver2._
     }
 
+    def "Reconstruct manifests from deltas"() {
+        StreamObserver<AgentManifestMessage> controlStreamRequestObserver
+        DirectoryManifest directoryManifest2 = Mock(DirectoryManifest)
+        DirectoryManifest directoryManifest3 = Mock(DirectoryManifest)
+        AgentManifestMessage fullMessage = AgentManifestMessage.newBuilder()
+            .setJobId(jobId)
+            .setManifestVersion(1)
+            .build()
+        AgentManifestMessage deltaMessage = AgentManifestMessage.newBuilder()
+            .setJobId(jobId)
+            .setManifestVersion(2)
+            .setManifestDelta(ManifestDeltaMessage.newBuilder().setBaseManifestVersion(1).build())
+            .build()
+        AgentManifestMessage outdatedDeltaMessage = AgentManifestMessage.newBuilder()
+            .setJobId(jobId)
+            .setManifestVersion(4)
+            .setManifestDelta(ManifestDeltaMessage.newBuilder().setBaseManifestVersion(3).build())
+            .build()
+        AgentManifestMessage fullMessage2 = AgentManifestMessage.newBuilder()
+            .setJobId(jobId)
+            .setManifestVersion(6)
+            .build()
+
+        when: "Full manifest received"
+        controlStreamRequestObserver = this.service.sync(controlStreamResponseObserver)
+        controlStreamRequestObserver.onNext(fullMessage)
+
+        then: "Manifest version is acknowledged"
+        1 * converter.toManifest(fullMessage) >> directoryManifest
+        1 * controlStreamResponseObserver.onNext(
+            ServerControlMessage.newBuilder()
+                .setServerManifestAck(ServerManifestAckMessage.newBuilder().setManifestVersion(1).build())
+                .build()
+        )
+        this.service.getManifest(jobId).get() == directoryManifest
+
+        when: "Delta received"
+        controlStreamRequestObserver.onNext(deltaMessage)
+
+        then: "Delta is applied to the previous manifest"
+        1 * converter.applyManifestDelta(directoryManifest, deltaMessage) >> directoryManifest2
+        0 * converter.toManifest(_)
+        1 * controlStreamResponseObserver.onNext(
+            ServerControlMessage.newBuilder()
+                .setServerManifestAck(ServerManifestAckMessage.newBuilder().setManifestVersion(2).build())
+                .build()
+        )
+        this.service.getManifest(jobId).get() == directoryManifest2
+
+        when: "Delta based on an unknown version received, twice"
+        controlStreamRequestObserver.onNext(outdatedDeltaMessage)
+        controlStreamRequestObserver.onNext(outdatedDeltaMessage)
+
+        then: "A full manifest is requested, once"
+        0 * converter.applyManifestDelta(_, _)
+        1 * controlStreamResponseObserver.onNext(
+            ServerControlMessage.newBuilder()
+                .setServerManifestAck(
+                    ServerManifestAckMessage.newBuilder()
+                        .setManifestVersion(2)
+                        .setFullManifestRequested(true)
+                        .build()
+                )
+                .build()
+        )
+        this.service.getManifest(jobId).get() == directoryManifest2
+
+        when: "Full manifest received"
+        controlStreamRequestObserver.onNext(fullMessage2)
+
+        then:
+        1 * converter.toManifest(fullMessage2) >> directoryManifest3
+        1 * controlStreamResponseObserver.onNext(
+            ServerControlMessage.newBuilder()
+                .setServerManifestAck(ServerManifestAckMessage.newBuilder().setManifestVersion(6).build())
+                .build()
+        )
+        this.service.getManifest(jobId).get() == directoryManifest3
+    }
+
     @Unroll
     def "Successful transfer with range: #range (legacy agent: #legacy)"() {
         this.manifestMessage = AgentManifestMessage.newBuilder().setJobId(jobId).setLargeFilesSupported(!legacy).build()
@@ -312,6 +403,7 @@ class GRpcAgentFileStreamServiceImplSpec extends Specification {
         fileRequestCapture.getDeprecatedEndOffset() == offsetEnd
         fileRequestCapture.getStartOffset() == offsetStart
         fileRequestCapture.getEndOffset() == offsetEnd
+        fileRequestCapture.getMaxChunksInFlight() == 0
         streamId != null
         StringUtils.isNotBlank(streamId)
         fileRequestCapture.getRelativePath() == relativePath.toString()
@@ -376,6 +468,89 @@ class GRpcAgentFileStreamServiceImplSpec extends Specification {
         HttpRange.createByteRange(50, 300) | 50          | FILE_SIZE | 50        | false
     }
 
+    def "Transfer with multiple chunks in flight"() {
+        this.manifestMessage = AgentManifestMessage.newBuilder()
+            .setJobId(jobId)
+            .setLargeFilesSupported(true)
+            .setMaxChunksInFlight(8)
+            .build()
+        int chunkSize = 10
+        StreamObserver<AgentManifestMessage> controlStreamRequestObserver
+        StreamObserver<AgentFileMessage> transferStreamRequestObserver
+        String streamId
+        InputStream inputStream
+        Runnable writeTask
+        ServerFileRequestMessage fileRequestCapture
+        ServerAckMessage ackCapture
+
+        when: "Control stream established"
+        controlStreamRequestObserver = this.service.sync(controlStreamResponseObserver)
+        controlStreamRequestObserver.onNext(manifestMessage)
+
+        then:
+        1 * converter.toManifest(manifestMessage) >> directoryManifest
+
+        when: "Request file transfer"
+        Optional<Resource> resource = service.getResource(jobId, relativePath, uri, null)
+
+        then: "The window is the smallest between the agent and the server one"
+        1 * directoryManifest.getEntry(relativePath.toString()) >> Optional.of(manifestEntry)
+        1 * controlStreamResponseObserver.onNext(_ as ServerControlMessage) >> {
+            ServerControlMessage msg ->
+                fileRequestCapture = msg.getServerFileRequest()
+                streamId = fileRequestCapture.getStreamId()
+        }
+        resource.isPresent()
+        fileRequestCapture.getMaxChunksInFlight() == 4
+
+        when: "Agent sends 3 chunks without waiting for acknowledgements"
+        transferStreamRequestObserver = this.service.transmit(transferStreamResponseObserver)
+        for (int i = 0; i < 3; i++) {
+            transferStreamRequestObserver.onNext(
+                AgentFileMessage.newBuilder()
+                    .setStreamId(streamId)
+                    .setData(ByteString.copyFrom(new byte[chunkSize]))
+                    .build()
+            )
+        }
+
+        then: "A single write task is scheduled"
+        1 * taskScheduler.schedule(_ as Runnable, _ as Instant)
+        1 * taskScheduler.schedule(_ as Runnable, _ as Date) >> {
+            runnable, date ->
+                writeTask = runnable
+                return null
+        }
+        0 * transferStreamResponseObserver.onNext(_ as ServerAckMessage)
+        writeTask != null
+
+        when: "The write task runs"
+        writeTask.run()
+
+        then: "All chunks are buffered and acknowledged at once"
+        0 * taskScheduler.schedule(_ as Runnable, _)
+        1 * transferStreamResponseObserver.onNext(_ as ServerAckMessage) >> {
+            ServerAckMessage ack ->
+                ackCapture = ack
+        }
+        ackCapture.getAcknowledgedChunks() == 3
+
+        when: "Read data"
+        inputStream = resource.get().getInputStream()
+
+        then:
+        inputStream.read(new byte[512]) == chunkSize
+        inputStream.read(new byte[512]) == chunkSize
+        inputStream.read(new byte[512]) == chunkSize
+
+        when: "Complete reading"
+        transferStreamRequestObserver.onCompleted()
+
+        then:
+        1 * transferStreamResponseObserver.onCompleted()
+        inputStream.read(new byte[512]) == -1
+    }
+
     def "Request large file from legacy agent"() {
         this.manifestMessage = AgentManifestMessage.newBuilder().setJobId(jobId).setLargeFilesSupported(false).build()
         int chunkSize = 512
@@ -804,4 +979,30 @@ class GRpcAgentFileStreamServiceImplSpec extends Specification {
         1 * controlStreamResponseObserver.onNext(_ as ServerControlMessage)
         resource3.isPresent()
     }
+
+    def "Concurrent transfer requests respect the maximum number of transfers"() {
+        StreamObserver<AgentManifestMessage> controlStreamRequestObserver
+        ExecutorService executor = Executors.newFixedThreadPool(8)
+
+        when: "Control stream established"
+        controlStreamRequestObserver = this.service.sync(controlStreamResponseObserver)
+        controlStreamRequestObserver.onNext(manifestMessage)
+
+        then:
+        1 * converter.toManifest(manifestMessage) >> directoryManifest
+
+        when: "Request more transfers than allowed from multiple threads"
+        List<Future<Optional<Resource>>> futures = (1..20).collect {
+            executor.submit({ service.getResource(jobId, relativePath, uri, null) } as Callable<Optional<Resource>>)
+        }
+        List<Optional<Resource>> resources = futures.collect { it.get() }
+
+        then:
+        20 * directoryManifest.getEntry(relativePath.toString()) >> Optional.of(manifestEntry)
+        10 * controlStreamResponseObserver.onNext(_ as ServerControlMessage)
+        resources.count { it.isPresent() } == 10
+
+        cleanup:
+        executor.shutdownNow()
+    }
 }
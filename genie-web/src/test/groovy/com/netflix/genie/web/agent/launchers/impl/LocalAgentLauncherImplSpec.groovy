@@ -25,6 +25,7 @@ import com.netflix.genie.common.internal.dtos.ComputeResources
 import com.netflix.genie.common.internal.dtos.JobEnvironment
 import com.netflix.genie.common.internal.dtos.JobMetadata
 import com.netflix.genie.common.internal.dtos.JobSpecification
+import com.netflix.genie.common.internal.jobs.JobConstants
 import com.netflix.genie.common.internal.tracing.brave.BraveTagAdapter
 import com.netflix.genie.common.internal.tracing.brave.BraveTracePropagator
 import com.netflix.genie.common.internal.tracing.brave.BraveTracingCleanup
@@ -33,6 +34,7 @@ import com.netflix.genie.web.data.services.DataServices
 import com.netflix.genie.web.data.services.PersistenceService
 import com.netflix.genie.web.data.services.impl.jpa.queries.aggregates.JobInfoAggregate
 import com.netflix.genie.web.dtos.ResolvedJob
+import com.netflix.genie.web.exceptions.checked.AgentLaunchException
 import com.netflix.genie.web.introspection.GenieWebHostInfo
 import com.netflix.genie.web.introspection.GenieWebRpcInfo
 import com.netflix.genie.web.properties.LocalAgentLauncherProperties
@@ -43,10 +45,12 @@ import org.apache.commons.exec.CommandLine
 import org.apache.commons.exec.Executor
 import org.apache.commons.lang3.SystemUtils
 import org.springframework.boot.actuate.health.Status
+import org.springframework.scheduling.TaskScheduler
 import spock.lang.Specification
 import spock.lang.Unroll
 
 import java.time.Duration
+import java.util.concurrent.ScheduledFuture
 
 /**
  * Specifications for {@link LocalAgentLauncherImpl}.
@@ -316,4 +320,214 @@ class LocalAgentLauncherImplSpec extends Specification {
         health.getDetails().get(LocalAgentLauncherImpl.USED_MEMORY_KEY) == maxTotalJobMemory - 2 * maxJobMemory
         health.getDetails().get(LocalAgentLauncherImpl.AVAILABLE_MAX_JOB_CAPACITY_KEY) == ((maxTotalJobMemory - (maxTotalJobMemory - maxJobMemory + 1)) / maxJobMemory).toInteger()
     }
+
+    def "Jobs are handed to standby agents when the pool has any"() {
+        this.launchProperties.setStandbyPoolEnabled(true)
+        def jobInfo = Mock(JobInfoAggregate) {
+            getTotalMemoryAllocated() >> 4_000L
+        }
+        def refreshFuture = Mock(ScheduledFuture)
+        def taskScheduler = Mock(TaskScheduler)
+        def standbyExecutor = Mock(Executor)
+        this.persistenceService.getHostJobInformation(this.hostname) >> jobInfo
+        this.executorFactory.newInstance(false) >> this.sharedExecutor
+        this.resolvedJob.getJobMetadata() >> this.jobMetadata
+        this.jobMetadata.getUser() >> USERNAME
+        this.resolvedJob.getJobEnvironment() >> this.jobEnvironment
+        this.jobEnvironment.getComputeResources() >> this.computeResources
+        this.computeResources.getMemoryMb() >> Optional.of(this.jobMemory)
+        this.resolvedJob.getJobSpecification() >> this.jobSpec
+        this.jobSpec.getJob() >> this.job
+        this.job.getId() >> JOB_ID
+
+        when:
+        this.launcher = new LocalAgentLauncherImpl(
+            this.hostInfo,
+            this.rpcInfo,
+            this.dataServices,
+            this.launchProperties,
+            this.executorFactory,
+            this.tracingComponents,
+            this.meterRegistry,
+            taskScheduler
+        )
+
+        then:
+        1 * taskScheduler.scheduleAtFixedRate(_ as Runnable, this.launchProperties.getStandbyPoolRefreshInterval()) >>
+            refreshFuture
+
+        when: "The pool is empty"
+        this.launcher.launchAgent(this.resolvedJob, null)
+
+        then: "The agent is cold started"
+        1 * this.executorFactory.newInstance(true) >> this.executor
+        1 * this.executor.execute(_ as CommandLine, _ as Map, _ as LocalAgentLauncherImpl.AgentResultHandler)
+        this.meterRegistry.counter("genie.agents.launchers.local.standby.coldStart.counter").count() == 1.0d
+
+        when: "The pool is resized after a launch"
+        this.launcher.refreshStandbyPool()
+
+        then: "A standby agent is started"
+        1 * this.executorFactory.newInstance(true) >> standbyExecutor
+        1 * standbyExecutor.execute(_ as CommandLine, _ as Map, _ as LocalAgentLauncherImpl.AgentResultHandler) >> {
+            args ->
+                CommandLine commandLine = args[0] as CommandLine
+                assert commandLine.getArguments().contains(JobConstants.STANDBY_AGENT_JOB_ID)
+                assert !commandLine.getArguments().contains(JOB_ID)
+        }
+        this.meterRegistry.get(StandbyAgentPool.SIZE_GAUGE).gauge().value() == 1.0d
+
+        when: "The next job is launched"
+        def launcherExt = this.launcher.launchAgent(this.resolvedJob, null)
+
+        then: "The standby agent runs it"
+        0 * this.executorFactory.newInstance(_)
+        0 * this.tracer.currentSpan()
+        launcherExt.isPresent()
+        this.meterRegistry.counter("genie.agents.launchers.local.standby.hit.counter").count() == 1.0d
+        this.meterRegistry.get(StandbyAgentPool.SIZE_GAUGE).gauge().value() == 0.0d
+
+        when:
+        this.launcher.shutdown()
+
+        then:
+        1 * refreshFuture.cancel(false)
+    }
+
+    def "Standby pool size is bounded by spare memory"() {
+        this.launchProperties.setStandbyPoolEnabled(true)
+        this.launchProperties.setStandbyPoolMaxSize(10)
+        this.launchProperties.setStandbyAgentMemory(1_000L)
+        def allocatedMemory =
+            this.launchProperties.getMaxTotalJobMemory() - this.launchProperties.getMaxJobMemory() - 2_500L
+        def jobInfo = Mock(JobInfoAggregate) {
+            getTotalMemoryAllocated() >> allocatedMemory
+        }
+        this.persistenceService.getHostJobInformation(this.hostname) >> jobInfo
+        this.executorFactory.newInstance(false) >> this.sharedExecutor
+        this.launcher = new LocalAgentLauncherImpl(
+            this.hostInfo,
+            this.rpcInfo,
+            this.dataServices,
+            this.launchProperties,
+            this.executorFactory,
+            this.tracingComponents,
+            this.meterRegistry,
+            Mock(TaskScheduler)
+        )
+        this.launcher.recentLaunches.set(20L)
+
+        when:
+        this.launcher.refreshStandbyPool()
+
+        then: "Only two agents fit in the memory left over after one more max size job"
+        2 * this.executorFactory.newInstance(true) >> Mock(Executor)
+        this.meterRegistry.get(StandbyAgentPool.SIZE_GAUGE).gauge().value() == 2.0d
+    }
+
+    def "Standby pool keeps its minimum size through quiet intervals between bursts"() {
+        this.launchProperties.setStandbyPoolEnabled(true)
+        this.launchProperties.setStandbyPoolMinSize(2)
+        this.launchProperties.setStandbyPoolMaxSize(10)
+        def jobInfo = Mock(JobInfoAggregate) {
+            getTotalMemoryAllocated() >> 0L
+        }
+        this.persistenceService.getHostJobInformation(this.hostname) >> jobInfo
+        this.executorFactory.newInstance(false) >> this.sharedExecutor
+        this.launcher = new LocalAgentLauncherImpl(
+            this.hostInfo,
+            this.rpcInfo,
+            this.dataServices,
+            this.launchProperties,
+            this.executorFactory,
+            this.tracingComponents,
+            this.meterRegistry,
+            Mock(TaskScheduler)
+        )
+
+        when: "A burst of launches is followed by quiet intervals"
+        this.launcher.recentLaunches.set(8L)
+        this.launcher.refreshStandbyPool()
+        5.times { this.launcher.refreshStandbyPool() }
+
+        then: "The pool never drops below its minimum size"
+        2 * this.executorFactory.newInstance(true) >> Mock(Executor)
+        this.meterRegistry.get(StandbyAgentPool.SIZE_GAUGE).gauge().value() == 2.0d
+
+        when: "The next burst arrives"
+        this.launcher.recentLaunches.set(16L)
+        this.launcher.refreshStandbyPool()
+
+        then: "The pool grows from the warm agents it kept"
+        2 * this.executorFactory.newInstance(true) >> Mock(Executor)
+        this.meterRegistry.get(StandbyAgentPool.SIZE_GAUGE).gauge().value() == 4.0d
+    }
+
+    def "Memory held by standby agents is reserved when launching jobs"() {
+        this.launchProperties.setStandbyPoolEnabled(true)
+        this.launchProperties.setStandbyPoolMinSize(3)
+        this.launchProperties.setStandbyAgentMemory(1_000L)
+        def jobInfo = Mock(JobInfoAggregate) {
+            getTotalMemoryAllocated() >> 0L
+        }
+        this.persistenceService.getHostJobInformation(this.hostname) >> jobInfo
+        this.executorFactory.newInstance(false) >> this.sharedExecutor
+        this.resolvedJob.getJobMetadata() >> this.jobMetadata
+        this.jobMetadata.getUser() >> USERNAME
+        this.resolvedJob.getJobEnvironment() >> this.jobEnvironment
+        this.jobEnvironment.getComputeResources() >> this.computeResources
+        this.computeResources.getMemoryMb() >> Optional.of(this.jobMemory)
+        this.resolvedJob.getJobSpecification() >> this.jobSpec
+        this.jobSpec.getJob() >> this.job
+        this.job.getId() >> JOB_ID
+        this.launcher = new LocalAgentLauncherImpl(
+            this.hostInfo,
+            this.rpcInfo,
+            this.dataServices,
+            this.launchProperties,
+            this.executorFactory,
+            this.tracingComponents,
+            this.meterRegistry,
+            Mock(TaskScheduler)
+        )
+        this.executorFactory.newInstance(true) >> Mock(Executor)
+        this.launcher.refreshStandbyPool()
+
+        when: "The job only fits if the standby agents it isn't handed use no memory"
+        this.launcher.launchAgent(this.resolvedJob, null)
+
+        then:
+        1 * this.persistenceService.getUsedMemoryOnHost(this.hostname) >>
+            this.launchProperties.getMaxTotalJobMemory() - this.jobMemory - 1_000L
+        thrown(AgentLaunchException)
+        this.meterRegistry.get(StandbyAgentPool.SIZE_GAUGE).gauge().value() == 3.0d
+
+        when: "The pool is the only thing using memory"
+        def health = this.launcher.health()
+
+        then: "The memory of the standby agents isn't available to jobs"
+        health.getDetails().get(LocalAgentLauncherImpl.AVAILABLE_MEMORY_KEY) ==
+            this.launchProperties.getMaxTotalJobMemory() - 3_000L
+    }
+
+    def "Standby pool is disabled when agents run as the job user"() {
+        this.launchProperties.setStandbyPoolEnabled(true)
+        this.launchProperties.setRunAsUserEnabled(true)
+        def taskScheduler = Mock(TaskScheduler)
+
+        when:
+        new LocalAgentLauncherImpl(
+            this.hostInfo,
+            this.rpcInfo,
+            this.dataServices,
+            this.launchProperties,
+            this.executorFactory,
+            this.tracingComponents,
+            this.meterRegistry,
+            taskScheduler
+        )
+
+        then:
+        0 * taskScheduler.scheduleAtFixedRate(_, _)
+    }
 }
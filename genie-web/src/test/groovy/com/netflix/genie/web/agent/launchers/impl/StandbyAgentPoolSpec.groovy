@@ -0,0 +1,130 @@
+/*
+ *
+ *  Copyright 2022 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.agent.launchers.impl
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import org.apache.commons.exec.DefaultExecuteResultHandler
+import org.apache.commons.exec.ExecuteWatchdog
+import spock.lang.Specification
+
+import java.nio.charset.StandardCharsets
+
+/**
+ * Specifications for {@link StandbyAgentPool}.
+ */
+class StandbyAgentPoolSpec extends Specification {
+
+    StandbyAgentPool.AgentStarter agentStarter
+    StandbyAgentPool pool
+
+    def setup() {
+        this.agentStarter = Mock(StandbyAgentPool.AgentStarter)
+        this.pool = new StandbyAgentPool(this.agentStarter, new SimpleMeterRegistry())
+    }
+
+    def "Can resize the pool"() {
+        def agents = (1..3).collect { this.createAgent(it) }
+
+        when:
+        this.pool.resize(3)
+
+        then:
+        3 * this.agentStarter.start() >>> agents
+        this.pool.size() == 3
+
+        when:
+        this.pool.resize(1)
+
+        then:
+        0 * this.agentStarter.start()
+        1 * agents[1].watchdog.destroyProcess()
+        1 * agents[2].watchdog.destroyProcess()
+        this.pool.size() == 1
+
+        when:
+        this.pool.close()
+
+        then:
+        1 * agents[0].watchdog.destroyProcess()
+        this.pool.size() == 0
+    }
+
+    def "Agents which exited are discarded"() {
+        def deadAgent = this.createAgent(1)
+        def liveAgent = this.createAgent(2)
+        this.agentStarter.start() >>> [deadAgent, liveAgent]
+        this.pool.resize(2)
+        deadAgent.resultHandler.onProcessComplete(1)
+
+        when:
+        def agent = this.pool.take()
+
+        then:
+        agent.isPresent()
+        agent.get() == liveAgent
+        !this.pool.take().isPresent()
+    }
+
+    def "Resizing stops when an agent fails to start"() {
+        when:
+        this.pool.resize(3)
+
+        then:
+        1 * this.agentStarter.start() >> { throw new IOException("no agent for you") }
+        this.pool.size() == 0
+    }
+
+    def "Can hand a job id to an agent"() {
+        def output = new ByteArrayOutputStream()
+        def watchdog = Mock(ExecuteWatchdog)
+        def agent = new StandbyAgentPool.StandbyAgent("standby-1", output, watchdog, new DefaultExecuteResultHandler())
+        def jobId = UUID.randomUUID().toString()
+
+        when:
+        def assigned = agent.assign(jobId)
+
+        then:
+        assigned
+        new String(output.toByteArray(), StandardCharsets.UTF_8).trim() == jobId
+        0 * watchdog.destroyProcess()
+
+        when: "The agent input is broken"
+        def brokenOutput = Mock(OutputStream) {
+            write(_ as byte[]) >> { throw new IOException("broken pipe") }
+        }
+        assigned = new StandbyAgentPool.StandbyAgent(
+            "standby-2",
+            brokenOutput,
+            watchdog,
+            new DefaultExecuteResultHandler()
+        ).assign(jobId)
+
+        then:
+        !assigned
+        1 * watchdog.destroyProcess()
+    }
+
+    private StandbyAgentPool.StandbyAgent createAgent(final int id) {
+        return new StandbyAgentPool.StandbyAgent(
+            "standby-" + id,
+            new ByteArrayOutputStream(),
+            Mock(ExecuteWatchdog),
+            new DefaultExecuteResultHandler()
+        )
+    }
+}
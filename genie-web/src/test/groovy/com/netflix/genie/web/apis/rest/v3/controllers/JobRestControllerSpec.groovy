@@ -18,13 +18,19 @@
 package com.netflix.genie.web.apis.rest.v3.controllers
 
 import com.netflix.genie.common.dto.JobRequest
+import com.netflix.genie.common.dto.JobStatus
+import com.netflix.genie.common.dto.search.JobSearchResult
+import com.netflix.genie.common.exceptions.GenieBadRequestException
 import com.netflix.genie.common.exceptions.GenieServerUnavailableException
 import com.netflix.genie.common.exceptions.GenieUserLimitExceededException
 import com.netflix.genie.common.internal.util.GenieHostInfo
 import com.netflix.genie.web.agent.services.AgentRoutingService
 import com.netflix.genie.web.apis.rest.v3.hateoas.assemblers.EntityModelAssemblers
+import com.netflix.genie.web.apis.rest.v3.hateoas.assemblers.JobSearchResultModelAssembler
 import com.netflix.genie.web.data.services.DataServices
 import com.netflix.genie.web.data.services.PersistenceService
+import com.netflix.genie.web.dtos.JobSearchCursor
+import com.netflix.genie.web.dtos.JobSearchResultsPage
 import com.netflix.genie.web.dtos.JobSubmission
 import com.netflix.genie.web.properties.JobsActiveLimitProperties
 import com.netflix.genie.web.properties.JobsProperties
@@ -34,10 +40,16 @@ import com.netflix.genie.web.services.JobKillService
 import com.netflix.genie.web.services.JobLaunchService
 import io.micrometer.core.instrument.simple.SimpleMeterRegistry
 import org.springframework.core.env.Environment
+import org.springframework.data.domain.PageRequest
+import org.springframework.data.domain.Pageable
+import org.springframework.data.domain.Sort
+import org.springframework.data.web.PagedResourcesAssembler
+import org.springframework.hateoas.IanaLinkRelations
 import org.springframework.web.client.RestTemplate
 import spock.lang.Specification
 
 import javax.servlet.http.HttpServletRequest
+import java.time.Instant
 
 class JobRestControllerSpec extends Specification {
     JobRestController controller
@@ -55,7 +67,9 @@ class JobRestControllerSpec extends Specification {
         this.controller = new JobRestController(
             jobLaunchService,
             new DataServices(this.persistenceService),
-            Mock(EntityModelAssemblers),
+            Mock(EntityModelAssemblers) {
+                getJobSearchResultModelAssembler() >> new JobSearchResultModelAssembler()
+            },
             Mock(GenieHostInfo),
             Mock(RestTemplate),
             Mock(JobDirectoryServerService),
@@ -129,4 +143,110 @@ class JobRestControllerSpec extends Specification {
         jobSubmission.getJobRequestMetadata().getApiClientMetadata().isPresent()
         jobSubmission.getJobRequestMetadata().getRequestHeaders() == [GENIE_FOO: "GENIE_BAR"]
     }
+
+    def "Reject cursor based job search with a non default sort"() {
+        setup:
+        def page = PageRequest.of(0, 10, Sort.by(Sort.Direction.ASC, "created"))
+
+        when:
+        controller.findJobs(
+            null, null, null, null, null, null, null, null, null, null, null, null, null, null, null,
+            cursor,
+            includeTotal,
+            page,
+            Mock(PagedResourcesAssembler)
+        )
+
+        then:
+        0 * persistenceService._
+        thrown(GenieBadRequestException)
+
+        where:
+        cursor                                                         | includeTotal
+        new JobSearchCursor(Instant.ofEpochMilli(1000L), 5L).toToken() | true
+        null                                                           | false
+    }
+
+    def "Offset based job search past the supported offset is a bad request"() {
+        when:
+        controller.findJobs(
+            null, null, null, null, null, null, null, null, null, null, null, null, null, null, null,
+            null,
+            true,
+            PageRequest.of(2000, 10, Sort.by(Sort.Direction.DESC, "created")),
+            Mock(PagedResourcesAssembler)
+        )
+
+        then:
+        1 * persistenceService.findJobs(
+            _, _, _, _, _, _, _, _, _, _, _, _, _, _, _,
+            _ as Pageable
+        ) >> { throw new IllegalArgumentException("Job search offset 20000 is past the maximum of 10000") }
+        def e = thrown(GenieBadRequestException)
+        e.getMessage().contains("offset 20000")
+    }
+
+    def "Cursor based job search links to the next page"() {
+        setup:
+        def page = PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "created"))
+        def cursor = new JobSearchCursor(Instant.ofEpochMilli(2000L), 7L)
+        def nextCursor = new JobSearchCursor(Instant.ofEpochMilli(1000L), 3L)
+        def result = new JobSearchResult(
+            "job",
+            "name",
+            "user",
+            JobStatus.SUCCEEDED,
+            Instant.ofEpochMilli(500L),
+            Instant.ofEpochMilli(1000L),
+            "cluster",
+            "command"
+        )
+
+        when:
+        def model = controller.findJobs(
+            null, null, null, null, null, null, null, null, null, null, null, null, null, null, null,
+            cursor.toToken(),
+            true,
+            page,
+            Mock(PagedResourcesAssembler)
+        )
+
+        then:
+        1 * persistenceService.findJobs(
+            _, _, _, _, _, _, _, _, _, _, _, _, _, _, _,
+            cursor,
+            10,
+            true
+        ) >> new JobSearchResultsPage([result], nextCursor, 25L)
+        model.getContent().size() == 1
+        model.getContent()[0].getContent() == result
+        model.getMetadata().getSize() == 10L
+        model.getMetadata().getNumber() == 0L
+        model.getMetadata().getTotalElements() == 25L
+        model.getLink(IanaLinkRelations.NEXT).isPresent()
+        model.getLink(IanaLinkRelations.NEXT).get().getHref().contains("cursor=" + nextCursor.toToken())
+        model.getLink(IanaLinkRelations.SELF).get().getHref().contains("cursor=" + cursor.toToken())
+    }
+
+    def "Cursor based job search omits the next link and metadata on the last page without a total"() {
+        when:
+        def model = controller.findJobs(
+            null, null, null, null, null, null, null, null, null, null, null, null, null, null, null,
+            null,
+            false,
+            PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "created")),
+            Mock(PagedResourcesAssembler)
+        )
+
+        then:
+        1 * persistenceService.findJobs(
+            _, _, _, _, _, _, _, _, _, _, _, _, _, _, _,
+            null,
+            10,
+            false
+        ) >> new JobSearchResultsPage([], null, null)
+        model.getContent().isEmpty()
+        model.getMetadata() == null
+        !model.getLink(IanaLinkRelations.NEXT).isPresent()
+    }
 }
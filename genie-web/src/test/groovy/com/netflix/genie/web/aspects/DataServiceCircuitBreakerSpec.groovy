@@ -0,0 +1,126 @@
+/*
+ *
+ *  Copyright 2022 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.aspects
+
+import io.micrometer.core.instrument.MeterRegistry
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import spock.lang.Specification
+
+import java.time.Duration
+
+class DataServiceCircuitBreakerSpec extends Specification {
+    MeterRegistry registry
+
+    void setup() {
+        this.registry = new SimpleMeterRegistry()
+    }
+
+    def "Opens after consecutive saturation failures"() {
+        def breaker = new DataServiceCircuitBreaker(3, Duration.ofHours(1), this.registry)
+
+        when:
+        [true, true, false, true, true].each {
+            def generation = breaker.tryAcquirePermission()
+            assert generation != DataServiceCircuitBreaker.NOT_PERMITTED
+            breaker.onResult(generation, it)
+        }
+
+        then: "A success in between resets the count"
+        breaker.getState() == DataServiceCircuitBreaker.State.CLOSED
+
+        when:
+        breaker.onResult(breaker.tryAcquirePermission(), true)
+
+        then:
+        breaker.getState() == DataServiceCircuitBreaker.State.OPEN
+        breaker.tryAcquirePermission() == DataServiceCircuitBreaker.NOT_PERMITTED
+        this.registry.get(DataServiceCircuitBreaker.STATE_GAUGE_NAME).gauge().value() == 1
+        this.registry
+            .counter(DataServiceCircuitBreaker.TRANSITION_COUNTER_NAME, "state", "OPEN")
+            .count() == 1
+    }
+
+    def "Lets a single trial call through once the open duration has elapsed"() {
+        def breaker = new DataServiceCircuitBreaker(1, Duration.ZERO, this.registry)
+        breaker.onResult(breaker.tryAcquirePermission(), true)
+
+        when:
+        def trial = breaker.tryAcquirePermission()
+        def concurrent = breaker.tryAcquirePermission()
+
+        then:
+        trial != DataServiceCircuitBreaker.NOT_PERMITTED
+        concurrent == DataServiceCircuitBreaker.NOT_PERMITTED
+        breaker.getState() == DataServiceCircuitBreaker.State.HALF_OPEN
+
+        when: "The trial fails"
+        breaker.onResult(trial, true)
+
+        then:
+        breaker.getState() == DataServiceCircuitBreaker.State.OPEN
+
+        when: "The next trial succeeds"
+        breaker.onResult(breaker.tryAcquirePermission(), false)
+
+        then:
+        breaker.getState() == DataServiceCircuitBreaker.State.CLOSED
+        breaker.tryAcquirePermission() != DataServiceCircuitBreaker.NOT_PERMITTED
+        breaker.tryAcquirePermission() != DataServiceCircuitBreaker.NOT_PERMITTED
+    }
+
+    def "Ignores results of calls permitted before the last state transition"() {
+        def breaker = new DataServiceCircuitBreaker(1, Duration.ofHours(1), this.registry)
+        def slowCall = breaker.tryAcquirePermission()
+
+        when: "The breaker opens while a slow call is still running"
+        breaker.onResult(breaker.tryAcquirePermission(), true)
+
+        then:
+        breaker.getState() == DataServiceCircuitBreaker.State.OPEN
+
+        when: "The slow call succeeds"
+        breaker.onResult(slowCall, false)
+
+        then: "The breaker stays open"
+        breaker.getState() == DataServiceCircuitBreaker.State.OPEN
+        breaker.tryAcquirePermission() == DataServiceCircuitBreaker.NOT_PERMITTED
+        this.registry
+            .counter(DataServiceCircuitBreaker.TRANSITION_COUNTER_NAME, "state", "CLOSED")
+            .count() == 0
+    }
+
+    def "A stale result doesn't end the trial of a half open breaker"() {
+        def breaker = new DataServiceCircuitBreaker(1, Duration.ZERO, this.registry)
+        def slowCall = breaker.tryAcquirePermission()
+        breaker.onResult(breaker.tryAcquirePermission(), true)
+        def trial = breaker.tryAcquirePermission()
+
+        when:
+        breaker.onResult(slowCall, false)
+
+        then:
+        breaker.getState() == DataServiceCircuitBreaker.State.HALF_OPEN
+        breaker.tryAcquirePermission() == DataServiceCircuitBreaker.NOT_PERMITTED
+
+        when:
+        breaker.onResult(trial, false)
+
+        then:
+        breaker.getState() == DataServiceCircuitBreaker.State.CLOSED
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ *
+ *  Copyright 2022 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.aspects
+
+import io.micrometer.core.instrument.MeterRegistry
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import spock.lang.Specification
+
+import java.time.Duration
+import java.util.concurrent.TimeUnit
+
+class DataServiceConcurrencyLimiterSpec extends Specification {
+    static final long FAST = TimeUnit.MILLISECONDS.toNanos(1)
+    static final long SLOW = TimeUnit.SECONDS.toNanos(5)
+
+    MeterRegistry registry
+
+    void setup() {
+        this.registry = new SimpleMeterRegistry()
+    }
+
+    def "Rejects calls over the limit"() {
+        def limiter = new DataServiceConcurrencyLimiter(2, 1, 10, Duration.ofSeconds(1), 0.5, this.registry)
+
+        expect:
+        limiter.tryAcquire()
+        limiter.tryAcquire()
+        !limiter.tryAcquire()
+        limiter.getInFlight() == 2
+        this.registry.get(DataServiceConcurrencyLimiter.IN_FLIGHT_GAUGE_NAME).gauge().value() == 2
+
+        when:
+        limiter.cancel()
+
+        then:
+        limiter.getLimit() == 2
+        limiter.tryAcquire()
+    }
+
+    def "Shrinks the limit on slow or saturated calls and grows it back while busy"() {
+        def limiter = new DataServiceConcurrencyLimiter(8, 2, 10, Duration.ofSeconds(1), 0.5, this.registry)
+        def now = 0L
+        def call = { long latency, boolean saturated ->
+            limiter.tryAcquire()
+            def start = ++now
+            now += latency
+            limiter.release(start, now, saturated)
+        }
+
+        when:
+        call(SLOW, false)
+
+        then:
+        limiter.getLimit() == 4
+
+        when:
+        call(FAST, true)
+        call(FAST, true)
+
+        then: "Never below the minimum"
+        limiter.getLimit() == 2
+        this.registry.get(DataServiceConcurrencyLimiter.LIMIT_GAUGE_NAME).gauge().value() == 2
+
+        when:
+        100.times {
+            limiter.tryAcquire()
+            limiter.tryAcquire()
+            limiter.release(now, now + FAST, false)
+            limiter.release(now, now + FAST, false)
+            now += FAST
+        }
+
+        then:
+        limiter.getLimit() > 2
+        limiter.getLimit() <= 10
+        limiter.getInFlight() == 0
+    }
+
+    def "Reduces the limit at most once for calls which were in flight together"() {
+        def limiter = new DataServiceConcurrencyLimiter(8, 1, 10, Duration.ofSeconds(1), 0.5, this.registry)
+
+        when: "Several concurrent calls are slow"
+        4.times { limiter.tryAcquire() }
+        4.times { limiter.release(it, SLOW + it, false) }
+
+        then:
+        limiter.getLimit() == 4
+        limiter.getInFlight() == 0
+
+        when: "A call started before the reduction fails later on"
+        limiter.tryAcquire()
+        limiter.release(SLOW - 1, SLOW + 10, true)
+
+        then:
+        limiter.getLimit() == 4
+
+        when: "A call started after the reduction is slow too"
+        limiter.tryAcquire()
+        limiter.release(SLOW + 10, 2 * SLOW + 10, false)
+
+        then:
+        limiter.getLimit() == 2
+    }
+}
@@ -18,6 +18,7 @@
 package com.netflix.genie.web.aspects
 
 import com.netflix.genie.common.exceptions.GenieException
+import com.netflix.genie.common.internal.dtos.JobStatus
 import com.netflix.genie.common.internal.exceptions.unchecked.GenieIdAlreadyExistsException
 import com.netflix.genie.common.internal.exceptions.unchecked.GenieRuntimeException
 import com.netflix.genie.web.data.services.PersistenceService
@@ -26,24 +27,34 @@ import com.netflix.genie.web.dtos.JobSubmission
 import com.netflix.genie.web.exceptions.checked.IdAlreadyExistsException
 import com.netflix.genie.web.properties.DataServiceRetryProperties
 import org.aspectj.lang.ProceedingJoinPoint
+import io.micrometer.core.instrument.MeterRegistry
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
 import org.springframework.aop.aspectj.annotation.AspectJProxyFactory
+import org.springframework.dao.CannotAcquireLockException
 import org.springframework.dao.QueryTimeoutException
+import org.springframework.jdbc.CannotGetJdbcConnectionException
 import spock.lang.Specification
 
+import java.time.Duration
+import java.time.Instant
+
 /**
  * Unit tests for {@link DataServiceRetryAspect}.
  *
  * @author amajumdar
  */
 class DataServiceRetryAspectSpec extends Specification {
+    DataServiceRetryProperties dataServiceRetryProperties
+    MeterRegistry registry
     DataServiceRetryAspect dataServiceRetryAspect
 
     def setup() {
-        def dataServiceRetryProperties = new DataServiceRetryProperties()
+        dataServiceRetryProperties = new DataServiceRetryProperties()
         dataServiceRetryProperties.setNoOfRetries(2)
         dataServiceRetryProperties.setMaxInterval(10)
         dataServiceRetryProperties.setInitialInterval(10)
-        dataServiceRetryAspect = new DataServiceRetryAspect(dataServiceRetryProperties)
+        registry = new SimpleMeterRegistry()
+        dataServiceRetryAspect = new DataServiceRetryAspect(dataServiceRetryProperties, registry)
     }
 
     def testProfile() {
@@ -162,4 +173,118 @@ class DataServiceRetryAspectSpec extends Specification {
         thrown(IdAlreadyExistsException.class)
         1 * dataService.saveJobSubmission(jobSubmission) >> { throw new IdAlreadyExistsException("conflict") }
     }
+
+    def "Writes are only retried when the transaction can't have committed"() {
+        def id = '1'
+        def dataService = Mock(JpaPersistenceServiceImpl.class)
+        AspectJProxyFactory factory = new AspectJProxyFactory(dataService)
+        factory.addAspect(dataServiceRetryAspect)
+        PersistenceService dataServiceProxy = factory.getProxy()
+
+        when:
+        dataServiceProxy.deleteApplication(id)
+
+        then:
+        thrown(GenieRuntimeException.class)
+        1 * dataService.deleteApplication(id) >> { throw new QueryTimeoutException(null, null) }
+
+        when:
+        dataServiceProxy.deleteApplication(id)
+
+        then:
+        noExceptionThrown()
+        2 * dataService.deleteApplication(id) >> { throw new CannotAcquireLockException("locked") } >> null
+        registry.counter(DataServiceRetryAspect.RETRY_COUNTER_NAME, "operation", "WRITE").count() == 1
+
+        when:
+        dataServiceProxy.getJob(id)
+
+        then:
+        noExceptionThrown()
+        2 * dataService.getJob(id) >> { throw new QueryTimeoutException(null, null) } >> null
+        registry.counter(DataServiceRetryAspect.RETRY_COUNTER_NAME, "operation", "READ").count() == 1
+    }
+
+    def "Circuit breaker fails fast once the database is unavailable"() {
+        dataServiceRetryProperties.setNoOfRetries(1)
+        dataServiceRetryProperties.getCircuitBreaker().setEnabled(true)
+        dataServiceRetryProperties.getCircuitBreaker().setFailureThreshold(2)
+        dataServiceRetryProperties.getCircuitBreaker().setOpenDuration(Duration.ofHours(1))
+        def id = '1'
+        def dataService = Mock(JpaPersistenceServiceImpl.class)
+        AspectJProxyFactory factory = new AspectJProxyFactory(dataService)
+        factory.addAspect(new DataServiceRetryAspect(dataServiceRetryProperties, registry))
+        PersistenceService dataServiceProxy = factory.getProxy()
+
+        when: "A failure which isn't caused by the database being unavailable"
+        dataServiceProxy.getJob(id)
+
+        then:
+        thrown(GenieException.class)
+        1 * dataService.getJob(id) >> { throw new GenieException(404, "") }
+
+        when:
+        dataServiceProxy.getJob(id)
+
+        then:
+        thrown(GenieRuntimeException.class)
+        1 * dataService.getJob(id) >> { throw new CannotGetJdbcConnectionException("down") }
+
+        when:
+        dataServiceProxy.getJob(id)
+
+        then:
+        thrown(GenieRuntimeException.class)
+        1 * dataService.getJob(id) >> { throw new CannotGetJdbcConnectionException("down") }
+
+        when:
+        dataServiceProxy.getJob(id)
+
+        then:
+        thrown(GenieRuntimeException.class)
+        0 * dataService.getJob(id)
+        registry.counter(
+            DataServiceRetryAspect.REJECTED_COUNTER_NAME,
+            "operation",
+            "READ",
+            "reason",
+            "circuitBreakerOpen"
+        ).count() == 1
+    }
+
+    def "Maintenance operations don't reduce the concurrency limit"() {
+        dataServiceRetryProperties.getConcurrencyLimit().setEnabled(true)
+        dataServiceRetryProperties.getConcurrencyLimit().setInitialLimit(8)
+        dataServiceRetryProperties.getConcurrencyLimit().setMinLimit(1)
+        dataServiceRetryProperties.getConcurrencyLimit().setLatencyThreshold(Duration.ofMillis(1))
+        dataServiceRetryProperties.getConcurrencyLimit().setBackoffRatio(0.5)
+        def dataService = Mock(JpaPersistenceServiceImpl.class)
+        AspectJProxyFactory factory = new AspectJProxyFactory(dataService)
+        factory.addAspect(new DataServiceRetryAspect(dataServiceRetryProperties, registry))
+        PersistenceService dataServiceProxy = factory.getProxy()
+        def threshold = Instant.now()
+
+        when:
+        3.times {
+            dataServiceProxy.deleteJobsCreatedBetween(Instant.EPOCH, threshold, JobStatus.getActiveStatuses(), 10)
+        }
+
+        then:
+        3 * dataService.deleteJobsCreatedBetween(Instant.EPOCH, threshold, JobStatus.getActiveStatuses(), 10) >> {
+            Thread.sleep(5)
+            10L
+        }
+        registry.get(DataServiceConcurrencyLimiter.LIMIT_GAUGE_NAME).gauge().value() == 8
+        registry.get(DataServiceConcurrencyLimiter.IN_FLIGHT_GAUGE_NAME).gauge().value() == 0
+
+        when:
+        dataServiceProxy.getJobStatus('1')
+
+        then:
+        1 * dataService.getJobStatus('1') >> {
+            Thread.sleep(5)
+            JobStatus.RUNNING
+        }
+        registry.get(DataServiceConcurrencyLimiter.LIMIT_GAUGE_NAME).gauge().value() == 4
+    }
 }
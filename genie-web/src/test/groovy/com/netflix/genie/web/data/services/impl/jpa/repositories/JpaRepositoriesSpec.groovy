@@ -32,8 +32,11 @@ class JpaRepositoriesSpec extends Specification {
         def commandRepo = Mock(JpaCommandRepository)
         def criterionRepo = Mock(JpaCriterionRepository)
         def fileRepo = Mock(JpaFileRepository)
+        def hostJobCountersRepo = Mock(JpaHostJobCountersRepository)
+        def jobHistoryRepo = Mock(JpaJobHistoryRepository)
         def jobRepo = Mock(JpaJobRepository)
         def tagRepo = Mock(JpaTagRepository)
+        def userJobCountersRepo = Mock(JpaUserJobCountersRepository)
 
         when:
         def repositories = new JpaRepositories(
@@ -42,8 +45,11 @@ class JpaRepositoriesSpec extends Specification {
             commandRepo,
             criterionRepo,
             fileRepo,
+            hostJobCountersRepo,
+            jobHistoryRepo,
             jobRepo,
-            tagRepo
+            tagRepo,
+            userJobCountersRepo
         )
 
         then:
@@ -52,7 +58,10 @@ class JpaRepositoriesSpec extends Specification {
         repositories.getCommandRepository() == commandRepo
         repositories.getCriterionRepository() == criterionRepo
         repositories.getFileRepository() == fileRepo
+        repositories.getHostJobCountersRepository() == hostJobCountersRepo
+        repositories.getJobHistoryRepository() == jobHistoryRepo
         repositories.getJobRepository() == jobRepo
         repositories.getTagRepository() == tagRepo
+        repositories.getUserJobCountersRepository() == userJobCountersRepo
     }
 }
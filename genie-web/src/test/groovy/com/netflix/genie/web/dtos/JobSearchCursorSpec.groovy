@@ -0,0 +1,69 @@
+/*
+ *
+ *  Copyright 2022 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.dtos
+
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import java.nio.charset.StandardCharsets
+import java.time.Instant
+
+/**
+ * Specifications for {@link JobSearchCursor}.
+ */
+class JobSearchCursorSpec extends Specification {
+
+    def "can round trip through a token"() {
+        def created = Instant.now()
+        def id = 3_452L
+
+        when:
+        def cursor = new JobSearchCursor(created, id)
+        def token = cursor.toToken()
+        def parsed = JobSearchCursor.fromToken(token)
+
+        then:
+        parsed == cursor
+        parsed.hashCode() == cursor.hashCode()
+        parsed.getCreated() == created
+        parsed.getId() == id
+        !token.contains("=")
+    }
+
+    @Unroll
+    def "invalid token #token is rejected"() {
+        when:
+        JobSearchCursor.fromToken(token)
+
+        then:
+        thrown(IllegalArgumentException)
+
+        where:
+        token << [
+            "not base64!",
+            encode("1234"),
+            encode("1234:0"),
+            encode("a:b:c"),
+            encode("1:2:3:4")
+        ]
+    }
+
+    private static String encode(final String value) {
+        return Base64.getUrlEncoder().encodeToString(value.getBytes(StandardCharsets.UTF_8))
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ *
+ *  Copyright 2022 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.dtos
+
+import spock.lang.Specification
+
+class ShardAssignmentSpec extends Specification {
+
+    def "Every key is owned by exactly one member"() {
+        def members = ["node1", "node2", "node3"]
+        def assignments = members.collect { new ShardAssignment(it, members) }
+        def keys = (1..1000).collect { UUID.randomUUID().toString() }
+
+        expect:
+        keys.every { key -> assignments.count { it.isAssigned(key) } == 1 }
+        assignments.every { assignment -> keys.count { assignment.isAssigned(it) } > 200 }
+    }
+
+    def "Only the keys of a departed member move"() {
+        def before = ["node1", "node2", "node3"]
+        def after = ["node1", "node2"]
+        def keys = (1..1000).collect { UUID.randomUUID().toString() }
+
+        def departed = new ShardAssignment("node3", before)
+        def remainingBefore = new ShardAssignment("node1", before)
+        def remainingAfter = new ShardAssignment("node1", after)
+
+        expect:
+        keys.every { key ->
+            departed.isAssigned(key) || remainingBefore.isAssigned(key) == remainingAfter.isAssigned(key)
+        }
+    }
+
+    def "Nothing is assigned to a node which isn't a member"() {
+        def assignment = new ShardAssignment("node4", ["node1", "node2"])
+
+        expect:
+        !assignment.isAssigned("key")
+        assignment.getMemberId() == "node4"
+        assignment.getMembers() as List == ["node1", "node2"]
+    }
+
+    def "Can test equality"() {
+        expect:
+        new ShardAssignment("node1", ["node2", "node1"]) == new ShardAssignment("node1", ["node1", "node2"])
+        new ShardAssignment("node1", ["node1"]) != new ShardAssignment("node2", ["node1"])
+        new ShardAssignment("node1", ["node2", "node1"]).hashCode() ==
+            new ShardAssignment("node1", ["node1", "node2"]).hashCode()
+    }
+}
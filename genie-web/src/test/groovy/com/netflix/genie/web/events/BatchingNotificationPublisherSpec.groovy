@@ -0,0 +1,217 @@
+/*
+ *
+ *  Copyright 2022 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.events
+
+import com.netflix.genie.common.external.util.GenieObjectMapper
+import com.netflix.genie.web.properties.SNSNotificationsProperties
+import io.micrometer.core.instrument.MeterRegistry
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import org.springframework.scheduling.TaskScheduler
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import java.nio.file.Files
+import java.nio.file.Path
+import java.time.Duration
+import java.time.Instant
+import java.util.concurrent.ScheduledFuture
+
+class BatchingNotificationPublisherSpec extends Specification {
+    InMemoryNotificationSink sink
+    SNSNotificationsProperties.Batch properties
+    TaskScheduler taskScheduler
+    ScheduledFuture flushFuture
+    MeterRegistry registry
+
+    @TempDir
+    Path spoolDirectory
+
+    void setup() {
+        this.sink = new InMemoryNotificationSink()
+        this.properties = new SNSNotificationsProperties.Batch()
+        this.properties.setMaxBatchSize(3)
+        this.properties.setMaxQueueSize(5)
+        this.taskScheduler = Mock(TaskScheduler)
+        this.flushFuture = Mock(ScheduledFuture)
+        this.registry = new SimpleMeterRegistry()
+    }
+
+    def "Flushes queued notifications in batches"() {
+        BatchingNotificationPublisher publisher
+
+        when:
+        publisher = this.createPublisher()
+
+        then:
+        1 * this.taskScheduler.scheduleWithFixedDelay(_ as Runnable, Duration.ofSeconds(1)) >> this.flushFuture
+
+        when:
+        publisher.enqueue(notification("a", "1"))
+        publisher.enqueue(notification("b", "1"))
+
+        then:
+        0 * this.taskScheduler.schedule(_ as Runnable, _ as Instant)
+        publisher.getQueueSize() == 2
+
+        when: "A full batch is queued"
+        publisher.enqueue(notification("c", "1"))
+        publisher.enqueue(notification("d", "1"))
+
+        then: "A flush is scheduled right away, only once"
+        1 * this.taskScheduler.schedule(_ as Runnable, _ as Instant)
+
+        when:
+        publisher.flush()
+
+        then:
+        this.sink.getBatches().collect { it.size() } == [3, 1]
+        this.sink.getDelivered().collect { it.getKey() } == ["a", "b", "c", "d"]
+        publisher.getQueueSize() == 0
+        this.registry.counter(BatchingNotificationPublisher.DELIVERED_COUNTER_NAME).count() == 4
+        this.registry.get(BatchingNotificationPublisher.QUEUE_SIZE_GAUGE_NAME).gauge().value() == 0
+    }
+
+    def "Coalesces notifications with the same key when enabled"() {
+        this.properties.setCoalesce(coalesce)
+        def publisher = this.createPublisher()
+
+        when:
+        publisher.enqueue(notification("a", "1"))
+        publisher.enqueue(notification("b", "1"))
+        publisher.enqueue(notification("a", "2"))
+        publisher.flush()
+
+        then:
+        this.sink.getDelivered().collect { it.getKey() + it.getMessage() } == expected
+        this.registry.counter(BatchingNotificationPublisher.COALESCED_COUNTER_NAME).count() == coalesced
+
+        where:
+        coalesce | expected             | coalesced
+        true     | ["a2", "b1"]         | 1
+        false    | ["a1", "b1", "a2"]   | 0
+    }
+
+    def "Undelivered notifications are retried on the next flush"() {
+        this.properties.setCoalesce(true)
+        def publisher = this.createPublisher()
+        this.sink.setFailures(1)
+
+        when:
+        publisher.enqueue(notification("a", "1"))
+        publisher.enqueue(notification("b", "1"))
+        publisher.flush()
+
+        then:
+        this.sink.getBatches().isEmpty()
+        publisher.getQueueSize() == 2
+        this.registry.counter(BatchingNotificationPublisher.UNDELIVERED_COUNTER_NAME).count() == 2
+
+        when: "A newer notification for the same job arrives before the retry"
+        publisher.enqueue(notification("a", "2"))
+        publisher.flush()
+
+        then:
+        this.sink.getDelivered().collect { it.getKey() + it.getMessage() } == ["a2", "b1"]
+    }
+
+    def "Undelivered notifications are retried ahead of notifications queued since"() {
+        def publisher = this.createPublisher()
+        this.sink.setFailures(1)
+
+        when:
+        publisher.enqueue(notification("a", "1"))
+        publisher.enqueue(notification("b", "1"))
+        publisher.flush()
+        publisher.enqueue(notification("a", "2"))
+        publisher.flush()
+
+        then:
+        this.sink.getDelivered().collect { it.getKey() + it.getMessage() } == ["a1", "b1", "a2"]
+    }
+
+    def "Drops notifications when the queue is full and there is no spool directory"() {
+        def publisher = this.createPublisher()
+
+        when:
+        (1..7).each { publisher.enqueue(notification(String.valueOf(it), "1")) }
+
+        then:
+        publisher.getQueueSize() == 5
+        this.registry.counter(BatchingNotificationPublisher.DROPPED_COUNTER_NAME).count() == 2
+    }
+
+    def "Spools overflow to disk and restores it once the queue drains"() {
+        this.properties.setSpoolDirectory(this.spoolDirectory.toString())
+        def publisher = this.createPublisher()
+
+        when:
+        (1..7).each { publisher.enqueue(notification(String.valueOf(it), "message " + it)) }
+
+        then:
+        publisher.getQueueSize() == 5
+        this.registry.counter(BatchingNotificationPublisher.SPOOLED_COUNTER_NAME).count() == 2
+        Files
+            .readAllLines(this.spoolDirectory.resolve(BatchingNotificationPublisher.ACTIVE_SPOOL_FILE_NAME))
+            .size() == 2
+
+        when:
+        publisher.flush()
+
+        then:
+        this.sink.getDelivered().collect { it.getKey() } == ["1", "2", "3", "4", "5", "6", "7"]
+        this.sink.getDelivered().last().getMessage() == "message 7"
+        Files.list(this.spoolDirectory).count() == 0
+    }
+
+    def "Spools queued notifications on shutdown so they survive a restart"() {
+        this.properties.setSpoolDirectory(this.spoolDirectory.toString())
+        def publisher = this.createPublisher()
+        this.sink.setFailures(1)
+
+        when:
+        publisher.enqueue(notification("a", "1"))
+        publisher.shutdown()
+
+        then:
+        1 * this.flushFuture.cancel(false)
+        publisher.getQueueSize() == 0
+        this.sink.getBatches().isEmpty()
+
+        when:
+        def restarted = this.createPublisher()
+        restarted.flush()
+
+        then:
+        this.sink.getDelivered() == [notification("a", "1")]
+    }
+
+    private BatchingNotificationPublisher createPublisher() {
+        this.taskScheduler.scheduleWithFixedDelay(_ as Runnable, _ as Duration) >> this.flushFuture
+        return new BatchingNotificationPublisher(
+            this.sink,
+            this.properties,
+            this.taskScheduler,
+            this.registry,
+            GenieObjectMapper.getMapper()
+        )
+    }
+
+    private static QueuedNotification notification(final String key, final String message) {
+        return new QueuedNotification(key, message)
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ *
+ *  Copyright 2022 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.events
+
+/**
+ * A local stand-in for a real {@link NotificationSink} which records the batches it is asked to deliver.
+ *
+ * @since 4.4.0
+ */
+class InMemoryNotificationSink implements NotificationSink {
+    final List<List<QueuedNotification>> batches = []
+
+    /**
+     * Number of upcoming batches for which every notification will be reported as undelivered.
+     */
+    int failures
+
+    @Override
+    synchronized List<QueuedNotification> publish(final List<QueuedNotification> notifications) {
+        if (this.failures > 0) {
+            this.failures--
+            return new ArrayList<>(notifications)
+        }
+        this.batches.add(new ArrayList<>(notifications))
+        return []
+    }
+
+    synchronized List<QueuedNotification> getDelivered() {
+        return this.batches.flatten() as List<QueuedNotification>
+    }
+}
@@ -146,6 +146,39 @@ class JobStateChangeSNSPublisherSpec extends Specification {
         JobStatus.INIT | _
     }
 
+    def "Queue event for batched delivery"() {
+        setup:
+        BatchingNotificationPublisher batchingPublisher = Mock(BatchingNotificationPublisher)
+        this.publisher = new JobStateChangeSNSPublisher(snsClient, snsProperties, registry, mapper, batchingPublisher)
+        QueuedNotification notification = null
+
+        when:
+        this.publisher.onApplicationEvent(event)
+
+        then:
+        1 * event.getJobId() >> jobId
+        1 * event.getPreviousStatus() >> JobStatus.INIT
+        1 * event.getNewStatus() >> JobStatus.RUNNING
+        1 * snsProperties.isEnabled() >> true
+        1 * snsProperties.getTopicARN() >> topicARN
+        1 * snsProperties.getAdditionalEventKeys() >> extraKeysMap
+        0 * snsClient.publish(_, _)
+        1 * batchingPublisher.enqueue(_ as QueuedNotification) >> {
+            args -> notification = args[0] as QueuedNotification
+        }
+        1 * registry.counter("genie.notifications.sns.publish.counter", _ as Set) >> counter
+        1 * counter.increment()
+
+        expect:
+        notification.getKey() == "JOB_STATUS_CHANGE:" + jobId
+        Map<String, Object> parsedMessage = GenieObjectMapper.getMapper().readValue(
+            notification.getMessage(),
+            Map.class
+        )
+        parsedMessage.get("type") as String == "JOB_STATUS_CHANGE"
+        (parsedMessage.get("details") as Map<String, String>).get("toState") == JobStatus.RUNNING.name()
+    }
+
     def "Publish event exception"() {
         setup:
         Exception e = new AuthorizationErrorException("...")
@@ -0,0 +1,103 @@
+/*
+ *
+ *  Copyright 2022 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.events
+
+import com.amazonaws.services.sns.AmazonSNS
+import com.amazonaws.services.sns.model.BatchResultErrorEntry
+import com.amazonaws.services.sns.model.InternalErrorException
+import com.amazonaws.services.sns.model.PublishBatchRequest
+import com.amazonaws.services.sns.model.PublishBatchResult
+import com.netflix.genie.web.properties.SNSNotificationsProperties
+import spock.lang.Specification
+
+class SNSNotificationSinkSpec extends Specification {
+    AmazonSNS snsClient
+    SNSNotificationsProperties properties
+    SNSNotificationSink sink
+    String topicARN
+
+    void setup() {
+        this.snsClient = Mock(AmazonSNS)
+        this.properties = new SNSNotificationsProperties()
+        this.topicARN = UUID.randomUUID().toString()
+        this.properties.setTopicARN(this.topicARN)
+        this.sink = new SNSNotificationSink(this.snsClient, this.properties)
+    }
+
+    def "Drops notifications if no topic"() {
+        this.properties.setTopicARN("")
+
+        when:
+        def undelivered = this.sink.publish(notifications(3))
+
+        then:
+        0 * this.snsClient.publishBatch(_)
+        undelivered.isEmpty()
+    }
+
+    def "Publishes in requests of at most 10 entries"() {
+        List<PublishBatchRequest> requests = []
+
+        when:
+        def undelivered = this.sink.publish(notifications(23))
+
+        then:
+        3 * this.snsClient.publishBatch(_ as PublishBatchRequest) >> {
+            PublishBatchRequest request ->
+                requests.add(request)
+                return new PublishBatchResult()
+        }
+        undelivered.isEmpty()
+        requests.collect { it.getPublishBatchRequestEntries().size() } == [10, 10, 3]
+        requests.every { it.getTopicArn() == this.topicARN }
+        requests[2].getPublishBatchRequestEntries().collect { it.getMessage() } == ["20", "21", "22"]
+    }
+
+    def "Splits requests which would exceed the maximum payload size"() {
+        def large = "x" * (100 * 1024)
+        def notifications = (0..<4).collect { new QueuedNotification(String.valueOf(it), large) }
+
+        when:
+        this.sink.publish(notifications)
+
+        then:
+        2 * this.snsClient.publishBatch({ it.getPublishBatchRequestEntries().size() == 2 }) >> new PublishBatchResult()
+    }
+
+    def "Returns notifications which can be retried"() {
+        def notifications = notifications(12)
+
+        when:
+        def undelivered = this.sink.publish(notifications)
+
+        then:
+        1 * this.snsClient.publishBatch({ it.getPublishBatchRequestEntries().size() == 10 }) >> new PublishBatchResult()
+            .withFailed(
+                new BatchResultErrorEntry().withId("1").withCode("InternalError").withSenderFault(false),
+                new BatchResultErrorEntry().withId("2").withCode("InvalidParameter").withSenderFault(true)
+            )
+        1 * this.snsClient.publishBatch({ it.getPublishBatchRequestEntries().size() == 2 }) >> {
+            throw new InternalErrorException("...")
+        }
+        undelivered == [notifications[1], notifications[10], notifications[11]]
+    }
+
+    private static List<QueuedNotification> notifications(final int count) {
+        return (0..<count).collect { new QueuedNotification(String.valueOf(it), String.valueOf(it)) }
+    }
+}
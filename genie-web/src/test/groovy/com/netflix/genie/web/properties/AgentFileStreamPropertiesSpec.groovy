@@ -17,6 +17,7 @@
  */
 package com.netflix.genie.web.properties
 
+import org.springframework.util.unit.DataSize
 import spock.lang.Specification
 
 import java.time.Duration
@@ -34,6 +35,9 @@ class AgentFileStreamPropertiesSpec extends Specification {
         props.getStalledTransferCheckInterval() == Duration.ofSeconds(5)
         props.getWriteRetryDelay() == Duration.ofMillis(300)
         props.getManifestCacheExpiration() == Duration.ofSeconds(30)
+        props.getMaxChunksInFlight() == 8
+        props.getMaxTransferBufferSize() == DataSize.ofMegabytes(8)
+        props.getMaxTotalBufferSize() == DataSize.ofMegabytes(256)
 
         when:
         props.setMaxConcurrentTransfers(3)
@@ -42,6 +46,9 @@ class AgentFileStreamPropertiesSpec extends Specification {
         props.setStalledTransferCheckInterval(Duration.ofSeconds(10))
         props.setWriteRetryDelay(Duration.ofMillis(600))
         props.setManifestCacheExpiration(Duration.ofSeconds(60))
+        props.setMaxChunksInFlight(16)
+        props.setMaxTransferBufferSize(DataSize.ofMegabytes(16))
+        props.setMaxTotalBufferSize(DataSize.ofGigabytes(1))
 
         then:
         props.getMaxConcurrentTransfers() == 3
@@ -50,5 +57,8 @@ class AgentFileStreamPropertiesSpec extends Specification {
         props.getStalledTransferCheckInterval() == Duration.ofSeconds(10)
         props.getWriteRetryDelay() == Duration.ofMillis(600)
         props.getManifestCacheExpiration() == Duration.ofSeconds(60)
+        props.getMaxChunksInFlight() == 16
+        props.getMaxTransferBufferSize() == DataSize.ofMegabytes(16)
+        props.getMaxTotalBufferSize() == DataSize.ofGigabytes(1)
     }
 }
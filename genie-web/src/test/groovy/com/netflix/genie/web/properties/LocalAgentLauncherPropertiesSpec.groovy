@@ -51,6 +51,11 @@ class LocalAgentLauncherPropertiesSpec extends Specification {
         properties.getHostInfoExpireAfter() == Duration.ofMinutes(1L)
         properties.getHostInfoRefreshAfter() == Duration.ofSeconds(30L)
         properties.getServerHostname() == "127.0.0.1"
+        !properties.isStandbyPoolEnabled()
+        properties.getStandbyPoolMinSize() == 1
+        properties.getStandbyPoolMaxSize() == 4
+        properties.getStandbyPoolRefreshInterval() == Duration.ofSeconds(10L)
+        properties.getStandbyAgentMemory() == 512L
     }
 
     def "Setters and getters work properly"() {
@@ -75,6 +80,11 @@ class LocalAgentLauncherPropertiesSpec extends Specification {
         properties.setHostInfoExpireAfter(expireAfter)
         properties.setHostInfoRefreshAfter(refreshAfter)
         properties.setServerHostname("genie.netflix.net")
+        properties.setStandbyPoolEnabled(true)
+        properties.setStandbyPoolMinSize(0)
+        properties.setStandbyPoolMaxSize(8)
+        properties.setStandbyPoolRefreshInterval(refreshAfter)
+        properties.setStandbyAgentMemory(1_024L)
 
         then:
         !properties.isEnabled()
@@ -88,5 +98,10 @@ class LocalAgentLauncherPropertiesSpec extends Specification {
         properties.getHostInfoExpireAfter() == expireAfter
         properties.getHostInfoRefreshAfter() == refreshAfter
         properties.getServerHostname() == "genie.netflix.net"
+        properties.isStandbyPoolEnabled()
+        properties.getStandbyPoolMinSize() == 0
+        properties.getStandbyPoolMaxSize() == 8
+        properties.getStandbyPoolRefreshInterval() == refreshAfter
+        properties.getStandbyAgentMemory() == 1_024L
     }
 }
@@ -0,0 +1,60 @@
+/*
+ *
+ *  Copyright 2022 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.properties
+
+import spock.lang.Specification
+
+import java.time.Duration
+
+class ReplicaDataSourcePropertiesSpec extends Specification {
+
+    def "Defaults, setters, getters"() {
+        when:
+        ReplicaDataSourceProperties props = new ReplicaDataSourceProperties()
+
+        then:
+        !props.isEnabled()
+        props.getUrl() == null
+        props.getUsername() == null
+        props.getPassword() == null
+        props.getDriverClassName() == null
+        props.getLagQuery() == null
+        props.getMaxLag() == Duration.ofSeconds(10)
+        props.getCheckInterval() == Duration.ofSeconds(5)
+
+        when:
+        props.setEnabled(true)
+        props.setUrl("jdbc:postgresql://replica:5432/genie")
+        props.setUsername("genie")
+        props.setPassword("secret")
+        props.setDriverClassName("org.postgresql.Driver")
+        props.setLagQuery("SELECT 0")
+        props.setMaxLag(Duration.ofSeconds(30))
+        props.setCheckInterval(Duration.ofSeconds(1))
+
+        then:
+        props.isEnabled()
+        props.getUrl() == "jdbc:postgresql://replica:5432/genie"
+        props.getUsername() == "genie"
+        props.getPassword() == "secret"
+        props.getDriverClassName() == "org.postgresql.Driver"
+        props.getLagQuery() == "SELECT 0"
+        props.getMaxLag() == Duration.ofSeconds(30)
+        props.getCheckInterval() == Duration.ofSeconds(1)
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ *
+ *  Copyright 2022 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.properties
+
+import spock.lang.Specification
+
+import java.time.Duration
+
+class ResourceCatalogPropertiesSpec extends Specification {
+    def "testDefaultsSettersAndGetters"() {
+        setup:
+        ResourceCatalogProperties properties = new ResourceCatalogProperties()
+
+        expect:
+        !properties.isEnabled()
+        properties.getRefreshInterval() == Duration.ofSeconds(10)
+        properties.getFullRefreshInterval() == Duration.ofMinutes(30)
+        properties.getUpdateOverlap() == Duration.ofMinutes(1)
+
+        when:
+        properties.setEnabled(true)
+        properties.setRefreshInterval(Duration.ofSeconds(5))
+        properties.setFullRefreshInterval(Duration.ofHours(1))
+        properties.setUpdateOverlap(Duration.ofSeconds(30))
+
+        then:
+        properties.isEnabled()
+        properties.getRefreshInterval() == Duration.ofSeconds(5)
+        properties.getFullRefreshInterval() == Duration.ofHours(1)
+        properties.getUpdateOverlap() == Duration.ofSeconds(30)
+    }
+}
@@ -19,6 +19,8 @@ package com.netflix.genie.web.properties
 
 import spock.lang.Specification
 
+import java.time.Duration
+
 class SNSNotificationsPropertiesSpec extends Specification {
     SNSNotificationsProperties properties
 
@@ -31,6 +33,12 @@ class SNSNotificationsPropertiesSpec extends Specification {
         !this.properties.isEnabled()
         this.properties.getTopicARN() == null
         this.properties.getAdditionalEventKeys().isEmpty()
+        !this.properties.getBatch().isEnabled()
+        this.properties.getBatch().getMaxBatchSize() == 10
+        this.properties.getBatch().getMaxQueueSize() == 10_000
+        this.properties.getBatch().getFlushInterval() == Duration.ofSeconds(1)
+        !this.properties.getBatch().isCoalesce()
+        this.properties.getBatch().getSpoolDirectory() == null
     }
 
     def "Set and Get"() {
@@ -39,11 +47,23 @@ class SNSNotificationsPropertiesSpec extends Specification {
         this.properties.setTopicARN("foo")
         this.properties.getAdditionalEventKeys().put("foo", "bar")
         this.properties.getAdditionalEventKeys().put("null", null)
+        this.properties.getBatch().setEnabled(true)
+        this.properties.getBatch().setMaxBatchSize(5)
+        this.properties.getBatch().setMaxQueueSize(100)
+        this.properties.getBatch().setFlushInterval(Duration.ofMillis(250))
+        this.properties.getBatch().setCoalesce(true)
+        this.properties.getBatch().setSpoolDirectory("/tmp/spool")
 
         then:
         this.properties.isEnabled()
         this.properties.getTopicARN() == "foo"
         this.properties.getAdditionalEventKeys().get("foo") == "bar"
         this.properties.getAdditionalEventKeys().get("null") == null
+        this.properties.getBatch().isEnabled()
+        this.properties.getBatch().getMaxBatchSize() == 5
+        this.properties.getBatch().getMaxQueueSize() == 100
+        this.properties.getBatch().getFlushInterval() == Duration.ofMillis(250)
+        this.properties.getBatch().isCoalesce()
+        this.properties.getBatch().getSpoolDirectory() == "/tmp/spool"
     }
 }
@@ -0,0 +1,41 @@
+/*
+ *
+ *  Copyright 2022 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.properties
+
+import spock.lang.Specification
+
+import java.time.Duration
+
+class SharedEntityCachePropertiesSpec extends Specification {
+    def "testDefaultsSettersAndGetters"() {
+        setup:
+        SharedEntityCacheProperties properties = new SharedEntityCacheProperties()
+
+        expect:
+        properties.getMaxSize() == 10_000L
+        properties.getExpireAfterWrite() == Duration.ofMinutes(10)
+
+        when:
+        properties.setMaxSize(0L)
+        properties.setExpireAfterWrite(Duration.ofMinutes(1))
+
+        then:
+        properties.getMaxSize() == 0L
+        properties.getExpireAfterWrite() == Duration.ofMinutes(1)
+    }
+}
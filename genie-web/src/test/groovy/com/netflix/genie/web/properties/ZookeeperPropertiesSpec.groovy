@@ -28,13 +28,16 @@ class ZookeeperPropertiesSpec extends Specification {
         then:
         zkProperties.getLeaderPath() == "/genie/leader/"
         zkProperties.getDiscoveryPath() == "/genie/agents/"
+        zkProperties.getShardPath() == "/genie/shards"
 
         when:
         zkProperties.setLeaderPath("/genie/my-cluster/leader/")
         zkProperties.setDiscoveryPath("/genie/my-cluster/agents/")
+        zkProperties.setShardPath("/genie/my-cluster/shards")
 
         then:
         zkProperties.getLeaderPath() == "/genie/my-cluster/leader/"
         zkProperties.getDiscoveryPath() == "/genie/my-cluster/agents/"
+        zkProperties.getShardPath() == "/genie/my-cluster/shards"
     }
 }
@@ -17,11 +17,13 @@
  */
 package com.netflix.genie.web.services.impl
 
+import brave.Span
 import brave.SpanCustomizer
 import brave.Tracer
 import com.fasterxml.jackson.databind.JsonNode
 import com.netflix.genie.common.dto.JobStatusMessages
 import com.netflix.genie.common.internal.dtos.ArchiveStatus
+import com.netflix.genie.common.internal.dtos.JobMetadata
 import com.netflix.genie.common.internal.dtos.JobRequest
 import com.netflix.genie.common.internal.dtos.JobRequestMetadata
 import com.netflix.genie.common.internal.dtos.JobStatus
@@ -39,15 +41,23 @@ import com.netflix.genie.web.dtos.ResolvedJob
 import com.netflix.genie.web.dtos.ResourceSelectionResult
 import com.netflix.genie.web.exceptions.checked.AgentLaunchException
 import com.netflix.genie.web.exceptions.checked.IdAlreadyExistsException
+import com.netflix.genie.web.exceptions.checked.JobLaunchQueueFullException
 import com.netflix.genie.web.exceptions.checked.NotFoundException
 import com.netflix.genie.web.exceptions.checked.ResourceSelectionException
+import com.netflix.genie.web.properties.JobLaunchQueueProperties
 import com.netflix.genie.web.selectors.AgentLauncherSelectionContext
 import com.netflix.genie.web.selectors.AgentLauncherSelector
 import com.netflix.genie.web.services.JobResolverService
+import io.micrometer.core.instrument.MeterRegistry
 import io.micrometer.core.instrument.simple.SimpleMeterRegistry
 import spock.lang.Specification
 import spock.lang.Unroll
 
+import java.time.Duration
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.RejectedExecutionException
+import java.util.concurrent.TimeUnit
+
 /**
  * Specifications for {@link JobLaunchServiceImpl}.
  *
@@ -419,4 +429,167 @@ class JobLaunchServiceImplSpec extends Specification {
         noExceptionThrown()
         jobStatus == JobStatus.RUNNING
     }
+
+    def "queued launches return once saved and launch on a worker"() {
+        def queueProperties = new JobLaunchQueueProperties()
+        queueProperties.setEnabled(true)
+        queueProperties.setCapacity(1)
+        queueProperties.setWorkers(1)
+        queueProperties.setShutdownTimeout(Duration.ofSeconds(5))
+        def registry = new SimpleMeterRegistry()
+        def service = this.createQueuedService(queueProperties, registry)
+        def blockingJobId = UUID.randomUUID().toString()
+        def queuedJobId = UUID.randomUUID().toString()
+        def resolvingBlockingJob = new CountDownLatch(1)
+        def releaseBlockingJob = new CountDownLatch(1)
+        def launched = new CountDownLatch(2)
+        def agentLauncher = Mock(AgentLauncher) {
+            launchAgent(_ as ResolvedJob, _) >> {
+                launched.countDown()
+                return Optional.empty()
+            }
+        }
+        def selectionResult = Mock(ResourceSelectionResult) {
+            getSelectedResource() >> Optional.of(agentLauncher)
+        }
+        this.agentLauncherSelector.getAgentLaunchers() >> [agentLauncher]
+        this.agentLauncherSelector.select(_ as AgentLauncherSelectionContext) >> selectionResult
+        this.persistenceService.updateJobStatus(_ as String, JobStatus.RESOLVED, JobStatus.ACCEPTED, _ as String) >>
+            JobStatus.ACCEPTED
+        this.jobResolverService.resolveJob(blockingJobId) >> {
+            resolvingBlockingJob.countDown()
+            releaseBlockingJob.await(10, TimeUnit.SECONDS)
+            return Mock(ResolvedJob)
+        }
+        this.jobResolverService.resolveJob(queuedJobId) >> Mock(ResolvedJob)
+        def blockingSubmission = this.createJobSubmission()
+        def queuedSubmission = this.createJobSubmission()
+        def rejectedSubmission = this.createJobSubmission()
+
+        when: "The first job is picked up by the only worker"
+        def savedJobId = service.launchJob(blockingSubmission)
+
+        then:
+        1 * this.persistenceService.saveJobSubmission(blockingSubmission) >> blockingJobId
+        savedJobId == blockingJobId
+        resolvingBlockingJob.await(10, TimeUnit.SECONDS)
+
+        when: "The second job has to wait in the queue"
+        savedJobId = service.launchJob(queuedSubmission)
+
+        then:
+        1 * this.persistenceService.saveJobSubmission(queuedSubmission) >> queuedJobId
+        savedJobId == queuedJobId
+        registry.get("genie.services.jobLaunch.queue.size.gauge").gauge().value() == 1.0d
+
+        when: "The queue is full"
+        service.launchJob(rejectedSubmission)
+
+        then:
+        0 * this.persistenceService.saveJobSubmission(rejectedSubmission)
+        thrown(JobLaunchQueueFullException)
+        registry.get("genie.services.jobLaunch.queue.rejected.counter").counter().count() == 1.0d
+
+        when: "The worker frees up"
+        releaseBlockingJob.countDown()
+
+        then:
+        launched.await(10, TimeUnit.SECONDS)
+
+        cleanup:
+        service.shutdown()
+    }
+
+    def "jobs still queued on shutdown are failed"() {
+        def queueProperties = new JobLaunchQueueProperties()
+        queueProperties.setEnabled(true)
+        queueProperties.setWorkers(1)
+        queueProperties.setShutdownTimeout(Duration.ofMillis(10))
+        def service = this.createQueuedService(queueProperties, new SimpleMeterRegistry())
+        def blockingJobId = UUID.randomUUID().toString()
+        def queuedJobId = UUID.randomUUID().toString()
+        def rejectedJobId = UUID.randomUUID().toString()
+        def resolvingBlockingJob = new CountDownLatch(1)
+        def releaseBlockingJob = new CountDownLatch(1)
+        this.jobResolverService.resolveJob(blockingJobId) >> {
+            resolvingBlockingJob.countDown()
+            releaseBlockingJob.await(10, TimeUnit.SECONDS)
+            throw new GenieJobResolutionException("fail")
+        }
+        this.persistenceService.updateJobStatus(blockingJobId, _, _, _) >> JobStatus.FAILED
+        this.persistenceService.saveJobSubmission(_ as JobSubmission) >>> [blockingJobId, queuedJobId, rejectedJobId]
+
+        when:
+        service.launchJob(this.createJobSubmission())
+        resolvingBlockingJob.await(10, TimeUnit.SECONDS)
+        service.launchJob(this.createJobSubmission())
+        service.shutdown()
+
+        then:
+        0 * this.jobResolverService.resolveJob(queuedJobId)
+        1 * this.persistenceService.updateJobArchiveStatus(queuedJobId, ArchiveStatus.NO_FILES)
+        1 * this.persistenceService.updateJobStatus(
+            queuedJobId,
+            JobStatus.RESERVED,
+            JobStatus.FAILED,
+            JobLaunchServiceImpl.SHUTDOWN_MESSAGE
+        ) >> JobStatus.FAILED
+
+        when:
+        service.launchJob(this.createJobSubmission())
+
+        then:
+        1 * this.persistenceService.updateJobStatus(
+            rejectedJobId,
+            JobStatus.RESERVED,
+            JobStatus.FAILED,
+            JobLaunchServiceImpl.SHUTDOWN_MESSAGE
+        ) >> JobStatus.FAILED
+        def e = thrown(JobLaunchQueueFullException)
+        e.getCause() instanceof RejectedExecutionException
+
+        cleanup:
+        releaseBlockingJob.countDown()
+    }
+
+    private JobLaunchServiceImpl createQueuedService(
+        JobLaunchQueueProperties queueProperties,
+        MeterRegistry registry
+    ) {
+        def customizer = Mock(SpanCustomizer)
+        def span = Mock(Span)
+        span.name(_ as String) >> span
+        span.start() >> span
+        span.customizer() >> customizer
+        this.tracer.currentSpanCustomizer() >> this.span
+        this.tracer.nextSpan() >> span
+        return new JobLaunchServiceImpl(
+            Mock(DataServices) {
+                getPersistenceService() >> this.persistenceService
+            },
+            this.jobResolverService,
+            this.agentLauncherSelector,
+            new BraveTracingComponents(
+                this.tracer,
+                Mock(BraveTracePropagator),
+                Mock(BraveTracingCleanup),
+                Mock(BraveTagAdapter)
+            ),
+            registry,
+            queueProperties
+        )
+    }
+
+    private JobSubmission createJobSubmission() {
+        def jobMetadata = Mock(JobMetadata) {
+            getUser() >> UUID.randomUUID().toString()
+        }
+        def jobRequest = Mock(JobRequest) {
+            getMetadata() >> jobMetadata
+        }
+        return Mock(JobSubmission) {
+            getJobRequest() >> jobRequest
+            getJobRequestMetadata() >> Mock(JobRequestMetadata)
+        }
+    }
 }
@@ -47,6 +47,7 @@ import com.netflix.genie.web.data.services.DataServices
 import com.netflix.genie.web.data.services.PersistenceService
 import com.netflix.genie.web.dtos.ResolvedJob
 import com.netflix.genie.web.dtos.ResourceSelectionResult
+import com.netflix.genie.web.exceptions.checked.NotFoundException
 import com.netflix.genie.web.exceptions.checked.ResourceSelectionException
 import com.netflix.genie.web.properties.JobResolutionProperties
 import com.netflix.genie.web.properties.JobsProperties
@@ -54,6 +55,7 @@ import com.netflix.genie.web.selectors.ClusterSelectionContext
 import com.netflix.genie.web.selectors.ClusterSelector
 import com.netflix.genie.web.selectors.CommandSelectionContext
 import com.netflix.genie.web.selectors.CommandSelector
+import com.netflix.genie.web.services.ResourceCatalogService
 import io.micrometer.core.instrument.simple.SimpleMeterRegistry
 import org.apache.commons.lang3.StringUtils
 import org.springframework.mock.env.MockEnvironment
@@ -1237,6 +1239,68 @@ class JobResolverServiceImplSpec extends Specification {
         ]
     }
 
+    def "Uses the resource catalog once it is ready"() {
+        def resourceCatalogService = Mock(ResourceCatalogService)
+        def service = new JobResolverServiceImpl(
+            Mock(DataServices) {
+                getPersistenceService() >> this.persistenceService
+            },
+            resourceCatalogService,
+            [this.clusterSelector],
+            this.commandSelector,
+            new SimpleMeterRegistry(),
+            this.jobsProperties,
+            this.jobResolutionProperties,
+            Mock(BraveTracingComponents) {
+                getTracer() >> this.tracer
+                getTagAdapter() >> this.tagAdapter
+            }
+        )
+        def criterion = new Criterion.Builder().withTags([UUID.randomUUID().toString()].toSet()).build()
+        def commands = [createCommand(UUID.randomUUID().toString(), [UUID.randomUUID().toString()])].toSet()
+        def clusters = [createCluster(UUID.randomUUID().toString())].toSet()
+        def commandId = UUID.randomUUID().toString()
+        def applications = [Mock(Application)]
+
+        when: "The catalog hasn't loaded yet"
+        def result = service.findCommandsMatchingCriterion(criterion)
+
+        then: "The database is used"
+        1 * resourceCatalogService.isReady() >> false
+        0 * resourceCatalogService.findCommandsMatchingCriterion(_ as Criterion, _ as Boolean)
+        1 * this.persistenceService.findCommandsMatchingCriterion(criterion, true) >> commands
+        result == commands
+
+        when: "The catalog is ready"
+        result = service.findCommandsMatchingCriterion(criterion)
+
+        then: "The database isn't touched"
+        1 * resourceCatalogService.isReady() >> true
+        1 * resourceCatalogService.findCommandsMatchingCriterion(criterion, true) >> commands
+        0 * this.persistenceService.findCommandsMatchingCriterion(_ as Criterion, _ as Boolean)
+        result == commands
+
+        when:
+        result = service.findClustersMatchingAnyCriterion([criterion].toSet())
+
+        then:
+        1 * resourceCatalogService.isReady() >> true
+        1 * resourceCatalogService.findClustersMatchingAnyCriterion([criterion].toSet(), true) >> clusters
+        0 * this.persistenceService.findClustersMatchingAnyCriterion(_ as Set, _ as Boolean)
+        result == clusters
+
+        when: "The catalog is missing the command"
+        result = service.getApplicationsForCommand(commandId)
+
+        then: "Falls back to the database"
+        1 * resourceCatalogService.isReady() >> true
+        1 * resourceCatalogService.getApplicationsForCommand(commandId) >> {
+            throw new NotFoundException("not in catalog")
+        }
+        1 * this.persistenceService.getApplicationsForCommand(commandId) >> applications
+        result == applications
+    }
+
     //region Helper Methods
     private static Cluster createCluster(String id) {
         return createCluster(id, null)
@@ -0,0 +1,326 @@
+/*
+ *
+ *  Copyright 2022 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.services.impl
+
+import com.netflix.genie.common.internal.dtos.Application
+import com.netflix.genie.common.internal.dtos.ApplicationMetadata
+import com.netflix.genie.common.internal.dtos.ApplicationStatus
+import com.netflix.genie.common.internal.dtos.Cluster
+import com.netflix.genie.common.internal.dtos.ClusterMetadata
+import com.netflix.genie.common.internal.dtos.ClusterStatus
+import com.netflix.genie.common.internal.dtos.Command
+import com.netflix.genie.common.internal.dtos.CommandMetadata
+import com.netflix.genie.common.internal.dtos.CommandStatus
+import com.netflix.genie.common.internal.dtos.Criterion
+import com.netflix.genie.common.internal.dtos.ExecutionEnvironment
+import com.netflix.genie.web.data.services.DataServices
+import com.netflix.genie.web.data.services.PersistenceService
+import com.netflix.genie.web.exceptions.checked.NotFoundException
+import com.netflix.genie.web.properties.ResourceCatalogProperties
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import org.springframework.scheduling.TaskScheduler
+import spock.lang.Specification
+
+import java.time.Duration
+import java.time.Instant
+import java.util.concurrent.ScheduledFuture
+
+/**
+ * Specifications for {@link ResourceCatalogServiceImpl}.
+ */
+class ResourceCatalogServiceImplSpec extends Specification {
+
+    PersistenceService persistenceService
+    TaskScheduler taskScheduler
+    ResourceCatalogProperties properties
+    ResourceCatalogServiceImpl service
+
+    def setup() {
+        this.persistenceService = Mock(PersistenceService)
+        this.taskScheduler = Mock(TaskScheduler)
+        this.properties = new ResourceCatalogProperties()
+        def dataServices = Mock(DataServices) {
+            getPersistenceService() >> this.persistenceService
+        }
+        this.service = new ResourceCatalogServiceImpl(
+            dataServices,
+            this.properties,
+            this.taskScheduler,
+            new SimpleMeterRegistry()
+        )
+    }
+
+    def "Refresh task is scheduled and catalog isn't ready until loaded"() {
+        Runnable refreshTask
+
+        when:
+        def service = new ResourceCatalogServiceImpl(
+            Mock(DataServices) { getPersistenceService() >> this.persistenceService },
+            this.properties,
+            this.taskScheduler,
+            new SimpleMeterRegistry()
+        )
+
+        then:
+        1 * this.taskScheduler.scheduleWithFixedDelay(_ as Runnable, this.properties.getRefreshInterval()) >> {
+            args ->
+                refreshTask = args[0] as Runnable
+                return Mock(ScheduledFuture)
+        }
+        refreshTask != null
+        !service.isReady()
+
+        when:
+        service.findCommandsMatchingCriterion(new Criterion.Builder().withName("spark").build(), true)
+
+        then:
+        thrown(IllegalStateException)
+
+        when:
+        refreshTask.run()
+
+        then:
+        3 * this.persistenceService.findResourcesUpdatedSince(Instant.EPOCH, _ as Class) >> new HashSet<>()
+        3 * this.persistenceService.getResourceIds(_ as Class) >> new HashSet<>()
+        service.isReady()
+    }
+
+    def "Can match resources against criteria"() {
+        def app0 = createApplication("app0", Instant.now())
+        def app1 = createApplication("app1", Instant.now())
+        def cluster0 = createCluster("cluster0", "prod", ClusterStatus.UP, ["type:yarn", "sched:sla"].toSet())
+        def cluster1 = createCluster("cluster1", "test", ClusterStatus.UP, ["type:yarn", "sched:adhoc"].toSet())
+        def cluster2 = createCluster("cluster2", "old", ClusterStatus.OUT_OF_SERVICE, ["type:yarn"].toSet())
+        def command0 = createCommand("command0", "spark", CommandStatus.ACTIVE, ["type:spark"].toSet(), true)
+        def command1 = createCommand("command1", "spark", CommandStatus.DEPRECATED, ["type:spark"].toSet(), true)
+        def command2 = createCommand("command2", "spark", CommandStatus.ACTIVE, ["type:spark"].toSet(), false)
+
+        when:
+        this.service.refresh()
+
+        then:
+        1 * this.persistenceService.findResourcesUpdatedSince(Instant.EPOCH, Application) >> [app0, app1].toSet()
+        1 * this.persistenceService.findResourcesUpdatedSince(Instant.EPOCH, Cluster) >> [
+            cluster0,
+            cluster1,
+            cluster2
+        ].toSet()
+        1 * this.persistenceService.findResourcesUpdatedSince(Instant.EPOCH, Command) >> [
+            command0,
+            command1,
+            command2
+        ].toSet()
+        1 * this.persistenceService.getApplicationsForCommand("command0") >> [app1, app0]
+        1 * this.persistenceService.getApplicationsForCommand("command1") >> []
+        1 * this.persistenceService.getApplicationsForCommand("command2") >> []
+        1 * this.persistenceService.getResourceIds(Application) >> ["app0", "app1"].toSet()
+        1 * this.persistenceService.getResourceIds(Cluster) >> ["cluster0", "cluster1", "cluster2"].toSet()
+        1 * this.persistenceService.getResourceIds(Command) >> ["command0", "command1", "command2"].toSet()
+        this.service.isReady()
+
+        and:
+        this.service.findCommandsMatchingCriterion(
+            new Criterion.Builder().withTags(["type:spark"].toSet()).build(),
+            true
+        ) == [command0].toSet()
+        this.service.findCommandsMatchingCriterion(
+            new Criterion.Builder().withTags(["type:spark"].toSet()).build(),
+            false
+        ) == [command0, command1].toSet()
+        this.service.findCommandsMatchingCriterion(
+            new Criterion.Builder().withId("command1").build(),
+            false
+        ) == [command1].toSet()
+        this.service.findCommandsMatchingCriterion(
+            new Criterion.Builder().withName("hive").build(),
+            true
+        ).isEmpty()
+        this.service.findClustersMatchingAnyCriterion(
+            [
+                new Criterion.Builder().withTags(["type:yarn", "sched:sla"].toSet()).build(),
+                new Criterion.Builder().withName("test").build()
+            ].toSet(),
+            true
+        ) == [cluster0, cluster1].toSet()
+        this.service.findClustersMatchingAnyCriterion(
+            [new Criterion.Builder().withTags(["type:yarn"].toSet()).build()].toSet(),
+            true
+        ) == [cluster0, cluster1].toSet()
+        this.service.findClustersMatchingAnyCriterion(
+            [new Criterion.Builder().withTags(["type:yarn"].toSet()).build()].toSet(),
+            false
+        ) == [cluster0, cluster1, cluster2].toSet()
+        this.service.findClustersMatchingAnyCriterion(
+            [new Criterion.Builder().withTags(["type:yarn", "sched:unknown"].toSet()).build()].toSet(),
+            true
+        ).isEmpty()
+        this.service.getApplicationsForCommand("command0") == [app1, app0]
+        this.service.getApplicationsForCommand("command1").isEmpty()
+        this.service.getApplication("app0") == app0
+    }
+
+    def "Throws not found for missing resources"() {
+        when:
+        this.service.refresh()
+
+        then:
+        3 * this.persistenceService.findResourcesUpdatedSince(Instant.EPOCH, _ as Class) >> new HashSet<>()
+        3 * this.persistenceService.getResourceIds(_ as Class) >> new HashSet<>()
+
+        when:
+        this.service.getApplicationsForCommand("command0")
+
+        then:
+        thrown(NotFoundException)
+
+        when:
+        this.service.getApplication("app0")
+
+        then:
+        thrown(NotFoundException)
+    }
+
+    def "Incremental refresh applies updates and removes deleted resources"() {
+        def oldUpdated = Instant.now().minus(Duration.ofHours(1))
+        def newUpdated = Instant.now()
+        def cluster0 = createCluster("cluster0", "prod", ClusterStatus.UP, ["type:yarn"].toSet(), oldUpdated)
+        def cluster1 = createCluster("cluster1", "test", ClusterStatus.UP, ["type:yarn"].toSet(), oldUpdated)
+        def cluster0Updated = createCluster(
+            "cluster0",
+            "prod",
+            ClusterStatus.OUT_OF_SERVICE,
+            ["type:yarn"].toSet(),
+            newUpdated
+        )
+        def criteria = [new Criterion.Builder().withTags(["type:yarn"].toSet()).build()].toSet()
+
+        when: "Initial load"
+        this.service.refresh()
+
+        then:
+        1 * this.persistenceService.findResourcesUpdatedSince(Instant.EPOCH, Cluster) >> [cluster0, cluster1].toSet()
+        1 * this.persistenceService.findResourcesUpdatedSince(Instant.EPOCH, Application) >> new HashSet<>()
+        1 * this.persistenceService.findResourcesUpdatedSince(Instant.EPOCH, Command) >> new HashSet<>()
+        1 * this.persistenceService.getResourceIds(Cluster) >> ["cluster0", "cluster1"].toSet()
+        1 * this.persistenceService.getResourceIds(Application) >> new HashSet<>()
+        1 * this.persistenceService.getResourceIds(Command) >> new HashSet<>()
+        this.service.findClustersMatchingAnyCriterion(criteria, true) == [cluster0, cluster1].toSet()
+
+        when: "cluster0 goes out of service and cluster1 is deleted"
+        this.service.refresh()
+
+        then:
+        1 * this.persistenceService.findResourcesUpdatedSince(
+            oldUpdated.minus(this.properties.getUpdateOverlap()),
+            Cluster
+        ) >> [cluster0Updated].toSet()
+        1 * this.persistenceService.findResourcesUpdatedSince(_ as Instant, Application) >> new HashSet<>()
+        1 * this.persistenceService.findResourcesUpdatedSince(_ as Instant, Command) >> new HashSet<>()
+        1 * this.persistenceService.getResourceIds(Cluster) >> ["cluster0"].toSet()
+        1 * this.persistenceService.getResourceIds(Application) >> new HashSet<>()
+        1 * this.persistenceService.getResourceIds(Command) >> new HashSet<>()
+        this.service.findClustersMatchingAnyCriterion(criteria, true).isEmpty()
+        this.service.findClustersMatchingAnyCriterion(criteria, false) == [cluster0Updated].toSet()
+    }
+
+    def "Failed refresh keeps serving the previous catalog"() {
+        def cluster0 = createCluster("cluster0", "prod", ClusterStatus.UP, ["type:yarn"].toSet())
+        def criteria = [new Criterion.Builder().withTags(["type:yarn"].toSet()).build()].toSet()
+
+        when:
+        this.service.refresh()
+
+        then:
+        1 * this.persistenceService.findResourcesUpdatedSince(Instant.EPOCH, Cluster) >> [cluster0].toSet()
+        2 * this.persistenceService.findResourcesUpdatedSince(Instant.EPOCH, _ as Class) >> new HashSet<>()
+        1 * this.persistenceService.getResourceIds(Cluster) >> ["cluster0"].toSet()
+        2 * this.persistenceService.getResourceIds(_ as Class) >> new HashSet<>()
+
+        when:
+        this.service.refresh()
+
+        then:
+        1 * this.persistenceService.findResourcesUpdatedSince(_ as Instant, Application) >> {
+            throw new RuntimeException("DB down")
+        }
+        noExceptionThrown()
+        this.service.isReady()
+        this.service.findClustersMatchingAnyCriterion(criteria, true) == [cluster0].toSet()
+    }
+
+    private static Application createApplication(String id, Instant updated) {
+        return new Application(
+            id,
+            updated,
+            updated,
+            new ExecutionEnvironment(null, null, null),
+            new ApplicationMetadata.Builder(
+                UUID.randomUUID().toString(),
+                UUID.randomUUID().toString(),
+                UUID.randomUUID().toString(),
+                ApplicationStatus.ACTIVE
+            ).build()
+        )
+    }
+
+    private static Cluster createCluster(String id, String name, ClusterStatus status, Set<String> tags) {
+        return createCluster(id, name, status, tags, Instant.now())
+    }
+
+    private static Cluster createCluster(
+        String id,
+        String name,
+        ClusterStatus status,
+        Set<String> tags,
+        Instant updated
+    ) {
+        return new Cluster(
+            id,
+            updated,
+            updated,
+            new ExecutionEnvironment(null, null, null),
+            new ClusterMetadata.Builder(name, UUID.randomUUID().toString(), UUID.randomUUID().toString(), status)
+                .withTags(tags)
+                .build()
+        )
+    }
+
+    private static Command createCommand(
+        String id,
+        String name,
+        CommandStatus status,
+        Set<String> tags,
+        boolean hasClusterCriteria
+    ) {
+        return new Command(
+            id,
+            Instant.now(),
+            Instant.now(),
+            new ExecutionEnvironment(null, null, null),
+            new CommandMetadata.Builder(name, UUID.randomUUID().toString(), UUID.randomUUID().toString(), status)
+                .withTags(tags)
+                .build(),
+            [UUID.randomUUID().toString()],
+            hasClusterCriteria
+                ? [new Criterion.Builder().withTags(["type:yarn"].toSet()).build()]
+                : [],
+            null,
+            null
+        )
+    }
+}
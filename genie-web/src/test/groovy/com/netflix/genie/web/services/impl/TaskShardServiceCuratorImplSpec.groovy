@@ -0,0 +1,86 @@
+/*
+ *
+ *  Copyright 2022 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.services.impl
+
+import io.micrometer.core.instrument.MeterRegistry
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import org.apache.curator.framework.recipes.nodes.GroupMember
+import spock.lang.Specification
+
+class TaskShardServiceCuratorImplSpec extends Specification {
+    GroupMember groupMember
+    MeterRegistry registry
+    TaskShardServiceCuratorImpl service
+
+    void setup() {
+        this.groupMember = Mock(GroupMember)
+        this.registry = new SimpleMeterRegistry()
+        this.service = new TaskShardServiceCuratorImpl(this.groupMember, "node1", this.registry)
+    }
+
+    def "Joins the group on creation and leaves it on close"() {
+        when:
+        new TaskShardServiceCuratorImpl(this.groupMember, "node1", this.registry)
+
+        then:
+        1 * this.groupMember.start()
+
+        when:
+        this.service.close()
+
+        then:
+        1 * this.groupMember.close()
+    }
+
+    def "Assignment follows the current members"() {
+        when:
+        def assignment = this.service.getAssignment()
+
+        then:
+        1 * this.groupMember.getCurrentMembers() >> ["node1": new byte[0], "node2": new byte[0]]
+        assignment.getMemberId() == "node1"
+        assignment.getMembers() as List == ["node1", "node2"]
+        this.registry.get("genie.tasks.sharding.members.gauge").gauge().value() == 2.0d
+        this.registry.get("genie.tasks.sharding.rebalance.counter").counter().count() == 1.0d
+
+        when: "The membership is unchanged"
+        this.service.getAssignment()
+
+        then:
+        1 * this.groupMember.getCurrentMembers() >> ["node2": new byte[0], "node1": new byte[0]]
+        this.registry.get("genie.tasks.sharding.rebalance.counter").counter().count() == 1.0d
+
+        when: "A node leaves"
+        assignment = this.service.getAssignment()
+
+        then:
+        1 * this.groupMember.getCurrentMembers() >> ["node1": new byte[0]]
+        assignment.isAssigned(UUID.randomUUID().toString())
+        this.registry.get("genie.tasks.sharding.members.gauge").gauge().value() == 1.0d
+        this.registry.get("genie.tasks.sharding.rebalance.counter").counter().count() == 2.0d
+    }
+
+    def "Nothing is assigned while this node isn't a member"() {
+        when:
+        def assignment = this.service.getAssignment()
+
+        then:
+        1 * this.groupMember.getCurrentMembers() >> ["node2": new byte[0]]
+        !assignment.isAssigned("databaseCleanup/jobs")
+    }
+}
@@ -19,13 +19,20 @@ package com.netflix.genie.web.spring.autoconfigure.events
 
 import com.amazonaws.services.sns.AmazonSNS
 import com.netflix.genie.web.data.observers.PersistedJobStatusObserver
+import com.netflix.genie.web.events.BatchingNotificationPublisher
 import com.netflix.genie.web.events.GenieEventBus
 import com.netflix.genie.web.events.JobNotificationMetricPublisher
 import com.netflix.genie.web.events.JobStateChangeSNSPublisher
+import com.netflix.genie.web.events.NotificationSink
+import com.netflix.genie.web.events.SNSNotificationSink
 import com.netflix.genie.web.properties.SNSNotificationsProperties
 import io.micrometer.core.instrument.MeterRegistry
+import org.springframework.beans.factory.ObjectProvider
+import org.springframework.scheduling.TaskScheduler
 import spock.lang.Specification
 
+import java.time.Duration
+
 class NotificationsAutoConfigurationSpec extends Specification {
     GenieEventBus genieEventBus
     NotificationsAutoConfiguration config
@@ -62,10 +69,36 @@ class NotificationsAutoConfigurationSpec extends Specification {
         JobStateChangeSNSPublisher publisher = this.config.jobNotificationsSNSPublisher(
             snsProperties,
             registry,
-            snsClient
+            snsClient,
+            Mock(ObjectProvider)
+        )
+
+        then:
+        publisher != null
+    }
+
+    def "snsNotificationSink"() {
+        when:
+        SNSNotificationSink sink = this.config.snsNotificationSink(Mock(AmazonSNS), new SNSNotificationsProperties())
+
+        then:
+        sink != null
+    }
+
+    def "batchingNotificationPublisher"() {
+        TaskScheduler taskScheduler = Mock(TaskScheduler)
+        SNSNotificationsProperties snsProperties = new SNSNotificationsProperties()
+
+        when:
+        BatchingNotificationPublisher publisher = this.config.batchingNotificationPublisher(
+            Mock(NotificationSink),
+            snsProperties,
+            taskScheduler,
+            registry
         )
 
         then:
         publisher != null
+        1 * taskScheduler.scheduleWithFixedDelay(_ as Runnable, Duration.ofSeconds(1))
     }
 }
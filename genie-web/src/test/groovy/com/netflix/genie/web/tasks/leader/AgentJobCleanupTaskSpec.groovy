@@ -24,8 +24,10 @@ import com.netflix.genie.common.internal.exceptions.unchecked.GenieInvalidStatus
 import com.netflix.genie.web.agent.services.AgentRoutingService
 import com.netflix.genie.web.data.services.DataServices
 import com.netflix.genie.web.data.services.PersistenceService
+import com.netflix.genie.web.dtos.ShardAssignment
 import com.netflix.genie.web.exceptions.checked.NotFoundException
 import com.netflix.genie.web.properties.AgentCleanupProperties
+import com.netflix.genie.web.services.TaskShardService
 import com.netflix.genie.web.tasks.GenieTaskScheduleType
 import com.netflix.genie.web.util.MetricsUtils
 import io.micrometer.core.instrument.Counter
@@ -72,6 +74,41 @@ class AgentJobCleanupTaskSpec extends Specification {
         scheduleType == GenieTaskScheduleType.FIXED_RATE
         period == 10_000
         1 * taskProperties.getRefreshInterval() >> Duration.ofSeconds(10)
+        !task.isSharded()
+    }
+
+    def "Sharded run only checks the jobs assigned to this node"() {
+        TaskShardService taskShardService = Mock(TaskShardService)
+        def dataServices = Mock(DataServices) {
+            getPersistenceService() >> this.persistenceService
+        }
+        def shardedTask = new AgentJobCleanupTask(
+            dataServices,
+            this.taskProperties,
+            this.registry,
+            this.agentRoutingService,
+            taskShardService
+        )
+        def assignment = Mock(ShardAssignment) {
+            isAssigned("j1") >> true
+            isAssigned("j2") >> false
+        }
+
+        expect:
+        shardedTask.isSharded()
+
+        when:
+        shardedTask.run()
+
+        then:
+        1 * taskShardService.getAssignment() >> assignment
+        1 * persistenceService.getActiveJobs() >> Sets.newHashSet("j1", "j2")
+        1 * persistenceService.getUnclaimedJobs() >> Sets.newHashSet()
+        1 * agentRoutingService.isAgentConnected("j1") >> false
+        0 * agentRoutingService.isAgentConnected("j2")
+        1 * taskProperties.getLaunchTimeLimit() >> inTheFuture
+        1 * taskProperties.getReconnectTimeLimit() >> inTheFuture
+        0 * persistenceService.updateJobStatus(_, _, _, _)
     }
 
     def "Run"() {
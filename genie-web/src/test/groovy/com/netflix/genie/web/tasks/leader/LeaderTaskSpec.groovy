@@ -58,6 +58,7 @@ class LeaderTaskSpec extends Specification {
 
         expect:
         task.getScheduleType() == GenieTaskScheduleType.FIXED_DELAY
+        !task.isSharded()
     }
 
     private static class TestLeaderTask extends LeaderTask {
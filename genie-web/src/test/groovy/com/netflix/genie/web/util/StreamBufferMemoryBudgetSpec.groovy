@@ -0,0 +1,72 @@
+/*
+ *
+ *  Copyright 2022 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.util
+
+import spock.lang.Specification
+
+class StreamBufferMemoryBudgetSpec extends Specification {
+
+    def "Reserve and release"() {
+        setup:
+        StreamBufferMemoryBudget budget = new StreamBufferMemoryBudget(100)
+
+        expect:
+        budget.getMaxBytes() == 100
+        budget.getReservedBytes() == 0
+        budget.tryReserve(60)
+        budget.tryReserve(40)
+        !budget.tryReserve(1)
+        budget.getReservedBytes() == 100
+
+        when:
+        budget.release(60)
+
+        then:
+        budget.getReservedBytes() == 40
+        !budget.tryReserve(61)
+        budget.tryReserve(60)
+    }
+
+    def "Oversized reservation is granted when nothing is reserved"() {
+        setup:
+        StreamBufferMemoryBudget budget = new StreamBufferMemoryBudget(10)
+
+        expect:
+        budget.tryReserve(20)
+        !budget.tryReserve(1)
+
+        when:
+        budget.release(20)
+
+        then:
+        budget.tryReserve(1)
+    }
+
+    def "Invalid budget"() {
+        when:
+        new StreamBufferMemoryBudget(0)
+
+        then:
+        thrown(IllegalArgumentException)
+    }
+
+    def "Unlimited budget"() {
+        expect:
+        StreamBufferMemoryBudget.unlimited().tryReserve(Long.MAX_VALUE - 1)
+    }
+}
@@ -24,6 +24,7 @@ import spock.lang.Specification
 import spock.lang.Timeout
 
 import java.nio.charset.StandardCharsets
+import java.time.Duration
 import java.util.concurrent.TimeoutException
 
 class StreamBufferSpec extends Specification {
@@ -146,6 +147,106 @@ class StreamBufferSpec extends Specification {
         dataToWrite == dataRead
     }
 
+    def "Multiple chunks buffered"() {
+        setup:
+        StreamBuffer multiChunkBuffer = new StreamBuffer(0, 3)
+        byte[] dataToWrite = new byte[40]
+        byte[] dataRead = new byte[40]
+        this.random.nextBytes(dataToWrite)
+        InputStream inputStream = multiChunkBuffer.getInputStream()
+
+        expect: "Three chunks can be written before any is consumed"
+        multiChunkBuffer.tryWrite(ByteString.copyFrom(dataToWrite, 0, 10))
+        multiChunkBuffer.tryWrite(ByteString.copyFrom(dataToWrite, 10, 10))
+        multiChunkBuffer.tryWrite(ByteString.copyFrom(dataToWrite, 20, 10))
+        !multiChunkBuffer.tryWrite(ByteString.copyFrom(dataToWrite, 30, 10))
+
+        and: "Consuming the oldest chunk makes room for another"
+        inputStream.read(dataRead, 0, 40) == 10
+        multiChunkBuffer.tryWrite(ByteString.copyFrom(dataToWrite, 30, 10))
+
+        and: "Chunks are read in order"
+        inputStream.read(dataRead, 10, 5) == 5
+        inputStream.read(dataRead, 15, 25) == 5
+        inputStream.read(dataRead, 20, 20) == 10
+        inputStream.read(dataRead, 30, 10) == 10
+
+        when:
+        multiChunkBuffer.closeForCompleted()
+
+        then:
+        inputStream.read(dataRead, 0, 10) == -1
+        dataToWrite == dataRead
+    }
+
+    def "Byte budget per buffer and shared memory budget"() {
+        setup:
+        StreamBufferMemoryBudget memoryBudget = new StreamBufferMemoryBudget(25)
+        StreamBuffer buffer1 = new StreamBuffer(0, 10, 15, memoryBudget)
+        StreamBuffer buffer2 = new StreamBuffer(0, 10, 15, memoryBudget)
+        InputStream inputStream1 = buffer1.getInputStream()
+        byte[] dataRead = new byte[20]
+
+        expect: "Oversized chunks are accepted into an empty buffer"
+        buffer1.tryWrite(ByteString.copyFrom(new byte[20]))
+        buffer1.getBufferedBytes() == 20
+        memoryBudget.getReservedBytes() == 20
+
+        and: "Writes are refused when the buffer is over its own budget"
+        !buffer1.tryWrite(ByteString.copyFrom(new byte[1]))
+
+        and: "Writes are refused when the shared budget is exhausted"
+        buffer2.tryWrite(ByteString.copyFrom(new byte[5]))
+        !buffer2.tryWrite(ByteString.copyFrom(new byte[5]))
+        memoryBudget.getReservedBytes() == 25
+
+        and: "Consuming data releases space"
+        inputStream1.read(dataRead, 0, 20) == 20
+        buffer1.getBufferedBytes() == 0
+        memoryBudget.getReservedBytes() == 5
+        buffer2.tryWrite(ByteString.copyFrom(new byte[5]))
+
+        and: "Time spent refusing writes is tracked"
+        buffer1.getStallTime() > Duration.ZERO
+        buffer2.getStallTime() > Duration.ZERO
+
+        when: "A buffer is closed with error"
+        buffer2.closeForError(new RuntimeException("..."))
+
+        then: "Its space in the shared budget is released"
+        memoryBudget.getReservedBytes() == 0
+
+        when: "The input stream is closed before all data is consumed"
+        buffer1.tryWrite(ByteString.copyFrom(new byte[10]))
+        inputStream1.read(dataRead, 0, 5)
+        inputStream1.close()
+
+        then: "Data is discarded and its space released"
+        buffer1.getBufferedBytes() == 0
+        memoryBudget.getReservedBytes() == 0
+        inputStream1.read(dataRead, 0, 5) == -1
+
+        when:
+        buffer1.tryWrite(ByteString.copyFrom(new byte[10]))
+
+        then:
+        thrown(IllegalStateException)
+    }
+
+    def "Invalid buffer size"() {
+        when:
+        new StreamBuffer(0, 0)
+
+        then:
+        thrown(IllegalArgumentException)
+
+        when:
+        new StreamBuffer(0, 1, 0, StreamBufferMemoryBudget.unlimited())
+
+        then:
+        thrown(IllegalArgumentException)
+    }
+
     def "Read after closing"() {
 
         when:
@@ -0,0 +1,255 @@
+/*
+ *
+ *  Copyright 2022 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.data.datasources;
+
+import com.netflix.genie.web.agent.services.impl.AgentJobServiceImpl;
+import com.netflix.genie.web.data.services.impl.jpa.JpaPersistenceServiceImpl;
+import com.netflix.genie.web.properties.ReplicaDataSourceProperties;
+import com.netflix.genie.web.services.impl.JobLaunchServiceImpl;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Method;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Tests for {@link ReplicaRoutingDataSource} and {@link ReplicaHealthMonitor}.
+ *
+ * @since 4.4.0
+ */
+class ReplicaRoutingDataSourceTest {
+
+    private static final String SELECT_NAME = "SELECT name FROM marker";
+
+    private DataSource primary;
+    private DataSource replica;
+    private ReplicaDataSourceProperties properties;
+    private MeterRegistry registry;
+    private TaskScheduler taskScheduler;
+
+    @BeforeEach
+    void setup() {
+        this.primary = this.createDatabase("primary");
+        this.replica = this.createDatabase("replica");
+        this.properties = new ReplicaDataSourceProperties();
+        this.registry = new SimpleMeterRegistry();
+        this.taskScheduler = Mockito.mock(TaskScheduler.class);
+    }
+
+    @Test
+    void monitorIsScheduledAndStartsUnavailable() {
+        final ReplicaHealthMonitor monitor = this.createMonitor(this.replica);
+
+        Mockito
+            .verify(this.taskScheduler, Mockito.times(1))
+            .scheduleWithFixedDelay(ArgumentMatchers.any(Runnable.class), ArgumentMatchers.eq(Duration.ofSeconds(5)));
+        Assertions.assertThat(monitor.isAvailable()).isFalse();
+        Assertions.assertThat(this.registry.get("genie.data.replica.available.gauge").gauge().value()).isEqualTo(0.0);
+    }
+
+    @Test
+    void replicaReadsGoToTheReplica() {
+        final ReplicaHealthMonitor monitor = this.createMonitor(this.replica);
+        monitor.check();
+        Assertions.assertThat(monitor.isAvailable()).isTrue();
+
+        final DataSource dataSource = this.createRoutingDataSource(this.replica, monitor);
+        final Reads reads = this.createReads(dataSource);
+
+        Assertions.assertThat(reads.search()).isEqualTo("replica");
+        Assertions.assertThat(read(dataSource, false)).isEqualTo("primary");
+        Assertions.assertThat(this.connections("replica", "readOnly")).isEqualTo(1.0);
+        Assertions.assertThat(this.connections("primary", "readWrite")).isEqualTo(1.0);
+    }
+
+    @Test
+    void otherReadOnlyTransactionsStayOnThePrimary() {
+        final ReplicaHealthMonitor monitor = this.createMonitor(this.replica);
+        monitor.check();
+        Assertions.assertThat(monitor.isAvailable()).isTrue();
+
+        final DataSource dataSource = this.createRoutingDataSource(this.replica, monitor);
+        final Reads reads = this.createReads(dataSource);
+
+        Assertions.assertThat(reads.lookup()).isEqualTo("primary");
+        Assertions.assertThat(read(dataSource, true)).isEqualTo("primary");
+        // The replica read marker doesn't leak past the annotated call
+        Assertions.assertThat(reads.search()).isEqualTo("replica");
+        Assertions.assertThat(reads.lookup()).isEqualTo("primary");
+        Assertions.assertThat(this.connections("primary", "primaryRead")).isEqualTo(3.0);
+        Assertions.assertThat(this.connections("replica", "readOnly")).isEqualTo(1.0);
+    }
+
+    @Test
+    void onlySearchesAndReportsAreReplicaReads() {
+        // Agents, job launches and limit checks have to see their own writes so none of them may use the replica
+        Assertions
+            .assertThat(this.replicaReadMethods(AgentJobServiceImpl.class))
+            .isEmpty();
+        Assertions
+            .assertThat(this.replicaReadMethods(JobLaunchServiceImpl.class))
+            .isEmpty();
+        Assertions
+            .assertThat(this.replicaReadMethods(JpaPersistenceServiceImpl.class))
+            .containsExactlyInAnyOrder(
+                "findApplications",
+                "findClusters",
+                "findCommands",
+                "findJobs",
+                "getUserResourcesSummaries"
+            )
+            .doesNotContain("getActiveJobCountForUser", "getJobSpecification", "getJobStatus");
+    }
+
+    @Test
+    void readsFallBackToThePrimaryWhenTheReplicaLags() {
+        this.properties.setLagQuery("SELECT 100");
+        final ReplicaHealthMonitor monitor = this.createMonitor(this.replica);
+        monitor.check();
+        Assertions.assertThat(monitor.isAvailable()).isFalse();
+        Assertions.assertThat(this.registry.get("genie.data.replica.lag.gauge").gauge().value()).isEqualTo(100.0);
+
+        final DataSource dataSource = this.createRoutingDataSource(this.replica, monitor);
+
+        final Reads reads = this.createReads(dataSource);
+
+        Assertions.assertThat(reads.search()).isEqualTo("primary");
+        Assertions.assertThat(this.connections("primary", "replicaUnavailable")).isEqualTo(1.0);
+
+        this.properties.setMaxLag(Duration.ofMinutes(5));
+        monitor.check();
+        Assertions.assertThat(monitor.isAvailable()).isTrue();
+        Assertions.assertThat(reads.search()).isEqualTo("replica");
+    }
+
+    @Test
+    void readsFallBackToThePrimaryWhenTheReplicaFails() throws SQLException {
+        final DataSource failingReplica = Mockito.mock(DataSource.class);
+        final ReplicaHealthMonitor monitor = this.createMonitor(this.replica);
+        monitor.check();
+        Mockito.when(failingReplica.getConnection()).thenThrow(new SQLException("down"));
+
+        final DataSource dataSource = this.createRoutingDataSource(failingReplica, monitor);
+        final Reads reads = this.createReads(dataSource);
+
+        Assertions.assertThat(reads.search()).isEqualTo("primary");
+        Assertions.assertThat(monitor.isAvailable()).isFalse();
+        Assertions.assertThat(this.connections("primary", "replicaFailure")).isEqualTo(1.0);
+
+        Assertions.assertThat(reads.search()).isEqualTo("primary");
+        Mockito.verify(failingReplica, Mockito.times(1)).getConnection();
+    }
+
+    private DataSource createDatabase(final String name) {
+        final DriverManagerDataSource dataSource = new DriverManagerDataSource(
+            "jdbc:h2:mem:" + name + "-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1"
+        );
+        final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE marker (name VARCHAR(16))");
+        jdbcTemplate.update("INSERT INTO marker (name) VALUES (?)", name);
+        return dataSource;
+    }
+
+    private ReplicaHealthMonitor createMonitor(final DataSource replicaDataSource) {
+        return new ReplicaHealthMonitor(replicaDataSource, this.properties, this.taskScheduler, this.registry);
+    }
+
+    private DataSource createRoutingDataSource(final DataSource replicaDataSource, final ReplicaHealthMonitor monitor) {
+        return new LazyConnectionDataSourceProxy(
+            new ReplicaRoutingDataSource(this.primary, replicaDataSource, monitor, this.registry)
+        );
+    }
+
+    private Reads createReads(final DataSource dataSource) {
+        final AspectJProxyFactory proxyFactory = new AspectJProxyFactory(new MarkerReads(dataSource));
+        proxyFactory.addAspect(new ReplicaReadAspect());
+        return proxyFactory.getProxy();
+    }
+
+    private Set<String> replicaReadMethods(final Class<?> clazz) {
+        return Arrays
+            .stream(clazz.getDeclaredMethods())
+            .filter(method -> method.isAnnotationPresent(ReplicaRead.class))
+            .map(Method::getName)
+            .collect(Collectors.toSet());
+    }
+
+    private static String read(final DataSource dataSource, final boolean readOnly) {
+        final TransactionTemplate transactionTemplate
+            = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        transactionTemplate.setReadOnly(readOnly);
+        return transactionTemplate.execute(
+            status -> new JdbcTemplate(dataSource).queryForObject(SELECT_NAME, String.class)
+        );
+    }
+
+    /**
+     * Reads of the marker table, one of which may use the replica.
+     */
+    interface Reads {
+        String search();
+
+        String lookup();
+    }
+
+    private static class MarkerReads implements Reads {
+        private final DataSource dataSource;
+
+        MarkerReads(final DataSource dataSource) {
+            this.dataSource = dataSource;
+        }
+
+        @Override
+        @ReplicaRead
+        public String search() {
+            return read(this.dataSource, true);
+        }
+
+        @Override
+        public String lookup() {
+            return read(this.dataSource, true);
+        }
+    }
+
+    private double connections(final String route, final String reason) {
+        return this.registry
+            .get("genie.data.datasource.connections.counter")
+            .tag("route", route)
+            .tag("reason", reason)
+            .counter()
+            .count();
+    }
+}
@@ -24,6 +24,7 @@ import com.netflix.genie.common.dto.Job;
 import com.netflix.genie.common.dto.UserResourcesSummary;
 import com.netflix.genie.common.exceptions.GenieException;
 import com.netflix.genie.common.exceptions.GenieNotFoundException;
+import com.netflix.genie.common.external.util.GenieObjectMapper;
 import com.netflix.genie.common.internal.dtos.AgentClientMetadata;
 import com.netflix.genie.common.internal.dtos.ArchiveStatus;
 import com.netflix.genie.common.internal.dtos.JobSpecification;
@@ -32,9 +33,13 @@ import com.netflix.genie.common.internal.exceptions.checked.GenieCheckedExceptio
 import com.netflix.genie.common.internal.exceptions.unchecked.GenieInvalidStatusException;
 import com.netflix.genie.common.internal.exceptions.unchecked.GenieJobAlreadyClaimedException;
 import com.netflix.genie.common.internal.tracing.brave.BraveTracingComponents;
+import com.netflix.genie.web.data.services.impl.jpa.converters.EntityV3DtoConverters;
 import com.netflix.genie.web.data.services.impl.jpa.entities.ClusterEntity;
 import com.netflix.genie.web.data.services.impl.jpa.entities.CommandEntity;
+import com.netflix.genie.web.data.services.impl.jpa.entities.HostJobCountersEntity;
 import com.netflix.genie.web.data.services.impl.jpa.entities.JobEntity;
+import com.netflix.genie.web.data.services.impl.jpa.entities.JobHistoryEntity;
+import com.netflix.genie.web.data.services.impl.jpa.entities.UserJobCountersEntity;
 import com.netflix.genie.web.data.services.impl.jpa.queries.aggregates.UserJobResourcesAggregate;
 import com.netflix.genie.web.data.services.impl.jpa.queries.projections.JobApiProjection;
 import com.netflix.genie.web.data.services.impl.jpa.queries.projections.JobApplicationsProjection;
@@ -47,9 +52,12 @@ import com.netflix.genie.web.data.services.impl.jpa.repositories.JpaApplicationR
 import com.netflix.genie.web.data.services.impl.jpa.repositories.JpaClusterRepository;
 import com.netflix.genie.web.data.services.impl.jpa.repositories.JpaCommandRepository;
 import com.netflix.genie.web.data.services.impl.jpa.repositories.JpaFileRepository;
+import com.netflix.genie.web.data.services.impl.jpa.repositories.JpaHostJobCountersRepository;
+import com.netflix.genie.web.data.services.impl.jpa.repositories.JpaJobHistoryRepository;
 import com.netflix.genie.web.data.services.impl.jpa.repositories.JpaJobRepository;
 import com.netflix.genie.web.data.services.impl.jpa.repositories.JpaRepositories;
 import com.netflix.genie.web.data.services.impl.jpa.repositories.JpaTagRepository;
+import com.netflix.genie.web.data.services.impl.jpa.repositories.JpaUserJobCountersRepository;
 import com.netflix.genie.web.dtos.ResolvedJob;
 import com.netflix.genie.web.exceptions.checked.NotFoundException;
 import org.apache.commons.lang3.StringUtils;
@@ -76,6 +84,9 @@ class JpaPersistenceServiceImplJobsTest {
     // TODO the use of a static converter makes this class hard to test. Switch to a non-static converter object.
 
     private JpaJobRepository jobRepository;
+    private JpaJobHistoryRepository jobHistoryRepository;
+    private JpaHostJobCountersRepository hostJobCountersRepository;
+    private JpaUserJobCountersRepository userJobCountersRepository;
     private JpaApplicationRepository applicationRepository;
     private JpaClusterRepository clusterRepository;
     private JpaCommandRepository commandRepository;
@@ -85,6 +96,9 @@ class JpaPersistenceServiceImplJobsTest {
     @BeforeEach
     void setup() {
         this.jobRepository = Mockito.mock(JpaJobRepository.class);
+        this.jobHistoryRepository = Mockito.mock(JpaJobHistoryRepository.class);
+        this.hostJobCountersRepository = Mockito.mock(JpaHostJobCountersRepository.class);
+        this.userJobCountersRepository = Mockito.mock(JpaUserJobCountersRepository.class);
         this.applicationRepository = Mockito.mock(JpaApplicationRepository.class);
         this.clusterRepository = Mockito.mock(JpaClusterRepository.class);
         this.commandRepository = Mockito.mock(JpaCommandRepository.class);
@@ -96,6 +110,9 @@ class JpaPersistenceServiceImplJobsTest {
         Mockito.when(jpaRepositories.getClusterRepository()).thenReturn(this.clusterRepository);
         Mockito.when(jpaRepositories.getCommandRepository()).thenReturn(this.commandRepository);
         Mockito.when(jpaRepositories.getJobRepository()).thenReturn(this.jobRepository);
+        Mockito.when(jpaRepositories.getJobHistoryRepository()).thenReturn(this.jobHistoryRepository);
+        Mockito.when(jpaRepositories.getHostJobCountersRepository()).thenReturn(this.hostJobCountersRepository);
+        Mockito.when(jpaRepositories.getUserJobCountersRepository()).thenReturn(this.userJobCountersRepository);
         Mockito.when(jpaRepositories.getFileRepository()).thenReturn(fileRepository);
         Mockito.when(jpaRepositories.getTagRepository()).thenReturn(tagRepository);
 
@@ -379,6 +396,19 @@ class JpaPersistenceServiceImplJobsTest {
         Assertions.assertThat(this.persistenceService.getJobStatus(id)).isEqualByComparingTo(status);
     }
 
+    @Test
+    void canGetArchivedJobStatus() throws GenieCheckedException {
+        final String id = UUID.randomUUID().toString();
+        final JobHistoryEntity archivedJob = new JobHistoryEntity();
+        archivedJob.setUniqueId(id);
+        archivedJob.setStatus(JobStatus.SUCCEEDED.name());
+
+        Mockito.when(this.jobRepository.getJobStatus(id)).thenReturn(Optional.empty());
+        Mockito.when(this.jobHistoryRepository.findByUniqueId(id)).thenReturn(Optional.of(archivedJob));
+
+        Assertions.assertThat(this.persistenceService.getJobStatus(id)).isEqualByComparingTo(JobStatus.SUCCEEDED);
+    }
+
     @Test
     void testGetFinishedJobNonExisting() {
         final String id = UUID.randomUUID().toString();
@@ -429,6 +459,24 @@ class JpaPersistenceServiceImplJobsTest {
         Assertions.assertThat(returnedJob.getId()).isPresent().contains(id);
     }
 
+    @Test
+    void canGetArchivedJob() throws GenieException {
+        final String id = UUID.randomUUID().toString();
+        final JobEntity jobEntity = new JobEntity();
+        jobEntity.setStatus(com.netflix.genie.common.dto.JobStatus.SUCCEEDED.name());
+        jobEntity.setUniqueId(id);
+        final JobHistoryEntity archivedJob = new JobHistoryEntity(jobEntity);
+        archivedJob.setJob(
+            GenieObjectMapper.getMapper().valueToTree(EntityV3DtoConverters.toJobDto(jobEntity))
+        );
+        Mockito.when(this.jobRepository.getV3Job(id)).thenReturn(Optional.empty());
+        Mockito.when(this.jobHistoryRepository.findByUniqueId(id)).thenReturn(Optional.of(archivedJob));
+
+        final Job returnedJob = this.persistenceService.getJob(id);
+        Assertions.assertThat(returnedJob.getId()).isPresent().contains(id);
+        Assertions.assertThat(returnedJob.getStatus()).isEqualTo(com.netflix.genie.common.dto.JobStatus.SUCCEEDED);
+    }
+
     @Test
     void cantGetJobClusterIfJobDoesNotExist() {
         final String id = UUID.randomUUID().toString();
@@ -515,11 +563,35 @@ class JpaPersistenceServiceImplJobsTest {
     @Test
     void canGetUserResourceSummariesNoRecords() {
         Mockito
-            .when(this.jobRepository.getUserJobResourcesAggregates(JpaPersistenceServiceImpl.ACTIVE_STATUS_SET, true))
+            .when(this.userJobCountersRepository.findUsersWithActiveApiJobs())
             .thenReturn(Sets.newHashSet());
         Assertions
             .assertThat(this.persistenceService.getUserResourcesSummaries(JobStatus.getActiveStatuses(), true))
             .isEmpty();
+        Mockito
+            .verify(this.jobRepository, Mockito.never())
+            .getUserJobResourcesAggregates(Mockito.anySet(), Mockito.anyBoolean());
+    }
+
+    @Test
+    void canGetActiveUserResourceSummariesFromCounters() {
+        final UserJobCountersEntity counters = Mockito.mock(UserJobCountersEntity.class);
+        Mockito.when(counters.getUser()).thenReturn("foo");
+        Mockito.when(counters.getActiveJobs()).thenReturn(5L);
+        Mockito.when(counters.getMemoryAllocated()).thenReturn(5_120L);
+        Mockito.when(counters.getActiveApiJobs()).thenReturn(3L);
+        Mockito.when(counters.getApiMemoryAllocated()).thenReturn(3_072L);
+        Mockito.when(this.userJobCountersRepository.findUsersWithActiveApiJobs()).thenReturn(Sets.newHashSet(counters));
+        Mockito
+            .when(this.userJobCountersRepository.findUsersWithActiveAgentJobs())
+            .thenReturn(Sets.newHashSet(counters));
+
+        Assertions
+            .assertThat(this.persistenceService.getUserResourcesSummaries(JobStatus.getActiveStatuses(), true))
+            .containsOnly(Maps.immutableEntry("foo", new UserResourcesSummary("foo", 3, 3_072)));
+        Assertions
+            .assertThat(this.persistenceService.getUserResourcesSummaries(JobStatus.getActiveStatuses(), false))
+            .containsOnly(Maps.immutableEntry("foo", new UserResourcesSummary("foo", 2, 2_048)));
     }
 
     @Test
@@ -555,11 +627,54 @@ class JpaPersistenceServiceImplJobsTest {
         final String hostname = UUID.randomUUID().toString();
         final long totalMemory = 213_328L;
 
-        Mockito
-            .when(this.jobRepository.getTotalMemoryUsedOnHost(hostname, JpaPersistenceServiceImpl.USING_MEMORY_JOB_SET))
-            .thenReturn(totalMemory);
+        final HostJobCountersEntity counters = Mockito.mock(HostJobCountersEntity.class);
+        Mockito.when(counters.getTotalMemoryUsed()).thenReturn(totalMemory);
+        Mockito.when(this.hostJobCountersRepository.findById(hostname)).thenReturn(Optional.of(counters));
 
         Assertions.assertThat(this.persistenceService.getUsedMemoryOnHost(hostname)).isEqualTo(totalMemory);
+        Assertions.assertThat(this.persistenceService.getUsedMemoryOnHost(UUID.randomUUID().toString())).isEqualTo(0L);
+    }
+
+    @Test
+    void jobCountersFollowJobStatus() throws GenieCheckedException {
+        final String id = UUID.randomUUID().toString();
+        final String user = UUID.randomUUID().toString();
+        final String hostname = UUID.randomUUID().toString();
+        final JobEntity jobEntity = new JobEntity();
+        jobEntity.setUniqueId(id);
+        jobEntity.setUser(user);
+        jobEntity.setApi(false);
+        jobEntity.setStatus(JobStatus.ACCEPTED.name());
+        jobEntity.setMemoryUsed(1_024L);
+        Mockito.when(this.jobRepository.findByUniqueId(id)).thenReturn(Optional.of(jobEntity));
+        Mockito.when(this.hostJobCountersRepository.addToCounters(hostname, 1L, 1_024L, 1_024L)).thenReturn(0);
+
+        // The first job claimed on a host creates its counters
+        this.persistenceService.claimJob(id, new AgentClientMetadata(hostname, null, null));
+        Mockito.verify(this.hostJobCountersRepository).insertCounters(hostname, 1L, 1_024L, 1_024L);
+        Mockito
+            .verify(this.userJobCountersRepository, Mockito.never())
+            .addToCounters(
+                Mockito.anyString(),
+                Mockito.anyLong(),
+                Mockito.anyLong(),
+                Mockito.anyLong(),
+                Mockito.anyLong()
+            );
+
+        // Finishing releases everything the job held
+        this.persistenceService.updateJobStatus(id, JobStatus.CLAIMED, JobStatus.FAILED, null);
+        Mockito.verify(this.userJobCountersRepository).addToCounters(user, -1L, -1_024L, 0L, 0L);
+        Mockito.verify(this.hostJobCountersRepository).addToCounters(hostname, -1L, -1_024L, -1_024L);
+        Mockito
+            .verify(this.userJobCountersRepository, Mockito.never())
+            .insertCounters(
+                Mockito.anyString(),
+                Mockito.anyLong(),
+                Mockito.anyLong(),
+                Mockito.anyLong(),
+                Mockito.anyLong()
+            );
     }
 
     @Test
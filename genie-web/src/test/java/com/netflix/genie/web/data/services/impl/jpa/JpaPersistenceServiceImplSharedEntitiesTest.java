@@ -0,0 +1,198 @@
+/*
+ *
+ *  Copyright 2022 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.data.services.impl.jpa;
+
+import com.google.common.collect.Sets;
+import com.netflix.genie.common.internal.dtos.Cluster;
+import com.netflix.genie.common.internal.dtos.ClusterMetadata;
+import com.netflix.genie.common.internal.dtos.ClusterRequest;
+import com.netflix.genie.common.internal.dtos.ClusterStatus;
+import com.netflix.genie.common.internal.dtos.ExecutionEnvironment;
+import com.netflix.genie.common.internal.tracing.brave.BraveTracingComponents;
+import com.netflix.genie.web.data.services.impl.jpa.entities.ClusterEntity;
+import com.netflix.genie.web.data.services.impl.jpa.entities.TagEntity;
+import com.netflix.genie.web.data.services.impl.jpa.repositories.JpaClusterRepository;
+import com.netflix.genie.web.data.services.impl.jpa.repositories.JpaRepositories;
+import com.netflix.genie.web.data.services.impl.jpa.repositories.JpaTagRepository;
+import com.netflix.genie.web.exceptions.checked.IdAlreadyExistsException;
+import com.netflix.genie.web.exceptions.checked.NotFoundException;
+import com.netflix.genie.web.properties.SharedEntityCacheProperties;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityManager;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Tests for the {@link JpaPersistenceServiceImpl} focusing on the resolution of shared tag and file entities.
+ *
+ * @since 4.4.0
+ */
+class JpaPersistenceServiceImplSharedEntitiesTest {
+
+    private static final String CLUSTER_ID = "cluster1";
+    private static final String EXISTING_TAG = "type:yarn";
+    private static final String NEW_TAG = "sched:adhoc";
+
+    private final Map<String, TagEntity> storedTags = new HashMap<>();
+    private JpaPersistenceServiceImpl service;
+    private JpaTagRepository jpaTagRepository;
+    private JpaClusterRepository jpaClusterRepository;
+    private ClusterEntity clusterEntity;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setup() {
+        this.storedTags.put(EXISTING_TAG, new TagEntity(EXISTING_TAG));
+        this.clusterEntity = new ClusterEntity();
+
+        this.jpaClusterRepository = Mockito.mock(JpaClusterRepository.class);
+        Mockito.when(this.jpaClusterRepository.findByUniqueId(CLUSTER_ID)).thenReturn(Optional.of(this.clusterEntity));
+
+        this.jpaTagRepository = Mockito.mock(JpaTagRepository.class);
+        Mockito
+            .when(this.jpaTagRepository.findByTagIn(ArgumentMatchers.anySet()))
+            .thenAnswer(
+                invocation -> ((Set<String>) invocation.getArgument(0))
+                    .stream()
+                    .filter(this.storedTags::containsKey)
+                    .map(this.storedTags::get)
+                    .collect(Collectors.toSet())
+            );
+        Mockito
+            .when(this.jpaTagRepository.findByTag(ArgumentMatchers.anyString()))
+            .thenAnswer(invocation -> Optional.ofNullable(this.storedTags.get((String) invocation.getArgument(0))));
+        Mockito
+            .when(this.jpaTagRepository.saveAndFlush(ArgumentMatchers.any(TagEntity.class)))
+            .thenAnswer(
+                invocation -> {
+                    final TagEntity tagEntity = invocation.getArgument(0);
+                    this.storedTags.put(tagEntity.getTag(), tagEntity);
+                    return tagEntity;
+                }
+            );
+
+        final JpaRepositories jpaRepositories = Mockito.mock(JpaRepositories.class);
+        Mockito.when(jpaRepositories.getClusterRepository()).thenReturn(this.jpaClusterRepository);
+        Mockito.when(jpaRepositories.getTagRepository()).thenReturn(this.jpaTagRepository);
+        this.service = new JpaPersistenceServiceImpl(
+            Mockito.mock(EntityManager.class),
+            jpaRepositories,
+            Mockito.mock(BraveTracingComponents.class),
+            new SharedEntityCacheProperties()
+        );
+    }
+
+    @Test
+    void tagsAreResolvedInBulkAndCached() throws NotFoundException {
+        final Set<String> tags = Sets.newHashSet(EXISTING_TAG, NEW_TAG);
+
+        this.service.addTagsToResource(CLUSTER_ID, tags, Cluster.class);
+        Assertions.assertThat(this.clusterEntity.getTags()).extracting(TagEntity::getTag).containsOnlyElementsOf(tags);
+        Mockito.verify(this.jpaTagRepository, Mockito.times(1)).findByTagIn(tags);
+        Mockito.verify(this.jpaTagRepository, Mockito.never()).findByTag(EXISTING_TAG);
+        Mockito.verify(this.jpaTagRepository, Mockito.times(1)).saveAndFlush(ArgumentMatchers.any(TagEntity.class));
+
+        // Only entities which were found by the bulk query were cached so the created one is looked up again
+        this.service.addTagsToResource(CLUSTER_ID, tags, Cluster.class);
+        Mockito.verify(this.jpaTagRepository, Mockito.times(1)).findByTagIn(Sets.newHashSet(NEW_TAG));
+        Mockito.verify(this.jpaTagRepository, Mockito.times(1)).saveAndFlush(ArgumentMatchers.any(TagEntity.class));
+
+        // Now everything is served from memory
+        this.service.addTagsToResource(CLUSTER_ID, tags, Cluster.class);
+        Mockito.verify(this.jpaTagRepository, Mockito.times(2)).findByTagIn(ArgumentMatchers.anySet());
+        Assertions.assertThat(this.clusterEntity.getTags()).extracting(TagEntity::getTag).containsOnlyElementsOf(tags);
+    }
+
+    @Test
+    void deletingUnusedTagsInvalidatesTheCache() throws NotFoundException {
+        final Set<String> tags = Sets.newHashSet(EXISTING_TAG);
+        Mockito
+            .when(this.jpaTagRepository.findUnusedTags(ArgumentMatchers.any(Instant.class), ArgumentMatchers.anyInt()))
+            .thenReturn(Sets.newHashSet());
+        Mockito.when(this.jpaTagRepository.deleteByIdIn(ArgumentMatchers.anySet())).thenReturn(0L);
+
+        this.service.addTagsToResource(CLUSTER_ID, tags, Cluster.class);
+        this.service.addTagsToResource(CLUSTER_ID, tags, Cluster.class);
+        Mockito.verify(this.jpaTagRepository, Mockito.times(1)).findByTagIn(tags);
+
+        this.service.deleteUnusedTags(Instant.now(), 10);
+        this.service.addTagsToResource(CLUSTER_ID, tags, Cluster.class);
+        Mockito.verify(this.jpaTagRepository, Mockito.times(2)).findByTagIn(tags);
+    }
+
+    @Test
+    void failedSaveWithCachedTagsEvictsThemAndIsRetried() throws NotFoundException {
+        final Set<String> tags = Sets.newHashSet(EXISTING_TAG);
+        final ClusterRequest request = new ClusterRequest.Builder(
+            new ClusterMetadata.Builder("name", "user", "version", ClusterStatus.UP).withTags(tags).build()
+        )
+            .withRequestedId(CLUSTER_ID)
+            .withResources(new ExecutionEnvironment(null, null, null))
+            .build();
+        Mockito
+            .when(this.jpaClusterRepository.save(ArgumentMatchers.any(ClusterEntity.class)))
+            .thenThrow(new DataIntegrityViolationException("Foreign key violation"));
+
+        // Outside of a transaction the tag is cached right away
+        this.service.addTagsToResource(CLUSTER_ID, tags, Cluster.class);
+        Mockito.verify(this.jpaTagRepository, Mockito.times(1)).findByTagIn(tags);
+
+        // The tag may have been deleted by another node so the save is retried instead of reporting a reused id
+        this.inRolledBackTransaction(
+            () -> Assertions
+                .assertThatExceptionOfType(ConcurrencyFailureException.class)
+                .isThrownBy(() -> this.service.saveCluster(request))
+        );
+        Mockito.verify(this.jpaTagRepository, Mockito.times(1)).findByTagIn(tags);
+
+        // The retry goes back to the database and, without cache hits, the failure is a reused id
+        this.inRolledBackTransaction(
+            () -> Assertions
+                .assertThatExceptionOfType(IdAlreadyExistsException.class)
+                .isThrownBy(() -> this.service.saveCluster(request))
+        );
+        Mockito.verify(this.jpaTagRepository, Mockito.times(2)).findByTagIn(tags);
+    }
+
+    private void inRolledBackTransaction(final Runnable runnable) {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            runnable.run();
+            TransactionSynchronizationManager
+                .getSynchronizations()
+                .forEach(
+                    synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK)
+                );
+        } finally {
+            TransactionSynchronizationManager.clear();
+        }
+    }
+}
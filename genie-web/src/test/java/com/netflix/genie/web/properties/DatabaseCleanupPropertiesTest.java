@@ -51,11 +51,16 @@ class DatabaseCleanupPropertiesTest {
         Assertions.assertThat(this.properties.getJobCleanup().getRetention()).isEqualTo(90);
         Assertions.assertThat(this.properties.getJobCleanup().getMaxDeletedPerTransaction()).isEqualTo(1000);
         Assertions.assertThat(this.properties.getJobCleanup().getPageSize()).isEqualTo(1000);
+        Assertions.assertThat(this.properties.getJobCleanup().getThrottleFactor()).isEqualTo(1.0);
+        Assertions.assertThat(this.properties.getJobCleanup().getArchiveAfter()).isEqualTo(0);
+        Assertions.assertThat(this.properties.getJobCleanup().getBatchDaysWithin()).isEqualTo(1);
+        Assertions.assertThat(this.properties.getJobCleanup().getRollingWindowHours()).isEqualTo(1);
         Assertions.assertThat(this.properties.getClusterCleanup().isSkip()).isFalse();
         Assertions.assertThat(this.properties.getTagCleanup().isSkip()).isFalse();
         Assertions.assertThat(this.properties.getFileCleanup().isSkip()).isFalse();
         Assertions.assertThat(this.properties.getFileCleanup().getBatchDaysWithin()).isEqualTo(30);
         Assertions.assertThat(this.properties.getFileCleanup().getRollingWindowHours()).isEqualTo(12);
+        Assertions.assertThat(this.properties.getFileCleanup().getParallelism()).isEqualTo(1);
     }
 
     @Test
@@ -100,6 +105,30 @@ class DatabaseCleanupPropertiesTest {
         Assertions.assertThat(this.properties.getJobCleanup().getPageSize()).isEqualTo(size);
     }
 
+    @Test
+    void canSetJobCleanupThrottleFactor() {
+        final double throttleFactor = 0.25;
+        this.properties.getJobCleanup().setThrottleFactor(throttleFactor);
+        Assertions.assertThat(this.properties.getJobCleanup().getThrottleFactor()).isEqualTo(throttleFactor);
+    }
+
+    @Test
+    void canSetJobCleanupArchiveAfter() {
+        final int archiveAfter = 7;
+        this.properties.getJobCleanup().setArchiveAfter(archiveAfter);
+        Assertions.assertThat(this.properties.getJobCleanup().getArchiveAfter()).isEqualTo(archiveAfter);
+    }
+
+    @Test
+    void canSetJobCleanupWindows() {
+        final int batchDaysWithin = 3;
+        final int rollingWindowHours = 6;
+        this.properties.getJobCleanup().setBatchDaysWithin(batchDaysWithin);
+        this.properties.getJobCleanup().setRollingWindowHours(rollingWindowHours);
+        Assertions.assertThat(this.properties.getJobCleanup().getBatchDaysWithin()).isEqualTo(batchDaysWithin);
+        Assertions.assertThat(this.properties.getJobCleanup().getRollingWindowHours()).isEqualTo(rollingWindowHours);
+    }
+
     @Test
     void canSetSkipJobCleanup() {
         this.properties.getJobCleanup().setSkip(true);
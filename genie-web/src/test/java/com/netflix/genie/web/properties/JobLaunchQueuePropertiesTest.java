@@ -0,0 +1,81 @@
+/*
+ *
+ *  Copyright 2022 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.properties;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.core.env.Environment;
+
+import java.time.Duration;
+
+/**
+ * Unit tests for {@link JobLaunchQueueProperties}.
+ *
+ * @since 4.4.0
+ */
+class JobLaunchQueuePropertiesTest {
+    private JobLaunchQueueProperties properties;
+
+    @BeforeEach
+    void setup() {
+        this.properties = new JobLaunchQueueProperties();
+    }
+
+    @Test
+    void canConstruct() {
+        Assertions.assertThat(this.properties.isEnabled()).isFalse();
+        Assertions.assertThat(this.properties.getCapacity()).isEqualTo(1_000);
+        Assertions.assertThat(this.properties.getWorkers()).isEqualTo(4);
+        Assertions.assertThat(this.properties.getShutdownTimeout()).isEqualTo(Duration.ofSeconds(30));
+        Assertions
+            .assertThat(this.properties.getUserPriority("SomeUser"))
+            .isEqualTo(JobLaunchQueueProperties.DEFAULT_PRIORITY);
+    }
+
+    @Test
+    void canSetProperties() {
+        this.properties.setEnabled(true);
+        this.properties.setCapacity(10);
+        this.properties.setWorkers(2);
+        this.properties.setShutdownTimeout(Duration.ofMinutes(1));
+        Assertions.assertThat(this.properties.isEnabled()).isTrue();
+        Assertions.assertThat(this.properties.getCapacity()).isEqualTo(10);
+        Assertions.assertThat(this.properties.getWorkers()).isEqualTo(2);
+        Assertions.assertThat(this.properties.getShutdownTimeout()).isEqualTo(Duration.ofMinutes(1));
+    }
+
+    @Test
+    void canOverrideUserPriority() {
+        final String userName = "SomeUser";
+        final Environment environment = Mockito.mock(Environment.class);
+        Mockito
+            .when(
+                environment.getProperty(
+                    JobLaunchQueueProperties.USER_PRIORITY_OVERRIDE_PROPERTY_PREFIX + userName,
+                    Integer.class,
+                    JobLaunchQueueProperties.DEFAULT_PRIORITY
+                )
+            )
+            .thenReturn(10);
+        this.properties.setEnvironment(environment);
+
+        Assertions.assertThat(this.properties.getUserPriority(userName)).isEqualTo(10);
+    }
+}
@@ -24,9 +24,13 @@ import com.netflix.genie.web.data.services.impl.jpa.repositories.JpaClusterRepos
 import com.netflix.genie.web.data.services.impl.jpa.repositories.JpaCommandRepository;
 import com.netflix.genie.web.data.services.impl.jpa.repositories.JpaCriterionRepository;
 import com.netflix.genie.web.data.services.impl.jpa.repositories.JpaFileRepository;
+import com.netflix.genie.web.data.services.impl.jpa.repositories.JpaHostJobCountersRepository;
+import com.netflix.genie.web.data.services.impl.jpa.repositories.JpaJobHistoryRepository;
 import com.netflix.genie.web.data.services.impl.jpa.repositories.JpaJobRepository;
 import com.netflix.genie.web.data.services.impl.jpa.repositories.JpaRepositories;
 import com.netflix.genie.web.data.services.impl.jpa.repositories.JpaTagRepository;
+import com.netflix.genie.web.data.services.impl.jpa.repositories.JpaUserJobCountersRepository;
+import com.netflix.genie.web.properties.SharedEntityCacheProperties;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
@@ -62,8 +66,12 @@ class DataAutoConfigurationTest {
                 Assertions.assertThat(context).hasSingleBean(JpaCommandRepository.class);
                 Assertions.assertThat(context).hasSingleBean(JpaCriterionRepository.class);
                 Assertions.assertThat(context).hasSingleBean(JpaFileRepository.class);
+                Assertions.assertThat(context).hasSingleBean(JpaHostJobCountersRepository.class);
+                Assertions.assertThat(context).hasSingleBean(JpaJobHistoryRepository.class);
                 Assertions.assertThat(context).hasSingleBean(JpaJobRepository.class);
                 Assertions.assertThat(context).hasSingleBean(JpaTagRepository.class);
+                Assertions.assertThat(context).hasSingleBean(JpaUserJobCountersRepository.class);
+                Assertions.assertThat(context).hasSingleBean(SharedEntityCacheProperties.class);
 
                 Assertions.assertThat(context).hasSingleBean(JpaRepositories.class);
                 Assertions.assertThat(context).hasSingleBean(DataServices.class);
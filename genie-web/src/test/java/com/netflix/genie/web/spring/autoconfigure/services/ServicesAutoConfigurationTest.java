@@ -28,6 +28,7 @@ import com.netflix.genie.web.agent.services.AgentFileStreamService;
 import com.netflix.genie.web.agent.services.AgentRoutingService;
 import com.netflix.genie.web.data.services.DataServices;
 import com.netflix.genie.web.properties.AttachmentServiceProperties;
+import com.netflix.genie.web.properties.JobLaunchQueueProperties;
 import com.netflix.genie.web.properties.JobResolutionProperties;
 import com.netflix.genie.web.properties.JobsActiveLimitProperties;
 import com.netflix.genie.web.properties.JobsForwardingProperties;
@@ -35,6 +36,7 @@ import com.netflix.genie.web.properties.JobsLocationsProperties;
 import com.netflix.genie.web.properties.JobsMemoryProperties;
 import com.netflix.genie.web.properties.JobsProperties;
 import com.netflix.genie.web.properties.JobsUsersProperties;
+import com.netflix.genie.web.properties.ResourceCatalogProperties;
 import com.netflix.genie.web.selectors.AgentLauncherSelector;
 import com.netflix.genie.web.selectors.ClusterSelector;
 import com.netflix.genie.web.selectors.CommandSelector;
@@ -44,6 +46,7 @@ import com.netflix.genie.web.services.JobDirectoryServerService;
 import com.netflix.genie.web.services.JobLaunchService;
 import com.netflix.genie.web.services.JobResolverService;
 import com.netflix.genie.web.services.RequestForwardingService;
+import com.netflix.genie.web.services.ResourceCatalogService;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.assertj.core.api.Assertions;
@@ -53,6 +56,7 @@ import org.springframework.boot.autoconfigure.AutoConfigurations;
 import org.springframework.boot.test.context.runner.ApplicationContextRunner;
 import org.springframework.context.annotation.Bean;
 import org.springframework.core.io.ResourceLoader;
+import org.springframework.scheduling.TaskScheduler;
 import org.springframework.web.client.RestTemplate;
 
 import java.util.UUID;
@@ -84,6 +88,7 @@ class ServicesAutoConfigurationTest {
                 .hasSingleBean(JobsMemoryProperties.class)
                 .hasSingleBean(JobsUsersProperties.class)
                 .hasSingleBean(JobsActiveLimitProperties.class)
+                .hasSingleBean(JobLaunchQueueProperties.class)
                 .hasSingleBean(AttachmentServiceProperties.class)
                 .hasSingleBean(JobsProperties.class)
                 .hasSingleBean(AttachmentService.class)
@@ -93,9 +98,23 @@ class ServicesAutoConfigurationTest {
                 .hasSingleBean(ArchivedJobService.class)
                 .hasSingleBean(RequestForwardingService.class)
                 .hasSingleBean(JobResolutionProperties.class)
+                .hasSingleBean(ResourceCatalogProperties.class)
+                .doesNotHaveBean(ResourceCatalogService.class)
         );
     }
 
+    @Test
+    void canCreateResourceCatalogWhenEnabled() {
+        this.contextRunner
+            .withPropertyValues(ResourceCatalogProperties.ENABLED_PROPERTY + "=true")
+            .run(
+                context -> Assertions
+                    .assertThat(context)
+                    .hasSingleBean(ResourceCatalogService.class)
+                    .hasSingleBean(JobResolverService.class)
+            );
+    }
+
     private static class RequiredMockConfig {
 
         @Bean
@@ -153,6 +172,11 @@ class ServicesAutoConfigurationTest {
             return new GenieHostInfo(UUID.randomUUID().toString());
         }
 
+        @Bean(name = "genieTaskScheduler")
+        TaskScheduler genieTaskScheduler() {
+            return Mockito.mock(TaskScheduler.class);
+        }
+
         @Bean(name = "genieRestTemplate")
         RestTemplate genieRestTemplate() {
             return new RestTemplate();
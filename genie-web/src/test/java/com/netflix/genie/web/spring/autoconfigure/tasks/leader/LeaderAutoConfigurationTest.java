@@ -21,14 +21,17 @@ import com.netflix.genie.common.internal.util.GenieHostInfo;
 import com.netflix.genie.web.agent.services.AgentRoutingService;
 import com.netflix.genie.web.data.services.DataServices;
 import com.netflix.genie.web.data.services.PersistenceService;
+import com.netflix.genie.web.dtos.ShardAssignment;
 import com.netflix.genie.web.events.GenieEventBus;
 import com.netflix.genie.web.properties.AgentCleanupProperties;
 import com.netflix.genie.web.properties.ArchiveStatusCleanupProperties;
 import com.netflix.genie.web.properties.DatabaseCleanupProperties;
 import com.netflix.genie.web.properties.JobsProperties;
 import com.netflix.genie.web.properties.LeadershipProperties;
+import com.netflix.genie.web.properties.TaskShardingProperties;
 import com.netflix.genie.web.properties.UserMetricsProperties;
 import com.netflix.genie.web.services.ClusterLeaderService;
+import com.netflix.genie.web.services.TaskShardService;
 import com.netflix.genie.web.spring.actuators.LeaderElectionActuator;
 import com.netflix.genie.web.spring.autoconfigure.tasks.TasksAutoConfiguration;
 import com.netflix.genie.web.tasks.leader.AgentJobCleanupTask;
@@ -49,6 +52,8 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.integration.zookeeper.leader.LeaderInitiator;
 import org.springframework.web.client.RestTemplate;
 
+import java.util.Collections;
+
 /**
  * Unit tests for the {@link LeaderAutoConfiguration} class.
  *
@@ -157,6 +162,42 @@ class LeaderAutoConfigurationTest {
             );
     }
 
+    /**
+     * Without Zookeeper there is nothing to coordinate the sharding with so the tasks stay with the leader.
+     */
+    @Test
+    void shardingRequiresZookeeper() {
+        this.contextRunner
+            .withPropertyValues(
+                "genie.tasks.sharding.enabled=true",
+                "genie.tasks.database-cleanup.enabled=true"
+            )
+            .run(
+                context -> {
+                    Assertions.assertThat(context).hasSingleBean(TaskShardingProperties.class);
+                    Assertions.assertThat(context).doesNotHaveBean(TaskShardService.class);
+                    Assertions.assertThat(context.getBean(DatabaseCleanupTask.class).isSharded()).isFalse();
+                }
+            );
+    }
+
+    /**
+     * The cleanup tasks share their work when a {@link TaskShardService} is available.
+     */
+    @Test
+    void tasksAreShardedWhenTaskShardServiceExists() {
+        final TaskShardService taskShardService = Mockito.mock(TaskShardService.class);
+        Mockito
+            .when(taskShardService.getAssignment())
+            .thenReturn(new ShardAssignment("node", Collections.singleton("node")));
+        this.contextRunner
+            .withPropertyValues("genie.tasks.database-cleanup.enabled=true")
+            .withBean(TaskShardService.class, () -> taskShardService)
+            .run(
+                context -> Assertions.assertThat(context.getBean(DatabaseCleanupTask.class).isSharded()).isTrue()
+            );
+    }
+
     static class MockBeanConfig {
 
         @Bean
@@ -17,27 +17,35 @@
  */
 package com.netflix.genie.web.tasks.leader;
 
+import com.google.common.collect.Lists;
 import com.netflix.genie.common.internal.dtos.ClusterStatus;
 import com.netflix.genie.common.internal.dtos.CommandStatus;
 import com.netflix.genie.common.internal.dtos.JobStatus;
 import com.netflix.genie.common.internal.jobs.JobConstants;
 import com.netflix.genie.web.data.services.DataServices;
 import com.netflix.genie.web.data.services.PersistenceService;
+import com.netflix.genie.web.dtos.ShardAssignment;
 import com.netflix.genie.web.properties.DatabaseCleanupProperties;
+import com.netflix.genie.web.services.TaskShardService;
 import com.netflix.genie.web.tasks.GenieTaskScheduleType;
+import com.netflix.genie.web.util.MetricsConstants;
 import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.Mockito;
 import org.springframework.mock.env.MockEnvironment;
 import org.springframework.scheduling.Trigger;
 import org.springframework.scheduling.support.CronTrigger;
 
 import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 import java.util.Calendar;
 import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Unit tests for {@link DatabaseCleanupTask}.
@@ -57,6 +65,7 @@ class DatabaseCleanupTaskTest {
     private DatabaseCleanupProperties.TagDatabaseCleanupProperties tagCleanupProperties;
     private MockEnvironment environment;
     private PersistenceService persistenceService;
+    private SimpleMeterRegistry registry;
     private DatabaseCleanupTask task;
 
     /**
@@ -85,11 +94,12 @@ class DatabaseCleanupTaskTest {
         this.persistenceService = Mockito.mock(PersistenceService.class);
         final DataServices dataServices = Mockito.mock(DataServices.class);
         Mockito.when(dataServices.getPersistenceService()).thenReturn(this.persistenceService);
+        this.registry = new SimpleMeterRegistry();
         this.task = new DatabaseCleanupTask(
             this.cleanupProperties,
             this.environment,
             dataServices,
-            new SimpleMeterRegistry()
+            this.registry
         );
     }
 
@@ -144,7 +154,8 @@ class DatabaseCleanupTaskTest {
         final long deletedCount3 = 2L;
         Mockito
             .when(
-                this.persistenceService.deleteJobsCreatedBefore(
+                this.persistenceService.deleteJobsCreatedBetween(
+                    Mockito.any(Instant.class),
                     Mockito.any(Instant.class),
                     Mockito.eq(JobStatus.getActiveStatuses()),
                     Mockito.eq(pageSize)
@@ -203,7 +214,8 @@ class DatabaseCleanupTaskTest {
         if (before.get(Calendar.DAY_OF_YEAR) == after.get(Calendar.DAY_OF_YEAR)) {
             Mockito
                 .verify(this.persistenceService, Mockito.times(5))
-                .deleteJobsCreatedBefore(
+                .deleteJobsCreatedBetween(
+                    Mockito.eq(Instant.EPOCH),
                     argument.capture(),
                     Mockito.eq(JobStatus.getActiveStatuses()),
                     Mockito.eq(pageSize)
@@ -248,6 +260,157 @@ class DatabaseCleanupTaskTest {
         }
     }
 
+    /**
+     * Make sure the rolling windows of unused files are all deleted when they're spread across several threads.
+     */
+    @Test
+    void canDeleteFilesConcurrently() {
+        final int batchSize = 100;
+        Mockito.when(this.cleanupProperties.getBatchSize()).thenReturn(batchSize);
+        Mockito.when(this.fileCleanupProperties.getBatchDaysWithin()).thenReturn(3);
+        Mockito.when(this.fileCleanupProperties.getRollingWindowHours()).thenReturn(12);
+        Mockito.when(this.jobCleanupProperties.getPageSize()).thenReturn(10);
+        this.environment.setProperty(
+            DatabaseCleanupProperties.FileDatabaseCleanupProperties.PARALLELISM_PROPERTY,
+            "4"
+        );
+
+        this.task.run();
+
+        // Six 12 hour windows within the last three days and one for everything older
+        final ArgumentCaptor<Instant> lowerBounds = ArgumentCaptor.forClass(Instant.class);
+        final ArgumentCaptor<Instant> upperBounds = ArgumentCaptor.forClass(Instant.class);
+        Mockito
+            .verify(this.persistenceService, Mockito.times(7))
+            .deleteUnusedFiles(lowerBounds.capture(), upperBounds.capture(), Mockito.eq(batchSize));
+        Assertions.assertThat(upperBounds.getAllValues()).doesNotHaveDuplicates();
+        Assertions.assertThat(lowerBounds.getAllValues()).contains(Instant.EPOCH);
+    }
+
+    /**
+     * Make sure a sharded task only does the parts of the cleanup assigned to this node.
+     */
+    @Test
+    void canRunSharded() {
+        final int batchSize = 100;
+        Mockito.when(this.cleanupProperties.getBatchSize()).thenReturn(batchSize);
+        Mockito.when(this.fileCleanupProperties.getBatchDaysWithin()).thenReturn(3);
+        Mockito.when(this.fileCleanupProperties.getRollingWindowHours()).thenReturn(12);
+        final ShardAssignment assignment = Mockito.mock(ShardAssignment.class);
+        Mockito.when(assignment.isAssigned("databaseCleanup/clusters")).thenReturn(true);
+        Mockito.when(assignment.isAssigned("databaseCleanup/files/0")).thenReturn(true);
+        final TaskShardService taskShardService = Mockito.mock(TaskShardService.class);
+        Mockito.when(taskShardService.getAssignment()).thenReturn(assignment);
+        final DataServices dataServices = Mockito.mock(DataServices.class);
+        Mockito.when(dataServices.getPersistenceService()).thenReturn(this.persistenceService);
+        final DatabaseCleanupTask shardedTask = new DatabaseCleanupTask(
+            this.cleanupProperties,
+            this.environment,
+            dataServices,
+            new SimpleMeterRegistry(),
+            taskShardService
+        );
+        Assertions.assertThat(shardedTask.isSharded()).isTrue();
+        Assertions.assertThat(this.task.isSharded()).isFalse();
+
+        shardedTask.run();
+
+        Mockito
+            .verify(this.persistenceService, Mockito.never())
+            .deleteJobsCreatedBetween(
+                Mockito.any(Instant.class),
+                Mockito.any(Instant.class),
+                Mockito.anySet(),
+                Mockito.anyInt()
+            );
+        Mockito
+            .verify(this.persistenceService, Mockito.times(1))
+            .deleteUnusedClusters(Mockito.anySet(), Mockito.any(Instant.class), Mockito.eq(batchSize));
+        Mockito
+            .verify(this.persistenceService, Mockito.never())
+            .deleteUnusedCommands(Mockito.anySet(), Mockito.any(Instant.class), Mockito.anyInt());
+        Mockito
+            .verify(this.persistenceService, Mockito.never())
+            .deleteUnusedApplications(Mockito.any(Instant.class), Mockito.anyInt());
+        Mockito
+            .verify(this.persistenceService, Mockito.never())
+            .deleteUnusedTags(Mockito.any(Instant.class), Mockito.anyInt());
+        Mockito
+            .verify(this.persistenceService, Mockito.times(1))
+            .deleteUnusedFiles(Mockito.any(Instant.class), Mockito.any(Instant.class), Mockito.eq(batchSize));
+    }
+
+    /**
+     * Make sure a sharded task only archives and deletes the windows of jobs assigned to this node.
+     */
+    @Test
+    void canShardJobCleanupByCreationWindows() {
+        final int pageSize = 10;
+        Mockito.when(this.jobCleanupProperties.getRetention()).thenReturn(90);
+        Mockito.when(this.jobCleanupProperties.getPageSize()).thenReturn(pageSize);
+        Mockito.when(this.jobCleanupProperties.getArchiveAfter()).thenReturn(7);
+        Mockito.when(this.jobCleanupProperties.getBatchDaysWithin()).thenReturn(1);
+        Mockito.when(this.jobCleanupProperties.getRollingWindowHours()).thenReturn(12);
+        final ShardAssignment assignment = Mockito.mock(ShardAssignment.class);
+        // Two 12 hour windows within a day of each threshold and one for everything older
+        Mockito.when(assignment.isAssigned("databaseCleanup/jobArchival/0")).thenReturn(true);
+        Mockito.when(assignment.isAssigned("databaseCleanup/jobs/2")).thenReturn(true);
+        final TaskShardService taskShardService = Mockito.mock(TaskShardService.class);
+        Mockito.when(taskShardService.getAssignment()).thenReturn(assignment);
+        final DataServices dataServices = Mockito.mock(DataServices.class);
+        Mockito.when(dataServices.getPersistenceService()).thenReturn(this.persistenceService);
+        final DatabaseCleanupTask shardedTask = new DatabaseCleanupTask(
+            this.cleanupProperties,
+            this.environment,
+            dataServices,
+            new SimpleMeterRegistry(),
+            taskShardService
+        );
+        Mockito
+            .when(
+                this.persistenceService.archiveJobsFinishedBefore(
+                    Mockito.any(Instant.class),
+                    Mockito.any(Instant.class),
+                    Mockito.any(Instant.class),
+                    Mockito.eq(pageSize)
+                )
+            )
+            .thenReturn(4L, 0L);
+
+        shardedTask.run();
+
+        final ArgumentCaptor<Instant> archiveLimit = ArgumentCaptor.forClass(Instant.class);
+        final ArgumentCaptor<Instant> archiveLowerBound = ArgumentCaptor.forClass(Instant.class);
+        final ArgumentCaptor<Instant> archiveUpperBound = ArgumentCaptor.forClass(Instant.class);
+        Mockito
+            .verify(this.persistenceService, Mockito.times(2))
+            .archiveJobsFinishedBefore(
+                archiveLimit.capture(),
+                archiveLowerBound.capture(),
+                archiveUpperBound.capture(),
+                Mockito.eq(pageSize)
+            );
+        Assertions.assertThat(archiveUpperBound.getValue()).isEqualTo(archiveLimit.getValue());
+        Assertions
+            .assertThat(archiveLowerBound.getValue())
+            .isEqualTo(archiveLimit.getValue().minus(12L, ChronoUnit.HOURS));
+
+        final ArgumentCaptor<Instant> deleteUpperBound = ArgumentCaptor.forClass(Instant.class);
+        Mockito
+            .verify(this.persistenceService, Mockito.times(1))
+            .deleteJobsCreatedBetween(
+                Mockito.eq(Instant.EPOCH),
+                deleteUpperBound.capture(),
+                Mockito.eq(JobStatus.getActiveStatuses()),
+                Mockito.eq(pageSize)
+            );
+        // The final window holds everything created over a day before the retention limit, 90 days before midnight
+        Assertions
+            .assertThat(deleteUpperBound.getValue())
+            .isEqualTo(archiveLimit.getValue().minus(90L - 7L + 1L, ChronoUnit.DAYS));
+        Mockito.verifyNoMoreInteractions(this.persistenceService);
+    }
+
     /**
      * Make sure the run method throws when an error is encountered.
      */
@@ -264,7 +427,8 @@ class DatabaseCleanupTaskTest {
 
         Mockito
             .when(
-                this.persistenceService.deleteJobsCreatedBefore(
+                this.persistenceService.deleteJobsCreatedBetween(
+                    Mockito.any(Instant.class),
                     Mockito.any(Instant.class),
                     Mockito.anySet(),
                     Mockito.anyInt()
@@ -275,6 +439,150 @@ class DatabaseCleanupTaskTest {
         Assertions.assertThatExceptionOfType(RuntimeException.class).isThrownBy(() -> this.task.run());
     }
 
+    /**
+     * Make sure finished jobs are archived before old jobs are deleted when archival is enabled.
+     */
+    @Test
+    void canArchiveJobs() {
+        final int pageSize = 10;
+        this.environment.setProperty(
+            DatabaseCleanupProperties.JobDatabaseCleanupProperties.ARCHIVE_AFTER_PROPERTY,
+            "7"
+        );
+        Mockito.when(this.jobCleanupProperties.getRetention()).thenReturn(90);
+        Mockito.when(this.jobCleanupProperties.getPageSize()).thenReturn(pageSize);
+        Mockito
+            .when(
+                this.persistenceService.archiveJobsFinishedBefore(
+                    Mockito.any(Instant.class),
+                    Mockito.eq(Instant.EPOCH),
+                    Mockito.any(Instant.class),
+                    Mockito.eq(pageSize)
+                )
+            )
+            .thenReturn(10L, 3L, 0L);
+
+        this.task.run();
+
+        final ArgumentCaptor<Instant> argument = ArgumentCaptor.forClass(Instant.class);
+        final InOrder inOrder = Mockito.inOrder(this.persistenceService);
+        inOrder
+            .verify(this.persistenceService, Mockito.times(3))
+            .archiveJobsFinishedBefore(
+                argument.capture(),
+                Mockito.eq(Instant.EPOCH),
+                Mockito.any(Instant.class),
+                Mockito.eq(pageSize)
+            );
+        inOrder
+            .verify(this.persistenceService, Mockito.times(1))
+            .deleteJobsCreatedBetween(
+                Mockito.any(Instant.class),
+                Mockito.any(Instant.class),
+                Mockito.eq(JobStatus.getActiveStatuses()),
+                Mockito.eq(pageSize)
+            );
+        Assertions
+            .assertThat(argument.getValue())
+            .isBeforeOrEqualTo(Instant.now().minus(7L, ChronoUnit.DAYS));
+    }
+
+    /**
+     * Make sure the task backs off between job deletion batches in proportion to how long each batch took.
+     */
+    @Test
+    void canPauseBetweenJobDeletionBatches() {
+        final int pageSize = 10;
+        final long batchMillis = 50L;
+        this.environment.setProperty(
+            DatabaseCleanupProperties.JobDatabaseCleanupProperties.THROTTLE_FACTOR_PROPERTY,
+            "2.0"
+        );
+        Mockito.when(this.jobCleanupProperties.getRetention()).thenReturn(90);
+        Mockito.when(this.jobCleanupProperties.getPageSize()).thenReturn(pageSize);
+        final List<Long> batchStarts = Lists.newArrayList();
+        final List<Long> deletedCounts = Lists.newArrayList(5L, 5L, 0L);
+        Mockito
+            .when(
+                this.persistenceService.deleteJobsCreatedBetween(
+                    Mockito.any(Instant.class),
+                    Mockito.any(Instant.class),
+                    Mockito.eq(JobStatus.getActiveStatuses()),
+                    Mockito.eq(pageSize)
+                )
+            )
+            .thenAnswer(
+                invocation -> {
+                    batchStarts.add(System.nanoTime());
+                    Thread.sleep(batchMillis);
+                    return deletedCounts.remove(0);
+                }
+            );
+
+        this.task.run();
+
+        Assertions.assertThat(batchStarts).hasSize(3);
+        // Each batch which deleted jobs is followed by a pause of at least twice its own duration
+        for (int i = 1; i < batchStarts.size(); i++) {
+            Assertions
+                .assertThat(TimeUnit.NANOSECONDS.toMillis(batchStarts.get(i) - batchStarts.get(i - 1)))
+                .isGreaterThanOrEqualTo(batchMillis * 3);
+        }
+    }
+
+    /**
+     * Make sure the timers and gauges for the job deletion are recorded and reset.
+     */
+    @Test
+    void canRecordJobDeletionMetrics() {
+        final int pageSize = 10;
+        Mockito.when(this.cleanupProperties.getBatchSize()).thenReturn(100);
+        Mockito.when(this.fileCleanupProperties.getBatchDaysWithin()).thenReturn(3);
+        Mockito.when(this.fileCleanupProperties.getRollingWindowHours()).thenReturn(12);
+        Mockito.when(this.jobCleanupProperties.getRetention()).thenReturn(90);
+        Mockito.when(this.jobCleanupProperties.getPageSize()).thenReturn(pageSize);
+        Mockito
+            .when(
+                this.persistenceService.deleteJobsCreatedBetween(
+                    Mockito.any(Instant.class),
+                    Mockito.any(Instant.class),
+                    Mockito.eq(JobStatus.getActiveStatuses()),
+                    Mockito.eq(pageSize)
+                )
+            )
+            .thenReturn(6L, 4L, 0L);
+
+        this.task.run();
+
+        Assertions
+            .assertThat(this.registry.get("genie.tasks.databaseCleanup.jobDeletionBatch.timer").timer().count())
+            .isEqualTo(3L);
+        Assertions
+            .assertThat(
+                this.registry
+                    .get("genie.tasks.databaseCleanup.duration.timer")
+                    .tag(MetricsConstants.TagKeys.STATUS, MetricsConstants.TagValues.SUCCESS)
+                    .timer()
+                    .count()
+            )
+            .isEqualTo(1L);
+        Assertions
+            .assertThat(this.registry.get("genie.tasks.databaseCleanup.numDeletedJobs.gauge").gauge().value())
+            .isEqualTo(10.0);
+        Assertions
+            .assertThat(this.registry.get("genie.tasks.databaseCleanup.jobDeletionRate.gauge").gauge().value())
+            .isPositive();
+
+        this.task.cleanup();
+
+        Assertions
+            .assertThat(this.registry.get("genie.tasks.databaseCleanup.numDeletedJobs.gauge").gauge().value())
+            .isEqualTo(0.0);
+        Assertions
+            .assertThat(this.registry.get("genie.tasks.databaseCleanup.jobDeletionRate.gauge").gauge().value())
+            .isEqualTo(0.0);
+    }
+
     /**
      * Make sure individual cleanup sub-tasks are skipped according to properties.
      */
@@ -319,7 +627,8 @@ class DatabaseCleanupTaskTest {
             );
         Mockito
             .verify(this.persistenceService, Mockito.never())
-            .deleteJobsCreatedBefore(
+            .deleteJobsCreatedBetween(
+                Mockito.any(Instant.class),
                 Mockito.any(Instant.class),
                 Mockito.anySet(),
                 Mockito.anyInt()
@@ -19,6 +19,7 @@ package com.netflix.genie.web.tasks.leader;
 
 import com.google.common.collect.Sets;
 import com.netflix.genie.web.tasks.GenieTaskScheduleType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
@@ -26,11 +27,12 @@ import org.springframework.integration.leader.Context;
 import org.springframework.integration.leader.event.AbstractLeaderEvent;
 import org.springframework.integration.leader.event.OnGrantedEvent;
 import org.springframework.integration.leader.event.OnRevokedEvent;
-import org.springframework.scheduling.TaskScheduler;
 import org.springframework.scheduling.Trigger;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 
 import java.util.Set;
 import java.util.concurrent.ScheduledFuture;
+import java.util.function.Function;
 
 /**
  * Unit tests for LeadershipTasksCoordinator.
@@ -41,7 +43,8 @@ import java.util.concurrent.ScheduledFuture;
 class LeaderTasksCoordinatorTest {
 
     private LeaderTasksCoordinator coordinator;
-    private TaskScheduler scheduler;
+    private ThreadPoolTaskScheduler scheduler;
+    private Function<String, ThreadPoolTaskScheduler> schedulerFactory;
     private LeaderTask task1;
     private LeaderTask task2;
     private LeaderTask task3;
@@ -50,13 +53,16 @@ class LeaderTasksCoordinatorTest {
      * Setup for the tests.
      */
     @BeforeEach
+    @SuppressWarnings("unchecked")
     void setup() {
-        this.scheduler = Mockito.mock(TaskScheduler.class);
+        this.scheduler = Mockito.mock(ThreadPoolTaskScheduler.class);
+        this.schedulerFactory = Mockito.mock(Function.class);
+        Mockito.when(this.schedulerFactory.apply(Mockito.anyString())).thenReturn(this.scheduler);
         this.task1 = Mockito.mock(LeaderTask.class);
         this.task2 = Mockito.mock(LeaderTask.class);
         this.task3 = Mockito.mock(LeaderTask.class);
         final Set<LeaderTask> tasks = Sets.newHashSet(this.task1, this.task2, this.task3);
-        this.coordinator = new LeaderTasksCoordinator(this.scheduler, tasks);
+        this.coordinator = new LeaderTasksCoordinator(tasks, new SimpleMeterRegistry(), this.schedulerFactory);
     }
 
     /**
@@ -78,22 +84,28 @@ class LeaderTasksCoordinatorTest {
 
         this.coordinator.onLeaderEvent(event);
 
-        Mockito.verify(this.scheduler, Mockito.times(1)).scheduleAtFixedRate(this.task1, task1Period);
+        Mockito.verify(this.scheduler, Mockito.times(1))
+            .scheduleAtFixedRate(Mockito.any(MonitoredLeaderTask.class), Mockito.eq(task1Period));
         Mockito.verify(this.task1, Mockito.never()).getFixedDelay();
         Mockito.verify(this.task1, Mockito.never()).getTrigger();
-        Mockito.verify(this.scheduler, Mockito.times(1)).scheduleWithFixedDelay(this.task2, task2Period);
+        Mockito.verify(this.scheduler, Mockito.times(1))
+            .scheduleWithFixedDelay(Mockito.any(MonitoredLeaderTask.class), Mockito.eq(task2Period));
         Mockito.verify(this.task2, Mockito.never()).getFixedRate();
         Mockito.verify(this.task2, Mockito.never()).getTrigger();
-        Mockito.verify(this.scheduler, Mockito.times(1)).schedule(this.task3, task3Trigger);
+        Mockito.verify(this.scheduler, Mockito.times(1))
+            .schedule(Mockito.any(MonitoredLeaderTask.class), Mockito.any(Trigger.class));
         Mockito.verify(this.task3, Mockito.never()).getFixedRate();
         Mockito.verify(this.task3, Mockito.never()).getFixedDelay();
 
         //Make sure a second OnGrantedEvent doesn't do anything if it's already running
         this.coordinator.onLeaderEvent(event);
 
-        Mockito.verify(this.scheduler, Mockito.times(1)).scheduleAtFixedRate(this.task1, task1Period);
-        Mockito.verify(this.scheduler, Mockito.times(1)).scheduleWithFixedDelay(this.task2, task2Period);
-        Mockito.verify(this.scheduler, Mockito.times(1)).schedule(this.task3, task3Trigger);
+        Mockito.verify(this.scheduler, Mockito.times(1))
+            .scheduleAtFixedRate(Mockito.any(MonitoredLeaderTask.class), Mockito.eq(task1Period));
+        Mockito.verify(this.scheduler, Mockito.times(1))
+            .scheduleWithFixedDelay(Mockito.any(MonitoredLeaderTask.class), Mockito.eq(task2Period));
+        Mockito.verify(this.scheduler, Mockito.times(1))
+            .schedule(Mockito.any(MonitoredLeaderTask.class), Mockito.any(Trigger.class));
     }
 
     /**
@@ -114,27 +126,38 @@ class LeaderTasksCoordinatorTest {
 
         final ScheduledFuture future1 = Mockito.mock(ScheduledFuture.class);
         Mockito.when(future1.cancel(true)).thenReturn(true);
-        Mockito.when(this.scheduler.scheduleAtFixedRate(this.task1, task1Period)).thenReturn(future1);
+        Mockito
+            .when(this.scheduler.scheduleAtFixedRate(Mockito.any(MonitoredLeaderTask.class), Mockito.eq(task1Period)))
+            .thenReturn(future1);
 
         final ScheduledFuture future2 = Mockito.mock(ScheduledFuture.class);
         Mockito.when(future2.cancel(true)).thenReturn(true);
-        Mockito.when(this.scheduler.scheduleWithFixedDelay(this.task2, task2Period)).thenReturn(future2);
+        Mockito
+            .when(
+                this.scheduler.scheduleWithFixedDelay(Mockito.any(MonitoredLeaderTask.class), Mockito.eq(task2Period))
+            )
+            .thenReturn(future2);
 
         final ScheduledFuture future3 = Mockito.mock(ScheduledFuture.class);
         Mockito.when(future3.cancel(true)).thenReturn(false);
-        Mockito.when(this.scheduler.schedule(this.task3, task3Trigger)).thenReturn(future3);
+        Mockito
+            .when(this.scheduler.schedule(Mockito.any(MonitoredLeaderTask.class), Mockito.any(Trigger.class)))
+            .thenReturn(future3);
 
         final OnGrantedEvent grantedEvent = new OnGrantedEvent(this, null, "blah");
 
         this.coordinator.onLeaderEvent(grantedEvent);
 
-        Mockito.verify(this.scheduler, Mockito.times(1)).scheduleAtFixedRate(this.task1, task1Period);
+        Mockito.verify(this.scheduler, Mockito.times(1))
+            .scheduleAtFixedRate(Mockito.any(MonitoredLeaderTask.class), Mockito.eq(task1Period));
         Mockito.verify(this.task1, Mockito.never()).getFixedDelay();
         Mockito.verify(this.task1, Mockito.never()).getTrigger();
-        Mockito.verify(this.scheduler, Mockito.times(1)).scheduleWithFixedDelay(this.task2, task2Period);
+        Mockito.verify(this.scheduler, Mockito.times(1))
+            .scheduleWithFixedDelay(Mockito.any(MonitoredLeaderTask.class), Mockito.eq(task2Period));
         Mockito.verify(this.task2, Mockito.never()).getFixedRate();
         Mockito.verify(this.task2, Mockito.never()).getTrigger();
-        Mockito.verify(this.scheduler, Mockito.times(1)).schedule(this.task3, task3Trigger);
+        Mockito.verify(this.scheduler, Mockito.times(1))
+            .schedule(Mockito.any(MonitoredLeaderTask.class), Mockito.any(Trigger.class));
         Mockito.verify(this.task3, Mockito.never()).getFixedRate();
         Mockito.verify(this.task3, Mockito.never()).getFixedDelay();
 
@@ -147,6 +170,8 @@ class LeaderTasksCoordinatorTest {
         Mockito.verify(future1, Mockito.times(1)).cancel(true);
         Mockito.verify(future2, Mockito.times(1)).cancel(true);
         Mockito.verify(future3, Mockito.times(1)).cancel(true);
+        Mockito.verify(this.schedulerFactory, Mockito.times(3)).apply(Mockito.anyString());
+        Mockito.verify(this.scheduler, Mockito.times(3)).shutdown();
 
         // Call again to make sure nothing is invoked even though they were cancelled
         this.coordinator.onLeaderEvent(revokedEvent);
@@ -154,6 +179,51 @@ class LeaderTasksCoordinatorTest {
         Mockito.verify(future1, Mockito.times(1)).cancel(true);
         Mockito.verify(future2, Mockito.times(1)).cancel(true);
         Mockito.verify(future3, Mockito.times(1)).cancel(true);
+        Mockito.verify(this.scheduler, Mockito.times(3)).shutdown();
+    }
+
+    /**
+     * Make sure sharded tasks run on every node regardless of leadership.
+     */
+    @Test
+    void shardedTasksRunWithoutLeadership() {
+        final LeaderTask shardedTask = Mockito.mock(LeaderTask.class);
+        Mockito.when(shardedTask.isSharded()).thenReturn(true);
+        Mockito.when(shardedTask.getScheduleType()).thenReturn(GenieTaskScheduleType.FIXED_RATE);
+        Mockito.when(shardedTask.getFixedRate()).thenReturn(1000L);
+        Mockito.when(this.task1.getScheduleType()).thenReturn(GenieTaskScheduleType.FIXED_DELAY);
+        Mockito.when(this.task1.getFixedDelay()).thenReturn(2000L);
+        final ScheduledFuture<?> future = Mockito.mock(ScheduledFuture.class);
+        Mockito
+            .doReturn(future)
+            .when(this.scheduler)
+            .scheduleAtFixedRate(Mockito.any(MonitoredLeaderTask.class), Mockito.eq(1000L));
+        final ScheduledFuture<?> leaderFuture = Mockito.mock(ScheduledFuture.class);
+        Mockito
+            .doReturn(leaderFuture)
+            .when(this.scheduler)
+            .scheduleWithFixedDelay(Mockito.any(MonitoredLeaderTask.class), Mockito.eq(2000L));
+        final LeaderTasksCoordinator shardedCoordinator = new LeaderTasksCoordinator(
+            Sets.newHashSet(shardedTask, this.task1),
+            new SimpleMeterRegistry(),
+            this.schedulerFactory
+        );
+
+        shardedCoordinator.postConstruct();
+
+        Mockito.verify(shardedTask, Mockito.times(1)).getScheduleType();
+        Mockito.verify(this.task1, Mockito.never()).getScheduleType();
+
+        // Losing leadership doesn't stop sharded tasks
+        shardedCoordinator.onLeaderEvent(new OnGrantedEvent(this, null, "blah"));
+        shardedCoordinator.onLeaderEvent(new OnRevokedEvent(this, null, "blah"));
+        Mockito.verify(leaderFuture, Mockito.times(1)).cancel(true);
+        Mockito.verify(future, Mockito.never()).cancel(Mockito.anyBoolean());
+        Mockito.verify(shardedTask, Mockito.never()).cleanup();
+
+        shardedCoordinator.preDestroy();
+        Mockito.verify(future, Mockito.times(1)).cancel(true);
+        Mockito.verify(shardedTask, Mockito.times(1)).cleanup();
     }
 
     /**
@@ -0,0 +1,131 @@
+/*
+ *
+ *  Copyright 2022 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.tasks.leader;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.scheduling.Trigger;
+import org.springframework.scheduling.support.PeriodicTrigger;
+import org.springframework.scheduling.support.SimpleTriggerContext;
+
+import java.time.Instant;
+import java.util.Date;
+
+/**
+ * Unit tests for {@link MonitoredLeaderTask}.
+ *
+ * @since 4.4.0
+ */
+class MonitoredLeaderTaskTest {
+
+    private LeaderTask task;
+    private MeterRegistry registry;
+    private MonitoredLeaderTask monitoredTask;
+
+    @BeforeEach
+    void setup() {
+        this.task = Mockito.mock(LeaderTask.class);
+        this.registry = new SimpleMeterRegistry();
+        this.monitoredTask = new MonitoredLeaderTask(this.task, this.registry);
+    }
+
+    @Test
+    void canRunAndRecordMetrics() {
+        this.monitoredTask.withFixedDelay(60_000L);
+        this.monitoredTask.run();
+
+        Mockito.verify(this.task, Mockito.times(1)).run();
+        Assertions
+            .assertThat(
+                this.registry
+                    .get(MonitoredLeaderTask.RUN_TIMER_NAME)
+                    .tag(MonitoredLeaderTask.TASK_TAG_NAME, this.monitoredTask.getTaskName())
+                    .tag("status", "success")
+                    .timer()
+                    .count()
+            )
+            .isEqualTo(1L);
+        Assertions
+            .assertThat(this.registry.get(MonitoredLeaderTask.LAG_TIMER_NAME).timer().count())
+            .isEqualTo(1L);
+    }
+
+    @Test
+    void failuresAreRecordedAndRethrown() {
+        Mockito.doThrow(new IllegalStateException("fail")).when(this.task).run();
+
+        Assertions.assertThatIllegalStateException().isThrownBy(this.monitoredTask::run);
+
+        Assertions
+            .assertThat(
+                this.registry
+                    .get(MonitoredLeaderTask.RUN_TIMER_NAME)
+                    .tag("status", "failure")
+                    .tag("exceptionClass", IllegalStateException.class.getCanonicalName())
+                    .timer()
+                    .count()
+            )
+            .isEqualTo(1L);
+    }
+
+    @Test
+    void fixedRateRunsWhichCameDueWhileStillRunningAreSkipped() {
+        this.monitoredTask.atFixedRate(100L);
+        Mockito.doAnswer(
+            invocation -> {
+                Thread.sleep(250L);
+                return null;
+            }
+        ).when(this.task).run();
+
+        // The first run takes more than two periods so the run due at 100ms is a full period behind and skipped while
+        // the one due at 200ms is still run
+        this.monitoredTask.run();
+        this.monitoredTask.run();
+        this.monitoredTask.run();
+
+        Mockito.verify(this.task, Mockito.times(2)).run();
+        Assertions
+            .assertThat(this.registry.get(MonitoredLeaderTask.OVERRUN_COUNTER_NAME).counter().count())
+            .isEqualTo(1.0);
+    }
+
+    @Test
+    void triggerCountsRunsMissedWhileStillRunning() {
+        final Trigger trigger = this.monitoredTask.monitor(new PeriodicTrigger(1_000L));
+        final Date scheduled = Date.from(Instant.now().minusSeconds(10L));
+
+        // Completed well within the period
+        Assertions
+            .assertThat(trigger.nextExecutionTime(new SimpleTriggerContext(scheduled, scheduled, scheduled)))
+            .isNotNull();
+        Assertions.assertThat(this.registry.find(MonitoredLeaderTask.OVERRUN_COUNTER_NAME).counter()).isNull();
+
+        // Completed after the next run was due
+        final Date completed = Date.from(scheduled.toInstant().plusSeconds(5L));
+        final Date next = trigger.nextExecutionTime(new SimpleTriggerContext(scheduled, scheduled, completed));
+        Assertions.assertThat(next).isEqualTo(Date.from(completed.toInstant().plusSeconds(1L)));
+        Assertions
+            .assertThat(this.registry.get(MonitoredLeaderTask.OVERRUN_COUNTER_NAME).counter().count())
+            .isEqualTo(1.0);
+    }
+}